@@ -44,6 +44,8 @@ public class BenchmarkSuite
                 new DoubleSumAggregationBenchmark(localQueryRunner),
                 new HashAggregationBenchmark(localQueryRunner),
                 new PredicateFilterBenchmark(localQueryRunner),
+                new PredicateFilterBenchmark.BigintBenchmark(localQueryRunner),
+                new PredicateFilterBenchmark.ColumnarBigintBenchmark(localQueryRunner),
                 new RawStreamingBenchmark(localQueryRunner),
                 new Top100Benchmark(localQueryRunner),
                 new OrderByBenchmark(localQueryRunner),
@@ -53,6 +55,7 @@ public class BenchmarkSuite
                 new HashBuildAndJoinBenchmark(optimizeHashSession, localQueryRunner),
                 new HandTpchQuery1(localQueryRunner),
                 new HandTpchQuery6(localQueryRunner),
+                new HandTpchQuery6.ColumnarBenchmark(localQueryRunner),
 
                 // sql benchmarks
                 new GroupBySumWithArithmeticSqlBenchmark(localQueryRunner),
@@ -72,9 +75,16 @@ public class BenchmarkSuite
                 new SqlTpchQuery1(localQueryRunner),
                 new SqlTpchQuery6(localQueryRunner),
                 new SqlLikeBenchmark(localQueryRunner),
+                new SqlLikeBenchmark.PrefixBenchmark(localQueryRunner),
+                new SqlLikeBenchmark.ContainsBenchmark(localQueryRunner),
+                new SqlLikeBenchmark.SingleCharacterBenchmark(localQueryRunner),
                 new SqlInBenchmark(localQueryRunner),
                 new SqlSemiJoinInPredicateBenchmark(localQueryRunner),
                 new SqlRegexpLikeBenchmark(localQueryRunner),
+                new SqlRegexpLikeBenchmark.LiteralBenchmark(localQueryRunner),
+                new SqlRegexpLikeBenchmark.AlternationBenchmark(localQueryRunner),
+                new SqlJsonExtractScalarBenchmark(localQueryRunner),
+                new SqlJsonExtractScalarBenchmark.MultiplePathsBenchmark(localQueryRunner),
                 new SqlApproximatePercentileBenchmark(localQueryRunner),
                 new SqlBetweenBenchmark(localQueryRunner),
 
@@ -29,6 +29,7 @@ import com.facebook.presto.operator.project.SelectedPositions;
 import com.facebook.presto.spi.function.JavaAggregationFunctionImplementation;
 import com.facebook.presto.spi.plan.AggregationNode.Step;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.sql.gen.PageFunctionCompiler;
 import com.facebook.presto.testing.LocalQueryRunner;
 import com.facebook.presto.util.DateTimeUtils;
@@ -40,11 +41,13 @@ import java.util.function.Supplier;
 
 import static com.facebook.airlift.units.DataSize.Unit.BYTE;
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
+import static com.facebook.presto.common.function.OperatorType.MULTIPLY;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.DateType.DATE;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.operator.aggregation.GenericAccumulatorFactory.generateAccumulatorFactory;
 import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
+import static com.facebook.presto.sql.relational.Expressions.call;
 import static com.facebook.presto.sql.relational.Expressions.field;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
@@ -52,10 +55,17 @@ public class HandTpchQuery6
         extends AbstractSimpleOperatorBenchmark
 {
     private final JavaAggregationFunctionImplementation doubleSum;
+    private final boolean columnarEvaluationEnabled;
 
     public HandTpchQuery6(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "hand_tpch_query_6", 10, 100);
+        this(localQueryRunner, "hand_tpch_query_6", false);
+    }
+
+    protected HandTpchQuery6(LocalQueryRunner localQueryRunner, String benchmarkName, boolean columnarEvaluationEnabled)
+    {
+        super(localQueryRunner, benchmarkName, 10, 100);
+        this.columnarEvaluationEnabled = columnarEvaluationEnabled;
         FunctionAndTypeManager functionAndTypeManager = localQueryRunner.getMetadata().getFunctionAndTypeManager();
         doubleSum = functionAndTypeManager.getJavaAggregateFunctionImplementation(
                 functionAndTypeManager.lookupFunction("sum", fromTypes(DOUBLE)));
@@ -73,11 +83,18 @@ public class HandTpchQuery6
         //    and quantity < 24;
         OperatorFactory tableScanOperator = createTableScanOperator(0, new PlanNodeId("test"), "lineitem", "extendedprice", "discount", "shipdate", "quantity");
 
-        List<Supplier<PageProjectionWithOutputs>> projection = new PageFunctionCompiler(localQueryRunner.getMetadata(), 0)
+        FunctionAndTypeManager functionAndTypeManager = localQueryRunner.getMetadata().getFunctionAndTypeManager();
+        RowExpression revenue = call(
+                MULTIPLY.name(),
+                functionAndTypeManager.resolveOperator(MULTIPLY, fromTypes(DOUBLE, DOUBLE)),
+                DOUBLE,
+                field(0, DOUBLE),
+                field(1, DOUBLE));
+        List<Supplier<PageProjectionWithOutputs>> projection = new PageFunctionCompiler(localQueryRunner.getMetadata(), 0, Optional.empty(), columnarEvaluationEnabled)
                 .compileProjections(
                         session.getSqlFunctionProperties(),
                         session.getSessionFunctions(),
-                        ImmutableList.of(field(0, BIGINT)),
+                        ImmutableList.of(revenue),
                         false,
                         Optional.empty());
 
@@ -149,6 +166,18 @@ public class HandTpchQuery6
 
     public static void main(String[] args)
     {
-        new HandTpchQuery6(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        new HandTpchQuery6(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new ColumnarBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+    }
+
+    // the revenue is computed over the values of the blocks by ColumnarPageProjection
+    public static class ColumnarBenchmark
+            extends HandTpchQuery6
+    {
+        public ColumnarBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "hand_tpch_query_6_columnar", true);
+        }
     }
 }
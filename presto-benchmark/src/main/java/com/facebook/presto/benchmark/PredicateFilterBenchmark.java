@@ -14,6 +14,7 @@
 package com.facebook.presto.benchmark;
 
 import com.facebook.airlift.units.DataSize;
+import com.facebook.presto.common.type.Type;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.operator.FilterAndProjectOperator;
 import com.facebook.presto.operator.OperatorFactory;
@@ -32,40 +33,56 @@ import java.util.function.Supplier;
 import static com.facebook.airlift.units.DataSize.Unit.BYTE;
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
 import static com.facebook.presto.common.function.OperatorType.GREATER_THAN_OR_EQUAL;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
 import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
 import static com.facebook.presto.sql.relational.Expressions.call;
 import static com.facebook.presto.sql.relational.Expressions.constant;
 import static com.facebook.presto.sql.relational.Expressions.field;
+import static java.util.Objects.requireNonNull;
 
 public class PredicateFilterBenchmark
         extends AbstractSimpleOperatorBenchmark
 {
+    private final String column;
+    private final Type type;
+    private final Object value;
+    private final boolean columnarEvaluationEnabled;
+
     public PredicateFilterBenchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "predicate_filter", 5, 50);
+        this(localQueryRunner, "predicate_filter", "totalprice", DOUBLE, 50000.0, false);
+    }
+
+    protected PredicateFilterBenchmark(LocalQueryRunner localQueryRunner, String benchmarkName, String column, Type type, Object value, boolean columnarEvaluationEnabled)
+    {
+        super(localQueryRunner, benchmarkName, 5, 50);
+        this.column = requireNonNull(column, "column is null");
+        this.type = requireNonNull(type, "type is null");
+        this.value = requireNonNull(value, "value is null");
+        this.columnarEvaluationEnabled = columnarEvaluationEnabled;
     }
 
     @Override
     protected List<? extends OperatorFactory> createOperatorFactories()
     {
         Metadata metadata = localQueryRunner.getMetadata();
-        OperatorFactory tableScanOperator = createTableScanOperator(0, new PlanNodeId("test"), "orders", "totalprice");
+        OperatorFactory tableScanOperator = createTableScanOperator(0, new PlanNodeId("test"), "orders", column);
         RowExpression filter = call(
                 GREATER_THAN_OR_EQUAL.name(),
-                metadata.getFunctionAndTypeManager().resolveOperator(GREATER_THAN_OR_EQUAL, fromTypes(DOUBLE, DOUBLE)),
+                metadata.getFunctionAndTypeManager().resolveOperator(GREATER_THAN_OR_EQUAL, fromTypes(type, type)),
                 BOOLEAN,
-                field(0, DOUBLE),
-                constant(50000.0, DOUBLE));
-        ExpressionCompiler expressionCompiler = new ExpressionCompiler(metadata, new PageFunctionCompiler(metadata, 0));
-        Supplier<PageProcessor> pageProcessor = expressionCompiler.compilePageProcessor(localQueryRunner.getDefaultSession().getSqlFunctionProperties(), Optional.of(filter), ImmutableList.of(field(0, DOUBLE)));
+                field(0, type),
+                constant(value, type));
+        ExpressionCompiler expressionCompiler = new ExpressionCompiler(metadata, new PageFunctionCompiler(metadata, 0, Optional.empty(), columnarEvaluationEnabled));
+        Supplier<PageProcessor> pageProcessor = expressionCompiler.compilePageProcessor(localQueryRunner.getDefaultSession().getSqlFunctionProperties(), Optional.of(filter), ImmutableList.of(field(0, type)));
 
         FilterAndProjectOperator.FilterAndProjectOperatorFactory filterAndProjectOperator = new FilterAndProjectOperator.FilterAndProjectOperatorFactory(
                 1,
                 new PlanNodeId("test"),
                 pageProcessor,
-                ImmutableList.of(DOUBLE),
+                ImmutableList.of(type),
                 new DataSize(0, BYTE),
                 0);
 
@@ -74,6 +91,29 @@ public class PredicateFilterBenchmark
 
     public static void main(String[] args)
     {
-        new PredicateFilterBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        new PredicateFilterBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new BigintBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new ColumnarBigintBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+    }
+
+    // evaluated by generated code
+    public static class BigintBenchmark
+            extends PredicateFilterBenchmark
+    {
+        public BigintBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "predicate_filter_bigint", "custkey", BIGINT, 75_000L, false);
+        }
+    }
+
+    // evaluated over the values of the blocks by ColumnarPageFilter
+    public static class ColumnarBigintBenchmark
+            extends PredicateFilterBenchmark
+    {
+        public ColumnarBigintBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "predicate_filter_bigint_columnar", "custkey", BIGINT, 75_000L, true);
+        }
     }
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.benchmark;
+
+import com.facebook.presto.testing.LocalQueryRunner;
+import org.intellij.lang.annotations.Language;
+
+import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
+import static java.lang.String.format;
+
+public class SqlArraySetFunctionsBenchmark
+        extends AbstractSqlBenchmark
+{
+    private static final String BIGINT_ARRAY = "SEQUENCE(1, random(%s))";
+    private static final String DOUBLE_ARRAY = "TRANSFORM(SEQUENCE(1, random(%s)), x -> CAST(x AS double) / 2)";
+    private static final String VARCHAR_ARRAY = "TRANSFORM(SEQUENCE(1, random(%s)), x -> CAST(x AS varchar))";
+
+    public SqlArraySetFunctionsBenchmark(LocalQueryRunner localQueryRunner, String query, String name)
+    {
+        super(localQueryRunner, name, 4, 5, query);
+    }
+
+    public static void main(String[] args)
+    {
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        for (String function : new String[] {"array_union", "array_intersect", "array_except"}) {
+            run(localQueryRunner, format("%s(%s, %s)", function, BIGINT_ARRAY, BIGINT_ARRAY), 1000, function + "_bigint_1k");
+            run(localQueryRunner, format("%s(%s, %s)", function, BIGINT_ARRAY, BIGINT_ARRAY), 4, function + "_bigint_4");
+            run(localQueryRunner, format("%s(%s, %s)", function, DOUBLE_ARRAY, DOUBLE_ARRAY), 1000, function + "_double_1k");
+            run(localQueryRunner, format("%s(%s, %s)", function, VARCHAR_ARRAY, VARCHAR_ARRAY), 1000, function + "_varchar_1k");
+        }
+        run(localQueryRunner, format("array_distinct(%s || %s)", BIGINT_ARRAY, BIGINT_ARRAY), 1000, "array_distinct_bigint_1k");
+        run(localQueryRunner, format("array_distinct(%s || %s)", VARCHAR_ARRAY, VARCHAR_ARRAY), 1000, "array_distinct_varchar_1k");
+        run(localQueryRunner, "map_from_entries(TRANSFORM(SEQUENCE(1, random(%s)), x -> ROW(x, x * 2)))", 1000, "map_from_entries_bigint_1k");
+    }
+
+    private static void run(LocalQueryRunner localQueryRunner, String expression, int maxArraySize, String name)
+    {
+        @Language("SQL") String query = format("SELECT %s AS x FROM (SELECT 1) CROSS JOIN UNNEST(SEQUENCE(1, 10000)) T(x)", format(expression, maxArraySize, maxArraySize));
+        new SqlArraySetFunctionsBenchmark(localQueryRunner, query, "sql_" + name).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.benchmark;
+
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.google.common.collect.ImmutableMap;
+
+import static com.facebook.presto.SystemSessionProperties.OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD;
+import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
+
+public class SqlJsonExtractScalarBenchmark
+        extends AbstractSqlBenchmark
+{
+    private static final String ORDER_JSON = "'{\"key\": ' || cast(orderkey AS varchar) || ', \"status\": \"' || orderstatus || '\", " +
+            "\"price\": ' || cast(totalprice AS varchar) || ', \"priority\": {\"name\": \"' || orderpriority || '\", \"clerk\": \"' || clerk || '\"}, " +
+            "\"comment\": \"' || comment || '\"}'";
+
+    public SqlJsonExtractScalarBenchmark(LocalQueryRunner localQueryRunner)
+    {
+        super(localQueryRunner, "sql_json_extract_scalar", 4, 5, "SELECT count(json_extract_scalar(" + ORDER_JSON + ", '$.priority.clerk')) FROM orders");
+    }
+
+    public static void main(String[] args)
+    {
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        new SqlJsonExtractScalarBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new MultiplePathsBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new MultiplePathsBenchmark(createLocalQueryRunner(ImmutableMap.of(OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD, "true")))
+                .runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+    }
+
+    // extracted together when optimize_multiple_json_extract_scalar_on_same_field is enabled
+    public static class MultiplePathsBenchmark
+            extends AbstractSqlBenchmark
+    {
+        public MultiplePathsBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "sql_json_extract_scalar_multiple_paths", 4, 5, "SELECT count(json_extract_scalar(json, '$.key')), count(json_extract_scalar(json, '$.status')), " +
+                    "count(json_extract_scalar(json, '$.priority.name')), count(json_extract_scalar(json, '$.comment')) FROM (SELECT " + ORDER_JSON + " AS json FROM orders)");
+        }
+    }
+}
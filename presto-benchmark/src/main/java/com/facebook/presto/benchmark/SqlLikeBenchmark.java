@@ -27,6 +27,40 @@ public class SqlLikeBenchmark
 
     public static void main(String[] args)
     {
-        new SqlLikeBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        new SqlLikeBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new PrefixBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new ContainsBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new SingleCharacterBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+    }
+
+    // matched without the regex engine
+    public static class PrefixBenchmark
+            extends AbstractSqlBenchmark
+    {
+        public PrefixBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "sql_like_prefix", 4, 5, "SELECT orderkey FROM lineitem WHERE comment LIKE 'furiously%'");
+        }
+    }
+
+    // matched without the regex engine
+    public static class ContainsBenchmark
+            extends AbstractSqlBenchmark
+    {
+        public ContainsBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "sql_like_contains", 4, 5, "SELECT orderkey FROM lineitem WHERE comment LIKE '%special%'");
+        }
+    }
+
+    // '_' is matched by the regex engine
+    public static class SingleCharacterBenchmark
+            extends AbstractSqlBenchmark
+    {
+        public SingleCharacterBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "sql_like_single_character", 4, 5, "SELECT orderkey FROM lineitem WHERE comment LIKE '%spec_al%'");
+        }
     }
 }
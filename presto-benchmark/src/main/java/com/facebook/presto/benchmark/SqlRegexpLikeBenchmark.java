@@ -27,6 +27,29 @@ public class SqlRegexpLikeBenchmark
 
     public static void main(String[] args)
     {
-        new SqlRegexpLikeBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        new SqlRegexpLikeBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new LiteralBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new AlternationBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+    }
+
+    // matched without the regex engine
+    public static class LiteralBenchmark
+            extends AbstractSqlBenchmark
+    {
+        public LiteralBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "sql_regexp_like_literal", 4, 5, "SELECT count(*) FROM orders WHERE regexp_like(comment, 'special')");
+        }
+    }
+
+    // matched with an Aho-Corasick automaton
+    public static class AlternationBenchmark
+            extends AbstractSqlBenchmark
+    {
+        public AlternationBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "sql_regexp_like_alternation", 4, 5, "SELECT count(*) FROM orders WHERE regexp_like(comment, 'special|pending|express')");
+        }
     }
 }
@@ -13,16 +13,22 @@
  */
 package com.facebook.presto.common;
 
+import com.facebook.presto.common.block.ArrayAllocator;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.block.PageBuilderStatus;
+import com.facebook.presto.common.block.VariableWidthBlockBuilder;
 import com.facebook.presto.common.type.Type;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.facebook.presto.common.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static java.util.Collections.newSetFromMap;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 
@@ -36,6 +42,9 @@ public class PageBuilder
 
     private final BlockBuilder[] blockBuilders;
     private final List<Type> types;
+    private final Optional<ArrayAllocator> arrayAllocator;
+    // the builders whose arrays are used by built pages, until the pages are released
+    private final Set<VariableWidthBlockBuilder> builtBlockBuilders = newSetFromMap(new IdentityHashMap<>());
     private PageBuilderStatus pageBuilderStatus;
     private int declaredPositions;
 
@@ -56,17 +65,28 @@ public class PageBuilder
 
     public PageBuilder(int initialExpectedEntries, List<? extends Type> types)
     {
-        this(initialExpectedEntries, DEFAULT_MAX_PAGE_SIZE_IN_BYTES, types, Optional.empty());
+        this(initialExpectedEntries, DEFAULT_MAX_PAGE_SIZE_IN_BYTES, types, Optional.empty(), Optional.empty());
     }
 
     public static PageBuilder withMaxPageSize(int maxPageBytes, List<? extends Type> types)
     {
-        return new PageBuilder(DEFAULT_INITIAL_EXPECTED_ENTRIES, maxPageBytes, types, Optional.empty());
+        return new PageBuilder(DEFAULT_INITIAL_EXPECTED_ENTRIES, maxPageBytes, types, Optional.empty(), Optional.empty());
     }
 
-    private PageBuilder(int initialExpectedEntries, int maxPageBytes, List<? extends Type> types, Optional<BlockBuilder[]> templateBlockBuilders)
+    /**
+     * Create a PageBuilder whose variable width block builders borrow their arrays from the allocator instead of
+     * allocating new arrays for each page. The arrays of a page built by this PageBuilder are returned to the
+     * allocator by {@link #releasePages()} once the page is no longer used, typically after it has been serialized.
+     */
+    public static PageBuilder withArrayAllocator(int maxPageBytes, List<? extends Type> types, ArrayAllocator arrayAllocator)
+    {
+        return new PageBuilder(DEFAULT_INITIAL_EXPECTED_ENTRIES, maxPageBytes, types, Optional.empty(), Optional.of(arrayAllocator));
+    }
+
+    private PageBuilder(int initialExpectedEntries, int maxPageBytes, List<? extends Type> types, Optional<BlockBuilder[]> templateBlockBuilders, Optional<ArrayAllocator> arrayAllocator)
     {
         this.types = unmodifiableList(new ArrayList<>(requireNonNull(types, "types is null")));
+        this.arrayAllocator = requireNonNull(arrayAllocator, "arrayAllocator is null");
 
         pageBuilderStatus = new PageBuilderStatus(maxPageBytes);
         blockBuilders = new BlockBuilder[types.size()];
@@ -81,6 +101,9 @@ public class PageBuilder
         else {
             for (int i = 0; i < blockBuilders.length; i++) {
                 blockBuilders[i] = types.get(i).createBlockBuilder(pageBuilderStatus.createBlockBuilderStatus(), initialExpectedEntries);
+                if (arrayAllocator.isPresent() && blockBuilders[i] instanceof VariableWidthBlockBuilder) {
+                    blockBuilders[i] = ((VariableWidthBlockBuilder) blockBuilders[i]).withArrayAllocator(arrayAllocator.get());
+                }
             }
         }
     }
@@ -95,13 +118,44 @@ public class PageBuilder
         declaredPositions = 0;
 
         for (int i = 0; i < blockBuilders.length; i++) {
-            blockBuilders[i] = blockBuilders[i].newBlockBuilderLike(pageBuilderStatus.createBlockBuilderStatus());
+            BlockBuilder blockBuilder = blockBuilders[i];
+            blockBuilders[i] = blockBuilder.newBlockBuilderLike(pageBuilderStatus.createBlockBuilderStatus());
+            // the arrays of a builder which was not built are not used anymore
+            if (arrayAllocator.isPresent() && blockBuilder instanceof VariableWidthBlockBuilder && !builtBlockBuilders.contains(blockBuilder)) {
+                ((VariableWidthBlockBuilder) blockBuilder).returnArrays();
+            }
+        }
+    }
+
+    /**
+     * Returns to the allocator the arrays of the pages built before the last {@link #reset()}. These pages must no
+     * longer be used.
+     */
+    public void releasePages()
+    {
+        Iterator<VariableWidthBlockBuilder> iterator = builtBlockBuilders.iterator();
+        while (iterator.hasNext()) {
+            VariableWidthBlockBuilder blockBuilder = iterator.next();
+            if (!isCurrentBlockBuilder(blockBuilder)) {
+                blockBuilder.returnArrays();
+                iterator.remove();
+            }
         }
     }
 
+    private boolean isCurrentBlockBuilder(BlockBuilder blockBuilder)
+    {
+        for (BlockBuilder currentBlockBuilder : blockBuilders) {
+            if (currentBlockBuilder == blockBuilder) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public PageBuilder newPageBuilderLike()
     {
-        return new PageBuilder(declaredPositions, pageBuilderStatus.getMaxPageSizeInBytes(), types, Optional.of(blockBuilders));
+        return new PageBuilder(declaredPositions, pageBuilderStatus.getMaxPageSizeInBytes(), types, Optional.of(blockBuilders), arrayAllocator);
     }
 
     public BlockBuilder getBlockBuilder(int channel)
@@ -164,6 +218,9 @@ public class PageBuilder
         Block[] blocks = new Block[blockBuilders.length];
         for (int i = 0; i < blocks.length; i++) {
             blocks[i] = blockBuilders[i].build();
+            if (arrayAllocator.isPresent() && blockBuilders[i] instanceof VariableWidthBlockBuilder) {
+                builtBlockBuilders.add((VariableWidthBlockBuilder) blockBuilders[i]);
+            }
             if (blocks[i].getPositionCount() != declaredPositions) {
                 throw new IllegalStateException(String.format("Declared positions (%s) does not match block %s's number of entries (%s)", declaredPositions, i, blocks[i].getPositionCount()));
             }
@@ -87,4 +87,8 @@ public class RuntimeMetricName
     public static final String DIRECTORY_LISTING_CACHE_MISS = "directoryListingCacheMiss";
     public static final String DIRECTORY_LISTING_TIME_NANOS = "directoryListingTimeNanos";
     public static final String FILES_READ_COUNT = "filesReadCount";
+    // Revocable memory of an operator revoked by the spill cost based memory arbitration
+    public static final String MEMORY_ARBITRATION_REVOKED_BYTES = "memoryArbitrationRevokedBytes";
+    // Number of times an operator close to completion was skipped by the spill cost based memory arbitration
+    public static final String MEMORY_ARBITRATION_PROTECTED_COUNT = "memoryArbitrationProtectedCount";
 }
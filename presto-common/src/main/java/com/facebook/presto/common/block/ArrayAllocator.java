@@ -16,7 +16,8 @@ package com.facebook.presto.common.block;
 
 /**
  * Manages the creation and return of primitive arrays, to be used within an operator to avoid repeated array allocation.
- * Typically this will be used within {@link BlockFlattener}.
+ * Typically this will be used within {@link BlockFlattener}, or by a {@link VariableWidthBlockBuilder} that draws its
+ * arrays from a per-driver pool.
  *
  * The arrays which are returned may have a size which exceeds the specified {@code positionCount}, and they are not
  * guaranteed to be filled with the type's default value.
@@ -31,6 +32,10 @@ public interface ArrayAllocator
 
     void returnArray(byte[] array);
 
+    boolean[] borrowBooleanArray(int positionCount);
+
+    void returnArray(boolean[] array);
+
     /**
      * @return the number of borrowed arrays which have not been returned
      */
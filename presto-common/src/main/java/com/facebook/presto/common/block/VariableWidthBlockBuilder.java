@@ -47,6 +47,7 @@ import static io.airlift.slice.SizeOf.sizeOf;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
 
 public class VariableWidthBlockBuilder
         extends AbstractVariableWidthBlockBuilder
@@ -54,12 +55,16 @@ public class VariableWidthBlockBuilder
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(VariableWidthBlockBuilder.class).instanceSize();
 
     private BlockBuilderStatus blockBuilderStatus;
+    @Nullable
+    private final ArrayAllocator arrayAllocator;
 
     private boolean initialized;
     private int initialEntryCount;
     private int initialSliceOutputSize;
 
     private SliceOutput sliceOutput = new DynamicSliceOutput(0);
+    // the array under sliceOutput when the arrays are borrowed from arrayAllocator
+    private byte[] sliceArray;
 
     private boolean hasNullValue;
     // it is assumed that the offsets array is one position longer than the valueIsNull array
@@ -72,8 +77,20 @@ public class VariableWidthBlockBuilder
     private long arraysRetainedSizeInBytes;
 
     public VariableWidthBlockBuilder(@Nullable BlockBuilderStatus blockBuilderStatus, int expectedEntries, int expectedBytes)
+    {
+        this(blockBuilderStatus, expectedEntries, expectedBytes, null);
+    }
+
+    /**
+     * Creates a builder that borrows its arrays from the allocator, grows them by borrowing larger arrays and returning
+     * the smaller ones, and returns them on {@link #returnArrays()}. The arrays are reused as soon as they are returned,
+     * so the blocks and slices read from the builder are only valid until it grows, and the blocks built from it until
+     * its arrays are returned.
+     */
+    public VariableWidthBlockBuilder(@Nullable BlockBuilderStatus blockBuilderStatus, int expectedEntries, int expectedBytes, @Nullable ArrayAllocator arrayAllocator)
     {
         this.blockBuilderStatus = blockBuilderStatus;
+        this.arrayAllocator = arrayAllocator;
 
         initialEntryCount = expectedEntries;
         initialSliceOutputSize = min(expectedBytes, MAX_ARRAY_SIZE);
@@ -200,9 +217,7 @@ public class VariableWidthBlockBuilder
     @Override
     public BlockBuilder writeByte(int value)
     {
-        if (!initialized) {
-            initializeCapacity();
-        }
+        prepareWrite(SIZE_OF_BYTE);
         sliceOutput.writeByte(value);
         currentEntrySize += SIZE_OF_BYTE;
         return this;
@@ -211,9 +226,7 @@ public class VariableWidthBlockBuilder
     @Override
     public BlockBuilder writeShort(int value)
     {
-        if (!initialized) {
-            initializeCapacity();
-        }
+        prepareWrite(SIZE_OF_SHORT);
         sliceOutput.writeShort(value);
         currentEntrySize += SIZE_OF_SHORT;
         return this;
@@ -222,9 +235,7 @@ public class VariableWidthBlockBuilder
     @Override
     public BlockBuilder writeInt(int value)
     {
-        if (!initialized) {
-            initializeCapacity();
-        }
+        prepareWrite(SIZE_OF_INT);
         sliceOutput.writeInt(value);
         currentEntrySize += SIZE_OF_INT;
         return this;
@@ -233,9 +244,7 @@ public class VariableWidthBlockBuilder
     @Override
     public BlockBuilder writeLong(long value)
     {
-        if (!initialized) {
-            initializeCapacity();
-        }
+        prepareWrite(SIZE_OF_LONG);
         sliceOutput.writeLong(value);
         currentEntrySize += SIZE_OF_LONG;
         return this;
@@ -246,9 +255,7 @@ public class VariableWidthBlockBuilder
     {
         checkValidSliceRange(sourceIndex, length);
 
-        if (!initialized) {
-            initializeCapacity();
-        }
+        prepareWrite(length);
 
         sliceOutput.writeBytes(source, sourceIndex, length);
         currentEntrySize += length;
@@ -260,9 +267,7 @@ public class VariableWidthBlockBuilder
     {
         checkValidSliceRange(sourceIndex, length);
 
-        if (!initialized) {
-            initializeCapacity();
-        }
+        prepareWrite(length);
         sliceOutput.writeBytes(source, sourceIndex, length);
         currentEntrySize += length;
         return this;
@@ -307,23 +312,104 @@ public class VariableWidthBlockBuilder
         }
     }
 
+    private void prepareWrite(int length)
+    {
+        if (!initialized) {
+            initializeCapacity();
+        }
+        if (arrayAllocator != null && sliceArray.length - sliceOutput.size() < length) {
+            growSliceArray(length);
+        }
+    }
+
     private void growCapacity()
     {
         int newSize = BlockUtil.calculateNewArraySize(valueIsNull.length);
-        valueIsNull = Arrays.copyOf(valueIsNull, newSize);
-        offsets = Arrays.copyOf(offsets, newSize + 1);
+        if (arrayAllocator == null) {
+            valueIsNull = Arrays.copyOf(valueIsNull, newSize);
+            offsets = Arrays.copyOf(offsets, newSize + 1);
+        }
+        else {
+            boolean[] newValueIsNull = arrayAllocator.borrowBooleanArray(newSize);
+            int[] newOffsets = arrayAllocator.borrowIntArray(newValueIsNull.length + 1);
+            System.arraycopy(valueIsNull, 0, newValueIsNull, 0, positions);
+            System.arraycopy(offsets, 0, newOffsets, 0, positions + 1);
+            arrayAllocator.returnArray(valueIsNull);
+            arrayAllocator.returnArray(offsets);
+            valueIsNull = newValueIsNull;
+            offsets = newOffsets;
+        }
         updateArraysDataSize();
     }
 
+    private void growSliceArray(int length)
+    {
+        int size = sliceOutput.size();
+        if ((long) size + length > MAX_ARRAY_SIZE) {
+            throw new IllegalArgumentException(format("Can not grow array beyond '%s'", MAX_ARRAY_SIZE));
+        }
+        byte[] newSliceArray = arrayAllocator.borrowByteArray(max(size + length, BlockUtil.calculateNewArraySize(sliceArray.length)));
+        SliceOutput newSliceOutput = Slices.wrappedBuffer(newSliceArray).getOutput();
+        newSliceOutput.writeBytes(sliceArray, 0, size);
+        arrayAllocator.returnArray(sliceArray);
+        sliceArray = newSliceArray;
+        sliceOutput = newSliceOutput;
+    }
+
     private void initializeCapacity()
     {
         if (positions != 0 || currentEntrySize != 0) {
             throw new IllegalStateException(getClass().getSimpleName() + " was used before initialization");
         }
         initialized = true;
-        valueIsNull = new boolean[initialEntryCount];
-        offsets = new int[initialEntryCount + 1];
-        sliceOutput = new DynamicSliceOutput(initialSliceOutputSize);
+        if (arrayAllocator == null) {
+            valueIsNull = new boolean[initialEntryCount];
+            offsets = new int[initialEntryCount + 1];
+            sliceOutput = new DynamicSliceOutput(initialSliceOutputSize);
+        }
+        else {
+            // borrowed arrays may be larger than requested, and are not cleared
+            valueIsNull = arrayAllocator.borrowBooleanArray(initialEntryCount);
+            offsets = arrayAllocator.borrowIntArray(valueIsNull.length + 1);
+            offsets[0] = 0;
+            sliceArray = arrayAllocator.borrowByteArray(initialSliceOutputSize);
+            sliceOutput = Slices.wrappedBuffer(sliceArray).getOutput();
+        }
+        updateArraysDataSize();
+    }
+
+    /**
+     * Returns an empty builder with the same status and initial capacity that borrows its arrays from the allocator.
+     */
+    public VariableWidthBlockBuilder withArrayAllocator(ArrayAllocator arrayAllocator)
+    {
+        if (initialized) {
+            throw new IllegalStateException(getClass().getSimpleName() + " was already used");
+        }
+        return new VariableWidthBlockBuilder(blockBuilderStatus, initialEntryCount, initialSliceOutputSize, requireNonNull(arrayAllocator, "arrayAllocator is null"));
+    }
+
+    /**
+     * Returns the arrays borrowed from the allocator, after which the builder is empty. The blocks built from the
+     * builder must no longer be used.
+     */
+    public void returnArrays()
+    {
+        if (arrayAllocator == null || !initialized) {
+            return;
+        }
+        arrayAllocator.returnArray(valueIsNull);
+        arrayAllocator.returnArray(offsets);
+        arrayAllocator.returnArray(sliceArray);
+
+        initialized = false;
+        positions = 0;
+        currentEntrySize = 0;
+        hasNullValue = false;
+        valueIsNull = new boolean[0];
+        offsets = new int[1];
+        sliceArray = null;
+        sliceOutput = new DynamicSliceOutput(0);
         updateArraysDataSize();
     }
 
@@ -340,10 +426,8 @@ public class VariableWidthBlockBuilder
             appendNull();
         }
         else {
-            if (!initialized) {
-                initializeCapacity();
-            }
             int length = input.readInt();
+            prepareWrite(length);
             try {
                 sliceOutput.writeBytes(input, length);
             }
@@ -406,7 +490,7 @@ public class VariableWidthBlockBuilder
     public BlockBuilder newBlockBuilderLike(BlockBuilderStatus blockBuilderStatus)
     {
         int currentSizeInBytes = positions == 0 ? positions : (getOffset(positions) - getOffset(0));
-        return new VariableWidthBlockBuilder(blockBuilderStatus, calculateBlockResetSize(positions), calculateBlockResetSize(currentSizeInBytes));
+        return new VariableWidthBlockBuilder(blockBuilderStatus, calculateBlockResetSize(positions), calculateBlockResetSize(currentSizeInBytes), arrayAllocator);
     }
 
     @Override
@@ -414,7 +498,7 @@ public class VariableWidthBlockBuilder
     {
         int newSize = max(calculateBlockResetSize(positions), expectedEntries);
         int currentSizeInBytes = offsets[positions];
-        return new VariableWidthBlockBuilder(blockBuilderStatus, newSize, BlockUtil.calculateNestedStructureResetSize(currentSizeInBytes, positions, newSize));
+        return new VariableWidthBlockBuilder(blockBuilderStatus, newSize, BlockUtil.calculateNestedStructureResetSize(currentSizeInBytes, positions, newSize), arrayAllocator);
     }
 
     private int getOffset(int position)
@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.common;
+
+import com.facebook.presto.common.block.CountingArrayAllocator;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.common.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+
+public class TestPageBuilder
+{
+    @Test
+    public void testArrayAllocator()
+    {
+        CountingArrayAllocator arrayAllocator = new CountingArrayAllocator();
+        PageBuilder pageBuilder = PageBuilder.withArrayAllocator(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, ImmutableList.of(BIGINT, VARCHAR, VARCHAR), arrayAllocator);
+
+        appendRows(pageBuilder, 10);
+        // the arrays of the two varchar builders
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 6);
+        Page page = pageBuilder.build();
+        assertEquals(VARCHAR.getSlice(page.getBlock(1), 9), utf8Slice("value9"));
+
+        // the arrays of the built page stay borrowed until it is released
+        pageBuilder.reset();
+        appendRows(pageBuilder, 5);
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 12);
+        assertEquals(VARCHAR.getSlice(page.getBlock(2), 9), utf8Slice("value9"));
+        pageBuilder.releasePages();
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 6);
+
+        // the current builders are released after the next reset
+        pageBuilder.build();
+        pageBuilder.releasePages();
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 6);
+        pageBuilder.reset();
+        pageBuilder.releasePages();
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 0);
+
+        // the arrays of a builder which was not built are returned on reset
+        appendRows(pageBuilder, 5);
+        pageBuilder.reset();
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 0);
+    }
+
+    private static void appendRows(PageBuilder pageBuilder, int rows)
+    {
+        for (int i = 0; i < rows; i++) {
+            pageBuilder.declarePosition();
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(0), i);
+            VARCHAR.writeSlice(pageBuilder.getBlockBuilder(1), utf8Slice("value" + i));
+            VARCHAR.writeSlice(pageBuilder.getBlockBuilder(2), utf8Slice("value" + i));
+        }
+    }
+}
@@ -22,6 +22,7 @@ public class CountingArrayAllocator
 {
     private int borrowedIntArrays;
     private int borrowedByteArrays;
+    private int borrowedBooleanArrays;
 
     @Override
     public int[] borrowIntArray(int positionCount)
@@ -49,10 +50,23 @@ public class CountingArrayAllocator
         borrowedByteArrays--;
     }
 
+    @Override
+    public boolean[] borrowBooleanArray(int positionCount)
+    {
+        borrowedBooleanArrays++;
+        return new boolean[positionCount];
+    }
+
+    @Override
+    public void returnArray(boolean[] array)
+    {
+        borrowedBooleanArrays--;
+    }
+
     @Override
     public int getBorrowedArrayCount()
     {
-        return borrowedIntArrays + borrowedByteArrays;
+        return borrowedIntArrays + borrowedByteArrays + borrowedBooleanArrays;
     }
 
     @Override
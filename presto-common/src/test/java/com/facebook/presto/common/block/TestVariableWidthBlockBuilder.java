@@ -84,10 +84,49 @@ public class TestVariableWidthBlockBuilder
         verifyBlockValues(blockBuilder.build(), values);
     }
 
+    @Test
+    public void testArrayAllocator()
+    {
+        CountingArrayAllocator arrayAllocator = new CountingArrayAllocator();
+        VariableWidthBlockBuilder blockBuilder = new VariableWidthBlockBuilder(null, 1, 1, arrayAllocator);
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 0);
+
+        // grow the arrays several times, with long values and nulls
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            if (i % 7 == 0) {
+                blockBuilder.appendNull();
+                values.add(null);
+            }
+            else {
+                String value = "value" + i + (i % 100 == 1 ? new String(new char[1000]).replace('\0', 'x') : "");
+                VARCHAR.writeSlice(blockBuilder, utf8Slice(value));
+                values.add(value);
+            }
+        }
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 3);
+        verifyBlockValues(blockBuilder, values);
+        verifyBlockValues(blockBuilder.build(), values);
+
+        BlockBuilder newBlockBuilder = blockBuilder.newBlockBuilderLike(null);
+        blockBuilder.returnArrays();
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 0);
+        assertEquals(blockBuilder.getPositionCount(), 0);
+
+        VARCHAR.writeSlice(newBlockBuilder, utf8Slice("a"));
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 3);
+        ((VariableWidthBlockBuilder) newBlockBuilder).returnArrays();
+        assertEquals(arrayAllocator.getBorrowedArrayCount(), 0);
+    }
+
     private void verifyBlockValues(Block block, List<String> values)
     {
         assertEquals(block.getPositionCount(), values.size());
         for (int i = 0; i < block.getPositionCount(); i++) {
+            if (values.get(i) == null) {
+                assertTrue(block.isNull(i));
+                continue;
+            }
             Slice slice = VARCHAR.getSlice(block, i);
             assertEquals(slice, utf8Slice(values.get(i)));
         }
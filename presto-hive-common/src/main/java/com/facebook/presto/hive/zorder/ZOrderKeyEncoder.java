@@ -0,0 +1,245 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.zorder;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.CharType;
+import com.facebook.presto.common.type.DecimalType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarcharType;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.util.List;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.hive.zorder.ZOrder.MAX_INPUT_DIMENSIONS;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Double.doubleToLongBits;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The ZOrderKeyEncoder class computes, for each row of a page, a z-address over several columns that can be
+ * compared as an unsigned byte sequence, so that sorting rows on it clusters them along a Z-order curve.
+ * <p/>
+ * Every value is first mapped to 64 bits whose unsigned order matches the order of the values: integers have
+ * their sign bit flipped, floating point numbers are mapped to their sortable bit representation and strings
+ * contribute their first 8 bytes. These bits are then scaled to the range of the column, so that the most
+ * significant bit of every column splits its range in two: otherwise the bits of a column spanning a wide range
+ * would all be compared before those of a column spanning a narrow one. Nulls map to zero, which sorts them first.
+ * The bits of all columns are then interweaved from the most significant bit, as in {@link ZOrder}, into a
+ * {@link com.facebook.presto.common.type.VarbinaryType} value of 8 bytes per column.
+ * <p/>
+ * The range of a column is widened by {@link #addRange} with the values of the pages given to it before the first
+ * call to {@link #encode}, such as all the rows of a file, and is then fixed, so that all the addresses computed by an
+ * encoder can be compared with each other. A column without a non-null value at that point takes its range from the
+ * first page encoded holding one. Values out of the range are clamped to it. An encoder is meant to encode the rows
+ * of a single file and is not thread safe.
+ */
+public class ZOrderKeyEncoder
+{
+    private final List<Type> types;
+    // the range of the ordered bits of each column, widened until the first page is encoded
+    private final boolean[] hasRange;
+    private final long[] minimums;
+    private final long[] maximums;
+    private final int[] shifts;
+    private boolean encoding;
+
+    /**
+     * Class constructor specifying the types of the clustered columns, in the order their bits are interweaved.
+     */
+    public ZOrderKeyEncoder(List<Type> types)
+    {
+        requireNonNull(types, "types is null");
+        checkArgument(!types.isEmpty(), "Z-order clustering requires at least one column.");
+        checkArgument(types.size() <= MAX_INPUT_DIMENSIONS, "Z-order clustering supports at most %s columns.", MAX_INPUT_DIMENSIONS);
+        for (Type type : types) {
+            checkArgument(isSupportedType(type), "Type %s is not supported for Z-order clustering.", type);
+        }
+        this.types = ImmutableList.copyOf(types);
+        this.hasRange = new boolean[types.size()];
+        this.minimums = new long[types.size()];
+        this.maximums = new long[types.size()];
+        this.shifts = new int[types.size()];
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT)
+                || type.equals(DATE) || type.equals(TIMESTAMP) || type.equals(BOOLEAN) || type.equals(REAL) || type.equals(DOUBLE)
+                || (type instanceof DecimalType && ((DecimalType) type).isShort())
+                || type instanceof VarcharType || type instanceof CharType || type.equals(VARBINARY);
+    }
+
+    /**
+     * Widens the range of each column to the values of the page. The ranges can no longer be widened once a
+     * page has been encoded.
+     *
+     * @param page the page holding the rows
+     * @param channels the channels of the clustered columns, matching the types of the encoder
+     */
+    public void addRange(Page page, List<Integer> channels)
+    {
+        checkArgument(channels.size() == types.size(), "Expected %s channels, got %s.", types.size(), channels.size());
+        checkState(!encoding, "The ranges are fixed once a page has been encoded.");
+        for (int dimension = 0; dimension < types.size(); dimension++) {
+            widenRange(dimension, page.getBlock(channels.get(dimension)));
+        }
+    }
+
+    /**
+     * Encodes the z-addresses of all rows of the page.
+     *
+     * @param page the page holding the rows
+     * @param channels the channels of the clustered columns, matching the types of the encoder
+     * @return a varbinary block holding the z-address of each row
+     */
+    public Block encode(Page page, List<Integer> channels)
+    {
+        checkArgument(channels.size() == types.size(), "Expected %s channels, got %s.", types.size(), channels.size());
+
+        int positionCount = page.getPositionCount();
+        int dimensions = types.size();
+        Block[] blocks = new Block[dimensions];
+        for (int dimension = 0; dimension < dimensions; dimension++) {
+            blocks[dimension] = page.getBlock(channels.get(dimension));
+            if (!encoding || !hasRange[dimension]) {
+                widenRange(dimension, blocks[dimension]);
+                // shift the most significant bit of the range to the most significant bit of the value
+                shifts[dimension] = numberOfLeadingZeros(maximums[dimension] - minimums[dimension]) % Long.SIZE;
+            }
+        }
+        encoding = true;
+
+        long[] values = new long[dimensions];
+        BlockBuilder blockBuilder = VARBINARY.createBlockBuilder(null, positionCount, dimensions * Long.BYTES);
+        for (int position = 0; position < positionCount; position++) {
+            for (int dimension = 0; dimension < dimensions; dimension++) {
+                Block block = blocks[dimension];
+                values[dimension] = block.isNull(position) ? 0 : scale(dimension, toOrderedBits(types.get(dimension), block, position));
+            }
+            VARBINARY.writeSlice(blockBuilder, interweave(values));
+        }
+        return blockBuilder.build();
+    }
+
+    private void widenRange(int dimension, Block block)
+    {
+        Type type = types.get(dimension);
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                continue;
+            }
+            long bits = toOrderedBits(type, block, position);
+            if (!hasRange[dimension]) {
+                hasRange[dimension] = true;
+                minimums[dimension] = bits;
+                maximums[dimension] = bits;
+            }
+            else if (Long.compareUnsigned(bits, minimums[dimension]) < 0) {
+                minimums[dimension] = bits;
+            }
+            else if (Long.compareUnsigned(bits, maximums[dimension]) > 0) {
+                maximums[dimension] = bits;
+            }
+        }
+    }
+
+    /**
+     * Maps the ordered bits of a value to its offset in the range of the column, shifted so that the most
+     * significant bit of the range is the most significant bit of the result.
+     */
+    private long scale(int dimension, long bits)
+    {
+        if (!hasRange[dimension] || Long.compareUnsigned(bits, minimums[dimension]) <= 0) {
+            return 0;
+        }
+        if (Long.compareUnsigned(bits, maximums[dimension]) >= 0) {
+            bits = maximums[dimension];
+        }
+        return (bits - minimums[dimension]) << shifts[dimension];
+    }
+
+    /**
+     * Interweaves the bits of the values from the most significant bit, the most significant bit of the address
+     * being the most significant bit of the first byte.
+     */
+    static Slice interweave(long[] values)
+    {
+        byte[] address = new byte[values.length * Long.BYTES];
+        int bitIndex = 0;
+        for (int bitPosition = Long.SIZE - 1; bitPosition >= 0; bitPosition--) {
+            for (long value : values) {
+                if (((value >>> bitPosition) & 1) != 0) {
+                    address[bitIndex >> 3] |= (byte) (0x80 >>> (bitIndex & 7));
+                }
+                bitIndex++;
+            }
+        }
+        return Slices.wrappedBuffer(address);
+    }
+
+    /**
+     * Maps the value to 64 bits whose unsigned order matches the order of the values of the type.
+     */
+    static long toOrderedBits(Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return 0;
+        }
+        if (type.equals(BOOLEAN)) {
+            return type.getBoolean(block, position) ? 1 : 0;
+        }
+        if (type.equals(REAL)) {
+            return toOrderedBits(intBitsToFloat(toIntExact(type.getLong(block, position))));
+        }
+        if (type.equals(DOUBLE)) {
+            return toOrderedBits(type.getDouble(block, position));
+        }
+        if (type.getJavaType() == long.class) {
+            return type.getLong(block, position) ^ Long.MIN_VALUE;
+        }
+        Slice slice = type.getSlice(block, position);
+        long bits = 0;
+        for (int index = 0; index < min(slice.length(), Long.BYTES); index++) {
+            bits |= Byte.toUnsignedLong(slice.getByte(index)) << ((Long.BYTES - 1 - index) * Byte.SIZE);
+        }
+        return bits;
+    }
+
+    private static long toOrderedBits(double value)
+    {
+        // negative numbers have all their bits flipped so that larger magnitudes sort first, positive ones only their sign bit
+        long bits = doubleToLongBits(value);
+        return bits ^ ((bits >> (Long.SIZE - 1)) | Long.MIN_VALUE);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.zorder;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestZOrderKeyEncoder
+{
+    @Test
+    public void testInterweave()
+    {
+        // matches the z-addresses of ZOrder for positive values sharing their most significant bits
+        ZOrder zOrder = new ZOrder(ImmutableList.of(3, 3), true);
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                Slice address = ZOrderKeyEncoder.interweave(new long[] {x, y});
+                assertEquals(address.getByte(15) & 0x3F, zOrder.encodeToInteger(ImmutableList.of(x, y)));
+            }
+        }
+    }
+
+    @Test
+    public void testOrderedBits()
+    {
+        assertOrdered(BIGINT, ImmutableList.of(Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE));
+        assertOrdered(DOUBLE, ImmutableList.of(Double.NEGATIVE_INFINITY, -2.5, -0.0, 0.0, 1.0E-10, 3.0, Double.POSITIVE_INFINITY));
+        assertOrdered(VARCHAR, ImmutableList.of(utf8Slice(""), utf8Slice("a"), utf8Slice("ab"), utf8Slice("b"), utf8Slice("\u00e9")));
+    }
+
+    @Test
+    public void testClustering()
+    {
+        ZOrderKeyEncoder encoder = new ZOrderKeyEncoder(ImmutableList.of(BIGINT, BIGINT));
+        Page page = new Page(createBigintBlock(0, 1, 0, 1, 2), createBigintBlock(0, 0, 1, 1, 0));
+        Block addresses = encoder.encode(page, ImmutableList.of(0, 1));
+
+        // (0, 0) < (1, 0) < (0, 1) < (1, 1) < (2, 0) along the curve, the second column spanning half the range of the first
+        assertIncreasing(addresses);
+
+        Page nulls = new Page(createBigintBlock(0, 0), createNullBlock(2));
+        Block nullAddresses = encoder.encode(nulls, ImmutableList.of(0, 1));
+        assertTrue(VARBINARY.getSlice(nullAddresses, 0).compareTo(VARBINARY.getSlice(addresses, 0)) <= 0);
+    }
+
+    @Test
+    public void testColumnsWithDifferentRanges()
+    {
+        ZOrderKeyEncoder encoder = new ZOrderKeyEncoder(ImmutableList.of(BIGINT, BIGINT));
+        Page page = new Page(createBigintBlock(0, 1, 0, 2, 3), createBigintBlock(0, 0, 1_000_000, 0, 1_000_000));
+        Block addresses = encoder.encode(page, ImmutableList.of(0, 1));
+
+        // the most significant bit of the first column is compared first even though the second column spans a much
+        // wider range: (0, 0) < (1, 0) < (0, 1000000) < (2, 0) < (3, 1000000)
+        assertIncreasing(addresses);
+
+        // the ranges of the first page apply to the following ones, values out of them being clamped
+        Block clampedAddresses = encoder.encode(new Page(createBigintBlock(-5, 10), createBigintBlock(-5, 2_000_000)), ImmutableList.of(0, 1));
+        assertEquals(VARBINARY.getSlice(clampedAddresses, 0), VARBINARY.getSlice(addresses, 0));
+        assertEquals(VARBINARY.getSlice(clampedAddresses, 1), VARBINARY.getSlice(addresses, 4));
+    }
+
+    @Test
+    public void testRangeOfAllPages()
+    {
+        // the first page only spans a small part of the values of the file
+        ZOrderKeyEncoder encoder = new ZOrderKeyEncoder(ImmutableList.of(BIGINT, BIGINT));
+        Page first = new Page(createBigintBlock(0, 1), createBigintBlock(0, 1));
+        Page second = new Page(createBigintBlock(500, 1_000, 1_000), createBigintBlock(0, 0, 1_000));
+        encoder.addRange(first, ImmutableList.of(0, 1));
+        encoder.addRange(second, ImmutableList.of(0, 1));
+
+        Block firstAddresses = encoder.encode(first, ImmutableList.of(0, 1));
+        Block secondAddresses = encoder.encode(second, ImmutableList.of(0, 1));
+
+        // the values of the second page are not clamped to the range of the first one
+        assertIncreasing(secondAddresses);
+        assertTrue(VARBINARY.getSlice(firstAddresses, 1).compareTo(VARBINARY.getSlice(secondAddresses, 0)) < 0);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "The ranges are fixed once a page has been encoded.")
+    public void testAddRangeAfterEncode()
+    {
+        ZOrderKeyEncoder encoder = new ZOrderKeyEncoder(ImmutableList.of(BIGINT));
+        Page page = new Page(createBigintBlock(0, 1));
+        encoder.encode(page, ImmutableList.of(0));
+        encoder.addRange(page, ImmutableList.of(0));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Z-order clustering requires at least one column.")
+    public void testEmptyColumns()
+    {
+        new ZOrderKeyEncoder(ImmutableList.of());
+    }
+
+    private static void assertOrdered(Type type, List<?> values)
+    {
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, values.size());
+        for (Object value : values) {
+            if (value instanceof Slice) {
+                type.writeSlice(blockBuilder, (Slice) value);
+            }
+            else if (value instanceof Double) {
+                type.writeDouble(blockBuilder, (Double) value);
+            }
+            else {
+                type.writeLong(blockBuilder, (Long) value);
+            }
+        }
+        Block block = blockBuilder.build();
+        for (int position = 1; position < values.size(); position++) {
+            long previous = ZOrderKeyEncoder.toOrderedBits(type, block, position - 1);
+            long current = ZOrderKeyEncoder.toOrderedBits(type, block, position);
+            assertTrue(Long.compareUnsigned(previous, current) <= 0, values.get(position - 1) + " should not sort after " + values.get(position));
+        }
+    }
+
+    private static void assertIncreasing(Block addresses)
+    {
+        for (int position = 1; position < addresses.getPositionCount(); position++) {
+            assertTrue(VARBINARY.getSlice(addresses, position - 1).compareTo(VARBINARY.getSlice(addresses, position)) < 0);
+        }
+    }
+
+    private static Block createBigintBlock(long... values)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, values.length);
+        for (long value : values) {
+            BIGINT.writeLong(blockBuilder, value);
+        }
+        return blockBuilder.build();
+    }
+
+    private static Block createNullBlock(int positionCount)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, positionCount);
+        for (int position = 0; position < positionCount; position++) {
+            blockBuilder.appendNull();
+        }
+        return blockBuilder.build();
+    }
+}
@@ -19,6 +19,7 @@ import com.facebook.airlift.units.Duration;
 import com.facebook.airlift.units.MinDuration;
 import com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheScope;
 import com.google.common.net.HostAndPort;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
@@ -52,6 +53,11 @@ public class MetastoreClientConfig
     private HiveMetastoreAuthenticationType hiveMetastoreAuthenticationType = HiveMetastoreAuthenticationType.NONE;
     private boolean deleteFilesOnTableDrop;
     private boolean invalidateMetastoreCacheProcedureEnabled;
+    private String partitionCachePath;
+    private long partitionCacheMaximumSize = 1_000_000;
+    private Duration partitionCacheTtl = new Duration(1, TimeUnit.DAYS);
+    private String eventLogPath;
+    private Duration eventLogPollInterval = new Duration(10, TimeUnit.SECONDS);
 
     public HostAndPort getMetastoreSocksProxy()
     {
@@ -316,4 +322,85 @@ public class MetastoreClientConfig
         this.invalidateMetastoreCacheProcedureEnabled = invalidateMetastoreCacheProcedureEnabled;
         return this;
     }
+
+    public String getPartitionCachePath()
+    {
+        return partitionCachePath;
+    }
+
+    @Config("hive.metastore-partition-cache-path")
+    @ConfigDescription("Local directory where partition metadata and statistics are persisted across restarts")
+    public MetastoreClientConfig setPartitionCachePath(String partitionCachePath)
+    {
+        this.partitionCachePath = partitionCachePath;
+        return this;
+    }
+
+    @Min(1)
+    public long getPartitionCacheMaximumSize()
+    {
+        return partitionCacheMaximumSize;
+    }
+
+    @Config("hive.metastore-partition-cache-maximum-size")
+    @ConfigDescription("Maximum number of persisted partitions and partition statistics held in memory")
+    public MetastoreClientConfig setPartitionCacheMaximumSize(long partitionCacheMaximumSize)
+    {
+        this.partitionCacheMaximumSize = partitionCacheMaximumSize;
+        return this;
+    }
+
+    @NotNull
+    public Duration getPartitionCacheTtl()
+    {
+        return partitionCacheTtl;
+    }
+
+    @MinDuration("1ms")
+    @Config("hive.metastore-partition-cache-ttl")
+    @ConfigDescription("Time after which a persisted partition or partition statistics entry is loaded again from the metastore")
+    public MetastoreClientConfig setPartitionCacheTtl(Duration partitionCacheTtl)
+    {
+        this.partitionCacheTtl = partitionCacheTtl;
+        return this;
+    }
+
+    public String getEventLogPath()
+    {
+        return eventLogPath;
+    }
+
+    @Config("hive.metastore-event-log-path")
+    @ConfigDescription("File of metastore notification events, one JSON event per line, used to invalidate cached metadata")
+    public MetastoreClientConfig setEventLogPath(String eventLogPath)
+    {
+        this.eventLogPath = eventLogPath;
+        return this;
+    }
+
+    @NotNull
+    public Duration getEventLogPollInterval()
+    {
+        return eventLogPollInterval;
+    }
+
+    @MinDuration("1ms")
+    @Config("hive.metastore-event-log-poll-interval")
+    public MetastoreClientConfig setEventLogPollInterval(Duration eventLogPollInterval)
+    {
+        this.eventLogPollInterval = eventLogPollInterval;
+        return this;
+    }
+
+    @AssertTrue(message = "hive.metastore-event-log-path must be set when hive.metastore-partition-cache-path is set")
+    public boolean isPartitionCacheInvalidatedByEvents()
+    {
+        return partitionCachePath == null || eventLogPath != null;
+    }
+
+    @AssertTrue(message = "hive.metastore-partition-cache-path cannot be set when hive.metastore-impersonation-enabled is true")
+    public boolean isPartitionCacheShared()
+    {
+        return partitionCachePath == null || !metastoreImpersonationEnabled;
+    }
 }
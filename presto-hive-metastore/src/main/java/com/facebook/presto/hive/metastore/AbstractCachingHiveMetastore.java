@@ -21,12 +21,15 @@ import com.facebook.presto.hive.PartitionNameWithVersion;
 import com.facebook.presto.spi.constraints.TableConstraint;
 import com.facebook.presto.spi.security.PrestoPrincipal;
 import com.facebook.presto.spi.statistics.ColumnStatisticType;
+import com.google.common.collect.ImmutableList;
 import com.google.errorprone.annotations.ThreadSafe;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 /**
  * Hive Metastore Cache
  */
@@ -194,8 +197,9 @@ public abstract class AbstractCachingHiveMetastore
             return getDelegate().addPartitions(metastoreContext, databaseName, tableName, partitions);
         }
         finally {
-            // todo do we need to invalidate all partitions?
-            invalidatePartitionCache(databaseName, tableName);
+            invalidatePartitionCache(databaseName, tableName, partitions.stream()
+                    .map(PartitionWithStatistics::getPartitionName)
+                    .collect(toImmutableList()));
         }
     }
 
@@ -217,7 +221,7 @@ public abstract class AbstractCachingHiveMetastore
             return getDelegate().alterPartition(metastoreContext, databaseName, tableName, partition);
         }
         finally {
-            invalidatePartitionCache(databaseName, tableName);
+            invalidatePartitionCache(databaseName, tableName, ImmutableList.of(partition.getPartitionName()));
         }
     }
 
@@ -272,6 +276,11 @@ public abstract class AbstractCachingHiveMetastore
 
     protected abstract void invalidatePartitionCache(String databaseName, String tableName);
 
+    /**
+     * Invalidates the given partitions of a table, and the partition names of the table.
+     */
+    protected abstract void invalidatePartitionCache(String databaseName, String tableName, List<String> partitionNames);
+
     protected abstract void invalidateTablePrivilegesCache(PrestoPrincipal grantee, String databaseName, String tableName);
 
     @Override
@@ -324,6 +333,35 @@ public abstract class AbstractCachingHiveMetastore
         }
     }
 
+    /**
+     * Invalidates the metadata changed by an event of the metastore notification log.
+     */
+    public void invalidate(MetastoreEvent event)
+    {
+        String databaseName = event.getDatabaseName();
+        switch (event.getEventType()) {
+            case CREATE_DATABASE:
+            case ALTER_DATABASE:
+            case DROP_DATABASE:
+                invalidateDatabaseCache(databaseName);
+                break;
+            case CREATE_TABLE:
+            case ALTER_TABLE:
+            case DROP_TABLE:
+            case UPDATE_TABLE_STATISTICS:
+                invalidateTableCache(databaseName, event.getTableName().get());
+                break;
+            case ADD_PARTITION:
+            case ALTER_PARTITION:
+            case DROP_PARTITION:
+            case UPDATE_PARTITION_STATISTICS:
+                invalidatePartitionCache(databaseName, event.getTableName().get(), event.getPartitionNames());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown metastore event type: " + event.getEventType());
+        }
+    }
+
     @Override
     public void unlock(MetastoreContext metastoreContext, long lockId)
     {
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.size;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads metastore events from a local file with one JSON {@link MetastoreEvent} per line, as a stand-in
+ * for the notification log of the metastore. Lines are only read once they are terminated, so the file
+ * can be appended to while it is polled. A file that shrinks is read again from the start.
+ */
+@ThreadSafe
+public class FileMetastoreEventSource
+        implements MetastoreEventSource
+{
+    private static final JsonCodec<MetastoreEvent> EVENT_CODEC = jsonCodec(MetastoreEvent.class);
+
+    private final Path file;
+
+    @GuardedBy("this")
+    private long position;
+
+    public FileMetastoreEventSource(Path file)
+    {
+        this.file = requireNonNull(file, "file is null");
+    }
+
+    @Override
+    public synchronized List<MetastoreEvent> poll()
+    {
+        try {
+            if (!exists(file)) {
+                position = 0;
+                return ImmutableList.of();
+            }
+            if (size(file) < position) {
+                position = 0;
+            }
+
+            ImmutableList.Builder<MetastoreEvent> events = ImmutableList.builder();
+            try (InputStream input = new BufferedInputStream(newInputStream(file))) {
+                ByteStreams.skipFully(input, position);
+                ByteArrayOutputStream line = new ByteArrayOutputStream();
+                long offset = position;
+                for (int value = input.read(); value >= 0; value = input.read()) {
+                    offset++;
+                    if (value != '\n') {
+                        line.write(value);
+                        continue;
+                    }
+                    String json = new String(line.toByteArray(), UTF_8).trim();
+                    line.reset();
+                    // the line is consumed even if it cannot be parsed, so that a bad line is reported once
+                    position = offset;
+                    if (!json.isEmpty()) {
+                        events.add(parseEvent(json));
+                    }
+                }
+            }
+            return events.build();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(format("Failed to read metastore events from %s", file), e);
+        }
+    }
+
+    private MetastoreEvent parseEvent(String json)
+    {
+        try {
+            return EVENT_CODEC.fromJson(json);
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(format("Invalid metastore event in %s: %s", file, json), e);
+        }
+    }
+}
@@ -0,0 +1,586 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.facebook.airlift.json.smile.SmileCodec;
+import com.facebook.airlift.log.Logger;
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.hive.PartitionNameWithVersion;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.errorprone.annotations.ThreadSafe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+import static com.facebook.airlift.json.smile.SmileCodec.smileCodec;
+import static com.facebook.presto.hive.metastore.MetastoreUtil.toPartitionValues;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newDirectoryStream;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.write;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.util.Objects.requireNonNull;
+import static org.apache.hadoop.hive.common.FileUtils.escapePathName;
+
+/**
+ * Stores partition metadata and statistics in a local directory, in a file per table holding a log
+ * of Smile encoded records: each record adds partitions or statistics, or removes partitions. A table
+ * file is read on the first access to the table and then served from memory, and it is rewritten
+ * with only the live entries once most of the entries it holds have been replaced, removed or have
+ * expired. Dropping a table, or invalidating all of its partitions, deletes its file.
+ * <p>
+ * Every entry records when it was stored and is ignored once it is older than the time to live, which
+ * bounds how stale an entry can get when an event invalidating it is missing from the log.
+ * <p>
+ * The store is local to a coordinator and is not shared with the other coordinators of a cluster:
+ * each of them fills its own store from the metastore and follows the same notification log. The
+ * store only holds what was loaded from the metastore, so it never needs to be consistent with
+ * another store.
+ */
+@ThreadSafe
+public class FilePartitionMetadataStore
+        implements PartitionMetadataStore
+{
+    private static final Logger log = Logger.get(FilePartitionMetadataStore.class);
+
+    private static final SmileCodec<PartitionMetadataRecord> RECORD_CODEC = smileCodec(PartitionMetadataRecord.class);
+    private static final String TABLE_FILE_SUFFIX = ".partitions";
+    private static final String LAST_EVENT_ID_FILE = "last-event-id";
+    private static final int MIN_ENTRIES_TO_COMPACT = 1024;
+
+    private final Path directory;
+    private final long ttlMillis;
+    private final Clock clock;
+    // the tables read from disk, weighed by the number of entries they hold
+    private final Cache<HiveTableName, TablePartitionMetadata> tables;
+
+    public FilePartitionMetadataStore(Path directory, long maximumEntries, Duration ttl)
+    {
+        this(directory, maximumEntries, ttl, Clock.systemUTC());
+    }
+
+    @VisibleForTesting
+    FilePartitionMetadataStore(Path directory, long maximumEntries, Duration ttl, Clock clock)
+    {
+        this.directory = requireNonNull(directory, "directory is null");
+        this.ttlMillis = requireNonNull(ttl, "ttl is null").toMillis();
+        this.clock = requireNonNull(clock, "clock is null");
+        try {
+            createDirectories(directory);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(format("Failed to create partition cache directory %s", directory), e);
+        }
+        this.tables = CacheBuilder.newBuilder()
+                .maximumWeight(maximumEntries)
+                .weigher((HiveTableName hiveTableName, TablePartitionMetadata metadata) -> metadata.getEntryCount() + 1)
+                .build();
+    }
+
+    @Override
+    public Map<List<String>, Partition> getPartitions(HiveTableName hiveTableName, Collection<List<String>> partitionValues)
+    {
+        TablePartitionMetadata metadata = getTable(hiveTableName);
+        long now = clock.millis();
+        ImmutableMap.Builder<List<String>, Partition> partitions = ImmutableMap.builder();
+        for (List<String> values : partitionValues) {
+            PartitionEntry entry = metadata.partitions.get(values);
+            if (entry != null && isLive(entry.getStoredTime(), now)) {
+                partitions.put(values, entry.getPartition());
+            }
+        }
+        return partitions.buildKeepingLast();
+    }
+
+    @Override
+    public synchronized void putPartitions(HiveTableName hiveTableName, Collection<Partition> partitions)
+    {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        long now = clock.millis();
+        List<PartitionEntry> entries = partitions.stream()
+                .map(partition -> new PartitionEntry(partition, now))
+                .collect(toImmutableList());
+        append(hiveTableName, new PartitionMetadataRecord(entries, ImmutableList.of(), ImmutableList.of()));
+    }
+
+    @Override
+    public Map<PartitionNameWithVersion, PartitionStatistics> getPartitionStatistics(HiveTableName hiveTableName, Collection<String> partitionNames)
+    {
+        TablePartitionMetadata metadata = getTable(hiveTableName);
+        long now = clock.millis();
+        ImmutableMap.Builder<PartitionNameWithVersion, PartitionStatistics> statistics = ImmutableMap.builder();
+        for (String partitionName : partitionNames) {
+            StatisticsEntry entry = metadata.statistics.get(toPartitionValues(partitionName));
+            if (entry != null && isLive(entry.getStoredTime(), now)) {
+                statistics.put(new PartitionNameWithVersion(partitionName, entry.getPartitionVersion()), entry.getStatistics());
+            }
+        }
+        return statistics.buildKeepingLast();
+    }
+
+    @Override
+    public synchronized void putPartitionStatistics(HiveTableName hiveTableName, Map<PartitionNameWithVersion, PartitionStatistics> partitionStatistics)
+    {
+        if (partitionStatistics.isEmpty()) {
+            return;
+        }
+        long now = clock.millis();
+        List<StatisticsEntry> entries = partitionStatistics.entrySet().stream()
+                .map(entry -> new StatisticsEntry(entry.getKey().getPartitionName(), entry.getKey().getPartitionVersion(), entry.getValue(), now))
+                .collect(toImmutableList());
+        append(hiveTableName, new PartitionMetadataRecord(ImmutableList.of(), entries, ImmutableList.of()));
+    }
+
+    @Override
+    public synchronized void invalidatePartitions(HiveTableName hiveTableName, Collection<List<String>> partitionValues)
+    {
+        if (partitionValues.isEmpty() || (tables.getIfPresent(hiveTableName) == null && !exists(getTableFile(hiveTableName)))) {
+            return;
+        }
+        append(hiveTableName, new PartitionMetadataRecord(ImmutableList.of(), ImmutableList.of(), ImmutableList.copyOf(partitionValues)));
+    }
+
+    @Override
+    public synchronized void invalidateTable(HiveTableName hiveTableName)
+    {
+        tables.invalidate(hiveTableName);
+        deleteTableFile(hiveTableName);
+    }
+
+    @Override
+    public synchronized void invalidateDatabase(String databaseName)
+    {
+        tables.asMap().keySet().removeIf(hiveTableName -> hiveTableName.getDatabaseName().equals(databaseName));
+        deleteDirectory(getDatabaseDirectory(databaseName));
+    }
+
+    @Override
+    public synchronized void invalidateAll()
+    {
+        tables.invalidateAll();
+        try (DirectoryStream<Path> databaseDirectories = newDirectoryStream(directory, path -> isDirectory(path))) {
+            for (Path databaseDirectory : databaseDirectories) {
+                deleteDirectory(databaseDirectory);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(format("Failed to list partition cache directory %s", directory), e);
+        }
+    }
+
+    @Override
+    public synchronized OptionalLong getLastEventId()
+    {
+        Path file = directory.resolve(LAST_EVENT_ID_FILE);
+        try {
+            if (!exists(file)) {
+                return OptionalLong.empty();
+            }
+            return OptionalLong.of(Long.parseLong(new String(readAllBytes(file), UTF_8).trim()));
+        }
+        catch (IOException | NumberFormatException e) {
+            log.warn(e, "Ignoring unreadable last event id in %s", file);
+            return OptionalLong.empty();
+        }
+    }
+
+    @Override
+    public synchronized void setLastEventId(long eventId)
+    {
+        Path file = directory.resolve(LAST_EVENT_ID_FILE);
+        Path temporaryFile = directory.resolve(LAST_EVENT_ID_FILE + ".tmp");
+        try {
+            write(temporaryFile, String.valueOf(eventId).getBytes(UTF_8));
+            move(temporaryFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(format("Failed to write %s", file), e);
+        }
+    }
+
+    private boolean isLive(long storedTime, long now)
+    {
+        return now - storedTime < ttlMillis;
+    }
+
+    private TablePartitionMetadata getTable(HiveTableName hiveTableName)
+    {
+        TablePartitionMetadata metadata = tables.getIfPresent(hiveTableName);
+        if (metadata != null) {
+            return metadata;
+        }
+        synchronized (this) {
+            return getTableLocked(hiveTableName);
+        }
+    }
+
+    private TablePartitionMetadata getTableLocked(HiveTableName hiveTableName)
+    {
+        TablePartitionMetadata metadata = tables.getIfPresent(hiveTableName);
+        if (metadata == null) {
+            metadata = readTable(hiveTableName);
+            tables.put(hiveTableName, metadata);
+        }
+        return metadata;
+    }
+
+    private TablePartitionMetadata readTable(HiveTableName hiveTableName)
+    {
+        TablePartitionMetadata metadata = new TablePartitionMetadata();
+        Path file = getTableFile(hiveTableName);
+        if (!exists(file)) {
+            return metadata;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(newInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = input.readInt();
+                }
+                catch (EOFException e) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                input.readFully(record);
+                metadata.apply(RECORD_CODEC.fromSmile(record));
+            }
+        }
+        catch (IOException | IllegalArgumentException e) {
+            // the last record was cut short by a crash, or the file is corrupted: the table is loaded again from the metastore
+            log.warn(e, "Discarding partition cache file %s", file);
+            deleteTableFile(hiveTableName);
+            return new TablePartitionMetadata();
+        }
+        return metadata;
+    }
+
+    private void append(HiveTableName hiveTableName, PartitionMetadataRecord record)
+    {
+        TablePartitionMetadata metadata = getTableLocked(hiveTableName);
+        metadata.apply(record);
+        Path file = getTableFile(hiveTableName);
+        try {
+            createDirectories(file.getParent());
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(newOutputStream(file, CREATE, APPEND)))) {
+                writeRecord(output, record);
+            }
+            if (metadata.getWrittenEntryCount() > MIN_ENTRIES_TO_COMPACT && metadata.getWrittenEntryCount() > 2L * metadata.getEntryCount()) {
+                compact(file, metadata, clock.millis());
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            // a record that is not on disk must not leave the file in a state that is older than the memory
+            log.warn(e, "Failed to write partition cache file %s", file);
+            tables.invalidate(hiveTableName);
+            deleteTableFile(hiveTableName);
+            return;
+        }
+        // weigh the table again
+        tables.put(hiveTableName, metadata);
+    }
+
+    private void compact(Path file, TablePartitionMetadata metadata, long now)
+            throws IOException
+    {
+        metadata.removeExpired(storedTime -> !isLive(storedTime, now));
+        PartitionMetadataRecord record = metadata.toRecord();
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(newOutputStream(temporaryFile)))) {
+            writeRecord(output, record);
+        }
+        move(temporaryFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        metadata.setWrittenEntryCount(record.getEntryCount());
+    }
+
+    private static void writeRecord(DataOutputStream output, PartitionMetadataRecord record)
+            throws IOException
+    {
+        byte[] bytes = RECORD_CODEC.toSmile(record);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private void deleteTableFile(HiveTableName hiveTableName)
+    {
+        Path file = getTableFile(hiveTableName);
+        try {
+            deleteIfExists(file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(format("Failed to delete partition cache file %s", file), e);
+        }
+    }
+
+    private static void deleteDirectory(Path directory)
+    {
+        try {
+            if (exists(directory)) {
+                deleteRecursively(directory, ALLOW_INSECURE);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(format("Failed to delete partition cache directory %s", directory), e);
+        }
+    }
+
+    private Path getDatabaseDirectory(String databaseName)
+    {
+        return directory.resolve(escapePathName(databaseName));
+    }
+
+    @VisibleForTesting
+    Path getTableFile(HiveTableName hiveTableName)
+    {
+        return getDatabaseDirectory(hiveTableName.getDatabaseName()).resolve(escapePathName(hiveTableName.getTableName()) + TABLE_FILE_SUFFIX);
+    }
+
+    private static class TablePartitionMetadata
+    {
+        private final Map<List<String>, PartitionEntry> partitions = new ConcurrentHashMap<>();
+        private final Map<List<String>, StatisticsEntry> statistics = new ConcurrentHashMap<>();
+        private long writtenEntryCount;
+
+        public void apply(PartitionMetadataRecord record)
+        {
+            for (PartitionEntry entry : record.getPartitions()) {
+                Partition partition = entry.toPartition();
+                partitions.put(partition.getValues(), new PartitionEntry(partition, entry.getStoredTime()));
+            }
+            for (StatisticsEntry entry : record.getStatistics()) {
+                statistics.put(toPartitionValues(entry.getPartitionName()), entry);
+            }
+            for (List<String> values : record.getInvalidatedPartitions()) {
+                partitions.remove(values);
+                statistics.remove(values);
+            }
+            writtenEntryCount += record.getEntryCount();
+        }
+
+        public void removeExpired(LongPredicate isExpired)
+        {
+            partitions.values().removeIf(entry -> isExpired.test(entry.getStoredTime()));
+            statistics.values().removeIf(entry -> isExpired.test(entry.getStoredTime()));
+        }
+
+        public int getEntryCount()
+        {
+            return partitions.size() + statistics.size();
+        }
+
+        public long getWrittenEntryCount()
+        {
+            return writtenEntryCount;
+        }
+
+        public void setWrittenEntryCount(long writtenEntryCount)
+        {
+            this.writtenEntryCount = writtenEntryCount;
+        }
+
+        public PartitionMetadataRecord toRecord()
+        {
+            return new PartitionMetadataRecord(ImmutableList.copyOf(partitions.values()), ImmutableList.copyOf(statistics.values()), ImmutableList.of());
+        }
+    }
+
+    public static class PartitionMetadataRecord
+    {
+        private final List<PartitionEntry> partitions;
+        private final List<StatisticsEntry> statistics;
+        private final List<List<String>> invalidatedPartitions;
+
+        @JsonCreator
+        public PartitionMetadataRecord(
+                @JsonProperty("partitions") List<PartitionEntry> partitions,
+                @JsonProperty("statistics") List<StatisticsEntry> statistics,
+                @JsonProperty("invalidatedPartitions") List<List<String>> invalidatedPartitions)
+        {
+            this.partitions = ImmutableList.copyOf(requireNonNull(partitions, "partitions is null"));
+            this.statistics = ImmutableList.copyOf(requireNonNull(statistics, "statistics is null"));
+            this.invalidatedPartitions = requireNonNull(invalidatedPartitions, "invalidatedPartitions is null").stream()
+                    .map(ImmutableList::copyOf)
+                    .collect(toImmutableList());
+        }
+
+        @JsonProperty
+        public List<PartitionEntry> getPartitions()
+        {
+            return partitions;
+        }
+
+        @JsonProperty
+        public List<StatisticsEntry> getStatistics()
+        {
+            return statistics;
+        }
+
+        @JsonProperty
+        public List<List<String>> getInvalidatedPartitions()
+        {
+            return invalidatedPartitions;
+        }
+
+        @JsonIgnore
+        public int getEntryCount()
+        {
+            return partitions.size() + statistics.size() + invalidatedPartitions.size();
+        }
+    }
+
+    // the JSON form of a partition does not read back the catalog name
+    public static class PartitionEntry
+    {
+        private final Optional<String> catalogName;
+        private final Partition partition;
+        private final long storedTime;
+
+        @JsonCreator
+        public PartitionEntry(
+                @JsonProperty("catalogName") Optional<String> catalogName,
+                @JsonProperty("partition") Partition partition,
+                @JsonProperty("storedTime") long storedTime)
+        {
+            this.catalogName = requireNonNull(catalogName, "catalogName is null");
+            this.partition = requireNonNull(partition, "partition is null");
+            this.storedTime = storedTime;
+        }
+
+        public PartitionEntry(Partition partition, long storedTime)
+        {
+            this(partition.getCatalogName(), partition, storedTime);
+        }
+
+        @JsonProperty
+        public Optional<String> getCatalogName()
+        {
+            return catalogName;
+        }
+
+        @JsonProperty
+        public Partition getPartition()
+        {
+            return partition;
+        }
+
+        @JsonProperty
+        public long getStoredTime()
+        {
+            return storedTime;
+        }
+
+        public Partition toPartition()
+        {
+            return new Partition(
+                    catalogName,
+                    partition.getDatabaseName(),
+                    partition.getTableName(),
+                    partition.getValues(),
+                    partition.getStorage(),
+                    partition.getColumns(),
+                    partition.getParameters(),
+                    partition.getPartitionVersion(),
+                    partition.isEligibleToIgnore(),
+                    partition.isSealedPartition(),
+                    partition.getCreateTime(),
+                    partition.getLastDataCommitTime(),
+                    partition.getRowIdPartitionComponent());
+        }
+    }
+
+    public static class StatisticsEntry
+    {
+        private final String partitionName;
+        private final Optional<Long> partitionVersion;
+        private final PartitionStatistics statistics;
+        private final long storedTime;
+
+        @JsonCreator
+        public StatisticsEntry(
+                @JsonProperty("partitionName") String partitionName,
+                @JsonProperty("partitionVersion") Optional<Long> partitionVersion,
+                @JsonProperty("statistics") PartitionStatistics statistics,
+                @JsonProperty("storedTime") long storedTime)
+        {
+            this.partitionName = requireNonNull(partitionName, "partitionName is null");
+            this.partitionVersion = requireNonNull(partitionVersion, "partitionVersion is null");
+            this.statistics = requireNonNull(statistics, "statistics is null");
+            this.storedTime = storedTime;
+        }
+
+        @JsonProperty
+        public String getPartitionName()
+        {
+            return partitionName;
+        }
+
+        /**
+         * Returns the version of the partition the statistics were stored for.
+         */
+        @JsonProperty
+        public Optional<Long> getPartitionVersion()
+        {
+            return partitionVersion;
+        }
+
+        @JsonProperty
+        public PartitionStatistics getStatistics()
+        {
+            return statistics;
+        }
+
+        @JsonProperty
+        public long getStoredTime()
+        {
+            return storedTime;
+        }
+    }
+}
@@ -26,16 +26,23 @@ import com.facebook.presto.spi.security.RoleGrant;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.inject.Inject;
 import org.weakref.jmx.Managed;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +54,7 @@ import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -56,7 +64,9 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_DROPPED_DURI
 import static com.facebook.presto.hive.metastore.AbstractCachingHiveMetastore.MetastoreCacheScope.ALL;
 import static com.facebook.presto.hive.metastore.HivePartitionName.hivePartitionName;
 import static com.facebook.presto.hive.metastore.HiveTableName.hiveTableName;
+import static com.facebook.presto.hive.metastore.MetastoreUtil.toPartitionValues;
 import static com.facebook.presto.hive.metastore.NoopMetastoreCacheStats.NOOP_METASTORE_CACHE_STATS;
+import static com.facebook.presto.hive.metastore.NoopPartitionMetadataStore.NOOP_PARTITION_METADATA_STORE;
 import static com.facebook.presto.hive.metastore.PartitionFilter.partitionFilter;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -95,6 +105,13 @@ public class InMemoryCachingHiveMetastore
     private final LoadingCache<KeyAndContext<String>, Set<String>> rolesCache;
     private final LoadingCache<KeyAndContext<PrestoPrincipal>, Set<RoleGrant>> roleGrantsCache;
     private final MetastoreCacheStats metastoreCacheStats;
+    private final PartitionMetadataStore partitionMetadataStore;
+    private final Optional<MetastoreEventPoller> eventPoller;
+    private final Object partitionMetadataStoreLock = new Object();
+    // incremented by every invalidation of the partition metadata store, so that a load that raced with an
+    // invalidation does not store what it read from the metastore before the invalidation
+    @GuardedBy("partitionMetadataStoreLock")
+    private long partitionMetadataStoreGeneration;
 
     private final boolean metastoreImpersonationEnabled;
     private final boolean partitionVersioningEnabled;
@@ -119,7 +136,10 @@ public class InMemoryCachingHiveMetastore
                 metastoreClientConfig.getMetastoreCacheScope(),
                 metastoreClientConfig.getPartitionCacheValidationPercentage(),
                 metastoreClientConfig.getPartitionCacheColumnCountLimit(),
-                metastoreCacheStats);
+                metastoreCacheStats,
+                createPartitionMetadataStore(metastoreClientConfig),
+                createEventSource(metastoreClientConfig),
+                metastoreClientConfig.getEventLogPollInterval());
     }
 
     public InMemoryCachingHiveMetastore(
@@ -134,6 +154,39 @@ public class InMemoryCachingHiveMetastore
             double partitionCacheValidationPercentage,
             int partitionCacheColumnCountLimit,
             MetastoreCacheStats metastoreCacheStats)
+    {
+        this(
+                delegate,
+                executor,
+                metastoreImpersonationEnabled,
+                cacheTtl,
+                refreshInterval,
+                maximumSize,
+                partitionVersioningEnabled,
+                metastoreCacheScope,
+                partitionCacheValidationPercentage,
+                partitionCacheColumnCountLimit,
+                metastoreCacheStats,
+                NOOP_PARTITION_METADATA_STORE,
+                Optional.empty(),
+                new Duration(0, MILLISECONDS));
+    }
+
+    public InMemoryCachingHiveMetastore(
+            ExtendedHiveMetastore delegate,
+            ExecutorService executor,
+            boolean metastoreImpersonationEnabled,
+            Duration cacheTtl,
+            Duration refreshInterval,
+            long maximumSize,
+            boolean partitionVersioningEnabled,
+            MetastoreCacheScope metastoreCacheScope,
+            double partitionCacheValidationPercentage,
+            int partitionCacheColumnCountLimit,
+            MetastoreCacheStats metastoreCacheStats,
+            PartitionMetadataStore partitionMetadataStore,
+            Optional<MetastoreEventSource> eventSource,
+            Duration eventPollInterval)
     {
         this(
                 delegate,
@@ -146,7 +199,10 @@ public class InMemoryCachingHiveMetastore
                 metastoreCacheScope,
                 partitionCacheValidationPercentage,
                 partitionCacheColumnCountLimit,
-                metastoreCacheStats);
+                metastoreCacheStats,
+                partitionMetadataStore,
+                eventSource,
+                eventPollInterval);
     }
 
     public static InMemoryCachingHiveMetastore memoizeMetastore(ExtendedHiveMetastore delegate, boolean isMetastoreImpersonationEnabled, long maximumSize, int partitionCacheMaxColumnCount)
@@ -162,7 +218,10 @@ public class InMemoryCachingHiveMetastore
                 ALL,
                 0.0,
                 partitionCacheMaxColumnCount,
-                NOOP_METASTORE_CACHE_STATS);
+                NOOP_METASTORE_CACHE_STATS,
+                NOOP_PARTITION_METADATA_STORE,
+                Optional.empty(),
+                new Duration(0, MILLISECONDS));
     }
 
     private InMemoryCachingHiveMetastore(
@@ -176,7 +235,10 @@ public class InMemoryCachingHiveMetastore
             MetastoreCacheScope metastoreCacheScope,
             double partitionCacheValidationPercentage,
             int partitionCacheColumnCountLimit,
-            MetastoreCacheStats metastoreCacheStats)
+            MetastoreCacheStats metastoreCacheStats,
+            PartitionMetadataStore partitionMetadataStore,
+            Optional<MetastoreEventSource> eventSource,
+            Duration eventPollInterval)
     {
         this.delegate = requireNonNull(delegate, "delegate is null");
         requireNonNull(executor, "executor is null");
@@ -185,6 +247,11 @@ public class InMemoryCachingHiveMetastore
         this.partitionCacheValidationPercentage = partitionCacheValidationPercentage;
         this.partitionCacheColumnCountLimit = partitionCacheColumnCountLimit;
         this.metastoreCacheStats = metastoreCacheStats;
+        this.partitionMetadataStore = requireNonNull(partitionMetadataStore, "partitionMetadataStore is null");
+        // the stored partitions are shared by all users
+        checkArgument(!metastoreImpersonationEnabled || partitionMetadataStore == NOOP_PARTITION_METADATA_STORE, "partition metadata cannot be stored when metastore impersonation is enabled");
+        this.eventPoller = requireNonNull(eventSource, "eventSource is null")
+                .map(source -> new MetastoreEventPoller(this, source, partitionMetadataStore, eventPollInterval));
 
         OptionalLong cacheExpiresAfterWriteMillis;
         OptionalLong cacheRefreshMills;
@@ -296,6 +363,35 @@ public class InMemoryCachingHiveMetastore
                 .build(asyncReloading(CacheLoader.from(this::loadRoleGrants), executor));
     }
 
+    private static PartitionMetadataStore createPartitionMetadataStore(MetastoreClientConfig metastoreClientConfig)
+    {
+        if (metastoreClientConfig.getPartitionCachePath() == null) {
+            return NOOP_PARTITION_METADATA_STORE;
+        }
+        return new FilePartitionMetadataStore(
+                Paths.get(metastoreClientConfig.getPartitionCachePath()),
+                metastoreClientConfig.getPartitionCacheMaximumSize(),
+                metastoreClientConfig.getPartitionCacheTtl());
+    }
+
+    private static Optional<MetastoreEventSource> createEventSource(MetastoreClientConfig metastoreClientConfig)
+    {
+        return Optional.ofNullable(metastoreClientConfig.getEventLogPath())
+                .map(path -> new FileMetastoreEventSource(Paths.get(path)));
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        eventPoller.ifPresent(MetastoreEventPoller::start);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        eventPoller.ifPresent(MetastoreEventPoller::stop);
+    }
+
     @Override
     public ExtendedHiveMetastore getDelegate()
     {
@@ -319,6 +415,7 @@ public class InMemoryCachingHiveMetastore
         tableStatisticsCache.invalidateAll();
         partitionStatisticsCache.invalidateAll();
         rolesCache.invalidateAll();
+        invalidateStoredPartitionMetadata(PartitionMetadataStore::invalidateAll);
     }
 
     private static <K, V> V get(LoadingCache<K, V> cache, K key)
@@ -419,15 +516,23 @@ public class InMemoryCachingHiveMetastore
 
     private PartitionStatistics loadPartitionColumnStatistics(KeyAndContext<HivePartitionName> partition)
     {
+        HiveTableName hiveTableName = partition.getKey().getHiveTableName();
         String partitionName = partition.getKey().getPartitionNameWithVersion().get().getPartitionName();
+        long generation = getPartitionMetadataStoreGeneration();
+        Map<String, Optional<Long>> storedVersions = getStoredPartitionVersions(hiveTableName, ImmutableSet.of(partitionName));
+        PartitionStatistics storedStatistics = getStoredPartitionStatistics(hiveTableName, storedVersions).get(partitionName);
+        if (storedStatistics != null) {
+            return storedStatistics;
+        }
         Map<String, PartitionStatistics> partitionStatistics = delegate.getPartitionStatistics(
                 partition.getContext(),
-                partition.getKey().getHiveTableName().getDatabaseName(),
-                partition.getKey().getHiveTableName().getTableName(),
+                hiveTableName.getDatabaseName(),
+                hiveTableName.getTableName(),
                 ImmutableSet.of(partitionName));
         if (!partitionStatistics.containsKey(partitionName)) {
             throw new PrestoException(HIVE_PARTITION_DROPPED_DURING_QUERY, "Statistics result does not contain entry for partition: " + partition.getKey().getPartitionNameWithVersion());
         }
+        storePartitionStatistics(hiveTableName, ImmutableMap.of(partitionName, partitionStatistics.get(partitionName)), storedVersions, generation);
         return partitionStatistics.get(partitionName);
     }
 
@@ -440,7 +545,16 @@ public class InMemoryCachingHiveMetastore
             Set<String> partitionNames = tablePartitions.get(table).stream()
                     .map(partitionName -> partitionName.getKey().getPartitionNameWithVersion().get().getPartitionName())
                     .collect(toImmutableSet());
-            Map<String, PartitionStatistics> partitionStatistics = delegate.getPartitionStatistics(table.getContext(), table.getKey().getDatabaseName(), table.getKey().getTableName(), partitionNames);
+            long generation = getPartitionMetadataStoreGeneration();
+            Map<String, Optional<Long>> storedVersions = getStoredPartitionVersions(table.getKey(), partitionNames);
+            Map<String, PartitionStatistics> storedStatistics = getStoredPartitionStatistics(table.getKey(), storedVersions);
+            Set<String> partitionNamesToFetch = Sets.difference(partitionNames, storedStatistics.keySet()).immutableCopy();
+            Map<String, PartitionStatistics> partitionStatistics = new HashMap<>(storedStatistics);
+            if (!partitionNamesToFetch.isEmpty()) {
+                Map<String, PartitionStatistics> fetchedStatistics = delegate.getPartitionStatistics(table.getContext(), table.getKey().getDatabaseName(), table.getKey().getTableName(), partitionNamesToFetch);
+                storePartitionStatistics(table.getKey(), fetchedStatistics, storedVersions, generation);
+                partitionStatistics.putAll(fetchedStatistics);
+            }
             for (String partitionName : partitionNames) {
                 if (!partitionStatistics.containsKey(partitionName)) {
                     throw new PrestoException(HIVE_PARTITION_DROPPED_DURING_QUERY, "Statistics result does not contain entry for partition: " + partitionName);
@@ -486,6 +600,7 @@ public class InMemoryCachingHiveMetastore
             partitionStatisticsCache.asMap().keySet().stream()
                     .filter(partitionFilterKey -> partitionFilterKey.getKey().equals(hivePartitionName(databaseName, tableName, partitionName)))
                     .forEach(partitionStatisticsCache::invalidate);
+            invalidateStoredPartitionMetadata(store -> store.invalidatePartitions(hiveTableName(databaseName, tableName), ImmutableList.of(toPartitionValues(partitionName))));
         }
     }
 
@@ -518,6 +633,7 @@ public class InMemoryCachingHiveMetastore
                 .filter(databaseKey -> databaseKey.getKey().equals(databaseName))
                 .forEach(databaseCache::invalidate);
         databaseNamesCache.invalidateAll();
+        invalidateStoredPartitionMetadata(store -> store.invalidateDatabase(databaseName));
     }
 
     private static boolean isSameTable(HiveTableHandle hiveTableHandle, HiveTableName hiveTableName)
@@ -573,6 +689,32 @@ public class InMemoryCachingHiveMetastore
         partitionStatisticsCache.asMap().keySet().stream()
                 .filter(partitionFilterKey -> partitionFilterKey.getKey().getHiveTableName().equals(hiveTableName))
                 .forEach(partitionStatisticsCache::invalidate);
+        invalidateStoredPartitionMetadata(store -> store.invalidateTable(hiveTableName));
+    }
+
+    @Override
+    protected void invalidatePartitionCache(String databaseName, String tableName, List<String> partitionNames)
+    {
+        HiveTableName hiveTableName = hiveTableName(databaseName, tableName);
+        Set<List<String>> partitionValues = partitionNames.stream()
+                .map(MetastoreUtil::toPartitionValues)
+                .collect(toImmutableSet());
+        Predicate<KeyAndContext<HivePartitionName>> partitionPredicate = partitionNameKey ->
+                partitionNameKey.getKey().getHiveTableName().equals(hiveTableName) && partitionValues.contains(partitionNameKey.getKey().getPartitionValues());
+
+        partitionNamesCache.asMap().keySet().stream()
+                .filter(hiveTableNameKey -> hiveTableNameKey.getKey().equals(hiveTableName))
+                .forEach(partitionNamesCache::invalidate);
+        partitionFilterCache.asMap().keySet().stream()
+                .filter(partitionFilterKey -> partitionFilterKey.getKey().getHiveTableName().equals(hiveTableName))
+                .forEach(partitionFilterCache::invalidate);
+        partitionCache.asMap().keySet().stream()
+                .filter(partitionPredicate)
+                .forEach(partitionCache::invalidate);
+        partitionStatisticsCache.asMap().keySet().stream()
+                .filter(partitionPredicate)
+                .forEach(partitionStatisticsCache::invalidate);
+        invalidateStoredPartitionMetadata(store -> store.invalidatePartitions(hiveTableName, partitionValues));
     }
 
     @Override
@@ -652,7 +794,7 @@ public class InMemoryCachingHiveMetastore
 
     private void validatePartitionCache(KeyAndContext<HivePartitionName> partitionName, Optional<Partition> partitionFromCache)
     {
-        Optional<Partition> partitionFromMetastore = loadPartitionByName(partitionName);
+        Optional<Partition> partitionFromMetastore = getPartitionFromMetastore(partitionName);
         if (!partitionFromCache.equals(partitionFromMetastore)) {
             String errorMessage = format("Partition returned from cache is different from partition from Metastore.%nPartition name = %s.%nPartition from cache = %s%n Partition from Metastore = %s",
                     partitionName,
@@ -664,7 +806,7 @@ public class InMemoryCachingHiveMetastore
 
     private void validatePartitionCache(Map<KeyAndContext<HivePartitionName>, Optional<Partition>> actualResult)
     {
-        Map<KeyAndContext<HivePartitionName>, Optional<Partition>> expectedResult = loadPartitionsByNames(actualResult.keySet());
+        Map<KeyAndContext<HivePartitionName>, Optional<Partition>> expectedResult = getPartitionsFromMetastore(actualResult.keySet());
 
         for (Entry<KeyAndContext<HivePartitionName>, Optional<Partition>> entry : expectedResult.entrySet()) {
             HivePartitionName partitionName = entry.getKey().getKey();
@@ -713,6 +855,20 @@ public class InMemoryCachingHiveMetastore
         //Invalidate Partition Statistics Cache on a partition cache miss.
         partitionStatisticsCache.invalidate(getCachingKey(partitionName.getContext(), partitionName.getKey()));
 
+        HiveTableName hiveTableName = partitionName.getKey().getHiveTableName();
+        List<String> partitionValues = partitionName.getKey().getPartitionValues();
+        long generation = getPartitionMetadataStoreGeneration();
+        Partition storedPartition = partitionMetadataStore.getPartitions(hiveTableName, ImmutableList.of(partitionValues)).get(partitionValues);
+        if (storedPartition != null && isCurrentVersion(storedPartition, partitionName.getKey())) {
+            return Optional.of(storedPartition);
+        }
+        Optional<Partition> partition = getPartitionFromMetastore(partitionName);
+        storePartitions(hiveTableName, ImmutableList.of(partition), generation);
+        return partition;
+    }
+
+    private Optional<Partition> getPartitionFromMetastore(KeyAndContext<HivePartitionName> partitionName)
+    {
         return delegate.getPartition(
                 partitionName.getContext(),
                 partitionName.getKey().getHiveTableName().getDatabaseName(),
@@ -728,6 +884,35 @@ public class InMemoryCachingHiveMetastore
         //Invalidate Partition Statistics Cache on a partition cache miss.
         partitionStatisticsCache.invalidateAll(transform(partitionNamesKey, partitionNameKey -> getCachingKey(partitionNameKey.getContext(), partitionNameKey.getKey())));
 
+        HiveTableName hiveTableName = Iterables.get(partitionNamesKey, 0).getKey().getHiveTableName();
+        long generation = getPartitionMetadataStoreGeneration();
+        Map<List<String>, Partition> storedPartitions = partitionMetadataStore.getPartitions(
+                hiveTableName,
+                stream(partitionNamesKey)
+                        .map(partitionNameKey -> partitionNameKey.getKey().getPartitionValues())
+                        .collect(toImmutableList()));
+
+        ImmutableMap.Builder<KeyAndContext<HivePartitionName>, Optional<Partition>> partitions = ImmutableMap.builder();
+        List<KeyAndContext<HivePartitionName>> partitionsToFetch = new ArrayList<>();
+        for (KeyAndContext<HivePartitionName> partitionNameKey : partitionNamesKey) {
+            Partition storedPartition = storedPartitions.get(partitionNameKey.getKey().getPartitionValues());
+            if (storedPartition != null && isCurrentVersion(storedPartition, partitionNameKey.getKey())) {
+                partitions.put(partitionNameKey, Optional.of(storedPartition));
+            }
+            else {
+                partitionsToFetch.add(partitionNameKey);
+            }
+        }
+        if (!partitionsToFetch.isEmpty()) {
+            Map<KeyAndContext<HivePartitionName>, Optional<Partition>> fetchedPartitions = getPartitionsFromMetastore(partitionsToFetch);
+            storePartitions(hiveTableName, fetchedPartitions.values(), generation);
+            partitions.putAll(fetchedPartitions);
+        }
+        return partitions.build();
+    }
+
+    private Map<KeyAndContext<HivePartitionName>, Optional<Partition>> getPartitionsFromMetastore(Iterable<? extends KeyAndContext<HivePartitionName>> partitionNamesKey)
+    {
         KeyAndContext<HivePartitionName> firstPartitionKey = Iterables.get(partitionNamesKey, 0);
 
         HiveTableName hiveTableName = firstPartitionKey.getKey().getHiveTableName();
@@ -751,6 +936,88 @@ public class InMemoryCachingHiveMetastore
         return partitions.build();
     }
 
+    private void storePartitions(HiveTableName hiveTableName, Collection<Optional<Partition>> partitions, long generation)
+    {
+        // the partitions that are too wide for the in-memory cache are not stored either
+        List<Partition> partitionsToStore = partitions.stream()
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .filter(partition -> partition.getColumns().size() <= partitionCacheColumnCountLimit)
+                .collect(toImmutableList());
+        if (partitionsToStore.isEmpty()) {
+            return;
+        }
+        synchronized (partitionMetadataStoreLock) {
+            if (partitionMetadataStoreGeneration == generation) {
+                partitionMetadataStore.putPartitions(hiveTableName, partitionsToStore);
+            }
+        }
+    }
+
+    /**
+     * Returns the version of the stored partition of each of the given partitions, or empty if the partition is
+     * not stored or not versioned. The statistics of a partition are stored for the version read before they
+     * are loaded, so that they are not used once the stored partition is replaced by another version.
+     */
+    private Map<String, Optional<Long>> getStoredPartitionVersions(HiveTableName hiveTableName, Set<String> partitionNames)
+    {
+        Map<List<String>, Partition> storedPartitions = partitionMetadataStore.getPartitions(
+                hiveTableName,
+                partitionNames.stream()
+                        .map(MetastoreUtil::toPartitionValues)
+                        .collect(toImmutableList()));
+        return partitionNames.stream()
+                .collect(toImmutableMap(
+                        partitionName -> partitionName,
+                        partitionName -> Optional.ofNullable(storedPartitions.get(toPartitionValues(partitionName))).flatMap(Partition::getPartitionVersion)));
+    }
+
+    /**
+     * Returns the stored statistics that were stored for the current version of their partition, like the
+     * stored partitions are only returned for the requested version.
+     */
+    private Map<String, PartitionStatistics> getStoredPartitionStatistics(HiveTableName hiveTableName, Map<String, Optional<Long>> storedVersions)
+    {
+        return partitionMetadataStore.getPartitionStatistics(hiveTableName, storedVersions.keySet()).entrySet().stream()
+                .filter(entry -> entry.getKey().getPartitionVersion().equals(storedVersions.get(entry.getKey().getPartitionName())))
+                .collect(toImmutableMap(entry -> entry.getKey().getPartitionName(), Entry::getValue));
+    }
+
+    private void storePartitionStatistics(HiveTableName hiveTableName, Map<String, PartitionStatistics> partitionStatistics, Map<String, Optional<Long>> storedVersions, long generation)
+    {
+        if (partitionStatistics.isEmpty()) {
+            return;
+        }
+        Map<PartitionNameWithVersion, PartitionStatistics> statisticsToStore = partitionStatistics.entrySet().stream()
+                .collect(toImmutableMap(entry -> new PartitionNameWithVersion(entry.getKey(), storedVersions.getOrDefault(entry.getKey(), Optional.empty())), Entry::getValue));
+        synchronized (partitionMetadataStoreLock) {
+            if (partitionMetadataStoreGeneration == generation) {
+                partitionMetadataStore.putPartitionStatistics(hiveTableName, statisticsToStore);
+            }
+        }
+    }
+
+    private long getPartitionMetadataStoreGeneration()
+    {
+        synchronized (partitionMetadataStoreLock) {
+            return partitionMetadataStoreGeneration;
+        }
+    }
+
+    private void invalidateStoredPartitionMetadata(Consumer<PartitionMetadataStore> invalidation)
+    {
+        synchronized (partitionMetadataStoreLock) {
+            partitionMetadataStoreGeneration++;
+            invalidation.accept(partitionMetadataStore);
+        }
+    }
+
+    private static boolean isCurrentVersion(Partition partition, HivePartitionName partitionName)
+    {
+        Optional<Long> requestedVersion = partitionName.getPartitionNameWithVersion().flatMap(PartitionNameWithVersion::getPartitionVersion);
+        return !requestedVersion.isPresent() || requestedVersion.equals(partition.getPartitionVersion());
+    }
+
     @Override
     protected void invalidateRolesCache()
     {
@@ -878,6 +1145,8 @@ public class InMemoryCachingHiveMetastore
                 partitionStatisticsCache,
                 newMetastoreContext,
                 hivePartitionNameKeyAndContext -> hivePartitionNameKeyAndContext.getKey().getHiveTableName().getDatabaseName().equals(databaseName));
+
+        invalidateStoredPartitionMetadata(store -> store.invalidateDatabase(databaseName));
     }
 
     public void invalidateCache(MetastoreContext metastoreContext, String databaseName, String tableName)
@@ -944,6 +1213,8 @@ public class InMemoryCachingHiveMetastore
                 partitionStatisticsCache,
                 newMetastoreContext,
                 hivePartitionNameKeyAndContext -> hivePartitionNameKeyAndContext.getKey().getHiveTableName().equals(hiveTableName));
+
+        invalidateStoredPartitionMetadata(store -> store.invalidateTable(hiveTableName));
     }
 
     public void invalidateCache(
@@ -984,6 +1255,8 @@ public class InMemoryCachingHiveMetastore
 
         // Invalidate Partition Statistics Cache
         invalidateCacheForKey(partitionStatisticsCache, newMetastoreContext, hivePartitionNamePredicate);
+
+        invalidateStoredPartitionMetadata(store -> store.invalidatePartitions(hiveTableName, ImmutableList.of(partitionValues)));
     }
 
     private <K> void invalidateCacheForKey(LoadingCache<KeyAndContext<K>, ?> cache, MetastoreContext newMetastoreContext, Predicate<KeyAndContext<K>> keyPredicate)
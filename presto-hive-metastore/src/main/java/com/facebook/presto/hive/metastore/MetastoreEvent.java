@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.Immutable;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A change made to the metastore, as published by its notification log. Event ids increase
+ * in the order the changes were made.
+ */
+@Immutable
+public class MetastoreEvent
+{
+    public enum MetastoreEventType
+    {
+        CREATE_DATABASE(false, false),
+        ALTER_DATABASE(false, false),
+        DROP_DATABASE(false, false),
+        CREATE_TABLE(true, false),
+        ALTER_TABLE(true, false),
+        DROP_TABLE(true, false),
+        UPDATE_TABLE_STATISTICS(true, false),
+        ADD_PARTITION(true, true),
+        ALTER_PARTITION(true, true),
+        DROP_PARTITION(true, true),
+        UPDATE_PARTITION_STATISTICS(true, true);
+
+        private final boolean tableEvent;
+        private final boolean partitionEvent;
+
+        MetastoreEventType(boolean tableEvent, boolean partitionEvent)
+        {
+            this.tableEvent = tableEvent;
+            this.partitionEvent = partitionEvent;
+        }
+
+        public boolean isTableEvent()
+        {
+            return tableEvent;
+        }
+
+        public boolean isPartitionEvent()
+        {
+            return partitionEvent;
+        }
+    }
+
+    private final long eventId;
+    private final MetastoreEventType eventType;
+    private final String databaseName;
+    private final Optional<String> tableName;
+    private final List<String> partitionNames;
+
+    @JsonCreator
+    public MetastoreEvent(
+            @JsonProperty("eventId") long eventId,
+            @JsonProperty("eventType") MetastoreEventType eventType,
+            @JsonProperty("databaseName") String databaseName,
+            @JsonProperty("tableName") Optional<String> tableName,
+            @JsonProperty("partitionNames") List<String> partitionNames)
+    {
+        this.eventId = eventId;
+        this.eventType = requireNonNull(eventType, "eventType is null");
+        this.databaseName = requireNonNull(databaseName, "databaseName is null");
+        this.tableName = requireNonNull(tableName, "tableName is null");
+        this.partitionNames = partitionNames == null ? ImmutableList.of() : ImmutableList.copyOf(partitionNames);
+        checkArgument(!eventType.isTableEvent() || tableName.isPresent(), "tableName is required for %s", eventType);
+        checkArgument(!eventType.isPartitionEvent() || !this.partitionNames.isEmpty(), "partitionNames are required for %s", eventType);
+    }
+
+    @JsonProperty
+    public long getEventId()
+    {
+        return eventId;
+    }
+
+    @JsonProperty
+    public MetastoreEventType getEventType()
+    {
+        return eventType;
+    }
+
+    @JsonProperty
+    public String getDatabaseName()
+    {
+        return databaseName;
+    }
+
+    @JsonProperty
+    public Optional<String> getTableName()
+    {
+        return tableName;
+    }
+
+    @JsonProperty
+    public List<String> getPartitionNames()
+    {
+        return partitionNames;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MetastoreEvent other = (MetastoreEvent) o;
+        return eventId == other.eventId &&
+                eventType == other.eventType &&
+                Objects.equals(databaseName, other.databaseName) &&
+                Objects.equals(tableName, other.tableName) &&
+                Objects.equals(partitionNames, other.partitionNames);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(eventId, eventType, databaseName, tableName, partitionNames);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("eventId", eventId)
+                .add("eventType", eventType)
+                .add("databaseName", databaseName)
+                .add("tableName", tableName.orElse(null))
+                .add("partitionNames", partitionNames)
+                .omitNullValues()
+                .toString();
+    }
+}
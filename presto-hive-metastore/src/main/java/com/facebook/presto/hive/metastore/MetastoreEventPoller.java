@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.airlift.units.Duration;
+import com.google.errorprone.annotations.ThreadSafe;
+import com.google.errorprone.annotations.concurrent.GuardedBy;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Applies the events of a metastore notification log to a caching metastore, so that cached metadata is
+ * invalidated when it changes rather than when it expires. The id of the last event applied is recorded in
+ * the {@link PartitionMetadataStore}, so the events added while the coordinator was down are applied on
+ * start. Without a recorded id, the events already in the log predate anything cached and are skipped.
+ * If the log cannot be read, everything cached is invalidated, since the events in it are lost.
+ */
+@ThreadSafe
+public class MetastoreEventPoller
+{
+    private static final Logger log = Logger.get(MetastoreEventPoller.class);
+
+    private final AbstractCachingHiveMetastore metastore;
+    private final MetastoreEventSource eventSource;
+    private final PartitionMetadataStore partitionMetadataStore;
+    private final Duration pollInterval;
+    private final ScheduledExecutorService executor = newSingleThreadScheduledExecutor(daemonThreadsNamed("hive-metastore-event-poller-%s"));
+
+    @GuardedBy("this")
+    private OptionalLong lastEventId;
+
+    public MetastoreEventPoller(
+            AbstractCachingHiveMetastore metastore,
+            MetastoreEventSource eventSource,
+            PartitionMetadataStore partitionMetadataStore,
+            Duration pollInterval)
+    {
+        this.metastore = requireNonNull(metastore, "metastore is null");
+        this.eventSource = requireNonNull(eventSource, "eventSource is null");
+        this.partitionMetadataStore = requireNonNull(partitionMetadataStore, "partitionMetadataStore is null");
+        this.pollInterval = requireNonNull(pollInterval, "pollInterval is null");
+        this.lastEventId = partitionMetadataStore.getLastEventId();
+        if (!lastEventId.isPresent()) {
+            // the stored entries, if any, cannot be matched with the log
+            partitionMetadataStore.invalidateAll();
+        }
+    }
+
+    public void start()
+    {
+        // catch up with the log before the caches are used
+        poll();
+        executor.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), MILLISECONDS);
+    }
+
+    public void stop()
+    {
+        executor.shutdownNow();
+    }
+
+    public synchronized void poll()
+    {
+        try {
+            List<MetastoreEvent> events = eventSource.poll();
+            // without a recorded id, the events in the log predate anything cached
+            boolean apply = lastEventId.isPresent();
+            long eventId = lastEventId.orElse(0);
+            for (MetastoreEvent event : events) {
+                if (!apply) {
+                    eventId = event.getEventId();
+                }
+                else if (event.getEventId() > eventId) {
+                    metastore.invalidate(event);
+                    eventId = event.getEventId();
+                }
+            }
+            if (!lastEventId.isPresent() || lastEventId.getAsLong() != eventId) {
+                lastEventId = OptionalLong.of(eventId);
+                partitionMetadataStore.setLastEventId(eventId);
+            }
+        }
+        catch (RuntimeException e) {
+            log.error(e, "Failed to apply metastore events, invalidating all cached metadata");
+            metastore.invalidateAll();
+            lastEventId = OptionalLong.of(lastEventId.orElse(0));
+        }
+    }
+}
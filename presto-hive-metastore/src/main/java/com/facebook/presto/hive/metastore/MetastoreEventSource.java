@@ -0,0 +1,29 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import java.util.List;
+
+/**
+ * The notification log of a metastore, read by {@link MetastoreEventPoller} to invalidate
+ * exactly the cached metadata that changed.
+ */
+public interface MetastoreEventSource
+{
+    /**
+     * Returns the events added to the log since the previous call, in log order. The first call
+     * returns the events already in the log.
+     */
+    List<MetastoreEvent> poll();
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.facebook.presto.hive.PartitionNameWithVersion;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+public class NoopPartitionMetadataStore
+        implements PartitionMetadataStore
+{
+    public static final NoopPartitionMetadataStore NOOP_PARTITION_METADATA_STORE = new NoopPartitionMetadataStore();
+
+    @Override
+    public Map<List<String>, Partition> getPartitions(HiveTableName hiveTableName, Collection<List<String>> partitionValues)
+    {
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public void putPartitions(HiveTableName hiveTableName, Collection<Partition> partitions)
+    {
+    }
+
+    @Override
+    public Map<PartitionNameWithVersion, PartitionStatistics> getPartitionStatistics(HiveTableName hiveTableName, Collection<String> partitionNames)
+    {
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public void putPartitionStatistics(HiveTableName hiveTableName, Map<PartitionNameWithVersion, PartitionStatistics> partitionStatistics)
+    {
+    }
+
+    @Override
+    public void invalidatePartitions(HiveTableName hiveTableName, Collection<List<String>> partitionValues)
+    {
+    }
+
+    @Override
+    public void invalidateTable(HiveTableName hiveTableName)
+    {
+    }
+
+    @Override
+    public void invalidateDatabase(String databaseName)
+    {
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+    }
+
+    @Override
+    public OptionalLong getLastEventId()
+    {
+        return OptionalLong.empty();
+    }
+
+    @Override
+    public void setLastEventId(long eventId)
+    {
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.facebook.presto.hive.PartitionNameWithVersion;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * A second tier of the metastore cache for partition metadata and partition statistics, consulted by
+ * {@link InMemoryCachingHiveMetastore} when its in-memory caches miss. Entries stay until they are
+ * invalidated, either by a change made through the caching metastore or by a {@link MetastoreEvent},
+ * or until they are older than the time to live of the store. An implementation that outlives the process records the id of the last
+ * event applied to it, so that the events missed while it was down are applied on start.
+ */
+public interface PartitionMetadataStore
+{
+    /**
+     * Returns the stored partitions among the given ones, keyed by their partition values.
+     */
+    Map<List<String>, Partition> getPartitions(HiveTableName hiveTableName, Collection<List<String>> partitionValues);
+
+    void putPartitions(HiveTableName hiveTableName, Collection<Partition> partitions);
+
+    /**
+     * Returns the stored statistics among the given partitions, keyed by partition name and by the
+     * version of the partition the statistics were stored for.
+     */
+    Map<PartitionNameWithVersion, PartitionStatistics> getPartitionStatistics(HiveTableName hiveTableName, Collection<String> partitionNames);
+
+    void putPartitionStatistics(HiveTableName hiveTableName, Map<PartitionNameWithVersion, PartitionStatistics> partitionStatistics);
+
+    /**
+     * Removes the metadata and the statistics of the given partitions.
+     */
+    void invalidatePartitions(HiveTableName hiveTableName, Collection<List<String>> partitionValues);
+
+    void invalidateTable(HiveTableName hiveTableName);
+
+    void invalidateDatabase(String databaseName);
+
+    void invalidateAll();
+
+    /**
+     * Returns the id of the last metastore event applied to the store, or empty if the store has
+     * not followed a notification log so far.
+     */
+    OptionalLong getLastEventId();
+
+    void setLastEventId(long eventId);
+}
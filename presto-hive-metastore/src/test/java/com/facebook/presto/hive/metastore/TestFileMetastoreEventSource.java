@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.presto.hive.metastore.MetastoreEvent.MetastoreEventType.ALTER_PARTITION;
+import static com.facebook.presto.hive.metastore.MetastoreEvent.MetastoreEventType.DROP_TABLE;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.write;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+
+@Test(singleThreaded = true)
+public class TestFileMetastoreEventSource
+{
+    private static final JsonCodec<MetastoreEvent> EVENT_CODEC = jsonCodec(MetastoreEvent.class);
+    private static final MetastoreEvent EVENT_1 = new MetastoreEvent(1, ALTER_PARTITION, "database", Optional.of("table"), ImmutableList.of("ds=2024-01-01"));
+    private static final MetastoreEvent EVENT_2 = new MetastoreEvent(2, DROP_TABLE, "database", Optional.of("table"), ImmutableList.of());
+
+    private Path directory;
+    private Path file;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        directory = createTempDirectory("metastore-events");
+        file = directory.resolve("events.json");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testPoll()
+            throws IOException
+    {
+        FileMetastoreEventSource eventSource = new FileMetastoreEventSource(file);
+        assertEquals(eventSource.poll(), ImmutableList.of());
+
+        append(EVENT_CODEC.toJson(EVENT_1).replace('\n', ' ') + "\n");
+        assertEquals(eventSource.poll(), ImmutableList.of(EVENT_1));
+        assertEquals(eventSource.poll(), ImmutableList.of());
+
+        // an unterminated line is read once it is complete
+        String event = EVENT_CODEC.toJson(EVENT_2).replace('\n', ' ');
+        append(event.substring(0, 10));
+        assertEquals(eventSource.poll(), ImmutableList.of());
+        append(event.substring(10) + "\n");
+        assertEquals(eventSource.poll(), ImmutableList.of(EVENT_2));
+    }
+
+    @Test
+    public void testTruncatedFile()
+            throws IOException
+    {
+        FileMetastoreEventSource eventSource = new FileMetastoreEventSource(file);
+        append(EVENT_CODEC.toJson(EVENT_1).replace('\n', ' ') + "\n" + EVENT_CODEC.toJson(EVENT_2).replace('\n', ' ') + "\n");
+        assertEquals(eventSource.poll(), ImmutableList.of(EVENT_1, EVENT_2));
+
+        // a rotated log is read from the start
+        write(file, (EVENT_CODEC.toJson(EVENT_1).replace('\n', ' ') + "\n").getBytes(UTF_8));
+        assertEquals(eventSource.poll(), ImmutableList.of(EVENT_1));
+    }
+
+    @Test
+    public void testInvalidEvent()
+            throws IOException
+    {
+        FileMetastoreEventSource eventSource = new FileMetastoreEventSource(file);
+        append("not an event\n");
+        assertThrows(IllegalArgumentException.class, eventSource::poll);
+
+        // the invalid line is only reported once
+        append(EVENT_CODEC.toJson(EVENT_1).replace('\n', ' ') + "\n");
+        assertEquals(eventSource.poll(), ImmutableList.of(EVENT_1));
+    }
+
+    private void append(String content)
+            throws IOException
+    {
+        write(file, content.getBytes(UTF_8), CREATE, APPEND);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.metastore;
+
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.hive.HiveBasicStatistics;
+import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.hive.PartitionNameWithVersion;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.hive.metastore.HiveTableName.hiveTableName;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static java.nio.file.Files.createTempDirectory;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.size;
+import static java.nio.file.Files.write;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.time.ZoneOffset.UTC;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestFilePartitionMetadataStore
+{
+    private static final HiveTableName TABLE = hiveTableName("database", "table");
+    private static final HiveTableName OTHER_TABLE = hiveTableName("database", "other_table");
+    private static final List<String> VALUES_1 = ImmutableList.of("2024-01-01", "1");
+    private static final List<String> VALUES_2 = ImmutableList.of("2024-01-02", "2");
+    private static final String PARTITION_NAME_1 = "ds=2024-01-01/bucket=1";
+    private static final String PARTITION_NAME_2 = "ds=2024-01-02/bucket=2";
+    // the statistics are stored with the version of the partition they were loaded for, if any
+    private static final PartitionNameWithVersion PARTITION_1 = new PartitionNameWithVersion(PARTITION_NAME_1, Optional.of(1L));
+    private static final PartitionNameWithVersion PARTITION_2 = new PartitionNameWithVersion(PARTITION_NAME_2, Optional.empty());
+    private static final Duration TTL = new Duration(1, TimeUnit.DAYS);
+    private static final PartitionStatistics STATISTICS = new PartitionStatistics(
+            new HiveBasicStatistics(10, 11, 10000, 10001),
+            ImmutableMap.of());
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        directory = createTempDirectory("partition-cache");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        FilePartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, TTL);
+        Partition partition = createPartition(TABLE, VALUES_1);
+        store.putPartitions(TABLE, ImmutableList.of(partition));
+        store.putPartitionStatistics(TABLE, ImmutableMap.of(PARTITION_1, STATISTICS));
+
+        assertEquals(store.getPartitions(TABLE, ImmutableList.of(VALUES_1, VALUES_2)), ImmutableMap.of(VALUES_1, partition));
+        assertEquals(store.getPartitionStatistics(TABLE, ImmutableList.of(PARTITION_NAME_1, PARTITION_NAME_2)), ImmutableMap.of(PARTITION_1, STATISTICS));
+
+        // a new store reads what was written by the previous one
+        FilePartitionMetadataStore restarted = new FilePartitionMetadataStore(directory, 1000, TTL);
+        assertEquals(restarted.getPartitions(TABLE, ImmutableList.of(VALUES_1, VALUES_2)), ImmutableMap.of(VALUES_1, partition));
+        assertEquals(restarted.getPartitionStatistics(TABLE, ImmutableList.of(PARTITION_NAME_1)), ImmutableMap.of(PARTITION_1, STATISTICS));
+        assertEquals(restarted.getPartitions(OTHER_TABLE, ImmutableList.of(VALUES_1)), ImmutableMap.of());
+    }
+
+    @Test
+    public void testInvalidatePartitions()
+    {
+        FilePartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, TTL);
+        Partition partition1 = createPartition(TABLE, VALUES_1);
+        Partition partition2 = createPartition(TABLE, VALUES_2);
+        store.putPartitions(TABLE, ImmutableList.of(partition1, partition2));
+        store.putPartitionStatistics(TABLE, ImmutableMap.of(PARTITION_1, STATISTICS, PARTITION_2, STATISTICS));
+
+        store.invalidatePartitions(TABLE, ImmutableList.of(VALUES_1));
+        assertEquals(store.getPartitions(TABLE, ImmutableList.of(VALUES_1, VALUES_2)), ImmutableMap.of(VALUES_2, partition2));
+        assertEquals(store.getPartitionStatistics(TABLE, ImmutableList.of(PARTITION_NAME_1, PARTITION_NAME_2)), ImmutableMap.of(PARTITION_2, STATISTICS));
+
+        FilePartitionMetadataStore restarted = new FilePartitionMetadataStore(directory, 1000, TTL);
+        assertEquals(restarted.getPartitions(TABLE, ImmutableList.of(VALUES_1, VALUES_2)), ImmutableMap.of(VALUES_2, partition2));
+        assertEquals(restarted.getPartitionStatistics(TABLE, ImmutableList.of(PARTITION_NAME_1, PARTITION_NAME_2)), ImmutableMap.of(PARTITION_2, STATISTICS));
+    }
+
+    @Test
+    public void testInvalidateTableAndDatabase()
+    {
+        FilePartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, TTL);
+        store.putPartitions(TABLE, ImmutableList.of(createPartition(TABLE, VALUES_1)));
+        store.putPartitions(OTHER_TABLE, ImmutableList.of(createPartition(OTHER_TABLE, VALUES_1)));
+
+        store.invalidateTable(TABLE);
+        assertFalse(exists(store.getTableFile(TABLE)));
+        assertEquals(store.getPartitions(TABLE, ImmutableList.of(VALUES_1)), ImmutableMap.of());
+        assertEquals(store.getPartitions(OTHER_TABLE, ImmutableList.of(VALUES_1)).size(), 1);
+
+        store.invalidateDatabase("database");
+        assertFalse(exists(store.getTableFile(OTHER_TABLE)));
+        assertEquals(store.getPartitions(OTHER_TABLE, ImmutableList.of(VALUES_1)), ImmutableMap.of());
+    }
+
+    @Test
+    public void testCompaction()
+            throws IOException
+    {
+        FilePartitionMetadataStore store = new FilePartitionMetadataStore(directory, 10_000, TTL);
+        Partition partition = createPartition(TABLE, VALUES_1);
+        store.putPartitions(TABLE, ImmutableList.of(partition));
+        long initialSize = size(store.getTableFile(TABLE));
+        for (int i = 0; i < 2000; i++) {
+            store.putPartitions(TABLE, ImmutableList.of(partition));
+        }
+        assertTrue(size(store.getTableFile(TABLE)) < initialSize * 1100);
+
+        FilePartitionMetadataStore restarted = new FilePartitionMetadataStore(directory, 10_000, TTL);
+        assertEquals(restarted.getPartitions(TABLE, ImmutableList.of(VALUES_1)), ImmutableMap.of(VALUES_1, partition));
+    }
+
+    @Test
+    public void testTruncatedFile()
+            throws IOException
+    {
+        FilePartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, TTL);
+        store.putPartitions(TABLE, ImmutableList.of(createPartition(TABLE, VALUES_1)));
+        // a record cut short by a crash
+        write(store.getTableFile(TABLE), new byte[] {0, 0, 1, 0, 42}, APPEND);
+
+        FilePartitionMetadataStore restarted = new FilePartitionMetadataStore(directory, 1000, TTL);
+        assertEquals(restarted.getPartitions(TABLE, ImmutableList.of(VALUES_1)), ImmutableMap.of());
+        assertFalse(exists(restarted.getTableFile(TABLE)));
+    }
+
+    @Test
+    public void testExpiration()
+    {
+        Instant now = Instant.parse("2024-01-01T00:00:00Z");
+        FilePartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, TTL, Clock.fixed(now, UTC));
+        Partition partition = createPartition(TABLE, VALUES_1);
+        store.putPartitions(TABLE, ImmutableList.of(partition));
+        store.putPartitionStatistics(TABLE, ImmutableMap.of(PARTITION_1, STATISTICS));
+
+        Instant beforeExpiration = now.plusMillis(TTL.toMillis() - 1);
+        FilePartitionMetadataStore restarted = new FilePartitionMetadataStore(directory, 1000, TTL, Clock.fixed(beforeExpiration, UTC));
+        assertEquals(restarted.getPartitions(TABLE, ImmutableList.of(VALUES_1)), ImmutableMap.of(VALUES_1, partition));
+        assertEquals(restarted.getPartitionStatistics(TABLE, ImmutableList.of(PARTITION_NAME_1)), ImmutableMap.of(PARTITION_1, STATISTICS));
+
+        // the stored time of an entry survives restarts
+        Instant afterExpiration = now.plusMillis(TTL.toMillis());
+        FilePartitionMetadataStore expired = new FilePartitionMetadataStore(directory, 1000, TTL, Clock.fixed(afterExpiration, UTC));
+        assertEquals(expired.getPartitions(TABLE, ImmutableList.of(VALUES_1)), ImmutableMap.of());
+        assertEquals(expired.getPartitionStatistics(TABLE, ImmutableList.of(PARTITION_NAME_1)), ImmutableMap.of());
+
+        // an entry stored again is live again
+        expired.putPartitions(TABLE, ImmutableList.of(partition));
+        assertEquals(expired.getPartitions(TABLE, ImmutableList.of(VALUES_1)), ImmutableMap.of(VALUES_1, partition));
+        assertEquals(expired.getPartitionStatistics(TABLE, ImmutableList.of(PARTITION_NAME_1)), ImmutableMap.of());
+    }
+
+    @Test
+    public void testLastEventId()
+    {
+        FilePartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, TTL);
+        assertEquals(store.getLastEventId(), OptionalLong.empty());
+        store.setLastEventId(42);
+        assertEquals(store.getLastEventId(), OptionalLong.of(42));
+
+        // the last event id outlives the invalidation of the entries
+        store.invalidateAll();
+        assertEquals(new FilePartitionMetadataStore(directory, 1000, TTL).getLastEventId(), OptionalLong.of(42));
+    }
+
+    private static Partition createPartition(HiveTableName hiveTableName, List<String> values)
+    {
+        return new Partition(
+                Optional.of("catalog"),
+                hiveTableName.getDatabaseName(),
+                hiveTableName.getTableName(),
+                values,
+                new Storage(
+                        StorageFormat.create("serde", "input", "output"),
+                        "location",
+                        Optional.empty(),
+                        false,
+                        ImmutableMap.of(),
+                        ImmutableMap.of()),
+                ImmutableList.of(new Column("column", HiveType.HIVE_INT, Optional.empty(), Optional.empty())),
+                ImmutableMap.of("param", "value"),
+                Optional.of(1L),
+                false,
+                true,
+                0,
+                0,
+                Optional.empty());
+    }
+}
@@ -50,7 +50,12 @@ public class TestMetastoreClientConfig
                 .setPartitionCacheColumnCountLimit(500)
                 .setHiveMetastoreAuthenticationType(HiveMetastoreAuthenticationType.NONE)
                 .setDeleteFilesOnTableDrop(false)
-                .setInvalidateMetastoreCacheProcedureEnabled(false));
+                .setInvalidateMetastoreCacheProcedureEnabled(false)
+                .setPartitionCachePath(null)
+                .setPartitionCacheMaximumSize(1_000_000)
+                .setPartitionCacheTtl(new Duration(1, TimeUnit.DAYS))
+                .setEventLogPath(null)
+                .setEventLogPollInterval(new Duration(10, TimeUnit.SECONDS)));
     }
 
     @Test
@@ -77,6 +82,11 @@ public class TestMetastoreClientConfig
                 .put("hive.metastore.authentication.type", "KERBEROS")
                 .put("hive.metastore.thrift.delete-files-on-table-drop", "true")
                 .put("hive.invalidate-metastore-cache-procedure-enabled", "true")
+                .put("hive.metastore-partition-cache-path", "/tmp/partitions")
+                .put("hive.metastore-partition-cache-maximum-size", "42")
+                .put("hive.metastore-partition-cache-ttl", "2d")
+                .put("hive.metastore-event-log-path", "/tmp/events")
+                .put("hive.metastore-event-log-poll-interval", "1m")
                 .build();
 
         MetastoreClientConfig expected = new MetastoreClientConfig()
@@ -99,7 +109,12 @@ public class TestMetastoreClientConfig
                 .setPartitionCacheColumnCountLimit(50)
                 .setHiveMetastoreAuthenticationType(HiveMetastoreAuthenticationType.KERBEROS)
                 .setDeleteFilesOnTableDrop(true)
-                .setInvalidateMetastoreCacheProcedureEnabled(true);
+                .setInvalidateMetastoreCacheProcedureEnabled(true)
+                .setPartitionCachePath("/tmp/partitions")
+                .setPartitionCacheMaximumSize(42)
+                .setPartitionCacheTtl(new Duration(2, TimeUnit.DAYS))
+                .setEventLogPath("/tmp/events")
+                .setEventLogPollInterval(new Duration(1, TimeUnit.MINUTES));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
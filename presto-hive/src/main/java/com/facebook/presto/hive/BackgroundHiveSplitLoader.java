@@ -21,6 +21,7 @@ import com.facebook.presto.hive.util.ResumableTasks;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
 import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.hadoop.fs.Path;
 
 import java.io.IOException;
 import java.util.Deque;
@@ -33,6 +34,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNKNOWN_ERROR;
+import static com.facebook.presto.hive.metastore.MetastoreUtil.getPartitionLocation;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
@@ -73,6 +75,7 @@ public class BackgroundHiveSplitLoader
             Table table,
             Iterable<HivePartitionMetadata> partitions,
             Map<Integer, Domain> infoColumnConstraints,
+            Map<HiveColumnHandle, Domain> fileIndexConstraints,
             Optional<BucketSplitInfo> tableBucketInfo,
             ConnectorSession session,
             HdfsEnvironment hdfsEnvironment,
@@ -87,8 +90,12 @@ public class BackgroundHiveSplitLoader
         this.loaderConcurrency = loaderConcurrency;
         checkArgument(loaderConcurrency > 0, "loaderConcurrency must be > 0, found: %s", loaderConcurrency);
         this.executor = requireNonNull(executor, "executor is null");
-        this.partitions = new ConcurrentLazyQueue<>(requireNonNull(partitions, "partitions is null"));
-        this.delegatingPartitionLoader = new DelegatingPartitionLoader(table, infoColumnConstraints, tableBucketInfo, session, hdfsEnvironment, namenodeStats, directoryLister, fileIterators, recursiveDirWalkerEnabled, schedulerUsesHostAddresses, partialAggregationsPushedDown);
+        // among the partitions about to be loaded, the ones whose files are already listed yield splits first
+        this.partitions = new ConcurrentLazyQueue<>(
+                requireNonNull(partitions, "partitions is null"),
+                loaderConcurrency,
+                partition -> isFileListingCached(directoryLister, table, partition));
+        this.delegatingPartitionLoader = new DelegatingPartitionLoader(table, infoColumnConstraints, fileIndexConstraints, tableBucketInfo, session, hdfsEnvironment, namenodeStats, directoryLister, fileIterators, recursiveDirWalkerEnabled, schedulerUsesHostAddresses, partialAggregationsPushedDown);
     }
 
     @Override
@@ -106,6 +113,15 @@ public class BackgroundHiveSplitLoader
         stopped = true;
     }
 
+    private static boolean isFileListingCached(DirectoryLister directoryLister, Table table, HivePartitionMetadata partition)
+    {
+        if (!(directoryLister instanceof CachingDirectoryLister)) {
+            return false;
+        }
+        String location = getPartitionLocation(table, partition.getPartition());
+        return !location.isEmpty() && ((CachingDirectoryLister) directoryLister).isPathCached(new Path(location));
+    }
+
     private class HiveSplitLoaderTask
             implements ResumableTask
     {
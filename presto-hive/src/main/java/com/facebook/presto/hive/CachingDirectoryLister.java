@@ -26,6 +26,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.SettableFuture;
 import jakarta.inject.Inject;
 import org.apache.hadoop.fs.Path;
 import org.openjdk.jol.info.ClassLayout;
@@ -36,7 +37,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.facebook.presto.common.RuntimeMetricName.DIRECTORY_LISTING_CACHE_HIT;
 import static com.facebook.presto.common.RuntimeMetricName.DIRECTORY_LISTING_CACHE_MISS;
@@ -48,12 +53,18 @@ import static com.facebook.presto.spi.StandardErrorCode.INVALID_PROCEDURE_ARGUME
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.lang.Math.toIntExact;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.Objects.requireNonNull;
 
 public class CachingDirectoryLister
         implements DirectoryLister
 {
+    // how long a listing waits for a concurrent listing of the same directory before listing it itself
+    private static final Duration MAX_SHARED_LISTING_WAIT = new Duration(1, MINUTES);
+
     private final Cache<String, ValueHolder> cache;
+    // the listings of cached directories in progress, completed once the listing is cached
+    private final ConcurrentMap<String, SettableFuture<ValueHolder>> inFlightListings = new ConcurrentHashMap<>();
     private final CachedTableChecker cachedTableChecker;
     private final DirectoryLister delegate;
 
@@ -93,7 +104,7 @@ public class CachingDirectoryLister
         if (hiveDirectoryContext.isCacheable()) {
             // DO NOT USE Caching, when cache is disabled.
             // This is useful for debugging issues, when cache is explicitly disabled via session property.
-            ValueHolder value = Optional.ofNullable(cache.getIfPresent(path.toString())).orElse(null);
+            ValueHolder value = cache.getIfPresent(path.toString());
             if (value != null) {
                 List<HiveFileInfo> files = value.getFiles();
                 runtimeStats.addMetricValue(DIRECTORY_LISTING_CACHE_HIT, NONE, 1);
@@ -103,29 +114,97 @@ public class CachingDirectoryLister
             }
         }
 
+        boolean enableCaching = hiveDirectoryContext.isCacheable() && cachedTableChecker.isCachedTable(table.getSchemaTableName());
+        SettableFuture<ValueHolder> listing = null;
+        if (enableCaching) {
+            // Concurrent listings of a directory, such as the ones of queries scanning the same partitions, share a single listing:
+            // the first one streams the files to its caller, and the others wait for it to be cached
+            listing = SettableFuture.create();
+            SettableFuture<ValueHolder> sharedListing = inFlightListings.putIfAbsent(path.toString(), listing);
+            if (sharedListing != null) {
+                Optional<ValueHolder> value = getSharedListing(path, sharedListing);
+                if (value.isPresent()) {
+                    List<HiveFileInfo> files = value.get().getFiles();
+                    runtimeStats.addMetricValue(DIRECTORY_LISTING_CACHE_HIT, NONE, 1);
+                    runtimeStats.addMetricValue(DIRECTORY_LISTING_TIME_NANOS, NANO, System.nanoTime() - startTime);
+                    runtimeStats.addMetricValue(FILES_READ_COUNT, NONE, files.size());
+                    return files.iterator();
+                }
+                // the shared listing failed, or its caller stopped reading it, so the directory is listed again
+                listing = null;
+            }
+        }
+
         runtimeStats.addMetricValue(DIRECTORY_LISTING_CACHE_MISS, NONE, 1);
-        Iterator<HiveFileInfo> iterator = delegate.list(fileSystem, table, path, partition, namenodeStats, hiveDirectoryContext);
+        Iterator<HiveFileInfo> iterator;
+        try {
+            iterator = delegate.list(fileSystem, table, path, partition, namenodeStats, hiveDirectoryContext);
+        }
+        catch (RuntimeException e) {
+            if (listing != null) {
+                completeListing(path, listing, e);
+            }
+            throw e;
+        }
         runtimeStats.addMetricValue(DIRECTORY_LISTING_TIME_NANOS, NANO, System.nanoTime() - startTime);
-        if (hiveDirectoryContext.isCacheable() && cachedTableChecker.isCachedTable(table.getSchemaTableName())) {
-            return fileCountTrackingIterator(iterator, path, runtimeStats, true);
+        // the files are streamed to the caller as they are listed, and cached once the listing is complete
+        return fileCountTrackingIterator(iterator, path, runtimeStats, enableCaching, Optional.ofNullable(listing));
+    }
+
+    private Optional<ValueHolder> getSharedListing(Path path, SettableFuture<ValueHolder> listing)
+    {
+        try {
+            return Optional.of(listing.get(MAX_SHARED_LISTING_WAIT.toMillis(), TimeUnit.MILLISECONDS));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException | TimeoutException e) {
+            inFlightListings.remove(path.toString(), listing);
+            return Optional.empty();
         }
-        return fileCountTrackingIterator(iterator, path, runtimeStats, false);
     }
 
-    private Iterator<HiveFileInfo> fileCountTrackingIterator(Iterator<HiveFileInfo> iterator, Path path, RuntimeStats runtimeStats, boolean enableCaching)
+    private void completeListing(Path path, SettableFuture<ValueHolder> listing, RuntimeException failure)
+    {
+        inFlightListings.remove(path.toString(), listing);
+        listing.setException(failure);
+    }
+
+    private Iterator<HiveFileInfo> fileCountTrackingIterator(
+            Iterator<HiveFileInfo> iterator,
+            Path path,
+            RuntimeStats runtimeStats,
+            boolean enableCaching,
+            Optional<SettableFuture<ValueHolder>> listing)
     {
         return new Iterator<HiveFileInfo>()
         {
             private final List<HiveFileInfo> files = new ArrayList<>();
+            private boolean done;
 
             @Override
             public boolean hasNext()
             {
-                boolean hasNext = iterator.hasNext();
-                if (!hasNext) {
+                boolean hasNext;
+                try {
+                    hasNext = iterator.hasNext();
+                }
+                catch (RuntimeException e) {
+                    listing.ifPresent(future -> completeListing(path, future, e));
+                    throw e;
+                }
+                if (!hasNext && !done) {
+                    done = true;
                     runtimeStats.addMetricValue(FILES_READ_COUNT, NONE, files.size());
                     if (enableCaching) {
-                        cache.put(path.toString(), new ValueHolder(files));
+                        ValueHolder value = new ValueHolder(files);
+                        cache.put(path.toString(), value);
+                        listing.ifPresent(future -> {
+                            inFlightListings.remove(path.toString(), future);
+                            future.set(value);
+                        });
                     }
                 }
                 return hasNext;
@@ -134,7 +213,14 @@ public class CachingDirectoryLister
             @Override
             public HiveFileInfo next()
             {
-                HiveFileInfo next = iterator.next();
+                HiveFileInfo next;
+                try {
+                    next = iterator.next();
+                }
+                catch (RuntimeException e) {
+                    listing.ifPresent(future -> completeListing(path, future, e));
+                    throw e;
+                }
                 files.add(next);
                 return next;
             }
@@ -143,8 +229,8 @@ public class CachingDirectoryLister
 
     public boolean isPathCached(Path path)
     {
-        ValueHolder value = Optional.ofNullable(cache.getIfPresent(path.toString())).orElse(null);
-        return value != null;
+        // not recorded in the cache statistics
+        return cache.asMap().containsKey(path.toString());
     }
 
     public void invalidateDirectoryListCache(Optional<String> directoryPath)
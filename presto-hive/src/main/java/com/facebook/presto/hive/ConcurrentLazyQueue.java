@@ -15,28 +15,55 @@ package com.facebook.presto.hive;
 
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
 
 public class ConcurrentLazyQueue<E>
 {
     @GuardedBy("this")
     private final Iterator<E> iterator;
+    // the next elements of the iterator, among which the preferred ones are polled first
+    @GuardedBy("this")
+    private final List<E> window = new ArrayList<>();
+    private final int windowSize;
+    private final Predicate<E> preferred;
 
     public ConcurrentLazyQueue(Iterable<E> iterable)
     {
+        this(iterable, 1, element -> false);
+    }
+
+    public ConcurrentLazyQueue(Iterable<E> iterable, int windowSize, Predicate<E> preferred)
+    {
+        checkArgument(windowSize > 0, "windowSize must be > 0, found: %s", windowSize);
         this.iterator = iterable.iterator();
+        this.windowSize = windowSize;
+        this.preferred = requireNonNull(preferred, "preferred is null");
     }
 
     public synchronized boolean isEmpty()
     {
-        return !iterator.hasNext();
+        return window.isEmpty() && !iterator.hasNext();
     }
 
     public synchronized E poll()
     {
-        if (!iterator.hasNext()) {
+        while (window.size() < windowSize && iterator.hasNext()) {
+            window.add(iterator.next());
+        }
+        if (window.isEmpty()) {
             return null;
         }
-        return iterator.next();
+        for (int i = 0; i < window.size(); i++) {
+            if (preferred.test(window.get(i))) {
+                return window.remove(i);
+            }
+        }
+        return window.remove(0);
     }
 }
@@ -40,6 +40,7 @@ public class DelegatingPartitionLoader
     public DelegatingPartitionLoader(
             Table table,
             Map<Integer, Domain> infoColumnConstraints,
+            Map<HiveColumnHandle, Domain> fileIndexConstraints,
             Optional<BucketSplitInfo> tableBucketInfo,
             ConnectorSession session,
             HdfsEnvironment hdfsEnvironment,
@@ -54,6 +55,7 @@ public class DelegatingPartitionLoader
         this.storagePartitionLoader = new StoragePartitionLoader(
                 table,
                 infoColumnConstraints,
+                fileIndexConstraints,
                 tableBucketInfo,
                 session,
                 hdfsEnvironment,
@@ -0,0 +1,241 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_DATA_ERROR;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.transform;
+import static com.google.common.util.concurrent.Futures.whenAllComplete;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.lang.System.nanoTime;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Appends pages to and commits the {@link HiveWriter}s of a page sink on background threads, so that encoding,
+ * stripe flushes and the close of a file, including its upload, overlap with the driver producing further pages
+ * and with the other files of the write.
+ * <p>
+ * The operations of a writer run one at a time, in the order they were queued. The pages queued for all the writers
+ * of the page sink are bounded by a buffer size: once it is exceeded, {@link #isBlocked()} returns a future that
+ * completes when enough pages were written. All methods except the accessors of the counters are called by the
+ * driver thread only.
+ */
+public class HiveAsyncWriteQueue
+{
+    private static final ListenableFuture<?> NOT_BLOCKED = immediateFuture(null);
+
+    private final ListeningExecutorService executor;
+    private final HdfsEnvironment hdfsEnvironment;
+    private final String user;
+    private final long maxBufferedBytes;
+    private final HiveWriterStats hiveWriterStats;
+
+    // the last operation queued for each writer, which the next operation of the writer runs after
+    private final Map<HiveWriter, ListenableFuture<?>> pendingOperations = new IdentityHashMap<>();
+
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final AtomicLong systemMemoryUsage = new AtomicLong();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private long bufferedBytes;
+    private SettableFuture<?> notFull;
+    private volatile boolean aborted;
+
+    public HiveAsyncWriteQueue(
+            ListeningExecutorService executor,
+            HdfsEnvironment hdfsEnvironment,
+            String user,
+            long maxBufferedBytes,
+            HiveWriterStats hiveWriterStats)
+    {
+        this.executor = requireNonNull(executor, "executor is null");
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.user = requireNonNull(user, "user is null");
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.hiveWriterStats = requireNonNull(hiveWriterStats, "hiveWriterStats is null");
+    }
+
+    public long getWrittenBytes()
+    {
+        return writtenBytes.get();
+    }
+
+    public synchronized long getSystemMemoryUsage()
+    {
+        return systemMemoryUsage.get() + bufferedBytes;
+    }
+
+    public void append(HiveWriter writer, Page page)
+    {
+        checkFailure();
+        // lazy blocks are loaded by the driver, which owns the page source they read from
+        Page loadedPage = page.getLoadedPage();
+        long pageBytes = loadedPage.getRetainedSizeInBytes();
+        synchronized (this) {
+            bufferedBytes += pageBytes;
+        }
+        enqueue(writer, () -> {
+            try {
+                if (!aborted) {
+                    runAccounted(writer, () -> writer.append(loadedPage));
+                }
+            }
+            finally {
+                release(pageBytes);
+            }
+        });
+    }
+
+    /**
+     * Returns a future that completes when the pages queued for the writers fit in the buffer again, and records
+     * the time the driver spends waiting for it.
+     */
+    public ListenableFuture<?> isBlocked()
+    {
+        checkFailure();
+        SettableFuture<?> future;
+        synchronized (this) {
+            if (bufferedBytes <= maxBufferedBytes) {
+                return NOT_BLOCKED;
+            }
+            if (notFull == null) {
+                notFull = SettableFuture.create();
+            }
+            future = notFull;
+        }
+        long start = nanoTime();
+        future.addListener(() -> hiveWriterStats.addAsyncWriteBlockedTime(nanoTime() - start, NANOSECONDS), directExecutor());
+        return future;
+    }
+
+    /**
+     * Queues the commit of the writers after their pending appends, the commits of different writers running in parallel.
+     */
+    public ListenableFuture<?> commit(List<HiveWriter> writers)
+    {
+        checkFailure();
+        List<ListenableFuture<?>> commits = new ArrayList<>();
+        for (HiveWriter writer : writers) {
+            commits.add(enqueue(writer, () -> runAccounted(writer, writer::commit)));
+        }
+        return transform(allAsList(commits), ignored -> {
+            checkFailure();
+            return null;
+        }, directExecutor());
+    }
+
+    /**
+     * Discards the appends that did not start yet and rolls the writers back once their running operation finishes,
+     * without waiting for them.
+     *
+     * @return a future of the exceptions thrown by the writers failing to roll back
+     */
+    public ListenableFuture<List<Exception>> abort(List<HiveWriter> writers)
+    {
+        aborted = true;
+        List<Exception> exceptions = new ArrayList<>();
+        List<ListenableFuture<?>> rollbacks = new ArrayList<>();
+        for (HiveWriter writer : writers) {
+            ListenableFuture<?> pending = pendingOperations.getOrDefault(writer, NOT_BLOCKED);
+            rollbacks.add(whenAllComplete(pending).call(() -> {
+                try {
+                    hdfsEnvironment.doAs(user, writer::rollback);
+                }
+                catch (Exception e) {
+                    synchronized (exceptions) {
+                        exceptions.add(e);
+                    }
+                }
+                return null;
+            }, executor));
+        }
+        return transform(allAsList(rollbacks), ignored -> {
+            synchronized (exceptions) {
+                return ImmutableList.copyOf(exceptions);
+            }
+        }, directExecutor());
+    }
+
+    private ListenableFuture<?> enqueue(HiveWriter writer, Runnable operation)
+    {
+        ListenableFuture<?> previous = pendingOperations.getOrDefault(writer, NOT_BLOCKED);
+        // an operation runs even if a previous one of the writer failed, the failure being reported to the driver instead
+        ListenableFuture<?> next = whenAllComplete(previous).call(() -> {
+            try {
+                hdfsEnvironment.doAs(user, operation);
+            }
+            catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            }
+            return null;
+        }, executor);
+        pendingOperations.put(writer, next);
+        return next;
+    }
+
+    private void runAccounted(HiveWriter writer, Runnable operation)
+    {
+        if (failure.get() != null) {
+            return;
+        }
+        long currentWritten = writer.getWrittenBytes();
+        long currentMemory = writer.getSystemMemoryUsage();
+        operation.run();
+        writtenBytes.addAndGet(writer.getWrittenBytes() - currentWritten);
+        systemMemoryUsage.addAndGet(writer.getSystemMemoryUsage() - currentMemory);
+    }
+
+    private void release(long pageBytes)
+    {
+        SettableFuture<?> future = null;
+        synchronized (this) {
+            bufferedBytes -= pageBytes;
+            if (notFull != null && (bufferedBytes <= maxBufferedBytes || failure.get() != null)) {
+                future = notFull;
+                notFull = null;
+            }
+        }
+        // complete outside of the lock, as listeners run on this thread
+        if (future != null) {
+            future.set(null);
+        }
+    }
+
+    private void checkFailure()
+    {
+        Throwable throwable = failure.get();
+        if (throwable != null) {
+            throwIfUnchecked(throwable);
+            throw new PrestoException(HIVE_WRITER_DATA_ERROR, "Failed to write data asynchronously", throwable);
+        }
+    }
+}
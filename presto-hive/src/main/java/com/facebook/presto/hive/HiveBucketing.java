@@ -17,6 +17,7 @@ import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.NullableValue;
+import com.facebook.presto.common.predicate.Range;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.predicate.ValueSet;
 import com.facebook.presto.common.type.Type;
@@ -44,6 +45,10 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
 import static com.facebook.presto.common.type.TypeUtils.hashPosition;
 import static com.facebook.presto.hive.BucketFunctionType.HIVE_COMPATIBLE;
 import static com.facebook.presto.hive.HiveColumnHandle.BUCKET_COLUMN_NAME;
@@ -56,6 +61,8 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static io.airlift.slice.Slices.utf8Slice;
 import static java.lang.Double.doubleToLongBits;
+import static java.lang.Math.addExact;
+import static java.lang.Math.subtractExact;
 import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.util.Map.Entry;
@@ -72,6 +79,9 @@ public final class HiveBucketing
             HiveType.HIVE_LONG,
             HiveType.HIVE_BOOLEAN,
             HiveType.HIVE_STRING);
+    private static final Set<Type> INTEGER_TYPES = ImmutableSet.of(TINYINT, SMALLINT, INTEGER, BIGINT);
+    // upper bound on the number of bucket column values hashed to compute a bucket filter
+    private static final int MAX_BUCKET_FILTER_VALUES = 10_000;
 
     private HiveBucketing() {}
 
@@ -337,31 +347,26 @@ public final class HiveBucketing
             return Optional.empty();
         }
 
-        Optional<Map<ColumnHandle, Set<NullableValue>>> bindings = TupleDomain.extractFixedValueSets(effectivePredicate);
-        if (!bindings.isPresent()) {
+        if (!effectivePredicate.getDomains().isPresent()) {
             return Optional.empty();
         }
+        Map<ColumnHandle, Domain> domains = effectivePredicate.getDomains().get();
 
-        Optional<Set<Integer>> buckets = getHiveBuckets(hiveBucketProperty, dataColumns, bindings.get(), useLegacyTimestampBucketing);
-        if (buckets.isPresent()) {
-            return Optional.of(new HiveBucketFilter(buckets.get()));
-        }
+        Optional<Set<Integer>> buckets = getHiveBuckets(hiveBucketProperty, dataColumns, domains, useLegacyTimestampBucketing);
 
-        if (!effectivePredicate.getDomains().isPresent()) {
-            return Optional.empty();
-        }
-        Optional<Domain> domain = effectivePredicate.getDomains().get().entrySet().stream()
+        Optional<Domain> domain = domains.entrySet().stream()
                 .filter(entry -> ((HiveColumnHandle) entry.getKey()).getName().equals(BUCKET_COLUMN_NAME))
                 .findFirst()
                 .map(Entry::getValue);
         if (!domain.isPresent()) {
-            return Optional.empty();
+            return buckets.map(HiveBucketFilter::new);
         }
         ValueSet values = domain.get().getValues();
         ImmutableSet.Builder<Integer> builder = ImmutableSet.builder();
         int bucketCount = hiveBucketProperty.get().getBucketCount();
         for (int i = 0; i < bucketCount; i++) {
-            if (values.containsValue((long) i)) {
+            // a predicate on the bucket columns and one on $bucket can both be present, in which case only the buckets matching both are kept
+            if (values.containsValue((long) i) && (!buckets.isPresent() || buckets.get().contains(i))) {
                 builder.add(i);
             }
         }
@@ -371,10 +376,10 @@ public final class HiveBucketing
     private static Optional<Set<Integer>> getHiveBuckets(
             Optional<HiveBucketProperty> hiveBucketPropertyOptional,
             List<Column> dataColumns,
-            Map<ColumnHandle, Set<NullableValue>> bindings,
+            Map<ColumnHandle, Domain> domains,
             boolean useLegacyTimestampBucketing)
     {
-        if (bindings.isEmpty() || !hiveBucketPropertyOptional.isPresent()) {
+        if (domains.isEmpty() || !hiveBucketPropertyOptional.isPresent()) {
             return Optional.empty();
         }
 
@@ -397,15 +402,25 @@ public final class HiveBucketing
             }
         }
 
-        Map<String, Set<NullableValue>> nameToBindings = bindings.entrySet().stream()
+        Map<String, Domain> nameToDomain = domains.entrySet().stream()
                 .collect(toImmutableMap(entry -> ((HiveColumnHandle) entry.getKey()).getName(), Entry::getValue));
 
         ImmutableList.Builder<Set<NullableValue>> orderedBindingsBuilder = ImmutableList.builder();
+        long combinations = 1;
         for (String columnName : bucketColumns) {
-            if (!nameToBindings.containsKey(columnName)) {
+            if (!nameToDomain.containsKey(columnName)) {
                 return Optional.empty();
             }
-            orderedBindingsBuilder.add(nameToBindings.get(columnName));
+            Optional<Set<NullableValue>> values = getBucketColumnValues(nameToDomain.get(columnName));
+            if (!values.isPresent()) {
+                return Optional.empty();
+            }
+            // every combination of values is hashed, so give up on wide predicates over several bucket columns
+            combinations *= values.get().size();
+            if (combinations > MAX_BUCKET_FILTER_VALUES) {
+                return Optional.empty();
+            }
+            orderedBindingsBuilder.add(values.get());
         }
 
         List<Set<NullableValue>> orderedBindings = orderedBindingsBuilder.build();
@@ -419,6 +434,72 @@ public final class HiveBucketing
         return Optional.of(buckets.build());
     }
 
+    /**
+     * Returns the values of a bucket column allowed by the domain. Besides single values, which cover
+     * IN lists and disjunctions, bounded ranges over integer columns are enumerated as long as they
+     * stay within {@link #MAX_BUCKET_FILTER_VALUES} values.
+     */
+    private static Optional<Set<NullableValue>> getBucketColumnValues(Domain domain)
+    {
+        Type type = domain.getType();
+        ImmutableSet.Builder<NullableValue> values = ImmutableSet.builder();
+        long valueCount = 0;
+        for (Range range : domain.getValues().getRanges().getOrderedRanges()) {
+            if (range.isSingleValue()) {
+                values.add(new NullableValue(type, range.getSingleValue()));
+                valueCount++;
+                if (valueCount > MAX_BUCKET_FILTER_VALUES) {
+                    return Optional.empty();
+                }
+            }
+            else {
+                if (!INTEGER_TYPES.contains(type) || range.isLowUnbounded() || range.isHighUnbounded()) {
+                    return Optional.empty();
+                }
+                long low = (long) range.getLowBoundedValue();
+                long high = (long) range.getHighBoundedValue();
+                if (!range.isLowInclusive()) {
+                    if (low == Long.MAX_VALUE) {
+                        continue;
+                    }
+                    low++;
+                }
+                if (!range.isHighInclusive()) {
+                    if (high == Long.MIN_VALUE) {
+                        continue;
+                    }
+                    high--;
+                }
+                if (high < low) {
+                    continue;
+                }
+                // the size of ranges spanning more than half of the long domain overflows
+                long rangeSize;
+                try {
+                    rangeSize = addExact(subtractExact(high, low), 1);
+                }
+                catch (ArithmeticException e) {
+                    return Optional.empty();
+                }
+                if (rangeSize > MAX_BUCKET_FILTER_VALUES - valueCount) {
+                    return Optional.empty();
+                }
+                valueCount += rangeSize;
+                // stop on the last value rather than incrementing past it, which overflows when high is Long.MAX_VALUE
+                for (long value = low; ; value++) {
+                    values.add(new NullableValue(type, value));
+                    if (value == high) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (domain.isNullAllowed()) {
+            values.add(new NullableValue(type, null));
+        }
+        return Optional.of(values.build());
+    }
+
     private static void getHiveBuckets(
             Object[] values,
             int valuesCount,
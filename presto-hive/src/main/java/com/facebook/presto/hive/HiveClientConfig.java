@@ -102,6 +102,9 @@ public class HiveClientConfig
     private int maxPartitionsPerWriter = 100;
     private int maxOpenSortFiles = 50;
     private int writeValidationThreads = 16;
+    private boolean asyncWriterEnabled;
+    private int asyncWriterThreads = 32;
+    private DataSize asyncWriterMaxBufferedSize = new DataSize(64, MEGABYTE);
 
     private List<String> resourceConfigFiles = ImmutableList.of();
 
@@ -203,6 +206,7 @@ public class HiveClientConfig
     private boolean partitionFilteringFromMetastoreEnabled = true;
 
     private boolean skipEmptyFiles;
+    private boolean fileIndexEnabled;
 
     private boolean parallelParsingOfPartitionValuesEnabled;
     private int maxParallelParsingConcurrency = 100;
@@ -217,6 +221,11 @@ public class HiveClientConfig
     private Duration parquetQuickStatsFileMetadataFetchTimeout = new Duration(60, TimeUnit.SECONDS);
     private int parquetQuickStatsMaxConcurrentCalls = 500;
     private int quickStatsMaxConcurrentCalls = 100;
+    private Duration orcQuickStatsFileMetadataFetchTimeout = new Duration(60, TimeUnit.SECONDS);
+    private int orcQuickStatsMaxConcurrentCalls = 500;
+    private String quickStatsDiskCachePath;
+    private int quickStatsDiskCacheMaxEntries = 100_000;
+    private boolean quickStatsPrewarmWrittenPartitionsEnabled;
     private boolean legacyTimestampBucketing;
     private boolean optimizeParsingOfPartitionValues;
     private int optimizeParsingOfPartitionValuesThreshold = 500;
@@ -693,6 +702,48 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isAsyncWriterEnabled()
+    {
+        return asyncWriterEnabled;
+    }
+
+    @Config("hive.async-writer.enabled")
+    @ConfigDescription("Append pages to the files of a write and commit them on background threads, instead of on the driver thread")
+    public HiveClientConfig setAsyncWriterEnabled(boolean asyncWriterEnabled)
+    {
+        this.asyncWriterEnabled = asyncWriterEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getAsyncWriterThreads()
+    {
+        return asyncWriterThreads;
+    }
+
+    @Config("hive.async-writer.threads")
+    @ConfigDescription("Number of threads used for appending to and committing files written asynchronously")
+    public HiveClientConfig setAsyncWriterThreads(int asyncWriterThreads)
+    {
+        this.asyncWriterThreads = asyncWriterThreads;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1MB")
+    public DataSize getAsyncWriterMaxBufferedSize()
+    {
+        return asyncWriterMaxBufferedSize;
+    }
+
+    @Config("hive.async-writer.max-buffered-size")
+    @ConfigDescription("Maximum size of the pages queued for the files of a page sink before appending pages blocks")
+    public HiveClientConfig setAsyncWriterMaxBufferedSize(DataSize asyncWriterMaxBufferedSize)
+    {
+        this.asyncWriterMaxBufferedSize = asyncWriterMaxBufferedSize;
+        return this;
+    }
+
     public String getDomainSocketPath()
     {
         return domainSocketPath;
@@ -1702,6 +1753,71 @@ public class HiveClientConfig
         return this;
     }
 
+    @Config("hive.quick-stats.orc.file-metadata-fetch-timeout")
+    public HiveClientConfig setOrcQuickStatsFileMetadataFetchTimeout(Duration fileMetadataFetchTimeout)
+    {
+        this.orcQuickStatsFileMetadataFetchTimeout = fileMetadataFetchTimeout;
+        return this;
+    }
+
+    public Duration getOrcQuickStatsFileMetadataFetchTimeout()
+    {
+        return this.orcQuickStatsFileMetadataFetchTimeout;
+    }
+
+    @Min(1)
+    public int getMaxConcurrentOrcQuickStatsCalls()
+    {
+        return orcQuickStatsMaxConcurrentCalls;
+    }
+
+    @Config("hive.quick-stats.orc.max-concurrent-calls")
+    public HiveClientConfig setMaxConcurrentOrcQuickStatsCalls(int maxConcurrentCalls)
+    {
+        this.orcQuickStatsMaxConcurrentCalls = maxConcurrentCalls;
+        return this;
+    }
+
+    public String getQuickStatsDiskCachePath()
+    {
+        return quickStatsDiskCachePath;
+    }
+
+    @Config("hive.quick-stats.disk-cache-path")
+    @ConfigDescription("Local directory where built quick stats are persisted across restarts")
+    public HiveClientConfig setQuickStatsDiskCachePath(String quickStatsDiskCachePath)
+    {
+        this.quickStatsDiskCachePath = quickStatsDiskCachePath;
+        return this;
+    }
+
+    @Min(1)
+    public int getQuickStatsDiskCacheMaxEntries()
+    {
+        return quickStatsDiskCacheMaxEntries;
+    }
+
+    @Config("hive.quick-stats.disk-cache-max-entries")
+    @ConfigDescription("Maximum number of partitions whose quick stats are persisted, the least recently used ones being removed first")
+    public HiveClientConfig setQuickStatsDiskCacheMaxEntries(int quickStatsDiskCacheMaxEntries)
+    {
+        this.quickStatsDiskCacheMaxEntries = quickStatsDiskCacheMaxEntries;
+        return this;
+    }
+
+    public boolean isQuickStatsPrewarmWrittenPartitionsEnabled()
+    {
+        return quickStatsPrewarmWrittenPartitionsEnabled;
+    }
+
+    @Config("hive.quick-stats.prewarm-written-partitions-enabled")
+    @ConfigDescription("Build quick stats in the background for partitions written without column statistics")
+    public HiveClientConfig setQuickStatsPrewarmWrittenPartitionsEnabled(boolean quickStatsPrewarmWrittenPartitionsEnabled)
+    {
+        this.quickStatsPrewarmWrittenPartitionsEnabled = quickStatsPrewarmWrittenPartitionsEnabled;
+        return this;
+    }
+
     public Protocol getThriftProtocol()
     {
         return thriftProtocol;
@@ -1793,6 +1909,19 @@ public class HiveClientConfig
         return this.skipEmptyFiles;
     }
 
+    @Config("hive.file-index-enabled")
+    @ConfigDescription("Write per-file column statistics of new ORC files to a partition file index, and use it to skip files during split generation")
+    public HiveClientConfig setFileIndexEnabled(boolean fileIndexEnabled)
+    {
+        this.fileIndexEnabled = fileIndexEnabled;
+        return this;
+    }
+
+    public boolean isFileIndexEnabled()
+    {
+        return fileIndexEnabled;
+    }
+
     public boolean isLegacyTimestampBucketing()
     {
         return legacyTimestampBucketing;
@@ -45,6 +45,7 @@ import com.facebook.presto.hive.rcfile.RcFilePageSourceFactory;
 import com.facebook.presto.hive.rule.HivePlanOptimizerProvider;
 import com.facebook.presto.hive.s3.PrestoS3ClientFactory;
 import com.facebook.presto.hive.s3select.S3SelectRecordCursorProvider;
+import com.facebook.presto.hive.statistics.OrcQuickStatsBuilder;
 import com.facebook.presto.hive.statistics.ParquetQuickStatsBuilder;
 import com.facebook.presto.hive.statistics.QuickStatsProvider;
 import com.facebook.presto.orc.CachingStripeMetadataSource;
@@ -370,15 +371,17 @@ public class HiveClientModule
             MBeanExporter exporter)
     {
         ParquetQuickStatsBuilder parquetQuickStatsBuilder = new ParquetQuickStatsBuilder(fileFormatDataSourceStats, hdfsEnvironment, hiveClientConfig);
+        OrcQuickStatsBuilder orcQuickStatsBuilder = new OrcQuickStatsBuilder(fileFormatDataSourceStats, hdfsEnvironment, hiveClientConfig);
         QuickStatsProvider quickStatsProvider = new QuickStatsProvider(metastore,
                 hdfsEnvironment,
                 directoryLister,
                 hiveClientConfig,
                 nameNodeStats,
                 // Ordered list of strategies to apply to build quick stats
-                ImmutableList.of(parquetQuickStatsBuilder));
+                ImmutableList.of(parquetQuickStatsBuilder, orcQuickStatsBuilder));
         exporter.export(generatedNameOf(QuickStatsProvider.class, connectorId + "_QuickStatsProvider"), quickStatsProvider);
         exporter.export(generatedNameOf(ParquetQuickStatsBuilder.class, connectorId + "_ParquetQuickStatsBuilder"), parquetQuickStatsBuilder);
+        exporter.export(generatedNameOf(OrcQuickStatsBuilder.class, connectorId + "_OrcQuickStatsBuilder"), orcQuickStatsBuilder);
         return quickStatsProvider;
     }
 }
@@ -0,0 +1,453 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.orc.TupleDomainOrcPredicate;
+import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.orc.metadata.statistics.DateStatistics;
+import com.facebook.presto.orc.metadata.statistics.DoubleStatistics;
+import com.facebook.presto.orc.metadata.statistics.HiveBloomFilter;
+import com.facebook.presto.orc.metadata.statistics.IntegerStatistics;
+import com.facebook.presto.orc.metadata.statistics.StringStatistics;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import io.airlift.slice.Slices;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.Varchars.isVarcharType;
+import static com.facebook.presto.hive.HiveFileIndexBuilder.isIntegerType;
+import static com.facebook.presto.orc.metadata.statistics.ColumnStatistics.createColumnStatistics;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+import static java.util.UUID.randomUUID;
+
+/**
+ * Column statistics of the files of a partition, stored in a hidden file next to them, so that the files
+ * that cannot match the predicate of a query are skipped when splits are created rather than after their
+ * footer is read by a worker.
+ * <p>
+ * An entry only applies to the file with the same name and size, so the files added, replaced or removed
+ * by other writers are never skipped because of it. A column is only used if it still has the position
+ * and the type it was written with.
+ */
+public class HiveFileIndex
+{
+    public static final String FILE_INDEX_FILE_NAME = ".presto_file_index";
+
+    private static final Logger log = Logger.get(HiveFileIndex.class);
+    private static final JsonCodec<HiveFileIndex> CODEC = jsonCodec(HiveFileIndex.class);
+
+    private final Map<String, FileEntry> files;
+
+    @JsonCreator
+    public HiveFileIndex(@JsonProperty("files") Map<String, FileEntry> files)
+    {
+        this.files = ImmutableMap.copyOf(requireNonNull(files, "files is null"));
+    }
+
+    @JsonProperty
+    public Map<String, FileEntry> getFiles()
+    {
+        return files;
+    }
+
+    /**
+     * Returns an index with the entries of both indexes, the ones of {@code other} replacing the ones for the same file.
+     */
+    public HiveFileIndex merge(HiveFileIndex other)
+    {
+        Map<String, FileEntry> merged = new HashMap<>(files);
+        merged.putAll(other.getFiles());
+        return new HiveFileIndex(merged);
+    }
+
+    /**
+     * Returns false if the statistics of the file show that none of its rows match the constraints.
+     */
+    public boolean mayMatch(String fileName, long fileSize, Map<HiveColumnHandle, Domain> constraints)
+    {
+        FileEntry file = files.get(fileName);
+        if (file == null || file.getFileSize() != fileSize) {
+            return true;
+        }
+
+        ImmutableList.Builder<ColumnReference<HiveColumnHandle>> columnReferences = ImmutableList.builder();
+        Map<Integer, ColumnStatistics> statistics = new HashMap<>();
+        for (Map.Entry<HiveColumnHandle, Domain> constraint : constraints.entrySet()) {
+            HiveColumnHandle column = constraint.getKey();
+            ColumnEntry columnEntry = file.getColumns().get(column.getName());
+            Type type = constraint.getValue().getType();
+            if (columnEntry == null || columnEntry.getOrdinal() != column.getHiveColumnIndex() || !columnEntry.getType().equals(type.getTypeSignature().toString())) {
+                continue;
+            }
+            int ordinal = statistics.size();
+            columnReferences.add(new ColumnReference<>(column, ordinal, type));
+            statistics.put(ordinal, columnEntry.toColumnStatistics(type));
+        }
+        if (statistics.isEmpty()) {
+            return true;
+        }
+        return new TupleDomainOrcPredicate<>(TupleDomain.withColumnDomains(constraints), columnReferences.build(), true, Optional.empty())
+                .matches(file.getRowCount(), statistics);
+    }
+
+    public static Optional<HiveFileIndex> readFileIndex(FileSystem fileSystem, Path directory)
+    {
+        Path path = new Path(directory, FILE_INDEX_FILE_NAME);
+        try (FSDataInputStream input = fileSystem.open(path)) {
+            return Optional.of(CODEC.fromJson(ByteStreams.toByteArray(input)));
+        }
+        catch (FileNotFoundException e) {
+            return Optional.empty();
+        }
+        catch (IOException | IllegalArgumentException e) {
+            // the files are not skipped without the index
+            log.warn(e, "Failed to read file index %s", path);
+            return Optional.empty();
+        }
+    }
+
+    public static void writeFileIndex(FileSystem fileSystem, Path directory, HiveFileIndex fileIndex)
+            throws IOException
+    {
+        // the index is written aside and renamed, so it is never read partially written
+        Path path = new Path(directory, FILE_INDEX_FILE_NAME);
+        Path temporaryPath = new Path(directory, FILE_INDEX_FILE_NAME + "." + randomUUID());
+        try (FSDataOutputStream output = fileSystem.create(temporaryPath, false)) {
+            output.write(CODEC.toJsonBytes(fileIndex));
+        }
+        fileSystem.delete(path, false);
+        if (!fileSystem.rename(temporaryPath, path)) {
+            fileSystem.delete(temporaryPath, false);
+            throw new IOException("Failed to rename " + temporaryPath + " to " + path);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HiveFileIndex that = (HiveFileIndex) o;
+        return Objects.equals(files, that.files);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(files);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("files", files.size())
+                .toString();
+    }
+
+    public static class FileEntry
+    {
+        private final long fileSize;
+        private final long rowCount;
+        private final Map<String, ColumnEntry> columns;
+
+        @JsonCreator
+        public FileEntry(
+                @JsonProperty("fileSize") long fileSize,
+                @JsonProperty("rowCount") long rowCount,
+                @JsonProperty("columns") Map<String, ColumnEntry> columns)
+        {
+            checkArgument(fileSize >= 0, "fileSize is negative");
+            checkArgument(rowCount >= 0, "rowCount is negative");
+            this.fileSize = fileSize;
+            this.rowCount = rowCount;
+            this.columns = ImmutableMap.copyOf(requireNonNull(columns, "columns is null"));
+        }
+
+        @JsonProperty
+        public long getFileSize()
+        {
+            return fileSize;
+        }
+
+        @JsonProperty
+        public long getRowCount()
+        {
+            return rowCount;
+        }
+
+        @JsonProperty
+        public Map<String, ColumnEntry> getColumns()
+        {
+            return columns;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileEntry that = (FileEntry) o;
+            return fileSize == that.fileSize &&
+                    rowCount == that.rowCount &&
+                    Objects.equals(columns, that.columns);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(fileSize, rowCount, columns);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("fileSize", fileSize)
+                    .add("rowCount", rowCount)
+                    .add("columns", columns)
+                    .toString();
+        }
+    }
+
+    public static class ColumnEntry
+    {
+        private final int ordinal;
+        private final String type;
+        private final long nonNullCount;
+        private final OptionalLong minLong;
+        private final OptionalLong maxLong;
+        private final OptionalDouble minDouble;
+        private final OptionalDouble maxDouble;
+        private final Optional<String> minString;
+        private final Optional<String> maxString;
+        private final Optional<List<Long>> bloomFilterBits;
+        private final int bloomFilterHashFunctions;
+
+        @JsonCreator
+        public ColumnEntry(
+                @JsonProperty("ordinal") int ordinal,
+                @JsonProperty("type") String type,
+                @JsonProperty("nonNullCount") long nonNullCount,
+                @JsonProperty("minLong") OptionalLong minLong,
+                @JsonProperty("maxLong") OptionalLong maxLong,
+                @JsonProperty("minDouble") OptionalDouble minDouble,
+                @JsonProperty("maxDouble") OptionalDouble maxDouble,
+                @JsonProperty("minString") Optional<String> minString,
+                @JsonProperty("maxString") Optional<String> maxString,
+                @JsonProperty("bloomFilterBits") Optional<List<Long>> bloomFilterBits,
+                @JsonProperty("bloomFilterHashFunctions") int bloomFilterHashFunctions)
+        {
+            checkArgument(ordinal >= 0, "ordinal is negative");
+            checkArgument(nonNullCount >= 0, "nonNullCount is negative");
+            this.ordinal = ordinal;
+            this.type = requireNonNull(type, "type is null");
+            this.nonNullCount = nonNullCount;
+            this.minLong = requireNonNull(minLong, "minLong is null");
+            this.maxLong = requireNonNull(maxLong, "maxLong is null");
+            this.minDouble = requireNonNull(minDouble, "minDouble is null");
+            this.maxDouble = requireNonNull(maxDouble, "maxDouble is null");
+            this.minString = requireNonNull(minString, "minString is null");
+            this.maxString = requireNonNull(maxString, "maxString is null");
+            this.bloomFilterBits = requireNonNull(bloomFilterBits, "bloomFilterBits is null").map(ImmutableList::copyOf);
+            checkArgument(!bloomFilterBits.isPresent() || bloomFilterHashFunctions > 0, "bloomFilterHashFunctions must be positive for a bloom filter");
+            this.bloomFilterHashFunctions = bloomFilterHashFunctions;
+        }
+
+        @JsonProperty
+        public int getOrdinal()
+        {
+            return ordinal;
+        }
+
+        @JsonProperty
+        public String getType()
+        {
+            return type;
+        }
+
+        @JsonProperty
+        public long getNonNullCount()
+        {
+            return nonNullCount;
+        }
+
+        @JsonProperty
+        public OptionalLong getMinLong()
+        {
+            return minLong;
+        }
+
+        @JsonProperty
+        public OptionalLong getMaxLong()
+        {
+            return maxLong;
+        }
+
+        @JsonProperty
+        public OptionalDouble getMinDouble()
+        {
+            return minDouble;
+        }
+
+        @JsonProperty
+        public OptionalDouble getMaxDouble()
+        {
+            return maxDouble;
+        }
+
+        @JsonProperty
+        public Optional<String> getMinString()
+        {
+            return minString;
+        }
+
+        @JsonProperty
+        public Optional<String> getMaxString()
+        {
+            return maxString;
+        }
+
+        @JsonProperty
+        public Optional<List<Long>> getBloomFilterBits()
+        {
+            return bloomFilterBits;
+        }
+
+        @JsonProperty
+        public int getBloomFilterHashFunctions()
+        {
+            return bloomFilterHashFunctions;
+        }
+
+        /**
+         * Rebuilds the statistics of the column as read by the ORC reader.
+         */
+        public ColumnStatistics toColumnStatistics(Type type)
+        {
+            IntegerStatistics integerStatistics = null;
+            DoubleStatistics doubleStatistics = null;
+            StringStatistics stringStatistics = null;
+            DateStatistics dateStatistics = null;
+            if (type.equals(DATE)) {
+                dateStatistics = new DateStatistics(
+                        minLong.isPresent() ? toIntExact(minLong.getAsLong()) : null,
+                        maxLong.isPresent() ? toIntExact(maxLong.getAsLong()) : null);
+            }
+            else if (type.equals(DOUBLE) || type.equals(REAL)) {
+                doubleStatistics = new DoubleStatistics(
+                        minDouble.isPresent() ? minDouble.getAsDouble() : null,
+                        maxDouble.isPresent() ? maxDouble.getAsDouble() : null);
+            }
+            else if (isIntegerType(type)) {
+                integerStatistics = new IntegerStatistics(
+                        minLong.isPresent() ? minLong.getAsLong() : null,
+                        maxLong.isPresent() ? maxLong.getAsLong() : null,
+                        null);
+            }
+            else if (isVarcharType(type)) {
+                stringStatistics = new StringStatistics(minString.map(Slices::utf8Slice).orElse(null), maxString.map(Slices::utf8Slice).orElse(null), 0);
+            }
+
+            HiveBloomFilter bloomFilter = bloomFilterBits
+                    .map(bits -> new HiveBloomFilter(bits, bits.size() * Long.SIZE, bloomFilterHashFunctions))
+                    .orElse(null);
+            return createColumnStatistics(nonNullCount, null, null, null, integerStatistics, doubleStatistics, stringStatistics, dateStatistics, null, null, null, bloomFilter);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ColumnEntry that = (ColumnEntry) o;
+            return ordinal == that.ordinal &&
+                    nonNullCount == that.nonNullCount &&
+                    bloomFilterHashFunctions == that.bloomFilterHashFunctions &&
+                    Objects.equals(type, that.type) &&
+                    Objects.equals(minLong, that.minLong) &&
+                    Objects.equals(maxLong, that.maxLong) &&
+                    Objects.equals(minDouble, that.minDouble) &&
+                    Objects.equals(maxDouble, that.maxDouble) &&
+                    Objects.equals(minString, that.minString) &&
+                    Objects.equals(maxString, that.maxString) &&
+                    Objects.equals(bloomFilterBits, that.bloomFilterBits);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(ordinal, type, nonNullCount, minLong, maxLong, minDouble, maxDouble, minString, maxString, bloomFilterBits, bloomFilterHashFunctions);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .omitNullValues()
+                    .add("ordinal", ordinal)
+                    .add("type", type)
+                    .add("nonNullCount", nonNullCount)
+                    .add("minLong", minLong)
+                    .add("maxLong", maxLong)
+                    .add("minDouble", minDouble)
+                    .add("maxDouble", maxDouble)
+                    .add("minString", minString)
+                    .add("maxString", maxString)
+                    .add("bloomFilter", bloomFilterBits.isPresent())
+                    .toString();
+        }
+    }
+}
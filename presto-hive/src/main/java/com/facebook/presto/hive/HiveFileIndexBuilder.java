@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.hive.HiveFileIndex.ColumnEntry;
+import com.facebook.presto.hive.HiveFileIndex.FileEntry;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.statistics.BloomFilter;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.orc.metadata.statistics.DateStatistics;
+import com.facebook.presto.orc.metadata.statistics.DoubleStatistics;
+import com.facebook.presto.orc.metadata.statistics.IntegerStatistics;
+import com.facebook.presto.orc.metadata.statistics.StringStatistics;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.common.type.Varchars.isVarcharType;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Builds the {@link HiveFileIndex} entry of a file from the statistics of its writer. Bloom filters are
+ * built for the requested columns from the values written, and dropped once they hold more distinct values
+ * than they were sized for, since a saturated filter would not exclude any value.
+ */
+public class HiveFileIndexBuilder
+{
+    static final int BLOOM_FILTER_EXPECTED_ENTRIES = 10_000;
+
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(HiveFileIndexBuilder.class).instanceSize();
+    private static final int BLOOM_FILTER_INSTANCE_SIZE = ClassLayout.parseClass(BloomFilter.class).instanceSize();
+
+    private final List<String> columnNames;
+    private final List<Type> columnTypes;
+    private final BloomFilter[] bloomFilters;
+    private final long[] bloomFilterEntries;
+
+    public HiveFileIndexBuilder(List<String> columnNames, List<Type> columnTypes, Set<String> bloomFilterColumns, double bloomFilterFpp)
+    {
+        this.columnNames = ImmutableList.copyOf(requireNonNull(columnNames, "columnNames is null"));
+        this.columnTypes = ImmutableList.copyOf(requireNonNull(columnTypes, "columnTypes is null"));
+        checkArgument(columnNames.size() == columnTypes.size(), "columnNames and columnTypes have different sizes");
+        requireNonNull(bloomFilterColumns, "bloomFilterColumns is null");
+
+        this.bloomFilters = new BloomFilter[columnNames.size()];
+        this.bloomFilterEntries = new long[columnNames.size()];
+        for (int column = 0; column < columnNames.size(); column++) {
+            if (bloomFilterColumns.contains(columnNames.get(column)) && isBloomFilterSupported(columnTypes.get(column))) {
+                bloomFilters[column] = new BloomFilter(BLOOM_FILTER_EXPECTED_ENTRIES, bloomFilterFpp);
+            }
+        }
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        long size = INSTANCE_SIZE + sizeOf(bloomFilters) + sizeOf(bloomFilterEntries);
+        for (BloomFilter bloomFilter : bloomFilters) {
+            if (bloomFilter != null) {
+                size += BLOOM_FILTER_INSTANCE_SIZE + sizeOf(bloomFilter.getBitSet());
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Adds the values of a page with the columns of the file, in the order of the file.
+     */
+    public void addPage(Page page)
+    {
+        for (int column = 0; column < bloomFilters.length; column++) {
+            if (bloomFilters[column] != null) {
+                addValues(column, page.getBlock(column));
+            }
+        }
+    }
+
+    private void addValues(int column, Block block)
+    {
+        Type type = columnTypes.get(column);
+        BloomFilter bloomFilter = bloomFilters[column];
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                continue;
+            }
+            // the hashes match the ones tested by TupleDomainOrcPredicate.checkInBloomFilter
+            boolean added;
+            if (type.equals(DOUBLE)) {
+                double value = type.getDouble(block, position);
+                added = !bloomFilter.testDouble(value);
+                if (added) {
+                    bloomFilter.addDouble(value);
+                }
+            }
+            else if (isVarcharType(type)) {
+                Slice value = type.getSlice(block, position);
+                byte[] bytes = value.getBytes();
+                added = !bloomFilter.test(bytes);
+                if (added) {
+                    bloomFilter.add(bytes);
+                }
+            }
+            else {
+                long value = type.getLong(block, position);
+                added = !bloomFilter.testLong(value);
+                if (added) {
+                    bloomFilter.addLong(value);
+                }
+            }
+
+            if (added) {
+                bloomFilterEntries[column]++;
+                if (bloomFilterEntries[column] > BLOOM_FILTER_EXPECTED_ENTRIES) {
+                    bloomFilters[column] = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the entry of the file from the file statistics of the ORC writer, indexed by ORC column.
+     */
+    public FileEntry build(long fileSize, long rowCount, List<OrcType> orcTypes, List<ColumnStatistics> fileStatistics)
+    {
+        ImmutableMap.Builder<String, ColumnEntry> columns = ImmutableMap.builder();
+        // the statistics of a file without stripes are empty
+        if (!fileStatistics.isEmpty()) {
+            OrcType rootType = orcTypes.get(0);
+            for (int column = 0; column < columnNames.size(); column++) {
+                ColumnStatistics statistics = fileStatistics.get(rootType.getFieldTypeIndex(column));
+                Optional<ColumnEntry> columnEntry = toColumnEntry(column, statistics);
+                if (columnEntry.isPresent()) {
+                    columns.put(columnNames.get(column), columnEntry.get());
+                }
+            }
+        }
+        return new FileEntry(fileSize, rowCount, columns.build());
+    }
+
+    private Optional<ColumnEntry> toColumnEntry(int column, ColumnStatistics statistics)
+    {
+        if (statistics == null || !statistics.hasNumberOfValues()) {
+            return Optional.empty();
+        }
+
+        OptionalLong minLong = OptionalLong.empty();
+        OptionalLong maxLong = OptionalLong.empty();
+        OptionalDouble minDouble = OptionalDouble.empty();
+        OptionalDouble maxDouble = OptionalDouble.empty();
+        Optional<String> minString = Optional.empty();
+        Optional<String> maxString = Optional.empty();
+        Type type = columnTypes.get(column);
+        if (statistics.getIntegerStatistics() != null && isIntegerType(type)) {
+            IntegerStatistics integerStatistics = statistics.getIntegerStatistics();
+            minLong = toOptionalLong(integerStatistics.getMin());
+            maxLong = toOptionalLong(integerStatistics.getMax());
+        }
+        else if (statistics.getDateStatistics() != null && type.equals(DATE)) {
+            DateStatistics dateStatistics = statistics.getDateStatistics();
+            minLong = toOptionalLong(dateStatistics.getMin());
+            maxLong = toOptionalLong(dateStatistics.getMax());
+        }
+        else if (statistics.getDoubleStatistics() != null && (type.equals(DOUBLE) || type.equals(REAL))) {
+            DoubleStatistics doubleStatistics = statistics.getDoubleStatistics();
+            minDouble = toOptionalDouble(doubleStatistics.getMin());
+            maxDouble = toOptionalDouble(doubleStatistics.getMax());
+        }
+        else if (statistics.getStringStatistics() != null && isVarcharType(type)) {
+            StringStatistics stringStatistics = statistics.getStringStatistics();
+            minString = toUtf8String(stringStatistics.getMin());
+            maxString = toUtf8String(stringStatistics.getMax());
+        }
+
+        BloomFilter bloomFilter = bloomFilters[column];
+        if (!minLong.isPresent() && !maxLong.isPresent() && !minDouble.isPresent() && !maxDouble.isPresent() &&
+                !minString.isPresent() && !maxString.isPresent() && bloomFilter == null && statistics.getNumberOfValues() != 0) {
+            // nothing to exclude the file with
+            return Optional.empty();
+        }
+
+        return Optional.of(new ColumnEntry(
+                column,
+                type.getTypeSignature().toString(),
+                statistics.getNumberOfValues(),
+                minLong,
+                maxLong,
+                minDouble,
+                maxDouble,
+                minString,
+                maxString,
+                Optional.ofNullable(bloomFilter).map(filter -> Longs.asList(filter.getBitSet().clone())),
+                bloomFilter == null ? 0 : bloomFilter.getNumHashFunctions()));
+    }
+
+    private static boolean isBloomFilterSupported(Type type)
+    {
+        return isIntegerType(type) || type.equals(DOUBLE) || isVarcharType(type);
+    }
+
+    static boolean isIntegerType(Type type)
+    {
+        return type.equals(TINYINT) || type.equals(SMALLINT) || type.equals(INTEGER) || type.equals(BIGINT);
+    }
+
+    private static OptionalLong toOptionalLong(Number value)
+    {
+        return value == null ? OptionalLong.empty() : OptionalLong.of(value.longValue());
+    }
+
+    private static OptionalDouble toOptionalDouble(Double value)
+    {
+        return value == null ? OptionalDouble.empty() : OptionalDouble.of(value);
+    }
+
+    private static Optional<String> toUtf8String(Slice value)
+    {
+        if (value == null) {
+            return Optional.empty();
+        }
+        // a bound that is not valid UTF-8 would not be restored as written
+        String string = value.toStringUtf8();
+        if (!Slices.utf8Slice(string).equals(value)) {
+            return Optional.empty();
+        }
+        return Optional.of(string);
+    }
+}
@@ -38,4 +38,12 @@ public interface HiveFileWriter
     }
 
     long getFileSizeInBytes();
+
+    /**
+     * Returns the file index entry of the file, once the file is committed, if the writer collects one.
+     */
+    default Optional<HiveFileIndex.FileEntry> getFileIndexEntry()
+    {
+        return Optional.empty();
+    }
 }
@@ -45,6 +45,8 @@ import com.facebook.presto.hive.metastore.StorageFormat;
 import com.facebook.presto.hive.metastore.Table;
 import com.facebook.presto.hive.metastore.thrift.ThriftMetastoreUtil;
 import com.facebook.presto.hive.statistics.HiveStatisticsProvider;
+import com.facebook.presto.hive.statistics.QuickStatsProvider;
+import com.facebook.presto.hive.zorder.ZOrderKeyEncoder;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorDeleteTableHandle;
@@ -195,6 +197,8 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_READ_ONLY;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_TIMEZONE_MISMATCH;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_ENCRYPTION_OPERATION;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
+import static com.facebook.presto.hive.HiveFileIndex.readFileIndex;
+import static com.facebook.presto.hive.HiveFileIndex.writeFileIndex;
 import static com.facebook.presto.hive.HiveManifestUtils.getManifestSizeInBytes;
 import static com.facebook.presto.hive.HiveManifestUtils.updatePartitionMetadataWithFileNamesAndSizes;
 import static com.facebook.presto.hive.HiveMaterializedViewUtils.differenceDataPredicates;
@@ -257,6 +261,7 @@ import static com.facebook.presto.hive.HiveTableProperties.PARTITIONED_BY_PROPER
 import static com.facebook.presto.hive.HiveTableProperties.PREFERRED_ORDERING_COLUMNS;
 import static com.facebook.presto.hive.HiveTableProperties.SORTED_BY_PROPERTY;
 import static com.facebook.presto.hive.HiveTableProperties.STORAGE_FORMAT_PROPERTY;
+import static com.facebook.presto.hive.HiveTableProperties.ZORDER_BY;
 import static com.facebook.presto.hive.HiveTableProperties.getAvroSchemaUrl;
 import static com.facebook.presto.hive.HiveTableProperties.getBucketProperty;
 import static com.facebook.presto.hive.HiveTableProperties.getCsvProperty;
@@ -270,6 +275,7 @@ import static com.facebook.presto.hive.HiveTableProperties.getOrcBloomFilterColu
 import static com.facebook.presto.hive.HiveTableProperties.getOrcBloomFilterFpp;
 import static com.facebook.presto.hive.HiveTableProperties.getPartitionedBy;
 import static com.facebook.presto.hive.HiveTableProperties.getPreferredOrderingColumns;
+import static com.facebook.presto.hive.HiveTableProperties.getZOrderBy;
 import static com.facebook.presto.hive.HiveTableProperties.isExternalTable;
 import static com.facebook.presto.hive.HiveType.HIVE_BINARY;
 import static com.facebook.presto.hive.HiveType.toHiveType;
@@ -337,6 +343,7 @@ import static com.facebook.presto.hive.metastore.Statistics.reduce;
 import static com.facebook.presto.hive.metastore.StorageFormat.fromHiveStorageFormat;
 import static com.facebook.presto.hive.metastore.thrift.ThriftMetastoreUtil.listEnabledPrincipals;
 import static com.facebook.presto.hive.security.SqlStandardAccessControl.ADMIN_ROLE_NAME;
+import static com.facebook.presto.hive.zorder.ZOrder.MAX_INPUT_DIMENSIONS;
 import static com.facebook.presto.spi.MaterializedViewStatus.MaterializedDataPredicates;
 import static com.facebook.presto.spi.MaterializedViewStatus.MaterializedViewState.FULLY_MATERIALIZED;
 import static com.facebook.presto.spi.MaterializedViewStatus.MaterializedViewState.NOT_MATERIALIZED;
@@ -438,6 +445,8 @@ public class HiveMetadata
     private final HiveEncryptionInformationProvider encryptionInformationProvider;
     private final HivePartitionStats hivePartitionStats;
     private final TableWritabilityChecker tableWritabilityChecker;
+    private final QuickStatsProvider quickStatsProvider;
+    private final List<Runnable> quickStatsPrewarms = new ArrayList<>();
 
     public HiveMetadata(
             SemiTransactionalHiveMetastore metastore,
@@ -463,7 +472,8 @@ public class HiveMetadata
             PartitionObjectBuilder partitionObjectBuilder,
             HiveEncryptionInformationProvider encryptionInformationProvider,
             HivePartitionStats hivePartitionStats,
-            TableWritabilityChecker tableWritabilityChecker)
+            TableWritabilityChecker tableWritabilityChecker,
+            QuickStatsProvider quickStatsProvider)
     {
         this.allowCorruptWritesForTesting = allowCorruptWritesForTesting;
 
@@ -490,6 +500,7 @@ public class HiveMetadata
         this.encryptionInformationProvider = requireNonNull(encryptionInformationProvider, "encryptionInformationProvider is null");
         this.hivePartitionStats = requireNonNull(hivePartitionStats, "hivePartitionStats is null");
         this.tableWritabilityChecker = requireNonNull(tableWritabilityChecker, "tableWritabilityChecker is null");
+        this.quickStatsProvider = requireNonNull(quickStatsProvider, "quickStatsProvider is null");
     }
 
     public SemiTransactionalHiveMetastore getMetastore()
@@ -747,6 +758,11 @@ public class HiveMetadata
             properties.put(ORC_BLOOM_FILTER_FPP, Double.parseDouble(orcBloomFilterFfp));
         }
 
+        List<String> zOrderBy = decodeZOrderByColumns(table.get().getParameters());
+        if (!zOrderBy.isEmpty()) {
+            properties.put(ZORDER_BY, zOrderBy);
+        }
+
         // Avro specific property
         String avroSchemaUrl = table.get().getParameters().get(AVRO_SCHEMA_URL_KEY);
         if (avroSchemaUrl != null) {
@@ -1285,6 +1301,12 @@ public class HiveMetadata
             tableProperties.put(ORC_BLOOM_FILTER_FPP_KEY, String.valueOf(getOrcBloomFilterFpp(tableMetadata.getProperties())));
         }
 
+        // Z-order clustering of the rows of each file
+        List<String> zOrderBy = getZOrderBy(tableMetadata.getProperties());
+        if (!zOrderBy.isEmpty()) {
+            tableProperties.put(ZORDER_BY, Joiner.on(COMMA).join(zOrderBy));
+        }
+
         // Avro specific properties
         String avroSchemaUrl = getAvroSchemaUrl(tableMetadata.getProperties());
         if (avroSchemaUrl != null) {
@@ -1808,9 +1830,15 @@ public class HiveMetadata
             tableStatistics = new PartitionStatistics(createEmptyStatistics(), ImmutableMap.of());
         }
 
+        // the write paths are moved to the target paths along with the file indexes
+        for (PartitionUpdate partitionUpdate : partitionUpdates) {
+            writePartitionFileIndex(session, table, partitionUpdate, partitionUpdate.getWritePath(), false);
+        }
+
         metastore.createTable(session, table, principalPrivileges, Optional.of(writeInfo.getWritePath()), false, tableStatistics, emptyList());
 
         if (handle.getPartitionedBy().isEmpty()) {
+            prewarmQuickStats(session, handle.getSchemaTableName(), metastoreContext, ImmutableList.of(UNPARTITIONED_ID.getPartitionName()));
             return Optional.of(new HiveOutputMetadata(new HiveOutputInfo(ImmutableList.of(UNPARTITIONED_ID.getPartitionName()), writeInfo.getTargetPath().toString())));
         }
 
@@ -1840,10 +1868,11 @@ public class HiveMetadata
                     partitionStatistics);
         }
 
-        return Optional.of(new HiveOutputMetadata(new HiveOutputInfo(
-                partitionUpdates.stream()
-                        .map(PartitionUpdate::getName)
-                        .collect(toList()), writeInfo.getTargetPath().toString())));
+        List<String> partitionNames = partitionUpdates.stream()
+                .map(PartitionUpdate::getName)
+                .collect(toList());
+        prewarmQuickStats(session, handle.getSchemaTableName(), metastoreContext, partitionNames);
+        return Optional.of(new HiveOutputMetadata(new HiveOutputInfo(partitionNames, writeInfo.getTargetPath().toString())));
     }
 
     public static boolean shouldCreateFilesForMissingBuckets(Table table, ConnectorSession session)
@@ -2159,6 +2188,7 @@ public class HiveMetadata
                         partitionUpdate.getWritePath(),
                         getTargetFileNames(partitionUpdate.getFileWriteInfos()),
                         partitionStatistics);
+                writePartitionFileIndex(session, table, partitionUpdate, partitionUpdate.getTargetPath(), true);
             }
             else if (partitionUpdate.getUpdateMode() == APPEND) {
                 if (handle.getEncryptionInformation().isPresent()) {
@@ -2184,6 +2214,7 @@ public class HiveMetadata
                         partitionUpdate.getWritePath(),
                         getTargetFileNames(partitionUpdate.getFileWriteInfos()),
                         partitionStatistics);
+                writePartitionFileIndex(session, table, partitionUpdate, partitionUpdate.getTargetPath(), true);
             }
             else if (partitionUpdate.getUpdateMode() == NEW || partitionUpdate.getUpdateMode() == OVERWRITE) {
                 Map<String, String> extraPartitionMetadata = handle.getEncryptionInformation()
@@ -2242,6 +2273,9 @@ public class HiveMetadata
                         getColumnStatistics(partitionComputedStatistics, partitionName, partitionValues, partitionTypes),
                         timeZone);
 
+                // the index of an overwritten partition is replaced, after the files of older queries are removed
+                writePartitionFileIndex(session, table, partitionUpdate, partitionUpdate.getWritePath(), false);
+
                 // New partition or overwriting existing partition by staging and moving the new partition
                 if (!isExistingPartition || handle.getLocationHandle().getWriteMode() != DIRECT_TO_TARGET_EXISTING_DIRECTORY) {
                     metastore.addPartition(
@@ -2260,11 +2294,24 @@ public class HiveMetadata
             }
         }
 
-        return Optional.of(new HiveOutputMetadata(new HiveOutputInfo(
-                partitionUpdates.stream()
-                        .map(PartitionUpdate::getName)
-                        .map(name -> name.isEmpty() ? UNPARTITIONED_ID.getPartitionName() : name)
-                        .collect(toList()), table.getStorage().getLocation())));
+        List<String> partitionNames = partitionUpdates.stream()
+                .map(PartitionUpdate::getName)
+                .map(name -> name.isEmpty() ? UNPARTITIONED_ID.getPartitionName() : name)
+                .collect(toList());
+        prewarmQuickStats(session, handle.getSchemaTableName(), metastoreContext, partitionNames);
+        return Optional.of(new HiveOutputMetadata(new HiveOutputInfo(partitionNames, table.getStorage().getLocation())));
+    }
+
+    /**
+     * Builds the quick stats of the written partitions once the transaction commits, unless their column
+     * statistics are collected on write already.
+     */
+    private void prewarmQuickStats(ConnectorSession session, SchemaTableName tableName, MetastoreContext metastoreContext, List<String> partitionNames)
+    {
+        if (isCollectColumnStatisticsOnWrite(session)) {
+            return;
+        }
+        quickStatsPrewarms.add(() -> quickStatsProvider.prewarmQuickStats(session, tableName, metastoreContext, partitionNames));
     }
 
     /**
@@ -2296,6 +2343,35 @@ public class HiveMetadata
         }
     }
 
+    /**
+     * Writes the file index entries collected by the writers of a partition update to the given directory.
+     * The index is an optimization of split generation, so the query does not fail if it cannot be written.
+     */
+    private void writePartitionFileIndex(ConnectorSession session, Table table, PartitionUpdate partitionUpdate, Path directory, boolean mergeWithExisting)
+    {
+        Map<String, HiveFileIndex.FileEntry> fileEntries = partitionUpdate.getFileWriteInfos().stream()
+                .filter(fileWriteInfo -> fileWriteInfo.getFileIndexEntry().isPresent())
+                .collect(toImmutableMap(FileWriteInfo::getTargetFileName, fileWriteInfo -> fileWriteInfo.getFileIndexEntry().get(), (first, second) -> second));
+        if (fileEntries.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(new HdfsContext(session, table.getDatabaseName(), table.getTableName(), table.getStorage().getLocation(), false), directory);
+            HiveFileIndex fileIndex = new HiveFileIndex(fileEntries);
+            if (mergeWithExisting) {
+                Optional<HiveFileIndex> existingFileIndex = readFileIndex(fileSystem, directory);
+                if (existingFileIndex.isPresent()) {
+                    fileIndex = existingFileIndex.get().merge(fileIndex);
+                }
+            }
+            writeFileIndex(fileSystem, directory, fileIndex);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to write file index of %s", directory);
+        }
+    }
+
     private static boolean isTempPathRequired(ConnectorSession session, Optional<HiveBucketProperty> bucketProperty, List<SortingColumn> preferredOrderingColumns)
     {
         boolean hasSortedWrite = bucketProperty.map(property -> !property.getSortedBy().isEmpty()).orElse(false) || !preferredOrderingColumns.isEmpty();
@@ -3148,6 +3224,7 @@ public class HiveMetadata
         validatePartitionColumns(tableMetadata);
         validateBucketColumns(tableMetadata);
         validateCsvColumns(tableMetadata);
+        validateZOrderColumns(tableMetadata);
         Optional<HiveBucketProperty> bucketProperty = getBucketProperty(tableMetadata.getProperties());
         if (!bucketProperty.isPresent()) {
             List<String> partitionedBy = getPartitionedBy(tableMetadata.getProperties());
@@ -3631,6 +3708,7 @@ public class HiveMetadata
         validatePartitionColumns(tableMetadata);
         validateBucketColumns(tableMetadata);
         validateCsvColumns(tableMetadata);
+        validateZOrderColumns(tableMetadata);
         return getColumnHandles(tableMetadata.getColumns(), partitionColumnNames, typeTranslator);
     }
 
@@ -3695,6 +3773,42 @@ public class HiveMetadata
         }
     }
 
+    private static void validateZOrderColumns(ConnectorTableMetadata tableMetadata)
+    {
+        List<String> zOrderBy = getZOrderBy(tableMetadata.getProperties());
+        if (zOrderBy.isEmpty()) {
+            return;
+        }
+        if (zOrderBy.size() > MAX_INPUT_DIMENSIONS) {
+            throw new PrestoException(INVALID_TABLE_PROPERTY, format("%s supports at most %s columns", ZORDER_BY, MAX_INPUT_DIMENSIONS));
+        }
+        if (ImmutableSet.copyOf(zOrderBy).size() != zOrderBy.size()) {
+            throw new PrestoException(INVALID_TABLE_PROPERTY, format("%s contains duplicate columns: %s", ZORDER_BY, zOrderBy));
+        }
+
+        Set<String> partitionedBy = ImmutableSet.copyOf(getPartitionedBy(tableMetadata.getProperties()));
+        Map<String, ColumnMetadata> dataColumns = tableMetadata.getColumns().stream()
+                .filter(columnMetadata -> !partitionedBy.contains(columnMetadata.getName()))
+                .collect(toImmutableMap(ColumnMetadata::getName, identity()));
+        for (String column : zOrderBy) {
+            ColumnMetadata columnMetadata = dataColumns.get(column);
+            if (columnMetadata == null) {
+                throw new PrestoException(INVALID_TABLE_PROPERTY, format("Z-order column %s is not a data column of the table", column));
+            }
+            if (!ZOrderKeyEncoder.isSupportedType(columnMetadata.getType())) {
+                throw new PrestoException(NOT_SUPPORTED, format("Z-order column %s has unsupported type %s", column, columnMetadata.getType()));
+            }
+        }
+    }
+
+    static List<String> decodeZOrderByColumns(Map<String, String> tableParameters)
+    {
+        if (!tableParameters.containsKey(ZORDER_BY)) {
+            return ImmutableList.of();
+        }
+        return Splitter.on(COMMA).trimResults().omitEmptyStrings().splitToList(tableParameters.get(ZORDER_BY));
+    }
+
     @VisibleForTesting
     static Function<HiveColumnHandle, ColumnMetadata> columnMetadataGetter(Table table, TypeManager typeManager, ColumnConverter columnConverter, List<String> notNullColumns)
     {
@@ -3754,7 +3868,9 @@ public class HiveMetadata
     @Override
     public ConnectorCommitHandle commit()
     {
-        return metastore.commit();
+        ConnectorCommitHandle commitHandle = metastore.commit();
+        quickStatsPrewarms.forEach(Runnable::run);
+        return commitHandle;
     }
 
     public static Optional<SchemaTableName> getSourceTableNameFromSystemTable(SchemaTableName tableName)
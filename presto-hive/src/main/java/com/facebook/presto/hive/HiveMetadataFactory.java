@@ -245,6 +245,7 @@ public class HiveMetadataFactory
                 partitionObjectBuilder,
                 encryptionInformationProvider,
                 hivePartitionStats,
-                tableWritabilityChecker);
+                tableWritabilityChecker,
+                quickStatsProvider);
     }
 }
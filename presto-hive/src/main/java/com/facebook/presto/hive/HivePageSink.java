@@ -41,12 +41,14 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 
+import static com.facebook.airlift.concurrent.MoreFutures.addSuccessCallback;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.hive.HiveBucketFunction.createHiveCompatibleBucketFunction;
 import static com.facebook.presto.hive.HiveBucketFunction.createPrestoNativeBucketFunction;
@@ -96,6 +98,7 @@ public class HivePageSink
 
     private final ConnectorSession session;
     private final boolean fileRenamingEnabled;
+    private final Optional<HiveAsyncWriteQueue> asyncWriteQueue;
 
     private long writtenBytes;
     private long systemMemoryUsage;
@@ -116,7 +119,8 @@ public class HivePageSink
             ListeningExecutorService writeVerificationExecutor,
             JsonCodec<PartitionUpdate> partitionUpdateCodec,
             SmileCodec<PartitionUpdate> partitionUpdateSmileCodec,
-            ConnectorSession session)
+            ConnectorSession session,
+            Optional<HiveAsyncWriteQueue> asyncWriteQueue)
     {
         this.writerFactory = requireNonNull(writerFactory, "writerFactory is null");
 
@@ -188,11 +192,15 @@ public class HivePageSink
 
         this.session = requireNonNull(session, "session is null");
         this.fileRenamingEnabled = isFileRenamingEnabled(session);
+        this.asyncWriteQueue = requireNonNull(asyncWriteQueue, "asyncWriteQueue is null");
     }
 
     @Override
     public long getCompletedBytes()
     {
+        if (asyncWriteQueue.isPresent()) {
+            return asyncWriteQueue.get().getWrittenBytes();
+        }
         return writtenBytes;
     }
 
@@ -205,6 +213,9 @@ public class HivePageSink
     @Override
     public long getSystemMemoryUsage()
     {
+        if (asyncWriteQueue.isPresent()) {
+            return asyncWriteQueue.get().getSystemMemoryUsage();
+        }
         return systemMemoryUsage;
     }
 
@@ -217,6 +228,12 @@ public class HivePageSink
     @Override
     public CompletableFuture<Collection<Slice>> finish()
     {
+        if (asyncWriteQueue.isPresent()) {
+            // The files are committed in parallel on the async writer threads, which wrap every operation in doAs
+            ListenableFuture<Collection<Slice>> result = Futures.transformAsync(asyncWriteQueue.get().commit(writers), ignored -> finishCommittedWriters(), directExecutor());
+            return MoreFutures.toCompletableFuture(result);
+        }
+
         // Must be wrapped in doAs entirely
         // Implicit FileSystem initializations are possible in HiveRecordWriter#commit -> RecordWriter#close
         ListenableFuture<Collection<Slice>> result = hdfsEnvironment.doAs(session.getUser(), this::doFinish);
@@ -224,11 +241,18 @@ public class HivePageSink
     }
 
     private ListenableFuture<Collection<Slice>> doFinish()
+    {
+        for (HiveWriter writer : writers) {
+            writer.commit();
+        }
+        return finishCommittedWriters();
+    }
+
+    private ListenableFuture<Collection<Slice>> finishCommittedWriters()
     {
         ImmutableList.Builder<PartitionUpdate> partitionUpdatesBuilder = ImmutableList.builder();
         List<Callable<Object>> verificationTasks = new ArrayList<>();
         for (HiveWriter writer : writers) {
-            writer.commit();
             partitionUpdatesBuilder.add(writer.getPartitionUpdate());
             writer.getVerificationTask()
                     .map(Executors::callable)
@@ -287,6 +311,15 @@ public class HivePageSink
     @Override
     public void abort()
     {
+        if (asyncWriteQueue.isPresent()) {
+            // The async writer threads wrap the rollback in doAs, and the driver does not wait for the rollbacks
+            ListenableFuture<List<Exception>> rollbackExceptions = asyncWriteQueue.get().abort(writers.stream()
+                    .filter(Objects::nonNull)
+                    .collect(toImmutableList()));
+            addSuccessCallback(rollbackExceptions, exceptions -> exceptions.forEach(e -> log.warn("exception '%s' while rollback", e)));
+            return;
+        }
+
         // Must be wrapped in doAs entirely
         // Implicit FileSystem initializations are possible in HiveRecordWriter#rollback -> RecordWriter#close
         hdfsEnvironment.doAs(session.getUser(), this::doAbort);
@@ -321,6 +354,9 @@ public class HivePageSink
             hdfsEnvironment.doAs(session.getUser(), () -> doAppend(page));
         }
 
+        if (asyncWriteQueue.isPresent()) {
+            return MoreFutures.toCompletableFuture(asyncWriteQueue.get().isBlocked());
+        }
         return NOT_BLOCKED;
     }
 
@@ -372,11 +408,22 @@ public class HivePageSink
             Page pageForWriter = dataPage;
             if (positions.length != dataPage.getPositionCount()) {
                 verify(positions.length == counts[index]);
-                pageForWriter = pageForWriter.getPositions(positions, 0, positions.length);
+                if (asyncWriteQueue.isPresent()) {
+                    // a queued view of the positions would retain the whole page until the writer gets to it
+                    pageForWriter = pageForWriter.copyPositions(positions, 0, positions.length);
+                }
+                else {
+                    pageForWriter = pageForWriter.getPositions(positions, 0, positions.length);
+                }
             }
 
             HiveWriter writer = writers.get(index);
 
+            if (asyncWriteQueue.isPresent()) {
+                asyncWriteQueue.get().append(writer, pageForWriter);
+                continue;
+            }
+
             long currentWritten = writer.getWrittenBytes();
             long currentMemory = writer.getSystemMemoryUsage();
 
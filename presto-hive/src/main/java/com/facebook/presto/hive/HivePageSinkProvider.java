@@ -39,10 +39,12 @@ import jakarta.inject.Inject;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.hive.HiveSessionProperties.isAsyncWriterEnabled;
 import static com.facebook.presto.hive.metastore.InMemoryCachingHiveMetastore.memoizeMetastore;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.getMetastoreHeaders;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.isUserDefinedTypeEncodingEnabled;
@@ -65,6 +67,8 @@ public class HivePageSinkProvider
     private final boolean immutablePartitions;
     private final LocationService locationService;
     private final ListeningExecutorService writeVerificationExecutor;
+    private final ListeningExecutorService asyncWriterExecutor;
+    private final DataSize asyncWriterMaxBufferedSize;
     private final JsonCodec<PartitionUpdate> partitionUpdateCodec;
     private final SmileCodec<PartitionUpdate> partitionUpdateSmileCodec;
     private final NodeManager nodeManager;
@@ -112,6 +116,8 @@ public class HivePageSinkProvider
         this.immutablePartitions = hiveClientConfig.isImmutablePartitions();
         this.locationService = requireNonNull(locationService, "locationService is null");
         this.writeVerificationExecutor = listeningDecorator(newFixedThreadPool(hiveClientConfig.getWriteValidationThreads(), daemonThreadsNamed("hive-write-validation-%s")));
+        this.asyncWriterExecutor = listeningDecorator(newFixedThreadPool(hiveClientConfig.getAsyncWriterThreads(), daemonThreadsNamed("hive-async-writer-%s")));
+        this.asyncWriterMaxBufferedSize = requireNonNull(hiveClientConfig.getAsyncWriterMaxBufferedSize(), "asyncWriterMaxBufferedSize is null");
         this.partitionUpdateCodec = requireNonNull(partitionUpdateCodec, "partitionUpdateCodec is null");
         this.partitionUpdateSmileCodec = requireNonNull(partitionUpdateSmileCodec, "partitionUpdateSmileCodec is null");
         this.nodeManager = requireNonNull(nodeManager, "nodeManager is null");
@@ -200,6 +206,7 @@ public class HivePageSinkProvider
                 writeVerificationExecutor,
                 partitionUpdateCodec,
                 partitionUpdateSmileCodec,
-                session);
+                session,
+                isAsyncWriterEnabled(session) ? Optional.of(new HiveAsyncWriteQueue(asyncWriterExecutor, hdfsEnvironment, session.getUser(), asyncWriterMaxBufferedSize.toBytes(), hiveWriterStats)) : Optional.empty());
     }
 }
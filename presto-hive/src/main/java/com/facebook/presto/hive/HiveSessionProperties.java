@@ -28,6 +28,7 @@ import java.util.Optional;
 import java.util.OptionalInt;
 
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.common.type.VarcharType.createUnboundedVarcharType;
 import static com.facebook.presto.hive.HiveClientConfig.InsertExistingPartitionsBehavior;
@@ -40,6 +41,7 @@ import static com.facebook.presto.spi.session.PropertyMetadata.integerProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.stringProperty;
 import static java.lang.String.format;
 import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
 
 public final class HiveSessionProperties
 {
@@ -136,6 +138,9 @@ public final class HiveSessionProperties
     public static final String LEGACY_TIMESTAMP_BUCKETING = "legacy_timestamp_bucketing";
     public static final String OPTIMIZE_PARSING_OF_PARTITION_VALUES = "optimize_parsing_of_partition_values";
     public static final String OPTIMIZE_PARSING_OF_PARTITION_VALUES_THRESHOLD = "optimize_parsing_of_partition_values_threshold";
+    public static final String SPLIT_LOADER_CONCURRENCY = "split_loader_concurrency";
+    public static final String FILE_INDEX_ENABLED = "file_index_enabled";
+    public static final String ASYNC_WRITER_ENABLED = "async_writer_enabled";
 
     public static final String NATIVE_STATS_BASED_FILTER_REORDER_DISABLED = "native_stats_based_filter_reorder_disabled";
 
@@ -672,6 +677,34 @@ public final class HiveSessionProperties
                         "When OPTIMIZE_PARSING_OF_PARTITION_VALUES is set to true, enable this optimizations when number of partitions exceed the threshold here",
                         hiveClientConfig.getOptimizeParsingOfPartitionValuesThreshold(),
                         false),
+                new PropertyMetadata<>(
+                        SPLIT_LOADER_CONCURRENCY,
+                        "Number of partitions of a table scan whose files are listed concurrently",
+                        INTEGER,
+                        Integer.class,
+                        hiveClientConfig.getSplitLoaderConcurrency(),
+                        false,
+                        value -> {
+                            int intValue = ((Number) requireNonNull(value, "value is null")).intValue();
+                            // the concurrency configured for the catalog is an upper bound, as the listings share its executor
+                            if (intValue < 1 || intValue > hiveClientConfig.getSplitLoaderConcurrency()) {
+                                throw new PrestoException(
+                                        INVALID_SESSION_PROPERTY,
+                                        format("%s must be between 1 and %s: %s", SPLIT_LOADER_CONCURRENCY, hiveClientConfig.getSplitLoaderConcurrency(), intValue));
+                            }
+                            return intValue;
+                        },
+                        value -> value),
+                booleanProperty(
+                        FILE_INDEX_ENABLED,
+                        "Write per-file column statistics of new ORC files to a partition file index, and use it to skip files during split generation",
+                        hiveClientConfig.isFileIndexEnabled(),
+                        false),
+                booleanProperty(
+                        ASYNC_WRITER_ENABLED,
+                        "Append pages to the files of a write and commit them on background threads, instead of on the driver thread",
+                        hiveClientConfig.isAsyncWriterEnabled(),
+                        false),
                 booleanProperty(
                         NATIVE_STATS_BASED_FILTER_REORDER_DISABLED,
                         "Native Execution only. Disable stats based filter reordering.",
@@ -862,6 +895,21 @@ public final class HiveSessionProperties
         return size;
     }
 
+    public static int getSplitLoaderConcurrency(ConnectorSession session)
+    {
+        return session.getProperty(SPLIT_LOADER_CONCURRENCY, Integer.class);
+    }
+
+    public static boolean isFileIndexEnabled(ConnectorSession session)
+    {
+        return session.getProperty(FILE_INDEX_ENABLED, Boolean.class);
+    }
+
+    public static boolean isAsyncWriterEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ASYNC_WRITER_ENABLED, Boolean.class);
+    }
+
     public static boolean isIgnoreCorruptedStatistics(ConnectorSession session)
     {
         return session.getProperty(IGNORE_CORRUPTED_STATISTICS, Boolean.class);
@@ -37,6 +37,7 @@ import com.facebook.presto.hive.metastore.PartitionStatistics;
 import com.facebook.presto.hive.metastore.SemiTransactionalHiveMetastore;
 import com.facebook.presto.hive.metastore.StorageFormat;
 import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.hive.util.PrefetchingIterator;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplitSource;
@@ -73,7 +74,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
@@ -92,7 +95,9 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_TRANSACTION_NOT_FOUND;
 import static com.facebook.presto.hive.HivePartition.UNPARTITIONED_ID;
 import static com.facebook.presto.hive.HiveSessionProperties.getHiveMaxInitialSplitSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getLeaseDuration;
+import static com.facebook.presto.hive.HiveSessionProperties.getSplitLoaderConcurrency;
 import static com.facebook.presto.hive.HiveSessionProperties.isDynamicSplitSizesEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isFileIndexEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isOfflineDataDebugModeEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isPartitionStatisticsBasedOptimizationEnabled;
 import static com.facebook.presto.hive.HiveStorageFormat.PARQUET;
@@ -139,12 +144,12 @@ public class HiveSplitManager
     private final HdfsEnvironment hdfsEnvironment;
     private final DirectoryLister directoryLister;
     private final Executor executor;
+    private final Executor partitionPrefetchExecutor;
     private final CoercionPolicy coercionPolicy;
     private final int maxOutstandingSplits;
     private final DataSize maxOutstandingSplitsSize;
     private final int minPartitionBatchSize;
     private final int maxPartitionBatchSize;
-    private final int splitLoaderConcurrency;
     private final boolean recursiveDfsWalkerEnabled;
     private final CounterStat highMemorySplitSourceCounter;
     private final CacheQuotaRequirementProvider cacheQuotaRequirementProvider;
@@ -170,13 +175,14 @@ public class HiveSplitManager
                 hdfsEnvironment,
                 directoryLister,
                 new BoundedExecutor(executorService, hiveClientConfig.getMaxSplitIteratorThreads()),
+                // metastore loads of the next partition batches do not take the threads listing files
+                new BoundedExecutor(executorService, hiveClientConfig.getMaxSplitIteratorThreads()),
                 coercionPolicy,
                 new CounterStat(),
                 hiveClientConfig.getMaxOutstandingSplits(),
                 hiveClientConfig.getMaxOutstandingSplitsSize(),
                 hiveClientConfig.getMinPartitionBatchSize(),
                 hiveClientConfig.getMaxPartitionBatchSize(),
-                hiveClientConfig.getSplitLoaderConcurrency(),
                 hiveClientConfig.getRecursiveDirWalkerEnabled(),
                 cacheQuotaRequirementProvider,
                 encryptionInformationProvider,
@@ -189,13 +195,13 @@ public class HiveSplitManager
             HdfsEnvironment hdfsEnvironment,
             DirectoryLister directoryLister,
             Executor executor,
+            Executor partitionPrefetchExecutor,
             CoercionPolicy coercionPolicy,
             CounterStat highMemorySplitSourceCounter,
             int maxOutstandingSplits,
             DataSize maxOutstandingSplitsSize,
             int minPartitionBatchSize,
             int maxPartitionBatchSize,
-            int splitLoaderConcurrency,
             boolean recursiveDfsWalkerEnabled,
             CacheQuotaRequirementProvider cacheQuotaRequirementProvider,
             HiveEncryptionInformationProvider encryptionInformationProvider,
@@ -206,6 +212,8 @@ public class HiveSplitManager
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.directoryLister = requireNonNull(directoryLister, "directoryLister is null");
         this.executor = new ErrorCodedExecutor(executor);
+        // a prefetch rejected by the executor is run by the split loader instead
+        this.partitionPrefetchExecutor = requireNonNull(partitionPrefetchExecutor, "partitionPrefetchExecutor is null");
         this.coercionPolicy = requireNonNull(coercionPolicy, "coercionPolicy is null");
         this.highMemorySplitSourceCounter = requireNonNull(highMemorySplitSourceCounter, "highMemorySplitSourceCounter is null");
         checkArgument(maxOutstandingSplits >= 1, "maxOutstandingSplits must be at least 1");
@@ -213,7 +221,6 @@ public class HiveSplitManager
         this.maxOutstandingSplitsSize = maxOutstandingSplitsSize;
         this.minPartitionBatchSize = minPartitionBatchSize;
         this.maxPartitionBatchSize = maxPartitionBatchSize;
-        this.splitLoaderConcurrency = splitLoaderConcurrency;
         this.recursiveDfsWalkerEnabled = recursiveDfsWalkerEnabled;
         this.cacheQuotaRequirementProvider = requireNonNull(cacheQuotaRequirementProvider, "cacheQuotaRequirementProvider is null");
         this.encryptionInformationProvider = requireNonNull(encryptionInformationProvider, "encryptionInformationProvider is null");
@@ -286,6 +293,7 @@ public class HiveSplitManager
         // sort partitions
         partitions = Ordering.natural().onResultOf(HivePartition::getPartitionId).reverse().sortedCopy(partitions);
 
+        Queue<PrefetchingIterator<?>> partitionPrefetches = new ConcurrentLinkedQueue<>();
         Iterable<HivePartitionMetadata> hivePartitions = getPartitionMetadata(
                 metastore,
                 table,
@@ -296,24 +304,27 @@ public class HiveSplitManager
                 splitSchedulingContext.getWarningCollector(),
                 layout.getRequestedColumns(),
                 layout.getPredicateColumns(),
-                layout.getDomainPredicate().getDomains());
+                layout.getDomainPredicate().getDomains(),
+                partitionPrefetches);
 
         double ratio = getSplitScanRatio(session, tableName, layout, metadata, partitions);
 
-        HiveSplitLoader hiveSplitLoader = new BackgroundHiveSplitLoader(
+        HiveSplitLoader backgroundHiveSplitLoader = new BackgroundHiveSplitLoader(
                 table,
                 hivePartitions,
                 getInfoColumnConstraints(layout.getDomainPredicate(), layout.getPredicateColumns()),
+                getFileIndexConstraints(session, layout.getDomainPredicate(), layout.getPredicateColumns()),
                 createBucketSplitInfo(bucketHandle, bucketFilter),
                 session,
                 hdfsEnvironment,
                 namenodeStats,
                 directoryLister,
                 executor,
-                min(splitLoaderConcurrency, partitions.size()), // Avoid over-committing split loader concurrency
+                min(getSplitLoaderConcurrency(session), partitions.size()), // Avoid over-committing split loader concurrency
                 recursiveDfsWalkerEnabled,
                 splitSchedulingContext.schedulerUsesHostAddresses(),
                 layout.isPartialAggregationsPushedDown());
+        HiveSplitLoader hiveSplitLoader = cancelPrefetchesOnStop(backgroundHiveSplitLoader, partitionPrefetches);
 
         HiveSplitSource splitSource = computeSplitSource(splitSchedulingContext, table, session, hiveSplitLoader, ratio);
         hiveSplitLoader.start(splitSource);
@@ -439,6 +450,24 @@ public class HiveSplitManager
         return ImmutableMap.of();
     }
 
+    private static Map<HiveColumnHandle, Domain> getFileIndexConstraints(ConnectorSession session, TupleDomain<Subfield> domainPredicate, Map<String, HiveColumnHandle> predicateColumns)
+    {
+        if (!isFileIndexEnabled(session) || !domainPredicate.getDomains().isPresent()) {
+            return ImmutableMap.of();
+        }
+
+        // the file index only has statistics of top level data columns
+        return domainPredicate.getDomains().get()
+                .entrySet()
+                .stream()
+                .filter(entry -> entry.getKey().getPath().isEmpty())
+                .filter(entry -> {
+                    HiveColumnHandle column = predicateColumns.get(entry.getKey().getRootName());
+                    return column != null && column.getColumnType() == REGULAR;
+                })
+                .collect(toImmutableMap(entry -> predicateColumns.get(entry.getKey().getRootName()), Map.Entry::getValue));
+    }
+
     @Managed
     @Nested
     public CounterStat getHighMemorySplitSource()
@@ -456,7 +485,8 @@ public class HiveSplitManager
             WarningCollector warningCollector,
             Optional<Set<HiveColumnHandle>> requestedColumns,
             Map<String, HiveColumnHandle> predicateColumns,
-            Optional<Map<Subfield, Domain>> domains)
+            Optional<Map<Subfield, Domain>> domains,
+            Queue<PrefetchingIterator<?>> partitionPrefetches)
     {
         if (hivePartitions.isEmpty()) {
             return ImmutableList.of();
@@ -493,7 +523,33 @@ public class HiveSplitManager
         Iterable<List<HivePartition>> partitionNameBatches = partitionExponentially(hivePartitions, minPartitionBatchSize, maxPartitionBatchSize);
         Iterable<List<HivePartitionMetadata>> partitionBatches = computePartitionMetadata(partitionNameBatches, session, table, metastore,
                 tableName, predicateColumns, domains, allRequestedColumns, hiveBucketHandle, resolvedHiveStorageFormat, warningCollector);
-        return concat(partitionBatches);
+        // load the next batch of partitions from the metastore while the files of the current one are listed
+        Iterable<List<HivePartitionMetadata>> prefetchedPartitionBatches = () -> {
+            PrefetchingIterator<List<HivePartitionMetadata>> iterator = new PrefetchingIterator<>(partitionBatches.iterator(), partitionPrefetchExecutor);
+            partitionPrefetches.add(iterator);
+            return iterator;
+        };
+        return concat(prefetchedPartitionBatches);
+    }
+
+    private static HiveSplitLoader cancelPrefetchesOnStop(HiveSplitLoader delegate, Queue<PrefetchingIterator<?>> partitionPrefetches)
+    {
+        return new HiveSplitLoader()
+        {
+            @Override
+            public void start(HiveSplitSource splitSource)
+            {
+                delegate.start(splitSource);
+            }
+
+            @Override
+            public void stop()
+            {
+                delegate.stop();
+                // a partition batch still loading from the metastore is no longer needed
+                partitionPrefetches.forEach(PrefetchingIterator::close);
+            }
+        };
     }
 
     private Iterable<List<HivePartitionMetadata>> computePartitionMetadata(Iterable<List<HivePartition>> partitionNameBatches,
@@ -50,6 +50,7 @@ public class HiveTableProperties
     public static final String ORC_BLOOM_FILTER_FPP = "orc_bloom_filter_fpp";
     public static final String AVRO_SCHEMA_URL = "avro_schema_url";
     public static final String PREFERRED_ORDERING_COLUMNS = "preferred_ordering_columns";
+    public static final String ZORDER_BY = "zorder_by";
     public static final String ENCRYPT_COLUMNS = "encrypt_columns";
     public static final String ENCRYPT_TABLE = "encrypt_table";
     public static final String DWRF_ENCRYPTION_ALGORITHM = "dwrf_encryption_algorithm";
@@ -115,6 +116,18 @@ public class HiveTableProperties
                                 .map(SortingColumn.class::cast)
                                 .map(SortingColumn::sortingColumnToString)
                                 .collect(toImmutableList())),
+                new PropertyMetadata<>(
+                        ZORDER_BY,
+                        "Columns the rows of each file are clustered on along a Z-order curve",
+                        typeManager.getType(parseTypeSignature("array(varchar)")),
+                        List.class,
+                        ImmutableList.of(),
+                        false,
+                        value -> ((Collection<?>) value).stream()
+                                .map(String.class::cast)
+                                .map(name -> name.toLowerCase(ENGLISH))
+                                .collect(toImmutableList()),
+                        value -> value),
                 new PropertyMetadata<>(
                         ORC_BLOOM_FILTER_COLUMNS,
                         "ORC Bloom filter index columns",
@@ -270,6 +283,24 @@ public class HiveTableProperties
         return preferredOrderingColumns;
     }
 
+    @SuppressWarnings("unchecked")
+    public static List<String> getZOrderBy(Map<String, Object> tableProperties)
+    {
+        List<String> zOrderBy = (List<String>) tableProperties.get(ZORDER_BY);
+        if (zOrderBy == null) {
+            return ImmutableList.of();
+        }
+        if (!zOrderBy.isEmpty()) {
+            if (getBucketProperty(tableProperties).map(property -> !property.getSortedBy().isEmpty()).orElse(false)) {
+                throw new PrestoException(INVALID_TABLE_PROPERTY, format("%s must not be specified when %s is specified", ZORDER_BY, SORTED_BY_PROPERTY));
+            }
+            if (!getPreferredOrderingColumns(tableProperties).isEmpty()) {
+                throw new PrestoException(INVALID_TABLE_PROPERTY, format("%s must not be specified when %s is specified", ZORDER_BY, PREFERRED_ORDERING_COLUMNS));
+            }
+        }
+        return zOrderBy;
+    }
+
     public static String getEncryptTable(Map<String, Object> tableProperties)
     {
         return (String) tableProperties.get(ENCRYPT_TABLE);
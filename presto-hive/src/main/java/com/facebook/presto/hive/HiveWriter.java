@@ -23,7 +23,9 @@ import java.util.function.Consumer;
 
 import static com.facebook.presto.hive.HiveManifestUtils.getFileSize;
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.lang.System.nanoTime;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 public class HiveWriter
 {
@@ -99,7 +101,9 @@ public class HiveWriter
 
     public void commit()
     {
+        long start = nanoTime();
         fileStatistics = fileWriter.commit();
+        hiveWriterStats.addFileCommitTime(nanoTime() - start, NANOSECONDS);
         onCommit.accept(this);
     }
 
@@ -125,7 +129,11 @@ public class HiveWriter
                 updateMode,
                 writePath,
                 targetPath,
-                ImmutableList.of(new FileWriteInfo(fileWriteInfo.getWriteFileName(), fileWriteInfo.getTargetFileName(), fileStatistics.map(statisticsPage -> getFileSize(statisticsPage, 0)))),
+                ImmutableList.of(new FileWriteInfo(
+                        fileWriteInfo.getWriteFileName(),
+                        fileWriteInfo.getTargetFileName(),
+                        fileStatistics.map(statisticsPage -> getFileSize(statisticsPage, 0)),
+                        fileWriter.getFileIndexEntry())),
                 rowCount,
                 inputSizeInBytes,
                 fileWriter.getWrittenBytes(),
@@ -68,6 +68,7 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_READ_ONLY;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_SCHEMA_MISMATCH;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PATH_ALREADY_EXISTS;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
+import static com.facebook.presto.hive.HiveMetadata.decodeZOrderByColumns;
 import static com.facebook.presto.hive.HiveSessionProperties.getSortedWriteTempPathSubdirectoryCount;
 import static com.facebook.presto.hive.HiveSessionProperties.isFailFastOnInsertIntoImmutablePartitionsEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isFileRenamingEnabled;
@@ -77,6 +78,9 @@ import static com.facebook.presto.hive.HiveWriteUtils.checkPartitionIsWritable;
 import static com.facebook.presto.hive.LocationHandle.TableType.TEMPORARY;
 import static com.facebook.presto.hive.LocationHandle.WriteMode.DIRECT_TO_TARGET_EXISTING_DIRECTORY;
 import static com.facebook.presto.hive.PartitionUpdate.FileWriteInfo;
+import static com.facebook.presto.hive.ZOrderFileWriter.Z_ADDRESS_SORT_ORDER;
+import static com.facebook.presto.hive.ZOrderFileWriter.withZAddress;
+import static com.facebook.presto.hive.ZOrderFileWriter.withoutZAddress;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.createPartitionValues;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.getHiveSchema;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.toPartitionValues;
@@ -135,6 +139,9 @@ public class HiveWriterFactory
 
     private final Table table;
     private final Optional<SortingFileWriterFactory> sortingFileWriterFactory;
+    private final Optional<SortingFileWriterFactory> zOrderFileWriterFactory;
+    private final DataSize sortBufferSize;
+    private final List<Integer> zOrderChannels;
     private final boolean immutablePartitions;
     private final InsertExistingPartitionsBehavior insertExistingPartitionsBehavior;
 
@@ -300,6 +307,46 @@ public class HiveWriterFactory
             this.sortingFileWriterFactory = Optional.empty();
         }
 
+        this.sortBufferSize = requireNonNull(sortBufferSize, "sortBufferSize is null");
+        List<String> zOrderBy = decodeZOrderByColumns(isCreateTable ? additionalTableParameters : table.getParameters());
+        if (sortedBy.isEmpty() && !zOrderBy.isEmpty()) {
+            List<Type> types = this.dataColumns.stream()
+                    .map(column -> column.getHiveType().getType(typeManager))
+                    .collect(toImmutableList());
+
+            List<String> dataColumnNames = this.dataColumns.stream()
+                    .map(DataColumn::getName)
+                    .collect(toImmutableList());
+            ImmutableList.Builder<Integer> zOrderChannels = ImmutableList.builder();
+            for (String column : zOrderBy) {
+                int index = dataColumnNames.indexOf(column);
+                if (index < 0) {
+                    throw new PrestoException(HIVE_INVALID_METADATA, format("Z-order column '%s' does not exist in table '%s.%s'", column, schemaName, tableName));
+                }
+                zOrderChannels.add(index);
+            }
+            this.zOrderChannels = zOrderChannels.build();
+
+            // the rows are sorted on their z-address, appended as an extra last column
+            this.zOrderFileWriterFactory = Optional.of(new SortingFileWriterFactory(
+                    hdfsEnvironment,
+                    session,
+                    conf,
+                    withZAddress(types),
+                    ImmutableList.of(types.size()),
+                    ImmutableList.of(Z_ADDRESS_SORT_ORDER),
+                    sortBufferSize,
+                    maxOpenSortFiles,
+                    pageSorter,
+                    orcFileWriterFactory,
+                    false,
+                    getSortedWriteTempPathSubdirectoryCount(session)));
+        }
+        else {
+            this.zOrderChannels = ImmutableList.of();
+            this.zOrderFileWriterFactory = Optional.empty();
+        }
+
         // make sure the FileSystem is created with the correct Configuration object
         try {
             hdfsEnvironment.getFileSystem(session.getUser(), writePath, conf);
@@ -404,6 +451,20 @@ public class HiveWriterFactory
                     bucketNumber.orElseGet(() -> abs(path.hashCode() % 1024)),
                     writerParameters.getWriteInfo().getTempPath());
         }
+        else if (zOrderFileWriterFactory.isPresent()) {
+            List<Type> types = dataColumns.stream()
+                    .map(column -> column.getHiveType().getType(typeManager))
+                    .collect(toImmutableList());
+            hiveFileWriter = new ZOrderFileWriter(
+                    zOrderFileWriterFactory.get().createSortingFileWriter(
+                            path,
+                            withoutZAddress(hiveFileWriter, types.size()),
+                            bucketNumber.orElseGet(() -> abs(path.hashCode() % 1024)),
+                            Optional.empty()),
+                    types,
+                    zOrderChannels,
+                    sortBufferSize);
+        }
 
         boolean writeTempData = locationHandle.getTableType() == TEMPORARY || locationHandle.getTempPath().isPresent() || writeToTempFile;
 
@@ -14,12 +14,19 @@
 package com.facebook.presto.hive;
 
 import com.facebook.airlift.stats.DistributionStat;
+import com.facebook.airlift.stats.TimeStat;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 public class HiveWriterStats
 {
     private final DistributionStat inputPageSizeInBytes = new DistributionStat();
+    private final TimeStat fileCommitTime = new TimeStat(MILLISECONDS);
+    private final TimeStat asyncWriteBlockedTime = new TimeStat(MILLISECONDS);
 
     @Managed
     @Nested
@@ -32,4 +39,31 @@ public class HiveWriterStats
     {
         inputPageSizeInBytes.add(bytes);
     }
+
+    @Managed
+    @Nested
+    public TimeStat getFileCommitTime()
+    {
+        return fileCommitTime;
+    }
+
+    public void addFileCommitTime(long duration, TimeUnit unit)
+    {
+        fileCommitTime.add(duration, unit);
+    }
+
+    /**
+     * Time the drivers spend blocked until the pages queued for asynchronous writers are written.
+     */
+    @Managed
+    @Nested
+    public TimeStat getAsyncWriteBlockedTime()
+    {
+        return asyncWriteBlockedTime;
+    }
+
+    public void addAsyncWriteBlockedTime(long duration, TimeUnit unit)
+    {
+        asyncWriteBlockedTime.add(duration, unit);
+    }
 }
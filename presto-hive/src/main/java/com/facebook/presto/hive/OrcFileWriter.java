@@ -67,9 +67,12 @@ public class OrcFileWriter
     private final int[] fileInputColumnIndexes;
     private final List<Block> nullBlocks;
     private final Optional<Supplier<OrcDataSource>> validationInputFactory;
+    private final List<OrcType> orcTypes;
+    private final Optional<HiveFileIndexBuilder> fileIndexBuilder;
 
     private long validationCpuNanos;
     private long rowCount;
+    private Optional<HiveFileIndex.FileEntry> fileIndexEntry = Optional.empty();
 
     public OrcFileWriter(
             DataSink dataSink,
@@ -161,6 +164,45 @@ public class OrcFileWriter
             WriterStats stats,
             DwrfEncryptionProvider dwrfEncryptionProvider,
             Optional<DwrfWriterEncryption> dwrfWriterEncryption)
+    {
+        this(
+                dataSink,
+                rollbackAction,
+                orcEncoding,
+                columnNames,
+                fileColumnTypes,
+                fileColumnOrcTypes,
+                compression,
+                options,
+                fileInputColumnIndexes,
+                metadata,
+                hiveStorageTimeZone,
+                validationInputFactory,
+                validationMode,
+                stats,
+                dwrfEncryptionProvider,
+                dwrfWriterEncryption,
+                Optional.empty());
+    }
+
+    public OrcFileWriter(
+            DataSink dataSink,
+            Callable<Void> rollbackAction,
+            OrcEncoding orcEncoding,
+            List<String> columnNames,
+            List<Type> fileColumnTypes,
+            Optional<List<OrcType>> fileColumnOrcTypes,
+            CompressionKind compression,
+            OrcWriterOptions options,
+            int[] fileInputColumnIndexes,
+            Map<String, String> metadata,
+            DateTimeZone hiveStorageTimeZone,
+            Optional<Supplier<OrcDataSource>> validationInputFactory,
+            OrcWriteValidationMode validationMode,
+            WriterStats stats,
+            DwrfEncryptionProvider dwrfEncryptionProvider,
+            Optional<DwrfWriterEncryption> dwrfWriterEncryption,
+            Optional<HiveFileIndexBuilder> fileIndexBuilder)
     {
         requireNonNull(dataSink, "dataSink is null");
 
@@ -197,6 +239,8 @@ public class OrcFileWriter
         }
         this.nullBlocks = nullBlocks.build();
         this.validationInputFactory = validationInputFactory;
+        this.orcTypes = fileColumnOrcTypes.orElseGet(() -> OrcType.createOrcRowType(0, columnNames, fileColumnTypes));
+        this.fileIndexBuilder = requireNonNull(fileIndexBuilder, "fileIndexBuilder is null");
     }
 
     @Override
@@ -214,7 +258,8 @@ public class OrcFileWriter
     @Override
     public long getSystemMemoryUsage()
     {
-        return INSTANCE_SIZE + orcWriter.getRetainedBytes();
+        long fileIndexBuilderSize = fileIndexBuilder.map(HiveFileIndexBuilder::getRetainedSizeInBytes).orElse(0L);
+        return INSTANCE_SIZE + orcWriter.getRetainedBytes() + fileIndexBuilderSize;
     }
 
     @Override
@@ -234,6 +279,9 @@ public class OrcFileWriter
         try {
             orcWriter.write(page);
             rowCount += page.getPositionCount();
+            if (fileIndexBuilder.isPresent()) {
+                fileIndexBuilder.get().addPage(page);
+            }
         }
         catch (IOException | UncheckedIOException e) {
             throw new PrestoException(HIVE_WRITER_DATA_ERROR, e);
@@ -270,9 +318,19 @@ public class OrcFileWriter
             }
         }
 
+        if (fileIndexBuilder.isPresent()) {
+            fileIndexEntry = Optional.of(fileIndexBuilder.get().build(getFileSizeInBytes(), rowCount, orcTypes, orcWriter.getFileStats()));
+        }
+
         return Optional.of(createFileStatisticsPage(getFileSizeInBytes(), rowCount));
     }
 
+    @Override
+    public Optional<HiveFileIndex.FileEntry> getFileIndexEntry()
+    {
+        return fileIndexEntry;
+    }
+
     @Override
     public void rollback()
     {
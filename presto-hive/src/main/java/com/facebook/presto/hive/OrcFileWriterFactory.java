@@ -81,6 +81,7 @@ import static com.facebook.presto.hive.HiveSessionProperties.getOrcOptimizedWrit
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStringStatisticsLimit;
 import static com.facebook.presto.hive.HiveSessionProperties.isDwrfWriterStripeCacheEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isExecutionBasedMemoryAccountingEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isFileIndexEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isFlatMapWriterEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isIntegerDictionaryEncodingEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isStringDictionaryEncodingEnabled;
@@ -273,12 +274,23 @@ public class OrcFileWriterFactory
 
             OrcWriterOptions orcWriterOptions = buildOrcWriterOptions(session, schema);
 
+            // the statistics of encrypted columns must not be written in the clear
+            Optional<HiveFileIndexBuilder> fileIndexBuilder = Optional.empty();
+            if (isFileIndexEnabled(session) && !dwrfWriterEncryption.isPresent()) {
+                fileIndexBuilder = Optional.of(new HiveFileIndexBuilder(
+                        fileColumnNames,
+                        fileColumnTypes,
+                        ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(OrcConf.BLOOM_FILTER_COLUMNS.getString(schema, configuration))),
+                        OrcConf.BLOOM_FILTER_FPP.getDouble(schema, configuration)));
+            }
+
             return Optional.of(new OrcFileWriter(
                     dataSink,
                     rollbackAction,
                     orcEncoding,
                     fileColumnNames,
                     fileColumnTypes,
+                    Optional.empty(),
                     compression,
                     orcWriterOptions,
                     fileInputColumnIndexes,
@@ -288,7 +300,8 @@ public class OrcFileWriterFactory
                     getOrcOptimizedWriterValidateMode(session),
                     stats,
                     dwrfEncryptionProvider,
-                    dwrfWriterEncryption));
+                    dwrfWriterEncryption,
+                    fileIndexBuilder));
         }
         catch (IOException e) {
             throw new PrestoException(HIVE_WRITER_OPEN_ERROR, "Error creating " + orcEncoding + " file. " + e.getMessage(), e);
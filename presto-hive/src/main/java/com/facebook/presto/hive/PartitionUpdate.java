@@ -228,16 +228,24 @@ public class PartitionUpdate
         private final String writeFileName;
         private final String targetFileName;
         private final Optional<Long> fileSize;
+        private final Optional<HiveFileIndex.FileEntry> fileIndexEntry;
+
+        public FileWriteInfo(String writeFileName, String targetFileName, Optional<Long> fileSize)
+        {
+            this(writeFileName, targetFileName, fileSize, Optional.empty());
+        }
 
         @JsonCreator
         public FileWriteInfo(
                 @JsonProperty("writeFileName") String writeFileName,
                 @JsonProperty("targetFileName") String targetFileName,
-                @JsonProperty("fileSize") Optional<Long> fileSize)
+                @JsonProperty("fileSize") Optional<Long> fileSize,
+                @JsonProperty("fileIndexEntry") Optional<HiveFileIndex.FileEntry> fileIndexEntry)
         {
             this.writeFileName = requireNonNull(writeFileName, "writeFileName is null");
             this.targetFileName = requireNonNull(targetFileName, "targetFileName is null");
             this.fileSize = requireNonNull(fileSize, "fileSize is null");
+            this.fileIndexEntry = requireNonNull(fileIndexEntry, "fileIndexEntry is null");
         }
 
         @JsonProperty
@@ -258,6 +266,12 @@ public class PartitionUpdate
             return fileSize;
         }
 
+        @JsonProperty
+        public Optional<HiveFileIndex.FileEntry> getFileIndexEntry()
+        {
+            return fileIndexEntry;
+        }
+
         @Override
         public boolean equals(Object o)
         {
@@ -270,13 +284,14 @@ public class PartitionUpdate
             FileWriteInfo that = (FileWriteInfo) o;
             return Objects.equals(writeFileName, that.writeFileName) &&
                     Objects.equals(targetFileName, that.targetFileName) &&
-                    Objects.equals(fileSize, that.fileSize);
+                    Objects.equals(fileSize, that.fileSize) &&
+                    Objects.equals(fileIndexEntry, that.fileIndexEntry);
         }
 
         @Override
         public int hashCode()
         {
-            return Objects.hash(writeFileName, targetFileName, fileSize);
+            return Objects.hash(writeFileName, targetFileName, fileSize, fileIndexEntry);
         }
 
         @Override
@@ -286,6 +301,7 @@ public class PartitionUpdate
                     .add("writeFileName", writeFileName)
                     .add("targetFileName", targetFileName)
                     .add("fileSize", fileSize)
+                    .add("fileIndexEntry", fileIndexEntry)
                     .toString();
         }
     }
@@ -184,6 +184,12 @@ public class SortingFileWriter
         return getWrittenBytes();
     }
 
+    @Override
+    public Optional<HiveFileIndex.FileEntry> getFileIndexEntry()
+    {
+        return outputWriter.getFileIndexEntry();
+    }
+
     private void flushToTempFile()
     {
         writeTempFile(writer -> sortBuffer.flushTo(writer::writePage));
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.common.RuntimeUnit;
 import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.hive.cache.HiveCachingHdfsConfiguration;
 import com.facebook.presto.hive.filesystem.ExtendedFileSystem;
@@ -27,6 +28,7 @@ import com.facebook.presto.spi.SchemaTableName;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.ListMultimap;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -51,6 +53,8 @@ import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Properties;
 import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.facebook.presto.hive.HiveBucketing.getVirtualBucketNumber;
@@ -60,6 +64,7 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_BUCKET_FILES;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_FILE_NAMES;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
+import static com.facebook.presto.hive.HiveFileIndex.readFileIndex;
 import static com.facebook.presto.hive.HiveMetadata.shouldCreateFilesForMissingBuckets;
 import static com.facebook.presto.hive.HiveSessionProperties.getMaxInitialSplitSize;
 import static com.facebook.presto.hive.HiveSessionProperties.getMaxSplitSize;
@@ -88,6 +93,7 @@ import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.base.Suppliers.memoize;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Maps.fromProperties;
 import static com.google.common.collect.Streams.stream;
@@ -103,6 +109,7 @@ public class StoragePartitionLoader
 
     private final Table table;
     private final Map<Integer, Domain> infoColumnConstraints;
+    private final Map<HiveColumnHandle, Domain> fileIndexConstraints;
     private final Optional<BucketSplitInfo> tableBucketInfo;
     private final HdfsEnvironment hdfsEnvironment;
     private final HdfsContext hdfsContext;
@@ -118,6 +125,7 @@ public class StoragePartitionLoader
     public StoragePartitionLoader(
             Table table,
             Map<Integer, Domain> infoColumnConstraints,
+            Map<HiveColumnHandle, Domain> fileIndexConstraints,
             Optional<BucketSplitInfo> tableBucketInfo,
             ConnectorSession session,
             HdfsEnvironment hdfsEnvironment,
@@ -130,6 +138,7 @@ public class StoragePartitionLoader
     {
         this.table = requireNonNull(table, "table is null");
         this.infoColumnConstraints = requireNonNull(infoColumnConstraints, "infoColumnConstraints is null");
+        this.fileIndexConstraints = ImmutableMap.copyOf(requireNonNull(fileIndexConstraints, "fileIndexConstraints is null"));
         this.tableBucketInfo = requireNonNull(tableBucketInfo, "tableBucketInfo is null");
         this.session = requireNonNull(session, "session is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
@@ -531,13 +540,33 @@ public class StoragePartitionLoader
                 hdfsContext.getIdentity(),
                 buildDirectoryContextProperties(session),
                 session.getRuntimeStats());
+        // the index only describes the files directly in the partition directory. It is hidden from the listing, so
+        // it is read once, when the listing returns the first file, and an empty partition does not read it at all.
+        Predicate<HiveFileInfo> fileIndexFilter = hiveFileInfo -> true;
+        if (!fileIndexConstraints.isEmpty() && !recursiveDirWalkerEnabled) {
+            Supplier<Optional<HiveFileIndex>> fileIndex = memoize(() -> readFileIndex(fileSystem, path));
+            fileIndexFilter = hiveFileInfo -> fileIndex.get()
+                    .map(index -> mayMatch(index, hiveFileInfo))
+                    .orElse(true);
+        }
+
         return stream(directoryLister.list(fileSystem, table, path, partition, namenodeStats, hiveDirectoryContext))
+                .filter(fileIndexFilter)
                 .map(hiveFileInfo -> splitFactory.createInternalHiveSplit(hiveFileInfo, splittable))
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .iterator();
     }
 
+    private boolean mayMatch(HiveFileIndex fileIndex, HiveFileInfo hiveFileInfo)
+    {
+        if (fileIndex.mayMatch(hiveFileInfo.getFileName(), hiveFileInfo.getLength(), fileIndexConstraints)) {
+            return true;
+        }
+        session.getRuntimeStats().addMetricValue("HiveFileIndex/PrunedFiles", RuntimeUnit.NONE, 1);
+        return false;
+    }
+
     private List<InternalHiveSplit> getBucketedSplits(
             Path path,
             ExtendedFileSystem fileSystem,
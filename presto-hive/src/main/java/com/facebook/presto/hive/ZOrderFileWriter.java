@@ -0,0 +1,249 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.airlift.units.DataSize;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.SortOrder;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.hive.zorder.ZOrderKeyEncoder;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Clusters the rows of a file along a Z-order curve over several columns. The z-address of each row is appended
+ * as an extra column before the rows reach a {@link SortingFileWriter} sorting on it, and is dropped again by the
+ * writer returned from {@link #withoutZAddress} before the rows reach the file.
+ * <p>
+ * The z-address scales the values of each column to its range in the file, so the rows are buffered until the file
+ * is committed, and encoded once the ranges of all of them are known. When the buffered rows exceed the buffer size,
+ * they are encoded with the ranges seen so far and passed on, and the following rows are clamped to those ranges.
+ * <p>
+ * The ordering is intra-file only: rows are not exchanged between the files of a write, so that the statistics of
+ * the stripes or row groups of the file benefit, while those of whole files only reflect how clustered the rows
+ * reaching the writer already are.
+ */
+public class ZOrderFileWriter
+        implements HiveFileWriter
+{
+    public static final SortOrder Z_ADDRESS_SORT_ORDER = ASC_NULLS_FIRST;
+
+    private final HiveFileWriter sortingFileWriter;
+    private final ZOrderKeyEncoder keyEncoder;
+    private final List<Integer> zOrderChannels;
+    private final long maxBufferedBytes;
+
+    // the rows appended before the ranges of the z-address are fixed
+    private final List<Page> bufferedPages = new ArrayList<>();
+    private long bufferedBytes;
+    private boolean encoding;
+
+    public ZOrderFileWriter(HiveFileWriter sortingFileWriter, List<Type> types, List<Integer> zOrderChannels, DataSize bufferSize)
+    {
+        this.sortingFileWriter = requireNonNull(sortingFileWriter, "sortingFileWriter is null");
+        this.zOrderChannels = ImmutableList.copyOf(requireNonNull(zOrderChannels, "zOrderChannels is null"));
+        this.keyEncoder = new ZOrderKeyEncoder(this.zOrderChannels.stream()
+                .map(types::get)
+                .collect(toImmutableList()));
+        this.maxBufferedBytes = requireNonNull(bufferSize, "bufferSize is null").toBytes();
+    }
+
+    /**
+     * Returns the types the sorting file writer is created with: the types of the file followed by the z-address.
+     */
+    public static List<Type> withZAddress(List<Type> types)
+    {
+        return ImmutableList.<Type>builder()
+                .addAll(types)
+                .add(VARBINARY)
+                .build();
+    }
+
+    /**
+     * Returns the writer the sorting file writer writes to, which drops the z-address from the sorted pages.
+     */
+    public static HiveFileWriter withoutZAddress(HiveFileWriter outputWriter, int columnCount)
+    {
+        // the z-address is the last column of the sorted pages
+        return new ZAddressDroppingFileWriter(outputWriter, columnCount);
+    }
+
+    @Override
+    public long getWrittenBytes()
+    {
+        return sortingFileWriter.getWrittenBytes();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return sortingFileWriter.getSystemMemoryUsage() + bufferedBytes;
+    }
+
+    @Override
+    public void appendRows(Page dataPage)
+    {
+        if (encoding) {
+            sortingFileWriter.appendRows(dataPage.appendColumn(keyEncoder.encode(dataPage, zOrderChannels)));
+            return;
+        }
+
+        keyEncoder.addRange(dataPage, zOrderChannels);
+        bufferedPages.add(dataPage);
+        bufferedBytes += dataPage.getRetainedSizeInBytes();
+        if (bufferedBytes >= maxBufferedBytes) {
+            flushBufferedPages();
+        }
+    }
+
+    private void flushBufferedPages()
+    {
+        encoding = true;
+        for (Page page : bufferedPages) {
+            sortingFileWriter.appendRows(page.appendColumn(keyEncoder.encode(page, zOrderChannels)));
+        }
+        bufferedPages.clear();
+        bufferedBytes = 0;
+    }
+
+    @Override
+    public Optional<Page> commit()
+    {
+        flushBufferedPages();
+        return sortingFileWriter.commit();
+    }
+
+    @Override
+    public void rollback()
+    {
+        bufferedPages.clear();
+        bufferedBytes = 0;
+        sortingFileWriter.rollback();
+    }
+
+    @Override
+    public long getValidationCpuNanos()
+    {
+        return sortingFileWriter.getValidationCpuNanos();
+    }
+
+    @Override
+    public Optional<Runnable> getVerificationTask()
+    {
+        return sortingFileWriter.getVerificationTask();
+    }
+
+    @Override
+    public long getFileSizeInBytes()
+    {
+        return sortingFileWriter.getFileSizeInBytes();
+    }
+
+    @Override
+    public Optional<HiveFileIndex.FileEntry> getFileIndexEntry()
+    {
+        return sortingFileWriter.getFileIndexEntry();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("zOrderChannels", zOrderChannels)
+                .add("sortingFileWriter", sortingFileWriter)
+                .toString();
+    }
+
+    private static class ZAddressDroppingFileWriter
+            implements HiveFileWriter
+    {
+        private final HiveFileWriter outputWriter;
+        private final int zAddressChannel;
+
+        public ZAddressDroppingFileWriter(HiveFileWriter outputWriter, int zAddressChannel)
+        {
+            this.outputWriter = requireNonNull(outputWriter, "outputWriter is null");
+            this.zAddressChannel = zAddressChannel;
+        }
+
+        @Override
+        public long getWrittenBytes()
+        {
+            return outputWriter.getWrittenBytes();
+        }
+
+        @Override
+        public long getSystemMemoryUsage()
+        {
+            return outputWriter.getSystemMemoryUsage();
+        }
+
+        @Override
+        public void appendRows(Page dataPage)
+        {
+            outputWriter.appendRows(dataPage.dropColumn(zAddressChannel));
+        }
+
+        @Override
+        public Optional<Page> commit()
+        {
+            return outputWriter.commit();
+        }
+
+        @Override
+        public void rollback()
+        {
+            outputWriter.rollback();
+        }
+
+        @Override
+        public long getValidationCpuNanos()
+        {
+            return outputWriter.getValidationCpuNanos();
+        }
+
+        @Override
+        public Optional<Runnable> getVerificationTask()
+        {
+            return outputWriter.getVerificationTask();
+        }
+
+        @Override
+        public long getFileSizeInBytes()
+        {
+            return outputWriter.getFileSizeInBytes();
+        }
+
+        @Override
+        public Optional<HiveFileIndex.FileEntry> getFileIndexEntry()
+        {
+            return outputWriter.getFileIndexEntry();
+        }
+
+        @Override
+        public String toString()
+        {
+            return outputWriter.toString();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.statistics;
+
+import com.facebook.airlift.concurrent.BoundedExecutor;
+import com.facebook.airlift.concurrent.ThreadPoolExecutorMBean;
+import com.facebook.airlift.stats.DistributionStat;
+import com.facebook.airlift.stats.TimeStat;
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.common.RuntimeUnit;
+import com.facebook.presto.hive.HiveFileInfo;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SchemaTableName;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Reads the footers of the files of a partition concurrently on a bounded executor, and rolls up the column
+ * statistics found in them. This is the part of building quick stats that does not depend on the file format.
+ */
+class FooterStatsAggregator
+{
+    private final String name;
+    private final Executor footerFetchExecutor;
+    private final ThreadPoolExecutorMBean footerFetchExecutorMBean;
+    private final long footerFetchTimeoutMillis;
+    private final TimeStat footerFetchDuration = new TimeStat(MILLISECONDS);
+    private final DistributionStat fileCountPerPartition = new DistributionStat();
+
+    public FooterStatsAggregator(String name, String threadNameFormat, int maxConcurrentFooterFetches, Duration footerFetchTimeout)
+    {
+        this.name = requireNonNull(name, "name is null");
+        ExecutorService coreExecutor = newCachedThreadPool(daemonThreadsNamed(threadNameFormat));
+        this.footerFetchExecutor = new BoundedExecutor(coreExecutor, maxConcurrentFooterFetches);
+        this.footerFetchExecutorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) coreExecutor);
+        this.footerFetchTimeoutMillis = footerFetchTimeout.roundTo(MILLISECONDS);
+    }
+
+    public TimeStat getFooterFetchDuration()
+    {
+        return footerFetchDuration;
+    }
+
+    public DistributionStat getFileCountPerPartition()
+    {
+        return fileCountPerPartition;
+    }
+
+    public ThreadPoolExecutorMBean getExecutor()
+    {
+        return footerFetchExecutorMBean;
+    }
+
+    /**
+     * Reads the footers of the non-empty files, and returns them in the order of the files.
+     */
+    public <M> Footers<M> readFooters(ConnectorSession session, SchemaTableName table, String partitionId, Iterator<HiveFileInfo> files, FooterReader<M> footerReader)
+    {
+        List<CompletableFuture<M>> footerFetchCompletableFutures = new ArrayList<>();
+        int filesCount = 0;
+        while (files.hasNext()) {
+            HiveFileInfo file = files.next();
+            filesCount++;
+            if (file.getLength() == 0) {
+                // per HIVE-13040 and ORC-162, empty files are allowed, and they have no footer
+                continue;
+            }
+
+            footerFetchCompletableFutures.add(supplyAsync(() -> {
+                Stopwatch footerFetchDuration = Stopwatch.createStarted();
+                try {
+                    return footerReader.read(file);
+                }
+                catch (IOException e) {
+                    throw new PrestoException(HIVE_FILESYSTEM_ERROR, format("Failed to read the footer of %s", file.getPath()), e);
+                }
+                finally {
+                    this.footerFetchDuration.add(footerFetchDuration.elapsed(MILLISECONDS), MILLISECONDS);
+                }
+            }, footerFetchExecutor));
+        }
+
+        // Record a metric about how many files were seen
+        session.getRuntimeStats().addMetricValue(format("%s/FileCount/%s/%s", name, table.getTableName(), partitionId), RuntimeUnit.NONE, filesCount);
+        fileCountPerPartition.add(filesCount);
+
+        try {
+            // Wait for footer reads to finish
+            CompletableFuture.allOf(footerFetchCompletableFutures.toArray(new CompletableFuture[0])).get(footerFetchTimeoutMillis, MILLISECONDS);
+
+            ImmutableList.Builder<M> footers = ImmutableList.builder();
+            for (CompletableFuture<M> future : footerFetchCompletableFutures) {
+                footers.add(future.get());
+            }
+            return new Footers<>(footers.build(), filesCount);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PrestoException(HIVE_FILESYSTEM_ERROR, format("Interrupted while reading the footers of partition %s of %s", partitionId, table), e);
+        }
+        catch (ExecutionException e) {
+            throwIfUnchecked(e.getCause());
+            throw new PrestoException(HIVE_FILESYSTEM_ERROR, format("Failed to read the footers of partition %s of %s", partitionId, table), e.getCause());
+        }
+        catch (TimeoutException e) {
+            footerFetchCompletableFutures.forEach(future -> future.cancel(true));
+            throw new PrestoException(HIVE_FILESYSTEM_ERROR, format("Timed out reading the footers of partition %s of %s", partitionId, table), e);
+        }
+    }
+
+    /**
+     * Merges the statistics of a column in a file, or in a part of it, into the statistics of the column in the partition.
+     *
+     * @param min the minimum value of the column, or null if it is not known, in which case the maximum is ignored too
+     */
+    public static <K, T extends Comparable<T>> void mergeColumnStats(
+            Map<K, ColumnQuickStats<?>> rolledUpColStats,
+            K columnKey,
+            String columnName,
+            Class<T> statType,
+            T min,
+            T max,
+            long nullsCount,
+            long rowCount)
+    {
+        @SuppressWarnings("unchecked")
+        ColumnQuickStats<T> toMerge = (ColumnQuickStats<T>) rolledUpColStats.computeIfAbsent(columnKey, key -> new ColumnQuickStats<T>(columnName, statType));
+        if (min != null) {
+            toMerge.setMinValue(min);
+            toMerge.setMaxValue(max);
+        }
+        toMerge.addToNullsCount(nullsCount);
+        toMerge.addToRowCount(rowCount);
+    }
+
+    public static class Footers<M>
+    {
+        private final List<M> footers;
+        private final int fileCount;
+
+        public Footers(List<M> footers, int fileCount)
+        {
+            this.footers = ImmutableList.copyOf(requireNonNull(footers, "footers is null"));
+            this.fileCount = fileCount;
+        }
+
+        public List<M> getFooters()
+        {
+            return footers;
+        }
+
+        /**
+         * Returns the number of files of the partition, including the empty ones.
+         */
+        public int getFileCount()
+        {
+            return fileCount;
+        }
+    }
+
+    public interface FooterReader<M>
+    {
+        M read(HiveFileInfo file)
+                throws IOException;
+    }
+}
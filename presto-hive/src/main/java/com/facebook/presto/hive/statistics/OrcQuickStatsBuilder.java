@@ -0,0 +1,333 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.statistics;
+
+import com.facebook.airlift.concurrent.ThreadPoolExecutorMBean;
+import com.facebook.airlift.stats.DistributionStat;
+import com.facebook.airlift.stats.TimeStat;
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.HdfsContext;
+import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveClientConfig;
+import com.facebook.presto.hive.HiveFileContext;
+import com.facebook.presto.hive.HiveFileInfo;
+import com.facebook.presto.hive.HiveOrcAggregatedMemoryContext;
+import com.facebook.presto.hive.PartitionNameWithVersion;
+import com.facebook.presto.hive.metastore.Column;
+import com.facebook.presto.hive.metastore.ExtendedHiveMetastore;
+import com.facebook.presto.hive.metastore.MetastoreContext;
+import com.facebook.presto.hive.metastore.Partition;
+import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.hive.orc.HdfsOrcDataSource;
+import com.facebook.presto.hive.statistics.FooterStatsAggregator.Footers;
+import com.facebook.presto.orc.DwrfKeyProvider;
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.facebook.presto.orc.OrcEncoding;
+import com.facebook.presto.orc.OrcReader;
+import com.facebook.presto.orc.OrcReaderOptions;
+import com.facebook.presto.orc.StorageStripeMetadataSource;
+import com.facebook.presto.orc.StripeMetadataSourceFactory;
+import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.orc.metadata.statistics.DateStatistics;
+import com.facebook.presto.orc.metadata.statistics.DoubleStatistics;
+import com.facebook.presto.orc.metadata.statistics.IntegerStatistics;
+import com.facebook.presto.orc.metadata.statistics.StripeStatistics;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.SchemaTableName;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.time.LocalDate;
+import java.time.chrono.ChronoLocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static com.facebook.presto.hive.CacheQuota.NO_CACHE_CONSTRAINTS;
+import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcLazyReadSmallRanges;
+import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcMaxBufferSize;
+import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcMaxMergeDistance;
+import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcMaxReadBlockSize;
+import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcStreamBufferSize;
+import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcTinyStripeThreshold;
+import static com.facebook.presto.hive.HiveCommonSessionProperties.isUseOrcColumnNames;
+import static com.facebook.presto.hive.HivePartition.UNPARTITIONED_ID;
+import static com.facebook.presto.hive.HiveStorageFormat.DWRF;
+import static com.facebook.presto.hive.HiveStorageFormat.ORC;
+import static com.facebook.presto.hive.statistics.FooterStatsAggregator.mergeColumnStats;
+import static com.facebook.presto.orc.DwrfEncryptionProvider.NO_ENCRYPTION;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Builds quick stats for ORC and DWRF partitions from the statistics in the file footers, falling back to the
+ * stripe statistics of files written without file level statistics.
+ */
+public class OrcQuickStatsBuilder
+        implements QuickStatsBuilder
+{
+    private final FooterStatsAggregator footerStatsAggregator;
+    private final HdfsEnvironment hdfsEnvironment;
+    private final FileFormatDataSourceStats stats;
+
+    public OrcQuickStatsBuilder(FileFormatDataSourceStats stats, HdfsEnvironment hdfsEnvironment, HiveClientConfig hiveClientConfig)
+    {
+        this.stats = stats;
+        this.hdfsEnvironment = hdfsEnvironment;
+        this.footerStatsAggregator = new FooterStatsAggregator(
+                OrcQuickStatsBuilder.class.getSimpleName(),
+                "orc-quick-stats-bg-fetch-%s",
+                hiveClientConfig.getMaxConcurrentOrcQuickStatsCalls(),
+                hiveClientConfig.getOrcQuickStatsFileMetadataFetchTimeout());
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getFooterFetchDuration()
+    {
+        return footerStatsAggregator.getFooterFetchDuration();
+    }
+
+    @Managed
+    @Nested
+    public DistributionStat getFileCountPerPartitionDistribution()
+    {
+        return footerStatsAggregator.getFileCountPerPartition();
+    }
+
+    @Managed
+    @Nested
+    public ThreadPoolExecutorMBean getExecutor()
+    {
+        return footerStatsAggregator.getExecutor();
+    }
+
+    @Override
+    public PartitionQuickStats buildQuickStats(ConnectorSession session, ExtendedHiveMetastore metastore,
+            SchemaTableName table, MetastoreContext metastoreContext, String partitionId, Iterator<HiveFileInfo> files)
+    {
+        requireNonNull(session);
+        requireNonNull(metastore);
+        requireNonNull(table);
+        requireNonNull(metastoreContext);
+        requireNonNull(partitionId);
+        requireNonNull(files);
+
+        if (!files.hasNext()) {
+            return PartitionQuickStats.EMPTY;
+        }
+
+        StorageFormat storageFormat;
+        List<Column> dataColumns;
+        if (UNPARTITIONED_ID.getPartitionName().equals(partitionId)) {
+            Table resolvedTable = metastore.getTable(metastoreContext, table.getSchemaName(), table.getTableName()).get();
+            storageFormat = resolvedTable.getStorage().getStorageFormat();
+            dataColumns = resolvedTable.getDataColumns();
+        }
+        else {
+            Partition partition = metastore.getPartitionsByNames(metastoreContext, table.getSchemaName(), table.getTableName(),
+                    ImmutableList.of(new PartitionNameWithVersion(partitionId, Optional.empty()))).get(partitionId).get();
+            storageFormat = partition.getStorage().getStorageFormat();
+            dataColumns = partition.getColumns();
+        }
+
+        OrcEncoding orcEncoding;
+        if (ORC.getSerDe().equals(storageFormat.getSerDe())) {
+            orcEncoding = OrcEncoding.ORC;
+        }
+        else if (DWRF.getSerDe().equals(storageFormat.getSerDe())) {
+            orcEncoding = OrcEncoding.DWRF;
+        }
+        else {
+            // Not an ORC table/partition
+            return PartitionQuickStats.EMPTY;
+        }
+
+        OrcReaderOptions orcReaderOptions = OrcReaderOptions.builder()
+                .withMaxMergeDistance(getOrcMaxMergeDistance(session))
+                .withTinyStripeThreshold(getOrcTinyStripeThreshold(session))
+                .withMaxBlockSize(getOrcMaxReadBlockSize(session))
+                .build();
+
+        HdfsContext hdfsContext = new HdfsContext(session, table.getSchemaName(), table.getTableName());
+        Footers<OrcFileMetadata> footers = footerStatsAggregator.readFooters(session, table, partitionId, files, file -> {
+            Path path = new Path(file.getPath());
+            long fileSize = file.getLength();
+            HiveFileContext hiveFileContext = new HiveFileContext(
+                    true,
+                    NO_CACHE_CONSTRAINTS,
+                    Optional.empty(),
+                    OptionalLong.of(fileSize),
+                    OptionalLong.empty(),
+                    OptionalLong.empty(),
+                    file.getFileModifiedTime(),
+                    false);
+
+            try (FSDataInputStream inputStream = hdfsEnvironment.getFileSystem(hdfsContext, path).openFile(path, hiveFileContext);
+                    HdfsOrcDataSource orcDataSource = new HdfsOrcDataSource(
+                            new OrcDataSourceId(path.toString()),
+                            fileSize,
+                            getOrcMaxMergeDistance(session),
+                            getOrcMaxBufferSize(session),
+                            getOrcStreamBufferSize(session),
+                            getOrcLazyReadSmallRanges(session),
+                            inputStream,
+                            stats)) {
+                OrcReader reader = new OrcReader(
+                        orcDataSource,
+                        orcEncoding,
+                        new StorageOrcFileTailSource(),
+                        StripeMetadataSourceFactory.of(new StorageStripeMetadataSource()),
+                        new HiveOrcAggregatedMemoryContext(),
+                        orcReaderOptions,
+                        false,
+                        NO_ENCRYPTION,
+                        DwrfKeyProvider.EMPTY,
+                        session.getRuntimeStats(),
+                        file.getFileModifiedTime());
+                return new OrcFileMetadata(reader.getFooter(), reader.getMetadata().getStripeStatsList());
+            }
+        });
+
+        boolean useOrcColumnNames = isUseOrcColumnNames(session);
+        Map<String, ColumnQuickStats<?>> rolledUpColStats = new HashMap<>();
+        for (OrcFileMetadata fileMetadata : footers.getFooters()) {
+            processFileMetadata(fileMetadata, dataColumns, useOrcColumnNames, rolledUpColStats);
+        }
+
+        if (rolledUpColStats.isEmpty()) {
+            return PartitionQuickStats.EMPTY;
+        }
+        return new PartitionQuickStats(partitionId, rolledUpColStats.values(), footers.getFileCount());
+    }
+
+    private static void processFileMetadata(OrcFileMetadata fileMetadata, List<Column> dataColumns, boolean useOrcColumnNames, Map<String, ColumnQuickStats<?>> rolledUpColStats)
+    {
+        Footer footer = fileMetadata.getFooter();
+        List<OrcType> types = footer.getTypes();
+        OrcType rootType = types.get(0);
+        for (int field = 0; field < rootType.getFieldCount(); field++) {
+            String columnName;
+            if (useOrcColumnNames) {
+                columnName = rootType.getFieldNames().get(field).toLowerCase(ENGLISH);
+            }
+            else if (field < dataColumns.size()) {
+                // Hive maps the columns of ORC files to the columns of the partition by position
+                columnName = dataColumns.get(field).getName();
+            }
+            else {
+                continue;
+            }
+
+            int typeIndex = rootType.getFieldTypeIndex(field);
+            OrcType type = types.get(typeIndex);
+            if (!footer.getFileStats().isEmpty()) {
+                processColumnStatistics(columnName, type, footer.getFileStats().get(typeIndex), footer.getNumberOfRows(), rolledUpColStats);
+            }
+            else if (!fileMetadata.getStripeStatistics().isEmpty()) {
+                for (int stripe = 0; stripe < fileMetadata.getStripeStatistics().size(); stripe++) {
+                    processColumnStatistics(
+                            columnName,
+                            type,
+                            fileMetadata.getStripeStatistics().get(stripe).getColumnStatistics().get(typeIndex),
+                            footer.getStripes().get(stripe).getNumberOfRows(),
+                            rolledUpColStats);
+                }
+            }
+        }
+    }
+
+    private static void processColumnStatistics(String columnName, OrcType type, ColumnStatistics colStats, long rowCount, Map<String, ColumnQuickStats<?>> rolledUpColStats)
+    {
+        // The number of values of a column excludes its nulls
+        long nullsCount = colStats.hasNumberOfValues() ? rowCount - colStats.getNumberOfValues() : 0;
+
+        switch (type.getOrcTypeKind()) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG: {
+                IntegerStatistics integerStatistics = colStats.getIntegerStatistics();
+                mergeColumnStats(rolledUpColStats, columnName, columnName, Long.class,
+                        integerStatistics == null ? null : integerStatistics.getMin(),
+                        integerStatistics == null ? null : integerStatistics.getMax(),
+                        nullsCount,
+                        rowCount);
+                break;
+            }
+            case FLOAT:
+            case DOUBLE: {
+                DoubleStatistics doubleStatistics = colStats.getDoubleStatistics();
+                mergeColumnStats(rolledUpColStats, columnName, columnName, Double.class,
+                        doubleStatistics == null ? null : doubleStatistics.getMin(),
+                        doubleStatistics == null ? null : doubleStatistics.getMax(),
+                        nullsCount,
+                        rowCount);
+                break;
+            }
+            case DATE: {
+                DateStatistics dateStatistics = colStats.getDateStatistics();
+                boolean hasRange = dateStatistics != null && dateStatistics.getMin() != null;
+                mergeColumnStats(rolledUpColStats, columnName, columnName, ChronoLocalDate.class,
+                        hasRange ? LocalDate.ofEpochDay(dateStatistics.getMin()) : null,
+                        hasRange ? LocalDate.ofEpochDay(dateStatistics.getMax()) : null,
+                        nullsCount,
+                        rowCount);
+                break;
+            }
+            case BOOLEAN: {
+                mergeColumnStats(rolledUpColStats, columnName, columnName, Boolean.class, null, null, nullsCount, rowCount);
+                break;
+            }
+            default: {
+                // Treat all other columns as a collection of bytes with no min/max stats. The only relevant stats are NULL count and ROW count
+                mergeColumnStats(rolledUpColStats, columnName, columnName, Slice.class, null, null, nullsCount, rowCount);
+                break;
+            }
+        }
+    }
+
+    private static class OrcFileMetadata
+    {
+        private final Footer footer;
+        private final List<StripeStatistics> stripeStatistics;
+
+        public OrcFileMetadata(Footer footer, List<StripeStatistics> stripeStatistics)
+        {
+            this.footer = requireNonNull(footer, "footer is null");
+            this.stripeStatistics = ImmutableList.copyOf(requireNonNull(stripeStatistics, "stripeStatistics is null"));
+        }
+
+        public Footer getFooter()
+        {
+            return footer;
+        }
+
+        public List<StripeStatistics> getStripeStatistics()
+        {
+            return stripeStatistics;
+        }
+    }
+}
@@ -14,12 +14,9 @@
 
 package com.facebook.presto.hive.statistics;
 
-import com.facebook.airlift.concurrent.BoundedExecutor;
 import com.facebook.airlift.concurrent.ThreadPoolExecutorMBean;
-import com.facebook.airlift.log.Logger;
 import com.facebook.airlift.stats.DistributionStat;
 import com.facebook.airlift.stats.TimeStat;
-import com.facebook.presto.common.RuntimeUnit;
 import com.facebook.presto.hive.FileFormatDataSourceStats;
 import com.facebook.presto.hive.HdfsContext;
 import com.facebook.presto.hive.HdfsEnvironment;
@@ -32,11 +29,11 @@ import com.facebook.presto.hive.metastore.MetastoreContext;
 import com.facebook.presto.hive.metastore.Partition;
 import com.facebook.presto.hive.metastore.StorageFormat;
 import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.hive.statistics.FooterStatsAggregator.Footers;
 import com.facebook.presto.parquet.ParquetDataSource;
 import com.facebook.presto.parquet.cache.ParquetFileMetadata;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.SchemaTableName;
-import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slice;
 import org.apache.hadoop.conf.Configuration;
@@ -60,54 +57,40 @@ import org.weakref.jmx.Nested;
 
 import java.time.LocalDate;
 import java.time.chrono.ChronoLocalDate;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeoutException;
 
-import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.hive.CacheQuota.NO_CACHE_CONSTRAINTS;
 import static com.facebook.presto.hive.HiveCommonSessionProperties.getReadNullMaskedParquetEncryptedValue;
 import static com.facebook.presto.hive.HivePartition.UNPARTITIONED_ID;
 import static com.facebook.presto.hive.parquet.HdfsParquetDataSource.buildHdfsParquetDataSource;
 import static com.facebook.presto.hive.parquet.ParquetPageSourceFactory.PARQUET_SERDE_CLASS_NAMES;
 import static com.facebook.presto.hive.parquet.ParquetPageSourceFactory.createDecryptor;
+import static com.facebook.presto.hive.statistics.FooterStatsAggregator.mergeColumnStats;
 import static com.facebook.presto.parquet.cache.MetadataReader.readFooter;
 import static java.util.Objects.requireNonNull;
-import static java.util.concurrent.CompletableFuture.supplyAsync;
-import static java.util.concurrent.Executors.newCachedThreadPool;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class ParquetQuickStatsBuilder
         implements QuickStatsBuilder
 {
-    public static final Logger log = Logger.get(ParquetQuickStatsBuilder.class);
-    private final Executor footerFetchExecutor;
-    private final ThreadPoolExecutorMBean footerFetchExecutorMBean;
+    private final FooterStatsAggregator footerStatsAggregator;
     private final HdfsEnvironment hdfsEnvironment;
     private final FileFormatDataSourceStats stats;
-    private final long footerFetchTimeoutMillis;
-    private final TimeStat footerFetchDuration = new TimeStat(MILLISECONDS);
-    private final DistributionStat fileCountPerPartition = new DistributionStat();
     private final DistributionStat footerByteSizeDistribution = new DistributionStat();
 
     public ParquetQuickStatsBuilder(FileFormatDataSourceStats stats, HdfsEnvironment hdfsEnvironment, HiveClientConfig hiveClientConfig)
     {
         this.stats = stats;
         this.hdfsEnvironment = hdfsEnvironment;
-        this.footerFetchTimeoutMillis = hiveClientConfig.getParquetQuickStatsFileMetadataFetchTimeout().roundTo(MILLISECONDS);
-        ExecutorService coreExecutor = newCachedThreadPool(daemonThreadsNamed("parquet-quick-stats-bg-fetch-%s"));
-        this.footerFetchExecutor = new BoundedExecutor(coreExecutor, hiveClientConfig.getMaxConcurrentParquetQuickStatsCalls());
-        this.footerFetchExecutorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) coreExecutor);
+        this.footerStatsAggregator = new FooterStatsAggregator(
+                ParquetQuickStatsBuilder.class.getSimpleName(),
+                "parquet-quick-stats-bg-fetch-%s",
+                hiveClientConfig.getMaxConcurrentParquetQuickStatsCalls(),
+                hiveClientConfig.getParquetQuickStatsFileMetadataFetchTimeout());
     }
 
     private static void processColumnMetadata(ParquetMetadata parquetMetadata, Map<ColumnPath, ColumnQuickStats<?>> rolledUpColStats)
@@ -182,71 +165,40 @@ public class ParquetQuickStatsBuilder
 
                 switch (mappedType) {
                     case INTEGER: {
-                        ColumnQuickStats<Integer> toMerge = (ColumnQuickStats<Integer>) rolledUpColStats.getOrDefault(columnKey, new ColumnQuickStats<>(columnName, Integer.class));
                         IntStatistics asIntegerStats = ((IntStatistics) colStats);
-                        toMerge.setMinValue(asIntegerStats.getMin());
-                        toMerge.setMaxValue(asIntegerStats.getMax());
-                        toMerge.addToNullsCount(nullsCount);
-                        toMerge.addToRowCount(rowCount);
-                        rolledUpColStats.put(columnKey, toMerge);
+                        mergeColumnStats(rolledUpColStats, columnKey, columnName, Integer.class, asIntegerStats.getMin(), asIntegerStats.getMax(), nullsCount, rowCount);
                         break;
                     }
                     case LONG: {
-                        ColumnQuickStats<Long> toMerge = (ColumnQuickStats<Long>) rolledUpColStats.getOrDefault(columnKey, new ColumnQuickStats<>(columnName, Long.class));
                         LongStatistics asLongStats = ((LongStatistics) colStats);
-                        toMerge.setMinValue(asLongStats.getMin());
-                        toMerge.setMaxValue(asLongStats.getMax());
-                        toMerge.addToNullsCount(nullsCount);
-                        toMerge.addToRowCount(rowCount);
-                        rolledUpColStats.put(columnKey, toMerge);
+                        mergeColumnStats(rolledUpColStats, columnKey, columnName, Long.class, asLongStats.getMin(), asLongStats.getMax(), nullsCount, rowCount);
                         break;
                     }
 
                     case DOUBLE: {
-                        ColumnQuickStats<Double> toMerge = (ColumnQuickStats<Double>) rolledUpColStats.getOrDefault(columnKey, new ColumnQuickStats<>(columnName, Double.class));
                         DoubleStatistics asDoubleStats = ((DoubleStatistics) colStats);
-                        toMerge.setMinValue(asDoubleStats.getMin());
-                        toMerge.setMaxValue(asDoubleStats.getMax());
-                        toMerge.addToNullsCount(nullsCount);
-                        toMerge.addToRowCount(rowCount);
-                        rolledUpColStats.put(columnKey, toMerge);
+                        mergeColumnStats(rolledUpColStats, columnKey, columnName, Double.class, asDoubleStats.getMin(), asDoubleStats.getMax(), nullsCount, rowCount);
                         break;
                     }
                     case FLOAT: {
-                        ColumnQuickStats<Float> toMerge = (ColumnQuickStats<Float>) rolledUpColStats.getOrDefault(columnKey, new ColumnQuickStats<>(columnName, Float.class));
                         FloatStatistics asFloatStats = ((FloatStatistics) colStats);
-                        toMerge.setMinValue(asFloatStats.getMin());
-                        toMerge.setMaxValue(asFloatStats.getMax());
-                        toMerge.addToNullsCount(nullsCount);
-                        toMerge.addToRowCount(rowCount);
-                        rolledUpColStats.put(columnKey, toMerge);
+                        mergeColumnStats(rolledUpColStats, columnKey, columnName, Float.class, asFloatStats.getMin(), asFloatStats.getMax(), nullsCount, rowCount);
                         break;
                     }
                     case BOOLEAN: {
-                        ColumnQuickStats<Boolean> toMerge = (ColumnQuickStats<Boolean>) rolledUpColStats.getOrDefault(columnKey, new ColumnQuickStats<>(columnName, Boolean.class));
-                        toMerge.addToNullsCount(nullsCount);
-                        toMerge.addToRowCount(rowCount);
                         // TODO : Boolean stats store trueCount and falseCount
-                        rolledUpColStats.put(columnKey, toMerge);
+                        mergeColumnStats(rolledUpColStats, columnKey, columnName, Boolean.class, null, null, nullsCount, rowCount);
                         break;
                     }
                     case DATE: {
-                        ColumnQuickStats<ChronoLocalDate> toMerge = (ColumnQuickStats<ChronoLocalDate>) rolledUpColStats.getOrDefault(columnKey,
-                                new ColumnQuickStats<>(columnName, ChronoLocalDate.class));
                         IntStatistics asIntStats = ((IntStatistics) colStats);
-                        toMerge.setMinValue(LocalDate.ofEpochDay(asIntStats.getMin()));
-                        toMerge.setMaxValue(LocalDate.ofEpochDay(asIntStats.getMax()));
-                        toMerge.addToNullsCount(nullsCount);
-                        toMerge.addToRowCount(rowCount);
-                        rolledUpColStats.put(columnKey, toMerge);
+                        mergeColumnStats(rolledUpColStats, columnKey, columnName, ChronoLocalDate.class,
+                                LocalDate.ofEpochDay(asIntStats.getMin()), LocalDate.ofEpochDay(asIntStats.getMax()), nullsCount, rowCount);
                         break;
                     }
                     default:
                     case SLICE: {
-                        ColumnQuickStats<Slice> toMerge = (ColumnQuickStats<Slice>) rolledUpColStats.getOrDefault(columnKey, new ColumnQuickStats<>(columnName, Slice.class));
-                        toMerge.addToNullsCount(nullsCount);
-                        toMerge.addToRowCount(rowCount);
-                        rolledUpColStats.put(columnKey, toMerge);
+                        mergeColumnStats(rolledUpColStats, columnKey, columnName, Slice.class, null, null, nullsCount, rowCount);
                         break;
                     }
                 }
@@ -258,7 +210,7 @@ public class ParquetQuickStatsBuilder
     @Nested
     public TimeStat getFooterFetchDuration()
     {
-        return footerFetchDuration;
+        return footerStatsAggregator.getFooterFetchDuration();
     }
 
     @Managed
@@ -272,14 +224,14 @@ public class ParquetQuickStatsBuilder
     @Nested
     public DistributionStat getFileCountPerPartitionDistribution()
     {
-        return fileCountPerPartition;
+        return footerStatsAggregator.getFileCountPerPartition();
     }
 
     @Managed
     @Nested
     public ThreadPoolExecutorMBean getExecutor()
     {
-        return footerFetchExecutorMBean;
+        return footerStatsAggregator.getExecutor();
     }
 
     @Override
@@ -318,14 +270,10 @@ public class ParquetQuickStatsBuilder
         // 1. We can control total file IO overhead in a measurable way
         // 2. Planning time remains bounded
         // Future work here is to sample the file list, read their stats only and extrapolate the overall stats (TODO)
-        List<CompletableFuture<ParquetMetadata>> footerFetchCompletableFutures = new ArrayList<>();
-        int filesCount = 0;
-        while (files.hasNext()) {
-            HiveFileInfo file = files.next();
-            filesCount++;
+        HdfsContext hdfsContext = new HdfsContext(session, table.getSchemaName(), table.getTableName());
+        Footers<ParquetMetadata> footers = footerStatsAggregator.readFooters(session, table, partitionId, files, file -> {
             Path path = new Path(file.getPath());
             long fileSize = file.getLength();
-
             HiveFileContext hiveFileContext = new HiveFileContext(
                     true,
                     NO_CACHE_CONSTRAINTS,
@@ -335,56 +283,29 @@ public class ParquetQuickStatsBuilder
                     OptionalLong.empty(),
                     file.getFileModifiedTime(),
                     false);
-
-            HdfsContext hdfsContext = new HdfsContext(session, table.getSchemaName(), table.getTableName());
             Configuration configuration = hdfsEnvironment.getConfiguration(hdfsContext, path);
 
-            footerFetchCompletableFutures.add(supplyAsync(() -> {
-                Stopwatch footerFetchDuration = Stopwatch.createStarted();
-                try (FSDataInputStream inputStream = hdfsEnvironment.getFileSystem(hdfsContext, path).openFile(path, hiveFileContext);
-                        ParquetDataSource parquetDataSource = buildHdfsParquetDataSource(inputStream, path, stats)) {
-                    ParquetFileMetadata parquetFileMetadata = readFooter(parquetDataSource,
-                            fileSize,
-                            createDecryptor(configuration, path),
-                            getReadNullMaskedParquetEncryptedValue(session));
+            try (FSDataInputStream inputStream = hdfsEnvironment.getFileSystem(hdfsContext, path).openFile(path, hiveFileContext);
+                    ParquetDataSource parquetDataSource = buildHdfsParquetDataSource(inputStream, path, stats)) {
+                ParquetFileMetadata parquetFileMetadata = readFooter(parquetDataSource,
+                        fileSize,
+                        createDecryptor(configuration, path),
+                        getReadNullMaskedParquetEncryptedValue(session));
 
-                    footerByteSizeDistribution.add(parquetFileMetadata.getMetadataSize());
-                    return parquetFileMetadata.getParquetMetadata();
-                }
-                catch (Exception e) {
-                    log.error(e);
-                    throw new RuntimeException(e);
-                }
-                finally {
-                    this.footerFetchDuration.add(footerFetchDuration.elapsed(MILLISECONDS), MILLISECONDS);
-                }
-            }, footerFetchExecutor));
-        }
-
-        // Record a metric about how many files were seen
-        session.getRuntimeStats().addMetricValue(String.format("ParquetQuickStatsBuilder/FileCount/%s/%s", table.getTableName(), partitionId), RuntimeUnit.NONE, filesCount);
-        fileCountPerPartition.add(filesCount);
-
-        HashMap<ColumnPath, ColumnQuickStats<?>> rolledUpColStats = new HashMap<>();
-        try {
-            // Wait for footer reads to finish
-            CompletableFuture<Void> overallCompletableFuture = CompletableFuture.allOf(footerFetchCompletableFutures.toArray(new CompletableFuture[0]));
-            overallCompletableFuture.get(footerFetchTimeoutMillis, MILLISECONDS);
-
-            for (CompletableFuture<ParquetMetadata> future : footerFetchCompletableFutures) {
-                ParquetMetadata parquetMetadata = future.get();
-                processColumnMetadata(parquetMetadata, rolledUpColStats);
+                footerByteSizeDistribution.add(parquetFileMetadata.getMetadataSize());
+                return parquetFileMetadata.getParquetMetadata();
             }
-        }
-        catch (InterruptedException | ExecutionException | TimeoutException e) {
-            log.error(e, "Failed to read/build stats from parquet footer");
-            throw new RuntimeException(e);
+        });
+
+        Map<ColumnPath, ColumnQuickStats<?>> rolledUpColStats = new HashMap<>();
+        for (ParquetMetadata parquetMetadata : footers.getFooters()) {
+            processColumnMetadata(parquetMetadata, rolledUpColStats);
         }
 
         if (rolledUpColStats.isEmpty()) {
             return PartitionQuickStats.EMPTY;
         }
-        return new PartitionQuickStats(partitionId, rolledUpColStats.values(), filesCount);
+        return new PartitionQuickStats(partitionId, rolledUpColStats.values(), footers.getFileCount());
     }
 
     enum ColumnType
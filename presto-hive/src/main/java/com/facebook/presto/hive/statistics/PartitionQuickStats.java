@@ -65,15 +65,18 @@ public class PartitionQuickStats
 
             HiveColumnStatistics hiveColumnStatistics;
             if (columnQuickStats.getStatType().equals(Integer.class)) {
-                hiveColumnStatistics = createIntegerColumnStatistics(OptionalLong.of((int) minValue), OptionalLong.of((int) maxValue),
+                hiveColumnStatistics = createIntegerColumnStatistics(minValue == null ? OptionalLong.empty() : OptionalLong.of((int) minValue),
+                        maxValue == null ? OptionalLong.empty() : OptionalLong.of((int) maxValue),
                         OptionalLong.of(nullsCount), OptionalLong.empty());
             }
             else if (columnQuickStats.getStatType().equals(Long.class)) {
-                hiveColumnStatistics = createIntegerColumnStatistics(OptionalLong.of((long) minValue), OptionalLong.of((long) maxValue),
+                hiveColumnStatistics = createIntegerColumnStatistics(minValue == null ? OptionalLong.empty() : OptionalLong.of((long) minValue),
+                        maxValue == null ? OptionalLong.empty() : OptionalLong.of((long) maxValue),
                         OptionalLong.of(nullsCount), OptionalLong.empty());
             }
             else if (columnQuickStats.getStatType().equals(Double.class)) {
-                hiveColumnStatistics = createDoubleColumnStatistics(OptionalDouble.of((double) minValue), OptionalDouble.of((double) maxValue),
+                hiveColumnStatistics = createDoubleColumnStatistics(minValue == null ? OptionalDouble.empty() : OptionalDouble.of((double) minValue),
+                        maxValue == null ? OptionalDouble.empty() : OptionalDouble.of((double) maxValue),
                         OptionalLong.of(nullsCount), OptionalLong.empty());
             }
             else if (columnQuickStats.getStatType().equals(Slice.class)) {
@@ -83,7 +86,7 @@ public class PartitionQuickStats
                 hiveColumnStatistics = createBooleanColumnStatistics(OptionalLong.empty(), OptionalLong.empty(), OptionalLong.of(nullsCount));
             }
             else if (columnQuickStats.getStatType().equals(ChronoLocalDate.class)) {
-                hiveColumnStatistics = createDateColumnStatistics(Optional.of((LocalDate) minValue), Optional.of((LocalDate) maxValue),
+                hiveColumnStatistics = createDateColumnStatistics(Optional.ofNullable((LocalDate) minValue), Optional.ofNullable((LocalDate) maxValue),
                         OptionalLong.of(nullsCount), OptionalLong.empty());
             }
             else {
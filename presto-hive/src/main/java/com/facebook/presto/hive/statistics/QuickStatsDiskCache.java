@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.statistics;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.hive.HiveFileInfo;
+import com.facebook.presto.hive.metastore.PartitionStatistics;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static com.facebook.airlift.json.JsonCodec.jsonCodec;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.hash.Hashing.sha256;
+import static java.lang.Math.min;
+import static java.lang.System.currentTimeMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Objects.requireNonNull;
+import static java.util.UUID.randomUUID;
+
+/**
+ * Persists the quick stats built for partitions in a local directory, so that they survive restarts of the
+ * coordinator. An entry is keyed by the partition and only applies to the listing of files it was built from:
+ * files added, replaced or removed since then change the listing version and make the entry stale.
+ * <p>
+ * The number of entries is bounded: once it is exceeded, the least recently used entries are removed, an entry
+ * being used when it is written or read.
+ */
+public class QuickStatsDiskCache
+{
+    private static final Logger log = Logger.get(QuickStatsDiskCache.class);
+    private static final JsonCodec<CacheEntry> CODEC = jsonCodec(CacheEntry.class);
+
+    private final Path directory;
+    private final int maxEntries;
+    private final AtomicInteger entryCount;
+
+    public QuickStatsDiskCache(String directory, int maxEntries)
+    {
+        checkArgument(maxEntries > 0, "maxEntries must be > 0, found: %s", maxEntries);
+        this.directory = Paths.get(requireNonNull(directory, "directory is null"));
+        this.maxEntries = maxEntries;
+        try {
+            Files.createDirectories(this.directory);
+            this.entryCount = new AtomicInteger(listEntries().size());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to create quick stats cache directory: " + directory, e);
+        }
+    }
+
+    /**
+     * Returns a version identifying the files of a listing by their path, length and modification time.
+     */
+    public static String getListingVersion(List<HiveFileInfo> files)
+    {
+        Hasher hasher = sha256().newHasher();
+        files.stream()
+                .sorted(Comparator.comparing(HiveFileInfo::getPath))
+                .forEach(file -> hasher.putString(file.getPath(), UTF_8)
+                        .putLong(file.getLength())
+                        .putLong(file.getFileModifiedTime()));
+        return hasher.hash().toString();
+    }
+
+    public Optional<PartitionStatistics> get(String partitionKey, String listingVersion)
+    {
+        Path path = getEntryPath(partitionKey);
+        try {
+            CacheEntry entry = CODEC.fromJson(Files.readAllBytes(path));
+            if (!entry.getPartitionKey().equals(partitionKey) || !entry.getListingVersion().equals(listingVersion)) {
+                return Optional.empty();
+            }
+            // the modification time of an entry is the time it was last used, which eviction is based on
+            Files.setLastModifiedTime(path, FileTime.fromMillis(currentTimeMillis()));
+            return Optional.of(entry.getStatistics());
+        }
+        catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        catch (IOException | IllegalArgumentException e) {
+            log.warn(e, "Failed to read quick stats of partition %s from %s", partitionKey, path);
+            return Optional.empty();
+        }
+    }
+
+    public void put(String partitionKey, String listingVersion, PartitionStatistics statistics)
+    {
+        Path path = getEntryPath(partitionKey);
+        // write to a temporary file first, so that concurrent readers never see a partially written entry
+        Path temporaryPath = directory.resolve("." + path.getFileName() + "." + randomUUID());
+        try {
+            Files.write(temporaryPath, CODEC.toJsonBytes(new CacheEntry(partitionKey, listingVersion, statistics)));
+            boolean added = !Files.exists(path);
+            Files.move(temporaryPath, path, ATOMIC_MOVE, REPLACE_EXISTING);
+            if (added && entryCount.incrementAndGet() > maxEntries) {
+                evict();
+            }
+        }
+        catch (IOException | IllegalArgumentException e) {
+            log.warn(e, "Failed to write quick stats of partition %s to %s", partitionKey, path);
+            try {
+                Files.deleteIfExists(temporaryPath);
+            }
+            catch (IOException ignored) {
+            }
+        }
+    }
+
+    @VisibleForTesting
+    int getEntryCount()
+    {
+        return entryCount.get();
+    }
+
+    private synchronized void evict()
+            throws IOException
+    {
+        if (entryCount.get() <= maxEntries) {
+            return;
+        }
+        List<Path> entries = listEntries().stream()
+                .sorted(Comparator.comparing(QuickStatsDiskCache::getLastModifiedMillis))
+                .collect(toImmutableList());
+        // evict a tenth of the entries more than needed, so that the directory is not listed on every write
+        int evictCount = min(entries.size(), entries.size() - maxEntries + maxEntries / 10);
+        for (int i = 0; i < evictCount; i++) {
+            Files.deleteIfExists(entries.get(i));
+        }
+        entryCount.set(entries.size() - evictCount);
+    }
+
+    private List<Path> listEntries()
+            throws IOException
+    {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(".json"))
+                    .collect(toImmutableList());
+        }
+    }
+
+    private static long getLastModifiedMillis(Path path)
+    {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        }
+        catch (IOException e) {
+            // removed concurrently
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private Path getEntryPath(String partitionKey)
+    {
+        return directory.resolve(sha256().hashString(partitionKey, UTF_8) + ".json");
+    }
+
+    public static class CacheEntry
+    {
+        private final String partitionKey;
+        private final String listingVersion;
+        private final PartitionStatistics statistics;
+
+        @JsonCreator
+        public CacheEntry(
+                @JsonProperty("partitionKey") String partitionKey,
+                @JsonProperty("listingVersion") String listingVersion,
+                @JsonProperty("statistics") PartitionStatistics statistics)
+        {
+            this.partitionKey = requireNonNull(partitionKey, "partitionKey is null");
+            this.listingVersion = requireNonNull(listingVersion, "listingVersion is null");
+            this.statistics = requireNonNull(statistics, "statistics is null");
+        }
+
+        @JsonProperty
+        public String getPartitionKey()
+        {
+            return partitionKey;
+        }
+
+        @JsonProperty
+        public String getListingVersion()
+        {
+            return listingVersion;
+        }
+
+        @JsonProperty
+        public PartitionStatistics getStatistics()
+        {
+            return statistics;
+        }
+    }
+}
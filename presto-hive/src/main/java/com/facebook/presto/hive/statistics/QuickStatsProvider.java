@@ -111,6 +111,10 @@ public class QuickStatsProvider
     private final NamenodeStats nameNodeStats;
     private final TimeStat buildDuration = new TimeStat(MILLISECONDS);
     private final ExtendedHiveMetastore metastore;
+    private final Optional<QuickStatsDiskCache> diskCache;
+    private final boolean prewarmWrittenPartitionsEnabled;
+    private final AtomicLong succesfulResolveFromDiskCacheCount = new AtomicLong(0L);
+    private final AtomicLong prewarmCount = new AtomicLong(0L);
 
     public QuickStatsProvider(ExtendedHiveMetastore metastore,
             HdfsEnvironment hdfsEnvironment,
@@ -133,6 +137,9 @@ public class QuickStatsProvider
         ExecutorService coreExecutor = newCachedThreadPool(daemonThreadsNamed("quick-stats-bg-fetch-%s"));
         this.backgroundFetchExecutor = new BoundedExecutor(coreExecutor, hiveClientConfig.getMaxConcurrentQuickStatsCalls());
         this.backgroundFetchExecutorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) coreExecutor);
+        this.diskCache = Optional.ofNullable(hiveClientConfig.getQuickStatsDiskCachePath())
+                .map(path -> new QuickStatsDiskCache(path, hiveClientConfig.getQuickStatsDiskCacheMaxEntries()));
+        this.prewarmWrittenPartitionsEnabled = hiveClientConfig.isQuickStatsPrewarmWrittenPartitionsEnabled();
     }
 
     @Managed
@@ -153,6 +160,18 @@ public class QuickStatsProvider
         return succesfulResolveFromProviderCount.get();
     }
 
+    @Managed
+    public long getSuccesfulResolveFromDiskCacheCount()
+    {
+        return succesfulResolveFromDiskCacheCount.get();
+    }
+
+    @Managed
+    public long getPrewarmCount()
+    {
+        return prewarmCount.get();
+    }
+
     @Managed
     @Nested
     public TimeStat getBuildDuration()
@@ -249,25 +268,8 @@ public class QuickStatsProvider
         }
 
         // If not, atomically initiate a call to build quick stats in a background thread
-        AtomicReference<CompletableFuture<PartitionStatistics>> partitionStatisticsCompletableFuture = new AtomicReference<>();
-        inProgressBuilds.computeIfAbsent(partitionKey, (key) -> {
-            CompletableFuture<PartitionStatistics> fetchFuture = supplyAsync(() -> buildQuickStats(partitionKey, partitionId, session, table, metastoreContext), backgroundFetchExecutor);
-            partitionStatisticsCompletableFuture.set(fetchFuture);
-
-            return new InProgressBuildInfo(fetchFuture, Instant.now());
-        });
-
-        CompletableFuture<PartitionStatistics> future = partitionStatisticsCompletableFuture.get();
+        CompletableFuture<PartitionStatistics> future = startBuild(partitionKey, partitionId, session, table, metastoreContext);
         if (future != null) {
-            // Add a hook to stop tracking the in-progress build for this partition once the future finishes (successfully or exceptionally)
-            future.whenCompleteAsync((r, e) -> inProgressBuilds.remove(partitionKey), inProgressReaperExecutor);
-
-            // Also add a hook to reap this in-progress thread if it doesn't finish in reaperExpiry seconds
-            inProgressReaperExecutor.schedule(() -> {
-                inProgressBuilds.remove(partitionKey);
-                future.cancel(true);
-            }, reaperExpiryMillis, MILLISECONDS);
-
             long inlineBuildTimeoutMillis = getQuickStatsInlineBuildTimeoutMillis(session);
             if (inlineBuildTimeoutMillis > 0) {
                 // A background call to build quick stats was started, and we want to wait for quick stats to be built
@@ -301,6 +303,56 @@ public class QuickStatsProvider
         }
     }
 
+    /**
+     * Starts building quick stats in the background for partitions that were just written, so that the first query
+     * reading them finds their stats cached instead of paying for the build inline.
+     */
+    public void prewarmQuickStats(ConnectorSession session, SchemaTableName table, MetastoreContext metastoreContext, List<String> partitionIds)
+    {
+        if (!prewarmWrittenPartitionsEnabled || !isQuickStatsEnabled(session)) {
+            return;
+        }
+
+        for (String partitionId : partitionIds) {
+            String partitionKey = String.join("/", table.toSchemaTablePrefix().toString(), partitionId);
+            // The files of the partition changed, so any stats cached for it are stale
+            partitionToStatsCache.invalidate(partitionKey);
+            if (startBuild(partitionKey, partitionId, session, table, metastoreContext) != null) {
+                prewarmCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Atomically initiates a call to build quick stats for the partition in a background thread.
+     *
+     * @return the future of the build, or null if a build is already in progress for the partition
+     */
+    private CompletableFuture<PartitionStatistics> startBuild(String partitionKey, String partitionId, ConnectorSession session, SchemaTableName table,
+            MetastoreContext metastoreContext)
+    {
+        AtomicReference<CompletableFuture<PartitionStatistics>> partitionStatisticsCompletableFuture = new AtomicReference<>();
+        inProgressBuilds.computeIfAbsent(partitionKey, (key) -> {
+            CompletableFuture<PartitionStatistics> fetchFuture = supplyAsync(() -> buildQuickStats(partitionKey, partitionId, session, table, metastoreContext), backgroundFetchExecutor);
+            partitionStatisticsCompletableFuture.set(fetchFuture);
+
+            return new InProgressBuildInfo(fetchFuture, Instant.now());
+        });
+
+        CompletableFuture<PartitionStatistics> future = partitionStatisticsCompletableFuture.get();
+        if (future != null) {
+            // Add a hook to stop tracking the in-progress build for this partition once the future finishes (successfully or exceptionally)
+            future.whenCompleteAsync((r, e) -> inProgressBuilds.remove(partitionKey), inProgressReaperExecutor);
+
+            // Also add a hook to reap this in-progress thread if it doesn't finish in reaperExpiry seconds
+            inProgressReaperExecutor.schedule(() -> {
+                inProgressBuilds.remove(partitionKey);
+                future.cancel(true);
+            }, reaperExpiryMillis, MILLISECONDS);
+        }
+        return future;
+    }
+
     private PartitionStatistics waitForInProgressBuild(long waitTimeMs, String partitionKey)
     {
         try {
@@ -390,11 +442,24 @@ public class QuickStatsProvider
             }
         }
 
+        // Materialize the listing, so that every strategy sees all the files and the disk cache can be checked against them
+        List<HiveFileInfo> files = ImmutableList.copyOf(fileList);
+        String listingVersion = null;
+        if (diskCache.isPresent()) {
+            listingVersion = QuickStatsDiskCache.getListingVersion(files);
+            Optional<PartitionStatistics> persistedStatistics = diskCache.get().get(partitionKey, listingVersion);
+            if (persistedStatistics.isPresent()) {
+                succesfulResolveFromDiskCacheCount.incrementAndGet();
+                partitionToStatsCache.put(partitionKey, persistedStatistics.get());
+                return persistedStatistics.get();
+            }
+        }
+
         PartitionQuickStats partitionQuickStats = PartitionQuickStats.EMPTY;
         Stopwatch buildStopwatch = Stopwatch.createStarted();
         // Build quick stats one by one from statsBuilderStrategies. Do this until we get a non-empty PartitionQuickStats
         for (QuickStatsBuilder strategy : statsBuilderStrategies) {
-            partitionQuickStats = strategy.buildQuickStats(session, metastore, table, metastoreContext, partitionId, fileList);
+            partitionQuickStats = strategy.buildQuickStats(session, metastore, table, metastoreContext, partitionId, files.iterator());
 
             if (partitionQuickStats != PartitionQuickStats.EMPTY) {
                 // Strategy successfully resolved stats, don't explore other strategies
@@ -411,6 +476,9 @@ public class QuickStatsProvider
 
         // Update the cache with the computed partition stats
         partitionToStatsCache.put(partitionKey, partitionStatistics);
+        if (diskCache.isPresent() && partitionQuickStats != PartitionQuickStats.EMPTY) {
+            diskCache.get().put(partitionKey, listingVersion, partitionStatistics);
+        }
 
         return partitionStatistics;
     }
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.google.common.collect.AbstractIterator;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Computes the next element of an expensive iterator, such as one loading batches of partitions
+ * from the metastore, on an executor while the current element is consumed. An element that the
+ * executor has not started by the time it is needed is computed by the consumer, so the iterator
+ * never waits for a thread of a saturated executor.
+ * <p>
+ * Like the iterator it wraps, this iterator must not be used by several threads at the same time,
+ * except for {@link #close()}, which cancels the element being prefetched and ends the iteration.
+ */
+public class PrefetchingIterator<T>
+        extends AbstractIterator<T>
+        implements Closeable
+{
+    private final Iterator<T> delegate;
+    private final Executor executor;
+
+    private volatile FutureTask<T> next;
+    private volatile boolean closed;
+
+    public PrefetchingIterator(Iterator<T> delegate, Executor executor)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        prefetch();
+    }
+
+    @Override
+    protected T computeNext()
+    {
+        FutureTask<T> current = next;
+        if (closed || current == null) {
+            return endOfData();
+        }
+        // does nothing if the executor already started the task
+        current.run();
+        T element;
+        try {
+            element = getResult(current);
+        }
+        catch (CancellationException e) {
+            if (closed) {
+                return endOfData();
+            }
+            throw e;
+        }
+        // the delegate is not accessed concurrently, since the task using it is done
+        prefetch();
+        return element;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        FutureTask<T> task = next;
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    private void prefetch()
+    {
+        if (closed || !delegate.hasNext()) {
+            next = null;
+            return;
+        }
+        FutureTask<T> task = new FutureTask<>(delegate::next);
+        // published before closed is checked again, so that a concurrent close cancels either this task or the previous one
+        next = task;
+        try {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e) {
+            // the task is run by the consumer
+        }
+        if (closed) {
+            task.cancel(true);
+        }
+    }
+
+    private static <T> T getResult(FutureTask<T> task)
+    {
+        try {
+            return task.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e) {
+            throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+}
@@ -16,6 +16,7 @@ package com.facebook.presto.hive;
 import com.facebook.airlift.stats.CounterStat;
 import com.facebook.airlift.units.DataSize;
 import com.facebook.airlift.units.Duration;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType;
 import com.facebook.presto.hive.HiveBucketing.HiveBucketFilter;
@@ -64,6 +65,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
@@ -75,6 +77,7 @@ import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.hive.BucketFunctionType.HIVE_COMPATIBLE;
 import static com.facebook.presto.hive.CacheQuotaScope.GLOBAL;
 import static com.facebook.presto.hive.HiveColumnHandle.PATH_COLUMN_INDEX;
+import static com.facebook.presto.hive.HiveFileInfo.createHiveFileInfo;
 import static com.facebook.presto.hive.HiveSessionProperties.getMaxInitialSplitSize;
 import static com.facebook.presto.hive.HiveStorageFormat.ORC;
 import static com.facebook.presto.hive.HiveTestUtils.SESSION;
@@ -82,6 +85,7 @@ import static com.facebook.presto.hive.HiveTestUtils.getAllSessionProperties;
 import static com.facebook.presto.hive.HiveType.HIVE_INT;
 import static com.facebook.presto.hive.HiveType.HIVE_STRING;
 import static com.facebook.presto.hive.HiveUtil.getRegularColumnHandles;
+import static com.facebook.presto.hive.NestedDirectoryPolicy.RECURSE;
 import static com.facebook.presto.hive.StoragePartitionLoader.BucketSplitInfo.createBucketSplitInfo;
 import static com.facebook.presto.hive.metastore.PrestoTableType.MANAGED_TABLE;
 import static com.facebook.presto.hive.metastore.StorageFormat.fromHiveStorageFormat;
@@ -91,6 +95,7 @@ import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.slice.Slices.utf8Slice;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 import static org.testng.FileAssert.fail;
@@ -315,6 +320,70 @@ public class TestBackgroundHiveSplitLoader
                         "*,test_dbname.test_table"));
     }
 
+    @Test
+    public void testCachingDirectoryListerSharesConcurrentListings()
+            throws Exception
+    {
+        AtomicInteger listings = new AtomicInteger();
+        CountDownLatch listingReleased = new CountDownLatch(1);
+        List<HiveFileInfo> files = ImmutableList.of(
+                createHiveFileInfo(locatedFileStatus(RETURNED_PATH, 0L), Optional.empty()),
+                createHiveFileInfo(locatedFileStatus(FILTERED_PATH, 0L), Optional.empty()));
+        // the listing streams the first file, and blocks before the second one until it is released
+        DirectoryLister delegate = (fileSystem, table, path, partition, namenodeStats, hiveDirectoryContext) -> {
+            listings.incrementAndGet();
+            return new AbstractIterator<HiveFileInfo>()
+            {
+                private int position;
+
+                @Override
+                protected HiveFileInfo computeNext()
+                {
+                    if (position == 1) {
+                        try {
+                            listingReleased.await();
+                        }
+                        catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RuntimeException(e);
+                        }
+                    }
+                    return position < files.size() ? files.get(position++) : endOfData();
+                }
+            };
+        };
+        CachingDirectoryLister cachingDirectoryLister = new CachingDirectoryLister(
+                delegate,
+                new Duration(5, TimeUnit.MINUTES),
+                new DataSize(100, KILOBYTE),
+                ImmutableList.of("*"));
+        Path path = new Path(SAMPLE_PATH);
+
+        Iterator<HiveFileInfo> first = listDirectory(cachingDirectoryLister, path);
+        assertEquals(first.next(), files.get(0));
+
+        Future<List<HiveFileInfo>> second = EXECUTOR.submit(() -> ImmutableList.copyOf(listDirectory(cachingDirectoryLister, path)));
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+
+        listingReleased.countDown();
+        assertEquals(ImmutableList.copyOf(first), ImmutableList.of(files.get(1)));
+        assertEquals(second.get(10, TimeUnit.SECONDS), files);
+        assertEquals(listings.get(), 1);
+        assertTrue(cachingDirectoryLister.isPathCached(path));
+    }
+
+    private static Iterator<HiveFileInfo> listDirectory(CachingDirectoryLister cachingDirectoryLister, Path path)
+    {
+        return cachingDirectoryLister.list(
+                null,
+                SIMPLE_TABLE,
+                path,
+                Optional.empty(),
+                new NamenodeStats(),
+                new HiveDirectoryContext(RECURSE, true, false, SESSION.getIdentity(), ImmutableMap.of(), new RuntimeStats()));
+    }
+
     @Test
     public void testSplittableNotCheckedOnSmallFiles()
             throws Exception
@@ -529,6 +598,7 @@ public class TestBackgroundHiveSplitLoader
                 table,
                 hivePartitionMetadatas,
                 constraints,
+                ImmutableMap.of(),
                 createBucketSplitInfo(bucketHandle, hiveBucketFilter),
                 connectorSession,
                 new TestingHdfsEnvironment(files),
@@ -564,6 +634,7 @@ public class TestBackgroundHiveSplitLoader
                 SIMPLE_TABLE,
                 samplePartitionMetadatas(),
                 ImmutableMap.of(),
+                ImmutableMap.of(),
                 createBucketSplitInfo(Optional.empty(), Optional.empty()),
                 connectorSession,
                 new TestingHdfsEnvironment(files),
@@ -586,6 +657,7 @@ public class TestBackgroundHiveSplitLoader
                 SIMPLE_TABLE,
                 createPartitionMetadataWithOfflinePartitions(),
                 ImmutableMap.of(),
+                ImmutableMap.of(),
                 createBucketSplitInfo(Optional.empty(), Optional.empty()),
                 connectorSession,
                 new TestingHdfsEnvironment(TEST_FILES),
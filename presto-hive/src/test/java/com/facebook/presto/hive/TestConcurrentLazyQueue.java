@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class TestConcurrentLazyQueue
+{
+    private static final List<Integer> ELEMENTS = ImmutableList.of(1, 2, 3, 4, 5, 6, 7, 8);
+
+    @Test
+    public void testInOrder()
+    {
+        assertEquals(drain(new ConcurrentLazyQueue<>(ELEMENTS)), ELEMENTS);
+        assertEquals(drain(new ConcurrentLazyQueue<>(ELEMENTS, 3, element -> false)), ELEMENTS);
+    }
+
+    @Test
+    public void testPreferredFirstWithinWindow()
+    {
+        Set<Integer> preferred = ImmutableSet.of(3, 4, 8);
+
+        // 3 is in the first window of 3 elements, 4 enters it once 3 is polled, and 8 once 5 is polled
+        assertEquals(drain(new ConcurrentLazyQueue<>(ELEMENTS, 3, preferred::contains)), ImmutableList.of(3, 4, 1, 2, 5, 8, 6, 7));
+
+        // a window of a single element keeps the order of the iterable
+        assertEquals(drain(new ConcurrentLazyQueue<>(ELEMENTS, 1, preferred::contains)), ELEMENTS);
+
+        // a window covering all the elements polls all the preferred ones first
+        assertEquals(drain(new ConcurrentLazyQueue<>(ELEMENTS, ELEMENTS.size(), preferred::contains)), ImmutableList.of(3, 4, 8, 1, 2, 5, 6, 7));
+    }
+
+    @Test
+    public void testPreferenceEvaluatedWhenPolled()
+    {
+        Set<Integer> preferred = new HashSet<>();
+        ConcurrentLazyQueue<Integer> queue = new ConcurrentLazyQueue<>(ELEMENTS, 3, preferred::contains);
+        assertEquals(queue.poll(), (Integer) 1);
+
+        // an element of the window becoming preferred, such as a partition whose listing got cached, is polled next
+        preferred.add(4);
+        assertEquals(queue.poll(), (Integer) 4);
+        assertEquals(queue.poll(), (Integer) 2);
+    }
+
+    @Test
+    public void testInvalidWindowSize()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLazyQueue<>(ELEMENTS, 0, element -> false));
+    }
+
+    private static List<Integer> drain(ConcurrentLazyQueue<Integer> queue)
+    {
+        List<Integer> elements = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            elements.add(queue.poll());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+        return elements;
+    }
+}
@@ -16,10 +16,18 @@ package com.facebook.presto.hive;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.ValueSet;
 import com.facebook.presto.common.type.StandardTypes;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.hive.HiveBucketing.HiveBucketFilter;
+import com.facebook.presto.hive.metastore.Column;
+import com.facebook.presto.spi.ColumnHandle;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import io.airlift.slice.Slices;
 import org.apache.hadoop.hive.common.type.HiveVarchar;
@@ -44,9 +52,22 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
+import static com.facebook.presto.common.predicate.Range.equal;
+import static com.facebook.presto.common.predicate.Range.greaterThan;
+import static com.facebook.presto.common.predicate.Range.range;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.TypeUtils.writeNativeValue;
+import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.BucketFunctionType.HIVE_COMPATIBLE;
+import static com.facebook.presto.hive.HiveBucketing.getHiveBucketFilter;
+import static com.facebook.presto.hive.HiveColumnHandle.bucketColumnHandle;
 import static com.facebook.presto.hive.HiveTestUtils.FUNCTION_AND_TYPE_MANAGER;
+import static com.facebook.presto.hive.HiveType.HIVE_INT;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.lang.Math.toIntExact;
 import static java.util.Arrays.asList;
@@ -55,6 +76,8 @@ import static org.testng.Assert.assertEquals;
 
 public class TestHiveBucketing
 {
+    private static final HiveColumnHandle BUCKET_KEY = new HiveColumnHandle("id", HIVE_INT, INTEGER.getTypeSignature(), 0, REGULAR, Optional.empty(), Optional.empty());
+
     @Test
     public void testHashingCompare()
             throws Exception
@@ -140,6 +163,71 @@ public class TestHiveBucketing
         assertBucketEquals("timestamp", new Timestamp(250 + 1000 * LocalDateTime.of(2015, 11, 19, 7, 6, 5, 432_000_000).toEpochSecond(ZoneOffset.UTC)));
     }
 
+    @Test
+    public void testBucketFilter()
+    {
+        // IN lists and disjunctions
+        assertBucketFilter(Domain.multipleValues(INTEGER, ImmutableList.of(1L, 9L, 3L)), ImmutableSet.of(1, 3));
+        // ranges over integer columns
+        assertBucketFilter(Domain.create(ValueSet.ofRanges(range(INTEGER, 1L, true, 3L, true)), false), ImmutableSet.of(1, 2, 3));
+        assertBucketFilter(Domain.create(ValueSet.ofRanges(range(INTEGER, 1L, false, 4L, false), equal(INTEGER, 14L)), false), ImmutableSet.of(2, 3, 6));
+        assertBucketFilter(Domain.create(ValueSet.ofRanges(range(INTEGER, 0L, true, 100L, true)), false), ImmutableSet.of(0, 1, 2, 3, 4, 5, 6, 7));
+        // ranges that are unbounded or too wide are not pruned
+        assertEquals(getBucketFilter(TupleDomain.withColumnDomains(ImmutableMap.of(BUCKET_KEY, Domain.create(ValueSet.ofRanges(greaterThan(INTEGER, 5L)), false)))), Optional.empty());
+        assertEquals(getBucketFilter(TupleDomain.withColumnDomains(ImmutableMap.of(BUCKET_KEY, Domain.create(ValueSet.ofRanges(range(INTEGER, 0L, true, 1_000_000L, true)), false)))), Optional.empty());
+
+        // ranges at the ends of the bigint domain neither overflow nor wrap around
+        assertBigintBucketFilter(range(BIGINT, Long.MAX_VALUE - 7, true, Long.MAX_VALUE, true), Long.MAX_VALUE - 7, Long.MAX_VALUE);
+        assertBigintBucketFilter(range(BIGINT, Long.MIN_VALUE, true, Long.MIN_VALUE + 3, false), Long.MIN_VALUE, Long.MIN_VALUE + 2);
+        assertBigintBucketFilter(range(BIGINT, Long.MAX_VALUE - 1, false, Long.MAX_VALUE, true), Long.MAX_VALUE, Long.MAX_VALUE);
+        assertEquals(getBigintBucketFilter(range(BIGINT, Long.MIN_VALUE, true, Long.MAX_VALUE, true)), Optional.empty());
+        assertEquals(getBigintBucketFilter(range(BIGINT, -5_000_000_000_000_000_000L, true, 5_000_000_000_000_000_000L, true)), Optional.empty());
+        assertEquals(getBigintBucketFilter(range(BIGINT, Long.MIN_VALUE, true, -2L, true)), Optional.empty());
+
+        // the buckets selected by the bucket column and by $bucket are intersected
+        assertEquals(
+                getBucketFilter(TupleDomain.withColumnDomains(ImmutableMap.of(
+                        BUCKET_KEY, Domain.create(ValueSet.ofRanges(range(INTEGER, 1L, true, 3L, true)), false),
+                        bucketColumnHandle(), Domain.multipleValues(INTEGER, ImmutableList.of(3L, 4L))))),
+                Optional.of(new HiveBucketFilter(ImmutableSet.of(3))));
+    }
+
+    private static void assertBigintBucketFilter(Range range, long firstValue, long lastValue)
+    {
+        ImmutableSet.Builder<Integer> expectedBuckets = ImmutableSet.builder();
+        for (long value = firstValue; ; value++) {
+            expectedBuckets.add(HiveBucketing.getHiveBucket(8, ImmutableList.of(HIVE_LONG.getTypeInfo()), new Object[] {value}, false));
+            if (value == lastValue) {
+                break;
+            }
+        }
+        assertEquals(getBigintBucketFilter(range), Optional.of(new HiveBucketFilter(expectedBuckets.build())));
+    }
+
+    private static Optional<HiveBucketFilter> getBigintBucketFilter(Range range)
+    {
+        HiveColumnHandle bucketKey = new HiveColumnHandle("id", HIVE_LONG, BIGINT.getTypeSignature(), 0, REGULAR, Optional.empty(), Optional.empty());
+        return getHiveBucketFilter(
+                Optional.of(new HiveBucketProperty(ImmutableList.of("id"), 8, ImmutableList.of(), HIVE_COMPATIBLE, Optional.empty())),
+                ImmutableList.of(new Column("id", HIVE_LONG, Optional.empty(), Optional.empty())),
+                TupleDomain.withColumnDomains(ImmutableMap.of(bucketKey, Domain.create(ValueSet.ofRanges(range), false))),
+                false);
+    }
+
+    private static void assertBucketFilter(Domain domain, Set<Integer> expectedBuckets)
+    {
+        assertEquals(getBucketFilter(TupleDomain.withColumnDomains(ImmutableMap.of(BUCKET_KEY, domain))), Optional.of(new HiveBucketFilter(expectedBuckets)));
+    }
+
+    private static Optional<HiveBucketFilter> getBucketFilter(TupleDomain<ColumnHandle> predicate)
+    {
+        return getHiveBucketFilter(
+                Optional.of(new HiveBucketProperty(ImmutableList.of("id"), 8, ImmutableList.of(), HIVE_COMPATIBLE, Optional.empty())),
+                ImmutableList.of(new Column("id", HIVE_INT, Optional.empty(), Optional.empty())),
+                predicate,
+                false);
+    }
+
     private static void assertBucketEquals(String hiveTypeStrings, Object hiveValues)
             throws HiveException
     {
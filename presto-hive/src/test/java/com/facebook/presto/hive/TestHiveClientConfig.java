@@ -82,6 +82,9 @@ public class TestHiveClientConfig
                 .setSortedWritingEnabled(true)
                 .setMaxPartitionsPerWriter(100)
                 .setWriteValidationThreads(16)
+                .setAsyncWriterEnabled(false)
+                .setAsyncWriterThreads(32)
+                .setAsyncWriterMaxBufferedSize(new DataSize(64, Unit.MEGABYTE))
                 .setTextMaxLineLength(new DataSize(100, Unit.MEGABYTE))
                 .setAssumeCanonicalPartitionKeys(false)
                 .setOrcDefaultBloomFilterFpp(0.05)
@@ -162,8 +165,14 @@ public class TestHiveClientConfig
                 .setParquetQuickStatsFileMetadataFetchTimeout(new Duration(60, TimeUnit.SECONDS))
                 .setMaxConcurrentQuickStatsCalls(100)
                 .setMaxConcurrentParquetQuickStatsCalls(500)
+                .setOrcQuickStatsFileMetadataFetchTimeout(new Duration(60, TimeUnit.SECONDS))
+                .setMaxConcurrentOrcQuickStatsCalls(500)
+                .setQuickStatsDiskCachePath(null)
+                .setQuickStatsDiskCacheMaxEntries(100_000)
+                .setQuickStatsPrewarmWrittenPartitionsEnabled(false)
                 .setCteVirtualBucketCount(128)
                 .setSkipEmptyFilesEnabled(false)
+                .setFileIndexEnabled(false)
                 .setOptimizeParsingOfPartitionValues(false)
                 .setOptimizeParsingOfPartitionValuesThreshold(500)
                 .setLegacyTimestampBucketing(false)
@@ -206,6 +215,9 @@ public class TestHiveClientConfig
                 .put("hive.fail-fast-on-insert-into-immutable-partitions-enabled", "false")
                 .put("hive.max-partitions-per-writers", "222")
                 .put("hive.write-validation-threads", "11")
+                .put("hive.async-writer.enabled", "true")
+                .put("hive.async-writer.threads", "7")
+                .put("hive.async-writer.max-buffered-size", "128MB")
                 .put("hive.max-concurrent-file-renames", "100")
                 .put("hive.max-concurrent-zero-row-file-creations", "100")
                 .put("hive.assume-canonical-partition-keys", "true")
@@ -289,8 +301,14 @@ public class TestHiveClientConfig
                 .put("hive.quick-stats.parquet.file-metadata-fetch-timeout", "30s")
                 .put("hive.quick-stats.parquet.max-concurrent-calls", "399")
                 .put("hive.quick-stats.max-concurrent-calls", "101")
+                .put("hive.quick-stats.orc.file-metadata-fetch-timeout", "31s")
+                .put("hive.quick-stats.orc.max-concurrent-calls", "398")
+                .put("hive.quick-stats.disk-cache-path", "/tmp/quick-stats")
+                .put("hive.quick-stats.disk-cache-max-entries", "1000")
+                .put("hive.quick-stats.prewarm-written-partitions-enabled", "true")
                 .put("hive.cte-virtual-bucket-count", "256")
                 .put("hive.skip-empty-files", "true")
+                .put("hive.file-index-enabled", "true")
                 .put("hive.optimize-parsing-of-partition-values-enabled", "true")
                 .put("hive.optimize-parsing-of-partition-values-threshold", "100")
                 .put("hive.legacy-timestamp-bucketing", "true")
@@ -329,6 +347,9 @@ public class TestHiveClientConfig
                 .setFailFastOnInsertIntoImmutablePartitionsEnabled(false)
                 .setMaxPartitionsPerWriter(222)
                 .setWriteValidationThreads(11)
+                .setAsyncWriterEnabled(true)
+                .setAsyncWriterThreads(7)
+                .setAsyncWriterMaxBufferedSize(new DataSize(128, Unit.MEGABYTE))
                 .setDomainSocketPath("/foo")
                 .setS3FileSystemType(S3FileSystemType.EMRFS)
                 .setTextMaxLineLength(new DataSize(13, Unit.MEGABYTE))
@@ -412,7 +433,13 @@ public class TestHiveClientConfig
                 .setParquetQuickStatsFileMetadataFetchTimeout(new Duration(30, TimeUnit.SECONDS))
                 .setMaxConcurrentParquetQuickStatsCalls(399)
                 .setMaxConcurrentQuickStatsCalls(101)
+                .setOrcQuickStatsFileMetadataFetchTimeout(new Duration(31, TimeUnit.SECONDS))
+                .setMaxConcurrentOrcQuickStatsCalls(398)
+                .setQuickStatsDiskCachePath("/tmp/quick-stats")
+                .setQuickStatsDiskCacheMaxEntries(1000)
+                .setQuickStatsPrewarmWrittenPartitionsEnabled(true)
                 .setSkipEmptyFilesEnabled(true)
+                .setFileIndexEnabled(true)
                 .setCteVirtualBucketCount(256)
                 .setOptimizeParsingOfPartitionValues(true)
                 .setOptimizeParsingOfPartitionValuesThreshold(100)
@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.hive.HiveFileIndex.FileEntry;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.statistics.IntegerStatistics;
+import com.facebook.presto.orc.metadata.statistics.StringStatistics;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.common.predicate.Domain.multipleValues;
+import static com.facebook.presto.common.predicate.Domain.singleValue;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveFileIndex.readFileIndex;
+import static com.facebook.presto.hive.HiveFileIndex.writeFileIndex;
+import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.orc.metadata.statistics.ColumnStatistics.createColumnStatistics;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.Collections.nCopies;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestHiveFileIndex
+{
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("id", "name");
+    private static final List<Type> COLUMN_TYPES = ImmutableList.of(BIGINT, VARCHAR);
+    private static final HiveColumnHandle ID_COLUMN = new HiveColumnHandle("id", HIVE_LONG, BIGINT.getTypeSignature(), 0, REGULAR, Optional.empty(), Optional.empty());
+    private static final HiveColumnHandle NAME_COLUMN = new HiveColumnHandle("name", HIVE_STRING, VARCHAR.getTypeSignature(), 1, REGULAR, Optional.empty(), Optional.empty());
+    private static final long FILE_SIZE = 1234;
+
+    @Test
+    public void testMayMatch()
+    {
+        HiveFileIndex fileIndex = new HiveFileIndex(ImmutableMap.of("file", buildFileEntry()));
+
+        assertTrue(fileIndex.mayMatch("file", FILE_SIZE, ImmutableMap.of(ID_COLUMN, singleValue(BIGINT, 15L))));
+        assertFalse(fileIndex.mayMatch("file", FILE_SIZE, ImmutableMap.of(ID_COLUMN, singleValue(BIGINT, 42L))));
+        assertTrue(fileIndex.mayMatch("file", FILE_SIZE, ImmutableMap.of(NAME_COLUMN, singleValue(VARCHAR, utf8Slice("bob")))));
+        // within the bounds of the column, but not in its bloom filter
+        assertFalse(fileIndex.mayMatch("file", FILE_SIZE, ImmutableMap.of(NAME_COLUMN, singleValue(VARCHAR, utf8Slice("bill")))));
+        assertTrue(fileIndex.mayMatch("file", FILE_SIZE, ImmutableMap.of(NAME_COLUMN, multipleValues(VARCHAR, ImmutableList.of(utf8Slice("bill"), utf8Slice("carol"))))));
+        assertFalse(fileIndex.mayMatch("file", FILE_SIZE, ImmutableMap.of(ID_COLUMN, singleValue(BIGINT, 15L), NAME_COLUMN, singleValue(VARCHAR, utf8Slice("zoe")))));
+        assertFalse(fileIndex.mayMatch("file", FILE_SIZE, ImmutableMap.of(ID_COLUMN, Domain.onlyNull(BIGINT))));
+
+        // files without a matching entry are never skipped
+        assertTrue(fileIndex.mayMatch("other_file", FILE_SIZE, ImmutableMap.of(ID_COLUMN, singleValue(BIGINT, 42L))));
+        assertTrue(fileIndex.mayMatch("file", FILE_SIZE + 1, ImmutableMap.of(ID_COLUMN, singleValue(BIGINT, 42L))));
+
+        // a column that moved or whose type changed is not used
+        HiveColumnHandle movedColumn = new HiveColumnHandle("id", HIVE_LONG, BIGINT.getTypeSignature(), 1, REGULAR, Optional.empty(), Optional.empty());
+        assertTrue(fileIndex.mayMatch("file", FILE_SIZE, ImmutableMap.of(movedColumn, singleValue(BIGINT, 42L))));
+        assertTrue(fileIndex.mayMatch("file", FILE_SIZE, ImmutableMap.of(ID_COLUMN, singleValue(VARCHAR, utf8Slice("42")))));
+    }
+
+    @Test
+    public void testSaturatedBloomFilter()
+    {
+        HiveFileIndexBuilder builder = new HiveFileIndexBuilder(COLUMN_NAMES, COLUMN_TYPES, ImmutableSet.of("id"), 0.05);
+        long rowCount = HiveFileIndexBuilder.BLOOM_FILTER_EXPECTED_ENTRIES + 1;
+        List<Long> values = LongStream.range(0, rowCount).boxed().collect(toImmutableList());
+        builder.addPage(new Page(createLongsBlock(values), createStringsBlock(nCopies((int) rowCount, "name"))));
+        FileEntry entry = builder.build(FILE_SIZE, rowCount, createOrcTypes(), ImmutableList.of(
+                createColumnStatistics(rowCount, null, null, null, null, null, null, null, null, null, null, null),
+                createColumnStatistics(rowCount, null, null, null, new IntegerStatistics(0L, rowCount - 1, null), null, null, null, null, null, null, null),
+                createColumnStatistics(rowCount, null, null, null, null, null, new StringStatistics(utf8Slice("name"), utf8Slice("name"), 0), null, null, null, null, null)));
+        assertFalse(entry.getColumns().get("id").getBloomFilterBits().isPresent());
+        assertEquals(entry.getColumns().get("id").getMaxLong().getAsLong(), rowCount - 1);
+    }
+
+    @Test
+    public void testReadWrite()
+            throws IOException
+    {
+        File tempDir = createTempDir();
+        try {
+            Path directory = new Path(tempDir.toURI());
+            FileSystem fileSystem = HDFS_ENVIRONMENT.getFileSystem("user", directory, new Configuration(false));
+            assertEquals(readFileIndex(fileSystem, directory), Optional.empty());
+
+            HiveFileIndex fileIndex = new HiveFileIndex(ImmutableMap.of("file", buildFileEntry()));
+            writeFileIndex(fileSystem, directory, fileIndex);
+            assertEquals(readFileIndex(fileSystem, directory), Optional.of(fileIndex));
+
+            // an append adds its files to the index
+            HiveFileIndex appended = readFileIndex(fileSystem, directory).get().merge(new HiveFileIndex(ImmutableMap.of("other_file", buildFileEntry())));
+            writeFileIndex(fileSystem, directory, appended);
+            assertEquals(readFileIndex(fileSystem, directory).get().getFiles().keySet(), ImmutableSet.of("file", "other_file"));
+        }
+        finally {
+            deleteRecursively(tempDir.toPath(), ALLOW_INSECURE);
+        }
+    }
+
+    private static FileEntry buildFileEntry()
+    {
+        HiveFileIndexBuilder builder = new HiveFileIndexBuilder(COLUMN_NAMES, COLUMN_TYPES, ImmutableSet.of("name"), 0.01);
+        builder.addPage(new Page(createLongsBlock(10L, 20L, 15L), createStringsBlock("alice", "carol", "bob")));
+        return builder.build(FILE_SIZE, 3, createOrcTypes(), ImmutableList.of(
+                createColumnStatistics(3L, null, null, null, null, null, null, null, null, null, null, null),
+                createColumnStatistics(3L, null, null, null, new IntegerStatistics(10L, 20L, 45L), null, null, null, null, null, null, null),
+                createColumnStatistics(3L, null, null, null, null, null, new StringStatistics(utf8Slice("alice"), utf8Slice("carol"), 13), null, null, null, null, null)));
+    }
+
+    private static List<OrcType> createOrcTypes()
+    {
+        return OrcType.createOrcRowType(0, COLUMN_NAMES, COLUMN_TYPES);
+    }
+}
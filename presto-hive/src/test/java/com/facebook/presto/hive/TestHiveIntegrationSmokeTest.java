@@ -2488,6 +2488,43 @@ public class TestHiveIntegrationSmokeTest
         }
     }
 
+    @Test
+    public void testWriteZOrderTable()
+    {
+        try {
+            assertUpdate(
+                    "CREATE TABLE create_zorder_table (orderkey, custkey, totalprice, orderstatus)\n" +
+                            "WITH (partitioned_by = ARRAY['orderstatus'], zorder_by = ARRAY['custkey', 'totalprice']) AS\n" +
+                            "SELECT orderkey, custkey, totalprice, orderstatus FROM tpch.tiny.orders",
+                    (long) computeActual("SELECT count(*) FROM tpch.tiny.orders").getOnlyValue());
+            assertQuery(
+                    "SELECT orderkey, custkey, totalprice, orderstatus FROM create_zorder_table",
+                    "SELECT orderkey, custkey, totalprice, orderstatus FROM orders");
+            assertTrue(((String) computeActual("SHOW CREATE TABLE create_zorder_table").getOnlyValue()).contains("zorder_by = ARRAY['custkey','totalprice']"));
+
+            assertUpdate(
+                    "INSERT INTO create_zorder_table\n" +
+                            "SELECT orderkey, custkey, totalprice, orderstatus FROM tpch.tiny.orders",
+                    (long) computeActual("SELECT count(*) FROM tpch.tiny.orders").getOnlyValue());
+            assertQuery(
+                    "SELECT count(*) FROM create_zorder_table",
+                    "SELECT 2 * count(*) FROM orders");
+
+            // invalid
+            assertQueryFails(
+                    "CREATE TABLE invalid_zorder_table (LIKE create_zorder_table) " +
+                            "WITH (zorder_by = ARRAY['orderstatus'], partitioned_by = ARRAY['orderstatus'])",
+                    ".*Z-order column orderstatus is not a data column of the table.*");
+            assertQueryFails(
+                    "CREATE TABLE invalid_zorder_table (LIKE create_zorder_table) " +
+                            "WITH (zorder_by = ARRAY['custkey'], preferred_ordering_columns = ARRAY['orderkey'])",
+                    ".*zorder_by must not be specified when preferred_ordering_columns is specified.*");
+        }
+        finally {
+            assertUpdate("DROP TABLE IF EXISTS create_zorder_table");
+        }
+    }
+
     @Test
     public void testScaleWriters()
     {
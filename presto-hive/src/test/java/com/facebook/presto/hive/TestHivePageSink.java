@@ -19,8 +19,11 @@ import com.facebook.presto.common.Page;
 import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.LazyBlock;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.hive.PartitionUpdate.FileWriteInfo;
+import com.facebook.presto.hive.PartitionUpdate.UpdateMode;
 import com.facebook.presto.hive.metastore.Column;
 import com.facebook.presto.hive.metastore.ExtendedHiveMetastore;
 import com.facebook.presto.hive.metastore.HivePageSinkMetadata;
@@ -42,6 +45,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.slice.Slices;
 import io.airlift.tpch.LineItem;
 import io.airlift.tpch.LineItemColumn;
@@ -57,10 +61,16 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.airlift.testing.Assertions.assertGreaterThan;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.DateType.DATE;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
@@ -99,8 +109,12 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.io.MoreFiles.deleteRecursively;
 import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static java.lang.String.format;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 
 public class TestHivePageSink
@@ -140,6 +154,140 @@ public class TestHivePageSink
         }
     }
 
+    @Test
+    public void testAsyncWriter()
+            throws Exception
+    {
+        HiveClientConfig config = new HiveClientConfig()
+                .setAsyncWriterEnabled(true)
+                .setCompressionCodec(NONE);
+        SortingFileWriterConfig sortingFileWriterConfig = new SortingFileWriterConfig();
+        MetastoreClientConfig metastoreClientConfig = new MetastoreClientConfig();
+        File tempDir = Files.createTempDir();
+        try {
+            ExtendedHiveMetastore metastore = createTestingFileHiveMetastore(new File(tempDir, "metastore"));
+            for (HiveStorageFormat format : getSupportedHiveStorageFormats()) {
+                config.setHiveStorageFormat(format);
+                assertGreaterThan(writeTestFile(config, metastoreClientConfig, metastore, makeFileName(tempDir, config), sortingFileWriterConfig), 0L);
+            }
+        }
+        finally {
+            deleteRecursively(tempDir.toPath(), ALLOW_INSECURE);
+        }
+    }
+
+    @Test(timeOut = 10_000)
+    public void testAsyncWriterBackpressure()
+            throws Exception
+    {
+        ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-async-writer-%s"));
+        try {
+            TestingFileWriter fileWriter = new TestingFileWriter(Optional.empty());
+            HiveWriter writer = createTestingWriter(fileWriter);
+            HiveAsyncWriteQueue queue = createAsyncWriteQueue(executor);
+            Page page = new Page(createLongSequenceBlock(0, 100));
+
+            // the page exceeds the buffer until it is written
+            queue.append(writer, page);
+            ListenableFuture<?> blocked = queue.isBlocked();
+            fileWriter.getAppendStarted().await();
+            assertFalse(blocked.isDone());
+
+            fileWriter.releaseAppends();
+            blocked.get();
+            assertTrue(queue.isBlocked().isDone());
+
+            getFutureValue(queue.commit(ImmutableList.of(writer)));
+            assertEquals(fileWriter.getAppendedPositions(), page.getPositionCount());
+            assertTrue(fileWriter.isCommitted());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeOut = 10_000)
+    public void testAsyncWriterAbort()
+            throws Exception
+    {
+        ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-async-writer-%s"));
+        try {
+            TestingFileWriter fileWriter = new TestingFileWriter(Optional.empty());
+            HiveWriter writer = createTestingWriter(fileWriter);
+            HiveAsyncWriteQueue queue = createAsyncWriteQueue(executor);
+            Page page = new Page(createLongSequenceBlock(0, 100));
+
+            queue.append(writer, page);
+            queue.append(writer, page);
+            fileWriter.getAppendStarted().await();
+
+            // the abort does not wait for the running append, and the append that did not start is discarded
+            ListenableFuture<List<Exception>> rollbackExceptions = queue.abort(ImmutableList.of(writer));
+            assertFalse(rollbackExceptions.isDone());
+            assertFalse(fileWriter.isRolledBack());
+
+            fileWriter.releaseAppends();
+            assertEquals(rollbackExceptions.get(), ImmutableList.of());
+            assertTrue(fileWriter.isRolledBack());
+            assertEquals(fileWriter.getAppendedPositions(), page.getPositionCount());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeOut = 10_000)
+    public void testAsyncWriterLoadsLazyBlocks()
+    {
+        ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-async-writer-%s"));
+        try {
+            TestingFileWriter fileWriter = new TestingFileWriter(Optional.empty());
+            fileWriter.releaseAppends();
+            HiveWriter writer = createTestingWriter(fileWriter);
+            HiveAsyncWriteQueue queue = createAsyncWriteQueue(executor);
+            AtomicReference<Thread> loadingThread = new AtomicReference<>();
+            LazyBlock lazyBlock = new LazyBlock(100, block -> {
+                loadingThread.set(Thread.currentThread());
+                block.setBlock(createLongSequenceBlock(0, 100));
+            });
+
+            // the block is loaded by the driver when the page is queued, not by the thread writing it
+            queue.append(writer, new Page(lazyBlock));
+            assertTrue(lazyBlock.isLoaded());
+            assertEquals(loadingThread.get(), Thread.currentThread());
+
+            getFutureValue(queue.commit(ImmutableList.of(writer)));
+            assertEquals(fileWriter.getAppendedPositions(), 100);
+            assertTrue(fileWriter.isAppendedPagesLoaded());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeOut = 10_000)
+    public void testAsyncWriterFailure()
+    {
+        ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-async-writer-%s"));
+        try {
+            TestingFileWriter fileWriter = new TestingFileWriter(Optional.of(new IllegalStateException("write failure")));
+            fileWriter.releaseAppends();
+            HiveWriter writer = createTestingWriter(fileWriter);
+            HiveAsyncWriteQueue queue = createAsyncWriteQueue(executor);
+            Page page = new Page(createLongSequenceBlock(0, 100));
+
+            // the failure of the append fails the commit, which does not run, and the later calls of the driver
+            queue.append(writer, page);
+            assertThrows(IllegalStateException.class, () -> getFutureValue(queue.commit(ImmutableList.of(writer))));
+            assertFalse(fileWriter.isCommitted());
+            assertThrows(IllegalStateException.class, () -> queue.append(writer, page));
+            assertThrows(IllegalStateException.class, queue::isBlocked);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
     protected List<HiveStorageFormat> getSupportedHiveStorageFormats()
     {
         // CSV supports only unbounded VARCHAR type, and Alpha does not support DML yet
@@ -219,6 +367,7 @@ public class TestHivePageSink
         MaterializedResult results = toMaterializedResult(getSession(config, new HiveCommonClientConfig()), columnTypes, pages);
         assertEquals(results, expectedResults);
         assertEquals(stats.getInputPageSizeInBytes().getAllTime().getMax(), page.getRetainedSizeInBytes());
+        assertEquals(stats.getFileCommitTime().getAllTime().getCount(), 1.0);
         return length;
     }
 
@@ -351,6 +500,31 @@ public class TestHivePageSink
         return provider.createPageSink(transaction, getSession(config, new HiveCommonClientConfig()), handle, TEST_HIVE_PAGE_SINK_CONTEXT);
     }
 
+    private static HiveAsyncWriteQueue createAsyncWriteQueue(ExecutorService executor)
+    {
+        // a buffer of a single byte, so that any queued page blocks the driver
+        return new HiveAsyncWriteQueue(
+                listeningDecorator(executor),
+                createTestHdfsEnvironment(new HiveClientConfig(), new MetastoreClientConfig()),
+                "test",
+                1,
+                new HiveWriterStats());
+    }
+
+    private static HiveWriter createTestingWriter(HiveFileWriter fileWriter)
+    {
+        return new HiveWriter(
+                fileWriter,
+                Optional.empty(),
+                UpdateMode.NEW,
+                new FileWriteInfo("file", "file", Optional.empty()),
+                "/tmp/write",
+                "/tmp/target",
+                writer -> {},
+                new HiveWriterStats(),
+                false);
+    }
+
     private static TestingConnectorSession getSession(HiveClientConfig config, HiveCommonClientConfig hiveCommonClientConfig)
     {
         return new TestingConnectorSession(getAllSessionProperties(config, hiveCommonClientConfig));
@@ -393,4 +567,110 @@ public class TestHivePageSink
                 throw new UnsupportedOperationException();
         }
     }
+
+    private static class TestingFileWriter
+            implements HiveFileWriter
+    {
+        private final Optional<RuntimeException> appendFailure;
+        private final CountDownLatch appendStarted = new CountDownLatch(1);
+        private final CountDownLatch appendReleased = new CountDownLatch(1);
+        private final AtomicInteger appendedPositions = new AtomicInteger();
+        private volatile boolean appendedPagesLoaded = true;
+        private volatile boolean committed;
+        private volatile boolean rolledBack;
+
+        public TestingFileWriter(Optional<RuntimeException> appendFailure)
+        {
+            this.appendFailure = appendFailure;
+        }
+
+        public CountDownLatch getAppendStarted()
+        {
+            return appendStarted;
+        }
+
+        public void releaseAppends()
+        {
+            appendReleased.countDown();
+        }
+
+        public int getAppendedPositions()
+        {
+            return appendedPositions.get();
+        }
+
+        public boolean isAppendedPagesLoaded()
+        {
+            return appendedPagesLoaded;
+        }
+
+        public boolean isCommitted()
+        {
+            return committed;
+        }
+
+        public boolean isRolledBack()
+        {
+            return rolledBack;
+        }
+
+        @Override
+        public long getWrittenBytes()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getSystemMemoryUsage()
+        {
+            return 0;
+        }
+
+        @Override
+        public void appendRows(Page dataPage)
+        {
+            appendStarted.countDown();
+            try {
+                appendReleased.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            if (appendFailure.isPresent()) {
+                throw appendFailure.get();
+            }
+            for (int channel = 0; channel < dataPage.getChannelCount(); channel++) {
+                if (dataPage.getBlock(channel) instanceof LazyBlock) {
+                    appendedPagesLoaded = false;
+                }
+            }
+            appendedPositions.addAndGet(dataPage.getPositionCount());
+        }
+
+        @Override
+        public Optional<Page> commit()
+        {
+            committed = true;
+            return Optional.empty();
+        }
+
+        @Override
+        public void rollback()
+        {
+            rolledBack = true;
+        }
+
+        @Override
+        public long getValidationCpuNanos()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getFileSizeInBytes()
+        {
+            return 0;
+        }
+    }
 }
@@ -143,6 +143,7 @@ public class TestStoragePartitionLoader
         return new StoragePartitionLoader(
                 SIMPLE_TABLE,
                 ImmutableMap.of(),
+                ImmutableMap.of(),
                 createBucketSplitInfo(Optional.empty(), Optional.empty()),
                 connectorSession,
                 new TestingHdfsEnvironment(files),
@@ -14,6 +14,7 @@
 package com.facebook.presto.hive.metastore;
 
 import com.facebook.airlift.units.Duration;
+import com.facebook.presto.hive.HiveBasicStatistics;
 import com.facebook.presto.hive.MetastoreClientConfig;
 import com.facebook.presto.hive.MockHiveMetastore;
 import com.facebook.presto.hive.PartitionMutator;
@@ -31,20 +32,29 @@ import com.facebook.presto.spi.constraints.TableConstraint;
 import com.facebook.presto.spi.constraints.UniqueConstraint;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
+import static com.facebook.presto.hive.metastore.HiveTableName.hiveTableName;
+import static com.facebook.presto.hive.metastore.MetastoreEvent.MetastoreEventType.ALTER_PARTITION;
 import static com.facebook.presto.hive.metastore.NoopMetastoreCacheStats.NOOP_METASTORE_CACHE_STATS;
 import static com.facebook.presto.hive.metastore.Partition.Builder;
 import static com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient.BAD_DATABASE;
@@ -62,7 +72,10 @@ import static com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient.
 import static com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient.TEST_ROLES;
 import static com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient.TEST_TABLE;
 import static com.facebook.presto.hive.metastore.thrift.MockHiveMetastoreClient.TEST_TABLE_WITH_CONSTRAINTS;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static java.nio.file.Files.createTempDirectory;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.function.UnaryOperator.identity;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -584,6 +597,240 @@ public class TestInMemoryCachingHiveMetastore
         assertEquals(mockClient.getAccessCount(), 9);
     }
 
+    @Test
+    public void testPartitionMetadataStore()
+            throws IOException
+    {
+        Path directory = createTempDirectory("partition-cache");
+        try {
+            MockHiveMetastoreClient mockClient = new MockHiveMetastoreClient();
+            FilePartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, new Duration(1, TimeUnit.DAYS));
+            InMemoryCachingHiveMetastore metastore = createTwoTierMetastore(mockClient, new MockPartitionMutator(identity()), store);
+            assertEquals(metastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, EXPECTED_PARTITIONS).size(), 2);
+            assertEquals(mockClient.getAccessCount(), 1);
+
+            // the in-memory caches of another metastore are empty, but the partitions are stored
+            InMemoryCachingHiveMetastore otherMetastore = createTwoTierMetastore(mockClient, new MockPartitionMutator(identity()), store);
+            assertEquals(otherMetastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, EXPECTED_PARTITIONS).size(), 2);
+            assertEquals(mockClient.getAccessCount(), 1);
+
+            // the stored partitions are read back after a restart
+            FilePartitionMetadataStore restartedStore = new FilePartitionMetadataStore(directory, 1000, new Duration(1, TimeUnit.DAYS));
+            InMemoryCachingHiveMetastore restartedMetastore = createTwoTierMetastore(mockClient, new MockPartitionMutator(identity()), restartedStore);
+            assertEquals(restartedMetastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, EXPECTED_PARTITIONS).size(), 2);
+            assertEquals(mockClient.getAccessCount(), 1);
+
+            // a change made through the metastore removes the stored partition
+            restartedMetastore.invalidateCache(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of("key"), TEST_PARTITION_VALUES1);
+            InMemoryCachingHiveMetastore invalidatedMetastore = createTwoTierMetastore(mockClient, new MockPartitionMutator(identity()), restartedStore);
+            assertEquals(invalidatedMetastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION_NAME_WITH_VERSION2)).size(), 1);
+            assertEquals(mockClient.getAccessCount(), 1);
+            assertEquals(invalidatedMetastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION_NAME_WITH_VERSION1)).size(), 1);
+            assertEquals(mockClient.getAccessCount(), 2);
+        }
+        finally {
+            deleteRecursively(directory, ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    public void testPartitionMetadataStoreVersionMismatch()
+            throws IOException
+    {
+        Path directory = createTempDirectory("partition-cache");
+        try {
+            MockHiveMetastoreClient mockClient = new MockHiveMetastoreClient();
+            PartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, new Duration(1, TimeUnit.DAYS));
+            InMemoryCachingHiveMetastore metastore = createTwoTierMetastore(mockClient, new MockPartitionMutator(identity()), store);
+            assertEquals(metastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION_NAME_WITH_VERSION1)).size(), 1);
+            assertEquals(mockClient.getAccessCount(), 1);
+
+            // the stored partition is older than the requested version, so it is loaded again and replaced
+            PartitionNameWithVersion newerPartitionName = new PartitionNameWithVersion(TEST_PARTITION1, Optional.of(PARTITION_VERSION + 1));
+            InMemoryCachingHiveMetastore updatedMetastore = createTwoTierMetastore(mockClient, new MockPartitionMutator(version -> version + 1), store);
+            assertEquals(updatedMetastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(newerPartitionName)).size(), 1);
+            assertEquals(mockClient.getAccessCount(), 2);
+            Partition storedPartition = store.getPartitions(hiveTableName(TEST_DATABASE, TEST_TABLE), ImmutableList.of(TEST_PARTITION_VALUES1)).get(TEST_PARTITION_VALUES1);
+            assertEquals(storedPartition.getPartitionVersion(), Optional.of(PARTITION_VERSION + 1));
+
+            InMemoryCachingHiveMetastore otherMetastore = createTwoTierMetastore(mockClient, new MockPartitionMutator(identity()), store);
+            assertEquals(otherMetastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(newerPartitionName)).size(), 1);
+            assertEquals(mockClient.getAccessCount(), 2);
+        }
+        finally {
+            deleteRecursively(directory, ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    public void testPartitionMetadataStoreStatisticsVersionMismatch()
+            throws IOException
+    {
+        Path directory = createTempDirectory("partition-cache");
+        try {
+            MockHiveMetastoreClient mockClient = new MockHiveMetastoreClient();
+            PartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, new Duration(1, TimeUnit.DAYS));
+            InMemoryCachingHiveMetastore metastore = createTwoTierMetastore(mockClient, new MockPartitionMutator(identity()), store);
+            assertEquals(metastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, EXPECTED_PARTITIONS).size(), 2);
+
+            PartitionStatistics statistics = new PartitionStatistics(new HiveBasicStatistics(1, 2, 3, 4), ImmutableMap.of());
+            store.putPartitionStatistics(hiveTableName(TEST_DATABASE, TEST_TABLE), ImmutableMap.of(
+                    new PartitionNameWithVersion(TEST_PARTITION1, Optional.of(PARTITION_VERSION)), statistics,
+                    new PartitionNameWithVersion(TEST_PARTITION2, Optional.of(PARTITION_VERSION - 1)), statistics));
+
+            // the statistics stored for the version of the stored partition are used
+            assertEquals(metastore.getPartitionStatistics(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableSet.of(TEST_PARTITION1)), ImmutableMap.of(TEST_PARTITION1, statistics));
+
+            // the statistics stored for an older version are loaded from the metastore again, which the mock client does not support
+            assertThatThrownBy(() -> metastore.getPartitionStatistics(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableSet.of(TEST_PARTITION2)));
+        }
+        finally {
+            deleteRecursively(directory, ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    public void testPartitionMetadataStoreInvalidationDuringLoad()
+            throws IOException
+    {
+        Path directory = createTempDirectory("partition-cache");
+        try {
+            MockHiveMetastoreClient mockClient = new MockHiveMetastoreClient();
+            PartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, new Duration(1, TimeUnit.DAYS));
+            AtomicReference<Runnable> onLoad = new AtomicReference<>(() -> {});
+            PartitionMutator partitionMutator = (builder, partition) -> {
+                builder.setPartitionVersion(PARTITION_VERSION);
+                onLoad.get().run();
+            };
+            InMemoryCachingHiveMetastore metastore = createTwoTierMetastore(mockClient, partitionMutator, store);
+
+            // the partition changes while it is being loaded: what was read before the change is not stored
+            onLoad.set(() -> metastore.invalidateCache(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of("key"), TEST_PARTITION_VALUES1));
+            assertEquals(metastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION_NAME_WITH_VERSION1)).size(), 1);
+            assertEquals(store.getPartitions(hiveTableName(TEST_DATABASE, TEST_TABLE), ImmutableList.of(TEST_PARTITION_VALUES1)), ImmutableMap.of());
+
+            onLoad.set(() -> {});
+            metastore.invalidateAll();
+            assertEquals(metastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION_NAME_WITH_VERSION1)).size(), 1);
+            assertEquals(store.getPartitions(hiveTableName(TEST_DATABASE, TEST_TABLE), ImmutableList.of(TEST_PARTITION_VALUES1)).size(), 1);
+        }
+        finally {
+            deleteRecursively(directory, ALLOW_INSECURE);
+        }
+    }
+
+    @Test
+    public void testMetastoreEventPoller()
+            throws IOException
+    {
+        Path directory = createTempDirectory("partition-cache");
+        try {
+            MockHiveMetastoreClient mockClient = new MockHiveMetastoreClient();
+            List<MetastoreEvent> eventLog = new ArrayList<>();
+            TestingMetastoreEventSource eventSource = new TestingMetastoreEventSource(eventLog);
+            PartitionMetadataStore store = new FilePartitionMetadataStore(directory, 1000, new Duration(1, TimeUnit.DAYS));
+            InMemoryCachingHiveMetastore metastore = createTwoTierMetastore(mockClient, new MockPartitionMutator(identity()), store);
+            MetastoreEventPoller eventPoller = new MetastoreEventPoller(metastore, eventSource, store, new Duration(1, TimeUnit.HOURS));
+
+            // the events logged before the first poll predate the stored entries
+            eventLog.add(partitionEvent(1, TEST_PARTITION1));
+            eventPoller.poll();
+            assertEquals(store.getLastEventId(), OptionalLong.of(1));
+
+            assertEquals(metastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, EXPECTED_PARTITIONS).size(), 2);
+            assertEquals(mockClient.getAccessCount(), 1);
+            assertEquals(metastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, EXPECTED_PARTITIONS).size(), 2);
+            assertEquals(mockClient.getAccessCount(), 1);
+
+            // an event invalidates the partition in memory and in the store
+            eventLog.add(partitionEvent(2, TEST_PARTITION1));
+            eventPoller.poll();
+            assertEquals(store.getLastEventId(), OptionalLong.of(2));
+            assertEquals(metastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION_NAME_WITH_VERSION2)).size(), 1);
+            assertEquals(mockClient.getAccessCount(), 1);
+            assertEquals(metastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION_NAME_WITH_VERSION1)).size(), 1);
+            assertEquals(mockClient.getAccessCount(), 2);
+
+            // the events logged while the coordinator was down are applied on restart
+            eventPoller.stop();
+            eventLog.add(partitionEvent(3, TEST_PARTITION2));
+            PartitionMetadataStore restartedStore = new FilePartitionMetadataStore(directory, 1000, new Duration(1, TimeUnit.DAYS));
+            InMemoryCachingHiveMetastore restartedMetastore = createTwoTierMetastore(mockClient, new MockPartitionMutator(identity()), restartedStore);
+            MetastoreEventPoller restartedEventPoller = new MetastoreEventPoller(restartedMetastore, new TestingMetastoreEventSource(eventLog), restartedStore, new Duration(1, TimeUnit.HOURS));
+            restartedEventPoller.poll();
+            assertEquals(restartedStore.getLastEventId(), OptionalLong.of(3));
+            assertEquals(restartedMetastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION_NAME_WITH_VERSION1)).size(), 1);
+            assertEquals(mockClient.getAccessCount(), 2);
+            assertEquals(restartedMetastore.getPartitionsByNames(TEST_METASTORE_CONTEXT, TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION_NAME_WITH_VERSION2)).size(), 1);
+            assertEquals(mockClient.getAccessCount(), 3);
+
+            // everything is invalidated when the log cannot be read
+            eventSource.setFailure(new UncheckedIOException(new IOException("log is gone")));
+            MetastoreEventPoller failingEventPoller = new MetastoreEventPoller(restartedMetastore, eventSource, restartedStore, new Duration(1, TimeUnit.HOURS));
+            failingEventPoller.poll();
+            assertEquals(restartedStore.getPartitions(hiveTableName(TEST_DATABASE, TEST_TABLE), ImmutableList.of(TEST_PARTITION_VALUES1, TEST_PARTITION_VALUES2)), ImmutableMap.of());
+            restartedEventPoller.stop();
+            failingEventPoller.stop();
+        }
+        finally {
+            deleteRecursively(directory, ALLOW_INSECURE);
+        }
+    }
+
+    private static InMemoryCachingHiveMetastore createTwoTierMetastore(MockHiveMetastoreClient mockClient, PartitionMutator partitionMutator, PartitionMetadataStore store)
+    {
+        MockHiveMetastore mockHiveMetastore = new MockHiveMetastore(new MockHiveCluster(mockClient));
+        return new InMemoryCachingHiveMetastore(
+                new BridgingHiveMetastore(mockHiveMetastore, partitionMutator),
+                listeningDecorator(newCachedThreadPool(daemonThreadsNamed("partition-metadata-store-test-%s"))),
+                false,
+                new Duration(5, TimeUnit.MINUTES),
+                new Duration(1, TimeUnit.MINUTES),
+                1000,
+                true,
+                MetastoreCacheScope.PARTITION,
+                0.0,
+                10_000,
+                NOOP_METASTORE_CACHE_STATS,
+                store,
+                Optional.empty(),
+                new Duration(1, TimeUnit.HOURS));
+    }
+
+    private static MetastoreEvent partitionEvent(long eventId, String partitionName)
+    {
+        return new MetastoreEvent(eventId, ALTER_PARTITION, TEST_DATABASE, Optional.of(TEST_TABLE), ImmutableList.of(partitionName));
+    }
+
+    private static class TestingMetastoreEventSource
+            implements MetastoreEventSource
+    {
+        private final List<MetastoreEvent> eventLog;
+        private int position;
+        private RuntimeException failure;
+
+        public TestingMetastoreEventSource(List<MetastoreEvent> eventLog)
+        {
+            this.eventLog = eventLog;
+        }
+
+        public void setFailure(RuntimeException failure)
+        {
+            this.failure = failure;
+        }
+
+        @Override
+        public List<MetastoreEvent> poll()
+        {
+            if (failure != null) {
+                throw failure;
+            }
+            List<MetastoreEvent> events = ImmutableList.copyOf(eventLog.subList(position, eventLog.size()));
+            position = eventLog.size();
+            return events;
+        }
+    }
+
     public static class MockHiveCluster
             implements HiveCluster
     {
@@ -0,0 +1,281 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.statistics;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.io.OutputStreamDataSink;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.HdfsContext;
+import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveClientConfig;
+import com.facebook.presto.hive.HiveColumnConverterProvider;
+import com.facebook.presto.hive.HiveFileInfo;
+import com.facebook.presto.hive.MetastoreClientConfig;
+import com.facebook.presto.hive.TestingExtendedHiveMetastore;
+import com.facebook.presto.hive.metastore.Column;
+import com.facebook.presto.hive.metastore.ExtendedHiveMetastore;
+import com.facebook.presto.hive.metastore.MetastoreContext;
+import com.facebook.presto.hive.metastore.PrincipalPrivileges;
+import com.facebook.presto.hive.metastore.Storage;
+import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.orc.OrcEncoding;
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.orc.OrcWriterOptions;
+import com.facebook.presto.spi.SchemaTableName;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import io.airlift.slice.Slice;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.chrono.ChronoLocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.hive.HivePartition.UNPARTITIONED_ID;
+import static com.facebook.presto.hive.HiveStorageFormat.ORC;
+import static com.facebook.presto.hive.HiveTestUtils.SESSION;
+import static com.facebook.presto.hive.HiveTestUtils.createTestHdfsEnvironment;
+import static com.facebook.presto.hive.HiveType.HIVE_DATE;
+import static com.facebook.presto.hive.HiveType.HIVE_DOUBLE;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.hive.metastore.PrestoTableType.MANAGED_TABLE;
+import static com.facebook.presto.hive.metastore.StorageFormat.fromHiveStorageFormat;
+import static com.facebook.presto.orc.DwrfEncryptionProvider.NO_ENCRYPTION;
+import static com.facebook.presto.orc.NoOpOrcWriterStats.NOOP_WRITER_STATS;
+import static com.facebook.presto.orc.OrcWriteValidation.OrcWriteValidationMode.BOTH;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.stream.Collectors.toMap;
+import static org.joda.time.DateTimeZone.UTC;
+import static org.testng.Assert.assertEquals;
+
+public class TestOrcQuickStatsBuilder
+{
+    private static final String TEST_SCHEMA = "test_schema";
+    private static final String TEST_TABLE = "orc_quick_stats";
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("id", "price", "ship_date", "comment");
+    private static final List<Type> COLUMN_TYPES = ImmutableList.of(BIGINT, DOUBLE, DATE, VARCHAR);
+
+    private File directory;
+    private OrcQuickStatsBuilder orcQuickStatsBuilder;
+    private MetastoreContext metastoreContext;
+    private ExtendedHiveMetastore metastore;
+    private HdfsEnvironment hdfsEnvironment;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        directory = createTempDirectory("orc-quick-stats").toFile();
+
+        Table table = new Table(
+                Optional.of("catalogName"),
+                TEST_SCHEMA,
+                TEST_TABLE,
+                "owner",
+                MANAGED_TABLE,
+                Storage.builder()
+                        .setStorageFormat(fromHiveStorageFormat(ORC))
+                        .setLocation(directory.toURI().toString())
+                        .build(),
+                ImmutableList.of(
+                        new Column("id", HIVE_LONG, Optional.empty(), Optional.empty()),
+                        new Column("price", HIVE_DOUBLE, Optional.empty(), Optional.empty()),
+                        new Column("ship_date", HIVE_DATE, Optional.empty(), Optional.empty()),
+                        new Column("comment", HIVE_STRING, Optional.empty(), Optional.empty())),
+                ImmutableList.of(),
+                ImmutableMap.of(),
+                Optional.empty(),
+                Optional.empty());
+
+        metastoreContext = new MetastoreContext(SESSION.getUser(),
+                SESSION.getQueryId(),
+                Optional.empty(),
+                Collections.emptySet(),
+                Optional.empty(),
+                Optional.empty(),
+                false,
+                HiveColumnConverterProvider.DEFAULT_COLUMN_CONVERTER_PROVIDER,
+                SESSION.getWarningCollector(),
+                SESSION.getRuntimeStats());
+        metastore = new TestingExtendedHiveMetastore();
+        metastore.createTable(metastoreContext, table, new PrincipalPrivileges(ImmutableMultimap.of(), ImmutableMultimap.of()), ImmutableList.of());
+
+        HiveClientConfig hiveClientConfig = new HiveClientConfig();
+        hdfsEnvironment = createTestHdfsEnvironment(hiveClientConfig, new MetastoreClientConfig());
+        orcQuickStatsBuilder = new OrcQuickStatsBuilder(new FileFormatDataSourceStats(), hdfsEnvironment, hiveClientConfig);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(directory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testStatsAreBuiltFromFooters()
+            throws IOException
+    {
+        File partition = new File(directory, "from_footers");
+        partition.mkdirs();
+
+        writeOrcFile(new File(partition, "file1.orc"),
+                new Object[] {1L, 10.5, LocalDate.parse("2020-01-01"), "a"},
+                new Object[] {5L, null, LocalDate.parse("2020-03-01"), null},
+                new Object[] {null, 2.25, null, "b"});
+        writeOrcFile(new File(partition, "file2.orc"),
+                new Object[] {-3L, 99.0, LocalDate.parse("2019-12-31"), null},
+                new Object[] {4L, null, null, null});
+        // an empty file has no footer, but is counted as a file of the partition
+        new File(partition, "file3.orc").createNewFile();
+
+        PartitionQuickStats partitionQuickStats = orcQuickStatsBuilder.buildQuickStats(SESSION, metastore, new SchemaTableName(TEST_SCHEMA, TEST_TABLE),
+                metastoreContext, UNPARTITIONED_ID.getPartitionName(), listFiles(partition).iterator());
+
+        assertEquals(partitionQuickStats.getFileCount(), 3);
+        Map<String, ? extends ColumnQuickStats<?>> columnQuickStatsMap = partitionQuickStats.getStats().stream().collect(toMap(ColumnQuickStats::getColumnName, v -> v));
+        assertEquals(columnQuickStatsMap.size(), 4);
+        assertEquals(columnQuickStatsMap.get("id"), createStats("id", Long.class, 5, 1, -3L, 5L));
+        assertEquals(columnQuickStatsMap.get("price"), createStats("price", Double.class, 5, 2, 2.25, 99.0));
+        assertEquals(columnQuickStatsMap.get("ship_date"), createStats("ship_date", ChronoLocalDate.class, 5, 2, LocalDate.parse("2019-12-31"), LocalDate.parse("2020-03-01")));
+        // VARCHAR columns only have null and row counts
+        assertEquals(columnQuickStatsMap.get("comment"), createStats("comment", Slice.class, 5, 3, null, null));
+    }
+
+    @Test
+    public void testAllNullColumn()
+            throws IOException
+    {
+        File partition = new File(directory, "all_null");
+        partition.mkdirs();
+
+        writeOrcFile(new File(partition, "file1.orc"),
+                new Object[] {null, 1.0, null, null},
+                new Object[] {null, 2.0, null, null});
+
+        PartitionQuickStats partitionQuickStats = orcQuickStatsBuilder.buildQuickStats(SESSION, metastore, new SchemaTableName(TEST_SCHEMA, TEST_TABLE),
+                metastoreContext, UNPARTITIONED_ID.getPartitionName(), listFiles(partition).iterator());
+
+        assertEquals(partitionQuickStats.getFileCount(), 1);
+        Map<String, ? extends ColumnQuickStats<?>> columnQuickStatsMap = partitionQuickStats.getStats().stream().collect(toMap(ColumnQuickStats::getColumnName, v -> v));
+        // a column with only nulls has no min or max
+        assertEquals(columnQuickStatsMap.get("id"), createStats("id", Long.class, 2, 2, null, null));
+        assertEquals(columnQuickStatsMap.get("price"), createStats("price", Double.class, 2, 0, 1.0, 2.0));
+        assertEquals(columnQuickStatsMap.get("ship_date"), createStats("ship_date", ChronoLocalDate.class, 2, 2, null, null));
+    }
+
+    private static <T extends Comparable<T>> ColumnQuickStats<T> createStats(String columnName, Class<T> statType, long rowCount, long nullsCount, T min, T max)
+    {
+        ColumnQuickStats<T> result = new ColumnQuickStats<>(columnName, statType);
+        result.addToRowCount(rowCount);
+        result.addToNullsCount(nullsCount);
+        if (min != null) {
+            result.setMinValue(min);
+            result.setMaxValue(max);
+        }
+        return result;
+    }
+
+    private static void writeOrcFile(File file, Object[]... rows)
+            throws IOException
+    {
+        BlockBuilder[] blockBuilders = new BlockBuilder[COLUMN_TYPES.size()];
+        for (int channel = 0; channel < COLUMN_TYPES.size(); channel++) {
+            blockBuilders[channel] = COLUMN_TYPES.get(channel).createBlockBuilder(null, rows.length);
+        }
+        for (Object[] row : rows) {
+            for (int channel = 0; channel < COLUMN_TYPES.size(); channel++) {
+                Object value = row[channel];
+                BlockBuilder blockBuilder = blockBuilders[channel];
+                if (value == null) {
+                    blockBuilder.appendNull();
+                }
+                else if (value instanceof LocalDate) {
+                    DATE.writeLong(blockBuilder, ((LocalDate) value).toEpochDay());
+                }
+                else if (value instanceof String) {
+                    VARCHAR.writeSlice(blockBuilder, utf8Slice((String) value));
+                }
+                else if (value instanceof Double) {
+                    DOUBLE.writeDouble(blockBuilder, (Double) value);
+                }
+                else {
+                    BIGINT.writeLong(blockBuilder, (Long) value);
+                }
+            }
+        }
+
+        OrcWriter writer = new OrcWriter(
+                new OutputStreamDataSink(new FileOutputStream(file)),
+                COLUMN_NAMES,
+                COLUMN_TYPES,
+                OrcEncoding.ORC,
+                ZLIB,
+                Optional.empty(),
+                NO_ENCRYPTION,
+                OrcWriterOptions.builder().build(),
+                ImmutableMap.of(),
+                UTC,
+                false,
+                BOTH,
+                NOOP_WRITER_STATS);
+        try {
+            Page page = new Page(rows.length, blockBuilders[0].build(), blockBuilders[1].build(), blockBuilders[2].build(), blockBuilders[3].build());
+            writer.write(page);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private List<HiveFileInfo> listFiles(File partition)
+            throws IOException
+    {
+        ImmutableList.Builder<HiveFileInfo> files = ImmutableList.builder();
+        Path path = new Path(partition.toURI());
+        FileSystem fileSystem = hdfsEnvironment.getFileSystem(new HdfsContext(SESSION), path);
+        RemoteIterator<LocatedFileStatus> statuses = fileSystem.listFiles(path, false);
+        while (statuses.hasNext()) {
+            LocatedFileStatus status = statuses.next();
+            if (status.getPath().getName().endsWith(".orc")) {
+                files.add(HiveFileInfo.createHiveFileInfo(status, Optional.empty()));
+            }
+        }
+        return files.build();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.statistics;
+
+import com.facebook.presto.hive.HiveBasicStatistics;
+import com.facebook.presto.hive.HiveFileInfo;
+import com.facebook.presto.hive.metastore.HiveColumnStatistics;
+import com.facebook.presto.hive.metastore.PartitionStatistics;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestQuickStatsDiskCache
+{
+    private static final PartitionStatistics STATISTICS = new PartitionStatistics(
+            new HiveBasicStatistics(OptionalLong.of(2), OptionalLong.of(100), OptionalLong.empty(), OptionalLong.empty()),
+            ImmutableMap.of("id", HiveColumnStatistics.createIntegerColumnStatistics(OptionalLong.of(1), OptionalLong.of(100), OptionalLong.of(0), OptionalLong.empty())));
+
+    private File directory;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        directory = createTempDirectory("quick-stats").toFile();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(directory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testListingVersion()
+    {
+        HiveFileInfo first = createFileInfo("/table/part=1/file1", 10, 1000);
+        HiveFileInfo second = createFileInfo("/table/part=1/file2", 20, 1000);
+
+        // the version does not depend on the order of the listing
+        assertEquals(QuickStatsDiskCache.getListingVersion(ImmutableList.of(first, second)), QuickStatsDiskCache.getListingVersion(ImmutableList.of(second, first)));
+        assertNotEquals(QuickStatsDiskCache.getListingVersion(ImmutableList.of(first, second)), QuickStatsDiskCache.getListingVersion(ImmutableList.of(first)));
+        assertNotEquals(
+                QuickStatsDiskCache.getListingVersion(ImmutableList.of(first, second)),
+                QuickStatsDiskCache.getListingVersion(ImmutableList.of(first, createFileInfo("/table/part=1/file2", 20, 2000))));
+    }
+
+    @Test
+    public void testPersistence()
+    {
+        QuickStatsDiskCache cache = new QuickStatsDiskCache(directory.getAbsolutePath(), 100);
+        assertEquals(cache.get("schema.table/part=1", "v1"), Optional.empty());
+
+        cache.put("schema.table/part=1", "v1", STATISTICS);
+        assertEquals(cache.get("schema.table/part=1", "v1"), Optional.of(STATISTICS));
+        assertFalse(cache.get("schema.table/part=1", "v2").isPresent());
+        assertFalse(cache.get("schema.table/part=2", "v1").isPresent());
+
+        // entries survive a new instance over the same directory
+        assertEquals(new QuickStatsDiskCache(directory.getAbsolutePath(), 100).get("schema.table/part=1", "v1"), Optional.of(STATISTICS));
+
+        // a newer listing replaces the entry
+        cache.put("schema.table/part=1", "v2", PartitionStatistics.empty());
+        assertFalse(cache.get("schema.table/part=1", "v1").isPresent());
+        assertEquals(cache.get("schema.table/part=1", "v2"), Optional.of(PartitionStatistics.empty()));
+    }
+
+    @Test
+    public void testEviction()
+    {
+        String evictionDirectory = new File(directory, "eviction").getAbsolutePath();
+        QuickStatsDiskCache cache = new QuickStatsDiskCache(evictionDirectory, 10);
+        for (int i = 0; i < 10; i++) {
+            cache.put("schema.table/part=" + i, "v1", STATISTICS);
+            // entries written in the same tick of the file system clock are not ordered
+            sleepUninterruptibly(10, MILLISECONDS);
+        }
+        // replacing an entry does not add one
+        cache.put("schema.table/part=9", "v2", STATISTICS);
+        assertEquals(cache.getEntryCount(), 10);
+
+        // reading an entry makes it the most recently used one
+        assertTrue(cache.get("schema.table/part=0", "v1").isPresent());
+        sleepUninterruptibly(10, MILLISECONDS);
+
+        // exceeding the maximum evicts the least recently used entries, and a tenth of the maximum more
+        cache.put("schema.table/part=10", "v1", STATISTICS);
+        assertEquals(cache.getEntryCount(), 9);
+        assertTrue(cache.get("schema.table/part=0", "v1").isPresent());
+        assertTrue(cache.get("schema.table/part=10", "v1").isPresent());
+        assertFalse(cache.get("schema.table/part=1", "v1").isPresent());
+        assertFalse(cache.get("schema.table/part=2", "v1").isPresent());
+
+        // the entries are counted again by a new instance over the same directory
+        assertEquals(new QuickStatsDiskCache(evictionDirectory, 10).getEntryCount(), 9);
+    }
+
+    private static HiveFileInfo createFileInfo(String path, long length, long modificationTime)
+    {
+        return new HiveFileInfo(path, false, ImmutableList.of(), length, modificationTime, Optional.empty(), ImmutableMap.of());
+    }
+}
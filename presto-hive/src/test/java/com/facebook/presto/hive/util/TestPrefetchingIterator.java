@@ -0,0 +1,206 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.facebook.airlift.concurrent.Threads;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Streams.stream;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class TestPrefetchingIterator
+{
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUpClass()
+    {
+        executor = Executors.newCachedThreadPool(Threads.daemonThreadsNamed("test-prefetching-iterator-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDownClass()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOrder()
+    {
+        List<Integer> elements = ImmutableList.of(1, 2, 3, 4, 5);
+        assertEquals(drain(new PrefetchingIterator<>(elements.iterator(), directExecutor())), elements);
+        assertEquals(drain(new PrefetchingIterator<>(elements.iterator(), executor)), elements);
+        assertEquals(drain(new PrefetchingIterator<>(ImmutableList.<Integer>of().iterator(), executor)), ImmutableList.of());
+    }
+
+    @Test
+    public void testPrefetch()
+    {
+        CountingIterator delegate = new CountingIterator(3);
+        List<Runnable> tasks = new ArrayList<>();
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(delegate, tasks::add);
+
+        // the first element is submitted to the executor on creation
+        assertEquals(tasks.size(), 1);
+        assertEquals(delegate.getLoaded(), 0);
+
+        // an element the executor did not start is computed by the consumer, and the next one is submitted
+        assertEquals(iterator.next(), (Integer) 0);
+        assertEquals(delegate.getLoaded(), 1);
+        assertEquals(tasks.size(), 2);
+
+        // an element computed by the executor is not computed again
+        tasks.get(1).run();
+        assertEquals(delegate.getLoaded(), 2);
+        assertEquals(iterator.next(), (Integer) 1);
+        assertEquals(delegate.getLoaded(), 2);
+
+        assertEquals(iterator.next(), (Integer) 2);
+        assertFalse(iterator.hasNext());
+        assertEquals(tasks.size(), 3);
+    }
+
+    @Test
+    public void testRejectedExecution()
+    {
+        List<Integer> elements = ImmutableList.of(1, 2, 3);
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(elements.iterator(), command -> {
+            throw new RejectedExecutionException();
+        });
+        assertEquals(drain(iterator), elements);
+    }
+
+    @Test
+    public void testFailure()
+    {
+        Iterator<Integer> delegate = new Iterator<Integer>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return true;
+            }
+
+            @Override
+            public Integer next()
+            {
+                throw new IllegalStateException("metastore failure");
+            }
+        };
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(delegate, executor);
+        assertThrows(IllegalStateException.class, iterator::next);
+    }
+
+    @Test
+    public void testCloseCancelsPendingPrefetch()
+    {
+        CountingIterator delegate = new CountingIterator(3);
+        List<Runnable> tasks = new ArrayList<>();
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(delegate, tasks::add);
+        assertEquals(iterator.next(), (Integer) 0);
+
+        iterator.close();
+        assertTrue(((Future<?>) tasks.get(1)).isCancelled());
+        assertFalse(iterator.hasNext());
+        assertEquals(delegate.getLoaded(), 1);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testCloseInterruptsRunningPrefetch()
+            throws Exception
+    {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Iterator<Integer> delegate = new Iterator<Integer>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return true;
+            }
+
+            @Override
+            public Integer next()
+            {
+                started.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                }
+                catch (InterruptedException e) {
+                    interrupted.countDown();
+                    Thread.currentThread().interrupt();
+                }
+                return 0;
+            }
+        };
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(delegate, executor);
+        started.await();
+
+        iterator.close();
+        interrupted.await();
+        assertFalse(iterator.hasNext());
+    }
+
+    private static List<Integer> drain(Iterator<Integer> iterator)
+    {
+        return stream(iterator).collect(toImmutableList());
+    }
+
+    private static class CountingIterator
+            implements Iterator<Integer>
+    {
+        private final int size;
+        private final AtomicInteger loaded = new AtomicInteger();
+
+        public CountingIterator(int size)
+        {
+            this.size = size;
+        }
+
+        public int getLoaded()
+        {
+            return loaded.get();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return loaded.get() < size;
+        }
+
+        @Override
+        public Integer next()
+        {
+            return loaded.getAndIncrement();
+        }
+    }
+}
@@ -15,6 +15,7 @@ package com.facebook.presto.iceberg;
 
 import com.facebook.airlift.json.JsonCodec;
 import com.facebook.airlift.log.Logger;
+import com.facebook.presto.common.QualifiedObjectName;
 import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.Subfield;
 import com.facebook.presto.common.predicate.TupleDomain;
@@ -35,6 +36,8 @@ import com.facebook.presto.iceberg.statistics.StatisticsFileCache;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorDeleteTableHandle;
+import com.facebook.presto.spi.ConnectorDistributedProcedureHandle;
+import com.facebook.presto.spi.ConnectorId;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorNewTableLayout;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
@@ -59,6 +62,8 @@ import com.facebook.presto.spi.connector.ConnectorTableVersion.VersionOperator;
 import com.facebook.presto.spi.connector.ConnectorTableVersion.VersionType;
 import com.facebook.presto.spi.function.StandardFunctionResolution;
 import com.facebook.presto.spi.plan.FilterStatsCalculatorService;
+import com.facebook.presto.spi.procedure.DistributedProcedure;
+import com.facebook.presto.spi.procedure.ProcedureRegistry;
 import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.spi.relation.RowExpressionService;
 import com.facebook.presto.spi.statistics.ColumnStatisticMetadata;
@@ -152,6 +157,7 @@ import static com.facebook.presto.iceberg.IcebergSessionProperties.isPushdownFil
 import static com.facebook.presto.iceberg.IcebergTableProperties.LOCATION_PROPERTY;
 import static com.facebook.presto.iceberg.IcebergTableProperties.PARTITIONING_PROPERTY;
 import static com.facebook.presto.iceberg.IcebergTableProperties.SORTED_BY_PROPERTY;
+import static com.facebook.presto.iceberg.IcebergTableProperties.ZORDER_BY_PROPERTY;
 import static com.facebook.presto.iceberg.IcebergTableType.CHANGELOG;
 import static com.facebook.presto.iceberg.IcebergTableType.DATA;
 import static com.facebook.presto.iceberg.IcebergTableType.EQUALITY_DELETES;
@@ -168,6 +174,7 @@ import static com.facebook.presto.iceberg.IcebergUtil.getSnapshotIdTimeOperator;
 import static com.facebook.presto.iceberg.IcebergUtil.getSortFields;
 import static com.facebook.presto.iceberg.IcebergUtil.getTableComment;
 import static com.facebook.presto.iceberg.IcebergUtil.getViewComment;
+import static com.facebook.presto.iceberg.IcebergUtil.getZOrderColumns;
 import static com.facebook.presto.iceberg.IcebergUtil.resolveSnapshotIdByName;
 import static com.facebook.presto.iceberg.IcebergUtil.toHiveColumns;
 import static com.facebook.presto.iceberg.IcebergUtil.tryGetLocation;
@@ -223,7 +230,9 @@ public abstract class IcebergAbstractMetadata
     protected final NodeVersion nodeVersion;
     protected final RowExpressionService rowExpressionService;
     protected final FilterStatsCalculatorService filterStatsCalculatorService;
+    protected final ProcedureRegistry procedureRegistry;
     protected Transaction transaction;
+    protected Optional<IcebergProcedureContext> procedureContext = Optional.empty();
     protected final StatisticsFileCache statisticsFileCache;
     protected final IcebergTableProperties tableProperties;
 
@@ -237,6 +246,7 @@ public abstract class IcebergAbstractMetadata
             JsonCodec<CommitTaskData> commitTaskCodec,
             NodeVersion nodeVersion,
             FilterStatsCalculatorService filterStatsCalculatorService,
+            ProcedureRegistry procedureRegistry,
             StatisticsFileCache statisticsFileCache,
             IcebergTableProperties tableProperties)
     {
@@ -246,6 +256,7 @@ public abstract class IcebergAbstractMetadata
         this.rowExpressionService = requireNonNull(rowExpressionService, "rowExpressionService is null");
         this.nodeVersion = requireNonNull(nodeVersion, "nodeVersion is null");
         this.filterStatsCalculatorService = requireNonNull(filterStatsCalculatorService, "filterStatsCalculatorService is null");
+        this.procedureRegistry = requireNonNull(procedureRegistry, "procedureRegistry is null");
         this.statisticsFileCache = requireNonNull(statisticsFileCache, "statisticsFileCache is null");
         this.tableProperties = requireNonNull(tableProperties, "tableProperties is null");
     }
@@ -259,6 +270,11 @@ public abstract class IcebergAbstractMetadata
 
     protected abstract Table getRawIcebergTable(ConnectorSession session, SchemaTableName schemaTableName);
 
+    public Optional<IcebergProcedureContext> getProcedureContext()
+    {
+        return procedureContext;
+    }
+
     protected abstract View getIcebergView(ConnectorSession session, SchemaTableName schemaTableName);
 
     protected abstract boolean tableExists(ConnectorSession session, SchemaTableName schemaTableName);
@@ -787,6 +803,11 @@ public abstract class IcebergAbstractMetadata
             List<String> sortColumnNames = toSortFields(sortOrder);
             properties.put(SORTED_BY_PROPERTY, sortColumnNames);
         }
+
+        List<String> zOrderColumns = getZOrderColumns(icebergTable);
+        if (!zOrderColumns.isEmpty()) {
+            properties.put(ZORDER_BY_PROPERTY, zOrderColumns);
+        }
         return properties.build();
     }
 
@@ -1041,6 +1062,53 @@ public abstract class IcebergAbstractMetadata
         removeScanFiles(icebergTable, TupleDomain.all());
     }
 
+    @Override
+    public ConnectorDistributedProcedureHandle beginCallDistributedProcedure(
+            ConnectorSession session,
+            QualifiedObjectName procedureName,
+            ConnectorTableLayoutHandle tableLayoutHandle,
+            Object[] arguments)
+    {
+        IcebergTableHandle table = ((IcebergTableLayoutHandle) tableLayoutHandle).getTable();
+        verify(table.getIcebergTableName().getTableType() == DATA, "only the data table can be rewritten");
+        verify(!procedureContext.isPresent(), "a distributed procedure is already running in this transaction");
+        Table icebergTable = getIcebergTable(session, table.getSchemaTableName());
+
+        DistributedProcedure procedure = getDistributedProcedure(procedureName);
+        IcebergProcedureContext context = (IcebergProcedureContext) procedure.createContext();
+        transaction = icebergTable.newTransaction();
+        context.setTable(icebergTable);
+        context.setTransaction(transaction);
+        procedureContext = Optional.of(context);
+
+        return procedure.begin(session, context, tableLayoutHandle, arguments);
+    }
+
+    @Override
+    public void finishCallDistributedProcedure(ConnectorSession session, ConnectorDistributedProcedureHandle procedureHandle, QualifiedObjectName procedureName, Collection<Slice> fragments)
+    {
+        IcebergProcedureContext context = procedureContext.orElseThrow(() -> new VerifyException("no distributed procedure is running in this transaction"));
+        getDistributedProcedure(procedureName).finish(context, procedureHandle, fragments);
+
+        try {
+            transaction.commitTransaction();
+        }
+        catch (ValidationException e) {
+            log.error(e, "ValidationException in finishCallDistributedProcedure");
+            throw new PrestoException(ICEBERG_COMMIT_ERROR, "Failed to commit Iceberg update to table: " + ((IcebergDistributedProcedureHandle) procedureHandle).getTableName(), e);
+        }
+        finally {
+            procedureContext = Optional.empty();
+        }
+    }
+
+    private DistributedProcedure getDistributedProcedure(QualifiedObjectName procedureName)
+    {
+        return procedureRegistry.resolveDistributed(
+                new ConnectorId(procedureName.getCatalogName()),
+                new SchemaTableName(procedureName.getSchemaName(), procedureName.getObjectName()));
+    }
+
     @Override
     public ConnectorDeleteTableHandle beginDelete(ConnectorSession session, ConnectorTableHandle tableHandle)
     {
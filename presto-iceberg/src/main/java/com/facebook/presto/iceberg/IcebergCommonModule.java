@@ -41,6 +41,9 @@ import com.facebook.presto.hive.datasink.OutputStreamDataSinkFactory;
 import com.facebook.presto.hive.gcs.GcsConfigurationInitializer;
 import com.facebook.presto.hive.gcs.HiveGcsConfig;
 import com.facebook.presto.hive.gcs.HiveGcsConfigurationInitializer;
+import com.facebook.presto.iceberg.delete.DeleteFileCache;
+import com.facebook.presto.iceberg.delete.DeleteFileCacheKey;
+import com.facebook.presto.iceberg.delete.DeleteFilter;
 import com.facebook.presto.iceberg.nessie.IcebergNessieConfig;
 import com.facebook.presto.iceberg.optimizer.IcebergPlanOptimizerProvider;
 import com.facebook.presto.iceberg.procedure.ExpireSnapshotsProcedure;
@@ -48,6 +51,7 @@ import com.facebook.presto.iceberg.procedure.FastForwardBranchProcedure;
 import com.facebook.presto.iceberg.procedure.ManifestFileCacheInvalidationProcedure;
 import com.facebook.presto.iceberg.procedure.RegisterTableProcedure;
 import com.facebook.presto.iceberg.procedure.RemoveOrphanFiles;
+import com.facebook.presto.iceberg.procedure.RewriteDataFilesProcedure;
 import com.facebook.presto.iceberg.procedure.RollbackToSnapshotProcedure;
 import com.facebook.presto.iceberg.procedure.RollbackToTimestampProcedure;
 import com.facebook.presto.iceberg.procedure.SetCurrentSnapshotProcedure;
@@ -109,6 +113,7 @@ import static com.facebook.presto.orc.StripeMetadataSource.CacheableSlice;
 import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static com.google.inject.multibindings.OptionalBinder.newOptionalBinder;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -186,6 +191,7 @@ public class IcebergCommonModule
         procedures.addBinding().toProvider(SetTablePropertyProcedure.class).in(Scopes.SINGLETON);
         procedures.addBinding().toProvider(StatisticsFileCacheInvalidationProcedure.class).in(Scopes.SINGLETON);
         procedures.addBinding().toProvider(ManifestFileCacheInvalidationProcedure.class).in(Scopes.SINGLETON);
+        procedures.addBinding().toProvider(RewriteDataFilesProcedure.class).in(Scopes.SINGLETON);
 
         // for orc
         binder.bind(EncryptionLibrary.class).annotatedWith(HiveDwrfEncryptionProvider.ForCryptoService.class).to(UnsupportedEncryptionLibrary.class).in(Scopes.SINGLETON);
@@ -234,6 +240,34 @@ public class IcebergCommonModule
         return manifestFileCache;
     }
 
+    @Singleton
+    @Provides
+    public ManifestIndexCache createManifestIndexCache(IcebergConfig config, MBeanExporter exporter)
+    {
+        Cache<String, ManifestIndex> delegate = CacheBuilder.newBuilder()
+                .maximumWeight(config.getMaxManifestIndexCacheSize().toBytes())
+                .<String, ManifestIndex>weigher((key, entry) -> (int) min(entry.getRetainedSizeInBytes(), Integer.MAX_VALUE))
+                .recordStats()
+                .build();
+        ManifestIndexCache manifestIndexCache = new ManifestIndexCache(delegate, config.isManifestIndexCacheEnabled());
+        exporter.export(generatedNameOf(ManifestIndexCache.class, connectorId), manifestIndexCache);
+        return manifestIndexCache;
+    }
+
+    @Singleton
+    @Provides
+    public DeleteFileCache createDeleteFileCache(IcebergConfig config, MBeanExporter exporter)
+    {
+        Cache<DeleteFileCacheKey, DeleteFilter> delegate = CacheBuilder.newBuilder()
+                .maximumWeight(config.getMaxDeleteFileCacheSize().toBytes())
+                .<DeleteFileCacheKey, DeleteFilter>weigher((key, entry) -> (int) min(entry.getRetainedSizeInBytes(), Integer.MAX_VALUE))
+                .recordStats()
+                .build();
+        DeleteFileCache deleteFileCache = new DeleteFileCache(delegate, config.isDeleteFileCacheEnabled());
+        exporter.export(generatedNameOf(DeleteFileCache.class, connectorId), deleteFileCache);
+        return deleteFileCache;
+    }
+
     @ForCachingHiveMetastore
     @Singleton
     @Provides
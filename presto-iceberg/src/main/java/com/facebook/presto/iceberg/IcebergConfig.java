@@ -76,6 +76,10 @@ public class IcebergConfig
     private DataSize manifestCacheMaxChunkSize = succinctDataSize(2, MEGABYTE);
     private int splitManagerThreads = Runtime.getRuntime().availableProcessors();
     private DataSize maxStatisticsFileCacheSize = succinctDataSize(256, MEGABYTE);
+    private boolean manifestIndexCacheEnabled;
+    private DataSize maxManifestIndexCacheSize = succinctDataSize(256, MEGABYTE);
+    private boolean deleteFileCacheEnabled;
+    private DataSize maxDeleteFileCacheSize = succinctDataSize(128, MEGABYTE);
 
     @NotNull
     public FileFormat getFileFormat()
@@ -465,6 +469,58 @@ public class IcebergConfig
         return this;
     }
 
+    public boolean isManifestIndexCacheEnabled()
+    {
+        return manifestIndexCacheEnabled;
+    }
+
+    @Config("iceberg.manifest-index-cache-enabled")
+    @ConfigDescription("Prune data manifests during split generation using their partition tuples and column bounds cached on the coordinator")
+    public IcebergConfig setManifestIndexCacheEnabled(boolean manifestIndexCacheEnabled)
+    {
+        this.manifestIndexCacheEnabled = manifestIndexCacheEnabled;
+        return this;
+    }
+
+    public DataSize getMaxManifestIndexCacheSize()
+    {
+        return maxManifestIndexCacheSize;
+    }
+
+    @Config("iceberg.max-manifest-index-cache-size")
+    @ConfigDescription("The maximum size in bytes the manifest index cache should consume")
+    public IcebergConfig setMaxManifestIndexCacheSize(DataSize maxManifestIndexCacheSize)
+    {
+        this.maxManifestIndexCacheSize = maxManifestIndexCacheSize;
+        return this;
+    }
+
+    public boolean isDeleteFileCacheEnabled()
+    {
+        return deleteFileCacheEnabled;
+    }
+
+    @Config("iceberg.delete-file-cache-enabled")
+    @ConfigDescription("Cache the decoded position and equality delete files on workers, so that they are read once for all the splits they apply to")
+    public IcebergConfig setDeleteFileCacheEnabled(boolean deleteFileCacheEnabled)
+    {
+        this.deleteFileCacheEnabled = deleteFileCacheEnabled;
+        return this;
+    }
+
+    public DataSize getMaxDeleteFileCacheSize()
+    {
+        return maxDeleteFileCacheSize;
+    }
+
+    @Config("iceberg.max-delete-file-cache-size")
+    @ConfigDescription("The maximum size in bytes the delete file cache should consume")
+    public IcebergConfig setMaxDeleteFileCacheSize(DataSize maxDeleteFileCacheSize)
+    {
+        this.maxDeleteFileCacheSize = maxDeleteFileCacheSize;
+        return this;
+    }
+
     public int getStatisticsKllSketchKParameter()
     {
         return this.statisticsKllSketchKParameter;
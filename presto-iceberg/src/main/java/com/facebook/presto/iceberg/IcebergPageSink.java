@@ -42,6 +42,7 @@ import com.facebook.presto.spi.PageIndexer;
 import com.facebook.presto.spi.PageIndexerFactory;
 import com.facebook.presto.spi.PrestoException;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import io.airlift.slice.Slice;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -65,8 +66,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static com.facebook.presto.common.type.Decimals.readBigDecimal;
 import static com.facebook.presto.hive.util.ConfigurationUtils.toJobConf;
@@ -75,6 +78,7 @@ import static com.facebook.presto.iceberg.IcebergErrorCode.ICEBERG_INVALID_METAD
 import static com.facebook.presto.iceberg.IcebergErrorCode.ICEBERG_TOO_MANY_OPEN_PARTITIONS;
 import static com.facebook.presto.iceberg.IcebergErrorCode.ICEBERG_WRITER_OPEN_ERROR;
 import static com.facebook.presto.iceberg.IcebergUtil.getColumnsForWrite;
+import static com.facebook.presto.iceberg.IcebergUtil.getZOrderColumns;
 import static com.facebook.presto.iceberg.PartitionTransforms.getColumnTransform;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Verify.verify;
@@ -111,6 +115,10 @@ public class IcebergPageSink
     private final Table table;
 
     private final List<WriteContext> writers = new ArrayList<>();
+    // the files closed once they reached the target file size, and their commit tasks
+    private final List<WriteContext> rolledWriters = new ArrayList<>();
+    private final List<Slice> rolledCommitTasks = new ArrayList<>();
+    private final OptionalLong targetFileSizeBytes;
 
     private long writtenBytes;
     private long systemMemoryUsage;
@@ -121,6 +129,7 @@ public class IcebergPageSink
     private final List<Type> columnTypes;
     private final List<Integer> sortColumnIndexes;
     private final List<SortOrder> sortOrders;
+    private final List<Integer> zOrderColumnIndexes;
     private final SortParameters sortParameters;
 
     public IcebergPageSink(
@@ -136,7 +145,8 @@ public class IcebergPageSink
             FileFormat fileFormat,
             int maxOpenWriters,
             List<SortField> sortOrder,
-            SortParameters sortParameters)
+            SortParameters sortParameters,
+            OptionalLong targetFileSizeBytes)
     {
         requireNonNull(inputColumns, "inputColumns is null");
         this.table = requireNonNull(table, "table is null");
@@ -179,6 +189,19 @@ public class IcebergPageSink
             this.sortColumnIndexes = ImmutableList.of();
             this.sortOrders = ImmutableList.of();
         }
+
+        ImmutableList.Builder<Integer> zOrderColumnIndexes = ImmutableList.builder();
+        if (sortOrder.isEmpty()) {
+            for (String name : getZOrderColumns(table)) {
+                Types.NestedField column = outputSchema.findField(name);
+                if (column == null) {
+                    throw new PrestoException(ICEBERG_INVALID_METADATA, "Unable to find Z-order column in the table schema: " + name);
+                }
+                zOrderColumnIndexes.add(outputSchema.columns().indexOf(column));
+            }
+        }
+        this.zOrderColumnIndexes = zOrderColumnIndexes.build();
+        this.targetFileSizeBytes = requireNonNull(targetFileSizeBytes, "targetFileSizeBytes is null");
     }
 
     @Override
@@ -210,39 +233,44 @@ public class IcebergPageSink
     @Override
     public CompletableFuture<Collection<Slice>> finish()
     {
-        Collection<Slice> commitTasks = new ArrayList<>();
+        Collection<Slice> commitTasks = new ArrayList<>(rolledCommitTasks);
 
         for (WriteContext context : writers) {
-            context.getWriter().commit();
-
-            CommitTaskData task = new CommitTaskData(
-                    context.getPath().toString(),
-                    context.writer.getFileSizeInBytes(),
-                    new MetricsWrapper(context.writer.getMetrics()),
-                    partitionSpec.specId(),
-                    context.getPartitionData().map(PartitionData::toJson),
-                    fileFormat,
-                    null,
-                    DATA);
-
-            commitTasks.add(wrappedBuffer(jsonCodec.toJsonBytes(task)));
+            commitTasks.add(commit(context));
         }
 
-        writtenBytes = writers.stream()
+        writtenBytes = Stream.concat(rolledWriters.stream(), writers.stream())
                 .mapToLong(writer -> writer.getWriter().getWrittenBytes())
                 .sum();
-        validationCpuNanos = writers.stream()
+        validationCpuNanos = Stream.concat(rolledWriters.stream(), writers.stream())
                 .mapToLong(writer -> writer.getWriter().getValidationCpuNanos())
                 .sum();
 
         return completedFuture(commitTasks);
     }
 
+    private Slice commit(WriteContext context)
+    {
+        context.getWriter().commit();
+
+        CommitTaskData task = new CommitTaskData(
+                context.getPath().toString(),
+                context.writer.getFileSizeInBytes(),
+                new MetricsWrapper(context.writer.getMetrics()),
+                partitionSpec.specId(),
+                context.getPartitionData().map(PartitionData::toJson),
+                fileFormat,
+                null,
+                DATA);
+
+        return wrappedBuffer(jsonCodec.toJsonBytes(task));
+    }
+
     @Override
     public void abort()
     {
         RuntimeException error = null;
-        for (WriteContext context : writers) {
+        for (WriteContext context : Iterables.concat(rolledWriters, writers)) {
             try {
                 if (context != null) {
                     context.getWriter().rollback();
@@ -319,6 +347,29 @@ public class IcebergPageSink
 
             writtenBytes += (writer.getWrittenBytes() - currentWritten);
             systemMemoryUsage += (writer.getSystemMemoryUsage() - currentMemory);
+
+            if (targetFileSizeBytes.isPresent() && writer.getWrittenBytes() >= targetFileSizeBytes.getAsLong()) {
+                rollWriter(index);
+            }
+        }
+    }
+
+    /**
+     * Closes the file of a writer that reached the target file size, and continues the partition in a new file.
+     */
+    private void rollWriter(int index)
+    {
+        WriteContext context = writers.get(index);
+        long currentMemory = context.getWriter().getSystemMemoryUsage();
+        rolledCommitTasks.add(commit(context));
+        rolledWriters.add(context);
+        systemMemoryUsage -= currentMemory;
+
+        try {
+            writers.set(index, createWriteContext(context.getPartitionData()));
+        }
+        catch (IOException e) {
+            throw new PrestoException(ICEBERG_WRITER_OPEN_ERROR, e);
         }
     }
 
@@ -345,32 +396,8 @@ public class IcebergPageSink
             }
 
             Optional<PartitionData> partitionData = getPartitionData(pagePartitioner.getColumns(), transformedPage, position);
-
-            String fileName = fileFormat.addExtension(randomUUID().toString());
-            Path outputPath = partitionData.map(partition -> new Path(locationProvider.newDataLocation(partitionSpec, partition, fileName)))
-                    .orElse(new Path(locationProvider.newDataLocation(fileName)));
-
             try {
-                FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), outputPath, jobConf);
-                if (!sortOrder.isEmpty()) {
-                    Path tempFilePrefix = new Path(tempDirectory, format("sorting-file-writer-%s-%s", session.getQueryId(), randomUUID()));
-                    WriteContext writerContext = createWriter(partitionData, outputPath);
-                    IcebergFileWriter sortedFileWriter = new IcebergSortingFileWriter(
-                            fileSystem,
-                            tempFilePrefix,
-                            writerContext.getWriter(),
-                            columnTypes,
-                            sortColumnIndexes,
-                            sortOrders,
-                            false,
-                            session,
-                            sortParameters);
-                    writer = new WriteContext(sortedFileWriter, outputPath, partitionData);
-                }
-                else {
-                    writer = createWriter(partitionData, outputPath);
-                }
-                writers.set(writerIndex, writer);
+                writers.set(writerIndex, createWriteContext(partitionData));
             }
             catch (IOException e) {
                 throw new PrestoException(ICEBERG_WRITER_OPEN_ERROR, e);
@@ -381,6 +408,45 @@ public class IcebergPageSink
         return writerIndexes;
     }
 
+    private WriteContext createWriteContext(Optional<PartitionData> partitionData)
+            throws IOException
+    {
+        String fileName = fileFormat.addExtension(randomUUID().toString());
+        Path outputPath = partitionData.map(partition -> new Path(locationProvider.newDataLocation(partitionSpec, partition, fileName)))
+                .orElse(new Path(locationProvider.newDataLocation(fileName)));
+
+        FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), outputPath, jobConf);
+        if (!sortOrder.isEmpty()) {
+            Path tempFilePrefix = new Path(tempDirectory, format("sorting-file-writer-%s-%s", session.getQueryId(), randomUUID()));
+            WriteContext writerContext = createWriter(partitionData, outputPath);
+            IcebergFileWriter sortedFileWriter = new IcebergSortingFileWriter(
+                    fileSystem,
+                    tempFilePrefix,
+                    writerContext.getWriter(),
+                    columnTypes,
+                    sortColumnIndexes,
+                    sortOrders,
+                    false,
+                    session,
+                    sortParameters);
+            return new WriteContext(sortedFileWriter, outputPath, partitionData);
+        }
+        if (!zOrderColumnIndexes.isEmpty()) {
+            Path tempFilePrefix = new Path(tempDirectory, format("sorting-file-writer-%s-%s", session.getQueryId(), randomUUID()));
+            WriteContext writerContext = createWriter(partitionData, outputPath);
+            IcebergFileWriter zOrderFileWriter = new IcebergSortingFileWriter(
+                    fileSystem,
+                    tempFilePrefix,
+                    writerContext.getWriter(),
+                    columnTypes,
+                    zOrderColumnIndexes,
+                    session,
+                    sortParameters);
+            return new WriteContext(zOrderFileWriter, outputPath, partitionData);
+        }
+        return createWriter(partitionData, outputPath);
+    }
+
     private WriteContext createWriter(Optional<PartitionData> partitionData, Path outputPath)
     {
         IcebergFileWriter writer = fileWriterFactory.createFileWriter(
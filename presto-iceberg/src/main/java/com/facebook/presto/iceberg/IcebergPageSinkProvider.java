@@ -16,6 +16,7 @@ package com.facebook.presto.iceberg;
 import com.facebook.airlift.json.JsonCodec;
 import com.facebook.presto.hive.HdfsContext;
 import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.spi.ConnectorDistributedProcedureHandle;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
 import com.facebook.presto.spi.ConnectorPageSink;
@@ -32,6 +33,7 @@ import org.apache.iceberg.Table;
 import org.apache.iceberg.io.LocationProvider;
 
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static com.facebook.presto.iceberg.IcebergUtil.getLocationProvider;
 import static com.facebook.presto.iceberg.IcebergUtil.getShallowWrappedIcebergTable;
@@ -70,16 +72,23 @@ public class IcebergPageSinkProvider
     @Override
     public ConnectorPageSink createPageSink(ConnectorTransactionHandle transactionHandle, ConnectorSession session, ConnectorOutputTableHandle outputTableHandle, PageSinkContext pageSinkContext)
     {
-        return createPageSink(session, (IcebergWritableTableHandle) outputTableHandle);
+        return createPageSink(session, (IcebergWritableTableHandle) outputTableHandle, OptionalLong.empty());
     }
 
     @Override
     public ConnectorPageSink createPageSink(ConnectorTransactionHandle transactionHandle, ConnectorSession session, ConnectorInsertTableHandle insertTableHandle, PageSinkContext pageSinkContext)
     {
-        return createPageSink(session, (IcebergWritableTableHandle) insertTableHandle);
+        return createPageSink(session, (IcebergWritableTableHandle) insertTableHandle, OptionalLong.empty());
     }
 
-    private ConnectorPageSink createPageSink(ConnectorSession session, IcebergWritableTableHandle tableHandle)
+    @Override
+    public ConnectorPageSink createPageSink(ConnectorTransactionHandle transactionHandle, ConnectorSession session, ConnectorDistributedProcedureHandle procedureHandle, PageSinkContext pageSinkContext)
+    {
+        IcebergDistributedProcedureHandle handle = (IcebergDistributedProcedureHandle) procedureHandle;
+        return createPageSink(session, handle, OptionalLong.of(handle.getTargetFileSizeBytes()));
+    }
+
+    private ConnectorPageSink createPageSink(ConnectorSession session, IcebergWritableTableHandle tableHandle, OptionalLong targetFileSizeBytes)
     {
         HdfsContext hdfsContext = new HdfsContext(session, tableHandle.getSchemaName(), tableHandle.getTableName().getTableName());
         Schema schema = toIcebergSchema(tableHandle.getSchema());
@@ -100,6 +109,7 @@ public class IcebergPageSinkProvider
                 tableHandle.getFileFormat(),
                 maxOpenPartitions,
                 tableHandle.getSortOrder(),
-                sortParameters);
+                sortParameters,
+                targetFileSizeBytes);
     }
 }
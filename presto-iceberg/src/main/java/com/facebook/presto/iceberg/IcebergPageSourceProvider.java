@@ -43,6 +43,7 @@ import com.facebook.presto.hive.orc.ProjectionBasedDwrfKeyProvider;
 import com.facebook.presto.hive.parquet.ParquetPageSource;
 import com.facebook.presto.iceberg.changelog.ChangelogPageSource;
 import com.facebook.presto.iceberg.delete.DeleteFile;
+import com.facebook.presto.iceberg.delete.DeleteFileCache;
 import com.facebook.presto.iceberg.delete.DeleteFilter;
 import com.facebook.presto.iceberg.delete.IcebergDeletePageSink;
 import com.facebook.presto.iceberg.delete.PositionDeleteFilter;
@@ -156,6 +157,8 @@ import static com.facebook.presto.iceberg.IcebergUtil.getLocationProvider;
 import static com.facebook.presto.iceberg.IcebergUtil.getShallowWrappedIcebergTable;
 import static com.facebook.presto.iceberg.TypeConverter.ORC_ICEBERG_ID_KEY;
 import static com.facebook.presto.iceberg.TypeConverter.toHiveType;
+import static com.facebook.presto.iceberg.delete.DeleteFileCacheKey.equalityDeletesKey;
+import static com.facebook.presto.iceberg.delete.DeleteFileCacheKey.positionDeletesKey;
 import static com.facebook.presto.iceberg.delete.EqualityDeleteFilter.readEqualityDeletes;
 import static com.facebook.presto.iceberg.delete.PositionDeleteFilter.readPositionDeletes;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
@@ -208,6 +211,7 @@ public class IcebergPageSourceProvider
     private final PageIndexerFactory pageIndexerFactory;
     private final int maxOpenPartitions;
     private final SortParameters sortParameters;
+    private final DeleteFileCache deleteFileCache;
 
     @Inject
     public IcebergPageSourceProvider(
@@ -223,7 +227,8 @@ public class IcebergPageSourceProvider
             JsonCodec<CommitTaskData> jsonCodec,
             PageIndexerFactory pageIndexerFactory,
             IcebergConfig icebergConfig,
-            SortParameters sortParameters)
+            SortParameters sortParameters,
+            DeleteFileCache deleteFileCache)
     {
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.fileFormatDataSourceStats = requireNonNull(fileFormatDataSourceStats, "fileFormatDataSourceStats is null");
@@ -239,6 +244,7 @@ public class IcebergPageSourceProvider
         requireNonNull(icebergConfig, "icebergConfig is null");
         this.maxOpenPartitions = icebergConfig.getMaxPartitionsPerWriter();
         this.sortParameters = requireNonNull(sortParameters, "sortParameters is null");
+        this.deleteFileCache = requireNonNull(deleteFileCache, "deleteFileCache is null");
     }
 
     private static ConnectorPageSourceWithRowPositions createParquetPageSource(
@@ -879,7 +885,8 @@ public class IcebergPageSourceProvider
                 split.getFileFormat(),
                 maxOpenPartitions,
                 table.getSortOrder(),
-                sortParameters);
+                sortParameters,
+                OptionalLong.empty());
 
         ConnectorPageSource dataSource = new IcebergUpdateablePageSource(
                 tableSchema,
@@ -933,6 +940,7 @@ public class IcebergPageSourceProvider
 
         Slice targetPath = utf8Slice(dataFilePath);
         List<DeleteFilter> filters = new ArrayList<>();
+        List<PositionDeleteFilter> cachedPositionDeletes = new ArrayList<>();
         LongBitmapDataProvider deletedRows = new Roaring64Bitmap();
 
         IcebergColumnHandle deleteFilePath = IcebergColumnHandle.create(DELETE_FILE_PATH, typeManager, IcebergColumnHandle.ColumnType.REGULAR);
@@ -962,6 +970,11 @@ public class IcebergPageSourceProvider
                     }
                 }
 
+                if (deleteFileCache.isEnabled()) {
+                    cachedPositionDeletes.add(getCachedPositionDeletes(session, delete, dataFilePath, deleteColumns));
+                    continue;
+                }
+
                 try (ConnectorPageSource pageSource = openDeletes(session, delete, deleteColumns, deleteDomain)) {
                     readPositionDeletes(pageSource, targetPath, deletedRows);
                 }
@@ -980,6 +993,11 @@ public class IcebergPageSourceProvider
                         .map(id -> IcebergColumnHandle.create(schema.findField(id), typeManager, IcebergColumnHandle.ColumnType.REGULAR))
                         .collect(toImmutableList());
 
+                if (deleteFileCache.isEnabled()) {
+                    filters.add(getCachedEqualityDeletes(session, delete, columns));
+                    continue;
+                }
+
                 try (ConnectorPageSource pageSource = openDeletes(session, delete, columns, TupleDomain.all())) {
                     filters.add(readEqualityDeletes(pageSource, columns, storeDeleteFilePath ? delete.path() : null));
                 }
@@ -996,9 +1014,44 @@ public class IcebergPageSourceProvider
             filters.add(new PositionDeleteFilter(deletedRows, null));
         }
 
+        // the cached filters are shared with the other splits of the data file, so a row is tested against the
+        // bitmap of each delete file rather than against a union copied for this split. The cached filters keep
+        // the path of their delete file, which is only used when it is requested
+        filters.addAll(cachedPositionDeletes);
+
         return filters;
     }
 
+    private PositionDeleteFilter getCachedPositionDeletes(ConnectorSession session, DeleteFile delete, String dataFilePath, List<IcebergColumnHandle> deleteColumns)
+    {
+        return (PositionDeleteFilter) deleteFileCache.getOrLoad(positionDeletesKey(delete.path(), dataFilePath), () -> {
+            // all the deletes of the data file are cached, since the other splits of the file need them
+            Slice targetPath = utf8Slice(dataFilePath);
+            TupleDomain<IcebergColumnHandle> deleteDomain = TupleDomain.fromFixedValues(ImmutableMap.of(deleteColumns.get(0), NullableValue.of(VARCHAR, targetPath)));
+            Roaring64Bitmap deletedRows = new Roaring64Bitmap();
+            try (ConnectorPageSource pageSource = openDeletes(session, delete, deleteColumns, deleteDomain)) {
+                readPositionDeletes(pageSource, targetPath, deletedRows);
+            }
+            catch (IOException e) {
+                throw new PrestoException(ICEBERG_CANNOT_OPEN_SPLIT, format("Cannot open Iceberg delete file: %s", delete.path()), e);
+            }
+            deletedRows.runOptimize();
+            return new PositionDeleteFilter(deletedRows, delete.path());
+        });
+    }
+
+    private DeleteFilter getCachedEqualityDeletes(ConnectorSession session, DeleteFile delete, List<IcebergColumnHandle> columns)
+    {
+        return deleteFileCache.getOrLoad(equalityDeletesKey(delete.path(), columns), () -> {
+            try (ConnectorPageSource pageSource = openDeletes(session, delete, columns, TupleDomain.all())) {
+                return readEqualityDeletes(pageSource, columns, delete.path());
+            }
+            catch (IOException e) {
+                throw new PrestoException(ICEBERG_CANNOT_OPEN_SPLIT, format("Cannot open Iceberg delete file: %s", delete.path()), e);
+            }
+        });
+    }
+
     private ConnectorPageSource openDeletes(
             ConnectorSession session,
             DeleteFile delete,
@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg;
+
+import com.facebook.presto.spi.connector.ConnectorProcedureContext;
+import com.google.common.collect.ImmutableList;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.Transaction;
+import org.apache.iceberg.io.CloseableIterable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * State of a distributed procedure call on an Iceberg table, shared between the metadata that begins
+ * and finishes the call and the split manager that plans the files read by the call.
+ */
+public class IcebergProcedureContext
+        implements ConnectorProcedureContext
+{
+    private final Map<String, DataFile> scannedDataFiles = new ConcurrentHashMap<>();
+    private final Map<String, DeleteFile> scannedDeleteFiles = new ConcurrentHashMap<>();
+    private Optional<Table> table = Optional.empty();
+    private Optional<Transaction> transaction = Optional.empty();
+    private UnaryOperator<List<FileScanTask>> fileGroupSelector = UnaryOperator.identity();
+
+    public Table getTable()
+    {
+        return table.orElseThrow(() -> new IllegalStateException("table is not set"));
+    }
+
+    public void setTable(Table table)
+    {
+        checkState(!this.table.isPresent(), "table is already set");
+        this.table = Optional.of(requireNonNull(table, "table is null"));
+    }
+
+    public Transaction getTransaction()
+    {
+        return transaction.orElseThrow(() -> new IllegalStateException("transaction is not set"));
+    }
+
+    public void setTransaction(Transaction transaction)
+    {
+        checkState(!this.transaction.isPresent(), "transaction is already set");
+        this.transaction = Optional.of(requireNonNull(transaction, "transaction is null"));
+    }
+
+    /**
+     * Sets the function choosing the files read by the call among the files of a partition.
+     */
+    public void setFileGroupSelector(UnaryOperator<List<FileScanTask>> fileGroupSelector)
+    {
+        this.fileGroupSelector = requireNonNull(fileGroupSelector, "fileGroupSelector is null");
+    }
+
+    /**
+     * Groups the tasks by partition, keeps the ones chosen by the file group selector and records their files
+     * as scanned. The tasks are fully planned before the first one is returned, since a group can only be
+     * chosen once all of its files are known.
+     */
+    public CloseableIterable<FileScanTask> selectFileScanTasks(CloseableIterable<FileScanTask> fileScanTasks)
+    {
+        Map<String, List<FileScanTask>> fileGroups = new LinkedHashMap<>();
+        try (CloseableIterable<FileScanTask> tasks = fileScanTasks) {
+            for (FileScanTask task : tasks) {
+                String partition = task.spec().specId() + "/" + task.spec().partitionToPath(task.file().partition());
+                fileGroups.computeIfAbsent(partition, ignored -> new ArrayList<>()).add(task);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ImmutableList.Builder<FileScanTask> selectedTasks = ImmutableList.builder();
+        for (List<FileScanTask> fileGroup : fileGroups.values()) {
+            for (FileScanTask task : fileGroupSelector.apply(fileGroup)) {
+                scannedDataFiles.put(task.file().path().toString(), task.file());
+                task.deletes().forEach(deleteFile -> scannedDeleteFiles.put(deleteFile.path().toString(), deleteFile));
+                selectedTasks.add(task);
+            }
+        }
+        return CloseableIterable.withNoopClose(selectedTasks.build());
+    }
+
+    public Collection<DataFile> getScannedDataFiles()
+    {
+        return scannedDataFiles.values();
+    }
+
+    public Collection<DeleteFile> getScannedDeleteFiles()
+    {
+        return scannedDeleteFiles.values();
+    }
+}
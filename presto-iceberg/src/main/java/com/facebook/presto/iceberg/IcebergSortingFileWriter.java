@@ -16,8 +16,11 @@ package com.facebook.presto.iceberg;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.SortOrder;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.hive.HiveFileWriter;
 import com.facebook.presto.hive.SortingFileWriter;
+import com.facebook.presto.hive.ZOrderFileWriter;
 import com.facebook.presto.spi.ConnectorSession;
+import com.google.common.collect.ImmutableList;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.iceberg.Metrics;
@@ -25,13 +28,16 @@ import org.apache.iceberg.Metrics;
 import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.presto.hive.ZOrderFileWriter.Z_ADDRESS_SORT_ORDER;
+import static com.facebook.presto.hive.ZOrderFileWriter.withZAddress;
+import static com.facebook.presto.hive.ZOrderFileWriter.withoutZAddress;
 import static java.util.Objects.requireNonNull;
 
 public class IcebergSortingFileWriter
         implements IcebergFileWriter
 {
     private final IcebergFileWriter outputWriter;
-    private final SortingFileWriter sortingFileWriter;
+    private final HiveFileWriter sortingFileWriter;
 
     public IcebergSortingFileWriter(
             FileSystem fileSystem,
@@ -45,7 +51,60 @@ public class IcebergSortingFileWriter
             SortParameters sortParameters)
     {
         this.outputWriter = requireNonNull(outputWriter, "outputWriter is null");
-        this.sortingFileWriter = new SortingFileWriter(
+        this.sortingFileWriter = createSortingFileWriter(
+                fileSystem,
+                tempFilePrefix,
+                outputWriter,
+                types,
+                sortFields,
+                sortOrders,
+                sortedWriteToTempPathEnabled,
+                session,
+                sortParameters);
+    }
+
+    /**
+     * Creates a writer clustering the rows of the file along a Z-order curve over the given columns. The rows are
+     * only ordered within the file, see {@link ZOrderFileWriter}.
+     */
+    public IcebergSortingFileWriter(
+            FileSystem fileSystem,
+            Path tempFilePrefix,
+            IcebergFileWriter outputWriter,
+            List<Type> types,
+            List<Integer> zOrderChannels,
+            ConnectorSession session,
+            SortParameters sortParameters)
+    {
+        this.outputWriter = requireNonNull(outputWriter, "outputWriter is null");
+        this.sortingFileWriter = new ZOrderFileWriter(
+                createSortingFileWriter(
+                        fileSystem,
+                        tempFilePrefix,
+                        withoutZAddress(outputWriter, types.size()),
+                        withZAddress(types),
+                        ImmutableList.of(types.size()),
+                        ImmutableList.of(Z_ADDRESS_SORT_ORDER),
+                        false,
+                        session,
+                        sortParameters),
+                types,
+                zOrderChannels,
+                sortParameters.getSortingFileWriterConfig().getWriterSortBufferSize());
+    }
+
+    private static SortingFileWriter createSortingFileWriter(
+            FileSystem fileSystem,
+            Path tempFilePrefix,
+            HiveFileWriter outputWriter,
+            List<Type> types,
+            List<Integer> sortFields,
+            List<SortOrder> sortOrders,
+            boolean sortedWriteToTempPathEnabled,
+            ConnectorSession session,
+            SortParameters sortParameters)
+    {
+        return new SortingFileWriter(
                 fileSystem,
                 tempFilePrefix,
                 outputWriter,
@@ -14,6 +14,7 @@
 package com.facebook.presto.iceberg;
 
 import com.facebook.airlift.concurrent.ThreadPoolExecutorMBean;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.TypeManager;
 import com.facebook.presto.iceberg.changelog.ChangelogSplitSource;
@@ -24,46 +25,75 @@ import com.facebook.presto.spi.ConnectorTableLayoutHandle;
 import com.facebook.presto.spi.FixedSplitSource;
 import com.facebook.presto.spi.connector.ConnectorSplitManager;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import jakarta.inject.Inject;
 import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileScanTask;
 import org.apache.iceberg.IncrementalChangelogScan;
+import org.apache.iceberg.ManifestFile;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Snapshot;
 import org.apache.iceberg.Table;
 import org.apache.iceberg.TableScan;
+import org.apache.iceberg.expressions.Expression;
 import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.io.FileIO;
 import org.apache.iceberg.util.SnapshotUtil;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.iceberg.ExpressionConverter.toIcebergExpression;
 import static com.facebook.presto.iceberg.IcebergTableType.CHANGELOG;
 import static com.facebook.presto.iceberg.IcebergTableType.EQUALITY_DELETES;
+import static com.facebook.presto.iceberg.IcebergUtil.getDataSequenceNumber;
 import static com.facebook.presto.iceberg.IcebergUtil.getIcebergTable;
 import static com.facebook.presto.iceberg.IcebergUtil.getMetadataColumnConstraints;
 import static com.facebook.presto.iceberg.IcebergUtil.getNonMetadataColumnConstraints;
+import static com.facebook.presto.iceberg.IcebergUtil.getTargetSplitSize;
+import static com.facebook.presto.iceberg.IcebergUtil.metadataColumnsMatchPredicates;
+import static com.facebook.presto.iceberg.ManifestIndex.readManifestIndex;
 import static java.util.Objects.requireNonNull;
+import static org.apache.iceberg.IcebergLibUtils.planFiles;
 
 public class IcebergSplitManager
         implements ConnectorSplitManager
 {
+    private static final String SKIPPED_DATA_MANIFESTS = "IcebergManifestIndex/skippedDataManifests";
+
     private final IcebergTransactionManager transactionManager;
     private final TypeManager typeManager;
     private final ExecutorService executor;
     private final ThreadPoolExecutorMBean executorServiceMBean;
+    private final ManifestIndexCache manifestIndexCache;
+    private final int maxInFlightManifestEvaluations;
 
     @Inject
     public IcebergSplitManager(
             IcebergTransactionManager transactionManager,
             TypeManager typeManager,
-            @ForIcebergSplitManager ExecutorService executor)
+            @ForIcebergSplitManager ExecutorService executor,
+            ManifestIndexCache manifestIndexCache,
+            IcebergConfig config)
     {
         this.transactionManager = requireNonNull(transactionManager, "transactionManager is null");
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.executor = requireNonNull(executor, "executor is null");
+        this.manifestIndexCache = requireNonNull(manifestIndexCache, "manifestIndexCache is null");
         this.executorServiceMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) executor);
+        // a query keeps at most as many evaluations in flight as the executor has threads, so that it cannot queue all its manifests ahead of other queries
+        this.maxInFlightManifestEvaluations = Math.max(1, requireNonNull(config, "config is null").getSplitManagerThreads());
     }
 
     @Override
@@ -112,6 +142,37 @@ public class IcebergSplitManager
                     .useSnapshot(table.getIcebergTableName().getSnapshotId().get())
                     .planWith(executor);
 
+            Optional<IcebergProcedureContext> procedureContext = ((IcebergAbstractMetadata) transactionManager.get(transaction)).getProcedureContext();
+            if (procedureContext.isPresent()) {
+                // the files read by a distributed procedure are replaced as a whole, so they are selected before being split
+                TupleDomain<IcebergColumnHandle> metadataColumnConstraints = getMetadataColumnConstraints(layoutHandle.getValidPredicate());
+                CloseableIterable<FileScanTask> fileScanTasks = CloseableIterable.filter(
+                        tableScan.planFiles(),
+                        task -> metadataColumnsMatchPredicates(metadataColumnConstraints, task.file().path().toString(), getDataSequenceNumber(task.file())));
+                return new IcebergSplitSource(
+                        session,
+                        procedureContext.get().selectFileScanTasks(fileScanTasks),
+                        getTargetSplitSize(session, tableScan),
+                        metadataColumnConstraints);
+            }
+
+            if (manifestIndexCache.isEnabled()) {
+                Snapshot snapshot = icebergTable.snapshot(table.getIcebergTableName().getSnapshotId().get());
+                return new IcebergSplitSource(
+                        session,
+                        planFiles(
+                                icebergTable,
+                                snapshot,
+                                tableScan.schema(),
+                                getMatchingDataManifests(icebergTable, tableScan.schema(), snapshot, tableScan.filter(), tableScan.isCaseSensitive(), session.getRuntimeStats()),
+                                tableScan.filter(),
+                                tableScan.isCaseSensitive(),
+                                new RuntimeStatsMetricsReporter(session.getRuntimeStats()),
+                                executor),
+                        getTargetSplitSize(session, tableScan),
+                        getMetadataColumnConstraints(layoutHandle.getValidPredicate()));
+            }
+
             // TODO Use residual. Right now there is no way to propagate residual to presto but at least we can
             //      propagate it at split level so the parquet pushdown can leverage it.
             IcebergSplitSource splitSource = new IcebergSplitSource(
@@ -122,6 +183,65 @@ public class IcebergSplitManager
         }
     }
 
+    /**
+     * Returns the data manifests of the snapshot that may contain files matching the filter, according to
+     * their cached indexes. The manifests are evaluated in parallel, at most {@code maxInFlightManifestEvaluations}
+     * ahead of the manifest being returned, and returned in order as soon as they are evaluated, so that planning of
+     * the first manifests does not wait for the evaluation of the others. Closing the returned iterable cancels the
+     * evaluations that did not complete.
+     * <p>
+     * The index of a manifest missing from the cache is built by reading the manifest, which Iceberg reads
+     * again when planning the manifest if it may match: on a cold cache, the matching manifests are read twice.
+     */
+    private CloseableIterable<ManifestFile> getMatchingDataManifests(Table icebergTable, Schema schema, Snapshot snapshot, Expression filter, boolean caseSensitive, RuntimeStats runtimeStats)
+    {
+        List<ManifestFile> dataManifests = snapshot.dataManifests(icebergTable.io());
+        Map<Integer, PartitionSpec> specs = icebergTable.specs();
+        List<Future<Boolean>> matches = new ArrayList<>(dataManifests.size());
+
+        Iterable<ManifestFile> matchingManifests = () -> new AbstractIterator<ManifestFile>()
+        {
+            private int position;
+
+            @Override
+            protected ManifestFile computeNext()
+            {
+                while (position < dataManifests.size()) {
+                    synchronized (matches) {
+                        while (matches.size() < Math.min(dataManifests.size(), position + maxInFlightManifestEvaluations)) {
+                            ManifestFile manifest = dataManifests.get(matches.size());
+                            matches.add(executor.submit(() -> getManifestIndex(manifest, icebergTable.io(), specs).mightMatch(schema, specs, filter, caseSensitive)));
+                        }
+                    }
+                    ManifestFile manifest = dataManifests.get(position);
+                    boolean mightMatch = getFutureValue(matches.get(position));
+                    position++;
+                    if (mightMatch) {
+                        return manifest;
+                    }
+                    runtimeStats.addMetricValue(SKIPPED_DATA_MANIFESTS, NONE, 1);
+                }
+                return endOfData();
+            }
+        };
+        return CloseableIterable.combine(matchingManifests, () -> {
+            synchronized (matches) {
+                matches.forEach(match -> match.cancel(true));
+            }
+        });
+    }
+
+    private ManifestIndex getManifestIndex(ManifestFile manifest, FileIO io, Map<Integer, PartitionSpec> specs)
+    {
+        ManifestIndex manifestIndex = manifestIndexCache.getIfPresent(manifest.path());
+        if (manifestIndex == null) {
+            manifestIndex = readManifestIndex(manifest, io, specs);
+            manifestIndexCache.recordFileCount(manifestIndex.getFileCount());
+            manifestIndexCache.put(manifest.path(), manifestIndex);
+        }
+        return manifestIndex;
+    }
+
     @Managed
     @Nested
     public ThreadPoolExecutorMBean getExecutor()
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.iceberg;
 
+import com.facebook.airlift.units.DataSize;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.iceberg.delete.DeleteFile;
 import com.facebook.presto.spi.ConnectorSession;
@@ -27,6 +28,7 @@ import org.apache.iceberg.FileScanTask;
 import org.apache.iceberg.PartitionSpec;
 import org.apache.iceberg.PartitionSpecParser;
 import org.apache.iceberg.TableScan;
+import org.apache.iceberg.io.CloseableIterable;
 import org.apache.iceberg.io.CloseableIterator;
 
 import java.io.IOException;
@@ -69,17 +71,27 @@ public class IcebergSplitSource
             ConnectorSession session,
             TableScan tableScan,
             TupleDomain<IcebergColumnHandle> metadataColumnConstraints)
+    {
+        this(session, tableScan.planFiles(), getTargetSplitSize(session, tableScan), metadataColumnConstraints);
+    }
+
+    public IcebergSplitSource(
+            ConnectorSession session,
+            CloseableIterable<FileScanTask> fileScanTasks,
+            DataSize targetSplitSize,
+            TupleDomain<IcebergColumnHandle> metadataColumnConstraints)
     {
         requireNonNull(session, "session is null");
+        requireNonNull(fileScanTasks, "fileScanTasks is null");
         this.metadataColumnConstraints = requireNonNull(metadataColumnConstraints, "metadataColumnConstraints is null");
-        this.targetSplitSize = getTargetSplitSize(session, tableScan).toBytes();
+        this.targetSplitSize = requireNonNull(targetSplitSize, "targetSplitSize is null").toBytes();
         this.minimumAssignedSplitWeight = getMinimumAssignedSplitWeight(session);
         this.nodeSelectionStrategy = getNodeSelectionStrategy(session);
         this.affinitySchedulingFileSectionSize = getAffinitySchedulingFileSectionSize(session).toBytes();
         this.fileScanTaskIterator = closer.register(
                 splitFiles(
-                        closer.register(tableScan.planFiles()),
-                        targetSplitSize)
+                        closer.register(fileScanTasks),
+                        this.targetSplitSize)
                         .iterator());
     }
 
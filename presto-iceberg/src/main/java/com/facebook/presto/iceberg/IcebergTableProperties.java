@@ -60,6 +60,8 @@ public class IcebergTableProperties
     public static final String FILE_FORMAT_PROPERTY = "format";
     public static final String PARTITIONING_PROPERTY = "partitioning";
     public static final String SORTED_BY_PROPERTY = "sorted_by";
+    public static final String ZORDER_BY_PROPERTY = "zorder_by";
+    public static final String WRITE_ZORDER_COLUMNS = "write.zorder.columns";
     public static final String LOCATION_PROPERTY = "location";
 
     /**
@@ -153,6 +155,17 @@ public class IcebergTableProperties
                         false,
                         value -> (List<?>) value,
                         value -> value))
+                .add(new PropertyMetadata<>(
+                        ZORDER_BY_PROPERTY,
+                        "Columns the rows of each data file are clustered on along a Z-order curve",
+                        new ArrayType(VARCHAR),
+                        List.class,
+                        ImmutableList.of(),
+                        false,
+                        value -> ((Collection<?>) value).stream()
+                                .map(name -> ((String) name).toLowerCase(ENGLISH))
+                                .collect(toImmutableList()),
+                        value -> value))
                 .add(new PropertyMetadata<>(
                         TableProperties.DEFAULT_FILE_FORMAT,
                         "File format for the table",
@@ -297,6 +310,13 @@ public class IcebergTableProperties
         return sortedBy == null ? ImmutableList.of() : ImmutableList.copyOf(sortedBy);
     }
 
+    @SuppressWarnings("unchecked")
+    public static List<String> getZOrderBy(Map<String, Object> tableProperties)
+    {
+        List<String> zOrderBy = (List<String>) tableProperties.get(ZORDER_BY_PROPERTY);
+        return zOrderBy == null ? ImmutableList.of() : ImmutableList.copyOf(zOrderBy);
+    }
+
     public static String getTableLocation(Map<String, Object> tableProperties)
     {
         return (String) tableProperties.get(LOCATION_PROPERTY);
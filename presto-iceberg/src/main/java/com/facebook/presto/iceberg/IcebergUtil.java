@@ -39,7 +39,9 @@ import com.facebook.presto.hive.PartitionNameWithVersion;
 import com.facebook.presto.hive.metastore.Column;
 import com.facebook.presto.hive.metastore.ExtendedHiveMetastore;
 import com.facebook.presto.hive.metastore.MetastoreContext;
+import com.facebook.presto.hive.zorder.ZOrderKeyEncoder;
 import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
@@ -49,6 +51,7 @@ import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.connector.ConnectorMetadata;
 import com.facebook.presto.spi.connector.ConnectorTableVersion.VersionOperator;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -132,6 +135,7 @@ import static com.facebook.presto.hive.metastore.MetastoreUtil.PRESTO_VERSION_NA
 import static com.facebook.presto.hive.metastore.MetastoreUtil.PRESTO_VIEW_COMMENT;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.PRESTO_VIEW_FLAG;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.TABLE_COMMENT;
+import static com.facebook.presto.hive.zorder.ZOrder.MAX_INPUT_DIMENSIONS;
 import static com.facebook.presto.iceberg.ExpressionConverter.toIcebergExpression;
 import static com.facebook.presto.iceberg.FileContent.POSITION_DELETES;
 import static com.facebook.presto.iceberg.FileContent.fromIcebergFileContent;
@@ -145,12 +149,18 @@ import static com.facebook.presto.iceberg.IcebergMetadataColumn.isMetadataColumn
 import static com.facebook.presto.iceberg.IcebergPartitionType.IDENTITY;
 import static com.facebook.presto.iceberg.IcebergSessionProperties.getCompressionCodec;
 import static com.facebook.presto.iceberg.IcebergSessionProperties.isMergeOnReadModeEnabled;
+import static com.facebook.presto.iceberg.IcebergTableProperties.SORTED_BY_PROPERTY;
+import static com.facebook.presto.iceberg.IcebergTableProperties.WRITE_ZORDER_COLUMNS;
+import static com.facebook.presto.iceberg.IcebergTableProperties.ZORDER_BY_PROPERTY;
+import static com.facebook.presto.iceberg.IcebergTableProperties.getSortOrder;
 import static com.facebook.presto.iceberg.IcebergTableProperties.getWriteDataLocation;
+import static com.facebook.presto.iceberg.IcebergTableProperties.getZOrderBy;
 import static com.facebook.presto.iceberg.IcebergTableProperties.isHiveLocksEnabled;
 import static com.facebook.presto.iceberg.TypeConverter.toIcebergType;
 import static com.facebook.presto.iceberg.TypeConverter.toPrestoType;
 import static com.facebook.presto.iceberg.util.IcebergPrestoModelConverters.toIcebergTableIdentifier;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.StandardErrorCode.INVALID_TABLE_PROPERTY;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -178,6 +188,7 @@ import static java.util.Collections.emptyIterator;
 import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.function.Function.identity;
 import static org.apache.iceberg.BaseMetastoreTableOperations.ICEBERG_TABLE_TYPE_VALUE;
 import static org.apache.iceberg.BaseMetastoreTableOperations.TABLE_TYPE_PROP;
 import static org.apache.iceberg.CatalogProperties.IO_MANIFEST_CACHE_ENABLED;
@@ -1233,9 +1244,49 @@ public final class IcebergUtil
 
         isHiveLocksEnabled(tableMetadata.getProperties()).ifPresent(value -> propertiesBuilder.put(HIVE_LOCK_ENABLED, value));
 
+        List<String> zOrderBy = getZOrderBy(tableMetadata.getProperties());
+        if (!zOrderBy.isEmpty()) {
+            validateZOrderColumns(tableMetadata, zOrderBy);
+            propertiesBuilder.put(WRITE_ZORDER_COLUMNS, String.join(",", zOrderBy));
+        }
+
         return propertiesBuilder.build();
     }
 
+    private static void validateZOrderColumns(ConnectorTableMetadata tableMetadata, List<String> zOrderBy)
+    {
+        if (!getSortOrder(tableMetadata.getProperties()).isEmpty()) {
+            throw new PrestoException(INVALID_TABLE_PROPERTY, format("%s cannot be combined with %s", ZORDER_BY_PROPERTY, SORTED_BY_PROPERTY));
+        }
+        if (zOrderBy.size() > MAX_INPUT_DIMENSIONS) {
+            throw new PrestoException(INVALID_TABLE_PROPERTY, format("%s supports at most %s columns", ZORDER_BY_PROPERTY, MAX_INPUT_DIMENSIONS));
+        }
+        if (ImmutableSet.copyOf(zOrderBy).size() != zOrderBy.size()) {
+            throw new PrestoException(INVALID_TABLE_PROPERTY, format("%s contains duplicate columns: %s", ZORDER_BY_PROPERTY, zOrderBy));
+        }
+        Map<String, ColumnMetadata> columns = tableMetadata.getColumns().stream()
+                .filter(column -> !column.isHidden())
+                .collect(toImmutableMap(ColumnMetadata::getName, identity()));
+        for (String name : zOrderBy) {
+            ColumnMetadata column = columns.get(name);
+            if (column == null) {
+                throw new PrestoException(INVALID_TABLE_PROPERTY, format("Z-order column %s does not exist in the table", name));
+            }
+            if (!ZOrderKeyEncoder.isSupportedType(column.getType())) {
+                throw new PrestoException(NOT_SUPPORTED, format("Z-order column %s has unsupported type %s", name, column.getType()));
+            }
+        }
+    }
+
+    public static List<String> getZOrderColumns(Table table)
+    {
+        String zOrderColumns = table.properties().get(WRITE_ZORDER_COLUMNS);
+        if (isNullOrEmpty(zOrderColumns)) {
+            return ImmutableList.of();
+        }
+        return Splitter.on(',').trimResults().omitEmptyStrings().splitToList(zOrderColumns);
+    }
+
     public static int parseFormatVersion(String formatVersion)
     {
         try {
@@ -0,0 +1,482 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.ManifestFile;
+import org.apache.iceberg.ManifestFiles;
+import org.apache.iceberg.ManifestReader;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.StructLike;
+import org.apache.iceberg.expressions.Binder;
+import org.apache.iceberg.expressions.Bound;
+import org.apache.iceberg.expressions.BoundReference;
+import org.apache.iceberg.expressions.Evaluator;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.ExpressionVisitors;
+import org.apache.iceberg.expressions.ExpressionVisitors.BoundExpressionVisitor;
+import org.apache.iceberg.expressions.Expressions;
+import org.apache.iceberg.expressions.Literal;
+import org.apache.iceberg.expressions.Projections;
+import org.apache.iceberg.io.FileIO;
+import org.apache.iceberg.types.Conversions;
+import org.apache.iceberg.types.Type;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
+import static java.util.Objects.requireNonNull;
+import static org.apache.iceberg.types.Type.TypeID.DOUBLE;
+import static org.apache.iceberg.types.Type.TypeID.FLOAT;
+import static org.apache.iceberg.util.ByteBuffers.toByteArray;
+
+/**
+ * The decoded content of a data manifest that is needed to prune it, kept in a columnar layout:
+ * the partition tuples and the column metrics of the live data files of the manifest. Evaluating a
+ * filter against it tells whether any data file of the manifest may match the filter, without reading
+ * and decoding the manifest again.
+ * <p>
+ * Column bounds are kept serialized, and decoded with the type of the column in the filter, so that
+ * the index stays valid across type promotions of the table schema.
+ */
+public class ManifestIndex
+{
+    private static final int IN_PREDICATE_LIMIT = 200;
+
+    private final int specId;
+    private final int fileCount;
+    private final long[] recordCounts;
+    // partition field -> value of each file
+    private final Object[][] partitionValues;
+    // field id -> metric of each file, null or negative when unknown
+    private final Map<Integer, ByteBuffer[]> lowerBounds;
+    private final Map<Integer, ByteBuffer[]> upperBounds;
+    private final Map<Integer, long[]> valueCounts;
+    private final Map<Integer, long[]> nullValueCounts;
+    private final long retainedSizeInBytes;
+
+    private ManifestIndex(
+            int specId,
+            int fileCount,
+            long[] recordCounts,
+            Object[][] partitionValues,
+            Map<Integer, ByteBuffer[]> lowerBounds,
+            Map<Integer, ByteBuffer[]> upperBounds,
+            Map<Integer, long[]> valueCounts,
+            Map<Integer, long[]> nullValueCounts)
+    {
+        this.specId = specId;
+        this.fileCount = fileCount;
+        this.recordCounts = requireNonNull(recordCounts, "recordCounts is null");
+        this.partitionValues = requireNonNull(partitionValues, "partitionValues is null");
+        this.lowerBounds = ImmutableMap.copyOf(requireNonNull(lowerBounds, "lowerBounds is null"));
+        this.upperBounds = ImmutableMap.copyOf(requireNonNull(upperBounds, "upperBounds is null"));
+        this.valueCounts = ImmutableMap.copyOf(requireNonNull(valueCounts, "valueCounts is null"));
+        this.nullValueCounts = ImmutableMap.copyOf(requireNonNull(nullValueCounts, "nullValueCounts is null"));
+
+        long size = sizeOf(recordCounts) + sizeOfObjectArray(partitionValues.length);
+        for (Object[] values : partitionValues) {
+            // the values are small boxed values or strings
+            size += sizeOfObjectArray(values.length) + values.length * 16L;
+        }
+        for (Map<Integer, ByteBuffer[]> bounds : Arrays.asList(lowerBounds, upperBounds)) {
+            for (ByteBuffer[] buffers : bounds.values()) {
+                size += sizeOfObjectArray(buffers.length);
+                for (ByteBuffer buffer : buffers) {
+                    if (buffer != null) {
+                        size += buffer.capacity() + 48;
+                    }
+                }
+            }
+        }
+        for (Map<Integer, long[]> counts : Arrays.asList(valueCounts, nullValueCounts)) {
+            for (long[] values : counts.values()) {
+                size += sizeOf(values);
+            }
+        }
+        this.retainedSizeInBytes = size;
+    }
+
+    public static ManifestIndex readManifestIndex(ManifestFile manifest, FileIO io, Map<Integer, PartitionSpec> specsById)
+    {
+        Builder builder = new Builder(specsById.get(manifest.partitionSpecId()));
+        try (ManifestReader<DataFile> reader = ManifestFiles.read(manifest, io, specsById)) {
+            for (DataFile file : reader) {
+                builder.addFile(file);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.build();
+    }
+
+    public int getFileCount()
+    {
+        return fileCount;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return retainedSizeInBytes;
+    }
+
+    /**
+     * Returns false when no data file of the manifest can contain rows matching the filter.
+     */
+    public boolean mightMatch(Schema schema, Map<Integer, PartitionSpec> specsById, Expression filter, boolean caseSensitive)
+    {
+        if (fileCount == 0) {
+            return false;
+        }
+        if (filter.op() == Expression.Operation.TRUE) {
+            return true;
+        }
+
+        Expression rewrittenFilter = Expressions.rewriteNot(filter);
+        PartitionSpec spec = specsById.get(specId);
+        Evaluator partitionEvaluator = new Evaluator(spec.partitionType(), Projections.inclusive(spec, caseSensitive).project(rewrittenFilter), caseSensitive);
+        Expression metricsFilter = Binder.bind(schema.asStruct(), rewrittenFilter, caseSensitive);
+
+        PartitionTuple partition = new PartitionTuple();
+        MetricsVisitor metricsVisitor = new MetricsVisitor();
+        for (int file = 0; file < fileCount; file++) {
+            partition.file = file;
+            metricsVisitor.file = file;
+            if (partitionEvaluator.eval(partition) && ExpressionVisitors.visit(metricsFilter, metricsVisitor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class PartitionTuple
+            implements StructLike
+    {
+        private int file;
+
+        @Override
+        public int size()
+        {
+            return partitionValues.length;
+        }
+
+        @Override
+        public <T> T get(int position, Class<T> javaClass)
+        {
+            return javaClass.cast(partitionValues[position][file]);
+        }
+
+        @Override
+        public <T> void set(int position, T value)
+        {
+            throw new UnsupportedOperationException("partition tuple is read only");
+        }
+    }
+
+    /**
+     * Evaluates a bound filter against the metrics of a file, like the inclusive metrics evaluator of Iceberg.
+     * Bounds of floating point columns are not used, since they do not account for NaN values.
+     */
+    private class MetricsVisitor
+            extends BoundExpressionVisitor<Boolean>
+    {
+        private static final boolean ROWS_MIGHT_MATCH = true;
+        private static final boolean ROWS_CANNOT_MATCH = false;
+
+        private int file;
+
+        @Override
+        public Boolean alwaysTrue()
+        {
+            return ROWS_MIGHT_MATCH;
+        }
+
+        @Override
+        public Boolean alwaysFalse()
+        {
+            return ROWS_CANNOT_MATCH;
+        }
+
+        @Override
+        public Boolean not(Boolean result)
+        {
+            return !result;
+        }
+
+        @Override
+        public Boolean and(Boolean leftResult, Boolean rightResult)
+        {
+            return leftResult && rightResult;
+        }
+
+        @Override
+        public Boolean or(Boolean leftResult, Boolean rightResult)
+        {
+            return leftResult || rightResult;
+        }
+
+        @Override
+        public <T> Boolean isNull(Bound<T> term)
+        {
+            if (recordCounts[file] == 0) {
+                return ROWS_CANNOT_MATCH;
+            }
+            long nullValueCount = getCount(nullValueCounts, term);
+            return nullValueCount != 0;
+        }
+
+        @Override
+        public <T> Boolean notNull(Bound<T> term)
+        {
+            if (recordCounts[file] == 0 || containsNullsOnly(term)) {
+                return ROWS_CANNOT_MATCH;
+            }
+            return ROWS_MIGHT_MATCH;
+        }
+
+        @Override
+        public <T> Boolean isNaN(Bound<T> term)
+        {
+            return recordCounts[file] != 0;
+        }
+
+        @Override
+        public <T> Boolean notNaN(Bound<T> term)
+        {
+            return recordCounts[file] != 0;
+        }
+
+        @Override
+        public <T> Boolean lt(Bound<T> term, Literal<T> literal)
+        {
+            return compareToBounds(term, (lower, upper, comparator) -> lower == null || comparator.compare(lower, literal.value()) < 0);
+        }
+
+        @Override
+        public <T> Boolean ltEq(Bound<T> term, Literal<T> literal)
+        {
+            return compareToBounds(term, (lower, upper, comparator) -> lower == null || comparator.compare(lower, literal.value()) <= 0);
+        }
+
+        @Override
+        public <T> Boolean gt(Bound<T> term, Literal<T> literal)
+        {
+            return compareToBounds(term, (lower, upper, comparator) -> upper == null || comparator.compare(upper, literal.value()) > 0);
+        }
+
+        @Override
+        public <T> Boolean gtEq(Bound<T> term, Literal<T> literal)
+        {
+            return compareToBounds(term, (lower, upper, comparator) -> upper == null || comparator.compare(upper, literal.value()) >= 0);
+        }
+
+        @Override
+        public <T> Boolean eq(Bound<T> term, Literal<T> literal)
+        {
+            return compareToBounds(term, (lower, upper, comparator) -> isInBounds(literal.value(), lower, upper, comparator));
+        }
+
+        @Override
+        public <T> Boolean notEq(Bound<T> term, Literal<T> literal)
+        {
+            return recordCounts[file] != 0;
+        }
+
+        @Override
+        public <T> Boolean in(Bound<T> term, Set<T> literalSet)
+        {
+            if (literalSet.size() > IN_PREDICATE_LIMIT) {
+                return recordCounts[file] != 0;
+            }
+            return compareToBounds(term, (lower, upper, comparator) -> literalSet.stream().anyMatch(value -> isInBounds(value, lower, upper, comparator)));
+        }
+
+        @Override
+        public <T> Boolean notIn(Bound<T> term, Set<T> literalSet)
+        {
+            return recordCounts[file] != 0;
+        }
+
+        @Override
+        public <T> Boolean startsWith(Bound<T> term, Literal<T> literal)
+        {
+            return recordCounts[file] != 0;
+        }
+
+        @Override
+        public <T> Boolean notStartsWith(Bound<T> term, Literal<T> literal)
+        {
+            return recordCounts[file] != 0;
+        }
+
+        private <T> boolean compareToBounds(Bound<T> term, BoundsPredicate<T> predicate)
+        {
+            if (recordCounts[file] == 0) {
+                return ROWS_CANNOT_MATCH;
+            }
+            if (!(term instanceof BoundReference)) {
+                return ROWS_MIGHT_MATCH;
+            }
+            if (containsNullsOnly(term)) {
+                return ROWS_CANNOT_MATCH;
+            }
+            Type type = term.ref().type();
+            if (type.typeId() == FLOAT || type.typeId() == DOUBLE) {
+                return ROWS_MIGHT_MATCH;
+            }
+            T lower = getBound(lowerBounds, term);
+            T upper = getBound(upperBounds, term);
+            return predicate.test(lower, upper, ((BoundReference<T>) term).comparator());
+        }
+
+        private <T> boolean isInBounds(T value, T lower, T upper, Comparator<T> comparator)
+        {
+            return (lower == null || comparator.compare(lower, value) <= 0) &&
+                    (upper == null || comparator.compare(upper, value) >= 0);
+        }
+
+        private <T> boolean containsNullsOnly(Bound<T> term)
+        {
+            long valueCount = getCount(valueCounts, term);
+            return valueCount >= 0 && valueCount == getCount(nullValueCounts, term);
+        }
+
+        private <T> long getCount(Map<Integer, long[]> counts, Bound<T> term)
+        {
+            long[] values = counts.get(term.ref().fieldId());
+            return values == null ? -1 : values[file];
+        }
+
+        private <T> T getBound(Map<Integer, ByteBuffer[]> bounds, Bound<T> term)
+        {
+            ByteBuffer[] values = bounds.get(term.ref().fieldId());
+            if (values == null || values[file] == null) {
+                return null;
+            }
+            return Conversions.fromByteBuffer(term.ref().type(), values[file].duplicate());
+        }
+    }
+
+    private interface BoundsPredicate<T>
+    {
+        boolean test(T lower, T upper, Comparator<T> comparator);
+    }
+
+    static class Builder
+    {
+        private final int specId;
+        private final List<List<Object>> partitionValues = new ArrayList<>();
+        private final List<Long> recordCounts = new ArrayList<>();
+        private final Map<Integer, List<ByteBuffer>> lowerBounds = new HashMap<>();
+        private final Map<Integer, List<ByteBuffer>> upperBounds = new HashMap<>();
+        private final Map<Integer, List<Long>> valueCounts = new HashMap<>();
+        private final Map<Integer, List<Long>> nullValueCounts = new HashMap<>();
+
+        Builder(PartitionSpec spec)
+        {
+            this.specId = spec.specId();
+            for (int field = 0; field < spec.fields().size(); field++) {
+                partitionValues.add(new ArrayList<>());
+            }
+        }
+
+        public Builder addFile(DataFile file)
+        {
+            int position = recordCounts.size();
+            recordCounts.add(file.recordCount());
+            for (int field = 0; field < partitionValues.size(); field++) {
+                partitionValues.get(field).add(file.partition().get(field, Object.class));
+            }
+            // the manifest reader may reuse the buffers of the metrics
+            addValues(lowerBounds, file.lowerBounds(), position, buffer -> ByteBuffer.wrap(toByteArray(buffer)));
+            addValues(upperBounds, file.upperBounds(), position, buffer -> ByteBuffer.wrap(toByteArray(buffer)));
+            addValues(valueCounts, file.valueCounts(), position, count -> count);
+            addValues(nullValueCounts, file.nullValueCounts(), position, count -> count);
+            return this;
+        }
+
+        private static <T> void addValues(Map<Integer, List<T>> columns, Map<Integer, T> values, int position, Function<T, T> copy)
+        {
+            if (values == null) {
+                return;
+            }
+            for (Map.Entry<Integer, T> entry : values.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                List<T> column = columns.computeIfAbsent(entry.getKey(), fieldId -> new ArrayList<>());
+                while (column.size() < position) {
+                    column.add(null);
+                }
+                column.add(copy.apply(entry.getValue()));
+            }
+        }
+
+        public ManifestIndex build()
+        {
+            int fileCount = recordCounts.size();
+            Object[][] partitions = new Object[partitionValues.size()][];
+            for (int field = 0; field < partitions.length; field++) {
+                partitions[field] = partitionValues.get(field).toArray();
+            }
+
+            return new ManifestIndex(
+                    specId,
+                    fileCount,
+                    recordCounts.stream().mapToLong(Long::longValue).toArray(),
+                    partitions,
+                    toBufferColumns(lowerBounds, fileCount),
+                    toBufferColumns(upperBounds, fileCount),
+                    toCountColumns(valueCounts, fileCount),
+                    toCountColumns(nullValueCounts, fileCount));
+        }
+
+        private static Map<Integer, ByteBuffer[]> toBufferColumns(Map<Integer, List<ByteBuffer>> columns, int fileCount)
+        {
+            ImmutableMap.Builder<Integer, ByteBuffer[]> result = ImmutableMap.builder();
+            columns.forEach((fieldId, values) -> result.put(fieldId, Arrays.copyOf(values.toArray(new ByteBuffer[0]), fileCount)));
+            return result.build();
+        }
+
+        private static Map<Integer, long[]> toCountColumns(Map<Integer, List<Long>> columns, int fileCount)
+        {
+            ImmutableMap.Builder<Integer, long[]> result = ImmutableMap.builder();
+            columns.forEach((fieldId, values) -> {
+                long[] counts = new long[fileCount];
+                Arrays.fill(counts, -1);
+                for (int file = 0; file < values.size(); file++) {
+                    if (values.get(file) != null) {
+                        counts[file] = values.get(file);
+                    }
+                }
+                result.put(fieldId, counts);
+            });
+            return result.build();
+        }
+    }
+}
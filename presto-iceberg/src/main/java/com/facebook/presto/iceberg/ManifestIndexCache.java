@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg;
+
+import com.facebook.airlift.stats.DistributionStat;
+import com.facebook.presto.hive.CacheStatsMBean;
+import com.google.common.cache.Cache;
+import com.google.common.cache.ForwardingCache;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+/**
+ * Caches the {@link ManifestIndex} of data manifests by manifest path. Manifests are never
+ * rewritten in place, so an entry stays valid for as long as the manifest exists.
+ */
+public class ManifestIndexCache
+        extends ForwardingCache.SimpleForwardingCache<String, ManifestIndex>
+{
+    private final DistributionStat fileCounts = new DistributionStat();
+    private final boolean enabled;
+    private final CacheStatsMBean statsMBean;
+
+    public ManifestIndexCache(Cache<String, ManifestIndex> delegate, boolean enabled)
+    {
+        super(delegate);
+        this.enabled = enabled;
+        this.statsMBean = new CacheStatsMBean(delegate);
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getCacheStats()
+    {
+        return statsMBean;
+    }
+
+    @Managed
+    @Nested
+    public DistributionStat getFileCountDistribution()
+    {
+        return fileCounts;
+    }
+
+    public void recordFileCount(long count)
+    {
+        fileCounts.add(count);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+}
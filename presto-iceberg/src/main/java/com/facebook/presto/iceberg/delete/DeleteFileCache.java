@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.facebook.airlift.stats.DistributionStat;
+import com.facebook.presto.hive.CacheStatsMBean;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.ForwardingCache.SimpleForwardingCache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import static com.facebook.presto.iceberg.IcebergErrorCode.ICEBERG_CANNOT_OPEN_SPLIT;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.lang.String.format;
+
+/**
+ * Worker-local cache of decoded delete files, so that a delete file applying to many splits is read once.
+ * Position deletes are cached per data file, as the bitmap of the deleted positions of the data file, and
+ * equality deletes are cached as the set of deleted values, shared by all the splits they apply to.
+ * Delete files are immutable, so entries are only evicted by size.
+ */
+public class DeleteFileCache
+        extends SimpleForwardingCache<DeleteFileCacheKey, DeleteFilter>
+{
+    private final DistributionStat filterSizes = new DistributionStat();
+    private final boolean enabled;
+    private final CacheStatsMBean cacheStats;
+
+    public DeleteFileCache(Cache<DeleteFileCacheKey, DeleteFilter> delegate, boolean enabled)
+    {
+        super(delegate);
+        this.enabled = enabled;
+        this.cacheStats = new CacheStatsMBean(delegate);
+    }
+
+    @Managed
+    @Nested
+    public CacheStatsMBean getCacheStats()
+    {
+        return cacheStats;
+    }
+
+    @Managed
+    @Nested
+    public DistributionStat getFilterSizeDistribution()
+    {
+        return filterSizes;
+    }
+
+    /**
+     * Returns the cached filter of the key, or reads it with the loader. Concurrent splits needing the same
+     * filter wait for a single read.
+     */
+    public DeleteFilter getOrLoad(DeleteFileCacheKey key, Callable<? extends DeleteFilter> loader)
+    {
+        try {
+            return get(key, () -> {
+                DeleteFilter filter = loader.call();
+                filterSizes.add(filter.getRetainedSizeInBytes());
+                return filter;
+            });
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            throwIfUnchecked(e.getCause());
+            throw new PrestoException(ICEBERG_CANNOT_OPEN_SPLIT, format("Cannot open Iceberg delete file: %s", key.getDeleteFilePath()), e.getCause());
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+}
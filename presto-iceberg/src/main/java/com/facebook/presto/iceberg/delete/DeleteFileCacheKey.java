@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.facebook.presto.iceberg.IcebergColumnHandle;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+public class DeleteFileCacheKey
+{
+    private final String deleteFilePath;
+    private final Optional<String> dataFilePath;
+    private final List<IcebergColumnHandle> columns;
+
+    private DeleteFileCacheKey(String deleteFilePath, Optional<String> dataFilePath, List<IcebergColumnHandle> columns)
+    {
+        this.deleteFilePath = requireNonNull(deleteFilePath, "deleteFilePath is null");
+        this.dataFilePath = requireNonNull(dataFilePath, "dataFilePath is null");
+        this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+    }
+
+    public static DeleteFileCacheKey positionDeletesKey(String deleteFilePath, String dataFilePath)
+    {
+        return new DeleteFileCacheKey(deleteFilePath, Optional.of(dataFilePath), ImmutableList.of());
+    }
+
+    public static DeleteFileCacheKey equalityDeletesKey(String deleteFilePath, List<IcebergColumnHandle> columns)
+    {
+        return new DeleteFileCacheKey(deleteFilePath, Optional.empty(), columns);
+    }
+
+    public String getDeleteFilePath()
+    {
+        return deleteFilePath;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DeleteFileCacheKey)) {
+            return false;
+        }
+        DeleteFileCacheKey that = (DeleteFileCacheKey) o;
+        return Objects.equals(deleteFilePath, that.deleteFilePath) &&
+                Objects.equals(dataFilePath, that.dataFilePath) &&
+                Objects.equals(columns, that.columns);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(deleteFilePath, dataFilePath, columns);
+    }
+}
@@ -23,4 +23,6 @@ public interface DeleteFilter
     RowPredicate createPredicate(List<IcebergColumnHandle> columns);
 
     Optional<String> getDeleteFilePath();
+
+    long getRetainedSizeInBytes();
 }
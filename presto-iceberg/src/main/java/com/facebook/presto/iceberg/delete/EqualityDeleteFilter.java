@@ -22,6 +22,7 @@ import org.apache.iceberg.Schema;
 import org.apache.iceberg.StructLike;
 import org.apache.iceberg.util.StructLikeSet;
 import org.apache.iceberg.util.StructProjection;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 import java.util.Optional;
@@ -32,6 +33,11 @@ import static java.util.Objects.requireNonNull;
 public final class EqualityDeleteFilter
         implements DeleteFilter
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(EqualityDeleteFilter.class).instanceSize();
+    // approximate size of a row of the set and of one of its values
+    private static final int ROW_SIZE = 64;
+    private static final int VALUE_SIZE = 32;
+
     private final Schema schema;
     private final StructLikeSet deleteSet;
     @Nullable
@@ -66,8 +72,18 @@ public final class EqualityDeleteFilter
         return Optional.ofNullable(deleteFilePath);
     }
 
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + (long) deleteSet.size() * (ROW_SIZE + (long) schema.columns().size() * VALUE_SIZE);
+    }
+
     public static DeleteFilter readEqualityDeletes(ConnectorPageSource pageSource, List<IcebergColumnHandle> columns, String deleteFilePath)
     {
+        if (columns.size() == 1 && LongEqualityDeleteFilter.isSupportedType(columns.get(0).getType())) {
+            return LongEqualityDeleteFilter.readEqualityDeletes(pageSource, columns.get(0), deleteFilePath);
+        }
+
         Type[] types = columns.stream()
                 .map(IcebergColumnHandle::getType)
                 .toArray(Type[]::new);
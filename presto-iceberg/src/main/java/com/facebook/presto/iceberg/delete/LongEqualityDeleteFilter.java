@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.iceberg.IcebergColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import jakarta.annotation.Nullable;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Equality deletes on a single integer column, kept as a sorted array of the deleted values
+ * instead of a set of rows, which avoids building a row for each tested position.
+ */
+public final class LongEqualityDeleteFilter
+        implements DeleteFilter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(LongEqualityDeleteFilter.class).instanceSize();
+
+    private final int fieldId;
+    private final Type type;
+    private final long[] deletedValues;
+    private final boolean nullDeleted;
+    @Nullable
+    private final String deleteFilePath;
+
+    private LongEqualityDeleteFilter(int fieldId, Type type, long[] deletedValues, boolean nullDeleted, @Nullable String deleteFilePath)
+    {
+        this.fieldId = fieldId;
+        this.type = requireNonNull(type, "type is null");
+        this.deletedValues = requireNonNull(deletedValues, "deletedValues is null");
+        this.nullDeleted = nullDeleted;
+        this.deleteFilePath = deleteFilePath;
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) || type.equals(DATE);
+    }
+
+    @Override
+    public RowPredicate createPredicate(List<IcebergColumnHandle> columns)
+    {
+        int channel = fieldChannel(columns);
+        return (page, position) -> {
+            Block block = page.getBlock(channel);
+            if (block.isNull(position)) {
+                return !nullDeleted;
+            }
+            return Arrays.binarySearch(deletedValues, type.getLong(block, position)) < 0;
+        };
+    }
+
+    @Override
+    public Optional<String> getDeleteFilePath()
+    {
+        return Optional.ofNullable(deleteFilePath);
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(deletedValues);
+    }
+
+    private int fieldChannel(List<IcebergColumnHandle> columns)
+    {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getId() == fieldId) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No column for field " + fieldId);
+    }
+
+    public static DeleteFilter readEqualityDeletes(ConnectorPageSource pageSource, IcebergColumnHandle column, String deleteFilePath)
+    {
+        Type type = column.getType();
+        long[] values = new long[64];
+        int valueCount = 0;
+        boolean nullDeleted = false;
+
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page == null) {
+                continue;
+            }
+
+            Block block = page.getBlock(0);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                if (block.isNull(position)) {
+                    nullDeleted = true;
+                    continue;
+                }
+                if (valueCount == values.length) {
+                    values = Arrays.copyOf(values, valueCount * 2);
+                }
+                values[valueCount] = type.getLong(block, position);
+                valueCount++;
+            }
+        }
+
+        Arrays.sort(values, 0, valueCount);
+        int distinctCount = 0;
+        for (int i = 0; i < valueCount; i++) {
+            if (distinctCount == 0 || values[distinctCount - 1] != values[i]) {
+                values[distinctCount] = values[i];
+                distinctCount++;
+            }
+        }
+
+        return new LongEqualityDeleteFilter(column.getId(), type, Arrays.copyOf(values, distinctCount), nullDeleted, deleteFilePath);
+    }
+}
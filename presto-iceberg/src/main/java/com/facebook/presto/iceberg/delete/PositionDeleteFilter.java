@@ -19,6 +19,7 @@ import com.facebook.presto.iceberg.IcebergColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import io.airlift.slice.Slice;
 import jakarta.annotation.Nullable;
+import org.openjdk.jol.info.ClassLayout;
 import org.roaringbitmap.longlong.ImmutableLongBitmapDataProvider;
 import org.roaringbitmap.longlong.LongBitmapDataProvider;
 
@@ -33,6 +34,8 @@ import static java.util.Objects.requireNonNull;
 public final class PositionDeleteFilter
         implements DeleteFilter
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(PositionDeleteFilter.class).instanceSize();
+
     private final ImmutableLongBitmapDataProvider deletedRows;
     @Nullable
     private final String deleteFilePath;
@@ -58,6 +61,12 @@ public final class PositionDeleteFilter
         return Optional.ofNullable(deleteFilePath);
     }
 
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + deletedRows.getLongSizeInBytes();
+    }
+
     private static int rowPositionChannel(List<IcebergColumnHandle> columns)
     {
         for (int i = 0; i < columns.size(); i++) {
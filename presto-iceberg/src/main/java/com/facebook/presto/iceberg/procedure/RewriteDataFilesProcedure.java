@@ -0,0 +1,326 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.procedure;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.presto.common.Subfield;
+import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.type.TypeManager;
+import com.facebook.presto.iceberg.CommitTaskData;
+import com.facebook.presto.iceberg.IcebergColumnHandle;
+import com.facebook.presto.iceberg.IcebergDistributedProcedureHandle;
+import com.facebook.presto.iceberg.IcebergProcedureContext;
+import com.facebook.presto.iceberg.IcebergTableHandle;
+import com.facebook.presto.iceberg.IcebergTableLayoutHandle;
+import com.facebook.presto.iceberg.PartitionData;
+import com.facebook.presto.spi.ConnectorDistributedProcedureHandle;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorTableLayoutHandle;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.connector.ConnectorProcedureContext;
+import com.facebook.presto.spi.procedure.DistributedProcedure;
+import com.facebook.presto.spi.procedure.DistributedProcedure.Argument;
+import com.facebook.presto.spi.procedure.TableDataRewriteDistributedProcedure;
+import com.google.common.base.VerifyException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+import jakarta.inject.Inject;
+import org.apache.iceberg.BaseTable;
+import org.apache.iceberg.ContentFile;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DataFiles;
+import org.apache.iceberg.DeleteFile;
+import org.apache.iceberg.FileContent;
+import org.apache.iceberg.FileScanTask;
+import org.apache.iceberg.MetadataColumns;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.RewriteFiles;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.types.Type;
+import org.apache.iceberg.types.Types;
+
+import javax.inject.Provider;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import static com.facebook.presto.common.type.StandardTypes.VARCHAR;
+import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
+import static com.facebook.presto.iceberg.IcebergAbstractMetadata.getSupportedSortFields;
+import static com.facebook.presto.iceberg.IcebergErrorCode.ICEBERG_WRITE_VALIDATION_FAILED;
+import static com.facebook.presto.iceberg.IcebergSessionProperties.getCompressionCodec;
+import static com.facebook.presto.iceberg.IcebergUtil.getColumnsForWrite;
+import static com.facebook.presto.iceberg.IcebergUtil.getFileFormat;
+import static com.facebook.presto.iceberg.PartitionSpecConverter.toPrestoPartitionSpec;
+import static com.facebook.presto.iceberg.SchemaConverter.toPrestoSchema;
+import static com.facebook.presto.spi.StandardErrorCode.INVALID_PROCEDURE_ARGUMENT;
+import static com.facebook.presto.spi.procedure.TableDataRewriteDistributedProcedure.FILTER;
+import static com.facebook.presto.spi.procedure.TableDataRewriteDistributedProcedure.SCHEMA;
+import static com.facebook.presto.spi.procedure.TableDataRewriteDistributedProcedure.TABLE_NAME;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static org.apache.iceberg.TableProperties.WRITE_TARGET_FILE_SIZE_BYTES;
+import static org.apache.iceberg.TableProperties.WRITE_TARGET_FILE_SIZE_BYTES_DEFAULT;
+import static org.apache.iceberg.types.Conversions.fromByteBuffer;
+
+/**
+ * Rewrites the data files of a table that are smaller than a fraction of the target file size, or that have
+ * delete files, into new data files. The files are chosen partition by partition, the rows are written in the
+ * sort order of the table, if any, with their deletes applied, and the writers close a file once it reaches the
+ * target file size. All the files are replaced in a single commit: the rows of a partition are distributed over
+ * all the writers, so the files written cannot be attributed to the group of files they replace.
+ */
+public class RewriteDataFilesProcedure
+        implements Provider<DistributedProcedure>
+{
+    public static final String TARGET_FILE_SIZE_BYTES = "target-file-size-bytes";
+    public static final String MIN_FILE_SIZE_BYTES = "min-file-size-bytes";
+    public static final String MIN_INPUT_FILES = "min-input-files";
+    public static final String DELETE_FILE_THRESHOLD = "delete-file-threshold";
+    public static final String REWRITE_ALL = "rewrite-all";
+
+    private static final Set<String> OPTIONS = ImmutableSet.of(TARGET_FILE_SIZE_BYTES, MIN_FILE_SIZE_BYTES, MIN_INPUT_FILES, DELETE_FILE_THRESHOLD, REWRITE_ALL);
+    private static final double MIN_FILE_SIZE_DEFAULT_RATIO = 0.75;
+    private static final int MIN_INPUT_FILES_DEFAULT = 5;
+    private static final int DELETE_FILE_THRESHOLD_DEFAULT = 1;
+
+    private final TypeManager typeManager;
+    private final JsonCodec<CommitTaskData> commitTaskCodec;
+
+    @Inject
+    public RewriteDataFilesProcedure(TypeManager typeManager, JsonCodec<CommitTaskData> commitTaskCodec)
+    {
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.commitTaskCodec = requireNonNull(commitTaskCodec, "commitTaskCodec is null");
+    }
+
+    @Override
+    public DistributedProcedure get()
+    {
+        return new TableDataRewriteDistributedProcedure(
+                "system",
+                "rewrite_data_files",
+                ImmutableList.of(
+                        new Argument(SCHEMA, VARCHAR),
+                        new Argument(TABLE_NAME, VARCHAR),
+                        new Argument(FILTER, VARCHAR, false, "TRUE"),
+                        new Argument("options", "map(varchar, varchar)", false, null)),
+                this::beginCallDistributedProcedure,
+                this::finishCallDistributedProcedure,
+                IcebergProcedureContext::new);
+    }
+
+    private ConnectorDistributedProcedureHandle beginCallDistributedProcedure(ConnectorSession session, ConnectorProcedureContext procedureContext, ConnectorTableLayoutHandle tableLayoutHandle, Object[] arguments)
+    {
+        IcebergProcedureContext context = (IcebergProcedureContext) procedureContext;
+        IcebergTableLayoutHandle layoutHandle = (IcebergTableLayoutHandle) tableLayoutHandle;
+        IcebergTableHandle tableHandle = layoutHandle.getTable();
+        Table icebergTable = context.getTable();
+
+        if (!isEnforcedByPartitioning(layoutHandle)) {
+            throw new PrestoException(INVALID_PROCEDURE_ARGUMENT, "The filter of rewrite_data_files can only reference identity partition columns");
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> options = arguments[3] == null ? ImmutableMap.of() : (Map<String, String>) arguments[3];
+        validateOptions(options);
+        long targetFileSize = getTargetFileSize(icebergTable, options);
+        context.setFileGroupSelector(createFileGroupSelector(options, targetFileSize));
+
+        return new IcebergDistributedProcedureHandle(
+                tableHandle.getSchemaName(),
+                tableHandle.getIcebergTableName(),
+                toPrestoSchema(icebergTable.schema(), typeManager),
+                toPrestoPartitionSpec(icebergTable.spec(), typeManager),
+                getColumnsForWrite(icebergTable.schema(), icebergTable.spec(), typeManager),
+                icebergTable.location(),
+                getFileFormat(icebergTable),
+                getCompressionCodec(session),
+                icebergTable.properties(),
+                getSupportedSortFields(icebergTable.schema(), icebergTable.sortOrder()),
+                targetFileSize);
+    }
+
+    private void finishCallDistributedProcedure(ConnectorProcedureContext procedureContext, ConnectorDistributedProcedureHandle procedureHandle, Collection<Slice> fragments)
+    {
+        IcebergProcedureContext context = (IcebergProcedureContext) procedureContext;
+        IcebergDistributedProcedureHandle handle = (IcebergDistributedProcedureHandle) procedureHandle;
+        Table icebergTable = context.getTransaction().table();
+
+        Set<DataFile> scannedDataFiles = ImmutableSet.copyOf(context.getScannedDataFiles());
+        if (scannedDataFiles.isEmpty()) {
+            return;
+        }
+
+        List<DataFile> newDataFiles = fragments.stream()
+                .map(slice -> commitTaskCodec.fromJson(slice.getBytes()))
+                .map(task -> toDataFile(task, icebergTable))
+                .collect(toImmutableList());
+
+        // the rows of the scanned files can only be fewer in the new files when deletes were applied
+        long scannedRecordCount = scannedDataFiles.stream().mapToLong(ContentFile::recordCount).sum();
+        long newRecordCount = newDataFiles.stream().mapToLong(ContentFile::recordCount).sum();
+        boolean deletesApplied = !context.getScannedDeleteFiles().isEmpty();
+        if (deletesApplied ? newRecordCount > scannedRecordCount : newRecordCount != scannedRecordCount) {
+            throw new PrestoException(ICEBERG_WRITE_VALIDATION_FAILED, format(
+                    "Rewrite of table %s wrote %s rows for %s rows read",
+                    handle.getTableName(),
+                    newRecordCount,
+                    scannedRecordCount));
+        }
+
+        Set<String> scannedDataFilePaths = scannedDataFiles.stream()
+                .map(file -> file.path().toString())
+                .collect(toImmutableSet());
+
+        RewriteFiles rewriteFiles = context.getTransaction().newRewrite();
+        scannedDataFiles.forEach(rewriteFiles::deleteFile);
+        // position deletes of a single rewritten file are no longer needed, while the other deletes may still apply to files that were not rewritten
+        context.getScannedDeleteFiles().stream()
+                .filter(deleteFile -> deleteFile.content() == FileContent.POSITION_DELETES)
+                .filter(deleteFile -> scannedDataFilePaths.contains(getReferencedDataFile(deleteFile)))
+                .forEach(rewriteFiles::deleteFile);
+        newDataFiles.forEach(rewriteFiles::addFile);
+
+        handle.getTableName().getSnapshotId().ifPresent(snapshotId -> {
+            rewriteFiles.validateFromSnapshot(snapshotId);
+            // keep the sequence number of the rewritten files, so that equality deletes committed concurrently still apply to the new files
+            if (((BaseTable) icebergTable).operations().current().formatVersion() > 1) {
+                rewriteFiles.dataSequenceNumber(icebergTable.snapshot(snapshotId).sequenceNumber());
+            }
+        });
+        rewriteFiles.commit();
+    }
+
+    /**
+     * Returns whether the constraint pushed into the scan is fully enforced by the identity partitions of the table,
+     * which guarantees that all the rows of the files read are written again.
+     */
+    private static boolean isEnforcedByPartitioning(IcebergTableLayoutHandle layoutHandle)
+    {
+        if (!TRUE_CONSTANT.equals(layoutHandle.getRemainingPredicate())) {
+            return false;
+        }
+        Set<String> partitionColumns = layoutHandle.getPartitionColumnPredicate().getDomains()
+                .map(domains -> domains.keySet().stream()
+                        .map(column -> ((IcebergColumnHandle) column).getName())
+                        .collect(toImmutableSet()))
+                .orElse(ImmutableSet.of());
+        TupleDomain<Subfield> domainPredicate = layoutHandle.getDomainPredicate();
+        return domainPredicate.getDomains()
+                .map(domains -> domains.keySet().stream()
+                        .allMatch(subfield -> subfield.getPath().isEmpty() && partitionColumns.contains(subfield.getRootName())))
+                .orElse(true);
+    }
+
+    private static void validateOptions(Map<String, String> options)
+    {
+        for (String option : options.keySet()) {
+            if (!OPTIONS.contains(option)) {
+                throw new PrestoException(INVALID_PROCEDURE_ARGUMENT, format("Unknown option '%s', expected one of %s", option, OPTIONS));
+            }
+        }
+    }
+
+    private static long getTargetFileSize(Table icebergTable, Map<String, String> options)
+    {
+        long targetFileSize = getLongOption(options, TARGET_FILE_SIZE_BYTES, Long.parseLong(
+                icebergTable.properties().getOrDefault(WRITE_TARGET_FILE_SIZE_BYTES, String.valueOf(WRITE_TARGET_FILE_SIZE_BYTES_DEFAULT))));
+        if (targetFileSize <= 0) {
+            throw new PrestoException(INVALID_PROCEDURE_ARGUMENT, format("Option '%s' must be positive", TARGET_FILE_SIZE_BYTES));
+        }
+        return targetFileSize;
+    }
+
+    private static UnaryOperator<List<FileScanTask>> createFileGroupSelector(Map<String, String> options, long targetFileSize)
+    {
+        long minFileSize = getLongOption(options, MIN_FILE_SIZE_BYTES, (long) (targetFileSize * MIN_FILE_SIZE_DEFAULT_RATIO));
+        long minInputFiles = getLongOption(options, MIN_INPUT_FILES, MIN_INPUT_FILES_DEFAULT);
+        long deleteFileThreshold = getLongOption(options, DELETE_FILE_THRESHOLD, DELETE_FILE_THRESHOLD_DEFAULT);
+        boolean rewriteAll = Boolean.parseBoolean(options.getOrDefault(REWRITE_ALL, "false"));
+
+        return fileGroup -> {
+            if (rewriteAll) {
+                return fileGroup;
+            }
+
+            List<FileScanTask> tasks = fileGroup.stream()
+                    .filter(task -> task.file().fileSizeInBytes() < minFileSize || task.deletes().size() >= deleteFileThreshold)
+                    .collect(toImmutableList());
+            long totalSize = tasks.stream().mapToLong(task -> task.file().fileSizeInBytes()).sum();
+            boolean tooManyDeletes = tasks.stream().anyMatch(task -> task.deletes().size() >= deleteFileThreshold);
+            // rewrite the small files of the partition when they are numerous enough, or large enough together to fill a file of the target size
+            if (tasks.size() >= minInputFiles || (tasks.size() > 1 && totalSize >= targetFileSize) || tooManyDeletes) {
+                return tasks;
+            }
+            return ImmutableList.of();
+        };
+    }
+
+    private static long getLongOption(Map<String, String> options, String option, long defaultValue)
+    {
+        String value = options.get(option);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            throw new PrestoException(INVALID_PROCEDURE_ARGUMENT, format("Invalid value '%s' for option '%s'", value, option), e);
+        }
+    }
+
+    private static String getReferencedDataFile(DeleteFile deleteFile)
+    {
+        int pathFieldId = MetadataColumns.DELETE_FILE_PATH.fieldId();
+        if (deleteFile.lowerBounds() == null || deleteFile.upperBounds() == null) {
+            return null;
+        }
+        ByteBuffer lowerBound = deleteFile.lowerBounds().get(pathFieldId);
+        ByteBuffer upperBound = deleteFile.upperBounds().get(pathFieldId);
+        if (lowerBound == null || !lowerBound.equals(upperBound)) {
+            return null;
+        }
+        return fromByteBuffer(Types.StringType.get(), lowerBound).toString();
+    }
+
+    private static DataFile toDataFile(CommitTaskData task, Table icebergTable)
+    {
+        PartitionSpec partitionSpec = icebergTable.specs().get(task.getPartitionSpecId());
+        DataFiles.Builder builder = DataFiles.builder(partitionSpec)
+                .withPath(task.getPath())
+                .withFormat(task.getFileFormat().toIceberg())
+                .withFileSizeInBytes(task.getFileSizeInBytes())
+                .withMetrics(task.getMetrics().metrics());
+
+        if (!partitionSpec.fields().isEmpty()) {
+            Type[] partitionColumnTypes = partitionSpec.fields().stream()
+                    .map(field -> field.transform().getResultType(icebergTable.schema().findType(field.sourceId())))
+                    .toArray(Type[]::new);
+            String partitionDataJson = task.getPartitionDataJson()
+                    .orElseThrow(() -> new VerifyException("No partition data for partitioned table"));
+            builder.withPartition(PartitionData.fromJson(partitionDataJson, partitionColumnTypes));
+        }
+        return builder.build();
+    }
+}
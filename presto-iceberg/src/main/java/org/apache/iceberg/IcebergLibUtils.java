@@ -13,7 +13,27 @@
  */
 package org.apache.iceberg;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.io.Closer;
+import org.apache.iceberg.expressions.Expression;
+import org.apache.iceberg.expressions.ExpressionUtil;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.metrics.DefaultMetricsContext;
+import org.apache.iceberg.metrics.ImmutableScanReport;
+import org.apache.iceberg.metrics.MetricsReporter;
+import org.apache.iceberg.metrics.ScanMetrics;
+import org.apache.iceberg.metrics.ScanMetricsResult;
+import org.apache.iceberg.metrics.Timer;
+import org.apache.iceberg.types.Types;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.Objects.requireNonNull;
 
 public class IcebergLibUtils
@@ -31,4 +51,94 @@ public class IcebergLibUtils
         checkArgument(expireSnapshots instanceof RemoveSnapshots, "expireSnapshots is not an instance of RemoveSnapshots");
         return ((RemoveSnapshots) expireSnapshots).withIncrementalCleanup(incrementalCleanup);
     }
+
+    /**
+     * Plan the file scan tasks of a snapshot like a table scan does, but only from the given
+     * data manifests, so that the caller can skip manifests it knows have no matching file.
+     * The data manifests are consumed lazily, in groups that double in size, so that the first
+     * tasks are planned before the last manifests are known, while the delete manifests, which
+     * are read again for every group, are read a logarithmic number of times. Closing the
+     * returned iterable closes the data manifests and reports the scan to the metrics reporter.
+     */
+    public static CloseableIterable<FileScanTask> planFiles(
+            Table table,
+            Snapshot snapshot,
+            Schema schema,
+            CloseableIterable<ManifestFile> dataManifests,
+            Expression filter,
+            boolean caseSensitive,
+            MetricsReporter metricsReporter,
+            ExecutorService executor)
+    {
+        requireNonNull(table, "table is null");
+        requireNonNull(snapshot, "snapshot is null");
+        requireNonNull(schema, "schema is null");
+        requireNonNull(dataManifests, "dataManifests is null");
+        requireNonNull(metricsReporter, "metricsReporter is null");
+
+        ScanMetrics scanMetrics = ScanMetrics.of(new DefaultMetricsContext());
+        Timer.Timed planningDuration = scanMetrics.totalPlanningDuration().start();
+        List<ManifestFile> deleteManifests = snapshot.deleteManifests(table.io());
+        Iterable<List<ManifestFile>> batches = () -> new ManifestBatchIterator(dataManifests.iterator());
+        Iterable<CloseableIterable<FileScanTask>> groups = Iterables.transform(
+                batches,
+                batch -> new ManifestGroup(table.io(), batch, deleteManifests)
+                        .caseSensitive(caseSensitive)
+                        .select(BaseScan.SCAN_COLUMNS)
+                        .filterData(filter)
+                        .specsById(table.specs())
+                        .scanMetrics(scanMetrics)
+                        .ignoreDeleted()
+                        .planWith(executor)
+                        .planFiles());
+        CloseableIterable<FileScanTask> fileScanTasks = CloseableIterable.concat(groups);
+
+        Closer closer = Closer.create();
+        closer.register(dataManifests);
+        closer.register(fileScanTasks);
+        return CloseableIterable.whenComplete(
+                CloseableIterable.combine(fileScanTasks, closer),
+                () -> {
+                    planningDuration.stop();
+                    metricsReporter.report(ImmutableScanReport.builder()
+                            .tableName(table.name())
+                            .snapshotId(snapshot.snapshotId())
+                            .schemaId(schema.schemaId())
+                            .filter(ExpressionUtil.sanitize(schema.asStruct(), filter, caseSensitive))
+                            .projectedFieldIds(schema.columns().stream()
+                                    .map(Types.NestedField::fieldId)
+                                    .collect(toImmutableList()))
+                            .projectedFieldNames(schema.columns().stream()
+                                    .map(Types.NestedField::name)
+                                    .collect(toImmutableList()))
+                            .scanMetrics(ScanMetricsResult.fromScanMetrics(scanMetrics))
+                            .build());
+                });
+    }
+
+    private static class ManifestBatchIterator
+            extends AbstractIterator<List<ManifestFile>>
+    {
+        private final Iterator<ManifestFile> manifests;
+        private int batchSize = 1;
+
+        public ManifestBatchIterator(Iterator<ManifestFile> manifests)
+        {
+            this.manifests = requireNonNull(manifests, "manifests is null");
+        }
+
+        @Override
+        protected List<ManifestFile> computeNext()
+        {
+            if (!manifests.hasNext()) {
+                return endOfData();
+            }
+            ImmutableList.Builder<ManifestFile> batch = ImmutableList.builder();
+            for (int i = 0; i < batchSize && manifests.hasNext(); i++) {
+                batch.add(manifests.next());
+            }
+            batchSize *= 2;
+            return batch.build();
+        }
+    }
 }
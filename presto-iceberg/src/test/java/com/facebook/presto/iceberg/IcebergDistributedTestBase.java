@@ -1662,6 +1662,28 @@ public abstract class IcebergDistributedTestBase
         }
     }
 
+    @Test
+    public void testWithZOrder()
+    {
+        String tableName = "test_create_zorder_table_" + randomTableSuffix();
+        assertUpdate("CREATE TABLE " + tableName + "(id int, emp_name varchar, salary double) WITH (zorder_by = ARRAY['id', 'salary'])");
+        try {
+            assertUpdate("INSERT INTO " + tableName + " VALUES (5, 'EEEE', 1.5), (3, 'CCCC', -2.0), (1, 'AAAA', NULL), (2, 'BBBB', 4.0), (4, 'DDDD', 0.0)", 5);
+            assertQuery("SELECT * FROM " + tableName, "VALUES (1, 'AAAA', NULL), (2, 'BBBB', 4.0), (3, 'CCCC', -2.0), (4, 'DDDD', 0.0), (5, 'EEEE', 1.5)");
+            assertTrue(((String) computeActual("SHOW CREATE TABLE " + tableName).getOnlyValue()).contains("zorder_by = ARRAY['id','salary']"));
+
+            assertQueryFails(
+                    "CREATE TABLE " + tableName + "_invalid (id int) WITH (zorder_by = ARRAY['id'], sorted_by = ARRAY['id'])",
+                    "zorder_by cannot be combined with sorted_by");
+            assertQueryFails(
+                    "CREATE TABLE " + tableName + "_invalid (id int) WITH (zorder_by = ARRAY['missing'])",
+                    "Z-order column missing does not exist in the table");
+        }
+        finally {
+            assertUpdate("DROP TABLE IF EXISTS " + tableName);
+        }
+    }
+
     @Test
     public void testWithoutSortOrder()
             throws IOException
@@ -73,6 +73,10 @@ public class TestIcebergConfig
                 .setMetricsMaxInferredColumn(METRICS_MAX_INFERRED_COLUMN_DEFAULTS_DEFAULT)
                 .setManifestCacheMaxChunkSize(succinctDataSize(2, MEGABYTE))
                 .setMaxStatisticsFileCacheSize(succinctDataSize(256, MEGABYTE))
+                .setManifestIndexCacheEnabled(false)
+                .setMaxManifestIndexCacheSize(succinctDataSize(256, MEGABYTE))
+                .setDeleteFileCacheEnabled(false)
+                .setMaxDeleteFileCacheSize(succinctDataSize(128, MEGABYTE))
                 .setStatisticsKllSketchKParameter(1024));
     }
 
@@ -108,6 +112,10 @@ public class TestIcebergConfig
                 .put("iceberg.metadata-delete-after-commit", "true")
                 .put("iceberg.metrics-max-inferred-column", "16")
                 .put("iceberg.max-statistics-file-cache-size", "512MB")
+                .put("iceberg.manifest-index-cache-enabled", "true")
+                .put("iceberg.max-manifest-index-cache-size", "128MB")
+                .put("iceberg.delete-file-cache-enabled", "true")
+                .put("iceberg.max-delete-file-cache-size", "64MB")
                 .put("iceberg.statistics-kll-sketch-k-parameter", "4096")
                 .build();
 
@@ -140,6 +148,10 @@ public class TestIcebergConfig
                 .setMetadataDeleteAfterCommit(true)
                 .setMetricsMaxInferredColumn(16)
                 .setMaxStatisticsFileCacheSize(succinctDataSize(512, MEGABYTE))
+                .setManifestIndexCacheEnabled(true)
+                .setMaxManifestIndexCacheSize(succinctDataSize(128, MEGABYTE))
+                .setDeleteFileCacheEnabled(true)
+                .setMaxDeleteFileCacheSize(succinctDataSize(64, MEGABYTE))
                 .setStatisticsKllSketchKParameter(4096);
 
         assertFullMapping(properties, expected);
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.iceberg.DataFile;
+import org.apache.iceberg.DataFiles;
+import org.apache.iceberg.Metrics;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.types.Types;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.apache.iceberg.expressions.Expressions.alwaysTrue;
+import static org.apache.iceberg.expressions.Expressions.and;
+import static org.apache.iceberg.expressions.Expressions.equal;
+import static org.apache.iceberg.expressions.Expressions.greaterThan;
+import static org.apache.iceberg.expressions.Expressions.in;
+import static org.apache.iceberg.expressions.Expressions.isNull;
+import static org.apache.iceberg.expressions.Expressions.lessThan;
+import static org.apache.iceberg.expressions.Expressions.not;
+import static org.apache.iceberg.types.Conversions.toByteBuffer;
+import static org.apache.iceberg.types.Types.NestedField.optional;
+import static org.apache.iceberg.types.Types.NestedField.required;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestManifestIndex
+{
+    private static final Schema SCHEMA = new Schema(
+            required(1, "id", Types.LongType.get()),
+            optional(2, "ds", Types.StringType.get()));
+    private static final PartitionSpec SPEC = PartitionSpec.builderFor(SCHEMA).identity("ds").build();
+    private static final Map<Integer, PartitionSpec> SPECS = ImmutableMap.of(SPEC.specId(), SPEC);
+
+    @Test
+    public void testMightMatch()
+    {
+        ManifestIndex manifestIndex = new ManifestIndex.Builder(SPEC)
+                .addFile(dataFile("ds=a", 0, 100))
+                .addFile(dataFile("ds=b", 200, 300))
+                .build();
+
+        assertTrue(manifestIndex.mightMatch(SCHEMA, SPECS, alwaysTrue(), true));
+        assertTrue(manifestIndex.mightMatch(SCHEMA, SPECS, equal("id", 50L), true));
+        assertTrue(manifestIndex.mightMatch(SCHEMA, SPECS, equal("id", 250L), true));
+        assertFalse(manifestIndex.mightMatch(SCHEMA, SPECS, equal("id", 150L), true));
+        assertFalse(manifestIndex.mightMatch(SCHEMA, SPECS, greaterThan("id", 300L), true));
+        assertTrue(manifestIndex.mightMatch(SCHEMA, SPECS, not(greaterThan("id", 300L)), true));
+        assertFalse(manifestIndex.mightMatch(SCHEMA, SPECS, in("id", 150L, 400L), true));
+        assertTrue(manifestIndex.mightMatch(SCHEMA, SPECS, in("id", 150L, 250L), true));
+        assertFalse(manifestIndex.mightMatch(SCHEMA, SPECS, isNull("id"), true));
+
+        // the partition and the bounds have to match in the same file
+        assertTrue(manifestIndex.mightMatch(SCHEMA, SPECS, and(equal("ds", "b"), greaterThan("id", 250L)), true));
+        assertFalse(manifestIndex.mightMatch(SCHEMA, SPECS, and(equal("ds", "b"), lessThan("id", 100L)), true));
+        assertFalse(manifestIndex.mightMatch(SCHEMA, SPECS, equal("ds", "c"), true));
+    }
+
+    @Test
+    public void testEmptyManifest()
+    {
+        ManifestIndex manifestIndex = new ManifestIndex.Builder(SPEC).build();
+        assertFalse(manifestIndex.mightMatch(SCHEMA, SPECS, alwaysTrue(), true));
+    }
+
+    private static DataFile dataFile(String partition, long minId, long maxId)
+    {
+        return DataFiles.builder(SPEC)
+                .withPath("/warehouse/table/data/" + partition + "/" + minId + ".parquet")
+                .withFormat("parquet")
+                .withFileSizeInBytes(1024)
+                .withPartitionPath(partition)
+                .withMetrics(new Metrics(
+                        maxId - minId + 1,
+                        null,
+                        ImmutableMap.of(1, maxId - minId + 1),
+                        ImmutableMap.of(1, 0L),
+                        null,
+                        ImmutableMap.of(1, toByteBuffer(Types.LongType.get(), minId)),
+                        ImmutableMap.of(1, toByteBuffer(Types.LongType.get(), maxId))))
+                .build();
+    }
+}
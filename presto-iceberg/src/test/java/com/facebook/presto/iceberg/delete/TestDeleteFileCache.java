@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.iceberg.IcebergColumnHandle;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.iceberg.IcebergColumnHandle.primitiveIcebergColumnHandle;
+import static com.facebook.presto.iceberg.IcebergErrorCode.ICEBERG_BAD_DATA;
+import static com.facebook.presto.iceberg.IcebergErrorCode.ICEBERG_CANNOT_OPEN_SPLIT;
+import static com.facebook.presto.iceberg.delete.DeleteFileCacheKey.positionDeletesKey;
+import static org.apache.iceberg.MetadataColumns.ROW_POSITION;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestDeleteFileCache
+{
+    private static final IcebergColumnHandle ROW_POSITION_COLUMN = primitiveIcebergColumnHandle(ROW_POSITION.fieldId(), ROW_POSITION.name(), BIGINT, Optional.empty());
+
+    @Test
+    public void testCachedPositionDeletes()
+    {
+        DeleteFileCache cache = createCache();
+        AtomicInteger loads = new AtomicInteger();
+
+        DeleteFilter first = cache.getOrLoad(positionDeletesKey("delete1", "data"), () -> {
+            loads.incrementAndGet();
+            return positionDeletes("delete1", 1, 3);
+        });
+        DeleteFilter cached = cache.getOrLoad(positionDeletesKey("delete1", "data"), () -> {
+            throw new AssertionError("cached filter is read again");
+        });
+        assertSame(cached, first);
+        DeleteFilter second = cache.getOrLoad(positionDeletesKey("delete2", "data"), () -> {
+            loads.incrementAndGet();
+            return positionDeletes("delete2", 3, 4);
+        });
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.getFilterSizeDistribution().getAllTime().getCount(), 2.0);
+
+        // the cached filters of a data file are applied one after the other, without merging their rows
+        List<RowPredicate> predicates = ImmutableList.of(
+                first.createPredicate(ImmutableList.of(ROW_POSITION_COLUMN)),
+                second.createPredicate(ImmutableList.of(ROW_POSITION_COLUMN)));
+        Page data = positions(0, 1, 2, 3, 4, 5);
+        boolean[] expected = {true, false, true, false, false, true};
+        for (int position = 0; position < data.getPositionCount(); position++) {
+            int row = position;
+            assertEquals(predicates.stream().allMatch(predicate -> predicate.test(data, row)), expected[position]);
+        }
+    }
+
+    @Test
+    public void testLoadFailure()
+    {
+        DeleteFileCache cache = createCache();
+
+        try {
+            cache.getOrLoad(positionDeletesKey("delete", "data"), () -> {
+                throw new PrestoException(ICEBERG_BAD_DATA, "corrupt delete file");
+            });
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), ICEBERG_BAD_DATA.toErrorCode());
+        }
+
+        try {
+            cache.getOrLoad(positionDeletesKey("delete", "data"), () -> {
+                throw new IOException("read failed");
+            });
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), ICEBERG_CANNOT_OPEN_SPLIT.toErrorCode());
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        // failed reads are not cached
+        assertFalse(cache.asMap().containsKey(positionDeletesKey("delete", "data")));
+    }
+
+    private static DeleteFileCache createCache()
+    {
+        return new DeleteFileCache(CacheBuilder.newBuilder().recordStats().build(), true);
+    }
+
+    private static PositionDeleteFilter positionDeletes(String deleteFilePath, long... positions)
+    {
+        Roaring64Bitmap deletedRows = new Roaring64Bitmap();
+        for (long position : positions) {
+            deletedRows.addLong(position);
+        }
+        return new PositionDeleteFilter(deletedRows, deleteFilePath);
+    }
+
+    private static Page positions(long... values)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, values.length);
+        for (long value : values) {
+            BIGINT.writeLong(blockBuilder, value);
+        }
+        return new Page(blockBuilder.build());
+    }
+}
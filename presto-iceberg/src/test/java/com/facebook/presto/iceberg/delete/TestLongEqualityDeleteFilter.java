@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.delete;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.iceberg.IcebergColumnHandle;
+import com.facebook.presto.spi.FixedPageSource;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.iceberg.IcebergColumnHandle.primitiveIcebergColumnHandle;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLongEqualityDeleteFilter
+{
+    private static final IcebergColumnHandle ID_COLUMN = primitiveIcebergColumnHandle(1, "id", BIGINT, Optional.empty());
+    private static final IcebergColumnHandle NAME_COLUMN = primitiveIcebergColumnHandle(2, "name", VARCHAR, Optional.empty());
+
+    @Test
+    public void testPredicate()
+    {
+        DeleteFilter filter = EqualityDeleteFilter.readEqualityDeletes(
+                new FixedPageSource(ImmutableList.of(page(5L, 3L), page(3L, 9L))),
+                ImmutableList.of(ID_COLUMN),
+                "delete_file");
+        assertTrue(filter instanceof LongEqualityDeleteFilter);
+        assertEquals(filter.getDeleteFilePath(), Optional.of("delete_file"));
+
+        // the data columns do not have to be in the order of the delete file
+        RowPredicate predicate = filter.createPredicate(ImmutableList.of(NAME_COLUMN, ID_COLUMN));
+        Page data = new Page(
+                VARCHAR.createBlockBuilder(null, 4).appendNull().appendNull().appendNull().appendNull().build(),
+                page(1L, 3L, 9L, null).getBlock(0));
+        assertTrue(predicate.test(data, 0));
+        assertFalse(predicate.test(data, 1));
+        assertFalse(predicate.test(data, 2));
+        assertTrue(predicate.test(data, 3));
+    }
+
+    @Test
+    public void testNullDeleted()
+    {
+        DeleteFilter filter = EqualityDeleteFilter.readEqualityDeletes(
+                new FixedPageSource(ImmutableList.of(page(5L, null))),
+                ImmutableList.of(ID_COLUMN),
+                null);
+        RowPredicate predicate = filter.createPredicate(ImmutableList.of(ID_COLUMN));
+        Page data = page(null, 5L, 6L);
+        assertFalse(predicate.test(data, 0));
+        assertFalse(predicate.test(data, 1));
+        assertTrue(predicate.test(data, 2));
+    }
+
+    private static Page page(Long... values)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, values.length);
+        for (Long value : values) {
+            if (value == null) {
+                blockBuilder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(blockBuilder, value);
+            }
+        }
+        return new Page(blockBuilder.build());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.iceberg.procedure;
+
+import com.facebook.presto.iceberg.IcebergQueryRunner;
+import com.facebook.presto.testing.QueryRunner;
+import com.facebook.presto.tests.AbstractTestQueryFramework;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.iceberg.CatalogType.HADOOP;
+import static java.lang.String.format;
+
+public class TestRewriteDataFilesProcedure
+        extends AbstractTestQueryFramework
+{
+    public static final String TEST_SCHEMA = "tpch";
+
+    @Override
+    protected QueryRunner createQueryRunner()
+            throws Exception
+    {
+        return IcebergQueryRunner.builder().setCatalogType(HADOOP).build().getQueryRunner();
+    }
+
+    @Test
+    public void testRewriteSmallFiles()
+    {
+        String tableName = "rewrite_small_files_test";
+        assertUpdate("CREATE TABLE " + tableName + " (id integer, value varchar)");
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertUpdate(format("INSERT INTO %s VALUES (%s, 'a'), (%s, 'b')", tableName, 2 * i, 2 * i + 1), 2);
+            }
+            assertQuery("SELECT count(*) FROM \"" + tableName + "$files\"", "VALUES 3");
+
+            // fewer small files than the default minimum number of input files
+            assertQuerySucceeds(format("CALL system.rewrite_data_files('%s', '%s')", TEST_SCHEMA, tableName));
+            assertQuery("SELECT count(*) FROM \"" + tableName + "$files\"", "VALUES 3");
+
+            assertQuerySucceeds(format("CALL system.rewrite_data_files(schema => '%s', table_name => '%s', options => MAP(ARRAY['min-input-files'], ARRAY['2']))", TEST_SCHEMA, tableName));
+            assertQuery("SELECT count(*) FROM \"" + tableName + "$files\"", "VALUES 1");
+            assertQuery("SELECT * FROM " + tableName, "VALUES (0, 'a'), (1, 'b'), (2, 'a'), (3, 'b'), (4, 'a'), (5, 'b')");
+        }
+        finally {
+            assertUpdate("DROP TABLE IF EXISTS " + tableName);
+        }
+    }
+
+    @Test
+    public void testRewriteAppliesDeletes()
+    {
+        String tableName = "rewrite_deletes_test";
+        assertUpdate("CREATE TABLE " + tableName + " (id integer, value varchar) WITH (format_version = '2', delete_mode = 'merge-on-read')");
+        try {
+            assertUpdate("INSERT INTO " + tableName + " VALUES (1, 'a'), (2, 'b'), (3, 'c')", 3);
+            assertUpdate("DELETE FROM " + tableName + " WHERE id = 2", 1);
+            assertQuery("SELECT count(*) FROM \"" + tableName + "$files\" WHERE content = 1", "VALUES 1");
+
+            assertQuerySucceeds(format("CALL system.rewrite_data_files('%s', '%s')", TEST_SCHEMA, tableName));
+            assertQuery("SELECT content, record_count FROM \"" + tableName + "$files\"", "VALUES (0, 2)");
+            assertQuery("SELECT * FROM " + tableName, "VALUES (1, 'a'), (3, 'c')");
+        }
+        finally {
+            assertUpdate("DROP TABLE IF EXISTS " + tableName);
+        }
+    }
+
+    @Test
+    public void testRewritePartitions()
+    {
+        String tableName = "rewrite_partitions_test";
+        assertUpdate("CREATE TABLE " + tableName + " (id integer, ds varchar) WITH (partitioning = ARRAY['ds'])");
+        try {
+            for (int i = 0; i < 2; i++) {
+                assertUpdate(format("INSERT INTO %s VALUES (%s, 'a'), (%s, 'b')", tableName, 2 * i, 2 * i + 1), 2);
+            }
+            assertQuery("SELECT count(*) FROM \"" + tableName + "$files\"", "VALUES 4");
+
+            assertQuerySucceeds(format("CALL system.rewrite_data_files('%s', '%s', 'ds = ''a''', MAP(ARRAY['rewrite-all'], ARRAY['true']))", TEST_SCHEMA, tableName));
+            assertQuery("SELECT count(*) FROM \"" + tableName + "$files\"", "VALUES 3");
+            assertQuery("SELECT * FROM " + tableName, "VALUES (0, 'a'), (1, 'b'), (2, 'a'), (3, 'b')");
+
+            assertQueryFails(
+                    format("CALL system.rewrite_data_files('%s', '%s', 'id = 1')", TEST_SCHEMA, tableName),
+                    "The filter of rewrite_data_files can only reference identity partition columns");
+            assertQueryFails(
+                    format("CALL system.rewrite_data_files('%s', '%s', 'TRUE', MAP(ARRAY['unknown'], ARRAY['1']))", TEST_SCHEMA, tableName),
+                    "Unknown option 'unknown'.*");
+            assertQueryFails(
+                    format("CALL system.rewrite_data_files('%s', '%s', 'TRUE', MAP(ARRAY['target-file-size-bytes'], ARRAY['0']))", TEST_SCHEMA, tableName),
+                    "Option 'target-file-size-bytes' must be positive");
+        }
+        finally {
+            assertUpdate("DROP TABLE IF EXISTS " + tableName);
+        }
+    }
+}
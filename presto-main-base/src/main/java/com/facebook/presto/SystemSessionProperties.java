@@ -174,6 +174,8 @@ public final class SystemSessionProperties
     public static final String FORCE_SINGLE_NODE_OUTPUT = "force_single_node_output";
     public static final String FILTER_AND_PROJECT_MIN_OUTPUT_PAGE_SIZE = "filter_and_project_min_output_page_size";
     public static final String FILTER_AND_PROJECT_MIN_OUTPUT_PAGE_ROW_COUNT = "filter_and_project_min_output_page_row_count";
+    public static final String ADAPTIVE_FILTER_REORDERING_ENABLED = "adaptive_filter_reordering_enabled";
+    public static final String SHARE_COMMON_SUB_EXPRESSIONS_ACROSS_FUNCTIONS = "share_common_sub_expressions_across_functions";
     public static final String DISTRIBUTED_SORT = "distributed_sort";
     public static final String USE_MARK_DISTINCT = "use_mark_distinct";
     public static final String EXPLOIT_CONSTRAINTS = "exploit_constraints";
@@ -260,6 +262,7 @@ public final class SystemSessionProperties
     public static final String VERBOSE_OPTIMIZER_RESULTS = "verbose_optimizer_results";
     public static final String STREAMING_FOR_PARTIAL_AGGREGATION_ENABLED = "streaming_for_partial_aggregation_enabled";
     public static final String MAX_STAGE_COUNT_FOR_EAGER_SCHEDULING = "max_stage_count_for_eager_scheduling";
+    public static final String PIPELINED_EXECUTION_MAX_SPECULATIVE_PHASES = "pipelined_execution_max_speculative_phases";
     public static final String HYPERLOGLOG_STANDARD_ERROR_WARNING_THRESHOLD = "hyperloglog_standard_error_warning_threshold";
     public static final String PREFER_MERGE_JOIN_FOR_SORTED_INPUTS = "prefer_merge_join_for_sorted_inputs";
     public static final String PREFER_SORT_MERGE_JOIN = "prefer_sort_merge_join";
@@ -283,6 +286,7 @@ public final class SystemSessionProperties
     public static final String LEAF_NODE_LIMIT_ENABLED = "leaf_node_limit_enabled";
     public static final String PUSH_REMOTE_EXCHANGE_THROUGH_GROUP_ID = "push_remote_exchange_through_group_id";
     public static final String OPTIMIZE_MULTIPLE_APPROX_PERCENTILE_ON_SAME_FIELD = "optimize_multiple_approx_percentile_on_same_field";
+    public static final String OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD = "optimize_multiple_json_extract_scalar_on_same_field";
     public static final String RANDOMIZE_OUTER_JOIN_NULL_KEY = "randomize_outer_join_null_key";
     public static final String RANDOMIZE_OUTER_JOIN_NULL_KEY_STRATEGY = "randomize_outer_join_null_key_strategy";
     public static final String RANDOMIZE_OUTER_JOIN_NULL_KEY_NULL_RATIO_THRESHOLD = "randomize_outer_join_null_key_null_ratio_threshold";
@@ -350,6 +354,7 @@ public final class SystemSessionProperties
     public static final String UTILIZE_UNIQUE_PROPERTY_IN_QUERY_PLANNING = "utilize_unique_property_in_query_planning";
     public static final String PUSHDOWN_SUBFIELDS_FOR_MAP_FUNCTIONS = "pushdown_subfields_for_map_functions";
     public static final String MAX_SERIALIZABLE_OBJECT_SIZE = "max_serializable_object_size";
+    public static final String COMPACT_FINISHED_QUERY_TASK_STATS = "compact_finished_query_task_stats";
 
     // TODO: Native execution related session properties that are temporarily put here. They will be relocated in the future.
     public static final String NATIVE_AGGREGATION_SPILL_ALL = "native_aggregation_spill_all";
@@ -936,6 +941,16 @@ public final class SystemSessionProperties
                         "Experimental: Minimum output page row count for filter and project operators",
                         featuresConfig.getFilterAndProjectMinOutputPageRowCount(),
                         false),
+                booleanProperty(
+                        ADAPTIVE_FILTER_REORDERING_ENABLED,
+                        "Experimental: Evaluate the conjuncts of filters separately, in an order adapted to their observed cost and selectivity",
+                        featuresConfig.isAdaptiveFilterReorderingEnabled(),
+                        false),
+                booleanProperty(
+                        SHARE_COMMON_SUB_EXPRESSIONS_ACROSS_FUNCTIONS,
+                        "Experimental: Compute sub-expressions shared by the filter and the projections, or by projections compiled separately, only once",
+                        featuresConfig.isShareCommonSubExpressionsAcrossFunctions(),
+                        false),
                 booleanProperty(
                         DISTRIBUTED_SORT,
                         "Parallelize sort across multiple nodes",
@@ -1511,6 +1526,11 @@ public final class SystemSessionProperties
                         "Maximum stage count to use eager scheduling when using the adaptive scheduling policy",
                         featuresConfig.getMaxStageCountForEagerScheduling(),
                         false),
+                integerProperty(
+                        PIPELINED_EXECUTION_MAX_SPECULATIVE_PHASES,
+                        "Number of source phases started before the previous phases are scheduled when using the pipelined scheduling policy",
+                        featuresConfig.getPipelinedExecutionMaxSpeculativePhases(),
+                        false),
                 doubleProperty(
                         HYPERLOGLOG_STANDARD_ERROR_WARNING_THRESHOLD,
                         "Threshold for obtaining precise results from aggregation functions",
@@ -1633,6 +1653,11 @@ public final class SystemSessionProperties
                         "Combine individual approx_percentile calls on individual field to evaluation on an array",
                         featuresConfig.isOptimizeMultipleApproxPercentileOnSameFieldEnabled(),
                         false),
+                booleanProperty(
+                        OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD,
+                        "Combine json_extract_scalar calls on the same field into one extraction of all the paths",
+                        featuresConfig.isOptimizeMultipleJsonExtractScalarOnSameFieldEnabled(),
+                        false),
                 booleanProperty(
                         NATIVE_AGGREGATION_SPILL_ALL,
                         "Native Execution only. If true and spilling has been triggered during the input " +
@@ -2036,6 +2061,10 @@ public final class SystemSessionProperties
                 booleanProperty(ADD_DISTINCT_BELOW_SEMI_JOIN_BUILD,
                         "Add distinct aggregation below semi join build",
                         featuresConfig.isAddDistinctBelowSemiJoinBuild(),
+                        false),
+                booleanProperty(COMPACT_FINISHED_QUERY_TASK_STATS,
+                        "Replace the task infos of a finished query with compact per-stage task statistics. The UI no longer lists the tasks of the query once it finishes",
+                        queryManagerConfig.isCompactFinishedQueryTaskStatsEnabled(),
                         false));
     }
 
@@ -2548,6 +2577,16 @@ public final class SystemSessionProperties
         return session.getSystemProperty(FILTER_AND_PROJECT_MIN_OUTPUT_PAGE_ROW_COUNT, Integer.class);
     }
 
+    public static boolean isAdaptiveFilterReorderingEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_FILTER_REORDERING_ENABLED, Boolean.class);
+    }
+
+    public static boolean isShareCommonSubExpressionsAcrossFunctions(Session session)
+    {
+        return session.getSystemProperty(SHARE_COMMON_SUB_EXPRESSIONS_ACROSS_FUNCTIONS, Boolean.class);
+    }
+
     public static boolean useMarkDistinct(Session session)
     {
         return session.getSystemProperty(USE_MARK_DISTINCT, Boolean.class);
@@ -3005,6 +3044,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(OPTIMIZE_MULTIPLE_APPROX_PERCENTILE_ON_SAME_FIELD, Boolean.class);
     }
 
+    public static boolean isCombineJsonExtractScalarEnabled(Session session)
+    {
+        return session.getSystemProperty(OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD, Boolean.class);
+    }
+
     public static AggregationIfToFilterRewriteStrategy getAggregationIfToFilterRewriteStrategy(Session session)
     {
         return session.getSystemProperty(AGGREGATION_IF_TO_FILTER_REWRITE_STRATEGY, AggregationIfToFilterRewriteStrategy.class);
@@ -3045,6 +3089,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(MAX_STAGE_COUNT_FOR_EAGER_SCHEDULING, Integer.class);
     }
 
+    public static int getPipelinedExecutionMaxSpeculativePhases(Session session)
+    {
+        return session.getSystemProperty(PIPELINED_EXECUTION_MAX_SPECULATIVE_PHASES, Integer.class);
+    }
+
     public static double getHyperloglogStandardErrorWarningThreshold(Session session)
     {
         return session.getSystemProperty(HYPERLOGLOG_STANDARD_ERROR_WARNING_THRESHOLD, Double.class);
@@ -3462,4 +3511,9 @@ public final class SystemSessionProperties
     {
         return session.getSystemProperty(MAX_SERIALIZABLE_OBJECT_SIZE, Long.class);
     }
+
+    public static boolean isCompactFinishedQueryTaskStatsEnabled(Session session)
+    {
+        return session.getSystemProperty(COMPACT_FINISHED_QUERY_TASK_STATS, Boolean.class);
+    }
 }
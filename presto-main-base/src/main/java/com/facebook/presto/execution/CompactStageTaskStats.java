@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.operator.TaskStats;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Per-stage task statistics stored column-wise in primitive arrays. A finished
+ * query keeps one instance per stage instead of the full {@link TaskInfo} list,
+ * which holds on to output buffer, pipeline and operator stats for every task.
+ * The task states are the ordinals of {@link TaskState}.
+ */
+public class CompactStageTaskStats
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(CompactStageTaskStats.class).instanceSize();
+
+    private final int[] taskIds;
+    private final byte[] taskStates;
+    private final long[] elapsedTimeInNanos;
+    private final long[] queuedTimeInNanos;
+    private final long[] scheduledTimeInNanos;
+    private final long[] cpuTimeInNanos;
+    private final long[] blockedTimeInNanos;
+    private final long[] rawInputDataSizeInBytes;
+    private final long[] rawInputPositions;
+    private final long[] outputDataSizeInBytes;
+    private final long[] outputPositions;
+    private final long[] peakUserMemoryInBytes;
+    private final long[] peakTotalMemoryInBytes;
+
+    public static CompactStageTaskStats create(List<TaskInfo> taskInfos)
+    {
+        int taskCount = taskInfos.size();
+        int[] taskIds = new int[taskCount];
+        byte[] taskStates = new byte[taskCount];
+        long[] elapsedTimeInNanos = new long[taskCount];
+        long[] queuedTimeInNanos = new long[taskCount];
+        long[] scheduledTimeInNanos = new long[taskCount];
+        long[] cpuTimeInNanos = new long[taskCount];
+        long[] blockedTimeInNanos = new long[taskCount];
+        long[] rawInputDataSizeInBytes = new long[taskCount];
+        long[] rawInputPositions = new long[taskCount];
+        long[] outputDataSizeInBytes = new long[taskCount];
+        long[] outputPositions = new long[taskCount];
+        long[] peakUserMemoryInBytes = new long[taskCount];
+        long[] peakTotalMemoryInBytes = new long[taskCount];
+
+        for (int i = 0; i < taskCount; i++) {
+            TaskInfo taskInfo = taskInfos.get(i);
+            TaskStats stats = taskInfo.getStats();
+            taskIds[i] = taskInfo.getTaskId().getId();
+            taskStates[i] = (byte) taskInfo.getTaskStatus().getState().ordinal();
+            elapsedTimeInNanos[i] = stats.getElapsedTimeInNanos();
+            queuedTimeInNanos[i] = stats.getQueuedTimeInNanos();
+            scheduledTimeInNanos[i] = stats.getTotalScheduledTimeInNanos();
+            cpuTimeInNanos[i] = stats.getTotalCpuTimeInNanos();
+            blockedTimeInNanos[i] = stats.getTotalBlockedTimeInNanos();
+            rawInputDataSizeInBytes[i] = stats.getRawInputDataSizeInBytes();
+            rawInputPositions[i] = stats.getRawInputPositions();
+            outputDataSizeInBytes[i] = stats.getOutputDataSizeInBytes();
+            outputPositions[i] = stats.getOutputPositions();
+            peakUserMemoryInBytes[i] = stats.getPeakUserMemoryInBytes();
+            peakTotalMemoryInBytes[i] = stats.getPeakTotalMemoryInBytes();
+        }
+
+        return new CompactStageTaskStats(
+                taskIds,
+                taskStates,
+                elapsedTimeInNanos,
+                queuedTimeInNanos,
+                scheduledTimeInNanos,
+                cpuTimeInNanos,
+                blockedTimeInNanos,
+                rawInputDataSizeInBytes,
+                rawInputPositions,
+                outputDataSizeInBytes,
+                outputPositions,
+                peakUserMemoryInBytes,
+                peakTotalMemoryInBytes);
+    }
+
+    @JsonCreator
+    public CompactStageTaskStats(
+            @JsonProperty("taskIds") int[] taskIds,
+            @JsonProperty("taskStates") byte[] taskStates,
+            @JsonProperty("elapsedTimeInNanos") long[] elapsedTimeInNanos,
+            @JsonProperty("queuedTimeInNanos") long[] queuedTimeInNanos,
+            @JsonProperty("scheduledTimeInNanos") long[] scheduledTimeInNanos,
+            @JsonProperty("cpuTimeInNanos") long[] cpuTimeInNanos,
+            @JsonProperty("blockedTimeInNanos") long[] blockedTimeInNanos,
+            @JsonProperty("rawInputDataSizeInBytes") long[] rawInputDataSizeInBytes,
+            @JsonProperty("rawInputPositions") long[] rawInputPositions,
+            @JsonProperty("outputDataSizeInBytes") long[] outputDataSizeInBytes,
+            @JsonProperty("outputPositions") long[] outputPositions,
+            @JsonProperty("peakUserMemoryInBytes") long[] peakUserMemoryInBytes,
+            @JsonProperty("peakTotalMemoryInBytes") long[] peakTotalMemoryInBytes)
+    {
+        this.taskIds = requireNonNull(taskIds, "taskIds is null");
+        int taskCount = taskIds.length;
+        this.taskStates = requireNonNull(taskStates, "taskStates is null");
+        checkArgument(taskStates.length == taskCount, "taskStates length %s does not match task count %s", taskStates.length, taskCount);
+        this.elapsedTimeInNanos = checkLength(taskCount, elapsedTimeInNanos, "elapsedTimeInNanos");
+        this.queuedTimeInNanos = checkLength(taskCount, queuedTimeInNanos, "queuedTimeInNanos");
+        this.scheduledTimeInNanos = checkLength(taskCount, scheduledTimeInNanos, "scheduledTimeInNanos");
+        this.cpuTimeInNanos = checkLength(taskCount, cpuTimeInNanos, "cpuTimeInNanos");
+        this.blockedTimeInNanos = checkLength(taskCount, blockedTimeInNanos, "blockedTimeInNanos");
+        this.rawInputDataSizeInBytes = checkLength(taskCount, rawInputDataSizeInBytes, "rawInputDataSizeInBytes");
+        this.rawInputPositions = checkLength(taskCount, rawInputPositions, "rawInputPositions");
+        this.outputDataSizeInBytes = checkLength(taskCount, outputDataSizeInBytes, "outputDataSizeInBytes");
+        this.outputPositions = checkLength(taskCount, outputPositions, "outputPositions");
+        this.peakUserMemoryInBytes = checkLength(taskCount, peakUserMemoryInBytes, "peakUserMemoryInBytes");
+        this.peakTotalMemoryInBytes = checkLength(taskCount, peakTotalMemoryInBytes, "peakTotalMemoryInBytes");
+    }
+
+    public int getTaskCount()
+    {
+        return taskIds.length;
+    }
+
+    @JsonProperty
+    public int[] getTaskIds()
+    {
+        return taskIds;
+    }
+
+    @JsonProperty
+    public byte[] getTaskStates()
+    {
+        return taskStates;
+    }
+
+    @JsonProperty
+    public long[] getElapsedTimeInNanos()
+    {
+        return elapsedTimeInNanos;
+    }
+
+    @JsonProperty
+    public long[] getQueuedTimeInNanos()
+    {
+        return queuedTimeInNanos;
+    }
+
+    @JsonProperty
+    public long[] getScheduledTimeInNanos()
+    {
+        return scheduledTimeInNanos;
+    }
+
+    @JsonProperty
+    public long[] getCpuTimeInNanos()
+    {
+        return cpuTimeInNanos;
+    }
+
+    @JsonProperty
+    public long[] getBlockedTimeInNanos()
+    {
+        return blockedTimeInNanos;
+    }
+
+    @JsonProperty
+    public long[] getRawInputDataSizeInBytes()
+    {
+        return rawInputDataSizeInBytes;
+    }
+
+    @JsonProperty
+    public long[] getRawInputPositions()
+    {
+        return rawInputPositions;
+    }
+
+    @JsonProperty
+    public long[] getOutputDataSizeInBytes()
+    {
+        return outputDataSizeInBytes;
+    }
+
+    @JsonProperty
+    public long[] getOutputPositions()
+    {
+        return outputPositions;
+    }
+
+    @JsonProperty
+    public long[] getPeakUserMemoryInBytes()
+    {
+        return peakUserMemoryInBytes;
+    }
+
+    @JsonProperty
+    public long[] getPeakTotalMemoryInBytes()
+    {
+        return peakTotalMemoryInBytes;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE +
+                sizeOf(taskIds) +
+                sizeOf(taskStates) +
+                sizeOf(elapsedTimeInNanos) +
+                sizeOf(queuedTimeInNanos) +
+                sizeOf(scheduledTimeInNanos) +
+                sizeOf(cpuTimeInNanos) +
+                sizeOf(blockedTimeInNanos) +
+                sizeOf(rawInputDataSizeInBytes) +
+                sizeOf(rawInputPositions) +
+                sizeOf(outputDataSizeInBytes) +
+                sizeOf(outputPositions) +
+                sizeOf(peakUserMemoryInBytes) +
+                sizeOf(peakTotalMemoryInBytes);
+    }
+
+    private static long[] checkLength(int taskCount, long[] values, String name)
+    {
+        requireNonNull(values, name + " is null");
+        checkArgument(values.length == taskCount, "%s length %s does not match task count %s", name, values.length, taskCount);
+        return values;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("taskCount", getTaskCount())
+                .toString();
+    }
+}
@@ -63,6 +63,8 @@ public class QueryManagerConfig
     private int maxTotalRunningTaskCountToNotExecuteNewQuery = Integer.MAX_VALUE;
     private double concurrencyThresholdToEnableResourceGroupRefresh = 1.0;
     private Duration resourceGroupRunTimeInfoRefreshInterval = new Duration(100, TimeUnit.MILLISECONDS);
+    private boolean resourceGroupPredictiveAdmissionEnabled;
+    private int resourceGroupPredictiveAdmissionHistorySize = 10_000;
 
     private Duration clientTimeout = new Duration(5, TimeUnit.MINUTES);
 
@@ -102,6 +104,8 @@ public class QueryManagerConfig
 
     private int minColumnarEncodingChannelsToPreferRowWiseEncoding = 1000;
 
+    private boolean compactFinishedQueryTaskStatsEnabled;
+
     @Min(1)
     public int getScheduleSplitBatchSize()
     {
@@ -364,6 +368,33 @@ public class QueryManagerConfig
         return this;
     }
 
+    public boolean isResourceGroupPredictiveAdmissionEnabled()
+    {
+        return resourceGroupPredictiveAdmissionEnabled;
+    }
+
+    @Config("resource-group-predictive-admission-enabled")
+    @ConfigDescription("Admit queued queries based on their predicted peak memory and order FAIR resource group queues by arrival time plus predicted CPU time")
+    public QueryManagerConfig setResourceGroupPredictiveAdmissionEnabled(boolean resourceGroupPredictiveAdmissionEnabled)
+    {
+        this.resourceGroupPredictiveAdmissionEnabled = resourceGroupPredictiveAdmissionEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getResourceGroupPredictiveAdmissionHistorySize()
+    {
+        return resourceGroupPredictiveAdmissionHistorySize;
+    }
+
+    @Config("resource-group-predictive-admission-history-size")
+    @ConfigDescription("Number of distinct queries whose resource usage is remembered for predictive admission")
+    public QueryManagerConfig setResourceGroupPredictiveAdmissionHistorySize(int resourceGroupPredictiveAdmissionHistorySize)
+    {
+        this.resourceGroupPredictiveAdmissionHistorySize = resourceGroupPredictiveAdmissionHistorySize;
+        return this;
+    }
+
     @MinDuration("5s")
     @NotNull
     public Duration getClientTimeout()
@@ -766,6 +797,19 @@ public class QueryManagerConfig
         return this;
     }
 
+    public boolean isCompactFinishedQueryTaskStatsEnabled()
+    {
+        return compactFinishedQueryTaskStatsEnabled;
+    }
+
+    @Config("query.compact-finished-task-stats-enabled")
+    @ConfigDescription("Replace the task infos of finished queries with compact per-stage task statistics to reduce coordinator memory. The UI and the query info of a finished query no longer list its tasks")
+    public QueryManagerConfig setCompactFinishedQueryTaskStatsEnabled(boolean compactFinishedQueryTaskStatsEnabled)
+    {
+        this.compactFinishedQueryTaskStatsEnabled = compactFinishedQueryTaskStatsEnabled;
+        return this;
+    }
+
     public enum ExchangeMaterializationStrategy
     {
         NONE,
@@ -48,6 +48,7 @@ import com.facebook.presto.sql.planner.CanonicalPlanWithInfo;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.transaction.TransactionInfo;
 import com.facebook.presto.transaction.TransactionManager;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -79,6 +80,7 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 import static com.facebook.airlift.units.DataSize.succinctBytes;
+import static com.facebook.presto.SystemSessionProperties.isCompactFinishedQueryTaskStatsEnabled;
 import static com.facebook.presto.execution.BasicStageExecutionStats.EMPTY_STAGE_STATS;
 import static com.facebook.presto.execution.QueryState.DISPATCHING;
 import static com.facebook.presto.execution.QueryState.FINISHED;
@@ -1111,11 +1113,14 @@ public class QueryStateMachine
         planStatsAndCosts.getAndUpdate(stats -> Optional.ofNullable(stats)
                 .map(QueryStateMachine::pruneHistogramsFromStatsAndCosts)
                 .orElse(null));
-        prunedQueryInfo = pruneFinishedQueryInfo(queryInfo, inputs.get());
+        // task infos carry output buffer, pipeline and operator stats for every task, so with compaction the stages
+        // of the retained query info keep only the per-task counters in columnar form. The query info of a running
+        // query is not retained, it is built from the scheduler each time it is requested
+        prunedQueryInfo = pruneFinishedQueryInfo(queryInfo, inputs.get(), isCompactFinishedQueryTaskStatsEnabled(session));
         finalQueryInfo.compareAndSet(finalInfo, Optional.of(prunedQueryInfo));
     }
 
-    private static QueryInfo pruneFinishedQueryInfo(QueryInfo queryInfo, Set<Input> prunedInputs)
+    private static QueryInfo pruneFinishedQueryInfo(QueryInfo queryInfo, Set<Input> prunedInputs, boolean compactTaskStats)
     {
         return new QueryInfo(
                 queryInfo.getQueryId(),
@@ -1139,7 +1144,7 @@ public class QueryStateMachine
                 queryInfo.getStartedTransactionId(),
                 queryInfo.isClearTransactionId(),
                 queryInfo.getUpdateInfo(),
-                queryInfo.getOutputStage().map(QueryStateMachine::pruneStatsFromStageInfo),
+                queryInfo.getOutputStage().map(stage -> pruneStatsFromStageInfo(stage, compactTaskStats)),
                 queryInfo.getFailureInfo(),
                 queryInfo.getErrorCode(),
                 queryInfo.getWarnings(),
@@ -1200,7 +1205,8 @@ public class QueryStateMachine
                 statsAndCosts.getCosts());
     }
 
-    private static StageInfo pruneStatsFromStageInfo(StageInfo stage)
+    @VisibleForTesting
+    static StageInfo pruneStatsFromStageInfo(StageInfo stage, boolean compactTaskStats)
     {
         return new StageInfo(
                 stage.getStageId(),
@@ -1217,10 +1223,10 @@ public class QueryStateMachine
                         plan.isOutputTableWriterFragment(),
                         plan.getStatsAndCosts().map(QueryStateMachine::pruneHistogramsFromStatsAndCosts),
                         plan.getJsonRepresentation())), // Remove the plan
-                stage.getLatestAttemptExecutionInfo(),
-                stage.getPreviousAttemptsExecutionInfos(), // Remove failed attempts
+                compactTaskStats ? stage.getLatestAttemptExecutionInfo().withCompactTaskStats() : stage.getLatestAttemptExecutionInfo(),
+                compactTaskStats ? ImmutableList.of() : stage.getPreviousAttemptsExecutionInfos(), // Remove failed attempts
                 stage.getSubStages().stream()
-                        .map(QueryStateMachine::pruneStatsFromStageInfo)
+                        .map(subStage -> pruneStatsFromStageInfo(subStage, compactTaskStats))
                         .collect(toImmutableList()), // Remove the substages
                 stage.isRuntimeOptimized());
     }
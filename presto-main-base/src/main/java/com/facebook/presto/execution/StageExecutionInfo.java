@@ -56,6 +56,7 @@ public class StageExecutionInfo
     private final StageExecutionStats stats;
     private final List<TaskInfo> tasks;
     private final Optional<ExecutionFailureInfo> failureCause;
+    private final Optional<CompactStageTaskStats> compactTaskStats;
 
     public static StageExecutionInfo create(
             StageExecutionId stageExecutionId,
@@ -166,17 +167,36 @@ public class StageExecutionInfo
                 failureInfo);
     }
 
+    public StageExecutionInfo(
+            StageExecutionState state,
+            StageExecutionStats stats,
+            List<TaskInfo> tasks,
+            Optional<ExecutionFailureInfo> failureCause)
+    {
+        this(state, stats, tasks, failureCause, Optional.empty());
+    }
+
     @JsonCreator
     public StageExecutionInfo(
             @JsonProperty("state") StageExecutionState state,
             @JsonProperty("stats") StageExecutionStats stats,
             @JsonProperty("tasks") List<TaskInfo> tasks,
-            @JsonProperty("failureCause") Optional<ExecutionFailureInfo> failureCause)
+            @JsonProperty("failureCause") Optional<ExecutionFailureInfo> failureCause,
+            @JsonProperty("compactTaskStats") Optional<CompactStageTaskStats> compactTaskStats)
     {
         this.state = requireNonNull(state, "state is null");
         this.stats = requireNonNull(stats, "stats is null");
         this.tasks = ImmutableList.copyOf(requireNonNull(tasks, "tasks is null"));
         this.failureCause = requireNonNull(failureCause, "failureCause is null");
+        this.compactTaskStats = requireNonNull(compactTaskStats, "compactTaskStats is null");
+    }
+
+    /**
+     * Returns a copy that keeps the per-task counters in columnar form in place of the task infos
+     */
+    public StageExecutionInfo withCompactTaskStats()
+    {
+        return new StageExecutionInfo(state, stats, ImmutableList.of(), failureCause, Optional.of(CompactStageTaskStats.create(tasks)));
     }
 
     @JsonProperty
@@ -203,6 +223,15 @@ public class StageExecutionInfo
         return failureCause;
     }
 
+    /**
+     * Per-task counters of a finished stage whose task infos were dropped from {@link #getTasks()}
+     */
+    @JsonProperty
+    public Optional<CompactStageTaskStats> getCompactTaskStats()
+    {
+        return compactTaskStats;
+    }
+
     public boolean isFinal()
     {
         return state.isDone() && tasks.stream().allMatch(taskInfo -> taskInfo.getTaskStatus().getState().isDone());
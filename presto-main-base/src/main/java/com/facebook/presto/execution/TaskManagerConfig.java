@@ -85,6 +85,7 @@ public class TaskManagerConfig
     private int taskYieldThreads = 3;
 
     private BigDecimal levelTimeMultiplier = new BigDecimal(2.0);
+    private boolean adaptiveSplitQuantaEnabled;
 
     private boolean legacyLifespanCompletionCondition;
     private TaskPriorityTracking taskPriorityTracking = TaskPriorityTracking.TASK_FAIR;
@@ -299,6 +300,19 @@ public class TaskManagerConfig
         return this;
     }
 
+    public boolean isAdaptiveSplitQuantaEnabled()
+    {
+        return adaptiveSplitQuantaEnabled;
+    }
+
+    @Config("task.adaptive-split-quanta-enabled")
+    @ConfigDescription("Shorten the quanta of each level by the time its splits typically overshoot the quanta before yielding")
+    public TaskManagerConfig setAdaptiveSplitQuantaEnabled(boolean adaptiveSplitQuantaEnabled)
+    {
+        this.adaptiveSplitQuantaEnabled = adaptiveSplitQuantaEnabled;
+        return this;
+    }
+
     @Min(1)
     public int getMaxWorkerThreads()
     {
@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
+import static com.facebook.presto.execution.executor.PrioritizedSplitRunner.SPLIT_RUN_QUANTA;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
@@ -41,6 +42,10 @@ public class MultilevelSplitQueue
 {
     static final int[] LEVEL_THRESHOLD_SECONDS = {0, 1, 10, 60, 300};
     static final long LEVEL_CONTRIBUTION_CAP = SECONDS.toNanos(30);
+    // adaptive quanta never shrink below this fraction of the split run quanta
+    private static final long MIN_QUANTA_NANOS = SPLIT_RUN_QUANTA.roundTo(NANOSECONDS) / 10;
+    // weight of the latest overshoot in the exponentially weighted average of a level
+    private static final double OVERSHOOT_WEIGHT = 0.125;
 
     @GuardedBy("lock")
     private final List<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits;
@@ -48,28 +53,37 @@ public class MultilevelSplitQueue
     private final AtomicLong[] levelScheduledTime = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
 
     private final AtomicLong[] levelMinPriority;
+    private final AtomicLong[] levelQuantaOvershoot;
     private final List<CounterStat> selectedLevelCounters;
 
     private final ReentrantLock lock = new ReentrantLock();
     private final Condition notEmpty = lock.newCondition();
 
     private final double levelTimeMultiplier;
+    private final boolean adaptiveQuantaEnabled;
 
     @Inject
     public MultilevelSplitQueue(TaskManagerConfig taskManagerConfig)
     {
-        this(taskManagerConfig.getLevelTimeMultiplier().doubleValue());
+        this(taskManagerConfig.getLevelTimeMultiplier().doubleValue(), taskManagerConfig.isAdaptiveSplitQuantaEnabled());
     }
 
     public MultilevelSplitQueue(double levelTimeMultiplier)
+    {
+        this(levelTimeMultiplier, false);
+    }
+
+    public MultilevelSplitQueue(double levelTimeMultiplier, boolean adaptiveQuantaEnabled)
     {
         this.levelMinPriority = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
+        this.levelQuantaOvershoot = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
         this.levelWaitingSplits = new ArrayList<>(LEVEL_THRESHOLD_SECONDS.length);
         ImmutableList.Builder<CounterStat> counters = ImmutableList.builder();
 
         for (int i = 0; i < LEVEL_THRESHOLD_SECONDS.length; i++) {
             levelScheduledTime[i] = new AtomicLong();
             levelMinPriority[i] = new AtomicLong(-1);
+            levelQuantaOvershoot[i] = new AtomicLong();
             levelWaitingSplits.add(new PriorityQueue<>());
             counters.add(new CounterStat());
         }
@@ -77,6 +91,7 @@ public class MultilevelSplitQueue
         this.selectedLevelCounters = counters.build();
 
         this.levelTimeMultiplier = levelTimeMultiplier;
+        this.adaptiveQuantaEnabled = adaptiveQuantaEnabled;
     }
 
     private void addLevelTime(int level, long nanos)
@@ -270,6 +285,27 @@ public class MultilevelSplitQueue
         }
     }
 
+    /**
+     * Splits do not stop exactly at the end of their quanta, they run until the driver notices the
+     * yield signal. With adaptive quanta, each level hands out quanta shortened by the typical
+     * overshoot of its splits, so that the time a split actually holds a thread stays close to
+     * {@link PrioritizedSplitRunner#SPLIT_RUN_QUANTA}.
+     */
+    public long getLevelQuantaNanos(int level)
+    {
+        long quantaNanos = SPLIT_RUN_QUANTA.roundTo(NANOSECONDS);
+        if (!adaptiveQuantaEnabled) {
+            return quantaNanos;
+        }
+        return Math.max(MIN_QUANTA_NANOS, quantaNanos - levelQuantaOvershoot[level].get());
+    }
+
+    public void recordQuantaOvershoot(int level, long overshootNanos)
+    {
+        checkArgument(overshootNanos >= 0, "overshootNanos is negative");
+        levelQuantaOvershoot[level].getAndUpdate(average -> (long) (average + (overshootNanos - average) * OVERSHOOT_WEIGHT));
+    }
+
     public long getLevelMinPriority(int level, long taskThreadUsageNanos)
     {
         levelMinPriority[level].compareAndSet(-1, taskThreadUsageNanos);
@@ -339,6 +375,42 @@ public class MultilevelSplitQueue
         return getLevelScheduledTime(4);
     }
 
+    @VisibleForTesting
+    long getLevelQuantaOvershoot(int level)
+    {
+        return levelQuantaOvershoot[level].get();
+    }
+
+    @Managed
+    public long getLevel0QuantaOvershoot()
+    {
+        return getLevelQuantaOvershoot(0);
+    }
+
+    @Managed
+    public long getLevel1QuantaOvershoot()
+    {
+        return getLevelQuantaOvershoot(1);
+    }
+
+    @Managed
+    public long getLevel2QuantaOvershoot()
+    {
+        return getLevelQuantaOvershoot(2);
+    }
+
+    @Managed
+    public long getLevel3QuantaOvershoot()
+    {
+        return getLevelQuantaOvershoot(3);
+    }
+
+    @Managed
+    public long getLevel4QuantaOvershoot()
+    {
+        return getLevelQuantaOvershoot(4);
+    }
+
     @Managed
     @Nested
     public CounterStat getSelectedCountLevel0()
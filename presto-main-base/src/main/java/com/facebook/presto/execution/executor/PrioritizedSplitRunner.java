@@ -15,6 +15,7 @@ package com.facebook.presto.execution.executor;
 
 import com.facebook.airlift.log.Logger;
 import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeDistribution;
 import com.facebook.airlift.stats.TimeStat;
 import com.facebook.airlift.units.Duration;
 import com.facebook.presto.execution.SplitRunner;
@@ -74,6 +75,9 @@ public class PrioritizedSplitRunner
     private final TimeStat blockedQuantaWallTime;
     private final TimeStat unblockedQuantaWallTime;
 
+    private final MultilevelSplitQueue splitQueue;
+    private final TimeDistribution quantaOvershootTime;
+
     PrioritizedSplitRunner(
             TaskHandle taskHandle,
             SplitRunner splitRunner,
@@ -81,7 +85,9 @@ public class PrioritizedSplitRunner
             CounterStat globalCpuTimeMicros,
             CounterStat globalScheduledTimeMicros,
             TimeStat blockedQuantaWallTime,
-            TimeStat unblockedQuantaWallTime)
+            TimeStat unblockedQuantaWallTime,
+            MultilevelSplitQueue splitQueue,
+            TimeDistribution quantaOvershootTime)
     {
         this.taskHandle = taskHandle;
         this.splitId = taskHandle.getNextSplitId();
@@ -92,6 +98,8 @@ public class PrioritizedSplitRunner
         this.globalScheduledTimeMicros = globalScheduledTimeMicros;
         this.blockedQuantaWallTime = blockedQuantaWallTime;
         this.unblockedQuantaWallTime = unblockedQuantaWallTime;
+        this.splitQueue = splitQueue;
+        this.quantaOvershootTime = quantaOvershootTime;
 
         this.updateLevelPriority();
     }
@@ -161,8 +169,11 @@ public class PrioritizedSplitRunner
 
             waitNanos.getAndAdd(startNanos - lastReady.get());
 
+            int level = priority.get().getLevel();
+            long quantaNanos = splitQueue.getLevelQuantaNanos(level);
+
             long cpuStart = THREAD_MX_BEAN.getCurrentThreadCpuTime();
-            ListenableFuture<?> blocked = splitRunner.processFor(SPLIT_RUN_QUANTA);
+            ListenableFuture<?> blocked = splitRunner.processFor(new Duration(quantaNanos, NANOSECONDS));
 
             long quantaCpuNanos = THREAD_MX_BEAN.getCurrentThreadCpuTime() - cpuStart;
             long endNanos = ticker.read();
@@ -180,6 +191,13 @@ public class PrioritizedSplitRunner
                 blockedQuantaWallTime.add(wallDuration);
             }
 
+            if (quantaScheduledNanos >= quantaNanos) {
+                // the split used up its quanta, record how late it noticed
+                long overshootNanos = quantaScheduledNanos - quantaNanos;
+                quantaOvershootTime.add(overshootNanos);
+                splitQueue.recordQuantaOvershoot(level, overshootNanos);
+            }
+
             cpuTimeNanos.addAndGet(quantaCpuNanos);
 
             globalCpuTimeMicros.update(quantaCpuNanos / 1000);
@@ -176,6 +176,7 @@ public class TaskExecutor
 
     private final TimeStat blockedQuantaWallTime = new TimeStat(MICROSECONDS);
     private final TimeStat unblockedQuantaWallTime = new TimeStat(MICROSECONDS);
+    private final TimeDistribution quantaOvershootTime = new TimeDistribution(MICROSECONDS);
 
     private volatile boolean closed;
 
@@ -415,7 +416,9 @@ public class TaskExecutor
                         globalCpuTimeMicros,
                         globalScheduledTimeMicros,
                         blockedQuantaWallTime,
-                        unblockedQuantaWallTime);
+                        unblockedQuantaWallTime,
+                        waitingSplits,
+                        quantaOvershootTime);
 
                 if (intermediate) {
                     // add the runner to the handle so it can be destroyed if the task is canceled
@@ -850,6 +853,13 @@ public class TaskExecutor
         return unblockedQuantaWallTime;
     }
 
+    @Managed
+    @Nested
+    public TimeDistribution getQuantaOvershootTime()
+    {
+        return quantaOvershootTime;
+    }
+
     @Managed
     @Nested
     public TimeDistribution getLeafSplitScheduledTime()
@@ -28,12 +28,14 @@ import com.facebook.presto.spi.resourceGroups.ResourceGroupId;
 import com.facebook.presto.spi.resourceGroups.ResourceGroupQueryLimits;
 import com.facebook.presto.spi.resourceGroups.ResourceGroupState;
 import com.facebook.presto.spi.resourceGroups.SchedulingPolicy;
+import com.facebook.presto.spi.session.ResourceEstimates;
 import com.google.common.collect.ImmutableList;
 import com.google.errorprone.annotations.ThreadSafe;
 import com.google.errorprone.annotations.concurrent.GuardedBy;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -87,6 +89,7 @@ public class InternalResourceGroup
         implements ResourceGroup
 {
     public static final int DEFAULT_WEIGHT = 1;
+    private static final ResourceEstimates NO_ESTIMATES = new ResourceEstimates(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
 
     private final InternalResourceGroup root;
     private final Optional<InternalResourceGroup> parent;
@@ -125,6 +128,8 @@ public class InternalResourceGroup
     private boolean jmxExport;
     @GuardedBy("root")
     private ResourceGroupQueryLimits perQueryLimits = NO_LIMITS;
+    @GuardedBy("root")
+    private Optional<QueryResourcePredictor> queryResourcePredictor = Optional.empty();
 
     // Live data structures
     // ====================
@@ -138,9 +143,12 @@ public class InternalResourceGroup
     @GuardedBy("root")
     private final Set<InternalResourceGroup> dirtySubGroups = new HashSet<>();
     @GuardedBy("root")
-    private TieredQueue<ManagedQueryExecution> queuedQueries = new TieredQueue<>(FifoQueue::new);
+    private TieredQueue<ManagedQueryExecution> queuedQueries;
     @GuardedBy("root")
     private final Set<ManagedQueryExecution> runningQueries = new HashSet<>();
+    // Predicted resource usage of the queued and running queries of a leaf group, only populated with predictive admission
+    @GuardedBy("root")
+    private final Map<ManagedQueryExecution, ResourceEstimates> predictedResources = new HashMap<>();
     @GuardedBy("root")
     private int descendantRunningQueries;
     @GuardedBy("root")
@@ -148,6 +156,10 @@ public class InternalResourceGroup
     // Memory usage is cached because it changes very rapidly while queries are running, and would be expensive to track continuously
     @GuardedBy("root")
     private long cachedMemoryUsageBytes;
+    // Like cachedMemoryUsageBytes, but counting each running query at no less than its predicted peak memory.
+    // Queries started since the last refresh are added right away, so a burst of admissions is accounted for.
+    @GuardedBy("root")
+    private long projectedMemoryUsageBytes;
     @GuardedBy("root")
     private long cpuUsageMillis;
     @GuardedBy("root")
@@ -188,6 +200,8 @@ public class InternalResourceGroup
         this.staticResourceGroup = staticResourceGroup;
         this.additionalRuntimeInfo = requireNonNull(additionalRuntimeInfo, "additionalRuntimeInfo is null");
         this.shouldWaitForResourceManagerUpdate = requireNonNull(shouldWaitForResourceManagerUpdate, "shouldWaitForResourceManagerUpdate is null");
+        this.queryResourcePredictor = parent.flatMap(parentGroup -> parentGroup.queryResourcePredictor);
+        this.queuedQueries = createQueryQueue(schedulingPolicy);
     }
 
     public ResourceGroupInfo getResourceGroupInfo(boolean includeQueryInfo, boolean summarizeSubgroups, boolean includeStaticSubgroupsOnly)
@@ -340,6 +354,14 @@ public class InternalResourceGroup
         }
     }
 
+    @Managed
+    public long getProjectedMemoryUsageBytes()
+    {
+        synchronized (root) {
+            return projectedMemoryUsageBytes;
+        }
+    }
+
     @Managed
     public int getQueuedQueries()
     {
@@ -589,15 +611,12 @@ public class InternalResourceGroup
             switch (policy) {
                 case FAIR:
                     queue = new FifoQueue<>();
-                    queryQueue = new TieredQueue<>(FifoQueue::new);
                     break;
                 case WEIGHTED:
                     queue = new StochasticPriorityQueue<>();
-                    queryQueue = new TieredQueue<>(StochasticPriorityQueue::new);
                     break;
                 case WEIGHTED_FAIR:
                     queue = new WeightedFairQueue<>();
-                    queryQueue = new TieredQueue<>(IndexedPriorityQueue::new);
                     break;
                 case QUERY_PRIORITY:
                     // Sub groups must use query priority to ensure ordering
@@ -605,11 +624,11 @@ public class InternalResourceGroup
                         group.setSchedulingPolicy(QUERY_PRIORITY);
                     }
                     queue = new IndexedPriorityQueue<>();
-                    queryQueue = new TieredQueue<>(IndexedPriorityQueue::new);
                     break;
                 default:
                     throw new UnsupportedOperationException("Unsupported scheduling policy: " + policy);
             }
+            queryQueue = createQueryQueue(policy);
             schedulingPolicy = policy;
             while (!eligibleSubGroups.isEmpty()) {
                 InternalResourceGroup group = eligibleSubGroups.poll();
@@ -618,12 +637,50 @@ public class InternalResourceGroup
             eligibleSubGroups = queue;
             while (!queuedQueries.isEmpty()) {
                 ManagedQueryExecution query = queuedQueries.poll();
-                queryQueue.addOrUpdate(query, getQueryPriority(query.getSession()));
+                queryQueue.addOrUpdate(query, getQueuedQueryPriority(query));
             }
             queuedQueries = queryQueue;
         }
     }
 
+    private TieredQueue<ManagedQueryExecution> createQueryQueue(SchedulingPolicy policy)
+    {
+        switch (policy) {
+            case FAIR:
+                if (isShortestPredictedJobFirst(policy)) {
+                    return new TieredQueue<>(IndexedPriorityQueue::new);
+                }
+                return new TieredQueue<>(FifoQueue::new);
+            case WEIGHTED:
+                return new TieredQueue<>(StochasticPriorityQueue::new);
+            case WEIGHTED_FAIR:
+            case QUERY_PRIORITY:
+                return new TieredQueue<>(IndexedPriorityQueue::new);
+            default:
+                throw new UnsupportedOperationException("Unsupported scheduling policy: " + policy);
+        }
+    }
+
+    // With predictive admission, queries of a fair group are ordered by their arrival time plus their predicted CPU time
+    // instead of by arrival alone, so shorter jobs run first, but a query never waits behind one arriving later than
+    // its predicted CPU time after it
+    private boolean isShortestPredictedJobFirst(SchedulingPolicy policy)
+    {
+        return policy == FAIR && queryResourcePredictor.isPresent();
+    }
+
+    private long getQueuedQueryPriority(ManagedQueryExecution query)
+    {
+        if (isShortestPredictedJobFirst(schedulingPolicy)) {
+            // Queries without a prediction are treated optimistically, as if they were the shortest
+            long predictedCpuMillis = getPredictedResources(query).getCpuTime()
+                    .map(Duration::toMillis)
+                    .orElse(0L);
+            return -saturatedAdd(query.getSession().getStartTime(), predictedCpuMillis);
+        }
+        return getQueryPriority(query.getSession());
+    }
+
     @Override
     public boolean getJmxExport()
     {
@@ -657,6 +714,23 @@ public class InternalResourceGroup
         }
     }
 
+    /**
+     * Enables predictive admission for the whole tree: queries are admitted against their predicted
+     * rather than current memory usage, and queries of fair groups run shortest predicted job first, aged by their
+     * arrival time.
+     * Must be set on the root group before any sub group is created.
+     */
+    public void setQueryResourcePredictor(QueryResourcePredictor queryResourcePredictor)
+    {
+        requireNonNull(queryResourcePredictor, "queryResourcePredictor is null");
+        synchronized (root) {
+            checkState(!parent.isPresent(), "Predictive admission can only be enabled on a root group");
+            checkState(subGroups.isEmpty() && runningQueries.isEmpty() && queuedQueries.isEmpty(), "Cannot enable predictive admission on %s after it has been used", id);
+            this.queryResourcePredictor = Optional.of(queryResourcePredictor);
+            this.queuedQueries = createQueryQueue(schedulingPolicy);
+        }
+    }
+
     public InternalResourceGroup getOrCreateSubGroup(String name, boolean staticSegment)
     {
         requireNonNull(name, "name is null");
@@ -735,7 +809,8 @@ public class InternalResourceGroup
             }
             else {
                 query.setResourceGroupQueryLimits(perQueryLimits);
-                if (canRun && queuedQueries.isEmpty()) {
+                queryResourcePredictor.ifPresent(predictor -> predictedResources.put(query, predictor.predict(query).orElse(NO_ESTIMATES)));
+                if (canRun && queuedQueries.isEmpty() && canRunWithPredictedMemory(query)) {
                     startInBackground(query);
                 }
                 else {
@@ -758,13 +833,7 @@ public class InternalResourceGroup
         checkState(Thread.holdsLock(root), "Must hold lock to enqueue a query");
 
         synchronized (root) {
-            int priority = getQueryPriority(query.getSession());
-            if (query.isRetry()) {
-                queuedQueries.prioritize(query, priority);
-            }
-            else {
-                queuedQueries.addOrUpdate(query, priority);
-            }
+            addToQueue(query);
             InternalResourceGroup group = this;
             while (group.parent.isPresent()) {
                 group.parent.get().descendantQueuedQueries++;
@@ -774,6 +843,17 @@ public class InternalResourceGroup
         }
     }
 
+    private void addToQueue(ManagedQueryExecution query)
+    {
+        long priority = getQueuedQueryPriority(query);
+        if (query.isRetry()) {
+            queuedQueries.prioritize(query, priority);
+        }
+        else {
+            queuedQueries.addOrUpdate(query, priority);
+        }
+    }
+
     // This method must be called whenever the group's eligibility to run more queries may have changed.
     protected void updateEligibility()
     {
@@ -800,10 +880,13 @@ public class InternalResourceGroup
         checkState(Thread.holdsLock(root), "Must hold lock to start a query");
         synchronized (root) {
             runningQueries.add(query);
+            long predictedMemoryBytes = getPredictedPeakMemoryBytes(query);
+            projectedMemoryUsageBytes = saturatedAdd(projectedMemoryUsageBytes, predictedMemoryBytes);
             InternalResourceGroup group = this;
             while (group.parent.isPresent()) {
                 group.parent.get().descendantRunningQueries++;
                 group.parent.get().dirtySubGroups.add(group);
+                group.parent.get().projectedMemoryUsageBytes = saturatedAdd(group.parent.get().projectedMemoryUsageBytes, predictedMemoryBytes);
                 group = group.parent.get();
             }
             updateEligibility();
@@ -832,7 +915,9 @@ public class InternalResourceGroup
                     group.cpuUsageMillis = saturatedAdd(group.cpuUsageMillis, query.getTotalCpuTime().toMillis());
                     group = group.parent.orElse(null);
                 }
+                queryResourcePredictor.ifPresent(predictor -> predictor.recordCompletion(query));
             }
+            predictedResources.remove(query);
             if (runningQueries.contains(query)) {
                 runningQueries.remove(query);
                 InternalResourceGroup group = this;
@@ -860,19 +945,25 @@ public class InternalResourceGroup
         synchronized (root) {
             if (subGroups.isEmpty()) {
                 cachedMemoryUsageBytes = 0;
+                projectedMemoryUsageBytes = 0;
                 for (ManagedQueryExecution query : runningQueries) {
-                    cachedMemoryUsageBytes += query.getUserMemoryReservationInBytes();
+                    long memoryUsageBytes = query.getUserMemoryReservationInBytes();
+                    cachedMemoryUsageBytes += memoryUsageBytes;
+                    projectedMemoryUsageBytes = saturatedAdd(projectedMemoryUsageBytes, Math.max(memoryUsageBytes, getPredictedPeakMemoryBytes(query)));
                 }
                 Optional<ResourceGroupRuntimeInfo> resourceGroupRuntimeInfo = getAdditionalRuntimeInfo();
                 resourceGroupRuntimeInfo.ifPresent(groupRuntimeInfo -> cachedMemoryUsageBytes += groupRuntimeInfo.getMemoryUsageBytes());
+                resourceGroupRuntimeInfo.ifPresent(groupRuntimeInfo -> projectedMemoryUsageBytes += groupRuntimeInfo.getMemoryUsageBytes());
             }
             else {
                 for (Iterator<InternalResourceGroup> iterator = dirtySubGroups.iterator(); iterator.hasNext(); ) {
                     InternalResourceGroup subGroup = iterator.next();
                     long oldMemoryUsageBytes = subGroup.cachedMemoryUsageBytes;
                     cachedMemoryUsageBytes -= oldMemoryUsageBytes;
+                    projectedMemoryUsageBytes -= subGroup.projectedMemoryUsageBytes;
                     subGroup.internalRefreshStats();
                     cachedMemoryUsageBytes += subGroup.cachedMemoryUsageBytes;
+                    projectedMemoryUsageBytes += subGroup.projectedMemoryUsageBytes;
                     if (!subGroup.isDirty()) {
                         iterator.remove();
                     }
@@ -908,39 +999,66 @@ public class InternalResourceGroup
                 return false;
             }
 
-            ManagedQueryExecution query = queuedQueries.poll();
-            if (query != null) {
+            if (!queuedQueries.isEmpty()) {
+                // Queries predicted not to fit stay queued in their place, until the running queries release enough of
+                // their projected memory, and the next query that fits starts instead
+                ManagedQueryExecution query = queryResourcePredictor.isPresent() ? getNextQueryWithPredictedMemory() : queuedQueries.poll();
+                if (query == null) {
+                    return false;
+                }
+                // already removed if polled
+                queuedQueries.remove(query);
                 startInBackground(query);
                 return true;
             }
 
-            // Remove even if the sub group still has queued queries, so that it goes to the back of the queue
-            InternalResourceGroup subGroup = eligibleSubGroups.poll();
-            if (subGroup == null) {
+            // Try the eligible sub groups in turn, as one may be unable to start its queries while another can
+            List<InternalResourceGroup> skippedSubGroups = new ArrayList<>();
+            InternalResourceGroup startedSubGroup = null;
+            int subGroupCount = eligibleSubGroups.size();
+            for (int i = 0; i < subGroupCount && startedSubGroup == null; i++) {
+                // Remove even if the sub group still has queued queries, so that it goes to the back of the queue
+                InternalResourceGroup subGroup = eligibleSubGroups.poll();
+                if (subGroup.internalStartNext()) {
+                    startedSubGroup = subGroup;
+                }
+                else {
+                    skippedSubGroups.add(subGroup);
+                }
+            }
+            //If subGroup not able to start the query, we should add it back.
+            skippedSubGroups.forEach(this::addOrUpdateSubGroup);
+            if (startedSubGroup == null) {
                 return false;
             }
-            boolean started = subGroup.internalStartNext();
-            if (started) {
-                long currentTime = System.currentTimeMillis();
-                if (lastStartMillis != 0) {
-                    timeBetweenStartsSec.update(Math.max(0, (currentTime - lastStartMillis) / 1000));
-                }
-                lastStartMillis = currentTime;
-
-                descendantQueuedQueries--;
 
-                // Don't call updateEligibility here, as we're in a recursive call, and don't want to repeatedly update our ancestors.
-                if (subGroup.isEligibleToStartNext()) {
-                    addOrUpdateSubGroup(subGroup);
-                }
+            long currentTime = System.currentTimeMillis();
+            if (lastStartMillis != 0) {
+                timeBetweenStartsSec.update(Math.max(0, (currentTime - lastStartMillis) / 1000));
             }
-            else {
-                //If subGroup not able to start the query, we should add it back.
-                addOrUpdateSubGroup(subGroup);
+            lastStartMillis = currentTime;
+
+            descendantQueuedQueries--;
+
+            // Don't call updateEligibility here, as we're in a recursive call, and don't want to repeatedly update our ancestors.
+            if (startedSubGroup.isEligibleToStartNext()) {
+                addOrUpdateSubGroup(startedSubGroup);
             }
+            return true;
+        }
+    }
 
-            return started;
+    /**
+     * Returns the first queued query, in queue order, that can start with its predicted memory, if any.
+     */
+    private ManagedQueryExecution getNextQueryWithPredictedMemory()
+    {
+        for (ManagedQueryExecution query : queuedQueries) {
+            if (canRunWithPredictedMemory(query)) {
+                return query;
+            }
         }
+        return null;
     }
 
     private void addOrUpdateSubGroup(Queue<InternalResourceGroup> queue, InternalResourceGroup group)
@@ -1055,6 +1173,43 @@ public class InternalResourceGroup
         }
     }
 
+    /**
+     * With predictive admission, checks that starting the query keeps the projected memory usage of this
+     * group and all its ancestors within their soft memory limits. A group without running queries can
+     * always start a query, so that a query predicted to exceed the limit on its own is not starved.
+     */
+    private boolean canRunWithPredictedMemory(ManagedQueryExecution query)
+    {
+        checkState(Thread.holdsLock(root), "Must hold lock");
+        synchronized (root) {
+            long predictedMemoryBytes = getPredictedPeakMemoryBytes(query);
+            if (predictedMemoryBytes == 0) {
+                return true;
+            }
+            InternalResourceGroup group = this;
+            while (group != null) {
+                boolean hasRunningQueries = group.runningQueries.size() + group.descendantRunningQueries > 0;
+                if (hasRunningQueries && saturatedAdd(group.projectedMemoryUsageBytes, predictedMemoryBytes) > group.softMemoryLimitBytes) {
+                    return false;
+                }
+                group = group.parent.orElse(null);
+            }
+            return true;
+        }
+    }
+
+    private ResourceEstimates getPredictedResources(ManagedQueryExecution query)
+    {
+        return predictedResources.getOrDefault(query, NO_ESTIMATES);
+    }
+
+    private long getPredictedPeakMemoryBytes(ManagedQueryExecution query)
+    {
+        return getPredictedResources(query).getPeakMemory()
+                .map(DataSize::toBytes)
+                .orElse(0L);
+    }
+
     protected int getHardConcurrencyLimitBasedOnCpuUsage()
     {
         checkState(Thread.holdsLock(root), "Must hold lock");
@@ -115,6 +115,7 @@ public final class InternalResourceGroupManager<C>
     private final InternalNodeManager nodeManager;
     private AtomicBoolean isConfigurationManagerLoaded;
     private final ClusterResourceChecker clusterResourceChecker;
+    private final Optional<QueryResourcePredictor> queryResourcePredictor;
 
     @Inject
     public InternalResourceGroupManager(
@@ -142,6 +143,9 @@ public final class InternalResourceGroupManager<C>
         configurationManagerFactories.putIfAbsent(LegacyResourceGroupConfigurationManager.NAME, new LegacyResourceGroupConfigurationManager.Factory());
         this.isConfigurationManagerLoaded = new AtomicBoolean(false);
         this.clusterResourceChecker = clusterResourceChecker;
+        this.queryResourcePredictor = queryManagerConfig.isResourceGroupPredictiveAdmissionEnabled() ?
+                Optional.of(new QueryResourcePredictor(queryManagerConfig.getResourceGroupPredictiveAdmissionHistorySize())) :
+                Optional.empty();
     }
 
     @Override
@@ -422,6 +426,7 @@ public final class InternalResourceGroupManager<C>
                             nodeManager,
                             clusterResourceChecker);
                 }
+                queryResourcePredictor.ifPresent(root::setQueryResourcePredictor);
                 group = root;
                 rootGroups.add(root);
             }
@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resourceGroups;
+
+import com.facebook.airlift.units.DataSize;
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.execution.ManagedQueryExecution;
+import com.facebook.presto.server.BasicQueryInfo;
+import com.facebook.presto.server.BasicQueryStats;
+import com.facebook.presto.spi.session.ResourceEstimates;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.errorprone.annotations.ThreadSafe;
+import io.airlift.slice.XxHash64;
+
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.lang.Math.round;
+import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Predicts the peak memory and CPU time of a queued query for predictive admission in
+ * {@link InternalResourceGroup}. Client supplied {@link ResourceEstimates} take precedence,
+ * otherwise the prediction comes from previous executions of the same query text on this coordinator.
+ * Queries are admitted before they are planned, so the query text rather than the canonical plan
+ * identifies repeated executions.
+ */
+@ThreadSafe
+public class QueryResourcePredictor
+{
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // weight of the latest observation in the exponentially weighted history
+    private static final double OBSERVATION_WEIGHT = 0.5;
+
+    private final Cache<Long, ResourceObservation> history;
+
+    public QueryResourcePredictor(int maxHistorySize)
+    {
+        checkArgument(maxHistorySize > 0, "maxHistorySize must be positive");
+        this.history = CacheBuilder.newBuilder()
+                .maximumSize(maxHistorySize)
+                .build();
+    }
+
+    public Optional<ResourceEstimates> predict(ManagedQueryExecution query)
+    {
+        ResourceEstimates sessionEstimates = query.getSession().getResourceEstimates();
+        if (sessionEstimates.getPeakMemory().isPresent() || sessionEstimates.getCpuTime().isPresent()) {
+            return Optional.of(sessionEstimates);
+        }
+        ResourceObservation observation = history.getIfPresent(fingerprint(query.getBasicQueryInfo().getQuery()));
+        if (observation == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new ResourceEstimates(
+                Optional.empty(),
+                Optional.of(new Duration(observation.getCpuTimeMillis(), MILLISECONDS)),
+                Optional.of(DataSize.succinctBytes(observation.getPeakMemoryBytes())),
+                Optional.empty()));
+    }
+
+    public void recordCompletion(ManagedQueryExecution query)
+    {
+        if (query.getErrorCode().isPresent()) {
+            // failed queries did not run to completion, their usage is not representative
+            return;
+        }
+        BasicQueryInfo queryInfo = query.getBasicQueryInfo();
+        BasicQueryStats stats = queryInfo.getQueryStats();
+        ResourceObservation latest = new ResourceObservation(stats.getPeakUserMemoryReservation().toBytes(), stats.getTotalCpuTime().toMillis());
+        history.asMap().merge(fingerprint(queryInfo.getQuery()), latest, ResourceObservation::merge);
+    }
+
+    public long getHistorySize()
+    {
+        return history.size();
+    }
+
+    private static long fingerprint(String query)
+    {
+        String normalized = WHITESPACE.matcher(query.trim()).replaceAll(" ").toLowerCase(ENGLISH);
+        return XxHash64.hash(utf8Slice(normalized));
+    }
+
+    private static class ResourceObservation
+    {
+        private final long peakMemoryBytes;
+        private final long cpuTimeMillis;
+
+        public ResourceObservation(long peakMemoryBytes, long cpuTimeMillis)
+        {
+            this.peakMemoryBytes = peakMemoryBytes;
+            this.cpuTimeMillis = cpuTimeMillis;
+        }
+
+        public long getPeakMemoryBytes()
+        {
+            return peakMemoryBytes;
+        }
+
+        public long getCpuTimeMillis()
+        {
+            return cpuTimeMillis;
+        }
+
+        public ResourceObservation merge(ResourceObservation latest)
+        {
+            return new ResourceObservation(
+                    round(peakMemoryBytes * (1 - OBSERVATION_WEIGHT) + latest.peakMemoryBytes * OBSERVATION_WEIGHT),
+                    round(cpuTimeMillis * (1 - OBSERVATION_WEIGHT) + latest.cpuTimeMillis * OBSERVATION_WEIGHT));
+        }
+    }
+}
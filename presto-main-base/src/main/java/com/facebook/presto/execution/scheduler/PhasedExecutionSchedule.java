@@ -28,7 +28,6 @@ import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.ExchangeNode;
 import com.facebook.presto.sql.planner.plan.InternalPlanVisitor;
 import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.jgrapht.Graph;
@@ -127,7 +126,6 @@ public class PhasedExecutionSchedule
         return activeSources.isEmpty() && schedulePhases.isEmpty();
     }
 
-    @VisibleForTesting
     static List<Set<PlanFragmentId>> extractPhases(Collection<PlanFragment> fragments)
     {
         // Build a graph where the plan fragments are vertexes and the edges represent
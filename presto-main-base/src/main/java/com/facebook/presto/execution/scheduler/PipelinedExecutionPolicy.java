@@ -0,0 +1,60 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.spi.memory.ClusterMemoryPoolManager;
+import com.facebook.presto.spi.memory.MemoryPoolInfo;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.google.common.annotations.VisibleForTesting;
+import jakarta.inject.Inject;
+
+import java.util.Collection;
+
+import static com.facebook.presto.SystemSessionProperties.getPipelinedExecutionMaxSpeculativePhases;
+import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class PipelinedExecutionPolicy
+        implements ExecutionPolicy
+{
+    private final double minFreeMemoryRatio;
+    private volatile boolean memoryAvailable = true;
+
+    @Inject
+    public PipelinedExecutionPolicy(ClusterMemoryPoolManager memoryPoolManager, FeaturesConfig featuresConfig)
+    {
+        this(featuresConfig.getPipelinedExecutionMinFreeMemoryRatio());
+        memoryPoolManager.addChangeListener(GENERAL_POOL, this::updateMemoryPoolInfo);
+    }
+
+    @VisibleForTesting
+    PipelinedExecutionPolicy(double minFreeMemoryRatio)
+    {
+        checkArgument(minFreeMemoryRatio >= 0 && minFreeMemoryRatio <= 1, "minFreeMemoryRatio must be between 0 and 1");
+        this.minFreeMemoryRatio = minFreeMemoryRatio;
+    }
+
+    @Override
+    public ExecutionSchedule createExecutionSchedule(Session session, Collection<StageExecutionAndScheduler> stages)
+    {
+        return new PipelinedExecutionSchedule(stages, getPipelinedExecutionMaxSpeculativePhases(session), () -> memoryAvailable);
+    }
+
+    @VisibleForTesting
+    void updateMemoryPoolInfo(MemoryPoolInfo poolInfo)
+    {
+        memoryAvailable = poolInfo.getFreeBytes() >= poolInfo.getMaxBytes() * minFreeMemoryRatio;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.airlift.concurrent.NotThreadSafe;
+import com.facebook.presto.execution.SqlStageExecution;
+import com.facebook.presto.execution.StageExecutionState;
+import com.facebook.presto.spi.plan.PlanFragmentId;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static com.facebook.presto.execution.StageExecutionState.RUNNING;
+import static com.facebook.presto.execution.StageExecutionState.SCHEDULED;
+import static com.facebook.presto.execution.scheduler.PhasedExecutionSchedule.extractPhases;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
+
+/**
+ * Schedules the same phases as {@link PhasedExecutionSchedule}, but starts up to
+ * {@code maxSpeculativePhases} source phases before the phases ahead of them are scheduled.
+ * Probe side leaf stages start while the build sides are still running and fill their output
+ * buffers, which are bounded by the sink buffer size, until the join can consume them.
+ * While the cluster is short on memory no phase is started speculatively, which is the
+ * phased behavior.
+ */
+@NotThreadSafe
+public class PipelinedExecutionSchedule
+        implements ExecutionSchedule
+{
+    private final List<Set<StageExecutionAndScheduler>> schedulePhases;
+    private final List<Set<StageExecutionAndScheduler>> activePhases = new ArrayList<>();
+    private final int maxSpeculativePhases;
+    private final BooleanSupplier memoryAvailable;
+
+    public PipelinedExecutionSchedule(Collection<StageExecutionAndScheduler> stages, int maxSpeculativePhases, BooleanSupplier memoryAvailable)
+    {
+        checkArgument(maxSpeculativePhases >= 0, "maxSpeculativePhases is negative");
+        this.maxSpeculativePhases = maxSpeculativePhases;
+        this.memoryAvailable = requireNonNull(memoryAvailable, "memoryAvailable is null");
+
+        List<Set<PlanFragmentId>> phases = extractPhases(stages.stream()
+                .map(StageExecutionAndScheduler::getStageExecution)
+                .map(SqlStageExecution::getFragment)
+                .collect(toImmutableList()));
+
+        Map<PlanFragmentId, StageExecutionAndScheduler> stagesByFragmentId = stages.stream().collect(toImmutableMap(stage -> stage.getStageExecution().getFragment().getId(), identity()));
+
+        // create a mutable list of mutable sets of stages, so we can remove completed stages
+        schedulePhases = new ArrayList<>();
+        for (Set<PlanFragmentId> phase : phases) {
+            schedulePhases.add(phase.stream()
+                    .map(stagesByFragmentId::get)
+                    .collect(Collectors.toCollection(HashSet::new)));
+        }
+    }
+
+    @Override
+    public Set<StageExecutionAndScheduler> getStagesToSchedule()
+    {
+        removeCompletedStages();
+        addPhasesIfNecessary();
+        if (isFinished()) {
+            return ImmutableSet.of();
+        }
+        return activePhases.stream()
+                .flatMap(Set::stream)
+                .collect(toImmutableSet());
+    }
+
+    private void removeCompletedStages()
+    {
+        for (Iterator<Set<StageExecutionAndScheduler>> phaseIterator = activePhases.iterator(); phaseIterator.hasNext(); ) {
+            Set<StageExecutionAndScheduler> phase = phaseIterator.next();
+            for (Iterator<StageExecutionAndScheduler> stageIterator = phase.iterator(); stageIterator.hasNext(); ) {
+                StageExecutionState state = stageIterator.next().getStageExecution().getState();
+                if (state == SCHEDULED || state == RUNNING || state.isDone()) {
+                    stageIterator.remove();
+                }
+            }
+            if (phase.isEmpty()) {
+                phaseIterator.remove();
+            }
+        }
+    }
+
+    private void addPhasesIfNecessary()
+    {
+        // like the phased schedule, keep at least one source distributed phase active,
+        // and start more of them only while there is memory to buffer their output
+        int maxSourcePhases = memoryAvailable.getAsBoolean() ? maxSpeculativePhases + 1 : 1;
+        int activeSourcePhases = (int) activePhases.stream()
+                .filter(PipelinedExecutionSchedule::hasSourceDistributedStage)
+                .count();
+
+        while (activeSourcePhases < maxSourcePhases && !schedulePhases.isEmpty()) {
+            Set<StageExecutionAndScheduler> phase = schedulePhases.remove(0);
+            activePhases.add(phase);
+            if (hasSourceDistributedStage(phase)) {
+                activeSourcePhases++;
+            }
+        }
+    }
+
+    private static boolean hasSourceDistributedStage(Set<StageExecutionAndScheduler> phase)
+    {
+        return phase.stream().anyMatch(stage -> !stage.getStageExecution().getFragment().getTableScanSchedulingOrder().isEmpty());
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return activePhases.isEmpty() && schedulePhases.isEmpty();
+    }
+}
@@ -169,6 +169,7 @@ import com.facebook.presto.operator.scalar.IpPrefixFunctions;
 import com.facebook.presto.operator.scalar.JoniRegexpCasts;
 import com.facebook.presto.operator.scalar.JoniRegexpFunctions;
 import com.facebook.presto.operator.scalar.JoniRegexpReplaceLambdaFunction;
+import com.facebook.presto.operator.scalar.JsonExtractScalarsFunction;
 import com.facebook.presto.operator.scalar.JsonFunctions;
 import com.facebook.presto.operator.scalar.JsonOperators;
 import com.facebook.presto.operator.scalar.KllSketchFunctions;
@@ -783,6 +784,8 @@ public class BuiltInTypeAndFunctionNamespaceManager
                 .scalars(BitwiseFunctions.class)
                 .scalars(DateTimeFunctions.class)
                 .scalars(JsonFunctions.class)
+                .scalar(JsonExtractScalarsFunction.VarcharJsonExtractScalars.class)
+                .scalar(JsonExtractScalarsFunction.JsonExtractScalars.class)
                 .scalars(JsonPrestoQueryPlanFunctions.class)
                 .scalars(ColorFunctions.class)
                 .scalars(ColorOperators.class)
@@ -895,7 +898,7 @@ public class BuiltInTypeAndFunctionNamespaceManager
                 .scalar(ArrayNotEqualOperator.class)
                 .scalar(ArrayEqualOperator.class)
                 .scalar(ArrayHashCodeOperator.class)
-                .scalars(ArrayIntersectFunction.class)
+                .scalar(ArrayIntersectFunction.class)
                 .scalar(ArraysOverlapFunction.class)
                 .scalar(ArrayDistinctFromOperator.class)
                 .scalar(ArrayUnionFunction.class)
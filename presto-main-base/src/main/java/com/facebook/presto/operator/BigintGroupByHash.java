@@ -29,6 +29,7 @@ import com.google.common.collect.ImmutableList;
 import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
@@ -76,7 +77,15 @@ public class BigintGroupByHash
     private long preallocatedMemoryInBytes;
     private long currentPageSizeInBytes;
 
+    // yield out of adding a page when the driver runs out of its quanta
+    private final Optional<DriverYieldSignal> yieldSignal;
+
     public BigintGroupByHash(int hashChannel, boolean outputRawHash, int expectedSize, UpdateMemory updateMemory)
+    {
+        this(hashChannel, outputRawHash, expectedSize, updateMemory, Optional.empty());
+    }
+
+    public BigintGroupByHash(int hashChannel, boolean outputRawHash, int expectedSize, UpdateMemory updateMemory, Optional<DriverYieldSignal> yieldSignal)
     {
         checkArgument(hashChannel >= 0, "hashChannel must be at least zero");
         checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
@@ -99,6 +108,7 @@ public class BigintGroupByHash
         // This interface is used for actively reserving memory (push model) for rehash.
         // The caller can also query memory usage on this object (pull model)
         this.updateMemory = requireNonNull(updateMemory, "updateMemory is null");
+        this.yieldSignal = requireNonNull(yieldSignal, "yieldSignal is null");
     }
 
     @Override
@@ -329,6 +339,11 @@ public class BigintGroupByHash
         return nextGroupId >= maxFill;
     }
 
+    private boolean shouldYield(int position)
+    {
+        return yieldSignal.isPresent() && yieldSignal.get().shouldYield(position);
+    }
+
     private static long getHashPosition(long rawHash, int mask)
     {
         return murmurHash3(rawHash) & mask;
@@ -375,6 +390,9 @@ public class BigintGroupByHash
                 // get the group for the current row
                 putIfAbsent(lastPosition, block);
                 lastPosition++;
+                if (shouldYield(lastPosition)) {
+                    break;
+                }
             }
             return lastPosition == positionCount;
         }
@@ -421,6 +439,9 @@ public class BigintGroupByHash
                 // output the group id for this row
                 BIGINT.writeLong(blockBuilder, putIfAbsent(lastPosition, block));
                 lastPosition++;
+                if (shouldYield(lastPosition)) {
+                    break;
+                }
             }
             return lastPosition == positionCount;
         }
@@ -41,6 +41,9 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 @ThreadSafe
 public class DriverYieldSignal
 {
+    // tight loops check the signal once every this many positions, must be a power of two
+    public static final int YIELD_CHECK_INTERVAL = 1024;
+
     @GuardedBy("this")
     private long runningSequence;
 
@@ -87,6 +90,16 @@ public class DriverYieldSignal
         return yield.get();
     }
 
+    /**
+     * Cheap yield point for loops over the positions of a page: reads the signal only once every
+     * {@link #YIELD_CHECK_INTERVAL} positions. The position must be incremented before the check,
+     * so that the loop always makes progress.
+     */
+    public boolean shouldYield(int position)
+    {
+        return (position & (YIELD_CHECK_INTERVAL - 1)) == 0 && yield.get();
+    }
+
     /**
      * Signals an immediate yield to the driver to improve responsiveness to termination commands that may arrive while drivers are
      * still running. After calling this method, the driver should not attempt to start another interval of running and attempting
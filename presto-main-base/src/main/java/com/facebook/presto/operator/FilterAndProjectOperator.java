@@ -73,7 +73,7 @@ public class FilterAndProjectOperator
     {
         boolean finished = finishing && mergingOutput.isFinished();
         if (finished) {
-            outputMemoryContext.setBytes(mergingOutput.getRetainedSizeInBytes());
+            outputMemoryContext.setBytes(mergingOutput.getRetainedSizeInBytes() + processor.getRetainedSizeInBytes());
         }
         return finished;
     }
@@ -96,13 +96,22 @@ public class FilterAndProjectOperator
                 operatorContext.getDriverContext().getYieldSignal(),
                 pageProcessorMemoryContext,
                 page));
-        outputMemoryContext.setBytes(mergingOutput.getRetainedSizeInBytes() + pageProcessorMemoryContext.getBytes());
+        outputMemoryContext.setBytes(mergingOutput.getRetainedSizeInBytes() + pageProcessorMemoryContext.getBytes() + processor.getRetainedSizeInBytes());
     }
 
     @Override
     public final Page getOutput()
     {
-        return mergingOutput.getOutput();
+        Page output = mergingOutput.getOutput();
+        // the dictionaries seen while processing the page are remembered by the processor
+        outputMemoryContext.setBytes(mergingOutput.getRetainedSizeInBytes() + pageProcessorMemoryContext.getBytes() + processor.getRetainedSizeInBytes());
+        return output;
+    }
+
+    @Override
+    public void close()
+    {
+        processor.recordRuntimeStats(operatorContext.getRuntimeStats());
     }
 
     public static class FilterAndProjectOperatorFactory
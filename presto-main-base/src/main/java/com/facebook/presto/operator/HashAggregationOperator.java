@@ -44,6 +44,7 @@ import java.util.OptionalLong;
 import java.util.stream.Collectors;
 
 import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
+import static com.facebook.presto.operator.OperatorContext.DEFAULT_SPILL_COST;
 import static com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder.toTypes;
 import static com.facebook.presto.sql.planner.PlannerUtils.INITIAL_HASH_VALUE;
 import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
@@ -57,6 +58,7 @@ public class HashAggregationOperator
         implements Operator
 {
     private static final double MERGE_WITH_MEMORY_RATIO = 0.9;
+    private static final double SPILL_COST = 2 * DEFAULT_SPILL_COST;
     public static final String OPERATOR_TYPE = "HashAggregationOperator";
 
     public static class HashAggregationOperatorFactory
@@ -365,6 +367,8 @@ public class HashAggregationOperator
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.hashCollisionsCounter = new HashCollisionsCounter(operatorContext);
         operatorContext.setInfoSupplier(hashCollisionsCounter);
+        // Spilled groups have to be merge sorted and aggregated again
+        operatorContext.setSpillCostPerByte(SPILL_COST);
         this.useSystemMemory = useSystemMemory;
 
         checkState(ImmutableSet.copyOf(groupByChannels).containsAll(preGroupedChannels), "groupByChannels must include all channels in preGroupedChannels");
@@ -385,6 +389,8 @@ public class HashAggregationOperator
     public void finish()
     {
         finishing = true;
+        // once all input is received the memory is released as the output is produced
+        operatorContext.setSpillCostPerByte(Double.POSITIVE_INFINITY);
     }
 
     @Override
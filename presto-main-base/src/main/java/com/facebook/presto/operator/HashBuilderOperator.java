@@ -43,6 +43,7 @@ import static com.facebook.airlift.concurrent.MoreFutures.getDone;
 import static com.facebook.airlift.units.DataSize.succinctBytes;
 import static com.facebook.presto.ExceededMemoryLimitException.exceededLocalUserMemoryLimit;
 import static com.facebook.presto.SystemSessionProperties.getQueryMaxMemoryPerNode;
+import static com.facebook.presto.operator.OperatorContext.DEFAULT_SPILL_COST;
 import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -202,6 +203,8 @@ public class HashBuilderOperator
     }
 
     private static final double INDEX_COMPACTION_ON_REVOCATION_TARGET = 0.8;
+    // A spilled build partition makes the probe side spill the matching rows too, and is unspilled and rebuilt later
+    private static final double SPILL_COST = 3 * DEFAULT_SPILL_COST;
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
@@ -274,6 +277,7 @@ public class HashBuilderOperator
 
         this.hashCollisionsCounter = new HashCollisionsCounter(operatorContext);
         operatorContext.setInfoSupplier(hashCollisionsCounter);
+        operatorContext.setSpillCostPerByte(SPILL_COST);
 
         this.spillEnabled = spillEnabled;
         this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
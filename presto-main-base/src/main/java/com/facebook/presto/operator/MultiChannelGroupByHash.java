@@ -90,6 +90,9 @@ public class MultiChannelGroupByHash
     private long preallocatedMemoryInBytes;
     private long currentPageSizeInBytes;
 
+    // yield out of adding a page when the driver runs out of its quanta
+    private final Optional<DriverYieldSignal> yieldSignal;
+
     public MultiChannelGroupByHash(
             List<? extends Type> hashTypes,
             int[] hashChannels,
@@ -98,6 +101,19 @@ public class MultiChannelGroupByHash
             boolean processDictionary,
             JoinCompiler joinCompiler,
             UpdateMemory updateMemory)
+    {
+        this(hashTypes, hashChannels, inputHashChannel, expectedSize, processDictionary, joinCompiler, updateMemory, Optional.empty());
+    }
+
+    public MultiChannelGroupByHash(
+            List<? extends Type> hashTypes,
+            int[] hashChannels,
+            Optional<Integer> inputHashChannel,
+            int expectedSize,
+            boolean processDictionary,
+            JoinCompiler joinCompiler,
+            UpdateMemory updateMemory,
+            Optional<DriverYieldSignal> yieldSignal)
     {
         this.hashTypes = ImmutableList.copyOf(requireNonNull(hashTypes, "hashTypes is null"));
 
@@ -153,6 +169,7 @@ public class MultiChannelGroupByHash
         // This interface is used for actively reserving memory (push model) for rehash.
         // The caller can also query memory usage on this object (pull model)
         this.updateMemory = requireNonNull(updateMemory, "updateMemory is null");
+        this.yieldSignal = requireNonNull(yieldSignal, "yieldSignal is null");
     }
 
     @Override
@@ -362,6 +379,11 @@ public class MultiChannelGroupByHash
         return nextGroupId >= maxFill;
     }
 
+    private boolean shouldYield(int position)
+    {
+        return yieldSignal.isPresent() && yieldSignal.get().shouldYield(position);
+    }
+
     private void startNewPage()
     {
         if (currentPageBuilder != null) {
@@ -614,6 +636,9 @@ public class MultiChannelGroupByHash
                 // get the group for the current row
                 putIfAbsent(lastPosition, page);
                 lastPosition++;
+                if (shouldYield(lastPosition)) {
+                    break;
+                }
             }
             return lastPosition == positionCount;
         }
@@ -748,6 +773,9 @@ public class MultiChannelGroupByHash
                 // output the group id for this row
                 BIGINT.writeLong(blockBuilder, putIfAbsent(lastPosition, page));
                 lastPosition++;
+                if (shouldYield(lastPosition)) {
+                    break;
+                }
             }
             return lastPosition == positionCount;
         }
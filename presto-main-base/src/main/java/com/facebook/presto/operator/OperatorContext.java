@@ -55,6 +55,9 @@ import static java.util.Objects.requireNonNull;
  */
 public class OperatorContext
 {
+    // Cost of writing revocable memory to disk and reading it back once, the unit of the spill cost estimates
+    public static final double DEFAULT_SPILL_COST = 1.0;
+
     private final int operatorId;
     private final PlanNodeId planNodeId;
     private final String operatorType;
@@ -96,6 +99,8 @@ public class OperatorContext
 
     private final OperatorSpillContext spillContext;
     private final AtomicReference<Supplier<? extends OperatorInfo>> infoSupplier = new AtomicReference<>();
+    // set by the driver, read by memory arbitration
+    private volatile double spillCostPerByte = DEFAULT_SPILL_COST;
 
     private final AtomicLong peakUserMemoryReservation = new AtomicLong();
     private final AtomicLong peakSystemMemoryReservation = new AtomicLong();
@@ -488,6 +493,23 @@ public class OperatorContext
         this.infoSupplier.set(infoSupplier);
     }
 
+    /**
+     * Sets the estimated cost of spilling this operator per byte of revocable memory freed, relative to
+     * {@link #DEFAULT_SPILL_COST}. An operator about to release its memory anyway reports
+     * {@link Double#POSITIVE_INFINITY}, so that memory arbitration does not spill it. Operators update
+     * the cost when their state changes, and memory arbitration reads it from other threads.
+     */
+    public void setSpillCostPerByte(double spillCostPerByte)
+    {
+        checkArgument(spillCostPerByte >= 0, "spillCostPerByte is negative");
+        this.spillCostPerByte = spillCostPerByte;
+    }
+
+    public double getSpillCostPerByte()
+    {
+        return spillCostPerByte;
+    }
+
     public CounterStat getInputDataSize()
     {
         return inputDataSize;
@@ -30,6 +30,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.presto.operator.OperatorContext.DEFAULT_SPILL_COST;
 import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
 import static com.facebook.presto.util.MergeSortedPages.mergeSortedPages;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -188,6 +189,8 @@ public class OrderByOperator
         this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
         checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
+        // Spilling writes out a sorted run, which has to be produced for the output anyway
+        operatorContext.setSpillCostPerByte(DEFAULT_SPILL_COST);
     }
 
     @Override
@@ -206,6 +209,8 @@ public class OrderByOperator
 
         if (state == State.NEEDS_INPUT) {
             state = State.HAS_OUTPUT;
+            // once all input is received the memory is released as the output is consumed
+            operatorContext.setSpillCostPerByte(Double.POSITIVE_INFINITY);
 
             // Convert revocable memory to user memory as sortedPages holds on to memory so we no longer can revoke.
             if (revocableMemoryContext.getBytes() > 0) {
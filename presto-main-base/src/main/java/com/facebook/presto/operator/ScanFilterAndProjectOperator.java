@@ -186,6 +186,7 @@ public class ScanFilterAndProjectOperator
     @Override
     public void close()
     {
+        pageProcessor.recordRuntimeStats(operatorContext.getRuntimeStats());
         finish();
     }
 
@@ -314,7 +315,7 @@ public class ScanFilterAndProjectOperator
         }
 
         Page result = mergingOutput.getOutput();
-        outputMemoryContext.setBytes(mergingOutput.getRetainedSizeInBytes() + pageProcessorMemoryContext.getBytes());
+        outputMemoryContext.setBytes(mergingOutput.getRetainedSizeInBytes() + pageProcessorMemoryContext.getBytes() + pageProcessor.getRetainedSizeInBytes());
         return result;
     }
 
@@ -48,7 +48,11 @@ public class SimpleArrayAllocator
     private final Deque<byte[]> byteArrays = new ArrayDeque<>();
     private final Set<byte[]> borrowedByteArrays = newSetFromMap(new IdentityHashMap<>());
 
+    private final Deque<boolean[]> booleanArrays = new ArrayDeque<>();
+    private final Set<boolean[]> borrowedBooleanArrays = newSetFromMap(new IdentityHashMap<>());
+
     private long estimatedSizeInBytes;
+    private long pooledSizeInBytes;
 
     public SimpleArrayAllocator()
     {
@@ -69,6 +73,7 @@ public class SimpleArrayAllocator
         while (!intArrays.isEmpty() && intArrays.peek().length < positionCount) {
             array = intArrays.pop();
             estimatedSizeInBytes -= sizeOf(array);
+            pooledSizeInBytes -= sizeOf(array);
         }
         if (intArrays.isEmpty()) {
             array = new int[positionCount];
@@ -76,6 +81,7 @@ public class SimpleArrayAllocator
         }
         else {
             array = intArrays.pop();
+            pooledSizeInBytes -= sizeOf(array);
         }
         verify(borrowedIntArrays.add(array), "Attempted to borrow array which was already borrowed");
         return array;
@@ -87,6 +93,7 @@ public class SimpleArrayAllocator
         requireNonNull(array, "array is null");
         checkArgument(borrowedIntArrays.remove(array), "Returned int array which was not borrowed");
         intArrays.push(array);
+        pooledSizeInBytes += sizeOf(array);
     }
 
     @Override
@@ -97,6 +104,7 @@ public class SimpleArrayAllocator
         while (!byteArrays.isEmpty() && byteArrays.peek().length < positionCount) {
             array = byteArrays.pop();
             estimatedSizeInBytes -= sizeOf(array);
+            pooledSizeInBytes -= sizeOf(array);
         }
         if (byteArrays.isEmpty()) {
             array = new byte[positionCount];
@@ -104,6 +112,7 @@ public class SimpleArrayAllocator
         }
         else {
             array = byteArrays.pop();
+            pooledSizeInBytes -= sizeOf(array);
         }
         verify(borrowedByteArrays.add(array), "Attempted to borrow array which was already borrowed");
         return array;
@@ -115,12 +124,44 @@ public class SimpleArrayAllocator
         requireNonNull(array, "array is null");
         checkArgument(borrowedByteArrays.remove(array), "Returned byte array which was not borrowed");
         byteArrays.push(array);
+        pooledSizeInBytes += sizeOf(array);
+    }
+
+    @Override
+    public boolean[] borrowBooleanArray(int positionCount)
+    {
+        checkState(getBorrowedArrayCount() < maxOutstandingArrays, "Requested too many arrays: %s", getBorrowedArrayCount());
+        boolean[] array;
+        while (!booleanArrays.isEmpty() && booleanArrays.peek().length < positionCount) {
+            array = booleanArrays.pop();
+            estimatedSizeInBytes -= sizeOf(array);
+            pooledSizeInBytes -= sizeOf(array);
+        }
+        if (booleanArrays.isEmpty()) {
+            array = new boolean[positionCount];
+            estimatedSizeInBytes += sizeOf(array);
+        }
+        else {
+            array = booleanArrays.pop();
+            pooledSizeInBytes -= sizeOf(array);
+        }
+        verify(borrowedBooleanArrays.add(array), "Attempted to borrow array which was already borrowed");
+        return array;
+    }
+
+    @Override
+    public void returnArray(boolean[] array)
+    {
+        requireNonNull(array, "array is null");
+        checkArgument(borrowedBooleanArrays.remove(array), "Returned boolean array which was not borrowed");
+        booleanArrays.push(array);
+        pooledSizeInBytes += sizeOf(array);
     }
 
     @Override
     public int getBorrowedArrayCount()
     {
-        return borrowedIntArrays.size() + borrowedByteArrays.size();
+        return borrowedIntArrays.size() + borrowedByteArrays.size() + borrowedBooleanArrays.size();
     }
 
     @Override
@@ -129,6 +170,14 @@ public class SimpleArrayAllocator
         return estimatedSizeInBytes;
     }
 
+    /**
+     * @return the size of the arrays which have been returned and are kept for reuse
+     */
+    public long getPooledSizeInBytes()
+    {
+        return pooledSizeInBytes;
+    }
+
     @Override
     public String toString()
     {
@@ -137,7 +186,10 @@ public class SimpleArrayAllocator
                 .add("borrowedIntArraysSize", borrowedIntArrays.size())
                 .add("byteArraysSize", byteArrays.size())
                 .add("borrowedByteArraysSize", borrowedByteArrays.size())
+                .add("booleanArraysSize", booleanArrays.size())
+                .add("borrowedBooleanArraysSize", borrowedBooleanArrays.size())
                 .add("estimatedSizeInBytes", estimatedSizeInBytes)
+                .add("pooledSizeInBytes", pooledSizeInBytes)
                 .toString();
     }
 }
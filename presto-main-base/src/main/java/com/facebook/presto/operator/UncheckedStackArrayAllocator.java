@@ -21,6 +21,7 @@ import java.util.Arrays;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOfBooleanArray;
 import static io.airlift.slice.SizeOf.sizeOfByteArray;
 import static io.airlift.slice.SizeOf.sizeOfIntArray;
 import static java.util.Objects.requireNonNull;
@@ -45,6 +46,10 @@ public class UncheckedStackArrayAllocator
     private int byteArraysTop = -1;
     private int borrowedByteArrays;
 
+    private boolean[][] booleanArrays;
+    private int booleanArraysTop = -1;
+    private int borrowedBooleanArrays;
+
     private long estimatedSizeInBytes;
 
     public UncheckedStackArrayAllocator()
@@ -57,6 +62,7 @@ public class UncheckedStackArrayAllocator
         checkArgument(initialCapacity > 0, "initialCapacity must be positive");
         intArrays = new int[initialCapacity][];
         byteArrays = new byte[initialCapacity][];
+        booleanArrays = new boolean[initialCapacity][];
     }
 
     @Override
@@ -129,10 +135,45 @@ public class UncheckedStackArrayAllocator
         --borrowedByteArrays;
     }
 
+    @Override
+    public boolean[] borrowBooleanArray(int positionCount)
+    {
+        boolean[] array;
+        while (booleanArraysTop >= 0 && booleanArrays[booleanArraysTop].length < positionCount) {
+            estimatedSizeInBytes -= sizeOfBooleanArray(booleanArrays[booleanArraysTop].length);
+            booleanArrays[booleanArraysTop] = null;
+            --booleanArraysTop;
+        }
+
+        if (booleanArraysTop < 0) {
+            array = new boolean[positionCount];
+            estimatedSizeInBytes += sizeOfBooleanArray(array.length);
+        }
+        else {
+            array = booleanArrays[booleanArraysTop];
+            --booleanArraysTop;
+        }
+
+        ++borrowedBooleanArrays;
+
+        return array;
+    }
+
+    @Override
+    public void returnArray(boolean[] array)
+    {
+        requireNonNull(array, "array is null");
+        if (booleanArraysTop == booleanArrays.length - 1) {
+            booleanArrays = Arrays.copyOf(booleanArrays, booleanArrays.length * 2);
+        }
+        booleanArrays[++booleanArraysTop] = array;
+        --borrowedBooleanArrays;
+    }
+
     @Override
     public int getBorrowedArrayCount()
     {
-        return borrowedIntArrays + borrowedByteArrays;
+        return borrowedIntArrays + borrowedByteArrays + borrowedBooleanArrays;
     }
 
     @Override
@@ -151,6 +192,9 @@ public class UncheckedStackArrayAllocator
                 .add("byteArraysCapacity", byteArrays.length)
                 .add("byteArraysSize", byteArraysTop)
                 .add("borrowedByteArraysSize", borrowedByteArrays)
+                .add("booleanArraysCapacity", booleanArrays.length)
+                .add("booleanArraysSize", booleanArraysTop)
+                .add("borrowedBooleanArraysSize", borrowedBooleanArrays)
                 .add("estimatedSizeInBytes", estimatedSizeInBytes)
                 .toString();
     }
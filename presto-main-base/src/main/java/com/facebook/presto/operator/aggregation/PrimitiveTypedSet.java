@@ -0,0 +1,424 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.airlift.units.DataSize;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.type.AbstractLongType;
+import com.facebook.presto.common.type.BigintType;
+import com.facebook.presto.common.type.IntegerType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarcharType;
+import com.facebook.presto.spi.PrestoException;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static com.facebook.airlift.units.DataSize.succinctBytes;
+import static com.facebook.presto.common.array.Arrays.ensureCapacity;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.TypeUtils.NULL_HASH_CODE;
+import static com.facebook.presto.common.type.TypeUtils.doubleEquals;
+import static com.facebook.presto.common.type.TypeUtils.doubleHashCode;
+import static com.facebook.presto.spi.StandardErrorCode.EXCEEDED_FUNCTION_MEMORY_LIMIT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static java.lang.Double.longBitsToDouble;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A set of bigint, integer, double or varchar values with the semantics of IS DISTINCT FROM, for the functions that
+ * build a set from the elements of arrays. Unlike {@link OptimizedTypedSet}, it is kept by the function instance and
+ * {@link #reset} for every row, so the hash tables are allocated only when a row needs larger ones. Values are compared
+ * in the blocks, without reading them as objects, and sets of at most {@value #MAX_LINEAR_SEARCH_SIZE} elements are
+ * searched linearly instead of being hashed.
+ */
+public final class PrimitiveTypedSet
+{
+    private static final int MAX_LINEAR_SEARCH_SIZE = 8;
+    private static final float FILL_RATIO = 0.75f;
+    private static final long EMPTY_SLOT = -1;
+
+    private enum ElementKind
+    {
+        BIGINT,
+        INTEGER,
+        DOUBLE,
+        VARCHAR
+    }
+
+    private final Type elementType;
+    private final ElementKind elementKind;
+    private final String functionName;
+    private final long maxElementBytes;
+
+    private Block[] blocks = new Block[2];
+    private int blockCount;
+    private int maxPositionCount;
+    private long elementBytes;
+    private boolean hashed;
+    private int hashMask;
+
+    // The elements in insertion order, each a 32-bit index into blocks followed by the 32-bit position within the block
+    private long[] elements = new long[0];
+    private int size;
+    private long[] hashTable = new long[0];
+
+    // The elements and the hash table of the set being replaced by intersect() or except()
+    private long[] previousElements = new long[0];
+    private long[] previousHashTable = new long[0];
+
+    public PrimitiveTypedSet(Type elementType)
+    {
+        this(elementType, "", Optional.empty());
+    }
+
+    /**
+     * Like {@link TypedSet}, fails the function when the elements of the set would take more than {@code maxElementMemory} in a block.
+     */
+    public PrimitiveTypedSet(Type elementType, String functionName, Optional<DataSize> maxElementMemory)
+    {
+        checkArgument(isSupported(elementType), "Unsupported element type: %s", elementType);
+        this.elementType = requireNonNull(elementType, "elementType is null");
+        this.functionName = requireNonNull(functionName, "functionName is null");
+        this.maxElementBytes = requireNonNull(maxElementMemory, "maxElementMemory is null").map(DataSize::toBytes).orElse(Long.MAX_VALUE);
+        if (elementType instanceof BigintType) {
+            elementKind = ElementKind.BIGINT;
+        }
+        else if (elementType instanceof IntegerType) {
+            elementKind = ElementKind.INTEGER;
+        }
+        else if (elementType == DOUBLE) {
+            elementKind = ElementKind.DOUBLE;
+        }
+        else {
+            elementKind = ElementKind.VARCHAR;
+        }
+    }
+
+    /**
+     * Doubles are supported only when NaN is equal to NaN, for which IS DISTINCT FROM and equality agree.
+     */
+    public static boolean isSupported(Type type)
+    {
+        return type instanceof BigintType || type instanceof IntegerType || type == DOUBLE || type instanceof VarcharType;
+    }
+
+    /**
+     * Empties the set, which may then hold up to {@code maxPositionCount} elements.
+     */
+    public void reset(int maxPositionCount)
+    {
+        checkArgument(maxPositionCount >= 0, "maxPositionCount must not be negative");
+        // do not keep the blocks of the previous row alive
+        Arrays.fill(blocks, 0, blockCount, null);
+        blockCount = 0;
+        size = 0;
+        elementBytes = 0;
+        this.maxPositionCount = maxPositionCount;
+        elements = ensureCapacity(elements, maxPositionCount);
+        previousElements = ensureCapacity(previousElements, maxPositionCount);
+
+        hashed = maxPositionCount > MAX_LINEAR_SEARCH_SIZE;
+        if (hashed) {
+            int hashCapacity = arraySize(maxPositionCount, FILL_RATIO);
+            hashMask = hashCapacity - 1;
+            hashTable = clearHashTable(hashTable, hashCapacity);
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Adds the element at the position of the block, unless it is in the set.
+     *
+     * @return true if the element is added, false if it is already in the set
+     */
+    public boolean add(Block block, int position)
+    {
+        return addElement(addBlock(block), block, position, hash(block, position));
+    }
+
+    /**
+     * Adds the elements of the block that are not in the set.
+     */
+    public void union(Block block)
+    {
+        int blockIndex = addBlock(block);
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            addElement(blockIndex, block, position, hash(block, position));
+        }
+    }
+
+    /**
+     * Replaces the set with the distinct elements of the block that are in the set.
+     */
+    public void intersect(Block block)
+    {
+        int blockIndex = addBlock(block);
+        int previousSize = startReplacement();
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            long hash = hash(block, position);
+            if (containsPrevious(previousSize, block, position, hash)) {
+                addElement(blockIndex, block, position, hash);
+            }
+        }
+    }
+
+    /**
+     * Replaces the set with the distinct elements of the block that are not in the set.
+     */
+    public void except(Block block)
+    {
+        int blockIndex = addBlock(block);
+        int previousSize = startReplacement();
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            long hash = hash(block, position);
+            if (!containsPrevious(previousSize, block, position, hash)) {
+                addElement(blockIndex, block, position, hash);
+            }
+        }
+    }
+
+    /**
+     * Returns the elements in the order they were added. The result is the block that holds them when it has no other
+     * values, and a dictionary over it when all elements come from one block.
+     */
+    public Block getBlock()
+    {
+        if (size == 0) {
+            return elementType.createBlockBuilder(null, 0).build();
+        }
+
+        int blockIndex = getBlockIndex(elements[0]);
+        boolean singleBlock = true;
+        boolean allPositions = true;
+        for (int i = 0; i < size; i++) {
+            singleBlock &= getBlockIndex(elements[i]) == blockIndex;
+            allPositions &= getPosition(elements[i]) == i;
+        }
+
+        Block block = blocks[blockIndex];
+        if (singleBlock) {
+            if (allPositions && size == block.getPositionCount()) {
+                return block;
+            }
+            int[] positions = new int[size];
+            for (int i = 0; i < size; i++) {
+                positions[i] = getPosition(elements[i]);
+            }
+            return new DictionaryBlock(size, block, positions);
+        }
+
+        BlockBuilder blockBuilder = elementType.createBlockBuilder(null, size);
+        for (int i = 0; i < size; i++) {
+            Block elementBlock = blocks[getBlockIndex(elements[i])];
+            int position = getPosition(elements[i]);
+            if (elementBlock.isNull(position)) {
+                blockBuilder.appendNull();
+            }
+            else {
+                elementType.appendTo(elementBlock, position, blockBuilder);
+            }
+        }
+        return blockBuilder.build();
+    }
+
+    private int addBlock(Block block)
+    {
+        if (blockCount > 0 && blocks[blockCount - 1] == block) {
+            return blockCount - 1;
+        }
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+        }
+        blocks[blockCount] = block;
+        return blockCount++;
+    }
+
+    /**
+     * Moves the current elements aside and empties the set, returning the number of elements moved.
+     */
+    private int startReplacement()
+    {
+        long[] swap = previousElements;
+        previousElements = elements;
+        elements = swap;
+        int previousSize = size;
+        size = 0;
+
+        if (hashed) {
+            swap = previousHashTable;
+            previousHashTable = hashTable;
+            hashTable = clearHashTable(swap, hashMask + 1);
+        }
+        return previousSize;
+    }
+
+    private boolean containsPrevious(int previousSize, Block block, int position, long hash)
+    {
+        if (!hashed) {
+            for (int i = 0; i < previousSize; i++) {
+                if (isEqual(previousElements[i], block, position)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        for (int slot = getSlot(hash); ; slot = (slot + 1) & hashMask) {
+            long element = previousHashTable[slot];
+            if (element == EMPTY_SLOT) {
+                return false;
+            }
+            if (isEqual(element, block, position)) {
+                return true;
+            }
+        }
+    }
+
+    private boolean addElement(int blockIndex, Block block, int position, long hash)
+    {
+        if (!hashed) {
+            for (int i = 0; i < size; i++) {
+                if (isEqual(elements[i], block, position)) {
+                    return false;
+                }
+            }
+            appendElement(blockIndex, block, position);
+            return true;
+        }
+
+        for (int slot = getSlot(hash); ; slot = (slot + 1) & hashMask) {
+            long element = hashTable[slot];
+            if (element == EMPTY_SLOT) {
+                hashTable[slot] = appendElement(blockIndex, block, position);
+                return true;
+            }
+            if (isEqual(element, block, position)) {
+                return false;
+            }
+        }
+    }
+
+    private long appendElement(int blockIndex, Block block, int position)
+    {
+        checkState(size < maxPositionCount, "set is full");
+        if (maxElementBytes != Long.MAX_VALUE) {
+            checkElementMemory(block, position);
+        }
+        long element = ((long) blockIndex << 32) | position;
+        elements[size] = element;
+        size++;
+        return element;
+    }
+
+    private void checkElementMemory(Block block, int position)
+    {
+        // the size the element takes in a block builder, with its null flag and offset
+        switch (elementKind) {
+            case BIGINT:
+            case DOUBLE:
+                elementBytes += Long.BYTES + Byte.BYTES;
+                break;
+            case INTEGER:
+                elementBytes += Integer.BYTES + Byte.BYTES;
+                break;
+            case VARCHAR:
+                elementBytes += (block.isNull(position) ? 0 : block.getSliceLength(position)) + Integer.BYTES + Byte.BYTES;
+                break;
+        }
+        if (elementBytes > maxElementBytes) {
+            throw new PrestoException(
+                    EXCEEDED_FUNCTION_MEMORY_LIMIT,
+                    format("The input to %s is too large. More than %s of memory is needed to hold the intermediate hash set.%n", functionName, succinctBytes(maxElementBytes)));
+        }
+    }
+
+    private long hash(Block block, int position)
+    {
+        if (!hashed) {
+            return 0;
+        }
+        if (block.isNull(position)) {
+            return NULL_HASH_CODE;
+        }
+        switch (elementKind) {
+            case BIGINT:
+                return AbstractLongType.hash(block.getLong(position));
+            case INTEGER:
+                return AbstractLongType.hash(block.getInt(position));
+            case DOUBLE:
+                return doubleHashCode(longBitsToDouble(block.getLong(position)));
+            case VARCHAR:
+                return block.hash(position, 0, block.getSliceLength(position));
+            default:
+                throw new UnsupportedOperationException("Unsupported element kind: " + elementKind);
+        }
+    }
+
+    private boolean isEqual(long element, Block block, int position)
+    {
+        Block elementBlock = blocks[getBlockIndex(element)];
+        int elementPosition = getPosition(element);
+        boolean elementNull = elementBlock.isNull(elementPosition);
+        if (elementNull || block.isNull(position)) {
+            return elementNull && block.isNull(position);
+        }
+        switch (elementKind) {
+            case BIGINT:
+                return elementBlock.getLong(elementPosition) == block.getLong(position);
+            case INTEGER:
+                return elementBlock.getInt(elementPosition) == block.getInt(position);
+            case DOUBLE:
+                return doubleEquals(longBitsToDouble(elementBlock.getLong(elementPosition)), longBitsToDouble(block.getLong(position)));
+            case VARCHAR:
+                int length = block.getSliceLength(position);
+                return elementBlock.getSliceLength(elementPosition) == length && elementBlock.equals(elementPosition, 0, block, position, 0, length);
+            default:
+                throw new UnsupportedOperationException("Unsupported element kind: " + elementKind);
+        }
+    }
+
+    private int getSlot(long hash)
+    {
+        return (int) (hash & hashMask);
+    }
+
+    private static int getBlockIndex(long element)
+    {
+        return (int) (element >>> 32);
+    }
+
+    private static int getPosition(long element)
+    {
+        return (int) element;
+    }
+
+    private static long[] clearHashTable(long[] hashTable, int hashCapacity)
+    {
+        if (hashTable.length < hashCapacity) {
+            hashTable = new long[hashCapacity];
+        }
+        Arrays.fill(hashTable, 0, hashCapacity, EMPTY_SLOT);
+        return hashTable;
+    }
+}
@@ -173,7 +173,9 @@ public class InMemoryHashAggregationBuilder
                 expectedGroups,
                 isDictionaryAggregationEnabled(operatorContext.getSession()),
                 joinCompiler,
-                updateMemory);
+                updateMemory,
+                // the caller processes unfinished work again only when it is prepared to yield for memory
+                yieldForMemoryReservation ? Optional.of(operatorContext.getDriverContext().getYieldSignal()) : Optional.empty());
         this.operatorContext = operatorContext;
         this.partial = step.isOutputPartial();
         this.maxPartialMemory = maxPartialMemory.map(dataSize -> OptionalLong.of(dataSize.toBytes())).orElseGet(OptionalLong::empty);
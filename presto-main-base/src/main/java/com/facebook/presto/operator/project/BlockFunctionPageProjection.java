@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.project;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.metadata.FunctionAndTypeManager;
+import com.facebook.presto.operator.CompletedWork;
+import com.facebook.presto.operator.DriverYieldSignal;
+import com.facebook.presto.operator.Work;
+import com.facebook.presto.operator.scalar.BuiltInScalarFunctionImplementation;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.function.ScalarFunctionImplementation;
+import com.facebook.presto.spi.relation.CallExpression;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.google.common.collect.ImmutableList;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.operator.project.PageFieldsToInputParametersRewriter.rewritePageFieldsToInputParameters;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates a call of a function with a {@link com.facebook.presto.spi.function.BlockImplementation} on input
+ * columns by passing the whole blocks and the selected positions to the block implementation, instead of
+ * invoking the per-row implementation for each position from a generated projection.
+ */
+public class BlockFunctionPageProjection
+        implements PageProjection
+{
+    private final InputChannels inputChannels;
+    private final MethodHandle blockImplementation;
+    private final Type outputType;
+    private final int[] fields;
+    private final boolean deterministic;
+
+    private BlockFunctionPageProjection(InputChannels inputChannels, MethodHandle blockImplementation, Type outputType, int[] fields, boolean deterministic)
+    {
+        this.inputChannels = requireNonNull(inputChannels, "inputChannels is null");
+        requireNonNull(blockImplementation, "blockImplementation is null");
+        // spread over an Object[] of the arguments, so that it is invoked exactly, without adapting it per call
+        this.blockImplementation = blockImplementation.asSpreader(Object[].class, blockImplementation.type().parameterCount())
+                .asType(methodType(void.class, Object[].class));
+        this.outputType = requireNonNull(outputType, "outputType is null");
+        this.fields = requireNonNull(fields, "fields is null");
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Returns a projection evaluating the expression with the block implementation of its function, or empty if the
+     * expression is not a call on input columns of a function with a block implementation.
+     */
+    public static Optional<PageProjection> tryCreate(FunctionAndTypeManager functionAndTypeManager, RowExpression expression)
+    {
+        if (!(expression instanceof CallExpression)) {
+            return Optional.empty();
+        }
+        CallExpression call = (CallExpression) expression;
+        if (call.getArguments().isEmpty() || !call.getArguments().stream().allMatch(InputReferenceExpression.class::isInstance)) {
+            return Optional.empty();
+        }
+        ScalarFunctionImplementation implementation = functionAndTypeManager.getScalarFunctionImplementation(call.getFunctionHandle());
+        if (!(implementation instanceof BuiltInScalarFunctionImplementation)) {
+            return Optional.empty();
+        }
+        Optional<MethodHandle> blockImplementation = ((BuiltInScalarFunctionImplementation) implementation).getBlockImplementation();
+        if (!blockImplementation.isPresent()) {
+            return Optional.empty();
+        }
+
+        PageFieldsToInputParametersRewriter.Result result = rewritePageFieldsToInputParameters(expression);
+        int[] fields = ((CallExpression) result.getRewrittenExpression()).getArguments().stream()
+                .mapToInt(argument -> ((InputReferenceExpression) argument).getField())
+                .toArray();
+        return Optional.of(new BlockFunctionPageProjection(
+                result.getInputChannels(),
+                blockImplementation.get(),
+                call.getType(),
+                fields,
+                functionAndTypeManager.getFunctionMetadata(call.getFunctionHandle()).isDeterministic()));
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return deterministic;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public Work<List<Block>> project(SqlFunctionProperties properties, DriverYieldSignal yieldSignal, Page page, SelectedPositions selectedPositions)
+    {
+        int positionCount = selectedPositions.size();
+        BlockBuilder output = outputType.createBlockBuilder(null, positionCount);
+
+        // properties, the argument blocks, positions, offset, positionCount and output
+        Object[] arguments = new Object[fields.length + 5];
+        arguments[0] = properties;
+        for (int i = 0; i < fields.length; i++) {
+            arguments[i + 1] = page.getBlock(fields[i]).getLoadedBlock();
+        }
+        arguments[fields.length + 1] = selectedPositions.isList() ? selectedPositions.getPositions() : null;
+        arguments[fields.length + 2] = selectedPositions.getOffset();
+        arguments[fields.length + 3] = positionCount;
+        arguments[fields.length + 4] = output;
+        try {
+            blockImplementation.invokeExact(arguments);
+        }
+        catch (Throwable t) {
+            throwIfUnchecked(t);
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Block implementation failed", t);
+        }
+
+        checkState(output.getPositionCount() == positionCount, "block implementation produced %s positions for %s selected positions", output.getPositionCount(), positionCount);
+        return new CompletedWork<>(ImmutableList.of(output.build()));
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.project;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.IntArrayBlock;
+import com.facebook.presto.common.block.LongArrayBlock;
+import com.facebook.presto.common.function.OperatorType;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.metadata.FunctionAndTypeManager;
+import com.facebook.presto.spi.relation.CallExpression;
+import com.facebook.presto.spi.relation.ConstantExpression;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.SpecialFormExpression;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.operator.project.PageFieldsToInputParametersRewriter.rewritePageFieldsToInputParameters;
+import static com.facebook.presto.operator.project.PageFilter.positionsArrayToSelectedPositions;
+import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.IN;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates a comparison with a constant, a {@code BETWEEN} or an {@code IN} list over a single
+ * BIGINT, INTEGER or DATE column. The values of {@link LongArrayBlock} and {@link IntArrayBlock}
+ * are read in a tight loop and the predicate is applied to the whole array at once, followed by a
+ * separate pass over the null mask, instead of the per-position block calls of a generated filter.
+ * Other block encodings are read through the type.
+ */
+public class ColumnarPageFilter
+        implements PageFilter
+{
+    private enum Kind
+    {
+        RANGE,
+        NOT_EQUAL,
+        IN
+    }
+
+    private final InputChannels inputChannels;
+    private final Type type;
+    private final Kind kind;
+    private final long low;
+    private final long high;
+    private final LongSet values;
+
+    // reused across pages, as each driver gets its own filter from the supplier
+    private long[] blockValues = new long[0];
+    private boolean[] selectedPositions = new boolean[0];
+
+    private ColumnarPageFilter(InputChannels inputChannels, Type type, Kind kind, long low, long high, LongSet values)
+    {
+        this.inputChannels = requireNonNull(inputChannels, "inputChannels is null");
+        this.type = requireNonNull(type, "type is null");
+        this.kind = requireNonNull(kind, "kind is null");
+        this.low = low;
+        this.high = high;
+        this.values = values;
+    }
+
+    /**
+     * Returns a supplier of columnar filters for the expression, or empty if the expression is not supported.
+     */
+    public static Optional<Supplier<PageFilter>> tryCreate(FunctionAndTypeManager functionAndTypeManager, RowExpression expression)
+    {
+        PageFieldsToInputParametersRewriter.Result result = rewritePageFieldsToInputParameters(expression);
+        if (result.getInputChannels().size() != 1) {
+            return Optional.empty();
+        }
+        InputChannels inputChannels = result.getInputChannels();
+        RowExpression filter = result.getRewrittenExpression();
+
+        if (filter instanceof SpecialFormExpression && ((SpecialFormExpression) filter).getForm() == IN) {
+            List<RowExpression> arguments = ((SpecialFormExpression) filter).getArguments();
+            if (!isSupportedInput(arguments.get(0))) {
+                return Optional.empty();
+            }
+            Type type = arguments.get(0).getType();
+            LongSet values = new LongOpenHashSet(arguments.size() - 1);
+            for (RowExpression argument : arguments.subList(1, arguments.size())) {
+                if (!isNonNullConstant(argument, type)) {
+                    return Optional.empty();
+                }
+                values.add((long) ((ConstantExpression) argument).getValue());
+            }
+            return filterSupplier(inputChannels, type, Kind.IN, 0, 0, values);
+        }
+
+        if (!(filter instanceof CallExpression)) {
+            return Optional.empty();
+        }
+        CallExpression call = (CallExpression) filter;
+        Optional<OperatorType> operatorType = functionAndTypeManager.getFunctionMetadata(call.getFunctionHandle()).getOperatorType();
+        if (!operatorType.isPresent()) {
+            return Optional.empty();
+        }
+        List<RowExpression> arguments = call.getArguments();
+
+        if (operatorType.get() == OperatorType.BETWEEN) {
+            Type type = arguments.get(0).getType();
+            if (!isSupportedInput(arguments.get(0)) || !isNonNullConstant(arguments.get(1), type) || !isNonNullConstant(arguments.get(2), type)) {
+                return Optional.empty();
+            }
+            long low = (long) ((ConstantExpression) arguments.get(1)).getValue();
+            long high = (long) ((ConstantExpression) arguments.get(2)).getValue();
+            return filterSupplier(inputChannels, type, Kind.RANGE, low, high, null);
+        }
+
+        if (!operatorType.get().isComparisonOperator() || arguments.size() != 2) {
+            return Optional.empty();
+        }
+        OperatorType comparison = operatorType.get();
+        RowExpression input = arguments.get(0);
+        RowExpression constant = arguments.get(1);
+        if (input instanceof ConstantExpression) {
+            input = arguments.get(1);
+            constant = arguments.get(0);
+            comparison = flip(comparison);
+        }
+        if (comparison == null || !isSupportedInput(input) || !isNonNullConstant(constant, input.getType())) {
+            return Optional.empty();
+        }
+        Type type = input.getType();
+        long value = (long) ((ConstantExpression) constant).getValue();
+        switch (comparison) {
+            case EQUAL:
+                return filterSupplier(inputChannels, type, Kind.RANGE, value, value, null);
+            case NOT_EQUAL:
+                return filterSupplier(inputChannels, type, Kind.NOT_EQUAL, value, value, null);
+            case LESS_THAN:
+                // an empty range when there is no smaller value
+                return value == Long.MIN_VALUE ?
+                        filterSupplier(inputChannels, type, Kind.RANGE, 0, -1, null) :
+                        filterSupplier(inputChannels, type, Kind.RANGE, Long.MIN_VALUE, value - 1, null);
+            case LESS_THAN_OR_EQUAL:
+                return filterSupplier(inputChannels, type, Kind.RANGE, Long.MIN_VALUE, value, null);
+            case GREATER_THAN:
+                return value == Long.MAX_VALUE ?
+                        filterSupplier(inputChannels, type, Kind.RANGE, 0, -1, null) :
+                        filterSupplier(inputChannels, type, Kind.RANGE, value + 1, Long.MAX_VALUE, null);
+            case GREATER_THAN_OR_EQUAL:
+                return filterSupplier(inputChannels, type, Kind.RANGE, value, Long.MAX_VALUE, null);
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private static Optional<Supplier<PageFilter>> filterSupplier(InputChannels inputChannels, Type type, Kind kind, long low, long high, LongSet values)
+    {
+        return Optional.of(() -> new ColumnarPageFilter(inputChannels, type, kind, low, high, values));
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return true;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public SelectedPositions filter(SqlFunctionProperties properties, Page page)
+    {
+        Block block = page.getBlock(0).getLoadedBlock();
+        int positionCount = block.getPositionCount();
+        if (blockValues.length < positionCount) {
+            blockValues = new long[positionCount];
+            selectedPositions = new boolean[positionCount];
+        }
+        long[] values = blockValues;
+        readValues(block, type, values);
+
+        boolean[] selected = selectedPositions;
+        switch (kind) {
+            case RANGE:
+                for (int position = 0; position < positionCount; position++) {
+                    selected[position] = values[position] >= low & values[position] <= high;
+                }
+                break;
+            case NOT_EQUAL:
+                for (int position = 0; position < positionCount; position++) {
+                    selected[position] = values[position] != low;
+                }
+                break;
+            case IN:
+                for (int position = 0; position < positionCount; position++) {
+                    selected[position] = this.values.contains(values[position]);
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported kind: " + kind);
+        }
+
+        if (block.mayHaveNull()) {
+            for (int position = 0; position < positionCount; position++) {
+                selected[position] &= !block.isNull(position);
+            }
+        }
+        return positionsArrayToSelectedPositions(selected, positionCount);
+    }
+
+    private static void readValues(Block block, Type type, long[] values)
+    {
+        int positionCount = block.getPositionCount();
+        if (block instanceof LongArrayBlock) {
+            LongArrayBlock longArrayBlock = (LongArrayBlock) block;
+            int offsetBase = longArrayBlock.getOffsetBase();
+            for (int position = 0; position < positionCount; position++) {
+                values[position] = longArrayBlock.getLongUnchecked(offsetBase + position);
+            }
+        }
+        else if (block instanceof IntArrayBlock) {
+            IntArrayBlock intArrayBlock = (IntArrayBlock) block;
+            int offsetBase = intArrayBlock.getOffsetBase();
+            for (int position = 0; position < positionCount; position++) {
+                values[position] = intArrayBlock.getIntUnchecked(offsetBase + position);
+            }
+        }
+        else {
+            for (int position = 0; position < positionCount; position++) {
+                values[position] = block.isNull(position) ? 0 : type.getLong(block, position);
+            }
+        }
+    }
+
+    private static boolean isSupportedInput(RowExpression expression)
+    {
+        if (!(expression instanceof InputReferenceExpression) || ((InputReferenceExpression) expression).getField() != 0) {
+            return false;
+        }
+        Type type = expression.getType();
+        return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(DATE);
+    }
+
+    private static boolean isNonNullConstant(RowExpression expression, Type type)
+    {
+        return expression instanceof ConstantExpression && !((ConstantExpression) expression).isNull() && expression.getType().equals(type);
+    }
+
+    private static OperatorType flip(OperatorType comparison)
+    {
+        switch (comparison) {
+            case EQUAL:
+            case NOT_EQUAL:
+                return comparison;
+            case LESS_THAN:
+                return OperatorType.GREATER_THAN;
+            case LESS_THAN_OR_EQUAL:
+                return OperatorType.GREATER_THAN_OR_EQUAL;
+            case GREATER_THAN:
+                return OperatorType.LESS_THAN;
+            case GREATER_THAN_OR_EQUAL:
+                return OperatorType.LESS_THAN_OR_EQUAL;
+            default:
+                return null;
+        }
+    }
+}
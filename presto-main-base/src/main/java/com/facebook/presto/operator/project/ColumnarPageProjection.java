@@ -0,0 +1,383 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.project;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.IntArrayBlock;
+import com.facebook.presto.common.block.LongArrayBlock;
+import com.facebook.presto.common.function.OperatorType;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.metadata.FunctionAndTypeManager;
+import com.facebook.presto.operator.CompletedWork;
+import com.facebook.presto.operator.DriverYieldSignal;
+import com.facebook.presto.operator.Work;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.relation.CallExpression;
+import com.facebook.presto.spi.relation.ConstantExpression;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.operator.project.PageFieldsToInputParametersRewriter.rewritePageFieldsToInputParameters;
+import static com.facebook.presto.spi.StandardErrorCode.NUMERIC_VALUE_OUT_OF_RANGE;
+import static java.lang.Double.doubleToLongBits;
+import static java.lang.Double.longBitsToDouble;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates an addition, subtraction or multiplication of BIGINT or DOUBLE columns and constants,
+ * or a widening cast of an INTEGER or BIGINT column. The selected values of {@link LongArrayBlock}
+ * and {@link IntArrayBlock} inputs are read into arrays in a tight loop, the result is computed over
+ * the whole arrays and written directly into the values of the output block, and the null mask is
+ * computed in a separate pass, instead of the per-position block calls of a generated projection.
+ * Other block encodings are read through the block.
+ */
+public class ColumnarPageProjection
+        implements PageProjection
+{
+    private static final int CONSTANT = -1;
+
+    private final InputChannels inputChannels;
+    private final OperatorType operator;
+    private final Type outputType;
+    private final Type inputType;
+    private final int leftField;
+    private final Object leftConstant;
+    private final int rightField;
+    private final Object rightConstant;
+
+    // reused across pages, as each driver gets its own projection from the supplier
+    private long[] leftValues = new long[0];
+    private long[] rightValues = new long[0];
+
+    private ColumnarPageProjection(InputChannels inputChannels, OperatorType operator, Type outputType, Type inputType, int leftField, Object leftConstant, int rightField, Object rightConstant)
+    {
+        this.inputChannels = requireNonNull(inputChannels, "inputChannels is null");
+        this.operator = requireNonNull(operator, "operator is null");
+        this.outputType = requireNonNull(outputType, "outputType is null");
+        this.inputType = requireNonNull(inputType, "inputType is null");
+        this.leftField = leftField;
+        this.leftConstant = leftConstant;
+        this.rightField = rightField;
+        this.rightConstant = rightConstant;
+    }
+
+    /**
+     * Returns a supplier of columnar projections for the expression, or empty if the expression is not supported.
+     */
+    public static Optional<Supplier<PageProjection>> tryCreate(FunctionAndTypeManager functionAndTypeManager, RowExpression expression)
+    {
+        if (!(expression instanceof CallExpression)) {
+            return Optional.empty();
+        }
+        Optional<OperatorType> operator = functionAndTypeManager.getFunctionMetadata(((CallExpression) expression).getFunctionHandle()).getOperatorType();
+        if (!operator.isPresent()) {
+            return Optional.empty();
+        }
+
+        PageFieldsToInputParametersRewriter.Result result = rewritePageFieldsToInputParameters(expression);
+        CallExpression call = (CallExpression) result.getRewrittenExpression();
+        Type outputType = call.getType();
+        List<RowExpression> arguments = call.getArguments();
+
+        switch (operator.get()) {
+            case CAST:
+                Type inputType = arguments.get(0).getType();
+                if (!(arguments.get(0) instanceof InputReferenceExpression) || !isSupportedCast(inputType, outputType)) {
+                    return Optional.empty();
+                }
+                return Optional.of(() -> new ColumnarPageProjection(result.getInputChannels(), operator.get(), outputType, inputType, 0, null, CONSTANT, null));
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+                if (!outputType.equals(BIGINT) && !outputType.equals(DOUBLE)) {
+                    return Optional.empty();
+                }
+                RowExpression left = arguments.get(0);
+                RowExpression right = arguments.get(1);
+                if (!isSupportedOperand(left, outputType) || !isSupportedOperand(right, outputType) || result.getInputChannels().size() == 0) {
+                    return Optional.empty();
+                }
+                int leftField = getField(left);
+                Object leftConstant = getConstant(left);
+                int rightField = getField(right);
+                Object rightConstant = getConstant(right);
+                return Optional.of(() -> new ColumnarPageProjection(
+                        result.getInputChannels(),
+                        operator.get(),
+                        outputType,
+                        outputType,
+                        leftField,
+                        leftConstant,
+                        rightField,
+                        rightConstant));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return true;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public Work<List<Block>> project(SqlFunctionProperties properties, DriverYieldSignal yieldSignal, Page page, SelectedPositions selectedPositions)
+    {
+        int positionCount = selectedPositions.size();
+        Block left = leftField == CONSTANT ? null : page.getBlock(leftField).getLoadedBlock();
+        Block right = rightField == CONSTANT ? null : page.getBlock(rightField).getLoadedBlock();
+
+        boolean[] valueIsNull = readNulls(left, selectedPositions, null);
+        valueIsNull = readNulls(right, selectedPositions, valueIsNull);
+
+        if (leftValues.length < positionCount) {
+            leftValues = new long[positionCount];
+            rightValues = new long[positionCount];
+        }
+        readValues(left, leftConstant, selectedPositions, leftValues);
+        long[] values;
+        if (operator == OperatorType.CAST) {
+            values = cast(leftValues, positionCount);
+        }
+        else {
+            readValues(right, rightConstant, selectedPositions, rightValues);
+            if (outputType.equals(BIGINT)) {
+                if (valueIsNull != null) {
+                    // the values behind nulls are undefined, and must not fail the exact arithmetic
+                    clearNulls(leftValues, valueIsNull, positionCount);
+                    clearNulls(rightValues, valueIsNull, positionCount);
+                }
+                values = evaluateBigint(leftValues, rightValues, positionCount);
+            }
+            else {
+                values = evaluateDouble(leftValues, rightValues, positionCount);
+            }
+        }
+        return new CompletedWork<>(ImmutableList.of(new LongArrayBlock(positionCount, Optional.ofNullable(valueIsNull), values)));
+    }
+
+    private long[] cast(long[] input, int positionCount)
+    {
+        long[] values = new long[positionCount];
+        if (outputType.equals(DOUBLE)) {
+            for (int position = 0; position < positionCount; position++) {
+                values[position] = doubleToLongBits(input[position]);
+            }
+        }
+        else {
+            System.arraycopy(input, 0, values, 0, positionCount);
+        }
+        return values;
+    }
+
+    private long[] evaluateBigint(long[] left, long[] right, int positionCount)
+    {
+        long[] values = new long[positionCount];
+        int position = 0;
+        try {
+            switch (operator) {
+                case ADD:
+                    for (; position < values.length; position++) {
+                        values[position] = Math.addExact(left[position], right[position]);
+                    }
+                    break;
+                case SUBTRACT:
+                    for (; position < values.length; position++) {
+                        values[position] = Math.subtractExact(left[position], right[position]);
+                    }
+                    break;
+                case MULTIPLY:
+                    for (; position < values.length; position++) {
+                        values[position] = Math.multiplyExact(left[position], right[position]);
+                    }
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unsupported operator: " + operator);
+            }
+        }
+        catch (ArithmeticException e) {
+            throw new PrestoException(NUMERIC_VALUE_OUT_OF_RANGE, format("bigint %s overflow: %s %s %s", getOperationName(), left[position], operator.getOperator(), right[position]), e);
+        }
+        return values;
+    }
+
+    private long[] evaluateDouble(long[] left, long[] right, int positionCount)
+    {
+        long[] values = new long[positionCount];
+        switch (operator) {
+            case ADD:
+                for (int position = 0; position < values.length; position++) {
+                    values[position] = doubleToLongBits(longBitsToDouble(left[position]) + longBitsToDouble(right[position]));
+                }
+                break;
+            case SUBTRACT:
+                for (int position = 0; position < values.length; position++) {
+                    values[position] = doubleToLongBits(longBitsToDouble(left[position]) - longBitsToDouble(right[position]));
+                }
+                break;
+            case MULTIPLY:
+                for (int position = 0; position < values.length; position++) {
+                    values[position] = doubleToLongBits(longBitsToDouble(left[position]) * longBitsToDouble(right[position]));
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException("Unsupported operator: " + operator);
+        }
+        return values;
+    }
+
+    private String getOperationName()
+    {
+        switch (operator) {
+            case ADD:
+                return "addition";
+            case SUBTRACT:
+                return "subtraction";
+            case MULTIPLY:
+                return "multiplication";
+            default:
+                throw new UnsupportedOperationException("Unsupported operator: " + operator);
+        }
+    }
+
+    /**
+     * Reads the selected values of the block, or the constant when there is no block, into the first positions of the array.
+     * DOUBLE values are kept as their long bits and INTEGER values are widened to long.
+     */
+    private void readValues(Block block, Object constant, SelectedPositions selectedPositions, long[] values)
+    {
+        int positionCount = selectedPositions.size();
+        if (block == null) {
+            Arrays.fill(values, 0, positionCount, outputType.equals(DOUBLE) ? doubleToLongBits((double) constant) : (long) constant);
+            return;
+        }
+
+        int offset = selectedPositions.getOffset();
+        if (block instanceof LongArrayBlock) {
+            LongArrayBlock longArrayBlock = (LongArrayBlock) block;
+            int offsetBase = longArrayBlock.getOffsetBase();
+            if (selectedPositions.isList()) {
+                int[] positions = selectedPositions.getPositions();
+                for (int index = 0; index < positionCount; index++) {
+                    values[index] = longArrayBlock.getLongUnchecked(offsetBase + positions[offset + index]);
+                }
+            }
+            else {
+                for (int index = 0; index < positionCount; index++) {
+                    values[index] = longArrayBlock.getLongUnchecked(offsetBase + offset + index);
+                }
+            }
+        }
+        else if (block instanceof IntArrayBlock) {
+            IntArrayBlock intArrayBlock = (IntArrayBlock) block;
+            int offsetBase = intArrayBlock.getOffsetBase();
+            if (selectedPositions.isList()) {
+                int[] positions = selectedPositions.getPositions();
+                for (int index = 0; index < positionCount; index++) {
+                    values[index] = intArrayBlock.getIntUnchecked(offsetBase + positions[offset + index]);
+                }
+            }
+            else {
+                for (int index = 0; index < positionCount; index++) {
+                    values[index] = intArrayBlock.getIntUnchecked(offsetBase + offset + index);
+                }
+            }
+        }
+        else {
+            for (int index = 0; index < positionCount; index++) {
+                int position = selectedPositions.isList() ? selectedPositions.getPositions()[offset + index] : offset + index;
+                if (block.isNull(position)) {
+                    values[index] = 0;
+                }
+                else {
+                    values[index] = inputType.equals(INTEGER) ? block.getInt(position) : block.getLong(position);
+                }
+            }
+        }
+    }
+
+    private static boolean[] readNulls(Block block, SelectedPositions selectedPositions, boolean[] valueIsNull)
+    {
+        if (block == null || !block.mayHaveNull()) {
+            return valueIsNull;
+        }
+        int positionCount = selectedPositions.size();
+        int offset = selectedPositions.getOffset();
+        boolean[] result = valueIsNull == null ? new boolean[positionCount] : valueIsNull;
+        if (selectedPositions.isList()) {
+            int[] positions = selectedPositions.getPositions();
+            for (int index = 0; index < positionCount; index++) {
+                result[index] |= block.isNull(positions[offset + index]);
+            }
+        }
+        else {
+            for (int index = 0; index < positionCount; index++) {
+                result[index] |= block.isNull(offset + index);
+            }
+        }
+        return result;
+    }
+
+    private static void clearNulls(long[] values, boolean[] valueIsNull, int positionCount)
+    {
+        for (int position = 0; position < positionCount; position++) {
+            if (valueIsNull[position]) {
+                values[position] = 0;
+            }
+        }
+    }
+
+    private static boolean isSupportedCast(Type inputType, Type outputType)
+    {
+        return (inputType.equals(INTEGER) && (outputType.equals(BIGINT) || outputType.equals(DOUBLE))) ||
+                (inputType.equals(BIGINT) && outputType.equals(DOUBLE));
+    }
+
+    private static boolean isSupportedOperand(RowExpression operand, Type type)
+    {
+        if (!operand.getType().equals(type)) {
+            return false;
+        }
+        return operand instanceof InputReferenceExpression || (operand instanceof ConstantExpression && !((ConstantExpression) operand).isNull());
+    }
+
+    private static int getField(RowExpression operand)
+    {
+        return operand instanceof InputReferenceExpression ? ((InputReferenceExpression) operand).getField() : CONSTANT;
+    }
+
+    private static Object getConstant(RowExpression operand)
+    {
+        return operand instanceof ConstantExpression ? ((ConstantExpression) operand).getValue() : null;
+    }
+}
@@ -14,10 +14,9 @@
 package com.facebook.presto.operator.project;
 
 import com.facebook.presto.common.Page;
-import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.DictionaryBlock;
-import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.function.SqlFunctionProperties;
+import io.airlift.slice.SizeOf;
 
 import java.util.Optional;
 
@@ -28,17 +27,14 @@ public class DictionaryAwarePageFilter
         implements PageFilter
 {
     private final PageFilter filter;
-
-    private Block lastInputDictionary;
-    private Optional<boolean[]> lastOutputDictionary;
-    private long lastDictionaryUsageCount;
+    private final DictionaryMemo<boolean[]> memo = new DictionaryMemo<>(SizeOf::sizeOf);
 
     public DictionaryAwarePageFilter(PageFilter filter)
     {
         this.filter = requireNonNull(filter, "filter is null");
 
         verify(filter.isDeterministic(), "filter must be deterministic");
-        verify(filter.getInputChannels().size() == 1, "filter must have only one input");
+        verify(filter.getInputChannels().size() >= 1, "filter must have at least one input");
     }
 
     @Override
@@ -53,68 +49,60 @@ public class DictionaryAwarePageFilter
         return filter.getInputChannels();
     }
 
+    /**
+     * Returns the size of the dictionaries and results remembered for the dictionaries seen last.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        return memo.getRetainedSizeInBytes();
+    }
+
     @Override
     public SelectedPositions filter(SqlFunctionProperties properties, Page page)
     {
-        Block block = page.getBlock(0).getLoadedBlock();
+        Optional<DictionaryInput> dictionaryInput = DictionaryInput.create(page);
 
-        if (block instanceof RunLengthEncodedBlock) {
-            Block value = ((RunLengthEncodedBlock) block).getValue();
-            Optional<boolean[]> selectedPosition = processDictionary(properties, value);
+        if (dictionaryInput.isPresent() && dictionaryInput.get().isRunLengthEncoded()) {
+            Optional<boolean[]> selectedPosition = processDictionary(properties, dictionaryInput.get().getDictionaryPage());
             // single value block is always considered effective, but the processing could have thrown
             // in that case we fallback and process again so the correct error message sent
             if (selectedPosition.isPresent()) {
                 return SelectedPositions.positionsRange(0, selectedPosition.get()[0] ? page.getPositionCount() : 0);
             }
         }
-
-        if (block instanceof DictionaryBlock) {
-            DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+        else if (dictionaryInput.isPresent()) {
             // Attempt to process the dictionary.  If dictionary is processing has not been considered effective, an empty response will be returned
-            Optional<boolean[]> selectedDictionaryPositions = processDictionary(properties, dictionaryBlock.getDictionary());
+            DictionaryMemo.Entry<boolean[]> entry = memo.get(dictionaryInput.get());
+            if (entry == null) {
+                entry = memo.add(dictionaryInput.get());
+                if (entry.shouldProcessDictionary()) {
+                    memo.setResult(entry, processDictionary(properties, dictionaryInput.get().getDictionaryPage()));
+                }
+            }
             // record the usage count regardless of dictionary processing choice, so we have stats for next time
-            lastDictionaryUsageCount += page.getPositionCount();
+            entry.addUsage(page.getPositionCount());
             // if dictionary was processed, produce a dictionary block; otherwise do normal processing
-            if (selectedDictionaryPositions.isPresent()) {
-                return selectDictionaryPositions(dictionaryBlock, selectedDictionaryPositions.get());
+            if (entry.getResult().isPresent()) {
+                return selectDictionaryPositions(dictionaryInput.get().getDictionaryBlock(), entry.getResult().get());
             }
         }
 
-        return filter.filter(properties, new Page(block));
+        return filter.filter(properties, DictionaryInput.getLoadedChannels(page));
     }
 
-    private Optional<boolean[]> processDictionary(SqlFunctionProperties properties, Block dictionary)
+    private Optional<boolean[]> processDictionary(SqlFunctionProperties properties, Page dictionaryPage)
     {
-        if (lastInputDictionary == dictionary) {
-            return lastOutputDictionary;
+        try {
+            SelectedPositions selectedDictionaryPositions = filter.filter(properties, dictionaryPage);
+            return Optional.of(toPositionsMask(selectedDictionaryPositions, dictionaryPage.getPositionCount()));
         }
-
-        // Process dictionary if:
-        //   this is the first block
-        //   there is only entry in the dictionary
-        //   the last dictionary was used for more positions than were in the dictionary
-        boolean shouldProcessDictionary = lastInputDictionary == null || dictionary.getPositionCount() == 1 || lastDictionaryUsageCount >= lastInputDictionary.getPositionCount();
-
-        lastDictionaryUsageCount = 0;
-        lastInputDictionary = dictionary;
-
-        if (shouldProcessDictionary) {
-            try {
-                SelectedPositions selectedDictionaryPositions = filter.filter(properties, new Page(dictionary));
-                lastOutputDictionary = Optional.of(toPositionsMask(selectedDictionaryPositions, dictionary.getPositionCount()));
-            }
-            catch (Exception ignored) {
-                // Processing of dictionary failed, but we ignore the exception here
-                // and force reprocessing of the whole block using the normal code.
-                // The second pass may not fail due to filtering.
-                // todo dictionary processing should be able to tolerate failures of unused elements
-                lastOutputDictionary = Optional.empty();
-            }
-        }
-        else {
-            lastOutputDictionary = Optional.empty();
+        catch (Exception ignored) {
+            // Processing of dictionary failed, but we ignore the exception here
+            // and force reprocessing of the whole block using the normal code.
+            // The second pass may not fail due to filtering.
+            // todo dictionary processing should be able to tolerate failures of unused elements
+            return Optional.empty();
         }
-        return lastOutputDictionary;
     }
 
     private static SelectedPositions selectDictionaryPositions(DictionaryBlock dictionaryBlock, boolean[] selectedDictionaryPositions)
@@ -38,17 +38,14 @@ public class DictionaryAwarePageProjection
 {
     private final PageProjection projection;
     private final Function<DictionaryBlock, DictionaryId> sourceIdFunction;
-
-    private Block lastInputDictionary;
-    private Optional<List<Block>> lastOutputDictionary;
-    private long lastDictionaryUsageCount;
+    private final DictionaryMemo<List<Block>> memo = new DictionaryMemo<>(blocks -> blocks.stream().mapToLong(Block::getRetainedSizeInBytes).sum());
 
     public DictionaryAwarePageProjection(PageProjection projection, Function<DictionaryBlock, DictionaryId> sourceIdFunction)
     {
         this.projection = requireNonNull(projection, "projection is null");
         this.sourceIdFunction = sourceIdFunction;
         verify(projection.isDeterministic(), "projection must be deterministic");
-        verify(projection.getInputChannels().size() == 1, "projection must have only one input");
+        verify(projection.getInputChannels().size() >= 1, "projection must have at least one input");
     }
 
     @Override
@@ -63,6 +60,14 @@ public class DictionaryAwarePageProjection
         return projection.getInputChannels();
     }
 
+    /**
+     * Returns the size of the dictionaries and results remembered for the dictionaries seen last.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        return memo.getRetainedSizeInBytes();
+    }
+
     @Override
     public Work<List<Block>> project(SqlFunctionProperties properties, DriverYieldSignal yieldSignal, Page page, SelectedPositions selectedPositions)
     {
@@ -74,11 +79,14 @@ public class DictionaryAwarePageProjection
     {
         private final SqlFunctionProperties properties;
         private final DriverYieldSignal yieldSignal;
-        private final Block block;
+        private final Page page;
         private final SelectedPositions selectedPositions;
+        // present if the page is RLE or has a dictionary block and RLE blocks, in which case we may use dictionary processing
+        private final Optional<DictionaryInput> dictionaryInput;
+        // the memo entry of the dictionary, absent for RLE pages
+        private DictionaryMemo.Entry<List<Block>> memoEntry;
 
         private List<Block> results;
-        // if the block is RLE or dictionary block, we may use dictionary processing
         private Work<List<Block>> dictionaryProcessingProjectionWork;
         // always prepare to fall back to a general block in case the dictionary does not apply or fails
         private Work<List<Block>> fallbackProcessingProjectionWork;
@@ -87,21 +95,12 @@ public class DictionaryAwarePageProjection
         {
             this.properties = properties;
             this.yieldSignal = requireNonNull(yieldSignal, "yieldSignal is null");
-
-            Block block = requireNonNull(page, "page is null").getBlock(0).getLoadedBlock();
-            this.block = block;
+            this.page = requireNonNull(page, "page is null");
             this.selectedPositions = requireNonNull(selectedPositions, "selectedPositions is null");
-
-            Optional<Block> dictionary = Optional.empty();
-            if (block instanceof RunLengthEncodedBlock) {
-                dictionary = Optional.of(((RunLengthEncodedBlock) block).getValue());
-            }
-            else if (block instanceof DictionaryBlock) {
-                dictionary = Optional.of(((DictionaryBlock) block).getDictionary());
-            }
+            this.dictionaryInput = DictionaryInput.create(page);
 
             // Try use dictionary processing first; if it fails, fall back to the generic case
-            dictionaryProcessingProjectionWork = createDictionaryBlockProjection(dictionary);
+            dictionaryProcessingProjectionWork = createDictionaryBlockProjection();
             fallbackProcessingProjectionWork = null;
         }
 
@@ -125,26 +124,25 @@ public class DictionaryAwarePageProjection
                         return false;
                     }
                     dictionaryOutput = Optional.of(dictionaryProcessingProjectionWork.getResult());
-                    lastOutputDictionary = dictionaryOutput;
                 }
                 catch (Exception ignored) {
                     // Processing of dictionary failed, but we ignore the exception here
                     // and force reprocessing of the whole block using the normal code.
                     // The second pass may not fail due to filtering.
                     // todo dictionary processing should be able to tolerate failures of unused elements
-                    lastOutputDictionary = Optional.empty();
                     dictionaryProcessingProjectionWork = null;
                 }
             }
 
-            if (block instanceof DictionaryBlock) {
+            if (memoEntry != null) {
+                memo.setResult(memoEntry, dictionaryOutput);
                 // Record the usage count regardless of dictionary processing choice, so we have stats for next time.
                 // This guarantees recording will happen once and only once regardless of whether dictionary processing was attempted and whether it succeeded.
-                lastDictionaryUsageCount += selectedPositions.size();
+                memoEntry.addUsage(selectedPositions.size());
             }
 
             if (dictionaryOutput.isPresent()) {
-                if (block instanceof RunLengthEncodedBlock) {
+                if (dictionaryInput.get().isRunLengthEncoded()) {
                     // single value block is always considered effective, but the processing could have thrown
                     // in that case we fallback and process again so the correct error message sent
                     results = dictionaryOutput.get().stream()
@@ -153,23 +151,19 @@ public class DictionaryAwarePageProjection
                     return true;
                 }
 
-                if (block instanceof DictionaryBlock) {
-                    DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
-                    // if dictionary was processed, produce a dictionary block; otherwise do normal processing
-                    int[] outputIds = filterDictionaryIds(dictionaryBlock, selectedPositions);
-                    results = dictionaryOutput.get().stream()
-                            .map(block -> new DictionaryBlock(selectedPositions.size(), block, outputIds, false, sourceIdFunction.apply(dictionaryBlock)))
-                            .collect(toImmutableList());
-                    return true;
-                }
-
-                throw new UnsupportedOperationException("unexpected block type " + block.getClass());
+                DictionaryBlock dictionaryBlock = dictionaryInput.get().getDictionaryBlock();
+                // if dictionary was processed, produce a dictionary block; otherwise do normal processing
+                int[] outputIds = filterDictionaryIds(dictionaryBlock, selectedPositions);
+                results = dictionaryOutput.get().stream()
+                        .map(block -> new DictionaryBlock(selectedPositions.size(), block, outputIds, false, sourceIdFunction.apply(dictionaryBlock)))
+                        .collect(toImmutableList());
+                return true;
             }
 
             // there is no dictionary handling or dictionary handling failed; fall back to general projection
             verify(dictionaryProcessingProjectionWork == null);
             verify(fallbackProcessingProjectionWork == null);
-            fallbackProcessingProjectionWork = projection.project(properties, yieldSignal, new Page(block), selectedPositions);
+            fallbackProcessingProjectionWork = projection.project(properties, yieldSignal, DictionaryInput.getLoadedChannels(page), selectedPositions);
             if (fallbackProcessingProjectionWork.process()) {
                 results = fallbackProcessingProjectionWork.getResult();
                 return true;
@@ -184,31 +178,27 @@ public class DictionaryAwarePageProjection
             return results;
         }
 
-        private Work<List<Block>> createDictionaryBlockProjection(Optional<Block> dictionary)
+        private Work<List<Block>> createDictionaryBlockProjection()
         {
-            if (!dictionary.isPresent()) {
-                lastOutputDictionary = Optional.empty();
+            if (!dictionaryInput.isPresent()) {
                 return null;
             }
 
-            if (lastInputDictionary == dictionary.get()) {
-                // we must have fallen back last time if lastOutputDictionary is null
-                return lastOutputDictionary.<Work<List<Block>>>map(CompletedWork::new).orElse(null);
+            if (dictionaryInput.get().isRunLengthEncoded()) {
+                return projection.project(properties, yieldSignal, dictionaryInput.get().getDictionaryPage(), SelectedPositions.positionsRange(0, 1));
             }
 
-            // Process dictionary if:
-            //   there is only one entry in the dictionary
-            //   this is the first block
-            //   the last dictionary was used for more positions than were in the dictionary
-            boolean shouldProcessDictionary = dictionary.get().getPositionCount() == 1 || lastInputDictionary == null || lastDictionaryUsageCount >= lastInputDictionary.getPositionCount();
-
-            // record the usage count regardless of dictionary processing choice, so we have stats for next time
-            lastDictionaryUsageCount = 0;
-            lastInputDictionary = dictionary.get();
-            lastOutputDictionary = Optional.empty();
+            DictionaryMemo.Entry<List<Block>> entry = memo.get(dictionaryInput.get());
+            if (entry != null) {
+                // we must have fallen back last time if the result is empty
+                entry.addUsage(selectedPositions.size());
+                return entry.getResult().<Work<List<Block>>>map(CompletedWork::new).orElse(null);
+            }
 
-            if (shouldProcessDictionary) {
-                return projection.project(properties, yieldSignal, new Page(lastInputDictionary), SelectedPositions.positionsRange(0, lastInputDictionary.getPositionCount()));
+            memoEntry = memo.add(dictionaryInput.get());
+            if (memoEntry.shouldProcessDictionary()) {
+                Page dictionaryPage = dictionaryInput.get().getDictionaryPage();
+                return projection.project(properties, yieldSignal, dictionaryPage, SelectedPositions.positionsRange(0, dictionaryPage.getPositionCount()));
             }
             return null;
         }
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.project;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.LazyBlock;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The input page of a deterministic expression reduced to the distinct rows it can contain. This is
+ * possible when every channel is a {@link RunLengthEncodedBlock}, except at most one channel which is
+ * a {@link DictionaryBlock}. The expression can then be evaluated once per dictionary entry, with the
+ * other channels repeated for the size of the dictionary.
+ */
+final class DictionaryInput
+{
+    private final Block[] values;
+    private final DictionaryBlock dictionaryBlock;
+    private final int dictionaryChannel;
+
+    private DictionaryInput(Block[] values, DictionaryBlock dictionaryBlock, int dictionaryChannel)
+    {
+        this.values = requireNonNull(values, "values is null");
+        this.dictionaryBlock = dictionaryBlock;
+        this.dictionaryChannel = dictionaryChannel;
+    }
+
+    /**
+     * Returns the dictionary input of the page, or empty if the page cannot be reduced. Only one
+     * channel that is not already known to be run length encoded is loaded, so lazy channels that
+     * the expression may not need are not loaded here.
+     */
+    public static Optional<DictionaryInput> create(Page page)
+    {
+        int unknownChannels = 0;
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel);
+            if (!isLoaded(block) || !(block.getLoadedBlock() instanceof RunLengthEncodedBlock)) {
+                unknownChannels++;
+            }
+        }
+        if (unknownChannels > 1) {
+            return Optional.empty();
+        }
+
+        Block[] values = new Block[page.getChannelCount()];
+        DictionaryBlock dictionaryBlock = null;
+        int dictionaryChannel = -1;
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel).getLoadedBlock();
+            if (block instanceof RunLengthEncodedBlock) {
+                values[channel] = ((RunLengthEncodedBlock) block).getValue();
+            }
+            else if (block instanceof DictionaryBlock) {
+                dictionaryBlock = (DictionaryBlock) block;
+                dictionaryChannel = channel;
+                values[channel] = dictionaryBlock.getDictionary();
+            }
+            else {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new DictionaryInput(values, dictionaryBlock, dictionaryChannel));
+    }
+
+    /**
+     * Returns the page with the channels that are already loaded replaced by their loaded blocks.
+     */
+    public static Page getLoadedChannels(Page page)
+    {
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel);
+            blocks[channel] = isLoaded(block) ? block.getLoadedBlock() : block;
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    private static boolean isLoaded(Block block)
+    {
+        return !(block instanceof LazyBlock) || ((LazyBlock) block).isLoaded();
+    }
+
+    /**
+     * Returns true if every channel is run length encoded, in which case the page has a single distinct row.
+     */
+    public boolean isRunLengthEncoded()
+    {
+        return dictionaryBlock == null;
+    }
+
+    /**
+     * Returns the dictionary block of the page, or null if every channel is run length encoded.
+     */
+    public DictionaryBlock getDictionaryBlock()
+    {
+        return dictionaryBlock;
+    }
+
+    public int getDictionaryChannel()
+    {
+        return dictionaryChannel;
+    }
+
+    /**
+     * Returns the dictionary of the dictionary channel and the single values of the other channels.
+     */
+    public Block[] getValues()
+    {
+        return values;
+    }
+
+    public int getDictionarySize()
+    {
+        return dictionaryBlock == null ? 1 : values[dictionaryChannel].getPositionCount();
+    }
+
+    /**
+     * Returns a page with one position per dictionary entry.
+     */
+    public Page getDictionaryPage()
+    {
+        int dictionarySize = getDictionarySize();
+        Block[] blocks = new Block[values.length];
+        for (int channel = 0; channel < values.length; channel++) {
+            if (channel == dictionaryChannel || dictionarySize == 1) {
+                blocks[channel] = values[channel];
+            }
+            else {
+                blocks[channel] = new RunLengthEncodedBlock(values[channel], dictionarySize);
+            }
+        }
+        return new Page(dictionarySize, blocks);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.project;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.DictionaryId;
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Results of an expression evaluated over the dictionaries seen most recently, keyed by the
+ * {@link DictionaryId} of the input. Pages of different dictionaries are often interleaved, e.g.
+ * after an exchange, so keeping a few entries lets a dictionary that comes back reuse its result.
+ * The same id is also kept by dictionaries derived from the original one, so an entry is only used
+ * for the exact dictionary and run length encoded values it was computed for.
+ * <p>
+ * The entries keep their dictionaries and results alive after the pages that brought them are gone,
+ * so the least recently used ones are dropped once the memo retains more than
+ * {@link #MAX_RETAINED_SIZE_IN_BYTES}, always keeping the last one, and the size it retains is
+ * reported by {@link #getRetainedSizeInBytes}.
+ */
+final class DictionaryMemo<T>
+{
+    @VisibleForTesting
+    static final long MAX_RETAINED_SIZE_IN_BYTES = 1024 * 1024;
+
+    private final Map<DictionaryId, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ToLongFunction<T> resultRetainedSize;
+    private Entry<T> lastEntry;
+    private long retainedSizeInBytes;
+
+    public DictionaryMemo(ToLongFunction<T> resultRetainedSize)
+    {
+        this.resultRetainedSize = requireNonNull(resultRetainedSize, "resultRetainedSize is null");
+    }
+
+    /**
+     * Returns the entry for the dictionary of the input, or null if there is none.
+     */
+    public Entry<T> get(DictionaryInput input)
+    {
+        checkArgument(!input.isRunLengthEncoded(), "input is run length encoded");
+        Entry<T> entry = entries.get(input.getDictionaryBlock().getDictionarySourceId());
+        if (entry == null || !entry.matches(input)) {
+            return null;
+        }
+        lastEntry = entry;
+        return entry;
+    }
+
+    /**
+     * Adds an entry, without a result, for the dictionary of the input. The entry records whether
+     * the dictionary should be processed, which is the case if:
+     * there is only one entry in the dictionary,
+     * this is the first dictionary,
+     * or the last dictionary was used for more positions than were in the dictionary.
+     */
+    public Entry<T> add(DictionaryInput input)
+    {
+        checkArgument(!input.isRunLengthEncoded(), "input is run length encoded");
+        boolean shouldProcessDictionary = input.getDictionarySize() == 1 || lastEntry == null || lastEntry.getUsageCount() >= lastEntry.getDictionarySize();
+        DictionaryId dictionaryId = input.getDictionaryBlock().getDictionarySourceId();
+        Entry<T> entry = new Entry<>(dictionaryId, input, shouldProcessDictionary);
+        Entry<T> replaced = entries.put(dictionaryId, entry);
+        if (replaced != null) {
+            retainedSizeInBytes -= replaced.retainedSizeInBytes;
+        }
+        retainedSizeInBytes += entry.retainedSizeInBytes;
+        lastEntry = entry;
+        evict();
+        return entry;
+    }
+
+    /**
+     * Sets the result for the dictionary of an entry. The result is not accounted for if the entry
+     * was dropped in the meantime, which only happens once other dictionaries were added.
+     */
+    public void setResult(Entry<T> entry, Optional<T> result)
+    {
+        requireNonNull(result, "result is null");
+        boolean retained = entries.get(entry.dictionaryId) == entry;
+        if (retained) {
+            retainedSizeInBytes -= entry.retainedSizeInBytes;
+        }
+        entry.result = result;
+        entry.retainedSizeInBytes = entry.valuesRetainedSizeInBytes + result.map(resultRetainedSize::applyAsLong).orElse(0L);
+        if (retained) {
+            retainedSizeInBytes += entry.retainedSizeInBytes;
+            evict();
+        }
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return retainedSizeInBytes;
+    }
+
+    private void evict()
+    {
+        Iterator<Entry<T>> iterator = entries.values().iterator();
+        while (retainedSizeInBytes > MAX_RETAINED_SIZE_IN_BYTES && entries.size() > 1) {
+            Entry<T> eldest = iterator.next();
+            if (eldest == lastEntry) {
+                continue;
+            }
+            iterator.remove();
+            retainedSizeInBytes -= eldest.retainedSizeInBytes;
+        }
+    }
+
+    @VisibleForTesting
+    int size()
+    {
+        return entries.size();
+    }
+
+    public static final class Entry<T>
+    {
+        private final DictionaryId dictionaryId;
+        private final int dictionaryChannel;
+        private final Block[] values;
+        private final boolean shouldProcessDictionary;
+        private final long valuesRetainedSizeInBytes;
+
+        private Optional<T> result = Optional.empty();
+        private long retainedSizeInBytes;
+        private long usageCount;
+
+        private Entry(DictionaryId dictionaryId, DictionaryInput input, boolean shouldProcessDictionary)
+        {
+            this.dictionaryId = requireNonNull(dictionaryId, "dictionaryId is null");
+            this.dictionaryChannel = input.getDictionaryChannel();
+            this.values = requireNonNull(input.getValues(), "values is null").clone();
+            this.shouldProcessDictionary = shouldProcessDictionary;
+            long valuesRetainedSizeInBytes = sizeOf(values);
+            for (Block block : values) {
+                valuesRetainedSizeInBytes += block.getRetainedSizeInBytes();
+            }
+            this.valuesRetainedSizeInBytes = valuesRetainedSizeInBytes;
+            this.retainedSizeInBytes = valuesRetainedSizeInBytes;
+        }
+
+        private boolean matches(DictionaryInput input)
+        {
+            Block[] inputValues = input.getValues();
+            if (input.getDictionaryChannel() != dictionaryChannel || inputValues.length != values.length) {
+                return false;
+            }
+            for (int channel = 0; channel < values.length; channel++) {
+                if (inputValues[channel] != values[channel]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public boolean shouldProcessDictionary()
+        {
+            return shouldProcessDictionary;
+        }
+
+        /**
+         * Returns the result for the dictionary, or empty if the dictionary was not processed or its processing failed.
+         */
+        public Optional<T> getResult()
+        {
+            return result;
+        }
+
+        public long getUsageCount()
+        {
+            return usageCount;
+        }
+
+        public void addUsage(long positions)
+        {
+            usageCount += positions;
+        }
+
+        private int getDictionarySize()
+        {
+            return values[dictionaryChannel].getPositionCount();
+        }
+    }
+}
@@ -15,6 +15,7 @@ package com.facebook.presto.operator.project;
 
 import com.facebook.airlift.concurrent.NotThreadSafe;
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.array.ReferenceCountMap;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.DictionaryBlock;
@@ -28,6 +29,7 @@ import com.facebook.presto.operator.WorkProcessor;
 import com.facebook.presto.operator.WorkProcessor.ProcessState;
 import com.facebook.presto.sql.gen.ExpressionProfiler;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import io.airlift.slice.SizeOf;
 
 import java.util.Arrays;
@@ -40,6 +42,7 @@ import java.util.OptionalInt;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.common.block.DictionaryId.randomDictionaryId;
 import static com.facebook.presto.operator.WorkProcessor.ProcessState.finished;
 import static com.facebook.presto.operator.WorkProcessor.ProcessState.ofResult;
@@ -48,6 +51,7 @@ import static com.facebook.presto.operator.project.SelectedPositions.positionsRa
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
@@ -62,8 +66,13 @@ public class PageProcessor
     private final ExpressionProfiler expressionProfiler;
     private final DictionarySourceIdFunction dictionarySourceIdFunction = new DictionarySourceIdFunction();
     private final Optional<PageFilter> filter;
+    private final Optional<ReorderingPageFilter> reorderingFilter;
+    private final Optional<SharedSubExpressionPageFilter> sharingFilter;
     private final List<PageProjectionWithOutputs> projections;
     private final int outputCount;
+    private final OptionalInt firstSharedChannel;
+    private final List<PageProjection> sharedProjections;
+    private long sharedProjectionPositions;
 
     private int projectBatchSize;
 
@@ -75,6 +84,28 @@ public class PageProcessor
 
     @VisibleForTesting
     public PageProcessor(Optional<PageFilter> filter, List<PageProjectionWithOutputs> projections, OptionalInt initialBatchSize, ExpressionProfiler expressionProfiler)
+    {
+        this(filter, projections, initialBatchSize, expressionProfiler, OptionalInt.empty(), ImmutableList.of());
+    }
+
+    /**
+     * Creates a processor whose filter and projections read the sub-expressions they share from the channels
+     * starting at {@code firstSharedChannel}: first the values published by a {@link SharedSubExpressionPageFilter},
+     * then the values of the shared projections, which are computed on the selected positions before the other
+     * projections.
+     */
+    public PageProcessor(Optional<PageFilter> filter, List<PageProjectionWithOutputs> projections, OptionalInt initialBatchSize, int firstSharedChannel, List<PageProjection> sharedProjections)
+    {
+        this(filter, projections, initialBatchSize, new ExpressionProfiler(), OptionalInt.of(firstSharedChannel), sharedProjections);
+    }
+
+    private PageProcessor(
+            Optional<PageFilter> filter,
+            List<PageProjectionWithOutputs> projections,
+            OptionalInt initialBatchSize,
+            ExpressionProfiler expressionProfiler,
+            OptionalInt firstSharedChannel,
+            List<PageProjection> sharedProjections)
     {
         List<Integer> outputChannels = projections.stream().map(PageProjectionWithOutputs::getOutputChannels).map(Arrays::stream).map(IntStream::boxed).flatMap(identity()).distinct().collect(toImmutableList());
         int outputCount = projections.stream().map(PageProjectionWithOutputs::getOutputCount).reduce(Integer::sum).orElse(0);
@@ -84,22 +115,27 @@ public class PageProcessor
 
         this.filter = requireNonNull(filter, "filter is null")
                 .map(pageFilter -> {
-                    if (pageFilter.getInputChannels().size() == 1 && pageFilter.isDeterministic()) {
+                    // the shared values published by the filter are not computed for a dictionary
+                    if (pageFilter.getInputChannels().size() >= 1 && pageFilter.isDeterministic() && !(pageFilter instanceof SharedSubExpressionPageFilter)) {
                         return new DictionaryAwarePageFilter(pageFilter);
                     }
                     return pageFilter;
                 });
+        this.reorderingFilter = filter
+                .filter(ReorderingPageFilter.class::isInstance)
+                .map(ReorderingPageFilter.class::cast);
+        this.sharingFilter = filter
+                .filter(SharedSubExpressionPageFilter.class::isInstance)
+                .map(SharedSubExpressionPageFilter.class::cast);
         this.outputCount = outputCount;
         this.projections = requireNonNull(projections, "projections is null").stream()
-                .map(projectionWithOutputs -> {
-                    PageProjection projection = projectionWithOutputs.getPageProjection();
-                    if (projection.getInputChannels().size() == 1 && projection.isDeterministic()
-                            && !(projection instanceof InputPageProjection)) {
-                        return new PageProjectionWithOutputs(new DictionaryAwarePageProjection(projection, dictionarySourceIdFunction), projectionWithOutputs.getOutputChannels());
-                    }
-                    return projectionWithOutputs;
-                })
+                .map(projectionWithOutputs -> new PageProjectionWithOutputs(toDictionaryAware(projectionWithOutputs.getPageProjection()), projectionWithOutputs.getOutputChannels()))
+                .collect(toImmutableList());
+        this.firstSharedChannel = requireNonNull(firstSharedChannel, "firstSharedChannel is null");
+        this.sharedProjections = requireNonNull(sharedProjections, "sharedProjections is null").stream()
+                .map(this::toDictionaryAware)
                 .collect(toImmutableList());
+        checkArgument(firstSharedChannel.isPresent() || (!sharingFilter.isPresent() && sharedProjections.isEmpty()), "firstSharedChannel is required for shared sub-expressions");
         this.projectBatchSize = initialBatchSize.orElse(1);
         this.expressionProfiler = requireNonNull(expressionProfiler, "expressionProfiler is null");
     }
@@ -109,6 +145,57 @@ public class PageProcessor
         this(filter, projections, OptionalInt.of(1));
     }
 
+    private PageProjection toDictionaryAware(PageProjection projection)
+    {
+        if (projection.getInputChannels().size() >= 1 && projection.isDeterministic()
+                && !(projection instanceof InputPageProjection)) {
+            return new DictionaryAwarePageProjection(projection, dictionarySourceIdFunction);
+        }
+        return projection;
+    }
+
+    /**
+     * Adds the statistics of the filter conjuncts, when the filter adapts their evaluation order, and of the
+     * sub-expressions shared by the filter and the projections.
+     */
+    public void recordRuntimeStats(RuntimeStats runtimeStats)
+    {
+        reorderingFilter.ifPresent(pageFilter -> pageFilter.recordStats(runtimeStats));
+        sharingFilter.ifPresent(pageFilter -> pageFilter.recordStats(runtimeStats));
+        if (!sharedProjections.isEmpty()) {
+            runtimeStats.addMetricValue("projectionSharedSubExpressions", NONE, sharedProjections.size());
+            runtimeStats.addMetricValue("projectionSharedSubExpressionPositions", NONE, sharedProjectionPositions);
+        }
+    }
+
+    /**
+     * Returns the size of the dictionaries and results remembered by the dictionary aware filter and
+     * projections, which is retained across pages.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSizeInBytes = filter
+                .filter(DictionaryAwarePageFilter.class::isInstance)
+                .map(DictionaryAwarePageFilter.class::cast)
+                .map(DictionaryAwarePageFilter::getRetainedSizeInBytes)
+                .orElse(0L);
+        for (PageProjectionWithOutputs projection : projections) {
+            retainedSizeInBytes += getRetainedSizeInBytes(projection.getPageProjection());
+        }
+        for (PageProjection projection : sharedProjections) {
+            retainedSizeInBytes += getRetainedSizeInBytes(projection);
+        }
+        return retainedSizeInBytes;
+    }
+
+    private static long getRetainedSizeInBytes(PageProjection projection)
+    {
+        if (projection instanceof DictionaryAwarePageProjection) {
+            return ((DictionaryAwarePageProjection) projection).getRetainedSizeInBytes();
+        }
+        return 0;
+    }
+
     public Iterator<Optional<Page>> process(SqlFunctionProperties properties, DriverYieldSignal yieldSignal, LocalMemoryContext memoryContext, Page page)
     {
         WorkProcessor<Page> processor = createWorkProcessor(properties, yieldSignal, memoryContext, page);
@@ -124,29 +211,85 @@ public class PageProcessor
             return WorkProcessor.of();
         }
 
+        if (sharingFilter.isPresent()) {
+            // the shared sub-expressions are computed while filtering, so the filter yields too
+            Work<SelectedPositions> filterWork = sharingFilter.get().filter(properties, yieldSignal, sharingFilter.get().getInputChannels().getInputChannels(page));
+            return WorkProcessor.create(new FilterPositions(filterWork))
+                    .flatMap(selectedPositions -> projectSelectedPositions(properties, yieldSignal, memoryContext, page, selectedPositions));
+        }
+
         if (filter.isPresent()) {
             SelectedPositions selectedPositions = filter.get().filter(properties, filter.get().getInputChannels().getInputChannels(page));
-            if (selectedPositions.isEmpty()) {
-                return WorkProcessor.of();
-            }
+            return projectSelectedPositions(properties, yieldSignal, memoryContext, page, selectedPositions);
+        }
 
-            if (projections.isEmpty()) {
-                // retained memory for empty page is negligible
-                return WorkProcessor.of(new Page(selectedPositions.size()));
-            }
+        if (projections.isEmpty()) {
+            // retained memory for empty page is negligible
+            return WorkProcessor.of(new Page(page.getPositionCount()));
+        }
 
-            if (selectedPositions.size() != page.getPositionCount()) {
-                return WorkProcessor.create(new ProjectSelectedPositions(properties, yieldSignal, memoryContext, page, selectedPositions));
-            }
+        return WorkProcessor.create(new ProjectSelectedPositions(properties, yieldSignal, memoryContext, page, positionsRange(0, page.getPositionCount())));
+    }
+
+    private WorkProcessor<Page> projectSelectedPositions(SqlFunctionProperties properties, DriverYieldSignal yieldSignal, LocalMemoryContext memoryContext, Page page, SelectedPositions selectedPositions)
+    {
+        if (selectedPositions.isEmpty()) {
+            return WorkProcessor.of();
         }
-        else if (projections.isEmpty()) {
+
+        if (projections.isEmpty()) {
             // retained memory for empty page is negligible
-            return WorkProcessor.of(new Page(page.getPositionCount()));
+            return WorkProcessor.of(new Page(selectedPositions.size()));
         }
 
+        if (selectedPositions.size() != page.getPositionCount()) {
+            return WorkProcessor.create(new ProjectSelectedPositions(properties, yieldSignal, memoryContext, page, selectedPositions));
+        }
         return WorkProcessor.create(new ProjectSelectedPositions(properties, yieldSignal, memoryContext, page, positionsRange(0, page.getPositionCount())));
     }
 
+    /**
+     * Returns the channels of the page read by the filter and the projections, followed by the values published by the filter.
+     */
+    private Page withSharedColumns(Page page)
+    {
+        int firstSharedChannel = this.firstSharedChannel.getAsInt();
+        Block[] sharedColumns = sharingFilter
+                .map(pageFilter -> pageFilter.getSharedColumns(page.getPositionCount()))
+                .orElse(new Block[0]);
+        Block[] blocks = new Block[firstSharedChannel + sharedColumns.length];
+        for (int channel = 0; channel < firstSharedChannel; channel++) {
+            blocks[channel] = page.getBlock(channel);
+        }
+        System.arraycopy(sharedColumns, 0, blocks, firstSharedChannel, sharedColumns.length);
+        return Page.wrapBlocksWithoutCopy(page.getPositionCount(), blocks);
+    }
+
+    private static class FilterPositions
+            implements WorkProcessor.Process<SelectedPositions>
+    {
+        private final Work<SelectedPositions> filterWork;
+        private boolean finished;
+
+        private FilterPositions(Work<SelectedPositions> filterWork)
+        {
+            this.filterWork = requireNonNull(filterWork, "filterWork is null");
+        }
+
+        @Override
+        public ProcessState<SelectedPositions> process()
+        {
+            if (finished) {
+                return finished();
+            }
+            if (!filterWork.process()) {
+                return ProcessState.yield();
+            }
+            finished = true;
+            return ofResult(filterWork.getResult());
+        }
+    }
+
     private class ProjectSelectedPositions
             implements WorkProcessor.Process<Page>
     {
@@ -156,6 +299,7 @@ public class PageProcessor
 
         private Page page;
         private Block[] previouslyComputedResults;
+        private Block[] sharedResults;
         private SelectedPositions selectedPositions;
         private long retainedSizeInBytes;
 
@@ -163,6 +307,10 @@ public class PageProcessor
         private boolean lastComputeYielded;
         private int lastComputeBatchSize;
         private Work<List<Block>> pageProjectWork;
+        private Work<List<Block>> sharedProjectWork;
+        // the ids expanding the shared values of the current batch to the positions of the page, kept when the batch is retried
+        private int[] expandedIds;
+        private int expandedIdsBatchSize = -1;
 
         private ProjectSelectedPositions(SqlFunctionProperties properties, DriverYieldSignal yieldSignal, LocalMemoryContext memoryContext, Page page, SelectedPositions selectedPositions)
         {
@@ -170,10 +318,11 @@ public class PageProcessor
 
             this.properties = properties;
             this.yieldSignal = yieldSignal;
-            this.page = page;
+            this.page = firstSharedChannel.isPresent() ? withSharedColumns(page) : page;
             this.memoryContext = memoryContext;
             this.selectedPositions = selectedPositions;
             this.previouslyComputedResults = new Block[outputCount];
+            this.sharedResults = new Block[sharedProjections.size()];
         }
 
         @Override
@@ -241,16 +390,12 @@ public class PageProcessor
                     projectBatchSize = projectBatchSize * 2;
                 }
 
-                // remove batch from selectedPositions and previouslyComputedResults
+                // remove batch from selectedPositions, previouslyComputedResults and sharedResults
                 selectedPositions = selectedPositions.subRange(batchSize, selectedPositions.size());
-                for (int i = 0; i < previouslyComputedResults.length; i++) {
-                    if (previouslyComputedResults[i] != null && previouslyComputedResults[i].getPositionCount() > batchSize) {
-                        previouslyComputedResults[i] = previouslyComputedResults[i].getRegion(batchSize, previouslyComputedResults[i].getPositionCount() - batchSize);
-                    }
-                    else {
-                        previouslyComputedResults[i] = null;
-                    }
-                }
+                removeBatch(previouslyComputedResults, batchSize);
+                removeBatch(sharedResults, batchSize);
+                expandedIds = null;
+                expandedIdsBatchSize = -1;
 
                 if (!selectedPositions.isEmpty()) {
                     // there are still some positions to process therefore we need to retain page and account its memory
@@ -258,9 +403,8 @@ public class PageProcessor
                 }
                 else {
                     page = null;
-                    for (int i = 0; i < previouslyComputedResults.length; i++) {
-                        previouslyComputedResults[i] = null;
-                    }
+                    Arrays.fill(previouslyComputedResults, null);
+                    Arrays.fill(sharedResults, null);
                     memoryContext.setBytes(0);
                 }
 
@@ -268,6 +412,18 @@ public class PageProcessor
             }
         }
 
+        private void removeBatch(Block[] results, int batchSize)
+        {
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] != null && results[i].getPositionCount() > batchSize) {
+                    results[i] = results[i].getRegion(batchSize, results[i].getPositionCount() - batchSize);
+                }
+                else {
+                    results[i] = null;
+                }
+            }
+        }
+
         private void updateRetainedSize()
         {
             // increment the size only when it is the first reference
@@ -283,13 +439,15 @@ public class PageProcessor
                     });
                 }
             }
-            for (Block previouslyComputedResult : previouslyComputedResults) {
-                if (previouslyComputedResult != null) {
-                    previouslyComputedResult.retainedBytesForEachPart((object, size) -> {
-                        if (referenceCountMap.incrementAndGet(object) == 1) {
-                            retainedSizeInBytes += size;
-                        }
-                    });
+            for (Block[] results : new Block[][] {previouslyComputedResults, sharedResults}) {
+                for (Block previouslyComputedResult : results) {
+                    if (previouslyComputedResult != null) {
+                        previouslyComputedResult.retainedBytesForEachPart((object, size) -> {
+                            if (referenceCountMap.incrementAndGet(object) == 1) {
+                                retainedSizeInBytes += size;
+                            }
+                        });
+                    }
                 }
             }
 
@@ -302,6 +460,34 @@ public class PageProcessor
 
             int pageSize = 0;
             SelectedPositions positionsBatch = selectedPositions.subRange(0, batchSize);
+
+            // the shared projections are computed for the batch, and read by the other projections as the last channels
+            Page batchPage = page;
+            if (!sharedProjections.isEmpty() && expandedIdsBatchSize != batchSize) {
+                expandedIds = SharedSubExpressionPageFilter.getExpandedIds(positionsBatch, page.getPositionCount());
+                expandedIdsBatchSize = batchSize;
+            }
+            for (int i = 0; i < sharedProjections.size(); i++) {
+                if (sharedResults[i] == null || sharedResults[i].getPositionCount() < batchSize) {
+                    if (yieldSignal.isSet()) {
+                        return ProcessBatchResult.processBatchYield();
+                    }
+                    if (sharedProjectWork == null) {
+                        PageProjection sharedProjection = sharedProjections.get(i);
+                        expressionProfiler.start();
+                        sharedProjectWork = sharedProjection.project(properties, yieldSignal, sharedProjection.getInputChannels().getInputChannels(batchPage), positionsBatch);
+                        expressionProfiler.stop(positionsBatch.size());
+                    }
+                    if (!sharedProjectWork.process()) {
+                        return ProcessBatchResult.processBatchYield();
+                    }
+                    sharedResults[i] = getOnlyElement(sharedProjectWork.getResult());
+                    sharedProjectWork = null;
+                    sharedProjectionPositions += positionsBatch.size();
+                }
+                batchPage = batchPage.appendColumn(SharedSubExpressionPageFilter.expand(sharedResults[i].getRegion(0, batchSize), positionsBatch, expandedIds));
+            }
+
             for (PageProjectionWithOutputs projection : projections) {
                 if (yieldSignal.isSet()) {
                     return ProcessBatchResult.processBatchYield();
@@ -323,7 +509,7 @@ public class PageProcessor
                 else {
                     if (pageProjectWork == null) {
                         expressionProfiler.start();
-                        pageProjectWork = projection.project(properties, yieldSignal, projection.getPageProjection().getInputChannels().getInputChannels(page), positionsBatch);
+                        pageProjectWork = projection.project(properties, yieldSignal, projection.getPageProjection().getInputChannels().getInputChannels(batchPage), positionsBatch);
                         expressionProfiler.stop(positionsBatch.size());
                     }
                     if (!pageProjectWork.process()) {
@@ -0,0 +1,263 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.project;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import static com.facebook.presto.common.RuntimeUnit.NANO;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
+import static com.facebook.presto.operator.project.SelectedPositions.positionsList;
+import static com.facebook.presto.operator.project.SelectedPositions.positionsRange;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+
+/**
+ * Evaluates the conjuncts of a filter, each compiled separately, one after another on the positions
+ * selected by the previous ones. Every {@link #REORDER_INTERVAL_PAGES} pages the evaluation order is
+ * sorted by the observed cost per position divided by the fraction of positions the conjunct drops,
+ * so that cheap and selective conjuncts run first. A conjunct may rely on the conjuncts before it in
+ * the plan to not fail, e.g. {@code x <> 0 AND y / x > 1}, so a page that fails in the adapted order
+ * is evaluated again in plan order, and the filter keeps the plan order from then on.
+ */
+public class ReorderingPageFilter
+        implements PageFilter
+{
+    @VisibleForTesting
+    static final int REORDER_INTERVAL_PAGES = 16;
+    // lower bound of the dropped fraction, so that conjuncts which drop nothing are still ranked by cost
+    private static final double MIN_DROPPED_FRACTION = 0.001;
+
+    private final List<PageFilter> conjuncts;
+    private final InputChannels inputChannels;
+    private final int[][] conjunctChannels;
+    private final boolean deterministic;
+    private final ConjunctStats[] stats;
+    private final int[] planOrder;
+
+    private int[] order;
+    // set once a page failed in an adapted order, after which the conjuncts run in plan order only
+    private boolean pinned;
+    private long pages;
+    private long reorders;
+
+    public ReorderingPageFilter(List<PageFilter> conjuncts)
+    {
+        checkArgument(conjuncts.size() > 1, "expected more than one conjunct");
+        this.conjuncts = ImmutableList.copyOf(conjuncts);
+
+        TreeSet<Integer> channels = new TreeSet<>();
+        for (PageFilter conjunct : conjuncts) {
+            channels.addAll(conjunct.getInputChannels().getInputChannels());
+        }
+        List<Integer> inputChannels = ImmutableList.copyOf(channels);
+        this.inputChannels = new InputChannels(inputChannels);
+        this.conjunctChannels = conjuncts.stream()
+                .map(conjunct -> conjunct.getInputChannels().getInputChannels().stream()
+                        .mapToInt(inputChannels::indexOf)
+                        .toArray())
+                .toArray(int[][]::new);
+
+        this.deterministic = conjuncts.stream().allMatch(PageFilter::isDeterministic);
+        this.stats = IntStream.range(0, conjuncts.size())
+                .mapToObj(conjunct -> new ConjunctStats())
+                .toArray(ConjunctStats[]::new);
+        this.planOrder = IntStream.range(0, conjuncts.size()).toArray();
+        this.order = planOrder.clone();
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return deterministic;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public SelectedPositions filter(SqlFunctionProperties properties, Page page)
+    {
+        SelectedPositions selectedPositions;
+        try {
+            selectedPositions = filter(properties, page, order);
+        }
+        catch (RuntimeException e) {
+            if (Arrays.equals(order, planOrder)) {
+                throw e;
+            }
+            order = planOrder;
+            pinned = true;
+            selectedPositions = filter(properties, page, planOrder);
+        }
+
+        pages++;
+        if (!pinned && pages % REORDER_INTERVAL_PAGES == 0) {
+            reorder();
+        }
+        return selectedPositions;
+    }
+
+    private SelectedPositions filter(SqlFunctionProperties properties, Page page, int[] order)
+    {
+        SelectedPositions selectedPositions = positionsRange(0, page.getPositionCount());
+        for (int conjunct : order) {
+            if (selectedPositions.isEmpty()) {
+                break;
+            }
+            // only the channels of the conjunct are loaded, and only for the positions still selected
+            Page conjunctPage = page.extractChannels(conjunctChannels[conjunct]);
+            if (selectedPositions.isList()) {
+                conjunctPage = conjunctPage.getPositions(selectedPositions.getPositions(), selectedPositions.getOffset(), selectedPositions.size());
+            }
+            else if (selectedPositions.size() != page.getPositionCount()) {
+                conjunctPage = conjunctPage.getRegion(selectedPositions.getOffset(), selectedPositions.size());
+            }
+
+            long start = System.nanoTime();
+            SelectedPositions conjunctPositions = conjuncts.get(conjunct).filter(properties, conjunctPage);
+            stats[conjunct].record(selectedPositions.size(), conjunctPositions.size(), System.nanoTime() - start);
+
+            selectedPositions = compose(selectedPositions, conjunctPositions);
+        }
+        return selectedPositions;
+    }
+
+    private void reorder()
+    {
+        int[] newOrder = IntStream.range(0, conjuncts.size())
+                .boxed()
+                .sorted(Comparator.comparingDouble(conjunct -> stats[conjunct].getRank()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        if (!Arrays.equals(order, newOrder)) {
+            order = newOrder;
+            reorders++;
+        }
+        for (ConjunctStats conjunctStats : stats) {
+            conjunctStats.decay();
+        }
+    }
+
+    @VisibleForTesting
+    int[] getOrder()
+    {
+        return order.clone();
+    }
+
+    /**
+     * Adds the positions and time observed for each conjunct, identified by its position in the plan,
+     * and the number of times the evaluation order changed.
+     */
+    public void recordStats(RuntimeStats runtimeStats)
+    {
+        for (int conjunct = 0; conjunct < conjuncts.size(); conjunct++) {
+            ConjunctStats conjunctStats = stats[conjunct];
+            runtimeStats.addMetricValue(format("filterConjunct%dInputPositions", conjunct), NONE, conjunctStats.getTotalInputPositions());
+            runtimeStats.addMetricValue(format("filterConjunct%dOutputPositions", conjunct), NONE, conjunctStats.getTotalOutputPositions());
+            runtimeStats.addMetricValue(format("filterConjunct%dTimeNanos", conjunct), NANO, conjunctStats.getTotalTimeNanos());
+        }
+        runtimeStats.addMetricValue("filterConjunctReorders", NONE, reorders);
+    }
+
+    static SelectedPositions compose(SelectedPositions outer, SelectedPositions inner)
+    {
+        if (inner.isList()) {
+            int[] positions = new int[inner.size()];
+            int[] innerPositions = inner.getPositions();
+            for (int index = 0; index < positions.length; index++) {
+                positions[index] = getPosition(outer, innerPositions[inner.getOffset() + index]);
+            }
+            return positionsList(positions, 0, positions.length);
+        }
+        if (outer.isList()) {
+            return positionsList(outer.getPositions(), outer.getOffset() + inner.getOffset(), inner.size());
+        }
+        return positionsRange(outer.getOffset() + inner.getOffset(), inner.size());
+    }
+
+    static int getPosition(SelectedPositions selectedPositions, int index)
+    {
+        if (selectedPositions.isList()) {
+            return selectedPositions.getPositions()[selectedPositions.getOffset() + index];
+        }
+        return selectedPositions.getOffset() + index;
+    }
+
+    private static class ConjunctStats
+    {
+        // decayed values used for ranking, so that the order follows changes in the data
+        private double inputPositions;
+        private double outputPositions;
+        private double timeNanos;
+
+        private long totalInputPositions;
+        private long totalOutputPositions;
+        private long totalTimeNanos;
+
+        public void record(int inputPositions, int outputPositions, long timeNanos)
+        {
+            this.inputPositions += inputPositions;
+            this.outputPositions += outputPositions;
+            this.timeNanos += timeNanos;
+            totalInputPositions += inputPositions;
+            totalOutputPositions += outputPositions;
+            totalTimeNanos += timeNanos;
+        }
+
+        public double getRank()
+        {
+            if (inputPositions == 0) {
+                // never evaluated, because earlier conjuncts dropped all positions; rank it first to measure it
+                return 0;
+            }
+            double droppedFraction = 1 - outputPositions / inputPositions;
+            return (timeNanos / inputPositions) / Math.max(droppedFraction, MIN_DROPPED_FRACTION);
+        }
+
+        public void decay()
+        {
+            inputPositions /= 2;
+            outputPositions /= 2;
+            timeNanos /= 2;
+        }
+
+        public long getTotalInputPositions()
+        {
+            return totalInputPositions;
+        }
+
+        public long getTotalOutputPositions()
+        {
+            return totalOutputPositions;
+        }
+
+        public long getTotalTimeNanos()
+        {
+            return totalTimeNanos;
+        }
+    }
+}
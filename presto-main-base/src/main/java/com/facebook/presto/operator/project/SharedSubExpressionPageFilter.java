@@ -0,0 +1,298 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.project;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.operator.DriverYieldSignal;
+import com.facebook.presto.operator.Work;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.facebook.presto.common.RuntimeUnit.NONE;
+import static com.facebook.presto.operator.project.ReorderingPageFilter.compose;
+import static com.facebook.presto.operator.project.ReorderingPageFilter.getPosition;
+import static com.facebook.presto.operator.project.SelectedPositions.positionsRange;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates the conjuncts of a filter, each compiled separately, one after another in plan order on the
+ * positions selected by the previous ones. Before each conjunct, the sub-expressions it shares with later
+ * conjuncts or with the projections are computed on the positions that reach it, and the conjunct, the
+ * later conjuncts and the projections read them as the channels after {@code firstSharedChannel}. The
+ * values for the positions finally selected are published by {@link #getSharedColumns}. The evaluation
+ * yields between sub-expressions, and within them, when the driver asks it to.
+ */
+public class SharedSubExpressionPageFilter
+        implements PageFilter
+{
+    private final List<PageFilter> conjuncts;
+    private final List<List<PageProjection>> subExpressions;
+    private final int firstSharedChannel;
+    private final int sharedCount;
+    private final InputChannels inputChannels;
+    private final int[][] conjunctChannels;
+    private final int[][][] subExpressionChannels;
+    // the input channels read by each conjunct and its sub-expressions
+    private final int[][] stepInputChannels;
+    private final boolean deterministic;
+
+    private Block[] sharedValues;
+    private SelectedPositions sharedPositions;
+    private long computedPositions;
+
+    public SharedSubExpressionPageFilter(List<PageFilter> conjuncts, List<List<PageProjection>> subExpressions, int firstSharedChannel)
+    {
+        checkArgument(!conjuncts.isEmpty(), "conjuncts is empty");
+        checkArgument(conjuncts.size() == subExpressions.size(), "conjuncts and subExpressions do not match");
+        this.conjuncts = ImmutableList.copyOf(conjuncts);
+        this.subExpressions = subExpressions.stream()
+                .map(ImmutableList::copyOf)
+                .collect(toImmutableList());
+        this.firstSharedChannel = firstSharedChannel;
+        this.sharedCount = subExpressions.stream().mapToInt(List::size).sum();
+
+        TreeSet<Integer> channels = new TreeSet<>();
+        Stream.concat(conjuncts.stream().map(PageFilter::getInputChannels), subExpressions.stream().flatMap(List::stream).map(PageProjection::getInputChannels))
+                .flatMap(functionChannels -> functionChannels.getInputChannels().stream())
+                .filter(channel -> channel < firstSharedChannel)
+                .forEach(channels::add);
+        List<Integer> inputChannels = ImmutableList.copyOf(channels);
+        this.inputChannels = new InputChannels(inputChannels);
+        this.conjunctChannels = conjuncts.stream()
+                .map(conjunct -> toStepChannels(conjunct.getInputChannels(), inputChannels))
+                .toArray(int[][]::new);
+        this.subExpressionChannels = this.subExpressions.stream()
+                .map(conjunctSubExpressions -> conjunctSubExpressions.stream()
+                        .map(subExpression -> toStepChannels(subExpression.getInputChannels(), inputChannels))
+                        .toArray(int[][]::new))
+                .toArray(int[][][]::new);
+        this.stepInputChannels = new int[conjuncts.size()][];
+        for (int conjunct = 0; conjunct < conjuncts.size(); conjunct++) {
+            this.stepInputChannels[conjunct] = Stream.concat(Stream.of(conjunctChannels[conjunct]), Stream.of(subExpressionChannels[conjunct]))
+                    .flatMapToInt(IntStream::of)
+                    .filter(channel -> channel < inputChannels.size())
+                    .distinct()
+                    .toArray();
+        }
+
+        this.deterministic = conjuncts.stream().allMatch(PageFilter::isDeterministic);
+    }
+
+    /**
+     * Maps the channels of a function to the channels of the page it is evaluated on, which has the input
+     * channels of the filter followed by the shared values computed so far.
+     */
+    private int[] toStepChannels(InputChannels functionChannels, List<Integer> inputChannels)
+    {
+        return functionChannels.getInputChannels().stream()
+                .mapToInt(channel -> channel < firstSharedChannel ? inputChannels.indexOf(channel) : inputChannels.size() + channel - firstSharedChannel)
+                .toArray();
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return deterministic;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public SelectedPositions filter(SqlFunctionProperties properties, Page page)
+    {
+        Work<SelectedPositions> work = filter(properties, new DriverYieldSignal(), page);
+        checkState(work.process(), "filter did not finish");
+        return work.getResult();
+    }
+
+    /**
+     * Returns the work evaluating the filter on the page, which yields when the signal is set.
+     */
+    public Work<SelectedPositions> filter(SqlFunctionProperties properties, DriverYieldSignal yieldSignal, Page page)
+    {
+        return new FilterWork(properties, yieldSignal, page);
+    }
+
+    public int getSharedCount()
+    {
+        return sharedCount;
+    }
+
+    /**
+     * Returns the shared values computed by the last call to {@link #filter}, with a position for each position
+     * of the page, for the channels starting at {@code firstSharedChannel}. Only the values of the selected
+     * positions are defined.
+     */
+    public Block[] getSharedColumns(int positionCount)
+    {
+        checkState(sharedPositions != null && !sharedPositions.isEmpty(), "no positions selected");
+        Block[] columns = new Block[sharedCount];
+        int[] expandedIds = getExpandedIds(sharedPositions, positionCount);
+        for (int value = 0; value < sharedCount; value++) {
+            columns[value] = expand(sharedValues[value], sharedPositions, expandedIds);
+        }
+        return columns;
+    }
+
+    public void recordStats(RuntimeStats runtimeStats)
+    {
+        runtimeStats.addMetricValue("filterSharedSubExpressions", NONE, sharedCount);
+        runtimeStats.addMetricValue("filterSharedSubExpressionPositions", NONE, computedPositions);
+    }
+
+    private static Block select(Block block, SelectedPositions selectedPositions, int positionCount)
+    {
+        if (selectedPositions.isList()) {
+            return block.getPositions(selectedPositions.getPositions(), selectedPositions.getOffset(), selectedPositions.size());
+        }
+        if (selectedPositions.size() != positionCount) {
+            return block.getRegion(selectedPositions.getOffset(), selectedPositions.size());
+        }
+        return block;
+    }
+
+    /**
+     * Returns the ids mapping each position of a page with the given number of positions to the index of the
+     * position among the selected positions, or null when all the positions are selected. The ids are shared
+     * by all the blocks expanded for the same selected positions, and must not be modified.
+     */
+    static int[] getExpandedIds(SelectedPositions selectedPositions, int positionCount)
+    {
+        if (!selectedPositions.isList() && selectedPositions.getOffset() == 0 && selectedPositions.size() == positionCount) {
+            return null;
+        }
+        // the positions that are not selected point to the first value
+        int[] ids = new int[positionCount];
+        for (int index = 0; index < selectedPositions.size(); index++) {
+            ids[getPosition(selectedPositions, index)] = index;
+        }
+        return ids;
+    }
+
+    /**
+     * Returns a block with the values at the selected positions of a page, given the ids returned by
+     * {@link #getExpandedIds} for these positions.
+     */
+    static Block expand(Block values, SelectedPositions selectedPositions, int[] expandedIds)
+    {
+        checkArgument(values.getPositionCount() == selectedPositions.size(), "values do not match the selected positions");
+        if (expandedIds == null) {
+            return values;
+        }
+        return new DictionaryBlock(expandedIds.length, values, expandedIds);
+    }
+
+    private class FilterWork
+            implements Work<SelectedPositions>
+    {
+        private final SqlFunctionProperties properties;
+        private final DriverYieldSignal yieldSignal;
+        private final Page page;
+        private final Block[] blocks;
+
+        private SelectedPositions selectedPositions;
+        private int conjunct;
+        private boolean inputSelected;
+        private int subExpression;
+        private int shared;
+        private Work<List<Block>> subExpressionWork;
+        private SelectedPositions result;
+
+        private FilterWork(SqlFunctionProperties properties, DriverYieldSignal yieldSignal, Page page)
+        {
+            this.properties = requireNonNull(properties, "properties is null");
+            this.yieldSignal = requireNonNull(yieldSignal, "yieldSignal is null");
+            this.page = requireNonNull(page, "page is null");
+            this.blocks = new Block[page.getChannelCount() + sharedCount];
+            this.selectedPositions = positionsRange(0, page.getPositionCount());
+        }
+
+        @Override
+        public boolean process()
+        {
+            if (result != null) {
+                return true;
+            }
+
+            while (conjunct < conjuncts.size() && !selectedPositions.isEmpty()) {
+                if (!inputSelected) {
+                    // the input channels read at this step, for the positions still selected, followed by the shared values for them
+                    for (int channel : stepInputChannels[conjunct]) {
+                        blocks[channel] = select(page.getBlock(channel), selectedPositions, page.getPositionCount());
+                    }
+                    inputSelected = true;
+                }
+
+                List<PageProjection> conjunctSubExpressions = subExpressions.get(conjunct);
+                while (subExpression < conjunctSubExpressions.size()) {
+                    if (subExpressionWork == null) {
+                        if (yieldSignal.isSet()) {
+                            return false;
+                        }
+                        Page subExpressionPage = Page.wrapBlocksWithoutCopy(selectedPositions.size(), blocks).extractChannels(subExpressionChannels[conjunct][subExpression]);
+                        subExpressionWork = conjunctSubExpressions.get(subExpression).project(properties, yieldSignal, subExpressionPage, positionsRange(0, selectedPositions.size()));
+                    }
+                    if (!subExpressionWork.process()) {
+                        return false;
+                    }
+                    blocks[page.getChannelCount() + shared] = getOnlyElement(subExpressionWork.getResult());
+                    subExpressionWork = null;
+                    shared++;
+                    subExpression++;
+                    computedPositions += selectedPositions.size();
+                }
+
+                Page conjunctPage = Page.wrapBlocksWithoutCopy(selectedPositions.size(), blocks).extractChannels(conjunctChannels[conjunct]);
+                SelectedPositions conjunctPositions = conjuncts.get(conjunct).filter(properties, conjunctPage);
+                for (int value = 0; value < shared; value++) {
+                    int channel = page.getChannelCount() + value;
+                    blocks[channel] = select(blocks[channel], conjunctPositions, selectedPositions.size());
+                }
+                selectedPositions = compose(selectedPositions, conjunctPositions);
+                conjunct++;
+                inputSelected = false;
+                subExpression = 0;
+            }
+
+            sharedValues = new Block[sharedCount];
+            System.arraycopy(blocks, page.getChannelCount(), sharedValues, 0, shared);
+            sharedPositions = selectedPositions;
+            result = selectedPositions;
+            return true;
+        }
+
+        @Override
+        public SelectedPositions getResult()
+        {
+            checkState(result != null, "filter has not finished");
+            return result;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.facebook.presto.operator.OperatorContext;
 import com.facebook.presto.operator.OperatorFactory;
 import com.facebook.presto.operator.OutputFactory;
 import com.facebook.presto.operator.PartitionFunction;
+import com.facebook.presto.operator.SimpleArrayAllocator;
 import com.facebook.presto.spi.page.PagesSerde;
 import com.facebook.presto.spi.page.SerializedPage;
 import com.facebook.presto.spi.plan.PlanNodeId;
@@ -290,6 +291,8 @@ public class PartitionedOutputOperator
         private final Block[] partitionConstantBlocks; // when null, no constants are present. Only non-null elements are constants
         private final PagesSerde serde;
         private final PageBuilder[] pageBuilders;
+        // the arrays of the variable width block builders, which are reused once the pages are serialized
+        private final SimpleArrayAllocator pageBuilderAllocator;
         private final boolean replicatesAnyRow;
         private final int nullChannel; // when >= 0, send the position to every partition if this channel is null
         private final AtomicLong rowsAdded = new AtomicLong();
@@ -328,7 +331,6 @@ public class PartitionedOutputOperator
             this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
             this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
             this.systemMemoryContext = operatorContext.localSystemMemoryContext();
-            this.systemMemoryContext.setBytes(getRetainedSizeInBytes());
 
             //  Ensure partition channels align with constant arguments provided
             for (int i = 0; i < this.partitionChannels.length; i++) {
@@ -342,10 +344,13 @@ public class PartitionedOutputOperator
             int pageSize = min(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, ((int) maxMemory.toBytes()) / partitionCount);
             pageSize = max(1, pageSize);
 
+            // each variable width block builder holds three arrays, and borrows two more while it grows
+            this.pageBuilderAllocator = new SimpleArrayAllocator(max(1, partitionCount * sourceTypes.size() * 3 + 2));
             this.pageBuilders = new PageBuilder[partitionCount];
             for (int i = 0; i < partitionCount; i++) {
-                pageBuilders[i] = PageBuilder.withMaxPageSize(pageSize, sourceTypes);
+                pageBuilders[i] = PageBuilder.withArrayAllocator(pageSize, sourceTypes, pageBuilderAllocator);
             }
+            this.systemMemoryContext.setBytes(getRetainedSizeInBytes());
         }
 
         public void zeroMemoryContext()
@@ -376,7 +381,7 @@ public class PartitionedOutputOperator
          */
         public long getRetainedSizeInBytes()
         {
-            long sizeInBytes = serde.getRetainedSizeInBytes();
+            long sizeInBytes = serde.getRetainedSizeInBytes() + pageBuilderAllocator.getPooledSizeInBytes();
             if (pageBuilders != null) {
                 for (PageBuilder pageBuilder : pageBuilders) {
                     sizeInBytes += pageBuilder.getRetainedSizeInBytes();
@@ -482,6 +487,8 @@ public class PartitionedOutputOperator
                     operatorContext.recordOutput(pagePartition.getSizeInBytes(), pagePartition.getPositionCount());
 
                     outputBuffer.enqueue(operatorContext.getDriverContext().getLifespan(), partition, splitAndSerializePage(pagePartition));
+                    // the page was copied into the serialized pages
+                    partitionPageBuilder.releasePages();
                     pagesAdded.incrementAndGet();
                     rowsAdded.addAndGet(pagePartition.getPositionCount());
                 }
@@ -16,20 +16,20 @@ package com.facebook.presto.operator.scalar;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.operator.aggregation.PrimitiveTypedSet;
 import com.facebook.presto.operator.aggregation.TypedSet;
 import com.facebook.presto.spi.function.Description;
 import com.facebook.presto.spi.function.OperatorDependency;
 import com.facebook.presto.spi.function.ScalarFunction;
 import com.facebook.presto.spi.function.SqlType;
 import com.facebook.presto.spi.function.TypeParameter;
-import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
-import it.unimi.dsi.fastutil.longs.LongSet;
 
 import java.lang.invoke.MethodHandle;
+import java.util.Optional;
 
 import static com.facebook.presto.common.function.OperatorType.IS_DISTINCT_FROM;
-import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.TypeUtils.readNativeValue;
+import static com.facebook.presto.operator.aggregation.TypedSet.MAX_FUNCTION_MEMORY;
 import static com.facebook.presto.util.Failures.internalError;
 import static com.google.common.base.Defaults.defaultValue;
 
@@ -37,11 +37,18 @@ import static com.google.common.base.Defaults.defaultValue;
 @Description("Remove duplicate values from the given array")
 public final class ArrayDistinctFunction
 {
-    private ArrayDistinctFunction() {}
+    // reused across rows, or null if the element type is not supported
+    private final PrimitiveTypedSet primitiveSet;
+
+    @TypeParameter("E")
+    public ArrayDistinctFunction(@TypeParameter("E") Type elementType)
+    {
+        primitiveSet = PrimitiveTypedSet.isSupported(elementType) ? new PrimitiveTypedSet(elementType, "array_distinct", Optional.of(MAX_FUNCTION_MEMORY)) : null;
+    }
 
     @TypeParameter("E")
     @SqlType("array(E)")
-    public static Block distinct(
+    public Block distinct(
             @TypeParameter("E") Type type,
             @OperatorDependency(operator = IS_DISTINCT_FROM, argumentTypes = {"E", "E"}) MethodHandle elementIsDistinctFrom,
             @SqlType("array(E)") Block array)
@@ -51,6 +58,13 @@ public final class ArrayDistinctFunction
             return array;
         }
 
+        if (primitiveSet != null) {
+            // the block of the array is returned when all elements are distinct
+            primitiveSet.reset(arrayLength);
+            primitiveSet.union(array);
+            return primitiveSet.getBlock();
+        }
+
         if (arrayLength == 2) {
             boolean firstValueNull = array.isNull(0);
             Object firstValue = firstValueNull ? defaultValue(type.getJavaType()) : readNativeValue(type, array, 0);
@@ -124,84 +138,4 @@ public final class ArrayDistinctFunction
 
         return distinctElementBlockBuilder.build();
     }
-
-    @SqlType("array(bigint)")
-    public static Block bigintDistinct(@SqlType("array(bigint)") Block array)
-    {
-        final int arrayLength = array.getPositionCount();
-        if (arrayLength < 2) {
-            return array;
-        }
-
-        BlockBuilder distinctElementBlockBuilder;
-        LongSet set = new LongOpenHashSet(arrayLength);
-
-        if (array.mayHaveNull()) {
-            int position = 0;
-            boolean containsNull = false;
-
-            // Keep adding the element to the set as long as there are no dupes.
-            while (position < arrayLength) {
-                if (array.isNull(position)) {
-                    if (!containsNull) {
-                        containsNull = true;
-                    }
-                    else {
-                        // Second null.
-                        break;
-                    }
-                }
-                else if (!set.add(BIGINT.getLong(array, position))) {
-                    // Dupe found.
-                    break;
-                }
-                position++;
-            }
-
-            if (position == arrayLength) {
-                // All elements are distinct, so just return the original.
-                return array;
-            }
-
-            distinctElementBlockBuilder = BIGINT.createBlockBuilder(null, arrayLength);
-            for (int i = 0; i < position; i++) {
-                BIGINT.appendTo(array, i, distinctElementBlockBuilder);
-            }
-
-            for (position++; position < arrayLength; position++) {
-                if (array.isNull(position)) {
-                    if (!containsNull) {
-                        BIGINT.appendTo(array, position, distinctElementBlockBuilder);
-                    }
-                }
-                else if (set.add(BIGINT.getLong(array, position))) {
-                    BIGINT.appendTo(array, position, distinctElementBlockBuilder);
-                }
-            }
-        }
-        else {
-            int position = 0;
-            // Keep adding the element to the set as long as there are no dupes.
-            while (position < arrayLength && set.add(BIGINT.getLong(array, position))) {
-                position++;
-            }
-            if (position == arrayLength) {
-                // All elements are distinct, so just return the original.
-                return array;
-            }
-
-            distinctElementBlockBuilder = BIGINT.createBlockBuilder(null, arrayLength);
-            for (int i = 0; i < position; i++) {
-                BIGINT.appendTo(array, i, distinctElementBlockBuilder);
-            }
-
-            for (position++; position < arrayLength; position++) {
-                if (set.add(BIGINT.getLong(array, position))) {
-                    BIGINT.appendTo(array, position, distinctElementBlockBuilder);
-                }
-            }
-        }
-
-        return distinctElementBlockBuilder.build();
-    }
 }
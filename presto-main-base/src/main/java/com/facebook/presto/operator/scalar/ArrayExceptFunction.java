@@ -16,6 +16,7 @@ package com.facebook.presto.operator.scalar;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.operator.aggregation.OptimizedTypedSet;
+import com.facebook.presto.operator.aggregation.PrimitiveTypedSet;
 import com.facebook.presto.spi.function.Description;
 import com.facebook.presto.spi.function.OperatorDependency;
 import com.facebook.presto.spi.function.ScalarFunction;
@@ -31,11 +32,18 @@ import static java.lang.Math.max;
 @Description("Returns an array of elements that are in the first array but not the second, without duplicates.")
 public final class ArrayExceptFunction
 {
-    private ArrayExceptFunction() {}
+    // reused across rows, or null if the element type is not supported
+    private final PrimitiveTypedSet primitiveSet;
+
+    @TypeParameter("E")
+    public ArrayExceptFunction(@TypeParameter("E") Type elementType)
+    {
+        primitiveSet = PrimitiveTypedSet.isSupported(elementType) ? new PrimitiveTypedSet(elementType) : null;
+    }
 
     @TypeParameter("E")
     @SqlType("array(E)")
-    public static Block except(
+    public Block except(
             @TypeParameter("E") Type type,
             @OperatorDependency(operator = IS_DISTINCT_FROM, argumentTypes = {"E", "E"}) MethodHandle elementIsDistinctFrom,
             @SqlType("array(E)") Block leftArray,
@@ -48,6 +56,13 @@ public final class ArrayExceptFunction
             return leftArray;
         }
 
+        if (primitiveSet != null) {
+            primitiveSet.reset(max(leftPositionCount, rightPositionCount));
+            primitiveSet.union(rightArray);
+            primitiveSet.except(leftArray);
+            return primitiveSet.getBlock();
+        }
+
         OptimizedTypedSet typedSet = new OptimizedTypedSet(type, elementIsDistinctFrom, max(leftPositionCount, rightPositionCount));
         typedSet.union(rightArray);
         typedSet.except(leftArray);
@@ -16,6 +16,7 @@ package com.facebook.presto.operator.scalar;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.operator.aggregation.OptimizedTypedSet;
+import com.facebook.presto.operator.aggregation.PrimitiveTypedSet;
 import com.facebook.presto.spi.function.Description;
 import com.facebook.presto.spi.function.OperatorDependency;
 import com.facebook.presto.spi.function.ScalarFunction;
@@ -26,15 +27,22 @@ import java.lang.invoke.MethodHandle;
 
 import static com.facebook.presto.common.function.OperatorType.IS_DISTINCT_FROM;
 
+@ScalarFunction("array_intersect")
+@Description("Intersects elements of the two given arrays")
 public final class ArrayIntersectFunction
 {
-    private ArrayIntersectFunction() {}
+    // reused across rows, or null if the element type is not supported
+    private final PrimitiveTypedSet primitiveSet;
+
+    @TypeParameter("E")
+    public ArrayIntersectFunction(@TypeParameter("E") Type elementType)
+    {
+        primitiveSet = PrimitiveTypedSet.isSupported(elementType) ? new PrimitiveTypedSet(elementType) : null;
+    }
 
-    @ScalarFunction("array_intersect")
-    @Description("Intersects elements of the two given arrays")
     @TypeParameter("E")
     @SqlType("array(E)")
-    public static Block intersect(
+    public Block intersect(
             @TypeParameter("E") Type type,
             @OperatorDependency(operator = IS_DISTINCT_FROM, argumentTypes = {"E", "E"}) MethodHandle elementIsDistinctFrom,
             @SqlType("array(E)") Block leftArray,
@@ -52,6 +60,13 @@ public final class ArrayIntersectFunction
             return rightArray;
         }
 
+        if (primitiveSet != null) {
+            primitiveSet.reset(rightPositionCount);
+            primitiveSet.union(rightArray);
+            primitiveSet.intersect(leftArray);
+            return primitiveSet.getBlock();
+        }
+
         OptimizedTypedSet typedSet = new OptimizedTypedSet(type, elementIsDistinctFrom, rightPositionCount);
         typedSet.union(rightArray);
         typedSet.intersect(leftArray);
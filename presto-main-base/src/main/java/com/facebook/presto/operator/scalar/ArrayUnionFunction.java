@@ -16,6 +16,7 @@ package com.facebook.presto.operator.scalar;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.operator.aggregation.OptimizedTypedSet;
+import com.facebook.presto.operator.aggregation.PrimitiveTypedSet;
 import com.facebook.presto.spi.function.Description;
 import com.facebook.presto.spi.function.OperatorDependency;
 import com.facebook.presto.spi.function.ScalarFunction;
@@ -30,11 +31,18 @@ import static com.facebook.presto.common.function.OperatorType.IS_DISTINCT_FROM;
 @Description("Union elements of the two given arrays")
 public final class ArrayUnionFunction
 {
-    private ArrayUnionFunction() {}
+    // reused across rows, or null if the element type is not supported
+    private final PrimitiveTypedSet primitiveSet;
+
+    @TypeParameter("E")
+    public ArrayUnionFunction(@TypeParameter("E") Type elementType)
+    {
+        primitiveSet = PrimitiveTypedSet.isSupported(elementType) ? new PrimitiveTypedSet(elementType) : null;
+    }
 
     @TypeParameter("E")
     @SqlType("array(E)")
-    public static Block union(
+    public Block union(
             @TypeParameter("E") Type type,
             @OperatorDependency(operator = IS_DISTINCT_FROM, argumentTypes = {"E", "E"}) MethodHandle elementIsDistinctFrom,
             @SqlType("array(E)") Block leftArray,
@@ -42,6 +50,13 @@ public final class ArrayUnionFunction
     {
         int leftArrayCount = leftArray.getPositionCount();
         int rightArrayCount = rightArray.getPositionCount();
+        if (primitiveSet != null) {
+            primitiveSet.reset(leftArrayCount + rightArrayCount);
+            primitiveSet.union(leftArray);
+            primitiveSet.union(rightArray);
+            return primitiveSet.getBlock();
+        }
+
         OptimizedTypedSet typedSet = new OptimizedTypedSet(type, elementIsDistinctFrom, leftArrayCount + rightArrayCount);
 
         typedSet.union(leftArray);
@@ -49,6 +64,4 @@ public final class ArrayUnionFunction
 
         return typedSet.getBlock();
     }
-
-    // TODO: Specialize for bigint using LongOpenHashSet
 }
@@ -23,10 +23,13 @@ import java.lang.invoke.MethodHandle;
 import java.util.List;
 import java.util.Optional;
 
+import static java.util.Objects.requireNonNull;
+
 public final class BuiltInScalarFunctionImplementation
         implements JavaScalarFunctionImplementation
 {
     private final List<ScalarFunctionImplementationChoice> choices;
+    private final Optional<MethodHandle> blockImplementation;
 
     public BuiltInScalarFunctionImplementation(
             boolean nullable,
@@ -65,8 +68,24 @@ public final class BuiltInScalarFunctionImplementation
      * @param choices the list of choices, ordered from generic to specific
      */
     public BuiltInScalarFunctionImplementation(List<ScalarFunctionImplementationChoice> choices)
+    {
+        this(choices, Optional.empty());
+    }
+
+    private BuiltInScalarFunctionImplementation(List<ScalarFunctionImplementationChoice> choices, Optional<MethodHandle> blockImplementation)
     {
         this.choices = ImmutableList.copyOf(choices);
+        this.blockImplementation = requireNonNull(blockImplementation, "blockImplementation is null");
+    }
+
+    /**
+     * Returns a copy of this implementation that also evaluates the function over whole blocks with the
+     * given {@link com.facebook.presto.spi.function.BlockImplementation} method handle, which takes the
+     * {@code SqlFunctionProperties} as its first argument.
+     */
+    public BuiltInScalarFunctionImplementation withBlockImplementation(MethodHandle blockImplementation)
+    {
+        return new BuiltInScalarFunctionImplementation(choices, Optional.of(blockImplementation));
     }
 
     public ArgumentProperty getArgumentProperty(int argumentIndex)
@@ -101,4 +120,9 @@ public final class BuiltInScalarFunctionImplementation
     {
         return choices;
     }
+
+    public Optional<MethodHandle> getBlockImplementation()
+    {
+        return blockImplementation;
+    }
 }
@@ -20,6 +20,7 @@ import com.facebook.presto.spi.function.LiteralParameters;
 import com.facebook.presto.spi.function.ScalarOperator;
 import com.facebook.presto.spi.function.SqlType;
 import com.facebook.presto.type.JoniRegexpType;
+import com.facebook.presto.type.LiteralPatternMatcher;
 import io.airlift.jcodings.specific.NonStrictUTF8Encoding;
 import io.airlift.joni.Option;
 import io.airlift.joni.Regex;
@@ -61,6 +62,8 @@ public final class JoniRegexpCasts
         catch (Exception e) {
             throw new PrestoException(INVALID_FUNCTION_ARGUMENT, e);
         }
+        // literals and alternations of literals are found without the regex engine by regexp_like
+        LiteralPatternMatcher.forRegexp(pattern.toStringUtf8()).ifPresent(regex::setUserObject);
         return regex;
     }
 }
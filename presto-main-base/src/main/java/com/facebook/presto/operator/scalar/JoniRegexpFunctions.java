@@ -25,6 +25,7 @@ import com.facebook.presto.spi.function.SqlNullable;
 import com.facebook.presto.spi.function.SqlType;
 import com.facebook.presto.type.Constraint;
 import com.facebook.presto.type.JoniRegexpType;
+import com.facebook.presto.type.LiteralPatternMatcher;
 import io.airlift.joni.Matcher;
 import io.airlift.joni.Regex;
 import io.airlift.joni.Region;
@@ -59,6 +60,11 @@ public final class JoniRegexpFunctions
     @SqlType(StandardTypes.BOOLEAN)
     public static boolean regexpLike(@SqlType("varchar(x)") Slice source, @SqlType(JoniRegexpType.NAME) Regex pattern)
     {
+        Object literalMatcher = pattern.getUserObject();
+        if (literalMatcher instanceof LiteralPatternMatcher) {
+            return ((LiteralPatternMatcher) literalMatcher).matches(source);
+        }
+
         Matcher matcher;
         int offset;
         if (source.hasByteArray()) {
@@ -43,6 +43,7 @@ import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
 import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
 import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
 import static com.fasterxml.jackson.databind.SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS;
+import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.slice.Slices.utf8Slice;
 import static java.util.Objects.requireNonNull;
 
@@ -134,7 +135,7 @@ public final class JsonExtract
     {
         requireNonNull(jsonInput, "jsonInput is null");
         try {
-            return jsonExtractor.extract(jsonInput.getInput(), properties);
+            return jsonExtractor.extract(jsonInput, properties);
         }
         catch (JsonParseException e) {
             // Return null if we failed to parse something
@@ -165,6 +166,12 @@ public final class JsonExtract
     {
         T extract(InputStream inputStream, SqlFunctionProperties properties)
                 throws IOException;
+
+        default T extract(Slice jsonInput, SqlFunctionProperties properties)
+                throws IOException
+        {
+            return extract(jsonInput.getInput(), properties);
+        }
     }
 
     public abstract static class PrestoJsonExtractor<T>
@@ -299,6 +306,41 @@ public final class JsonExtract
         }
     }
 
+    /**
+     * Extracts a scalar value with a {@link JsonPathScanner}, and with the delegate when the scanner gives up on the input.
+     */
+    public static class ScanningScalarJsonExtractor
+            implements JsonExtractor<Slice>
+    {
+        private final JsonPathScanner scanner;
+        private final JsonExtractor<Slice> delegate;
+
+        public ScanningScalarJsonExtractor(JsonPathScanner scanner, JsonExtractor<Slice> delegate)
+        {
+            this.scanner = requireNonNull(scanner, "scanner is null");
+            this.delegate = requireNonNull(delegate, "delegate is null");
+            checkArgument(scanner.getPathCount() == 1, "scanner must have a single path");
+        }
+
+        @Override
+        public Slice extract(InputStream inputStream, SqlFunctionProperties properties)
+                throws IOException
+        {
+            return delegate.extract(inputStream, properties);
+        }
+
+        @Override
+        public Slice extract(Slice jsonInput, SqlFunctionProperties properties)
+                throws IOException
+        {
+            Slice[] values = scanner.scan(jsonInput);
+            if (values == null) {
+                return delegate.extract(jsonInput, properties);
+            }
+            return values[0];
+        }
+    }
+
     public static class JsonValueJsonExtractor
             extends PrestoJsonExtractor<Slice>
     {
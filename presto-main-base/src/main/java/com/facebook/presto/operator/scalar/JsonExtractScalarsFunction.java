@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.scalar;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.type.StandardTypes;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.function.Description;
+import com.facebook.presto.spi.function.LiteralParameters;
+import com.facebook.presto.spi.function.ScalarFunction;
+import com.facebook.presto.spi.function.SqlNullable;
+import com.facebook.presto.spi.function.SqlType;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+import static com.facebook.presto.spi.function.SqlFunctionVisibility.HIDDEN;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.String.format;
+
+/**
+ * Extracts the scalar values of several JSON paths with a single scan of the document. The result has the value of
+ * json_extract_scalar for each path. The paths are expected to be the same for every row, so the scanner is kept
+ * for the last paths seen.
+ */
+public final class JsonExtractScalarsFunction
+{
+    private JsonExtractScalarsFunction() {}
+
+    @ScalarFunction(value = "json_extract_scalars", visibility = HIDDEN)
+    @Description("extracts the scalar values of several JSON paths")
+    public static final class VarcharJsonExtractScalars
+    {
+        private final PathsExtractor extractor = new PathsExtractor();
+
+        public VarcharJsonExtractScalars() {}
+
+        @LiteralParameters("x")
+        @SqlNullable
+        @SqlType("array(varchar)")
+        public Block varcharJsonExtractScalars(SqlFunctionProperties properties, @SqlType("varchar(x)") Slice json, @SqlType("array(varchar)") Block paths)
+        {
+            return extractor.extract(properties, json, paths);
+        }
+    }
+
+    @ScalarFunction(value = "json_extract_scalars", visibility = HIDDEN)
+    @Description("extracts the scalar values of several JSON paths")
+    public static final class JsonExtractScalars
+    {
+        private final PathsExtractor extractor = new PathsExtractor();
+
+        public JsonExtractScalars() {}
+
+        @SqlNullable
+        @SqlType("array(varchar)")
+        public Block jsonExtractScalars(SqlFunctionProperties properties, @SqlType(StandardTypes.JSON) Slice json, @SqlType("array(varchar)") Block paths)
+        {
+            return extractor.extract(properties, json, paths);
+        }
+    }
+
+    private static final class PathsExtractor
+    {
+        private Block paths;
+        private JsonPathScanner scanner;
+        private List<JsonExtract.JsonExtractor<Slice>> extractors;
+
+        public Block extract(SqlFunctionProperties properties, Slice json, Block paths)
+        {
+            if (paths != this.paths) {
+                setPaths(paths);
+            }
+
+            Slice[] values = scanner.scan(json);
+            BlockBuilder blockBuilder = VARCHAR.createBlockBuilder(null, extractors.size());
+            for (int path = 0; path < extractors.size(); path++) {
+                Slice value = values == null ? JsonExtract.extract(json, extractors.get(path), properties) : values[path];
+                if (value == null) {
+                    blockBuilder.appendNull();
+                }
+                else {
+                    VARCHAR.writeSlice(blockBuilder, value);
+                }
+            }
+            return blockBuilder.build();
+        }
+
+        private void setPaths(Block paths)
+        {
+            ImmutableList.Builder<String> patterns = ImmutableList.builder();
+            for (int position = 0; position < paths.getPositionCount(); position++) {
+                if (paths.isNull(position)) {
+                    throw new PrestoException(INVALID_FUNCTION_ARGUMENT, "JSON path is null");
+                }
+                patterns.add(VARCHAR.getSlice(paths, position).toStringUtf8());
+            }
+            List<String> patternList = patterns.build();
+
+            Optional<JsonPathScanner> scanner;
+            try {
+                scanner = JsonPathScanner.create(patternList);
+            }
+            catch (PrestoException e) {
+                // not Presto JSON paths
+                scanner = Optional.empty();
+            }
+            this.scanner = scanner.orElseThrow(() -> new PrestoException(INVALID_FUNCTION_ARGUMENT, format("JSON paths cannot be extracted together: %s", patternList)));
+            this.extractors = patternList.stream()
+                    .map(pattern -> JsonExtract.generateExtractor(pattern, new JsonExtract.ScalarValueJsonExtractor()))
+                    .collect(toImmutableList());
+            this.paths = paths;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.facebook.presto.common.function.SqlFunctionProperties;
 import com.facebook.presto.spi.PrestoException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
@@ -26,6 +27,7 @@ import io.airlift.slice.Slice;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Optional;
 
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
 import static io.airlift.slice.Slices.utf8Slice;
@@ -132,7 +134,12 @@ public class JsonPath
 
     private static JsonPath buildPresto(String pattern)
     {
-        return new JsonPath(JsonExtract.generateExtractor(pattern, new JsonExtract.ScalarValueJsonExtractor()),
+        JsonExtract.JsonExtractor<Slice> scalarExtractor = JsonExtract.generateExtractor(pattern, new JsonExtract.ScalarValueJsonExtractor());
+        Optional<JsonPathScanner> scanner = JsonPathScanner.create(ImmutableList.of(pattern));
+        if (scanner.isPresent()) {
+            scalarExtractor = new JsonExtract.ScanningScalarJsonExtractor(scanner.get(), scalarExtractor);
+        }
+        return new JsonPath(scalarExtractor,
                 JsonExtract.generateExtractor(pattern, new JsonExtract.JsonValueJsonExtractor()),
                 JsonExtract.generateExtractor(pattern, new JsonExtract.JsonSizeExtractor()));
     }
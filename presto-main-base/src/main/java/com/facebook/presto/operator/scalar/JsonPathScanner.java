@@ -0,0 +1,717 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.scalar;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.util.List;
+import java.util.Optional;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Extracts the scalar values of several JSON paths from the UTF-8 bytes of a document in a single pass,
+ * without a JSON parser. Only the members and elements on the paths are looked at in detail: other values
+ * are skipped, and the bytes of strings are scanned eight at a time for the quote, the backslash and the
+ * control characters. Field names and values without escapes are not decoded, and values are returned as
+ * slices of the document.
+ * <p>
+ * The results are the same as those of {@link JsonExtract.ScalarValueJsonExtractor}. The scanner gives up,
+ * and {@link #scan} returns null, on any input where that is not obviously the case: malformed documents,
+ * escaped field names, invalid UTF-8 in a value, surrogate escapes, very deep nesting and long numbers.
+ * The caller then extracts the values with Jackson.
+ */
+public final class JsonPathScanner
+{
+    public static final int MAX_PATHS = Long.SIZE;
+
+    // Jackson fails on deeper documents, so leave them to it
+    private static final int MAX_DEPTH = 500;
+    private static final int MAX_NUMBER_LENGTH = 100;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long QUOTES = ONES * '"';
+    private static final long BACKSLASHES = ONES * '\\';
+    private static final long SPACES = ONES * ' ';
+
+    private static final Slice TRUE = utf8Slice("true");
+    private static final Slice FALSE = utf8Slice("false");
+    private static final Slice NULL = utf8Slice("null");
+
+    private final Slice[][] fieldNames;
+    private final int[][] indexes;
+    private final long allPaths;
+
+    private JsonPathScanner(Slice[][] fieldNames, int[][] indexes)
+    {
+        this.fieldNames = requireNonNull(fieldNames, "fieldNames is null");
+        this.indexes = requireNonNull(indexes, "indexes is null");
+        this.allPaths = fieldNames.length == MAX_PATHS ? -1L : (1L << fieldNames.length) - 1;
+    }
+
+    /**
+     * Returns a scanner for the paths, or empty if a path cannot be scanned. Paths that are not valid
+     * Presto JSON paths fail like in {@link JsonExtract#generateExtractor}.
+     */
+    public static Optional<JsonPathScanner> create(List<String> paths)
+    {
+        if (paths.isEmpty() || paths.size() > MAX_PATHS) {
+            return Optional.empty();
+        }
+        Slice[][] fieldNames = new Slice[paths.size()][];
+        int[][] indexes = new int[paths.size()][];
+        for (int path = 0; path < paths.size(); path++) {
+            List<String> tokens = ImmutableList.copyOf(new JsonPathTokenizer(paths.get(path)));
+            fieldNames[path] = new Slice[tokens.size()];
+            indexes[path] = new int[tokens.size()];
+            for (int step = 0; step < tokens.size(); step++) {
+                String token = tokens.get(step);
+                Slice fieldName = utf8Slice(token);
+                // the replacement character in a name could match a field name with invalid UTF-8, which is compared as bytes here
+                if (token.indexOf('\uFFFD') >= 0 || !fieldName.toStringUtf8().equals(token)) {
+                    return Optional.empty();
+                }
+                fieldNames[path][step] = fieldName;
+                indexes[path][step] = tryParseInt(token);
+            }
+        }
+        return Optional.of(new JsonPathScanner(fieldNames, indexes));
+    }
+
+    public int getPathCount()
+    {
+        return fieldNames.length;
+    }
+
+    /**
+     * Returns the value of each path in the document, with null for a path that has no scalar value,
+     * or returns null if the document must be parsed with Jackson instead.
+     */
+    public Slice[] scan(Slice json)
+    {
+        Scan scan = new Scan(json, fieldNames.length);
+        if (!scan.scanDocument()) {
+            return null;
+        }
+        return scan.results;
+    }
+
+    private final class Scan
+    {
+        private final Slice json;
+        private final int length;
+        private final Slice[] results;
+        private long unresolved = allPaths;
+        private int position;
+
+        // set by scanString
+        private boolean escaped;
+        private boolean nonAscii;
+
+        private Scan(Slice json, int pathCount)
+        {
+            this.json = requireNonNull(json, "json is null");
+            this.length = json.length();
+            this.results = new Slice[pathCount];
+        }
+
+        private boolean scanDocument()
+        {
+            skipWhitespace();
+            if (position == length) {
+                // an empty document has no values
+                return true;
+            }
+            return scanValue(0, allPaths, true);
+        }
+
+        /**
+         * Scans the value at the current position for the active paths, which matched the first {@code depth} steps.
+         * Every active path is resolved when this returns true.
+         */
+        private boolean scanValue(int depth, long active, boolean root)
+        {
+            if (depth > MAX_DEPTH) {
+                return false;
+            }
+            long targets = 0;
+            for (long remaining = active; remaining != 0; remaining &= remaining - 1) {
+                int path = Long.numberOfTrailingZeros(remaining);
+                if (fieldNames[path].length == depth) {
+                    targets |= 1L << path;
+                }
+            }
+            long descending = active & ~targets;
+
+            byte value = json.getByte(position);
+            if (value == '{' || value == '[') {
+                // a container is not a scalar value
+                resolve(targets, null);
+                if (unresolved == 0) {
+                    return true;
+                }
+                if (descending == 0) {
+                    return skipValue(depth);
+                }
+                return value == '{' ? scanObject(depth, descending) : scanArray(depth, descending);
+            }
+
+            int start = position;
+            Slice result;
+            if (value == '"') {
+                position++;
+                if (!scanString()) {
+                    return false;
+                }
+                result = targets == 0 ? null : stringValue(start + 1, position - 1);
+                if (targets != 0 && result == null) {
+                    return false;
+                }
+            }
+            else {
+                if (!scanLiteral() || !isScalarEnd(root)) {
+                    return false;
+                }
+                result = json.getByte(start) == 'n' ? null : json.slice(start, position - start);
+            }
+            resolve(targets, result);
+            // a scalar has no members or elements
+            resolve(descending, null);
+            return true;
+        }
+
+        private boolean scanObject(int depth, long active)
+        {
+            // skip the brace
+            position++;
+            skipWhitespace();
+            if (position < length && json.getByte(position) == '}') {
+                position++;
+                resolve(active, null);
+                return true;
+            }
+            while (true) {
+                if (position == length || json.getByte(position) != '"') {
+                    return false;
+                }
+                int nameStart = ++position;
+                if (!scanString() || escaped) {
+                    return false;
+                }
+                int nameLength = position - 1 - nameStart;
+                skipWhitespace();
+                if (position == length || json.getByte(position) != ':') {
+                    return false;
+                }
+                position++;
+                skipWhitespace();
+                if (position == length) {
+                    return false;
+                }
+
+                // paths that matched an earlier member with the same name are resolved, so only the first member is used
+                active &= unresolved;
+                long matched = 0;
+                for (long remaining = active; remaining != 0; remaining &= remaining - 1) {
+                    int path = Long.numberOfTrailingZeros(remaining);
+                    Slice fieldName = fieldNames[path][depth];
+                    if (fieldName.length() == nameLength && json.equals(nameStart, nameLength, fieldName, 0, nameLength)) {
+                        matched |= 1L << path;
+                    }
+                }
+                if (!(matched == 0 ? skipValue(depth + 1) : scanValue(depth + 1, matched, false))) {
+                    return false;
+                }
+                if (unresolved == 0) {
+                    return true;
+                }
+
+                skipWhitespace();
+                if (position == length) {
+                    return false;
+                }
+                byte next = json.getByte(position++);
+                if (next == '}') {
+                    resolve(active, null);
+                    return true;
+                }
+                if (next != ',') {
+                    return false;
+                }
+                skipWhitespace();
+            }
+        }
+
+        private boolean scanArray(int depth, long active)
+        {
+            // skip the bracket
+            position++;
+            skipWhitespace();
+            if (position < length && json.getByte(position) == ']') {
+                position++;
+                resolve(active, null);
+                return true;
+            }
+            int index = 0;
+            while (true) {
+                if (position == length) {
+                    return false;
+                }
+                active &= unresolved;
+                long matched = 0;
+                for (long remaining = active; remaining != 0; remaining &= remaining - 1) {
+                    int path = Long.numberOfTrailingZeros(remaining);
+                    if (indexes[path][depth] == index) {
+                        matched |= 1L << path;
+                    }
+                }
+                if (!(matched == 0 ? skipValue(depth + 1) : scanValue(depth + 1, matched, false))) {
+                    return false;
+                }
+                if (unresolved == 0) {
+                    return true;
+                }
+                index++;
+
+                skipWhitespace();
+                if (position == length) {
+                    return false;
+                }
+                byte next = json.getByte(position++);
+                if (next == ']') {
+                    resolve(active, null);
+                    return true;
+                }
+                if (next != ',') {
+                    return false;
+                }
+                skipWhitespace();
+            }
+        }
+
+        /**
+         * Skips the value at the current position, checking that it is well-formed.
+         */
+        private boolean skipValue(int depth)
+        {
+            if (depth > MAX_DEPTH) {
+                return false;
+            }
+            byte value = json.getByte(position);
+            if (value == '"') {
+                position++;
+                return scanString();
+            }
+            if (value != '{' && value != '[') {
+                return scanLiteral() && isScalarEnd(depth == 0);
+            }
+
+            boolean object = value == '{';
+            byte end = object ? (byte) '}' : (byte) ']';
+            position++;
+            skipWhitespace();
+            if (position < length && json.getByte(position) == end) {
+                position++;
+                return true;
+            }
+            while (true) {
+                if (position == length) {
+                    return false;
+                }
+                if (object) {
+                    if (json.getByte(position) != '"') {
+                        return false;
+                    }
+                    position++;
+                    if (!scanString()) {
+                        return false;
+                    }
+                    skipWhitespace();
+                    if (position == length || json.getByte(position) != ':') {
+                        return false;
+                    }
+                    position++;
+                    skipWhitespace();
+                    if (position == length) {
+                        return false;
+                    }
+                }
+                if (!skipValue(depth + 1)) {
+                    return false;
+                }
+                skipWhitespace();
+                if (position == length) {
+                    return false;
+                }
+                byte next = json.getByte(position++);
+                if (next == end) {
+                    return true;
+                }
+                if (next != ',') {
+                    return false;
+                }
+                skipWhitespace();
+            }
+        }
+
+        /**
+         * Moves past the closing quote of the string which starts at the current position,
+         * and records whether the string has escapes or non-ASCII bytes.
+         */
+        private boolean scanString()
+        {
+            escaped = false;
+            nonAscii = false;
+            while (true) {
+                // find the next quote, backslash or control character, eight bytes at a time
+                while (position + SIZE_OF_LONG <= length) {
+                    long word = json.getLong(position);
+                    long special = hasZeroByte(word ^ QUOTES) | hasZeroByte(word ^ BACKSLASHES) | hasByteLessThanSpace(word);
+                    if (special != 0) {
+                        nonAscii |= (word & HIGH_BITS & lowerBytesMask(special)) != 0;
+                        position += Long.numberOfTrailingZeros(special) >>> 3;
+                        break;
+                    }
+                    nonAscii |= (word & HIGH_BITS) != 0;
+                    position += SIZE_OF_LONG;
+                }
+                if (position == length) {
+                    return false;
+                }
+
+                byte current = json.getByte(position++);
+                if (current == '"') {
+                    return true;
+                }
+                if (current == '\\') {
+                    escaped = true;
+                    if (!skipEscape()) {
+                        return false;
+                    }
+                }
+                else if ((current & 0xFF) < ' ') {
+                    // control characters must be escaped
+                    return false;
+                }
+                else if (current < 0) {
+                    nonAscii = true;
+                }
+            }
+        }
+
+        private boolean skipEscape()
+        {
+            if (position == length) {
+                return false;
+            }
+            switch (json.getByte(position++)) {
+                case '"':
+                case '\\':
+                case '/':
+                case 'b':
+                case 'f':
+                case 'n':
+                case 'r':
+                case 't':
+                    return true;
+                case 'u':
+                    if (position + 4 > length) {
+                        return false;
+                    }
+                    for (int i = 0; i < 4; i++) {
+                        if (hexValue(json.getByte(position++)) < 0) {
+                            return false;
+                        }
+                    }
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Returns the value of the string between the quotes, or null if it must be decoded by Jackson.
+         */
+        private Slice stringValue(int start, int end)
+        {
+            if (nonAscii && !isValidUtf8(json, start, end)) {
+                return null;
+            }
+            if (!escaped) {
+                return json.slice(start, end - start);
+            }
+
+            byte[] decoded = new byte[end - start];
+            int size = 0;
+            int index = start;
+            while (index < end) {
+                byte current = json.getByte(index++);
+                if (current != '\\') {
+                    decoded[size++] = current;
+                    continue;
+                }
+                byte escape = json.getByte(index++);
+                switch (escape) {
+                    case 'b':
+                        decoded[size++] = '\b';
+                        break;
+                    case 'f':
+                        decoded[size++] = '\f';
+                        break;
+                    case 'n':
+                        decoded[size++] = '\n';
+                        break;
+                    case 'r':
+                        decoded[size++] = '\r';
+                        break;
+                    case 't':
+                        decoded[size++] = '\t';
+                        break;
+                    case 'u':
+                        int codePoint = 0;
+                        for (int i = 0; i < 4; i++) {
+                            codePoint = (codePoint << 4) | hexValue(json.getByte(index++));
+                        }
+                        if (Character.isSurrogate((char) codePoint)) {
+                            return null;
+                        }
+                        // the six bytes of the escape hold the at most three bytes of the character
+                        if (codePoint < 0x80) {
+                            decoded[size++] = (byte) codePoint;
+                        }
+                        else if (codePoint < 0x800) {
+                            decoded[size++] = (byte) (0xC0 | (codePoint >>> 6));
+                            decoded[size++] = (byte) (0x80 | (codePoint & 0x3F));
+                        }
+                        else {
+                            decoded[size++] = (byte) (0xE0 | (codePoint >>> 12));
+                            decoded[size++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+                            decoded[size++] = (byte) (0x80 | (codePoint & 0x3F));
+                        }
+                        break;
+                    default:
+                        // quote, backslash and slash
+                        decoded[size++] = escape;
+                }
+            }
+            return Slices.wrappedBuffer(decoded, 0, size);
+        }
+
+        /**
+         * Moves past the number, true, false or null at the current position.
+         */
+        private boolean scanLiteral()
+        {
+            byte first = json.getByte(position);
+            if (first == 't') {
+                return matchLiteral(TRUE);
+            }
+            if (first == 'f') {
+                return matchLiteral(FALSE);
+            }
+            if (first == 'n') {
+                return matchLiteral(NULL);
+            }
+
+            int start = position;
+            if (first == '-') {
+                position++;
+            }
+            if (position == length) {
+                return false;
+            }
+            if (json.getByte(position) == '0') {
+                position++;
+            }
+            else if (!skipDigits()) {
+                return false;
+            }
+            if (position < length && json.getByte(position) == '.') {
+                position++;
+                if (!skipDigits()) {
+                    return false;
+                }
+            }
+            if (position < length && (json.getByte(position) == 'e' || json.getByte(position) == 'E')) {
+                position++;
+                if (position < length && (json.getByte(position) == '+' || json.getByte(position) == '-')) {
+                    position++;
+                }
+                if (!skipDigits()) {
+                    return false;
+                }
+            }
+            return position - start <= MAX_NUMBER_LENGTH;
+        }
+
+        private boolean matchLiteral(Slice literal)
+        {
+            int literalLength = literal.length();
+            if (position + literalLength > length || !json.equals(position, literalLength, literal, 0, literalLength)) {
+                return false;
+            }
+            position += literalLength;
+            return true;
+        }
+
+        private boolean skipDigits()
+        {
+            int start = position;
+            while (position < length && isDigit(json.getByte(position))) {
+                position++;
+            }
+            return position > start;
+        }
+
+        /**
+         * Returns whether the number or literal which ends at the current position is followed by what Jackson expects.
+         * Jackson checks the byte after a value at the top level, and inside a container it returns a value before it
+         * looks at what follows, so anything unusual there is left to it.
+         */
+        private boolean isScalarEnd(boolean root)
+        {
+            if (position == length) {
+                return root;
+            }
+            byte next = json.getByte(position);
+            return isWhitespace(next) || (!root && (next == ',' || next == '}' || next == ']'));
+        }
+
+        private void skipWhitespace()
+        {
+            while (position < length && isWhitespace(json.getByte(position))) {
+                position++;
+            }
+        }
+
+        private void resolve(long paths, Slice value)
+        {
+            paths &= unresolved;
+            for (long remaining = paths; remaining != 0; remaining &= remaining - 1) {
+                results[Long.numberOfTrailingZeros(remaining)] = value;
+            }
+            unresolved &= ~paths;
+        }
+    }
+
+    // the high bit of a byte is set if the byte is zero, and possibly for some bytes after it
+    private static long hasZeroByte(long word)
+    {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+
+    // the high bit of a byte is set if the byte is less than a space, and possibly for some bytes after it
+    private static long hasByteLessThanSpace(long word)
+    {
+        return (word - SPACES) & ~word & HIGH_BITS;
+    }
+
+    // the bytes below the lowest byte with the high bit set in the mask
+    private static long lowerBytesMask(long mask)
+    {
+        return (mask & -mask) - 1;
+    }
+
+    private static boolean isWhitespace(byte value)
+    {
+        return value == ' ' || value == '\n' || value == '\r' || value == '\t';
+    }
+
+    private static boolean isDigit(byte value)
+    {
+        return value >= '0' && value <= '9';
+    }
+
+    private static int hexValue(byte value)
+    {
+        if (value >= '0' && value <= '9') {
+            return value - '0';
+        }
+        if (value >= 'a' && value <= 'f') {
+            return value - 'a' + 10;
+        }
+        if (value >= 'A' && value <= 'F') {
+            return value - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the bytes are well-formed UTF-8, which Jackson decodes without replacement characters.
+     */
+    @VisibleForTesting
+    static boolean isValidUtf8(Slice slice, int start, int end)
+    {
+        int index = start;
+        while (index < end) {
+            int first = slice.getByte(index) & 0xFF;
+            if (first < 0x80) {
+                index++;
+                continue;
+            }
+            int size;
+            int minimum;
+            int codePoint;
+            if ((first & 0xE0) == 0xC0) {
+                size = 2;
+                minimum = 0x80;
+                codePoint = first & 0x1F;
+            }
+            else if ((first & 0xF0) == 0xE0) {
+                size = 3;
+                minimum = 0x800;
+                codePoint = first & 0x0F;
+            }
+            else if ((first & 0xF8) == 0xF0) {
+                size = 4;
+                minimum = 0x10000;
+                codePoint = first & 0x07;
+            }
+            else {
+                return false;
+            }
+            if (index + size > end) {
+                return false;
+            }
+            for (int i = 1; i < size; i++) {
+                int next = slice.getByte(index + i) & 0xFF;
+                if ((next & 0xC0) != 0x80) {
+                    return false;
+                }
+                codePoint = (codePoint << 6) | (next & 0x3F);
+            }
+            if (codePoint < minimum || codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                return false;
+            }
+            index += size;
+        }
+        return true;
+    }
+
+    private static int tryParseInt(String token)
+    {
+        try {
+            return Integer.parseInt(token);
+        }
+        catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import com.facebook.presto.common.function.SqlFunctionProperties;
 import com.facebook.presto.common.type.MapType;
 import com.facebook.presto.common.type.RowType;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.operator.aggregation.PrimitiveTypedSet;
 import com.facebook.presto.operator.aggregation.TypedSet;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.function.Description;
@@ -28,6 +29,9 @@ import com.facebook.presto.spi.function.SqlType;
 import com.facebook.presto.spi.function.TypeParameter;
 import com.google.common.collect.ImmutableList;
 
+import java.util.Optional;
+
+import static com.facebook.presto.operator.aggregation.TypedSet.MAX_FUNCTION_MEMORY;
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
 import static java.lang.String.format;
 
@@ -35,9 +39,16 @@ import static java.lang.String.format;
 @Description("construct a map from an array of entries")
 public final class MapFromEntriesFunction
 {
+    // reused across rows, or null if the key type is not supported
+    private final PrimitiveTypedSet primitiveKeys;
+
     @TypeParameter("K")
     @TypeParameter("V")
-    public MapFromEntriesFunction(@TypeParameter("map(K,V)") Type mapType) {}
+    public MapFromEntriesFunction(@TypeParameter("map(K,V)") Type mapType)
+    {
+        Type keyType = ((MapType) mapType).getKeyType();
+        primitiveKeys = PrimitiveTypedSet.isSupported(keyType) ? new PrimitiveTypedSet(keyType, "map_from_entries", Optional.of(MAX_FUNCTION_MEMORY)) : null;
+    }
 
     @TypeParameter("K")
     @TypeParameter("V")
@@ -55,7 +66,13 @@ public final class MapFromEntriesFunction
 
         BlockBuilder mapBlockBuilder = mapType.createBlockBuilder(null, block.getPositionCount());
         BlockBuilder resultBuilder = mapBlockBuilder.beginBlockEntry();
-        TypedSet uniqueKeys = new TypedSet(keyType, entryCount, "map_from_entries");
+        TypedSet uniqueKeys = null;
+        if (primitiveKeys != null) {
+            primitiveKeys.reset(entryCount);
+        }
+        else {
+            uniqueKeys = new TypedSet(keyType, entryCount, "map_from_entries");
+        }
 
         for (int i = 0; i < entryCount; i++) {
             if (block.isNull(i)) {
@@ -67,7 +84,8 @@ public final class MapFromEntriesFunction
                 throw new PrestoException(INVALID_FUNCTION_ARGUMENT, "map key cannot be null");
             }
 
-            if (!uniqueKeys.add(rowBlock, 0)) {
+            boolean added = primitiveKeys != null ? primitiveKeys.add(rowBlock, 0) : uniqueKeys.add(rowBlock, 0);
+            if (!added) {
                 throw new PrestoException(INVALID_FUNCTION_ARGUMENT, format("Duplicate keys (%s) are not allowed", keyType.getObjectValue(properties, rowBlock, 0)));
             }
 
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator.scalar;
 
+import com.facebook.presto.common.type.TypeSignature;
 import com.facebook.presto.metadata.BoundVariables;
 import com.facebook.presto.metadata.FunctionAndTypeManager;
 import com.facebook.presto.metadata.SqlScalarFunction;
@@ -23,7 +24,11 @@ import com.facebook.presto.spi.function.ComplexTypeFunctionDescriptor;
 import com.facebook.presto.spi.function.Signature;
 import com.facebook.presto.spi.function.SqlFunctionVisibility;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.facebook.presto.metadata.SignatureBinder.applyBoundVariables;
@@ -39,15 +44,30 @@ public class ParametricScalar
 {
     private final ScalarHeader details;
     private final ParametricImplementationsGroup<ParametricScalarImplementation> implementations;
+    private final Map<List<TypeSignature>, MethodHandle> blockImplementations;
 
     public ParametricScalar(
             Signature signature,
             ScalarHeader details,
             ParametricImplementationsGroup<ParametricScalarImplementation> implementations)
+    {
+        this(signature, details, implementations, ImmutableMap.of());
+    }
+
+    /**
+     * @param blockImplementations the {@link com.facebook.presto.spi.function.BlockImplementation} method handles
+     * of the exact implementations, by their argument types
+     */
+    public ParametricScalar(
+            Signature signature,
+            ScalarHeader details,
+            ParametricImplementationsGroup<ParametricScalarImplementation> implementations,
+            Map<List<TypeSignature>, MethodHandle> blockImplementations)
     {
         super(signature);
         this.details = requireNonNull(details);
         this.implementations = requireNonNull(implementations);
+        this.blockImplementations = ImmutableMap.copyOf(requireNonNull(blockImplementations, "blockImplementations is null"));
     }
 
     @Override
@@ -86,10 +106,26 @@ public class ParametricScalar
         return implementations;
     }
 
+    @VisibleForTesting
+    public Map<List<TypeSignature>, MethodHandle> getBlockImplementations()
+    {
+        return blockImplementations;
+    }
+
     @Override
     public BuiltInScalarFunctionImplementation specialize(BoundVariables boundVariables, int arity, FunctionAndTypeManager functionAndTypeManager)
     {
         Signature boundSignature = applyBoundVariables(getSignature(), boundVariables, arity);
+        BuiltInScalarFunctionImplementation implementation = specialize(boundSignature, boundVariables, functionAndTypeManager);
+        MethodHandle blockImplementation = blockImplementations.get(boundSignature.getArgumentTypes());
+        if (blockImplementation != null) {
+            return implementation.withBlockImplementation(blockImplementation);
+        }
+        return implementation;
+    }
+
+    private BuiltInScalarFunctionImplementation specialize(Signature boundSignature, BoundVariables boundVariables, FunctionAndTypeManager functionAndTypeManager)
+    {
         if (implementations.getExactImplementations().containsKey(boundSignature)) {
             ParametricScalarImplementation implementation = implementations.getExactImplementations().get(boundSignature);
             Optional<BuiltInScalarFunctionImplementation> scalarFunctionImplementation = implementation.specialize(boundSignature, boundVariables, functionAndTypeManager);
@@ -14,11 +14,18 @@
 package com.facebook.presto.operator.scalar.annotations;
 
 import com.facebook.presto.common.CatalogSchemaName;
+import com.facebook.presto.common.QualifiedObjectName;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.type.TypeSignature;
 import com.facebook.presto.metadata.SqlScalarFunction;
 import com.facebook.presto.operator.ParametricImplementationsGroup;
 import com.facebook.presto.operator.annotations.FunctionsParserHelper;
 import com.facebook.presto.operator.scalar.ParametricScalar;
 import com.facebook.presto.operator.scalar.annotations.ParametricScalarImplementation.SpecializedSignature;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.function.BlockImplementation;
 import com.facebook.presto.spi.function.CodegenScalarFunction;
 import com.facebook.presto.spi.function.FunctionDescriptor;
 import com.facebook.presto.spi.function.ScalarFunction;
@@ -27,27 +34,43 @@ import com.facebook.presto.spi.function.Signature;
 import com.facebook.presto.spi.function.SqlInvokedScalarFunction;
 import com.facebook.presto.spi.function.SqlType;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Sets;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
+import static com.facebook.presto.common.type.TypeSignature.parseTypeSignature;
 import static com.facebook.presto.metadata.BuiltInTypeAndFunctionNamespaceManager.JAVA_BUILTIN_NAMESPACE;
 import static com.facebook.presto.operator.annotations.FunctionsParserHelper.checkPushdownSubfieldArgIndex;
 import static com.facebook.presto.operator.scalar.annotations.OperatorValidator.validateOperator;
 import static com.facebook.presto.spi.StandardErrorCode.FUNCTION_IMPLEMENTATION_ERROR;
 import static com.facebook.presto.util.Failures.checkCondition;
+import static com.facebook.presto.util.Reflection.methodHandle;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.lang.String.format;
+import static java.lang.reflect.Modifier.isStatic;
 import static java.util.Objects.requireNonNull;
 
 public final class ScalarFromAnnotationsParser
 {
+    private static final List<Class<?>> BLOCK_IMPLEMENTATION_TRAILING_PARAMETERS = ImmutableList.of(int[].class, int.class, int.class, BlockBuilder.class);
+
     private ScalarFromAnnotationsParser() {}
 
     public static List<SqlScalarFunction> parseFunctionDefinition(Class<?> clazz)
@@ -86,13 +109,17 @@ public final class ScalarFromAnnotationsParser
         checkArgument(!classHeaders.isEmpty(), "Class [%s] that defines function must be annotated with @ScalarFunction or @ScalarOperator", annotated.getName());
 
         for (ScalarImplementationHeader header : classHeaders) {
-            Set<Method> methods = FunctionsParserHelper.findPublicMethods(annotated, SqlType.class, ScalarFunction.class, ScalarOperator.class);
+            Set<Method> methods = FunctionsParserHelper.findPublicMethods(
+                    annotated,
+                    ImmutableSet.of(SqlType.class, ScalarFunction.class, ScalarOperator.class),
+                    ImmutableSet.of(BlockImplementation.class));
             checkCondition(!methods.isEmpty(), FUNCTION_IMPLEMENTATION_ERROR, "Parametric class [%s] does not have any annotated methods", annotated.getName());
-            for (Method method : methods) {
+            Set<Method> blockMethods = FunctionsParserHelper.findPublicMethods(annotated, BlockImplementation.class);
+            for (Method method : Sets.union(methods, blockMethods)) {
                 checkArgument(method.getAnnotation(ScalarFunction.class) == null, "Parametric class method [%s] is annotated with @ScalarFunction", method);
                 checkArgument(method.getAnnotation(ScalarOperator.class) == null, "Parametric class method [%s] is annotated with @ScalarOperator", method);
             }
-            builder.add(new ScalarHeaderAndMethods(header, methods));
+            builder.add(new ScalarHeaderAndMethods(header, methods, blockMethods));
         }
 
         return builder.build();
@@ -101,22 +128,57 @@ public final class ScalarFromAnnotationsParser
     private static List<ScalarHeaderAndMethods> findScalarsInFunctionSetClass(Class<?> annotated, CatalogSchemaName functionNamespace)
     {
         ImmutableList.Builder<ScalarHeaderAndMethods> builder = ImmutableList.builder();
+        ImmutableListMultimap.Builder<QualifiedObjectName, Method> blockMethods = ImmutableListMultimap.builder();
+        for (Method method : FunctionsParserHelper.findPublicMethods(annotated, BlockImplementation.class)) {
+            checkCondition((method.getAnnotation(ScalarFunction.class) != null) || (method.getAnnotation(ScalarOperator.class) != null),
+                    FUNCTION_IMPLEMENTATION_ERROR, "Method [%s] annotated with @BlockImplementation is missing @ScalarFunction or @ScalarOperator", method);
+            for (ScalarImplementationHeader header : ScalarImplementationHeader.fromAnnotatedElement(method, functionNamespace)) {
+                blockMethods.put(header.getName(), method);
+            }
+        }
+        ListMultimap<QualifiedObjectName, Method> blockMethodsByName = blockMethods.build();
+        Set<Method> matchedBlockMethods = new HashSet<>();
+
         for (Method method : FunctionsParserHelper.findPublicMethods(
                 annotated,
                 ImmutableSet.of(SqlType.class, ScalarFunction.class, ScalarOperator.class, FunctionDescriptor.class),
-                ImmutableSet.of(SqlInvokedScalarFunction.class, CodegenScalarFunction.class))) {
+                ImmutableSet.of(SqlInvokedScalarFunction.class, CodegenScalarFunction.class, BlockImplementation.class))) {
             checkCondition((method.getAnnotation(ScalarFunction.class) != null) || (method.getAnnotation(ScalarOperator.class) != null),
                     FUNCTION_IMPLEMENTATION_ERROR, "Method [%s] annotated with @SqlType is missing @ScalarFunction or @ScalarOperator", method);
             if (method.getAnnotation(ScalarOperator.class) != null) {
                 checkArgument(functionNamespace.equals(JAVA_BUILTIN_NAMESPACE), format("Connector specific Scalar operator functions are not supported: Class [%s], Namespace [%s]", annotated.getName(), functionNamespace));
             }
             for (ScalarImplementationHeader header : ScalarImplementationHeader.fromAnnotatedElement(method, functionNamespace)) {
-                builder.add(new ScalarHeaderAndMethods(header, ImmutableSet.of(method)));
+                Set<Method> blockMethodsForHeader = blockMethodsByName.get(header.getName()).stream()
+                        .filter(blockMethod -> getSqlTypes(blockMethod).equals(getSqlTypes(method)))
+                        .collect(toImmutableSet());
+                matchedBlockMethods.addAll(blockMethodsForHeader);
+                builder.add(new ScalarHeaderAndMethods(header, ImmutableSet.of(method), blockMethodsForHeader));
             }
         }
+        for (Method method : blockMethodsByName.values()) {
+            checkCondition(matchedBlockMethods.contains(method), FUNCTION_IMPLEMENTATION_ERROR, "Method [%s] annotated with @BlockImplementation does not match an implementation with the same types", method);
+        }
         return builder.build();
     }
 
+    /**
+     * Returns the {@link SqlType} values of the result and the arguments of a method.
+     */
+    private static List<String> getSqlTypes(Method method)
+    {
+        ImmutableList.Builder<String> types = ImmutableList.builder();
+        if (method.getAnnotation(SqlType.class) != null) {
+            types.add(method.getAnnotation(SqlType.class).value());
+        }
+        for (Parameter parameter : method.getParameters()) {
+            if (parameter.getAnnotation(SqlType.class) != null) {
+                types.add(parameter.getAnnotation(SqlType.class).value());
+            }
+        }
+        return types.build();
+    }
+
     private static SqlScalarFunction parseParametricScalar(ScalarHeaderAndMethods scalar, Optional<Constructor<?>> constructor)
     {
         ScalarImplementationHeader header = scalar.getHeader();
@@ -150,18 +212,69 @@ public final class ScalarFromAnnotationsParser
         header.getOperatorType().ifPresent(operatorType ->
                 validateOperator(operatorType, scalarSignature.getReturnType(), scalarSignature.getArgumentTypes()));
 
-        return new ParametricScalar(scalarSignature, header.getHeader(), implementations);
+        ImmutableMap.Builder<List<TypeSignature>, MethodHandle> blockImplementations = ImmutableMap.builder();
+        for (Method method : scalar.getBlockMethods()) {
+            Signature signature = parseBlockImplementation(method, implementations);
+            blockImplementations.put(signature.getArgumentTypes(), getBlockMethodHandle(method));
+        }
+
+        return new ParametricScalar(scalarSignature, header.getHeader(), implementations, blockImplementations.build());
+    }
+
+    /**
+     * Validates a {@link BlockImplementation} method and returns the signature of the exact implementation it evaluates.
+     */
+    private static Signature parseBlockImplementation(Method method, ParametricImplementationsGroup<ParametricScalarImplementation> implementations)
+    {
+        checkCondition(isStatic(method.getModifiers()), FUNCTION_IMPLEMENTATION_ERROR, "Method [%s] annotated with @BlockImplementation must be static", method);
+        checkCondition(method.getReturnType() == void.class, FUNCTION_IMPLEMENTATION_ERROR, "Method [%s] annotated with @BlockImplementation must return void", method);
+        SqlType returnType = method.getAnnotation(SqlType.class);
+        checkCondition(returnType != null, FUNCTION_IMPLEMENTATION_ERROR, "Method [%s] annotated with @BlockImplementation is missing @SqlType annotation", method);
+
+        Parameter[] parameters = method.getParameters();
+        int firstArgument = parameters.length > 0 && parameters[0].getType() == SqlFunctionProperties.class ? 1 : 0;
+        int argumentCount = parameters.length - firstArgument - BLOCK_IMPLEMENTATION_TRAILING_PARAMETERS.size();
+        checkCondition(
+                argumentCount >= 0 && BLOCK_IMPLEMENTATION_TRAILING_PARAMETERS.equals(Stream.of(parameters).skip(firstArgument + argumentCount).map(Parameter::getType).collect(toImmutableList())),
+                FUNCTION_IMPLEMENTATION_ERROR,
+                "Method [%s] annotated with @BlockImplementation must end with (int[] positions, int offset, int positionCount, BlockBuilder output)",
+                method);
+
+        ImmutableList.Builder<TypeSignature> argumentTypes = ImmutableList.builder();
+        for (int i = firstArgument; i < firstArgument + argumentCount; i++) {
+            SqlType type = parameters[i].getAnnotation(SqlType.class);
+            checkCondition(parameters[i].getType() == Block.class && type != null, FUNCTION_IMPLEMENTATION_ERROR, "Method [%s] annotated with @BlockImplementation must take a @SqlType Block for each argument", method);
+            argumentTypes.add(parseTypeSignature(type.value()));
+        }
+
+        TypeSignature returnTypeSignature = parseTypeSignature(returnType.value());
+        List<TypeSignature> argumentTypeSignatures = argumentTypes.build();
+        return implementations.getExactImplementations().keySet().stream()
+                .filter(signature -> signature.getReturnType().equals(returnTypeSignature) && signature.getArgumentTypes().equals(argumentTypeSignatures))
+                .findFirst()
+                .orElseThrow(() -> new PrestoException(FUNCTION_IMPLEMENTATION_ERROR, format("Method [%s] annotated with @BlockImplementation does not match an implementation with concrete types", method)));
+    }
+
+    private static MethodHandle getBlockMethodHandle(Method method)
+    {
+        MethodHandle methodHandle = methodHandle(FUNCTION_IMPLEMENTATION_ERROR, method);
+        if (method.getParameterCount() == 0 || method.getParameterTypes()[0] != SqlFunctionProperties.class) {
+            methodHandle = MethodHandles.dropArguments(methodHandle, 0, SqlFunctionProperties.class);
+        }
+        return methodHandle;
     }
 
     private static class ScalarHeaderAndMethods
     {
         private final ScalarImplementationHeader header;
         private final Set<Method> methods;
+        private final Set<Method> blockMethods;
 
-        public ScalarHeaderAndMethods(ScalarImplementationHeader header, Set<Method> methods)
+        public ScalarHeaderAndMethods(ScalarImplementationHeader header, Set<Method> methods, Set<Method> blockMethods)
         {
             this.header = requireNonNull(header);
             this.methods = requireNonNull(methods);
+            this.blockMethods = requireNonNull(blockMethods);
         }
 
         public ScalarImplementationHeader getHeader()
@@ -173,5 +286,10 @@ public final class ScalarFromAnnotationsParser
         {
             return methods;
         }
+
+        public Set<Method> getBlockMethods()
+        {
+            return blockMethods;
+        }
     }
 }
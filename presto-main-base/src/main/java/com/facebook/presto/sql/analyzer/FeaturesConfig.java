@@ -178,6 +178,8 @@ public class FeaturesConfig
 
     private DataSize filterAndProjectMinOutputPageSize = new DataSize(500, KILOBYTE);
     private int filterAndProjectMinOutputPageRowCount = 256;
+    private boolean adaptiveFilterReorderingEnabled;
+    private boolean shareCommonSubExpressionsAcrossFunctions;
     private int maxGroupingSets = 2048;
     private boolean legacyUnnestArrayRows;
     private AggregationPartitioningMergingStrategy aggregationPartitioningMergingStrategy = LEGACY;
@@ -243,12 +245,15 @@ public class FeaturesConfig
     private boolean segmentedAggregationEnabled;
 
     private int maxStageCountForEagerScheduling = 25;
+    private int pipelinedExecutionMaxSpeculativePhases = 1;
+    private double pipelinedExecutionMinFreeMemoryRatio = 0.25;
     private boolean quickDistinctLimitEnabled;
 
     private double hyperloglogStandardErrorWarningThreshold = 0.004;
 
     private boolean pushRemoteExchangeThroughGroupId;
     private boolean isOptimizeMultipleApproxPercentileOnSameFieldEnabled = true;
+    private boolean isOptimizeMultipleJsonExtractScalarOnSameFieldEnabled;
     private boolean nativeExecutionEnabled;
     private boolean disableTimeStampWithTimeZoneForNative;
     private boolean disableIPAddressForNative;
@@ -396,6 +401,7 @@ public class FeaturesConfig
     {
         ORDER_BY_CREATE_TIME, // When spilling is triggered, revoke tasks in order of oldest to newest
         ORDER_BY_REVOCABLE_BYTES, // When spilling is triggered, revoke tasks by most allocated revocable memory to least allocated revocable memory
+        ORDER_BY_SPILL_COST, // When spilling is triggered, revoke operators across all tasks by lowest to highest estimated spill cost per byte freed
         PER_TASK_MEMORY_THRESHOLD, // Spill any task after it reaches the per task memory threshold defined by experimental.spiller.max-revocable-task-memory
     }
 
@@ -1675,6 +1681,32 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isAdaptiveFilterReorderingEnabled()
+    {
+        return adaptiveFilterReorderingEnabled;
+    }
+
+    @Config("experimental.adaptive-filter-reordering-enabled")
+    @ConfigDescription("Evaluate the conjuncts of filters separately, in an order adapted to their observed cost and selectivity")
+    public FeaturesConfig setAdaptiveFilterReorderingEnabled(boolean adaptiveFilterReorderingEnabled)
+    {
+        this.adaptiveFilterReorderingEnabled = adaptiveFilterReorderingEnabled;
+        return this;
+    }
+
+    public boolean isShareCommonSubExpressionsAcrossFunctions()
+    {
+        return shareCommonSubExpressionsAcrossFunctions;
+    }
+
+    @Config("experimental.share-common-sub-expressions-across-functions")
+    @ConfigDescription("Compute sub-expressions shared by the filter and the projections, or by projections compiled separately, only once")
+    public FeaturesConfig setShareCommonSubExpressionsAcrossFunctions(boolean shareCommonSubExpressionsAcrossFunctions)
+    {
+        this.shareCommonSubExpressionsAcrossFunctions = shareCommonSubExpressionsAcrossFunctions;
+        return this;
+    }
+
     public boolean isDistributedSortEnabled()
     {
         return distributedSort;
@@ -2323,6 +2355,35 @@ public class FeaturesConfig
         return this;
     }
 
+    public int getPipelinedExecutionMaxSpeculativePhases()
+    {
+        return pipelinedExecutionMaxSpeculativePhases;
+    }
+
+    @Min(0)
+    @Config("execution-policy.pipelined-max-speculative-phases")
+    @ConfigDescription("When execution policy is set to pipelined, the number of source phases started before the previous phases are scheduled")
+    public FeaturesConfig setPipelinedExecutionMaxSpeculativePhases(int pipelinedExecutionMaxSpeculativePhases)
+    {
+        this.pipelinedExecutionMaxSpeculativePhases = pipelinedExecutionMaxSpeculativePhases;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getPipelinedExecutionMinFreeMemoryRatio()
+    {
+        return pipelinedExecutionMinFreeMemoryRatio;
+    }
+
+    @Config("execution-policy.pipelined-min-free-memory-ratio")
+    @ConfigDescription("When execution policy is set to pipelined, phases are started speculatively only while this fraction of the cluster general pool is free")
+    public FeaturesConfig setPipelinedExecutionMinFreeMemoryRatio(double pipelinedExecutionMinFreeMemoryRatio)
+    {
+        this.pipelinedExecutionMinFreeMemoryRatio = pipelinedExecutionMinFreeMemoryRatio;
+        return this;
+    }
+
     public double getHyperloglogStandardErrorWarningThreshold()
     {
         return hyperloglogStandardErrorWarningThreshold;
@@ -2426,6 +2487,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isOptimizeMultipleJsonExtractScalarOnSameFieldEnabled()
+    {
+        return isOptimizeMultipleJsonExtractScalarOnSameFieldEnabled;
+    }
+
+    @Config("optimizer.optimize-multiple-json-extract-scalar-on-same-field")
+    @ConfigDescription("Enable combining json_extract_scalar calls on the same field into one extraction of all the paths")
+    public FeaturesConfig setOptimizeMultipleJsonExtractScalarOnSameFieldEnabled(boolean isOptimizeMultipleJsonExtractScalarOnSameFieldEnabled)
+    {
+        this.isOptimizeMultipleJsonExtractScalarOnSameFieldEnabled = isOptimizeMultipleJsonExtractScalarOnSameFieldEnabled;
+        return this;
+    }
+
     @Config("native-execution-enabled")
     @ConfigDescription("Enable execution on native engine")
     public FeaturesConfig setNativeExecutionEnabled(boolean nativeExecutionEnabled)
@@ -0,0 +1,308 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.errorprone.annotations.ThreadSafe;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.presto.common.type.TimeZoneKey.getTimeZoneKey;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Counts how often the page filters and projections of recent traffic are requested from
+ * {@link PageFunctionCompiler}, so that the most used ones can be compiled ahead of time
+ * after a restart.
+ */
+@ThreadSafe
+public class CompiledExpressionHistory
+{
+    private final Cache<Entry, AtomicLong> usage;
+
+    public CompiledExpressionHistory(int maxSize)
+    {
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        this.usage = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public void record(Kind kind, SqlFunctionProperties properties, List<RowExpression> expressions, boolean optimizeCommonSubExpression)
+    {
+        usage.asMap()
+                .computeIfAbsent(new Entry(kind, FunctionProperties.from(properties), expressions, optimizeCommonSubExpression), entry -> new AtomicLong())
+                .incrementAndGet();
+    }
+
+    public List<Entry> getMostUsed(int limit)
+    {
+        return usage.asMap().entrySet().stream()
+                .sorted(comparingLong((Map.Entry<Entry, AtomicLong> entry) -> entry.getValue().get()).reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(toImmutableList());
+    }
+
+    public enum Kind
+    {
+        FILTER,
+        PROJECTION
+    }
+
+    public static class Entry
+    {
+        private final Kind kind;
+        private final FunctionProperties properties;
+        private final List<RowExpression> expressions;
+        private final boolean optimizeCommonSubExpression;
+
+        @JsonCreator
+        public Entry(
+                @JsonProperty("kind") Kind kind,
+                @JsonProperty("properties") FunctionProperties properties,
+                @JsonProperty("expressions") List<RowExpression> expressions,
+                @JsonProperty("optimizeCommonSubExpression") boolean optimizeCommonSubExpression)
+        {
+            this.kind = requireNonNull(kind, "kind is null");
+            this.properties = requireNonNull(properties, "properties is null");
+            this.expressions = ImmutableList.copyOf(requireNonNull(expressions, "expressions is null"));
+            this.optimizeCommonSubExpression = optimizeCommonSubExpression;
+        }
+
+        @JsonProperty
+        public Kind getKind()
+        {
+            return kind;
+        }
+
+        @JsonProperty
+        public FunctionProperties getProperties()
+        {
+            return properties;
+        }
+
+        @JsonProperty
+        public List<RowExpression> getExpressions()
+        {
+            return expressions;
+        }
+
+        @JsonProperty
+        public boolean isOptimizeCommonSubExpression()
+        {
+            return optimizeCommonSubExpression;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Entry that = (Entry) o;
+            return kind == that.kind &&
+                    optimizeCommonSubExpression == that.optimizeCommonSubExpression &&
+                    Objects.equals(properties, that.properties) &&
+                    Objects.equals(expressions, that.expressions);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(kind, properties, expressions, optimizeCommonSubExpression);
+        }
+    }
+
+    /**
+     * The session function properties the classes compiled for an entry depend on, which are part of the keys of
+     * the compiled class caches. The properties of the query itself, like its start time and user, are not kept.
+     * {@link #from} lists them, and the compiled class caches key on {@link #toSqlFunctionProperties} of it.
+     */
+    public static class FunctionProperties
+    {
+        private final String timeZone;
+        private final String locale;
+        private final boolean parseDecimalLiteralAsDouble;
+        private final boolean legacyRowFieldOrdinalAccessEnabled;
+        private final boolean legacyTimestamp;
+        private final boolean legacyMapSubscript;
+        private final boolean fieldNamesInJsonCastEnabled;
+        private final boolean legacyJsonCast;
+        private final boolean warnOnCommonNanPatterns;
+        private final boolean canonicalizedJsonExtract;
+
+        @JsonCreator
+        public FunctionProperties(
+                @JsonProperty("timeZone") String timeZone,
+                @JsonProperty("locale") String locale,
+                @JsonProperty("parseDecimalLiteralAsDouble") boolean parseDecimalLiteralAsDouble,
+                @JsonProperty("legacyRowFieldOrdinalAccessEnabled") boolean legacyRowFieldOrdinalAccessEnabled,
+                @JsonProperty("legacyTimestamp") boolean legacyTimestamp,
+                @JsonProperty("legacyMapSubscript") boolean legacyMapSubscript,
+                @JsonProperty("fieldNamesInJsonCastEnabled") boolean fieldNamesInJsonCastEnabled,
+                @JsonProperty("legacyJsonCast") boolean legacyJsonCast,
+                @JsonProperty("warnOnCommonNanPatterns") boolean warnOnCommonNanPatterns,
+                @JsonProperty("canonicalizedJsonExtract") boolean canonicalizedJsonExtract)
+        {
+            this.timeZone = requireNonNull(timeZone, "timeZone is null");
+            this.locale = requireNonNull(locale, "locale is null");
+            this.parseDecimalLiteralAsDouble = parseDecimalLiteralAsDouble;
+            this.legacyRowFieldOrdinalAccessEnabled = legacyRowFieldOrdinalAccessEnabled;
+            this.legacyTimestamp = legacyTimestamp;
+            this.legacyMapSubscript = legacyMapSubscript;
+            this.fieldNamesInJsonCastEnabled = fieldNamesInJsonCastEnabled;
+            this.legacyJsonCast = legacyJsonCast;
+            this.warnOnCommonNanPatterns = warnOnCommonNanPatterns;
+            this.canonicalizedJsonExtract = canonicalizedJsonExtract;
+        }
+
+        public static FunctionProperties from(SqlFunctionProperties properties)
+        {
+            return new FunctionProperties(
+                    properties.getTimeZoneKey().getId(),
+                    properties.getSessionLocale().toLanguageTag(),
+                    properties.isParseDecimalLiteralAsDouble(),
+                    properties.isLegacyRowFieldOrdinalAccessEnabled(),
+                    properties.isLegacyTimestamp(),
+                    properties.isLegacyMapSubscript(),
+                    properties.isFieldNamesInJsonCastEnabled(),
+                    properties.isLegacyJsonCast(),
+                    properties.shouldWarnOnCommonNanPatterns(),
+                    properties.isCanonicalizedJsonExtract());
+        }
+
+        public SqlFunctionProperties toSqlFunctionProperties()
+        {
+            return SqlFunctionProperties.builder()
+                    .setTimeZoneKey(getTimeZoneKey(timeZone))
+                    .setSessionLocale(Locale.forLanguageTag(locale))
+                    .setSessionUser("")
+                    .setParseDecimalLiteralAsDouble(parseDecimalLiteralAsDouble)
+                    .setLegacyRowFieldOrdinalAccessEnabled(legacyRowFieldOrdinalAccessEnabled)
+                    .setLegacyTimestamp(legacyTimestamp)
+                    .setLegacyMapSubscript(legacyMapSubscript)
+                    .setFieldNamesInJsonCastEnabled(fieldNamesInJsonCastEnabled)
+                    .setLegacyJsonCast(legacyJsonCast)
+                    .setWarnOnCommonNanPatterns(warnOnCommonNanPatterns)
+                    .setCanonicalizedJsonExtract(canonicalizedJsonExtract)
+                    .build();
+        }
+
+        @JsonProperty
+        public String getTimeZone()
+        {
+            return timeZone;
+        }
+
+        @JsonProperty
+        public String getLocale()
+        {
+            return locale;
+        }
+
+        @JsonProperty
+        public boolean isParseDecimalLiteralAsDouble()
+        {
+            return parseDecimalLiteralAsDouble;
+        }
+
+        @JsonProperty
+        public boolean isLegacyRowFieldOrdinalAccessEnabled()
+        {
+            return legacyRowFieldOrdinalAccessEnabled;
+        }
+
+        @JsonProperty
+        public boolean isLegacyTimestamp()
+        {
+            return legacyTimestamp;
+        }
+
+        @JsonProperty
+        public boolean isLegacyMapSubscript()
+        {
+            return legacyMapSubscript;
+        }
+
+        @JsonProperty
+        public boolean isFieldNamesInJsonCastEnabled()
+        {
+            return fieldNamesInJsonCastEnabled;
+        }
+
+        @JsonProperty
+        public boolean isLegacyJsonCast()
+        {
+            return legacyJsonCast;
+        }
+
+        @JsonProperty
+        public boolean isWarnOnCommonNanPatterns()
+        {
+            return warnOnCommonNanPatterns;
+        }
+
+        @JsonProperty
+        public boolean isCanonicalizedJsonExtract()
+        {
+            return canonicalizedJsonExtract;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FunctionProperties that = (FunctionProperties) o;
+            return parseDecimalLiteralAsDouble == that.parseDecimalLiteralAsDouble &&
+                    legacyRowFieldOrdinalAccessEnabled == that.legacyRowFieldOrdinalAccessEnabled &&
+                    legacyTimestamp == that.legacyTimestamp &&
+                    legacyMapSubscript == that.legacyMapSubscript &&
+                    fieldNamesInJsonCastEnabled == that.fieldNamesInJsonCastEnabled &&
+                    legacyJsonCast == that.legacyJsonCast &&
+                    warnOnCommonNanPatterns == that.warnOnCommonNanPatterns &&
+                    canonicalizedJsonExtract == that.canonicalizedJsonExtract &&
+                    timeZone.equals(that.timeZone) &&
+                    locale.equals(that.locale);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(timeZone, locale, parseDecimalLiteralAsDouble, legacyRowFieldOrdinalAccessEnabled, legacyTimestamp, legacyMapSubscript, fieldNamesInJsonCastEnabled, legacyJsonCast, warnOnCommonNanPatterns,
+                    canonicalizedJsonExtract);
+        }
+    }
+}
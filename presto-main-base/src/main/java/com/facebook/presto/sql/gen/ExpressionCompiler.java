@@ -17,15 +17,22 @@ import com.facebook.presto.bytecode.CallSiteBinder;
 import com.facebook.presto.bytecode.ClassDefinition;
 import com.facebook.presto.bytecode.CompilationException;
 import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.metadata.FunctionAndTypeManager;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.operator.project.CursorProcessor;
 import com.facebook.presto.operator.project.PageFilter;
 import com.facebook.presto.operator.project.PageProcessor;
+import com.facebook.presto.operator.project.PageProjection;
 import com.facebook.presto.operator.project.PageProjectionWithOutputs;
+import com.facebook.presto.operator.project.ReorderingPageFilter;
+import com.facebook.presto.operator.project.SharedSubExpressionPageFilter;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.function.SqlFunctionId;
 import com.facebook.presto.spi.function.SqlInvokedFunction;
+import com.facebook.presto.spi.relation.DeterminismEvaluator;
 import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.sql.gen.SharedSubExpressionRewriter.SharedSubExpressions;
+import com.facebook.presto.sql.relational.RowExpressionDeterminismEvaluator;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -48,20 +55,25 @@ import static com.facebook.presto.bytecode.Access.PUBLIC;
 import static com.facebook.presto.bytecode.Access.a;
 import static com.facebook.presto.bytecode.ParameterizedType.type;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.expressions.LogicalRowExpressions.extractConjuncts;
 import static com.facebook.presto.spi.StandardErrorCode.COMPILER_ERROR;
 import static com.facebook.presto.sql.gen.BytecodeUtils.invoke;
+import static com.facebook.presto.sql.gen.PageFunctionCompiler.getProjectionGroups;
 import static com.facebook.presto.sql.relational.Expressions.constant;
 import static com.facebook.presto.util.CompilerUtils.defineClass;
 import static com.facebook.presto.util.CompilerUtils.makeClassName;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Throwables.throwIfInstanceOf;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 
 public class ExpressionCompiler
 {
     private final PageFunctionCompiler pageFunctionCompiler;
+    private final FunctionAndTypeManager functionAndTypeManager;
+    private final DeterminismEvaluator determinismEvaluator;
     private final LoadingCache<CacheKey, Class<? extends CursorProcessor>> cursorProcessors;
     private final CacheStatsMBean cacheStatsMBean;
 
@@ -70,6 +82,8 @@ public class ExpressionCompiler
     {
         requireNonNull(metadata, "metadata is null");
         this.pageFunctionCompiler = requireNonNull(pageFunctionCompiler, "pageFunctionCompiler is null");
+        this.functionAndTypeManager = metadata.getFunctionAndTypeManager();
+        this.determinismEvaluator = new RowExpressionDeterminismEvaluator(metadata.getFunctionAndTypeManager());
         this.cursorProcessors = CacheBuilder.newBuilder()
                 .recordStats()
                 .maximumSize(1000)
@@ -149,7 +163,41 @@ public class ExpressionCompiler
             Map<SqlFunctionId, SqlInvokedFunction> sessionFunctions,
             Optional<String> classNameSuffix)
     {
-        return compilePageProcessor(sqlFunctionProperties, filter, projections, isOptimizeCommonSubExpression, sessionFunctions, classNameSuffix, OptionalInt.empty());
+        return compilePageProcessor(sqlFunctionProperties, filter, projections, isOptimizeCommonSubExpression, sessionFunctions, classNameSuffix, false);
+    }
+
+    public Supplier<PageProcessor> compilePageProcessor(
+            SqlFunctionProperties sqlFunctionProperties,
+            Optional<RowExpression> filter,
+            List<? extends RowExpression> projections,
+            boolean isOptimizeCommonSubExpression,
+            Map<SqlFunctionId, SqlInvokedFunction> sessionFunctions,
+            Optional<String> classNameSuffix,
+            boolean isAdaptiveFilterReordering)
+    {
+        return compilePageProcessor(sqlFunctionProperties, filter, projections, isOptimizeCommonSubExpression, sessionFunctions, classNameSuffix, isAdaptiveFilterReordering, false);
+    }
+
+    public Supplier<PageProcessor> compilePageProcessor(
+            SqlFunctionProperties sqlFunctionProperties,
+            Optional<RowExpression> filter,
+            List<? extends RowExpression> projections,
+            boolean isOptimizeCommonSubExpression,
+            Map<SqlFunctionId, SqlInvokedFunction> sessionFunctions,
+            Optional<String> classNameSuffix,
+            boolean isAdaptiveFilterReordering,
+            boolean isShareCommonSubExpressionsAcrossFunctions)
+    {
+        return compilePageProcessor(
+                sqlFunctionProperties,
+                filter,
+                projections,
+                isOptimizeCommonSubExpression,
+                sessionFunctions,
+                classNameSuffix,
+                isAdaptiveFilterReordering,
+                isShareCommonSubExpressionsAcrossFunctions,
+                OptionalInt.empty());
     }
 
     private Supplier<PageProcessor> compilePageProcessor(
@@ -159,10 +207,27 @@ public class ExpressionCompiler
             boolean isOptimizeCommonSubExpression,
             Map<SqlFunctionId, SqlInvokedFunction> sessionFunctions,
             Optional<String> classNameSuffix,
+            boolean isAdaptiveFilterReordering,
+            boolean isShareCommonSubExpressionsAcrossFunctions,
             OptionalInt initialBatchSize)
     {
+        if (isShareCommonSubExpressionsAcrossFunctions) {
+            Optional<Supplier<PageProcessor>> sharingPageProcessor = compileSharingPageProcessor(
+                    sqlFunctionProperties,
+                    filter,
+                    projections,
+                    isOptimizeCommonSubExpression,
+                    sessionFunctions,
+                    classNameSuffix,
+                    isAdaptiveFilterReordering,
+                    initialBatchSize);
+            if (sharingPageProcessor.isPresent()) {
+                return sharingPageProcessor.get();
+            }
+        }
+
         Optional<Supplier<PageFilter>> filterFunctionSupplier = filter.map(expression ->
-                pageFunctionCompiler.compileFilter(sqlFunctionProperties, sessionFunctions, expression, isOptimizeCommonSubExpression, classNameSuffix));
+                compileFilter(sqlFunctionProperties, sessionFunctions, expression, isOptimizeCommonSubExpression, classNameSuffix, isAdaptiveFilterReordering));
         List<Supplier<PageProjectionWithOutputs>> pageProjectionSuppliers = pageFunctionCompiler.compileProjections(
                 sqlFunctionProperties,
                 sessionFunctions,
@@ -179,6 +244,120 @@ public class ExpressionCompiler
         };
     }
 
+    /**
+     * Compiles a page processor in which the sub-expressions shared by the filter and the projections, or by
+     * projections compiled separately, are computed once. The filter is evaluated in plan order when it shares
+     * sub-expressions, so it does not adapt the order of its conjuncts. Returns empty when nothing is shared,
+     * or when the filter is not deterministic.
+     */
+    private Optional<Supplier<PageProcessor>> compileSharingPageProcessor(
+            SqlFunctionProperties sqlFunctionProperties,
+            Optional<RowExpression> filter,
+            List<? extends RowExpression> projections,
+            boolean isOptimizeCommonSubExpression,
+            Map<SqlFunctionId, SqlInvokedFunction> sessionFunctions,
+            Optional<String> classNameSuffix,
+            boolean isAdaptiveFilterReordering,
+            OptionalInt initialBatchSize)
+    {
+        List<RowExpression> conjuncts = filter.isPresent() ? extractConjuncts(filter.get()) : ImmutableList.of();
+        if (!conjuncts.stream().allMatch(determinismEvaluator::isDeterministic)) {
+            return Optional.empty();
+        }
+        Optional<SharedSubExpressions> sharedSubExpressions = SharedSubExpressionRewriter.rewrite(
+                conjuncts,
+                ImmutableList.copyOf(projections),
+                getProjectionGroups(projections, isOptimizeCommonSubExpression),
+                functionAndTypeManager,
+                determinismEvaluator);
+        if (!sharedSubExpressions.isPresent()) {
+            return Optional.empty();
+        }
+        SharedSubExpressions shared = sharedSubExpressions.get();
+
+        Optional<Supplier<PageFilter>> filterFunctionSupplier;
+        if (shared.hasConjunctSubExpressions()) {
+            List<Supplier<PageFilter>> conjunctSuppliers = shared.getConjuncts().stream()
+                    .map(conjunct -> pageFunctionCompiler.compileFilter(sqlFunctionProperties, sessionFunctions, conjunct, isOptimizeCommonSubExpression, classNameSuffix))
+                    .collect(toImmutableList());
+            List<List<Supplier<PageProjection>>> subExpressionSuppliers = shared.getConjunctSubExpressions().stream()
+                    .map(subExpressions -> subExpressions.stream()
+                            .map(subExpression -> compileSubExpression(sqlFunctionProperties, sessionFunctions, subExpression, classNameSuffix))
+                            .collect(toImmutableList()))
+                    .collect(toImmutableList());
+            filterFunctionSupplier = Optional.of(() -> new SharedSubExpressionPageFilter(
+                    conjunctSuppliers.stream()
+                            .map(Supplier::get)
+                            .collect(toImmutableList()),
+                    subExpressionSuppliers.stream()
+                            .map(suppliers -> suppliers.stream()
+                                    .map(Supplier::get)
+                                    .collect(toImmutableList()))
+                            .collect(toImmutableList()),
+                    shared.getFirstChannel()));
+        }
+        else {
+            filterFunctionSupplier = filter.map(expression ->
+                    compileFilter(sqlFunctionProperties, sessionFunctions, expression, isOptimizeCommonSubExpression, classNameSuffix, isAdaptiveFilterReordering));
+        }
+        List<Supplier<PageProjectionWithOutputs>> pageProjectionSuppliers = pageFunctionCompiler.compileProjections(
+                sqlFunctionProperties,
+                sessionFunctions,
+                shared.getProjections(),
+                isOptimizeCommonSubExpression,
+                classNameSuffix);
+        List<Supplier<PageProjection>> sharedProjectionSuppliers = shared.getProjectionSubExpressions().stream()
+                .map(subExpression -> compileSubExpression(sqlFunctionProperties, sessionFunctions, subExpression, classNameSuffix))
+                .collect(toImmutableList());
+
+        return Optional.of(() -> {
+            Optional<PageFilter> filterFunction = filterFunctionSupplier.map(Supplier::get);
+            List<PageProjectionWithOutputs> pageProjections = pageProjectionSuppliers.stream()
+                    .map(Supplier::get)
+                    .collect(toImmutableList());
+            List<PageProjection> sharedProjections = sharedProjectionSuppliers.stream()
+                    .map(Supplier::get)
+                    .collect(toImmutableList());
+            return new PageProcessor(filterFunction, pageProjections, initialBatchSize, shared.getFirstChannel(), sharedProjections);
+        });
+    }
+
+    private Supplier<PageProjection> compileSubExpression(
+            SqlFunctionProperties sqlFunctionProperties,
+            Map<SqlFunctionId, SqlInvokedFunction> sessionFunctions,
+            RowExpression subExpression,
+            Optional<String> classNameSuffix)
+    {
+        Supplier<PageProjectionWithOutputs> projection = getOnlyElement(pageFunctionCompiler.compileProjections(
+                sqlFunctionProperties,
+                sessionFunctions,
+                ImmutableList.of(subExpression),
+                false,
+                classNameSuffix));
+        return () -> projection.get().getPageProjection();
+    }
+
+    private Supplier<PageFilter> compileFilter(
+            SqlFunctionProperties sqlFunctionProperties,
+            Map<SqlFunctionId, SqlInvokedFunction> sessionFunctions,
+            RowExpression filter,
+            boolean isOptimizeCommonSubExpression,
+            Optional<String> classNameSuffix,
+            boolean isAdaptiveFilterReordering)
+    {
+        List<RowExpression> conjuncts = extractConjuncts(filter);
+        // evaluating a non-deterministic conjunct on a different set of positions could change the result
+        if (!isAdaptiveFilterReordering || conjuncts.size() < 2 || !conjuncts.stream().allMatch(determinismEvaluator::isDeterministic)) {
+            return pageFunctionCompiler.compileFilter(sqlFunctionProperties, sessionFunctions, filter, isOptimizeCommonSubExpression, classNameSuffix);
+        }
+        List<Supplier<PageFilter>> conjunctSuppliers = conjuncts.stream()
+                .map(conjunct -> pageFunctionCompiler.compileFilter(sqlFunctionProperties, sessionFunctions, conjunct, isOptimizeCommonSubExpression, classNameSuffix))
+                .collect(toImmutableList());
+        return () -> new ReorderingPageFilter(conjunctSuppliers.stream()
+                .map(Supplier::get)
+                .collect(toImmutableList()));
+    }
+
     @VisibleForTesting
     public Supplier<PageProcessor> compilePageProcessor(SqlFunctionProperties sqlFunctionProperties, Optional<RowExpression> filter, List<? extends RowExpression> projections)
     {
@@ -188,7 +367,7 @@ public class ExpressionCompiler
     @VisibleForTesting
     public Supplier<PageProcessor> compilePageProcessor(SqlFunctionProperties sqlFunctionProperties, Optional<RowExpression> filter, List<? extends RowExpression> projections, boolean isOptimizeCommonSubExpression, int initialBatchSize)
     {
-        return compilePageProcessor(sqlFunctionProperties, filter, projections, isOptimizeCommonSubExpression, emptyMap(), Optional.empty(), OptionalInt.of(initialBatchSize));
+        return compilePageProcessor(sqlFunctionProperties, filter, projections, isOptimizeCommonSubExpression, emptyMap(), Optional.empty(), false, false, OptionalInt.of(initialBatchSize));
     }
 
     @VisibleForTesting
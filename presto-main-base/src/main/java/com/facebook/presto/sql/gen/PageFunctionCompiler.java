@@ -32,6 +32,9 @@ import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.function.SqlFunctionProperties;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.operator.Work;
+import com.facebook.presto.operator.project.BlockFunctionPageProjection;
+import com.facebook.presto.operator.project.ColumnarPageFilter;
+import com.facebook.presto.operator.project.ColumnarPageProjection;
 import com.facebook.presto.operator.project.ConstantPageProjection;
 import com.facebook.presto.operator.project.GeneratedPageProjection;
 import com.facebook.presto.operator.project.InputChannels;
@@ -53,6 +56,8 @@ import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.spi.relation.RowExpressionVisitor;
 import com.facebook.presto.spi.relation.SpecialFormExpression;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.gen.CompiledExpressionHistory.FunctionProperties;
+import com.facebook.presto.sql.gen.CompiledExpressionHistory.Kind;
 import com.facebook.presto.sql.gen.LambdaBytecodeGenerator.CompiledLambda;
 import com.facebook.presto.sql.planner.CompilerConfig;
 import com.facebook.presto.sql.relational.RowExpressionDeterminismEvaluator;
@@ -71,16 +76,14 @@ import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
-import java.util.stream.IntStream;
 
 import static com.facebook.presto.bytecode.Access.FINAL;
 import static com.facebook.presto.bytecode.Access.PRIVATE;
@@ -109,6 +112,8 @@ import static com.facebook.presto.sql.gen.CommonSubExpressionRewriter.CommonSubE
 import static com.facebook.presto.sql.gen.CommonSubExpressionRewriter.collectCSEByLevel;
 import static com.facebook.presto.sql.gen.CommonSubExpressionRewriter.getExpressionsPartitionedByCSE;
 import static com.facebook.presto.sql.gen.CommonSubExpressionRewriter.rewriteExpressionWithCSE;
+import static com.facebook.presto.sql.gen.CompiledExpressionHistory.Kind.FILTER;
+import static com.facebook.presto.sql.gen.CompiledExpressionHistory.Kind.PROJECTION;
 import static com.facebook.presto.sql.gen.LambdaBytecodeGenerator.generateMethodsForLambda;
 import static com.facebook.presto.sql.relational.Expressions.subExpressions;
 import static com.facebook.presto.util.CompilerUtils.defineClass;
@@ -120,6 +125,7 @@ import static com.google.common.base.Throwables.throwIfInstanceOf;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 
@@ -130,6 +136,8 @@ public class PageFunctionCompiler
     // spent in evaluate. The root cause is not well understood. Maybe when the function is too large JIT has problem optimizing it. Empirical evidence shows that when there
     // are less than 10 projections performance is generally better with common sub-expressions. So we set an upper limit on how many projections we would compile together here.
     private static final int MAX_PROJECTION_GROUP_SIZE = 10;
+    // track more expressions than are warmed up, so that the most used ones are not evicted by one-off expressions
+    private static final int HISTORY_SIZE_MULTIPLIER = 4;
 
     private final Metadata metadata;
     private final DeterminismEvaluator determinismEvaluator;
@@ -140,15 +148,29 @@ public class PageFunctionCompiler
     private final CacheStatsMBean projectionCacheStats;
     private final CacheStatsMBean filterCacheStats;
 
+    private final Optional<CompiledExpressionHistory> expressionHistory;
+    private final boolean columnarEvaluationEnabled;
+
     @Inject
     public PageFunctionCompiler(Metadata metadata, CompilerConfig config)
     {
-        this(metadata, requireNonNull(config, "config is null").getExpressionCacheSize());
+        this(
+                metadata,
+                requireNonNull(config, "config is null").getExpressionCacheSize(),
+                config.getExpressionWarmupFile() == null ? Optional.empty() : Optional.of(new CompiledExpressionHistory(config.getExpressionWarmupSize() * HISTORY_SIZE_MULTIPLIER)),
+                config.isColumnarEvaluationEnabled());
     }
 
     public PageFunctionCompiler(Metadata metadata, int expressionCacheSize)
+    {
+        this(metadata, expressionCacheSize, Optional.empty(), false);
+    }
+
+    public PageFunctionCompiler(Metadata metadata, int expressionCacheSize, Optional<CompiledExpressionHistory> expressionHistory, boolean columnarEvaluationEnabled)
     {
         this.metadata = requireNonNull(metadata, "metadata is null");
+        this.expressionHistory = requireNonNull(expressionHistory, "expressionHistory is null");
+        this.columnarEvaluationEnabled = columnarEvaluationEnabled;
         this.determinismEvaluator = new RowExpressionDeterminismEvaluator(metadata.getFunctionAndTypeManager());
 
         if (expressionCacheSize > 0) {
@@ -192,6 +214,11 @@ public class PageFunctionCompiler
         return filterCacheStats;
     }
 
+    public Optional<CompiledExpressionHistory> getExpressionHistory()
+    {
+        return expressionHistory;
+    }
+
     public List<Supplier<PageProjectionWithOutputs>> compileProjections(
             SqlFunctionProperties sqlFunctionProperties,
             Map<SqlFunctionId, SqlInvokedFunction> sessionFunctions,
@@ -199,47 +226,70 @@ public class PageFunctionCompiler
             boolean isOptimizeCommonSubExpression,
             Optional<String> classNameSuffix)
     {
-        if (isOptimizeCommonSubExpression) {
-            ImmutableList.Builder<Supplier<PageProjectionWithOutputs>> pageProjections = ImmutableList.builder();
-            ImmutableMap.Builder<RowExpression, Integer> expressionsWithPositionBuilder = ImmutableMap.builder();
-            Set<RowExpression> expressionCandidates = new HashSet<>();
-            for (int i = 0; i < projections.size(); i++) {
-                RowExpression projection = projections.get(i);
-                // Duplicate expressions are not expected here in general due to duplicate assignments pruning in query optimization, hence we skip CSE for them to allow for a
-                // simpler implementation (and duplicate projections in expressionsWithPositionBuilder will throw exception when calling expressionsWithPositionBuilder.build())
-                if (projection instanceof ConstantExpression || projection instanceof InputReferenceExpression || expressionCandidates.contains(projection)) {
-                    pageProjections.add(toPageProjectionWithOutputs(compileProjection(sqlFunctionProperties, sessionFunctions, projection, classNameSuffix), new int[] {i}));
-                }
-                else {
-                    expressionsWithPositionBuilder.put(projection, i);
-                    expressionCandidates.add(projection);
-                }
+        ImmutableList.Builder<Supplier<PageProjectionWithOutputs>> pageProjections = ImmutableList.builder();
+        for (ProjectionGroup group : groupProjections(projections, isOptimizeCommonSubExpression)) {
+            List<Integer> outputChannels = group.getOutputChannels();
+            Supplier<PageProjection> pageProjection;
+            if (group.hasCommonSubExpressions()) {
+                List<RowExpression> groupExpressions = outputChannels.stream()
+                        .map(projections::get)
+                        .collect(toImmutableList());
+                pageProjection = compileProjectionCached(sqlFunctionProperties, sessionFunctions, groupExpressions, true, classNameSuffix);
+            }
+            else {
+                pageProjection = compileProjection(sqlFunctionProperties, sessionFunctions, projections.get(getOnlyElement(outputChannels)), classNameSuffix);
+            }
+            pageProjections.add(toPageProjectionWithOutputs(pageProjection, toIntArray(outputChannels)));
+        }
+        return pageProjections.build();
+    }
+
+    /**
+     * Returns the index of the function compiled for each projection by {@link #compileProjections}.
+     */
+    public static List<Integer> getProjectionGroups(List<? extends RowExpression> projections, boolean isOptimizeCommonSubExpression)
+    {
+        Integer[] groups = new Integer[projections.size()];
+        List<ProjectionGroup> projectionGroups = groupProjections(projections, isOptimizeCommonSubExpression);
+        for (int group = 0; group < projectionGroups.size(); group++) {
+            for (int outputChannel : projectionGroups.get(group).getOutputChannels()) {
+                groups[outputChannel] = group;
             }
-            Map<RowExpression, Integer> expressionsWithPosition = expressionsWithPositionBuilder.build();
+        }
+        return ImmutableList.copyOf(groups);
+    }
 
-            Map<List<RowExpression>, Boolean> projectionsPartitionedByCSE = getExpressionsPartitionedByCSE(expressionsWithPosition.keySet(), MAX_PROJECTION_GROUP_SIZE);
+    /**
+     * Groups the projections into the functions they are compiled into, in the order they are compiled.
+     */
+    private static List<ProjectionGroup> groupProjections(List<? extends RowExpression> projections, boolean isOptimizeCommonSubExpression)
+    {
+        ImmutableList.Builder<ProjectionGroup> groups = ImmutableList.builder();
+        if (!isOptimizeCommonSubExpression) {
+            for (int i = 0; i < projections.size(); i++) {
+                groups.add(new ProjectionGroup(ImmutableList.of(i), false));
+            }
+            return groups.build();
+        }
 
-            for (Map.Entry<List<RowExpression>, Boolean> entry : projectionsPartitionedByCSE.entrySet()) {
-                if (entry.getValue()) {
-                    pageProjections.add(toPageProjectionWithOutputs(
-                            compileProjectionCached(sqlFunctionProperties, sessionFunctions, entry.getKey(), true, classNameSuffix),
-                            toIntArray(entry.getKey().stream().map(expressionsWithPosition::get).collect(toImmutableList()))));
-                }
-                else {
-                    verify(entry.getKey().size() == 1, "Expect non-cse expression list to only have one element");
-                    RowExpression projection = entry.getKey().get(0);
-                    pageProjections.add(toPageProjectionWithOutputs(
-                            compileProjection(sqlFunctionProperties, sessionFunctions, projection, classNameSuffix),
-                            new int[] {expressionsWithPosition.get(projection)}));
-                }
+        Map<RowExpression, Integer> expressionsWithPosition = new LinkedHashMap<>();
+        for (int i = 0; i < projections.size(); i++) {
+            RowExpression projection = projections.get(i);
+            // Duplicate expressions are not expected here in general due to duplicate assignments pruning in query optimization, hence we skip CSE for them to allow for a
+            // simpler implementation
+            if (projection instanceof ConstantExpression || projection instanceof InputReferenceExpression || expressionsWithPosition.containsKey(projection)) {
+                groups.add(new ProjectionGroup(ImmutableList.of(i), false));
+            }
+            else {
+                expressionsWithPosition.put(projection, i);
             }
-            return pageProjections.build();
         }
-        return IntStream.range(0, projections.size())
-                .mapToObj(outputChannel -> toPageProjectionWithOutputs(
-                        compileProjection(sqlFunctionProperties, sessionFunctions, projections.get(outputChannel), classNameSuffix),
-                        new int[] {outputChannel}))
-                .collect(toImmutableList());
+
+        for (Map.Entry<List<RowExpression>, Boolean> entry : getExpressionsPartitionedByCSE(expressionsWithPosition.keySet(), MAX_PROJECTION_GROUP_SIZE).entrySet()) {
+            verify(entry.getValue() || entry.getKey().size() == 1, "Expect non-cse expression list to only have one element");
+            groups.add(new ProjectionGroup(entry.getKey().stream().map(expressionsWithPosition::get).collect(toImmutableList()), entry.getValue()));
+        }
+        return groups.build();
     }
 
     @VisibleForTesting
@@ -279,6 +329,12 @@ public class PageFunctionCompiler
             return () -> projectionFunction;
         }
 
+        Optional<PageProjection> blockFunctionProjection = BlockFunctionPageProjection.tryCreate(metadata.getFunctionAndTypeManager(), projection);
+        if (blockFunctionProjection.isPresent()) {
+            PageProjection projectionFunction = blockFunctionProjection.get();
+            return () -> projectionFunction;
+        }
+
         return compileProjectionCached(sqlFunctionProperties, sessionFunctions, ImmutableList.of(projection), false, classNameSuffix);
     }
 
@@ -289,6 +345,7 @@ public class PageFunctionCompiler
             boolean isOptimizeCommonSubExpression,
             Optional<String> classNameSuffix)
     {
+        recordExpressions(PROJECTION, sqlFunctionProperties, sessionFunctions, projections, isOptimizeCommonSubExpression);
         if (projectionCache == null) {
             return compileProjectionInternal(sqlFunctionProperties, sessionFunctions, projections, isOptimizeCommonSubExpression, classNameSuffix);
         }
@@ -301,6 +358,37 @@ public class PageFunctionCompiler
         }
     }
 
+    /**
+     * Compiles a recorded filter or projection into the caches, without producing a page processor.
+     */
+    public void compileRecorded(CompiledExpressionHistory.Entry entry)
+    {
+        SqlFunctionProperties sqlFunctionProperties = entry.getProperties().toSqlFunctionProperties();
+        switch (entry.getKind()) {
+            case FILTER:
+                compileFilter(sqlFunctionProperties, emptyMap(), getOnlyElement(entry.getExpressions()), entry.isOptimizeCommonSubExpression(), Optional.empty());
+                break;
+            case PROJECTION:
+                compileProjectionCached(sqlFunctionProperties, emptyMap(), entry.getExpressions(), entry.isOptimizeCommonSubExpression(), Optional.empty());
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported kind: " + entry.getKind());
+        }
+    }
+
+    private void recordExpressions(
+            Kind kind,
+            SqlFunctionProperties sqlFunctionProperties,
+            Map<SqlFunctionId, SqlInvokedFunction> sessionFunctions,
+            List<RowExpression> expressions,
+            boolean isOptimizeCommonSubExpression)
+    {
+        // expressions that use session functions cannot be compiled outside of their session
+        if (expressionHistory.isPresent() && sessionFunctions.isEmpty()) {
+            expressionHistory.get().record(kind, sqlFunctionProperties, expressions, isOptimizeCommonSubExpression);
+        }
+    }
+
     private Supplier<PageProjectionWithOutputs> toPageProjectionWithOutputs(Supplier<PageProjection> pageProjection, int[] outputChannels)
     {
         return () -> new PageProjectionWithOutputs(pageProjection.get(), outputChannels);
@@ -316,6 +404,14 @@ public class PageFunctionCompiler
         requireNonNull(projections, "projections is null");
         checkArgument(!projections.isEmpty() && projections.stream().allMatch(projection -> projection instanceof CallExpression || projection instanceof SpecialFormExpression));
 
+        // the columnar projections are cached with the generated ones, so that the expression is only analyzed once
+        if (columnarEvaluationEnabled && projections.size() == 1) {
+            Optional<Supplier<PageProjection>> columnarProjection = ColumnarPageProjection.tryCreate(metadata.getFunctionAndTypeManager(), projections.get(0));
+            if (columnarProjection.isPresent()) {
+                return columnarProjection.get();
+            }
+        }
+
         PageFieldsToInputParametersRewriter.Result result = rewritePageFieldsToInputParameters(projections);
         List<RowExpression> rewrittenExpression = result.getRewrittenExpressions();
 
@@ -651,6 +747,7 @@ public class PageFunctionCompiler
             boolean isOptimizeCommonSubExpression,
             Optional<String> classNameSuffix)
     {
+        recordExpressions(FILTER, sqlFunctionProperties, sessionFunctions, ImmutableList.of(filter), isOptimizeCommonSubExpression);
         if (filterCache == null) {
             return compileFilterInternal(sqlFunctionProperties, sessionFunctions, filter, isOptimizeCommonSubExpression, classNameSuffix);
         }
@@ -672,6 +769,14 @@ public class PageFunctionCompiler
     {
         requireNonNull(filter, "filter is null");
 
+        // the columnar filters are cached with the generated ones, so that the expression is only analyzed once
+        if (columnarEvaluationEnabled) {
+            Optional<Supplier<PageFilter>> columnarFilter = ColumnarPageFilter.tryCreate(metadata.getFunctionAndTypeManager(), filter);
+            if (columnarFilter.isPresent()) {
+                return columnarFilter.get();
+            }
+        }
+
         PageFieldsToInputParametersRewriter.Result result = rewritePageFieldsToInputParameters(filter);
 
         CallSiteBinder callSiteBinder = new CallSiteBinder();
@@ -978,6 +1083,28 @@ public class PageFunctionCompiler
         }
     }
 
+    private static final class ProjectionGroup
+    {
+        private final List<Integer> outputChannels;
+        private final boolean commonSubExpressions;
+
+        private ProjectionGroup(List<Integer> outputChannels, boolean commonSubExpressions)
+        {
+            this.outputChannels = ImmutableList.copyOf(requireNonNull(outputChannels, "outputChannels is null"));
+            this.commonSubExpressions = commonSubExpressions;
+        }
+
+        public List<Integer> getOutputChannels()
+        {
+            return outputChannels;
+        }
+
+        public boolean hasCommonSubExpressions()
+        {
+            return commonSubExpressions;
+        }
+    }
+
     private static final class CacheKey
     {
         private final SqlFunctionProperties sqlFunctionProperties;
@@ -989,7 +1116,7 @@ public class PageFunctionCompiler
         {
             requireNonNull(rowExpressions, "rowExpressions is null");
             checkArgument(rowExpressions.size() >= 1, "Expect at least one RowExpression");
-            this.sqlFunctionProperties = requireNonNull(sqlFunctionProperties, "sqlFunctionProperties is null");
+            this.sqlFunctionProperties = withoutQueryProperties(requireNonNull(sqlFunctionProperties, "sqlFunctionProperties is null"));
             this.sessionFunctions = requireNonNull(sessionFunctions, "sessionFunctions is null");
             this.rowExpressions = ImmutableList.copyOf(rowExpressions);
             this.isOptimizeCommonSubExpression = isOptimizeCommonSubExpression;
@@ -1015,5 +1142,15 @@ public class PageFunctionCompiler
         {
             return Objects.hash(sqlFunctionProperties, rowExpressions, isOptimizeCommonSubExpression);
         }
+
+        /**
+         * The start time, user and credentials of a query are only read by the generated code at runtime, from the
+         * properties passed to the page function, so they are left out of the key for queries to share classes.
+         * The properties kept are the ones recorded in the history, so that warmed up classes are found again.
+         */
+        private static SqlFunctionProperties withoutQueryProperties(SqlFunctionProperties properties)
+        {
+            return FunctionProperties.from(properties).toSqlFunctionProperties();
+        }
     }
 }
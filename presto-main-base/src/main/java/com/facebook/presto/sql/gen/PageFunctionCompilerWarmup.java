@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.client.NodeVersion;
+import com.facebook.presto.sql.gen.CompiledExpressionHistory.Entry;
+import com.facebook.presto.sql.planner.CompilerConfig;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Keeps the most used page filters and projections in a file across restarts and compiles them
+ * in the background on startup. Generated classes bind method handles and constants at runtime,
+ * so the expressions are kept rather than the class bytes, together with the session function
+ * properties they were compiled for, so that the warmed up classes are found in the caches by
+ * the queries of sessions with the same properties.
+ */
+public class PageFunctionCompilerWarmup
+{
+    private static final Logger log = Logger.get(PageFunctionCompilerWarmup.class);
+
+    private final PageFunctionCompiler compiler;
+    private final Optional<Path> warmupFile;
+    private final int warmupSize;
+    private final String version;
+    private final JsonCodec<CompiledExpressions> codec;
+    private final ExecutorService executor = newSingleThreadExecutor(daemonThreadsNamed("page-function-compiler-warmup"));
+
+    @Inject
+    public PageFunctionCompilerWarmup(PageFunctionCompiler compiler, CompilerConfig config, NodeVersion nodeVersion, JsonCodec<CompiledExpressions> codec)
+    {
+        this(
+                compiler,
+                Optional.ofNullable(requireNonNull(config, "config is null").getExpressionWarmupFile()).map(Paths::get),
+                config.getExpressionWarmupSize(),
+                requireNonNull(nodeVersion, "nodeVersion is null").getVersion(),
+                codec);
+    }
+
+    @VisibleForTesting
+    PageFunctionCompilerWarmup(PageFunctionCompiler compiler, Optional<Path> warmupFile, int warmupSize, String version, JsonCodec<CompiledExpressions> codec)
+    {
+        this.compiler = requireNonNull(compiler, "compiler is null");
+        this.warmupFile = requireNonNull(warmupFile, "warmupFile is null");
+        this.warmupSize = warmupSize;
+        this.version = requireNonNull(version, "version is null");
+        this.codec = requireNonNull(codec, "codec is null");
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        // queries arriving before the warmup completes compile their expressions themselves
+        executor.execute(this::warmUp);
+    }
+
+    @VisibleForTesting
+    void warmUp()
+    {
+        if (!warmupFile.isPresent() || !Files.exists(warmupFile.get())) {
+            return;
+        }
+        CompiledExpressions expressions;
+        try {
+            expressions = codec.fromJson(Files.readAllBytes(warmupFile.get()));
+        }
+        catch (IOException | IllegalArgumentException e) {
+            log.warn(e, "Failed to read compiled expressions from %s", warmupFile.get());
+            return;
+        }
+        if (!expressions.getVersion().equals(version)) {
+            // functions and expressions may have changed between versions
+            log.info("Skipping compiled expressions recorded by version %s", expressions.getVersion());
+            return;
+        }
+
+        long start = System.nanoTime();
+        int compiled = 0;
+        for (Entry entry : expressions.getEntries()) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                compiler.compileRecorded(entry);
+                compiled++;
+            }
+            catch (RuntimeException e) {
+                log.debug(e, "Failed to compile recorded expressions %s", entry.getExpressions());
+            }
+        }
+        log.info("Compiled %s of %s recorded expressions in %sms", compiled, expressions.getEntries().size(), NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        executor.shutdownNow();
+        save();
+    }
+
+    @VisibleForTesting
+    void save()
+    {
+        Optional<CompiledExpressionHistory> history = compiler.getExpressionHistory();
+        if (!warmupFile.isPresent() || !history.isPresent()) {
+            return;
+        }
+        Path file = warmupFile.get();
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.write(temporaryFile, codec.toJsonBytes(new CompiledExpressions(version, history.get().getMostUsed(warmupSize))));
+            Files.move(temporaryFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        }
+        catch (IOException | IllegalArgumentException e) {
+            log.warn(e, "Failed to write compiled expressions to %s", file);
+        }
+    }
+
+    public static class CompiledExpressions
+    {
+        private final String version;
+        private final List<Entry> entries;
+
+        @JsonCreator
+        public CompiledExpressions(@JsonProperty("version") String version, @JsonProperty("entries") List<Entry> entries)
+        {
+            this.version = requireNonNull(version, "version is null");
+            this.entries = ImmutableList.copyOf(requireNonNull(entries, "entries is null"));
+        }
+
+        @JsonProperty
+        public String getVersion()
+        {
+            return version;
+        }
+
+        @JsonProperty
+        public List<Entry> getEntries()
+        {
+            return entries;
+        }
+    }
+}
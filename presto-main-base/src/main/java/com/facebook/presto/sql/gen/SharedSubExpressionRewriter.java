@@ -0,0 +1,302 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.expressions.RowExpressionRewriter;
+import com.facebook.presto.expressions.RowExpressionTreeRewriter;
+import com.facebook.presto.metadata.FunctionAndTypeManager;
+import com.facebook.presto.spi.relation.CallExpression;
+import com.facebook.presto.spi.relation.DeterminismEvaluator;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
+import com.facebook.presto.spi.relation.LambdaDefinitionExpression;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.SpecialFormExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.ROW_CONSTRUCTOR;
+import static com.facebook.presto.sql.relational.Expressions.field;
+import static com.facebook.presto.sql.relational.Expressions.subExpressions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Finds the function calls that are computed by more than one of the separately compiled functions of a
+ * page processor, and rewrites the functions to read them from extra input channels instead:
+ * <ul>
+ * <li>a call computed by a conjunct of the filter, and used by the projections or by a later conjunct, is
+ * computed on the positions that reach the conjunct, before it is evaluated</li>
+ * <li>a call computed by projections that are compiled separately is computed on the selected positions,
+ * before the projections are evaluated</li>
+ * </ul>
+ * Only calls that are evaluated for every position reaching the function that shares them are considered,
+ * so that sharing never computes a call on a position where the original expressions would not. As the
+ * arguments of a call after the first are not evaluated when an earlier one is null, and the branches of
+ * conditional forms depend on their condition, these are the calls reached through first arguments only.
+ * Operators are not shared, as they are cheaper to compute again than to copy.
+ */
+public final class SharedSubExpressionRewriter
+{
+    private SharedSubExpressionRewriter() {}
+
+    /**
+     * @param projectionGroups the index of the compiled function of each projection
+     */
+    public static Optional<SharedSubExpressions> rewrite(
+            List<RowExpression> conjuncts,
+            List<RowExpression> projections,
+            List<Integer> projectionGroups,
+            FunctionAndTypeManager functionAndTypeManager,
+            DeterminismEvaluator determinismEvaluator)
+    {
+        checkArgument(projections.size() == projectionGroups.size(), "projections and projectionGroups do not match");
+        int firstChannel = 0;
+        for (RowExpression expression : concat(conjuncts, projections)) {
+            for (RowExpression subExpression : subExpressions(expression)) {
+                if (subExpression instanceof InputReferenceExpression) {
+                    firstChannel = Math.max(firstChannel, ((InputReferenceExpression) subExpression).getField() + 1);
+                }
+            }
+        }
+
+        // the calls shared by the filter, computed before the first conjunct that always evaluates them
+        Set<RowExpression> projectionCalls = calls(projections);
+        Set<RowExpression> chosen = new HashSet<>();
+        List<List<RowExpression>> conjunctSubExpressions = new ArrayList<>();
+        for (int conjunct = 0; conjunct < conjuncts.size(); conjunct++) {
+            Set<RowExpression> laterCalls = calls(conjuncts.subList(conjunct + 1, conjuncts.size()));
+            List<RowExpression> shared = new ArrayList<>();
+            for (CallExpression call : unconditionalCalls(conjuncts.get(conjunct))) {
+                if (!chosen.contains(call)
+                        && (projectionCalls.contains(call) || laterCalls.contains(call))
+                        && isShareable(call, functionAndTypeManager, determinismEvaluator)) {
+                    shared.add(call);
+                }
+            }
+            shared = removeNested(shared);
+            chosen.addAll(shared);
+            conjunctSubExpressions.add(shared);
+        }
+
+        // assign the channels of the calls shared by the filter, and rewrite the conjuncts and the shared calls
+        // in terms of the calls computed by earlier conjuncts
+        Map<RowExpression, RowExpression> channels = new HashMap<>();
+        ImmutableList.Builder<RowExpression> rewrittenConjuncts = ImmutableList.builder();
+        ImmutableList.Builder<List<RowExpression>> rewrittenConjunctSubExpressions = ImmutableList.builder();
+        int channel = firstChannel;
+        for (int conjunct = 0; conjunct < conjuncts.size(); conjunct++) {
+            ImmutableList.Builder<RowExpression> rewrittenShared = ImmutableList.builder();
+            for (RowExpression expression : conjunctSubExpressions.get(conjunct)) {
+                rewrittenShared.add(rewriteCalls(expression, channels));
+            }
+            for (RowExpression expression : conjunctSubExpressions.get(conjunct)) {
+                channels.put(expression, field(channel++, expression.getType()));
+            }
+            rewrittenConjunctSubExpressions.add(rewrittenShared.build());
+            rewrittenConjuncts.add(rewriteCalls(conjuncts.get(conjunct), channels));
+        }
+        List<RowExpression> partiallyRewrittenProjections = projections.stream()
+                .map(projection -> rewriteCalls(projection, channels))
+                .collect(toImmutableList());
+
+        // the calls shared by projections compiled separately, which are always evaluated by one of them
+        Map<RowExpression, Set<Integer>> callGroups = new HashMap<>();
+        Set<CallExpression> unconditionalProjectionCalls = new LinkedHashSet<>();
+        for (int projection = 0; projection < projections.size(); projection++) {
+            for (RowExpression call : calls(ImmutableList.of(partiallyRewrittenProjections.get(projection)))) {
+                callGroups.computeIfAbsent(call, ignored -> new HashSet<>()).add(projectionGroups.get(projection));
+            }
+            unconditionalProjectionCalls.addAll(unconditionalCalls(partiallyRewrittenProjections.get(projection)));
+        }
+        List<RowExpression> projectionSubExpressions = removeNested(unconditionalProjectionCalls.stream()
+                .filter(call -> callGroups.get(call).size() > 1)
+                .filter(call -> isShareable(call, functionAndTypeManager, determinismEvaluator))
+                .collect(toImmutableList()));
+
+        if (chosen.isEmpty() && projectionSubExpressions.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<RowExpression, RowExpression> projectionChannels = new HashMap<>();
+        for (RowExpression expression : projectionSubExpressions) {
+            projectionChannels.put(expression, field(channel++, expression.getType()));
+        }
+        List<RowExpression> rewrittenProjections = partiallyRewrittenProjections.stream()
+                .map(projection -> rewriteCalls(projection, projectionChannels))
+                .collect(toImmutableList());
+
+        return Optional.of(new SharedSubExpressions(
+                firstChannel,
+                rewrittenConjuncts.build(),
+                rewrittenConjunctSubExpressions.build(),
+                rewrittenProjections,
+                projectionSubExpressions));
+    }
+
+    private static boolean isShareable(CallExpression call, FunctionAndTypeManager functionAndTypeManager, DeterminismEvaluator determinismEvaluator)
+    {
+        if (functionAndTypeManager.getFunctionMetadata(call.getFunctionHandle()).getOperatorType().isPresent()
+                || !determinismEvaluator.isDeterministic(call)) {
+            return false;
+        }
+        List<RowExpression> subExpressions = subExpressions(call);
+        return subExpressions.stream().anyMatch(InputReferenceExpression.class::isInstance)
+                && subExpressions.stream().noneMatch(expression -> expression instanceof LambdaDefinitionExpression || expression instanceof VariableReferenceExpression);
+    }
+
+    /**
+     * Returns the calls evaluated whenever the expression is, outermost first.
+     */
+    private static List<CallExpression> unconditionalCalls(RowExpression expression)
+    {
+        ImmutableList.Builder<CallExpression> calls = ImmutableList.builder();
+        addUnconditionalCalls(expression, calls);
+        return calls.build();
+    }
+
+    private static void addUnconditionalCalls(RowExpression expression, ImmutableList.Builder<CallExpression> calls)
+    {
+        if (expression instanceof CallExpression) {
+            CallExpression call = (CallExpression) expression;
+            calls.add(call);
+            if (!call.getArguments().isEmpty()) {
+                addUnconditionalCalls(call.getArguments().get(0), calls);
+            }
+        }
+        else if (expression instanceof SpecialFormExpression) {
+            SpecialFormExpression specialForm = (SpecialFormExpression) expression;
+            if (specialForm.getForm() == ROW_CONSTRUCTOR) {
+                specialForm.getArguments().forEach(argument -> addUnconditionalCalls(argument, calls));
+            }
+            else if (!specialForm.getArguments().isEmpty()) {
+                addUnconditionalCalls(specialForm.getArguments().get(0), calls);
+            }
+        }
+    }
+
+    private static Set<RowExpression> calls(List<RowExpression> expressions)
+    {
+        Set<RowExpression> calls = new HashSet<>();
+        for (RowExpression expression : expressions) {
+            subExpressions(expression).stream()
+                    .filter(CallExpression.class::isInstance)
+                    .forEach(calls::add);
+        }
+        return calls;
+    }
+
+    /**
+     * Removes the expressions contained in another one, which computes them anyway.
+     */
+    private static List<RowExpression> removeNested(List<? extends RowExpression> expressions)
+    {
+        return expressions.stream()
+                .filter(expression -> expressions.stream().noneMatch(other -> !other.equals(expression) && subExpressions(other).contains(expression)))
+                .distinct()
+                .collect(toImmutableList());
+    }
+
+    private static RowExpression rewriteCalls(RowExpression expression, Map<RowExpression, RowExpression> replacements)
+    {
+        if (replacements.isEmpty()) {
+            return expression;
+        }
+        return RowExpressionTreeRewriter.rewriteWith(new RowExpressionRewriter<Void>()
+        {
+            @Override
+            public RowExpression rewriteCall(CallExpression call, Void context, RowExpressionTreeRewriter<Void> treeRewriter)
+            {
+                return replacements.get(call);
+            }
+        }, expression);
+    }
+
+    private static List<RowExpression> concat(List<RowExpression> first, List<RowExpression> second)
+    {
+        return ImmutableList.<RowExpression>builder().addAll(first).addAll(second).build();
+    }
+
+    public static class SharedSubExpressions
+    {
+        private final int firstChannel;
+        private final List<RowExpression> conjuncts;
+        private final List<List<RowExpression>> conjunctSubExpressions;
+        private final List<RowExpression> projections;
+        private final List<RowExpression> projectionSubExpressions;
+
+        public SharedSubExpressions(
+                int firstChannel,
+                List<RowExpression> conjuncts,
+                List<List<RowExpression>> conjunctSubExpressions,
+                List<RowExpression> projections,
+                List<RowExpression> projectionSubExpressions)
+        {
+            this.firstChannel = firstChannel;
+            this.conjuncts = ImmutableList.copyOf(requireNonNull(conjuncts, "conjuncts is null"));
+            this.conjunctSubExpressions = ImmutableList.copyOf(requireNonNull(conjunctSubExpressions, "conjunctSubExpressions is null"));
+            this.projections = ImmutableList.copyOf(requireNonNull(projections, "projections is null"));
+            this.projectionSubExpressions = ImmutableList.copyOf(requireNonNull(projectionSubExpressions, "projectionSubExpressions is null"));
+        }
+
+        /**
+         * The channel of the first shared sub-expression. The sub-expressions of the conjuncts come first, in
+         * the order of the conjuncts, followed by the sub-expressions of the projections.
+         */
+        public int getFirstChannel()
+        {
+            return firstChannel;
+        }
+
+        public List<RowExpression> getConjuncts()
+        {
+            return conjuncts;
+        }
+
+        /**
+         * The sub-expressions computed before each conjunct, which may refer to those of the earlier conjuncts.
+         */
+        public List<List<RowExpression>> getConjunctSubExpressions()
+        {
+            return conjunctSubExpressions;
+        }
+
+        public boolean hasConjunctSubExpressions()
+        {
+            return conjunctSubExpressions.stream().anyMatch(subExpressions -> !subExpressions.isEmpty());
+        }
+
+        public List<RowExpression> getProjections()
+        {
+            return projections;
+        }
+
+        /**
+         * The sub-expressions computed before the projections, which may refer to those of the conjuncts.
+         */
+        public List<RowExpression> getProjectionSubExpressions()
+        {
+            return projectionSubExpressions;
+        }
+    }
+}
@@ -25,6 +25,9 @@ public class CompilerConfig
     private int expressionCacheSize = 10_000;
     private int leafNodeLimit = 10_000;
     private boolean leafNodeLimitEnabled;
+    private String expressionWarmupFile;
+    private int expressionWarmupSize = 1_000;
+    private boolean columnarEvaluationEnabled;
 
     @Min(0)
     public int getExpressionCacheSize()
@@ -65,4 +68,44 @@ public class CompilerConfig
         this.leafNodeLimitEnabled = enabled;
         return this;
     }
+
+    public String getExpressionWarmupFile()
+    {
+        return expressionWarmupFile;
+    }
+
+    @Config("compiler.expression-warmup-file")
+    @ConfigDescription("File that keeps the most used page filters and projections across restarts, to compile them ahead of time on startup")
+    public CompilerConfig setExpressionWarmupFile(String expressionWarmupFile)
+    {
+        this.expressionWarmupFile = expressionWarmupFile;
+        return this;
+    }
+
+    @Min(1)
+    public int getExpressionWarmupSize()
+    {
+        return expressionWarmupSize;
+    }
+
+    @Config("compiler.expression-warmup-size")
+    @ConfigDescription("Maximum number of page filters and projections compiled ahead of time on startup")
+    public CompilerConfig setExpressionWarmupSize(int expressionWarmupSize)
+    {
+        this.expressionWarmupSize = expressionWarmupSize;
+        return this;
+    }
+
+    public boolean isColumnarEvaluationEnabled()
+    {
+        return columnarEvaluationEnabled;
+    }
+
+    @Config("compiler.columnar-evaluation-enabled")
+    @ConfigDescription("Evaluate simple arithmetic, comparisons, BETWEEN, IN and widening casts over fixed width columns with loops over the block values instead of generated code")
+    public CompilerConfig setColumnarEvaluationEnabled(boolean columnarEvaluationEnabled)
+    {
+        this.columnarEvaluationEnabled = columnarEvaluationEnabled;
+        return this;
+    }
 }
@@ -268,6 +268,7 @@ import static com.facebook.presto.SystemSessionProperties.getIndexLoaderTimeout;
 import static com.facebook.presto.SystemSessionProperties.getTaskConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskPartitionedWriterCount;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isAdaptiveFilterReorderingEnabled;
 import static com.facebook.presto.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
 import static com.facebook.presto.SystemSessionProperties.isEnableDynamicFiltering;
 import static com.facebook.presto.SystemSessionProperties.isExchangeChecksumEnabled;
@@ -277,6 +278,7 @@ import static com.facebook.presto.SystemSessionProperties.isOptimizeCommonSubExp
 import static com.facebook.presto.SystemSessionProperties.isOptimizeJoinProbeForEmptyBuildRuntimeEnabled;
 import static com.facebook.presto.SystemSessionProperties.isOptimizedRepartitioningEnabled;
 import static com.facebook.presto.SystemSessionProperties.isQuickDistinctLimitEnabled;
+import static com.facebook.presto.SystemSessionProperties.isShareCommonSubExpressionsAcrossFunctions;
 import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.TypeSignature.parseTypeSignature;
@@ -1535,7 +1537,9 @@ public class LocalExecutionPlanner
                             projections,
                             isOptimizeCommonSubExpressions(session),
                             session.getSessionFunctions(),
-                            Optional.of(context.getStageExecutionId() + "_" + planNodeId));
+                            Optional.of(context.getStageExecutionId() + "_" + planNodeId),
+                            isAdaptiveFilterReorderingEnabled(session),
+                            isShareCommonSubExpressionsAcrossFunctions(session));
 
                     SourceOperatorFactory operatorFactory = new ScanFilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
@@ -1560,7 +1564,9 @@ public class LocalExecutionPlanner
                             projections,
                             isOptimizeCommonSubExpressions(session),
                             session.getSessionFunctions(),
-                            Optional.of(context.getStageExecutionId() + "_" + planNodeId));
+                            Optional.of(context.getStageExecutionId() + "_" + planNodeId),
+                            isAdaptiveFilterReorderingEnabled(session),
+                            isShareCommonSubExpressionsAcrossFunctions(session));
 
                     OperatorFactory operatorFactory = new FilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.ArrayType;
+import com.facebook.presto.common.type.VarcharType;
+import com.facebook.presto.expressions.RowExpressionRewriter;
+import com.facebook.presto.expressions.RowExpressionTreeRewriter;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.metadata.FunctionAndTypeManager;
+import com.facebook.presto.operator.scalar.JsonPathScanner;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.plan.Assignments;
+import com.facebook.presto.spi.plan.ProjectNode;
+import com.facebook.presto.spi.relation.CallExpression;
+import com.facebook.presto.spi.function.FunctionHandle;
+import com.facebook.presto.spi.relation.ConstantExpression;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.SpecialFormExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.analyzer.FunctionAndTypeResolver;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.relational.FunctionResolution;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.SystemSessionProperties.isCombineJsonExtractScalarEnabled;
+import static com.facebook.presto.SystemSessionProperties.isNativeExecutionEnabled;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
+import static com.facebook.presto.sql.planner.plan.Patterns.project;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * For multiple json_extract_scalar() function calls on the same column with different constant paths, extract all the paths with one
+ * scan of the JSON value.
+ * <p>
+ * From:
+ * <pre>
+ * - Project (json_extract_scalar(col, '$.a'), json_extract_scalar(col, '$.b'))
+ * </pre>
+ * To:
+ * <pre>
+ * - Project (element_at(json_extract_scalar_results, 1), element_at(json_extract_scalar_results, 2))
+ *   - Project (col <- col, json_extract_scalar_results <- json_extract_scalars(col, ['$.a', '$.b']))
+ * </pre>
+ * <p>
+ * Only paths in the Presto JSON path syntax are combined, as the others are evaluated by a different implementation. Only the
+ * calls evaluated for every row are combined, and not the ones in a branch of a conditional expression, which would otherwise be
+ * extracted for the rows that do not need them; a call in a branch still reads the results when its path is extracted anyway.
+ */
+public class CombineJsonExtractScalarFunctions
+        implements Rule<ProjectNode>
+{
+    private static final String JSON_EXTRACT_SCALAR = "json_extract_scalar";
+    private static final String JSON_EXTRACT_SCALARS = "json_extract_scalars";
+    private static final String ELEMENT_AT = "element_at";
+    private static final ArrayType VARCHAR_ARRAY = new ArrayType(VARCHAR);
+
+    private static final Pattern<ProjectNode> PATTERN = project();
+
+    private final FunctionAndTypeManager functionAndTypeManager;
+    private final FunctionAndTypeResolver functionAndTypeResolver;
+    private final FunctionResolution functionResolution;
+
+    public CombineJsonExtractScalarFunctions(FunctionAndTypeManager functionAndTypeManager)
+    {
+        this.functionAndTypeManager = requireNonNull(functionAndTypeManager, "functionAndTypeManager is null");
+        this.functionAndTypeResolver = functionAndTypeManager.getFunctionAndTypeResolver();
+        this.functionResolution = new FunctionResolution(functionAndTypeResolver);
+    }
+
+    @Override
+    public Pattern<ProjectNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        // json_extract_scalars is not available in native execution
+        return isCombineJsonExtractScalarEnabled(session) && !isNativeExecutionEnabled(session);
+    }
+
+    @Override
+    public Result apply(ProjectNode node, Captures captures, Context context)
+    {
+        Set<VariableReferenceExpression> sourceVariables = ImmutableSet.copyOf(node.getSource().getOutputVariables());
+
+        // Group the distinct paths by the column they are extracted from
+        Map<VariableReferenceExpression, Set<String>> columnPaths = new LinkedHashMap<>();
+        for (RowExpression expression : node.getAssignments().getExpressions()) {
+            collectUnconditionalPaths(expression, sourceVariables, columnPaths);
+        }
+        columnPaths.values().removeIf(paths -> paths.size() < 2 || paths.size() > JsonPathScanner.MAX_PATHS);
+        if (columnPaths.isEmpty()) {
+            return Result.empty();
+        }
+
+        // Build a project node as the source of the original one, which extracts all the paths of each column
+        Assignments.Builder sourceAssignments = Assignments.builder();
+        node.getSource().getOutputVariables().forEach(variable -> sourceAssignments.put(variable, variable));
+        Map<VariableReferenceExpression, Map<String, RowExpression>> elements = new HashMap<>();
+        columnPaths.forEach((column, paths) -> {
+            List<String> pathList = new ArrayList<>(paths);
+            BlockBuilder pathsBuilder = VARCHAR.createBlockBuilder(null, pathList.size());
+            pathList.forEach(path -> VARCHAR.writeSlice(pathsBuilder, utf8Slice(path)));
+            CallExpression extractCall = call(
+                    functionAndTypeManager,
+                    JSON_EXTRACT_SCALARS,
+                    VARCHAR_ARRAY,
+                    ImmutableList.of(column, constant(pathsBuilder.build(), VARCHAR_ARRAY)));
+            VariableReferenceExpression results = context.getVariableAllocator().newVariable(extractCall);
+            sourceAssignments.put(results, extractCall);
+
+            Map<String, RowExpression> columnElements = new HashMap<>();
+            for (int i = 0; i < pathList.size(); i++) {
+                columnElements.put(pathList.get(i), call(functionAndTypeManager, ELEMENT_AT, VARCHAR, ImmutableList.of(results, constant((long) i + 1, BIGINT))));
+            }
+            elements.put(column, columnElements);
+        });
+
+        // Replace the calls with the elements of the results
+        Assignments.Builder assignments = Assignments.builder();
+        node.getAssignments().forEach((variable, expression) -> assignments.put(variable, RowExpressionTreeRewriter.rewriteWith(new RowExpressionRewriter<Void>()
+        {
+            @Override
+            public RowExpression rewriteCall(CallExpression call, Void context, RowExpressionTreeRewriter<Void> treeRewriter)
+            {
+                Optional<String> path = getPath(call, sourceVariables);
+                if (!path.isPresent() || !elements.containsKey(call.getArguments().get(0))) {
+                    return null;
+                }
+                return elements.get(call.getArguments().get(0)).get(path.get());
+            }
+        }, expression)));
+
+        return Result.ofPlanNode(new ProjectNode(
+                node.getSourceLocation(),
+                node.getId(),
+                new ProjectNode(context.getIdAllocator().getNextId(), node.getSource(), sourceAssignments.build()),
+                assignments.build(),
+                node.getLocality()));
+    }
+
+    /**
+     * Adds the paths of the json_extract_scalar calls of an expression that are evaluated for every row. Only the first argument
+     * of a conditional expression is, and a lambda body is evaluated for the elements of a value rather than for the row.
+     */
+    private void collectUnconditionalPaths(RowExpression expression, Set<VariableReferenceExpression> sourceVariables, Map<VariableReferenceExpression, Set<String>> columnPaths)
+    {
+        if (expression instanceof CallExpression) {
+            CallExpression call = (CallExpression) expression;
+            Optional<String> path = getPath(call, sourceVariables);
+            if (path.isPresent()) {
+                columnPaths.computeIfAbsent((VariableReferenceExpression) call.getArguments().get(0), column -> new LinkedHashSet<>()).add(path.get());
+                return;
+            }
+            call.getArguments().forEach(argument -> collectUnconditionalPaths(argument, sourceVariables, columnPaths));
+        }
+        else if (expression instanceof SpecialFormExpression) {
+            SpecialFormExpression specialForm = (SpecialFormExpression) expression;
+            switch (specialForm.getForm()) {
+                case IF:
+                case SWITCH:
+                case WHEN:
+                case COALESCE:
+                case AND:
+                case OR:
+                    collectUnconditionalPaths(specialForm.getArguments().get(0), sourceVariables, columnPaths);
+                    break;
+                default:
+                    specialForm.getArguments().forEach(argument -> collectUnconditionalPaths(argument, sourceVariables, columnPaths));
+            }
+        }
+    }
+
+    /**
+     * Returns the path of a json_extract_scalar call on a column of the source with a constant path that can be combined.
+     */
+    private Optional<String> getPath(CallExpression call, Set<VariableReferenceExpression> sourceVariables)
+    {
+        if (!call.getDisplayName().equals(JSON_EXTRACT_SCALAR)
+                || call.getArguments().size() != 2
+                || !call.getType().equals(VARCHAR)
+                || !sourceVariables.contains(call.getArguments().get(0))) {
+            return Optional.empty();
+        }
+        // The name only avoids resolving every call, a function of another namespace may have the same one
+        if (!getJsonExtractScalar(call).equals(Optional.of(call.getFunctionHandle()))) {
+            return Optional.empty();
+        }
+        // The path is a varchar constant, usually cast to JsonPath
+        RowExpression path = call.getArguments().get(1);
+        if (path instanceof CallExpression
+                && functionResolution.isCastFunction(((CallExpression) path).getFunctionHandle())
+                && ((CallExpression) path).getArguments().size() == 1) {
+            path = ((CallExpression) path).getArguments().get(0);
+        }
+        if (!(path instanceof ConstantExpression) || !(path.getType() instanceof VarcharType) || ((ConstantExpression) path).isNull()) {
+            return Optional.empty();
+        }
+        ConstantExpression pathConstant = (ConstantExpression) path;
+        String pattern = ((Slice) pathConstant.getValue()).toStringUtf8();
+        try {
+            if (!JsonPathScanner.create(ImmutableList.of(pattern)).isPresent()) {
+                return Optional.empty();
+            }
+        }
+        catch (PrestoException e) {
+            // not a Presto JSON path
+            return Optional.empty();
+        }
+        return Optional.of(pattern);
+    }
+
+    private Optional<FunctionHandle> getJsonExtractScalar(CallExpression call)
+    {
+        try {
+            return Optional.of(functionAndTypeResolver.lookupFunction(
+                    JSON_EXTRACT_SCALAR,
+                    fromTypes(call.getArguments().stream().map(RowExpression::getType).collect(toImmutableList()))));
+        }
+        catch (PrestoException e) {
+            // no built-in function for these argument types
+            return Optional.empty();
+        }
+    }
+}
@@ -38,6 +38,7 @@ import com.facebook.presto.spi.connector.ConnectorContext;
 import com.facebook.presto.spi.function.FunctionMetadataManager;
 import com.facebook.presto.spi.function.StandardFunctionResolution;
 import com.facebook.presto.spi.plan.FilterStatsCalculatorService;
+import com.facebook.presto.spi.procedure.ProcedureRegistry;
 import com.facebook.presto.spi.relation.DeterminismEvaluator;
 import com.facebook.presto.spi.relation.DomainTranslator;
 import com.facebook.presto.spi.relation.ExpressionOptimizer;
@@ -70,6 +71,7 @@ public class TestingConnectorContext
     private final ExpressionOptimizerProvider expressionOptimizerProvider = (ConnectorSession session) -> new RowExpressionOptimizer(metadata);
     private final FilterStatsCalculatorService filterStatsCalculatorService = new ConnectorFilterStatsCalculatorService(new FilterStatsCalculator(metadata, new ScalarStatsCalculator(metadata, expressionOptimizerProvider), new StatsNormalizer()));
     private final BlockEncodingSerde blockEncodingSerde = new BlockEncodingManager();
+    private final ProcedureRegistry procedureRegistry = new TestProcedureRegistry();
 
     @Override
     public NodeManager getNodeManager()
@@ -156,6 +158,12 @@ public class TestingConnectorContext
         return blockEncodingSerde;
     }
 
+    @Override
+    public ProcedureRegistry getProcedureRegistry()
+    {
+        return procedureRegistry;
+    }
+
     @Override
     public ConnectorSystemConfig getConnectorSystemConfig()
     {
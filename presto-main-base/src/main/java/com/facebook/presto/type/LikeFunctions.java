@@ -70,6 +70,11 @@ public final class LikeFunctions
     @SqlType(StandardTypes.BOOLEAN)
     public static boolean likeVarchar(@SqlType("varchar(x)") Slice value, @SqlType(LikePatternType.NAME) Regex pattern)
     {
+        Object literalMatcher = pattern.getUserObject();
+        if (literalMatcher instanceof LiteralPatternMatcher) {
+            return ((LiteralPatternMatcher) literalMatcher).matches(value);
+        }
+
         // Joni can infinite loop with UTF8Encoding when invalid UTF-8 is encountered.
         // NonStrictUTF8Encoding must be used to avoid this issue.
         Matcher matcher;
@@ -217,7 +222,10 @@ public final class LikeFunctions
         // Option.MULTILINE specifies that wildcard characters (. and *) should match newlines
         // Option.SINGLELINE specifies that anchors (^ and $) should match the beginning and end of
         // input rather than the beginning and end of the line
-        return new Regex(bytes, 0, bytes.length, Option.MULTILINE | Option.SINGLELINE, NonStrictUTF8Encoding.INSTANCE, SYNTAX);
+        Regex result = new Regex(bytes, 0, bytes.length, Option.MULTILINE | Option.SINGLELINE, NonStrictUTF8Encoding.INSTANCE, SYNTAX);
+        // patterns without '_' are matched without the regex engine
+        LiteralPatternMatcher.forLikePattern(patternString, escapeChar, shouldEscape).ifPresent(result::setUserObject);
+        return result;
     }
 
     @SuppressWarnings("NumericCastThatLosesPrecision")
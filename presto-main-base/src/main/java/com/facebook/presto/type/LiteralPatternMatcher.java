@@ -0,0 +1,310 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.type;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Matches patterns made only of literals without a regex engine. A LIKE pattern without {@code _}
+ * is a list of literals separated by {@code %}: the first and the last literal are compared with the
+ * start and the end of the value, unless the pattern starts or ends with {@code %}, and the literals
+ * in between are searched for in order. A regular expression without meta characters is searched for
+ * as a substring, and an alternation of such literals is matched with an Aho-Corasick automaton.
+ * <p>
+ * Literals are compared as UTF-8 bytes. A literal that is valid UTF-8 cannot start in the middle of a
+ * character of the value, so this gives the same result as comparing characters.
+ */
+public abstract class LiteralPatternMatcher
+{
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    // the transition table of the automaton has 256 entries per state
+    @VisibleForTesting
+    static final int MAX_AUTOMATON_STATES = 256;
+
+    private static final String REGEXP_META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    /**
+     * Returns whether the pattern matches the value, with the semantics of the pattern it was created from.
+     */
+    public abstract boolean matches(Slice value);
+
+    /**
+     * Returns a matcher for the LIKE pattern, or empty if the pattern contains {@code _}.
+     * The escapes of the pattern must have been validated.
+     */
+    public static Optional<LiteralPatternMatcher> forLikePattern(String pattern, char escapeChar, boolean shouldEscape)
+    {
+        List<Slice> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean hasWildcard = false;
+        boolean escaped = false;
+        for (char currentChar : pattern.toCharArray()) {
+            if (shouldEscape && !escaped && currentChar == escapeChar) {
+                escaped = true;
+                continue;
+            }
+            if (!escaped && currentChar == '_') {
+                return Optional.empty();
+            }
+            if (!escaped && currentChar == '%') {
+                hasWildcard = true;
+                literals.add(Slices.utf8Slice(literal.toString()));
+                literal.setLength(0);
+            }
+            else {
+                literal.append(currentChar);
+            }
+            escaped = false;
+        }
+        literals.add(Slices.utf8Slice(literal.toString()));
+
+        if (!hasWildcard) {
+            return Optional.of(new ExactMatcher(literals.get(0)));
+        }
+        // the literals before the first and after the last wildcard are anchored, and empty if the pattern starts or ends with a wildcard
+        Slice prefix = literals.get(0);
+        Slice suffix = literals.get(literals.size() - 1);
+        List<Slice> middle = literals.subList(1, literals.size() - 1).stream()
+                .filter(slice -> slice.length() > 0)
+                .collect(ImmutableList.toImmutableList());
+        return Optional.of(new WildcardMatcher(prefix, middle, suffix));
+    }
+
+    /**
+     * Returns a matcher which finds the regular expression in the value, or empty if the expression
+     * is not a literal or an alternation of literals.
+     */
+    public static Optional<LiteralPatternMatcher> forRegexp(String pattern)
+    {
+        for (int i = 0; i < pattern.length(); i++) {
+            char currentChar = pattern.charAt(i);
+            // the engines decode invalid UTF-8 in the value to the replacement character
+            if ((currentChar != '|' && REGEXP_META_CHARACTERS.indexOf(currentChar) >= 0) || currentChar == '\uFFFD') {
+                return Optional.empty();
+            }
+        }
+
+        List<Slice> literals = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int end = pattern.indexOf('|', start);
+            String literal = pattern.substring(start, end == -1 ? pattern.length() : end);
+            if (literal.isEmpty()) {
+                // an empty alternative matches everywhere; leave it to the engine
+                return Optional.empty();
+            }
+            literals.add(Slices.utf8Slice(literal));
+            if (end == -1) {
+                break;
+            }
+            start = end + 1;
+        }
+
+        if (literals.size() == 1) {
+            return Optional.of(new WildcardMatcher(Slices.EMPTY_SLICE, literals, Slices.EMPTY_SLICE));
+        }
+        return AhoCorasickMatcher.create(literals);
+    }
+
+    /**
+     * Returns the first index at or after {@code from} where the needle starts and ends before {@code to}, or -1.
+     * Eight bytes at a time are compared with the first byte of the needle, and only the candidates are compared
+     * with the whole needle.
+     */
+    @VisibleForTesting
+    static int indexOf(Slice haystack, int from, int to, Slice needle)
+    {
+        int needleLength = needle.length();
+        int last = to - needleLength;
+        if (needleLength == 0) {
+            return from <= to ? from : -1;
+        }
+
+        byte first = needle.getByte(0);
+        long pattern = (first & 0xFFL) * ONES;
+        int index = from;
+        while (index + SIZE_OF_LONG <= to && index <= last) {
+            // the high bit of a byte is set if the byte equals the first byte, and possibly for some bytes after it
+            long word = haystack.getLong(index) ^ pattern;
+            long candidates = (word - ONES) & ~word & HIGH_BITS;
+            while (candidates != 0) {
+                int candidate = index + (Long.numberOfTrailingZeros(candidates) >>> 3);
+                if (candidate > last) {
+                    return -1;
+                }
+                if (haystack.equals(candidate, needleLength, needle, 0, needleLength)) {
+                    return candidate;
+                }
+                candidates &= candidates - 1;
+            }
+            index += SIZE_OF_LONG;
+        }
+        for (; index <= last; index++) {
+            if (haystack.getByte(index) == first && haystack.equals(index, needleLength, needle, 0, needleLength)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static final class ExactMatcher
+            extends LiteralPatternMatcher
+    {
+        private final Slice literal;
+
+        private ExactMatcher(Slice literal)
+        {
+            this.literal = requireNonNull(literal, "literal is null");
+        }
+
+        @Override
+        public boolean matches(Slice value)
+        {
+            return value.equals(literal);
+        }
+    }
+
+    private static final class WildcardMatcher
+            extends LiteralPatternMatcher
+    {
+        private final Slice prefix;
+        private final Slice[] middle;
+        private final Slice suffix;
+
+        private WildcardMatcher(Slice prefix, List<Slice> middle, Slice suffix)
+        {
+            this.prefix = requireNonNull(prefix, "prefix is null");
+            this.middle = requireNonNull(middle, "middle is null").toArray(new Slice[0]);
+            this.suffix = requireNonNull(suffix, "suffix is null");
+        }
+
+        @Override
+        public boolean matches(Slice value)
+        {
+            int start = prefix.length();
+            int end = value.length() - suffix.length();
+            if (end < start
+                    || !value.equals(0, prefix.length(), prefix, 0, prefix.length())
+                    || !value.equals(end, suffix.length(), suffix, 0, suffix.length())) {
+                return false;
+            }
+            for (Slice literal : middle) {
+                int index = indexOf(value, start, end, literal);
+                if (index == -1) {
+                    return false;
+                }
+                start = index + literal.length();
+            }
+            return true;
+        }
+    }
+
+    private static final class AhoCorasickMatcher
+            extends LiteralPatternMatcher
+    {
+        // transitions[state * 256 + byte] is the next state
+        private final int[] transitions;
+        private final boolean[] accepting;
+
+        private AhoCorasickMatcher(int[] transitions, boolean[] accepting)
+        {
+            this.transitions = requireNonNull(transitions, "transitions is null");
+            this.accepting = requireNonNull(accepting, "accepting is null");
+        }
+
+        public static Optional<LiteralPatternMatcher> create(List<Slice> literals)
+        {
+            int maxStates = 1 + literals.stream().mapToInt(Slice::length).sum();
+            if (maxStates > MAX_AUTOMATON_STATES) {
+                return Optional.empty();
+            }
+
+            // build the trie, with -1 for a missing edge
+            int[] transitions = new int[maxStates * 256];
+            Arrays.fill(transitions, -1);
+            boolean[] accepting = new boolean[maxStates];
+            int states = 1;
+            for (Slice literal : literals) {
+                int state = 0;
+                for (int i = 0; i < literal.length(); i++) {
+                    int edge = state * 256 + (literal.getByte(i) & 0xFF);
+                    if (transitions[edge] == -1) {
+                        transitions[edge] = states++;
+                    }
+                    state = transitions[edge];
+                }
+                accepting[state] = true;
+            }
+
+            // turn the trie into an automaton, following the failure links in breadth first order
+            int[] failure = new int[states];
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int value = 0; value < 256; value++) {
+                int next = transitions[value];
+                if (next == -1) {
+                    transitions[value] = 0;
+                }
+                else {
+                    failure[next] = 0;
+                    queue.add(next);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.remove();
+                accepting[state] |= accepting[failure[state]];
+                for (int value = 0; value < 256; value++) {
+                    int edge = state * 256 + value;
+                    int next = transitions[edge];
+                    int fallback = transitions[failure[state] * 256 + value];
+                    if (next == -1) {
+                        transitions[edge] = fallback;
+                    }
+                    else {
+                        failure[next] = fallback;
+                        queue.add(next);
+                    }
+                }
+            }
+            return Optional.of(new AhoCorasickMatcher(Arrays.copyOf(transitions, states * 256), Arrays.copyOf(accepting, states)));
+        }
+
+        @Override
+        public boolean matches(Slice value)
+        {
+            int state = 0;
+            for (int i = 0; i < value.length(); i++) {
+                state = transitions[state * 256 + (value.getByte(i) & 0xFF)];
+                if (accepting[state]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
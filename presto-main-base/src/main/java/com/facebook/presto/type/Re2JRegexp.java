@@ -22,6 +22,8 @@ import com.google.re2j.Options;
 import com.google.re2j.Pattern;
 import io.airlift.slice.Slice;
 
+import java.util.Optional;
+
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
 import static com.google.common.base.Preconditions.checkState;
@@ -41,6 +43,8 @@ public final class Re2JRegexp
 
     public final Pattern re2jPattern;
     public final Pattern re2jPatternWithoutDotStartPrefix;
+    // literals and alternations of literals are found without the regex engine
+    private final Optional<LiteralPatternMatcher> literalMatcher;
 
     public Re2JRegexp(int dfaStatesLimit, int dfaRetries, Slice pattern)
     {
@@ -56,6 +60,7 @@ public final class Re2JRegexp
 
         String patternString = pattern.toStringUtf8();
         re2jPattern = Pattern.compile(patternString, options);
+        literalMatcher = LiteralPatternMatcher.forRegexp(patternString);
 
         // Remove .*? prefix. DFA has optimization which does fast lookup for first byte of a potential match.
         // When pattern is prefixed with .*? this optimization doesn't work in Pattern.find() function.
@@ -73,6 +78,9 @@ public final class Re2JRegexp
 
     public boolean matches(Slice source)
     {
+        if (literalMatcher.isPresent()) {
+            return literalMatcher.get().matches(source);
+        }
         return re2jPatternWithoutDotStartPrefix.find(source);
     }
 
@@ -24,6 +24,7 @@ import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.memory.MemoryPoolId;
 import com.facebook.presto.spi.resourceGroups.ResourceGroupId;
 import com.facebook.presto.spi.resourceGroups.ResourceGroupQueryLimits;
+import com.facebook.presto.spi.session.ResourceEstimates;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
@@ -72,11 +73,33 @@ public class MockManagedQueryExecution
     }
 
     public MockManagedQueryExecution(long memoryUsage, String queryId, int priority, Duration cpuUsage, ResourceGroupId resourceGroupId)
+    {
+        this(memoryUsage, priority, cpuUsage, resourceGroupId, new ResourceEstimates(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty()));
+    }
+
+    public MockManagedQueryExecution(long memoryUsage, ResourceEstimates resourceEstimates)
+    {
+        this(memoryUsage, resourceEstimates, System.currentTimeMillis());
+    }
+
+    public MockManagedQueryExecution(long memoryUsage, ResourceEstimates resourceEstimates, long startTime)
+    {
+        this(memoryUsage, 1, new Duration(0, MILLISECONDS), null, resourceEstimates, startTime);
+    }
+
+    private MockManagedQueryExecution(long memoryUsage, int priority, Duration cpuUsage, ResourceGroupId resourceGroupId, ResourceEstimates resourceEstimates)
+    {
+        this(memoryUsage, priority, cpuUsage, resourceGroupId, resourceEstimates, System.currentTimeMillis());
+    }
+
+    private MockManagedQueryExecution(long memoryUsage, int priority, Duration cpuUsage, ResourceGroupId resourceGroupId, ResourceEstimates resourceEstimates, long startTime)
     {
         this.memoryUsage = memoryUsage;
         this.cpuUsage = cpuUsage;
         this.session = testSessionBuilder()
                 .setSystemProperty(QUERY_PRIORITY, String.valueOf(priority))
+                .setResourceEstimates(resourceEstimates)
+                .setStartTime(startTime)
                 .build();
         this.resourceGroupId = resourceGroupId;
     }
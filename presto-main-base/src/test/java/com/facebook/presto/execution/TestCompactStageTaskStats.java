@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.airlift.stats.Distribution;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.operator.TaskStats;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.execution.StageExecutionState.FINISHED;
+import static com.facebook.presto.execution.StageInfo.getAllStages;
+import static com.facebook.presto.execution.TaskState.FAILED;
+import static com.facebook.presto.execution.TaskState.PLANNED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestCompactStageTaskStats
+{
+    @Test
+    public void testCreate()
+    {
+        CompactStageTaskStats stats = CompactStageTaskStats.create(createTasks());
+
+        assertEquals(stats.getTaskCount(), 2);
+        assertEquals(stats.getTaskIds(), new int[] {0, 7});
+        assertEquals(stats.getTaskStates(), new byte[] {(byte) PLANNED.ordinal(), (byte) FAILED.ordinal()});
+        assertEquals(stats.getCpuTimeInNanos(), new long[] {0, 0});
+        assertEquals(stats.getPeakTotalMemoryInBytes(), new long[] {0, 0});
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        CompactStageTaskStats stats = CompactStageTaskStats.create(ImmutableList.of());
+
+        assertEquals(stats.getTaskCount(), 0);
+        assertEquals(stats.getElapsedTimeInNanos().length, 0);
+    }
+
+    @Test
+    public void testJson()
+    {
+        JsonCodec<CompactStageTaskStats> codec = JsonCodec.jsonCodec(CompactStageTaskStats.class);
+        CompactStageTaskStats expected = CompactStageTaskStats.create(createTasks());
+
+        CompactStageTaskStats actual = codec.fromJson(codec.toJson(expected));
+
+        assertEquals(actual.getTaskIds(), expected.getTaskIds());
+        assertEquals(actual.getTaskStates(), expected.getTaskStates());
+        assertEquals(actual.getCpuTimeInNanos(), expected.getCpuTimeInNanos());
+        assertEquals(actual.getPeakTotalMemoryInBytes(), expected.getPeakTotalMemoryInBytes());
+        assertEquals(actual.getRetainedSizeInBytes(), expected.getRetainedSizeInBytes());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "cpuTimeInNanos length 1 does not match task count 2")
+    public void testMismatchedLength()
+    {
+        long[] values = new long[2];
+        new CompactStageTaskStats(new int[2], new byte[2], values, values, values, new long[1], values, values, values, values, values, values, values);
+    }
+
+    @Test
+    public void testCompactStageInfoTree()
+    {
+        StageInfo leaf = createStage(2, ImmutableList.of());
+        StageInfo intermediate = createStage(1, ImmutableList.of(leaf));
+        StageInfo root = createStage(0, ImmutableList.of(intermediate, createStage(3, ImmutableList.of())));
+
+        StageInfo compacted = QueryStateMachine.pruneStatsFromStageInfo(root, true);
+        List<StageInfo> originalStages = getAllStages(Optional.of(root));
+        List<StageInfo> compactedStages = getAllStages(Optional.of(compacted));
+        assertEquals(compactedStages.size(), 4);
+        for (int i = 0; i < compactedStages.size(); i++) {
+            StageInfo original = originalStages.get(i);
+            StageInfo stage = compactedStages.get(i);
+            assertEquals(stage.getStageId(), original.getStageId());
+            assertTrue(stage.getPreviousAttemptsExecutionInfos().isEmpty());
+
+            // the task infos are replaced by their counters, the stage summary is kept
+            StageExecutionInfo executionInfo = stage.getLatestAttemptExecutionInfo();
+            assertTrue(executionInfo.getTasks().isEmpty());
+            assertSame(executionInfo.getStats(), original.getLatestAttemptExecutionInfo().getStats());
+            CompactStageTaskStats taskStats = executionInfo.getCompactTaskStats().get();
+            assertEquals(taskStats.getTaskIds(), new int[] {0, 7});
+            assertEquals(taskStats.getTaskStates()[1], (byte) FAILED.ordinal());
+        }
+
+        // without compaction the stages keep their task infos
+        StageInfo pruned = QueryStateMachine.pruneStatsFromStageInfo(root, false);
+        for (StageInfo stage : getAllStages(Optional.of(pruned))) {
+            assertEquals(stage.getLatestAttemptExecutionInfo().getTasks().size(), 2);
+            assertFalse(stage.getLatestAttemptExecutionInfo().getCompactTaskStats().isPresent());
+        }
+    }
+
+    private static StageInfo createStage(int id, List<StageInfo> subStages)
+    {
+        StageId stageId = new StageId("query", id);
+        StageExecutionInfo executionInfo = StageExecutionInfo.create(
+                new StageExecutionId(stageId, 0),
+                FINISHED,
+                Optional.empty(),
+                createTasks(),
+                0,
+                new Distribution().snapshot(),
+                new RuntimeStats(),
+                0,
+                0,
+                0,
+                0);
+        return new StageInfo(stageId, URI.create("fake://stage/" + id), Optional.empty(), executionInfo, ImmutableList.of(executionInfo), subStages, false);
+    }
+
+    private static List<TaskInfo> createTasks()
+    {
+        URI location = URI.create("fake://task");
+        TaskInfo planned = TaskInfo.createInitialTask(new TaskId("query", 1, 0, 0, 0), location, ImmutableList.of(), new TaskStats(0, 0), "node");
+        TaskInfo failed = TaskInfo.createInitialTask(new TaskId("query", 1, 0, 7, 0), location, ImmutableList.of(), new TaskStats(0, 0), "node");
+        failed = failed.withTaskStatus(TaskStatus.failWith(failed.getTaskStatus(), FAILED, ImmutableList.of()));
+        return ImmutableList.of(planned, failed);
+    }
+}
@@ -85,7 +85,10 @@ public class TestQueryManagerConfig
                 .setRateLimiterCacheLimit(1000)
                 .setRateLimiterCacheWindowMinutes(5)
                 .setEnableWorkerIsolation(false)
-                .setMinColumnarEncodingChannelsToPreferRowWiseEncoding(1000));
+                .setMinColumnarEncodingChannelsToPreferRowWiseEncoding(1000)
+                .setCompactFinishedQueryTaskStatsEnabled(false)
+                .setResourceGroupPredictiveAdmissionEnabled(false)
+                .setResourceGroupPredictiveAdmissionHistorySize(10_000));
     }
 
     @Test
@@ -141,6 +144,9 @@ public class TestQueryManagerConfig
                 .put("query.cte-partitioning-provider-catalog", "hive")
                 .put("query-manager.enable-worker-isolation", "true")
                 .put("min-columnar-encoding-channels-to-prefer-row-wise-encoding", "123")
+                .put("query.compact-finished-task-stats-enabled", "true")
+                .put("resource-group-predictive-admission-enabled", "true")
+                .put("resource-group-predictive-admission-history-size", "500")
                 .build();
 
         QueryManagerConfig expected = new QueryManagerConfig()
@@ -193,7 +199,10 @@ public class TestQueryManagerConfig
                 .setRateLimiterCacheWindowMinutes(60)
                 .setCtePartitioningProviderCatalog("hive")
                 .setEnableWorkerIsolation(true)
-                .setMinColumnarEncodingChannelsToPreferRowWiseEncoding(123);
+                .setMinColumnarEncodingChannelsToPreferRowWiseEncoding(123)
+                .setCompactFinishedQueryTaskStatsEnabled(true)
+                .setResourceGroupPredictiveAdmissionEnabled(true)
+                .setResourceGroupPredictiveAdmissionHistorySize(500);
         ConfigAssertions.assertFullMapping(properties, expected);
     }
 }
@@ -41,9 +41,11 @@ import static com.facebook.presto.execution.TaskManagerConfig.TaskPriorityTracki
 import static com.facebook.presto.execution.TaskManagerConfig.TaskPriorityTracking.TASK_FAIR;
 import static com.facebook.presto.execution.executor.MultilevelSplitQueue.LEVEL_CONTRIBUTION_CAP;
 import static com.facebook.presto.execution.executor.MultilevelSplitQueue.LEVEL_THRESHOLD_SECONDS;
+import static com.facebook.presto.execution.executor.PrioritizedSplitRunner.SPLIT_RUN_QUANTA;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -360,6 +362,29 @@ public class TestTaskExecutor
         }
     }
 
+    @Test
+    public void testAdaptiveLevelQuanta()
+    {
+        long quantaNanos = SPLIT_RUN_QUANTA.roundTo(NANOSECONDS);
+        MultilevelSplitQueue fixedQueue = new MultilevelSplitQueue(2);
+        fixedQueue.recordQuantaOvershoot(0, MILLISECONDS.toNanos(800));
+        assertEquals(fixedQueue.getLevelQuantaNanos(0), quantaNanos);
+
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2, true);
+        for (int i = 0; i < 100; i++) {
+            splitQueue.recordQuantaOvershoot(0, MILLISECONDS.toNanos(200));
+        }
+        assertEquals(splitQueue.getLevelQuantaNanos(0), quantaNanos - splitQueue.getLevelQuantaOvershoot(0));
+        assertTrue(splitQueue.getLevelQuantaNanos(0) < MILLISECONDS.toNanos(810));
+        assertEquals(splitQueue.getLevelQuantaNanos(1), quantaNanos);
+
+        // the quanta of a level never shrinks below a tenth of the default quanta
+        for (int i = 0; i < 100; i++) {
+            splitQueue.recordQuantaOvershoot(1, SECONDS.toNanos(5));
+        }
+        assertEquals(splitQueue.getLevelQuantaNanos(1), quantaNanos / 10);
+    }
+
     @Test
     public void testUpdateLevelWithCap()
     {
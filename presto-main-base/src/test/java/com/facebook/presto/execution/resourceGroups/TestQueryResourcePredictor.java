@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.resourceGroups;
+
+import com.facebook.airlift.units.DataSize;
+import com.facebook.airlift.units.Duration;
+import com.facebook.presto.execution.MockManagedQueryExecution;
+import com.facebook.presto.server.BasicQueryStats;
+import com.facebook.presto.spi.session.ResourceEstimates;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestQueryResourcePredictor
+{
+    @Test
+    public void testPredictFromHistory()
+    {
+        QueryResourcePredictor predictor = new QueryResourcePredictor(10);
+        MockManagedQueryExecution query = new MockManagedQueryExecution(0);
+        assertFalse(predictor.predict(query).isPresent());
+
+        query.complete();
+        predictor.recordCompletion(query);
+        assertEquals(predictor.getHistorySize(), 1);
+
+        BasicQueryStats stats = query.getBasicQueryInfo().getQueryStats();
+        ResourceEstimates estimates = predictor.predict(new MockManagedQueryExecution(0)).get();
+        assertEquals(estimates.getPeakMemory().get().toBytes(), stats.getPeakUserMemoryReservation().toBytes());
+        assertEquals(estimates.getCpuTime().get().toMillis(), stats.getTotalCpuTime().toMillis());
+    }
+
+    @Test
+    public void testSessionEstimatesTakePrecedence()
+    {
+        QueryResourcePredictor predictor = new QueryResourcePredictor(10);
+        MockManagedQueryExecution previous = new MockManagedQueryExecution(0);
+        previous.complete();
+        predictor.recordCompletion(previous);
+
+        ResourceEstimates sessionEstimates = new ResourceEstimates(
+                Optional.empty(),
+                Optional.of(new Duration(3, MINUTES)),
+                Optional.of(new DataSize(5, MEGABYTE)),
+                Optional.empty());
+        ResourceEstimates estimates = predictor.predict(new MockManagedQueryExecution(0, sessionEstimates)).get();
+        assertEquals(estimates.getCpuTime(), sessionEstimates.getCpuTime());
+        assertEquals(estimates.getPeakMemory(), sessionEstimates.getPeakMemory());
+    }
+}
@@ -26,6 +26,7 @@ import com.facebook.presto.metadata.InternalNodeManager;
 import com.facebook.presto.server.QueryStateInfo;
 import com.facebook.presto.server.ResourceGroupInfo;
 import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.session.ResourceEstimates;
 import com.google.common.collect.ImmutableSet;
 import org.apache.commons.math3.distribution.BinomialDistribution;
 import org.testng.annotations.Test;
@@ -60,7 +61,9 @@ import static com.facebook.presto.spi.resourceGroups.SchedulingPolicy.WEIGHTED;
 import static com.facebook.presto.spi.resourceGroups.SchedulingPolicy.WEIGHTED_FAIR;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.util.Collections.reverse;
+import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -271,6 +274,123 @@ public class TestResourceGroups
         assertEquals(query3.getState(), RUNNING);
     }
 
+    @Test(timeOut = 10_000)
+    public void testPredictedMemoryLimit()
+    {
+        RootInternalResourceGroup root = new RootInternalResourceGroup("root", (group, export) -> {}, directExecutor(), ignored -> Optional.empty(), rg -> false, createNodeManager(), createClusterResourceChecker());
+        root.setQueryResourcePredictor(new QueryResourcePredictor(10));
+        root.setSoftMemoryLimit(new DataSize(10, BYTE));
+        root.setMaxQueuedQueries(4);
+        root.setHardConcurrencyLimit(3);
+        MockManagedQueryExecution query1 = new MockManagedQueryExecution(0, estimates(new DataSize(6, BYTE), new Duration(1, SECONDS)));
+        query1.startWaitingForPrerequisites();
+        root.run(query1);
+        assertEquals(query1.getState(), RUNNING);
+        assertEquals(root.getProjectedMemoryUsageBytes(), 6);
+        // the actual memory usage is still zero, but the predicted one does not fit
+        MockManagedQueryExecution query2 = new MockManagedQueryExecution(0, estimates(new DataSize(6, BYTE), new Duration(1, SECONDS)));
+        query2.startWaitingForPrerequisites();
+        root.run(query2);
+        assertEquals(query2.getState(), QUEUED);
+        root.processQueuedQueries();
+        assertEquals(query2.getState(), QUEUED);
+
+        query1.complete();
+        root.processQueuedQueries();
+        assertEquals(query2.getState(), RUNNING);
+        assertEquals(root.getProjectedMemoryUsageBytes(), 6);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testShortestPredictedJobFirst()
+    {
+        RootInternalResourceGroup root = new RootInternalResourceGroup("root", (group, export) -> {}, directExecutor(), ignored -> Optional.empty(), rg -> false, createNodeManager(), createClusterResourceChecker());
+        root.setQueryResourcePredictor(new QueryResourcePredictor(10));
+        root.setSoftMemoryLimit(new DataSize(1, MEGABYTE));
+        root.setMaxQueuedQueries(4);
+        root.setHardConcurrencyLimit(1);
+        MockManagedQueryExecution query1 = new MockManagedQueryExecution(0);
+        query1.startWaitingForPrerequisites();
+        root.run(query1);
+        assertEquals(query1.getState(), RUNNING);
+        MockManagedQueryExecution longQuery = new MockManagedQueryExecution(0, estimates(new DataSize(1, BYTE), new Duration(1, HOURS)));
+        longQuery.startWaitingForPrerequisites();
+        root.run(longQuery);
+        MockManagedQueryExecution shortQuery = new MockManagedQueryExecution(0, estimates(new DataSize(1, BYTE), new Duration(1, SECONDS)));
+        shortQuery.startWaitingForPrerequisites();
+        root.run(shortQuery);
+        assertEquals(longQuery.getState(), QUEUED);
+        assertEquals(shortQuery.getState(), QUEUED);
+
+        query1.complete();
+        root.processQueuedQueries();
+        assertEquals(shortQuery.getState(), RUNNING);
+        assertEquals(longQuery.getState(), QUEUED);
+
+        shortQuery.complete();
+        root.processQueuedQueries();
+        assertEquals(longQuery.getState(), RUNNING);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testPredictedMemorySkipsQueriesThatDoNotFit()
+    {
+        RootInternalResourceGroup root = new RootInternalResourceGroup("root", (group, export) -> {}, directExecutor(), ignored -> Optional.empty(), rg -> false, createNodeManager(), createClusterResourceChecker());
+        root.setQueryResourcePredictor(new QueryResourcePredictor(10));
+        root.setSoftMemoryLimit(new DataSize(10, BYTE));
+        root.setMaxQueuedQueries(4);
+        root.setHardConcurrencyLimit(3);
+        MockManagedQueryExecution query1 = new MockManagedQueryExecution(0, estimates(new DataSize(6, BYTE), new Duration(1, SECONDS)));
+        query1.startWaitingForPrerequisites();
+        root.run(query1);
+        assertEquals(query1.getState(), RUNNING);
+        // the shorter query is first in the queue but does not fit, the longer one behind it does
+        MockManagedQueryExecution largeQuery = new MockManagedQueryExecution(0, estimates(new DataSize(6, BYTE), new Duration(1, SECONDS)));
+        largeQuery.startWaitingForPrerequisites();
+        root.run(largeQuery);
+        MockManagedQueryExecution smallQuery = new MockManagedQueryExecution(0, estimates(new DataSize(2, BYTE), new Duration(1, MINUTES)));
+        smallQuery.startWaitingForPrerequisites();
+        root.run(smallQuery);
+        root.processQueuedQueries();
+        assertEquals(largeQuery.getState(), QUEUED);
+        assertEquals(smallQuery.getState(), RUNNING);
+
+        query1.complete();
+        root.processQueuedQueries();
+        assertEquals(largeQuery.getState(), RUNNING);
+    }
+
+    @Test(timeOut = 10_000)
+    public void testShortestPredictedJobFirstAging()
+    {
+        RootInternalResourceGroup root = new RootInternalResourceGroup("root", (group, export) -> {}, directExecutor(), ignored -> Optional.empty(), rg -> false, createNodeManager(), createClusterResourceChecker());
+        root.setQueryResourcePredictor(new QueryResourcePredictor(10));
+        root.setSoftMemoryLimit(new DataSize(1, MEGABYTE));
+        root.setMaxQueuedQueries(4);
+        root.setHardConcurrencyLimit(1);
+        MockManagedQueryExecution query1 = new MockManagedQueryExecution(0);
+        query1.startWaitingForPrerequisites();
+        root.run(query1);
+        assertEquals(query1.getState(), RUNNING);
+        // the long query has been queued for longer than its predicted CPU time
+        long now = System.currentTimeMillis();
+        MockManagedQueryExecution longQuery = new MockManagedQueryExecution(0, estimates(new DataSize(1, BYTE), new Duration(1, HOURS)), now - HOURS.toMillis(2));
+        longQuery.startWaitingForPrerequisites();
+        root.run(longQuery);
+        MockManagedQueryExecution shortQuery = new MockManagedQueryExecution(0, estimates(new DataSize(1, BYTE), new Duration(1, SECONDS)), now);
+        shortQuery.startWaitingForPrerequisites();
+        root.run(shortQuery);
+        MockManagedQueryExecution unknownQuery = new MockManagedQueryExecution(0);
+        unknownQuery.startWaitingForPrerequisites();
+        root.run(unknownQuery);
+
+        query1.complete();
+        root.processQueuedQueries();
+        assertEquals(longQuery.getState(), RUNNING);
+        assertEquals(shortQuery.getState(), QUEUED);
+        assertEquals(unknownQuery.getState(), QUEUED);
+    }
+
     @Test
     public void testSubgroupMemoryLimit()
     {
@@ -985,6 +1105,11 @@ public class TestResourceGroups
         assertEquals(rootBY.getWaitingQueuedQueries(), 6);
     }
 
+    private static ResourceEstimates estimates(DataSize peakMemory, Duration cpuTime)
+    {
+        return new ResourceEstimates(Optional.empty(), Optional.of(cpuTime), Optional.of(peakMemory), Optional.empty());
+    }
+
     private static int completeGroupQueries(Set<MockManagedQueryExecution> groupQueries)
     {
         int groupRan = 0;
@@ -14,7 +14,12 @@
 
 package com.facebook.presto.operator;
 
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.block.ArrayAllocator;
+import com.facebook.presto.common.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -33,9 +38,14 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.runner.options.VerboseMode;
 import org.testng.annotations.Test;
 
+import java.util.List;
 import java.util.Random;
 
+import static com.facebook.presto.common.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
 
 @SuppressWarnings("MethodMayBeStatic")
 @State(Scope.Thread)
@@ -54,6 +64,12 @@ public class BenchmarkArrayAllocator
         }
     }
 
+    @Benchmark
+    public long buildVarcharPages(PageBuilderData data)
+    {
+        return data.buildPages();
+    }
+
     @Test
     public void verifyBorrowAndReturnArrays()
     {
@@ -62,6 +78,18 @@ public class BenchmarkArrayAllocator
         borrowAndReturnArrays(data);
     }
 
+    @Test
+    public void verifyBuildVarcharPages()
+    {
+        PageBuilderData data = new PageBuilderData();
+        data.setup();
+        long expected = buildVarcharPages(data);
+
+        data.pooled = false;
+        data.setup();
+        assertEquals(buildVarcharPages(data), expected);
+    }
+
     @State(Scope.Thread)
     public static class BenchmarkData
     {
@@ -106,6 +134,50 @@ public class BenchmarkArrayAllocator
         }
     }
 
+    @State(Scope.Thread)
+    public static class PageBuilderData
+    {
+        private static final int PAGE_COUNT = 100;
+        private static final int POSITION_COUNT = 1024;
+
+        private final Slice[] values = new Slice[POSITION_COUNT];
+
+        @Param({"true", "false"})
+        private boolean pooled = true;
+        private PageBuilder pageBuilder;
+
+        @Setup
+        public void setup()
+        {
+            Random random = new Random(0);
+            for (int i = 0; i < POSITION_COUNT; i++) {
+                values[i] = utf8Slice(Long.toHexString(random.nextLong()).substring(random.nextInt(8)));
+            }
+            List<Type> types = ImmutableList.of(VARCHAR, VARCHAR);
+            pageBuilder = pooled ? PageBuilder.withArrayAllocator(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, types, new SimpleArrayAllocator()) : new PageBuilder(types);
+        }
+
+        /**
+         * Builds pages the way the partitioned output does: each page is consumed, then released before the next one is built.
+         */
+        private long buildPages()
+        {
+            long size = 0;
+            for (int page = 0; page < PAGE_COUNT; page++) {
+                for (int position = 0; position < POSITION_COUNT; position++) {
+                    pageBuilder.declarePosition();
+                    VARCHAR.writeSlice(pageBuilder.getBlockBuilder(0), values[position]);
+                    VARCHAR.writeSlice(pageBuilder.getBlockBuilder(1), values[POSITION_COUNT - 1 - position]);
+                }
+                Page built = pageBuilder.build();
+                pageBuilder.reset();
+                size += built.getSizeInBytes();
+                pageBuilder.releasePages();
+            }
+            return size;
+        }
+    }
+
     public static void main(String[] args)
             throws RunnerException
     {
@@ -83,6 +83,18 @@ public class BenchmarkBlockFlattener
             // no op
         }
 
+        @Override
+        public boolean[] borrowBooleanArray(int positionCount)
+        {
+            return new boolean[positionCount];
+        }
+
+        @Override
+        public void returnArray(boolean[] array)
+        {
+            // no op
+        }
+
         @Override
         public int getBorrowedArrayCount()
         {
@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.common.QualifiedObjectName;
 import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.type.StandardTypes;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.metadata.BoundVariables;
@@ -27,6 +28,7 @@ import com.facebook.presto.operator.scalar.BuiltInScalarFunctionImplementation;
 import com.facebook.presto.operator.scalar.ParametricScalar;
 import com.facebook.presto.operator.scalar.annotations.ParametricScalarImplementation.ParametricScalarImplementationChoice;
 import com.facebook.presto.operator.scalar.annotations.ScalarFromAnnotationsParser;
+import com.facebook.presto.spi.function.BlockImplementation;
 import com.facebook.presto.spi.function.Description;
 import com.facebook.presto.spi.function.FunctionKind;
 import com.facebook.presto.spi.function.IsNull;
@@ -106,6 +108,54 @@ public class TestAnnotationEngineForScalars
         assertEquals(specialized.getArgumentProperty(0).getNullConvention(), RETURN_NULL_ON_NULL);
     }
 
+    public static final class BlockImplementationScalarFunctions
+    {
+        private BlockImplementationScalarFunctions() {}
+
+        @ScalarFunction("block_implementation_scalar")
+        @SqlType(StandardTypes.BIGINT)
+        public static long fun(@SqlType(StandardTypes.BIGINT) long v)
+        {
+            return v;
+        }
+
+        @ScalarFunction("block_implementation_scalar")
+        @SqlType(StandardTypes.DOUBLE)
+        public static double fun(@SqlType(StandardTypes.DOUBLE) double v)
+        {
+            return v;
+        }
+
+        @ScalarFunction("block_implementation_scalar")
+        @BlockImplementation
+        @SqlType(StandardTypes.BIGINT)
+        public static void fun(@SqlType(StandardTypes.BIGINT) Block v, int[] positions, int offset, int positionCount, BlockBuilder output)
+        {
+            for (int i = 0; i < positionCount; i++) {
+                v.writePositionTo(positions == null ? offset + i : positions[offset + i], output);
+            }
+        }
+    }
+
+    @Test
+    public void testBlockImplementationScalarParse()
+    {
+        List<SqlScalarFunction> functions = ScalarFromAnnotationsParser.parseFunctionDefinitions(BlockImplementationScalarFunctions.class);
+        assertEquals(functions.size(), 2);
+        for (SqlScalarFunction function : functions) {
+            ParametricScalar scalar = (ParametricScalar) function;
+            BuiltInScalarFunctionImplementation specialized = scalar.specialize(BoundVariables.builder().build(), 1, FUNCTION_AND_TYPE_MANAGER);
+            if (scalar.getSignature().getArgumentTypes().equals(ImmutableList.of(BIGINT.getTypeSignature()))) {
+                assertEquals(scalar.getBlockImplementations().keySet(), ImmutableSet.of(ImmutableList.of(BIGINT.getTypeSignature())));
+                assertTrue(specialized.getBlockImplementation().isPresent());
+            }
+            else {
+                assertTrue(scalar.getBlockImplementations().isEmpty());
+                assertFalse(specialized.getBlockImplementation().isPresent());
+            }
+        }
+    }
+
     @ScalarFunction(value = "hidden_scalar_function", visibility = HIDDEN)
     @Description("Simple scalar with visibility set to hidden")
     public static class HiddenScalarFunction
@@ -398,6 +398,36 @@ public class TestGroupByHash
         assertEquals(currentQuota.get() / 3 / 2, yields);
     }
 
+    @Test(dataProvider = "dataType")
+    public void testDriverYield(Type type)
+    {
+        int length = 10 * DriverYieldSignal.YIELD_CHECK_INTERVAL;
+        Block valuesBlock = type == VARCHAR ? createStringSequenceBlock(0, length) : createLongSequenceBlock(0, length);
+        Page page = new Page(valuesBlock, getHashBlock(ImmutableList.of(type), valuesBlock));
+        DriverYieldSignal yieldSignal = new DriverYieldSignal();
+
+        // test addPage
+        GroupByHash groupByHash = createGroupByHash(ImmutableList.of(type), new int[] {0}, Optional.of(1), 1, false, JOIN_COMPILER, () -> true, Optional.of(yieldSignal));
+        Work<?> addPageWork = groupByHash.addPage(page);
+        yieldSignal.forceYieldForTesting();
+        assertFalse(addPageWork.process());
+        // the signal is checked once per interval
+        assertEquals(groupByHash.getGroupCount(), DriverYieldSignal.YIELD_CHECK_INTERVAL);
+        yieldSignal.resetYieldForTesting();
+        assertTrue(addPageWork.process());
+        assertEquals(groupByHash.getGroupCount(), length);
+
+        // test getGroupIds
+        groupByHash = createGroupByHash(ImmutableList.of(type), new int[] {0}, Optional.of(1), 1, false, JOIN_COMPILER, () -> true, Optional.of(yieldSignal));
+        Work<GroupByIdBlock> getGroupIdsWork = groupByHash.getGroupIds(page);
+        yieldSignal.forceYieldForTesting();
+        assertFalse(getGroupIdsWork.process());
+        yieldSignal.resetYieldForTesting();
+        assertTrue(getGroupIdsWork.process());
+        assertEquals(getGroupIdsWork.getResult().getPositionCount(), length);
+        assertEquals(groupByHash.getGroupCount(), length);
+    }
+
     @Test
     public void testMemoryReservationYieldWithDictionary()
     {
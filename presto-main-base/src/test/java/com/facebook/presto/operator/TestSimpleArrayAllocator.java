@@ -19,9 +19,11 @@ import org.testng.annotations.Test;
 import java.util.ArrayDeque;
 import java.util.Deque;
 
+import static io.airlift.slice.SizeOf.sizeOfBooleanArray;
 import static io.airlift.slice.SizeOf.sizeOfByteArray;
 import static io.airlift.slice.SizeOf.sizeOfIntArray;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertThrows;
 
 public class TestSimpleArrayAllocator
@@ -56,6 +58,31 @@ public class TestSimpleArrayAllocator
         assertThrows(IllegalArgumentException.class, () -> allocator.returnArray(array));
     }
 
+    @Test
+    public void testPooledSize()
+    {
+        SimpleArrayAllocator allocator = new SimpleArrayAllocator(10);
+
+        boolean[] booleanArray = allocator.borrowBooleanArray(10);
+        int[] intArray = allocator.borrowIntArray(10);
+        assertEquals(allocator.getBorrowedArrayCount(), 2);
+        assertEquals(allocator.getPooledSizeInBytes(), 0);
+
+        allocator.returnArray(booleanArray);
+        allocator.returnArray(intArray);
+        assertEquals(allocator.getBorrowedArrayCount(), 0);
+        assertEquals(allocator.getPooledSizeInBytes(), sizeOfBooleanArray(10) + sizeOfIntArray(10));
+
+        assertSame(allocator.borrowBooleanArray(5), booleanArray);
+        assertEquals(allocator.getPooledSizeInBytes(), sizeOfIntArray(10));
+
+        // the smaller pooled array is discarded
+        allocator.borrowIntArray(20);
+        assertEquals(allocator.getPooledSizeInBytes(), 0);
+        assertEquals(allocator.getEstimatedSizeInBytes(), sizeOfBooleanArray(10) + sizeOfIntArray(20));
+        assertThrows(IllegalArgumentException.class, () -> allocator.returnArray(new boolean[10]));
+    }
+
     private void testNewLease(ArrayAllocator allocator)
     {
         Deque<int[]> intArrayList = new ArrayDeque<>();
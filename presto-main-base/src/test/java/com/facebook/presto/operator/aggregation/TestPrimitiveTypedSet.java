@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.ArrayType;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.block.BlockAssertions.assertBlockEquals;
+import static com.facebook.presto.block.BlockAssertions.createDoublesBlock;
+import static com.facebook.presto.block.BlockAssertions.createIntsBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.DoubleType.OLD_NAN_DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.common.type.VarcharType.createVarcharType;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestPrimitiveTypedSet
+{
+    private static final int POSITIONS = 100;
+
+    @Test
+    public void testSupportedTypes()
+    {
+        assertTrue(PrimitiveTypedSet.isSupported(BIGINT));
+        assertTrue(PrimitiveTypedSet.isSupported(INTEGER));
+        assertTrue(PrimitiveTypedSet.isSupported(DOUBLE));
+        assertTrue(PrimitiveTypedSet.isSupported(VARCHAR));
+        assertTrue(PrimitiveTypedSet.isSupported(createVarcharType(10)));
+        assertFalse(PrimitiveTypedSet.isSupported(OLD_NAN_DOUBLE));
+        assertFalse(PrimitiveTypedSet.isSupported(BOOLEAN));
+        assertFalse(PrimitiveTypedSet.isSupported(new ArrayType(BIGINT)));
+    }
+
+    @Test
+    public void testUnion()
+    {
+        PrimitiveTypedSet set = new PrimitiveTypedSet(BIGINT);
+
+        // linear search
+        Block left = createLongsBlock(1L, 2L, null, 2L);
+        set.reset(8);
+        set.union(left);
+        set.union(createLongsBlock(3L, null, 1L, 4L));
+        assertBlockEquals(BIGINT, set.getBlock(), createLongsBlock(1L, 2L, null, 3L, 4L));
+
+        // hashed
+        Block sequence = createLongSequenceBlock(0, POSITIONS);
+        set.reset(2 * POSITIONS);
+        set.union(sequence);
+        set.union(createLongSequenceBlock(POSITIONS / 2, POSITIONS + POSITIONS / 2));
+        assertEquals(set.size(), POSITIONS + POSITIONS / 2);
+        assertBlockEquals(BIGINT, set.getBlock(), createLongSequenceBlock(0, POSITIONS + POSITIONS / 2));
+
+        // the block itself when all its values are distinct
+        set.reset(POSITIONS);
+        set.union(sequence);
+        assertSame(set.getBlock(), sequence);
+        set.reset(4);
+        set.union(left);
+        assertBlockEquals(BIGINT, set.getBlock(), createLongsBlock(1L, 2L, null));
+    }
+
+    @Test
+    public void testIntersect()
+    {
+        PrimitiveTypedSet set = new PrimitiveTypedSet(INTEGER);
+
+        set.reset(4);
+        set.union(createIntsBlock(1, 2, null, 3));
+        set.intersect(createIntsBlock(3, 3, 4, null, 1));
+        assertBlockEquals(INTEGER, set.getBlock(), createIntsBlock(3, null, 1));
+
+        set.reset(4);
+        set.intersect(createIntsBlock(1, 2));
+        assertEquals(set.size(), 0);
+        assertEquals(set.getBlock().getPositionCount(), 0);
+
+        Integer[] values = new Integer[POSITIONS];
+        Integer[] evenValues = new Integer[POSITIONS / 2];
+        for (int i = 0; i < POSITIONS; i++) {
+            values[i] = i;
+            if (i % 2 == 0) {
+                evenValues[i / 2] = i;
+            }
+        }
+        set.reset(POSITIONS);
+        set.union(createIntsBlock(evenValues));
+        set.intersect(createIntsBlock(values));
+        set.intersect(createIntsBlock(values));
+        assertBlockEquals(INTEGER, set.getBlock(), createIntsBlock(evenValues));
+    }
+
+    @Test
+    public void testExcept()
+    {
+        PrimitiveTypedSet set = new PrimitiveTypedSet(VARCHAR);
+
+        set.reset(5);
+        set.union(createStringsBlock("a", null));
+        set.except(createStringsBlock("b", "a", "c", "b", null));
+        assertBlockEquals(VARCHAR, set.getBlock(), createStringsBlock("b", "c"));
+
+        set.reset(5);
+        set.except(createStringsBlock("b", "a", "b"));
+        assertBlockEquals(VARCHAR, set.getBlock(), createStringsBlock("b", "a"));
+
+        String[] values = new String[POSITIONS];
+        String[] oddValues = new String[POSITIONS / 2];
+        String[] evenValues = new String[POSITIONS / 2];
+        for (int i = 0; i < POSITIONS; i++) {
+            values[i] = "value" + i;
+            if (i % 2 == 0) {
+                evenValues[i / 2] = values[i];
+            }
+            else {
+                oddValues[i / 2] = values[i];
+            }
+        }
+        set.reset(POSITIONS);
+        set.union(createStringsBlock(evenValues));
+        set.except(createStringsBlock(values));
+        assertBlockEquals(VARCHAR, set.getBlock(), createStringsBlock(oddValues));
+    }
+
+    @Test
+    public void testDoubles()
+    {
+        PrimitiveTypedSet set = new PrimitiveTypedSet(DOUBLE);
+        for (int maxPositionCount : new int[] {6, POSITIONS}) {
+            set.reset(maxPositionCount);
+            set.union(createDoublesBlock(Double.NaN, 0.0, -0.0, 1.5, Double.NaN, 1.5));
+            assertBlockEquals(DOUBLE, set.getBlock(), createDoublesBlock(Double.NaN, 0.0, 1.5));
+        }
+    }
+
+    @Test
+    public void testAdd()
+    {
+        PrimitiveTypedSet set = new PrimitiveTypedSet(VARCHAR);
+        for (int maxPositionCount : new int[] {4, POSITIONS}) {
+            set.reset(maxPositionCount);
+            assertTrue(set.add(createStringsBlock("x"), 0));
+            assertTrue(set.add(createStringsBlock("y", "xy"), 1));
+            assertFalse(set.add(createStringsBlock("x", "y"), 0));
+            assertFalse(set.add(createStringsBlock("y", "xy"), 1));
+            assertEquals(set.size(), 2);
+            assertBlockEquals(VARCHAR, set.getBlock(), createStringsBlock("x", "xy"));
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.util.stream.IntStream;
 
 import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
 import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static java.lang.Math.toIntExact;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
@@ -134,6 +135,87 @@ public class TestDictionaryAwarePageFilter
         testFilter(filter, effectiveBlock, true);
     }
 
+    @Test
+    public void testDictionaryMemo()
+    {
+        TestDictionaryFilter nestedFilter = new TestDictionaryFilter(false);
+        DictionaryAwarePageFilter filter = new DictionaryAwarePageFilter(nestedFilter);
+
+        DictionaryBlock block = createDictionaryBlock(20, 100);
+        DictionaryBlock otherBlock = createDictionaryBlock(20, 100);
+        nestedFilter.setExpectedType(LongArrayBlock.class);
+        testFilter(filter, block, false);
+        testFilter(filter, otherBlock, false);
+
+        // the dictionaries are not processed again, even when pages of different dictionaries are interleaved
+        nestedFilter.setExpectedType(DictionaryBlock.class);
+        int[] ids = new int[100];
+        Arrays.setAll(ids, index -> 19 - index % 20);
+        testFilter(filter, new DictionaryBlock(ids.length, block.getDictionary(), ids, block.getDictionarySourceId()), false);
+        testFilter(filter, otherBlock, false);
+        testFilter(filter, block, false);
+        assertTrue(filter.getRetainedSizeInBytes() > 0);
+
+        // a dictionary larger than the memo drops the others, but is kept as the last one
+        nestedFilter.setExpectedType(LongArrayBlock.class);
+        testFilter(filter, createDictionaryBlock(toIntExact(DictionaryMemo.MAX_RETAINED_SIZE_IN_BYTES / Long.BYTES), 100), false);
+        assertTrue(filter.getRetainedSizeInBytes() > DictionaryMemo.MAX_RETAINED_SIZE_IN_BYTES);
+
+        // the first dictionary is seen again, and is not processed since the large one was barely used
+        nestedFilter.setExpectedType(DictionaryBlock.class);
+        testFilter(filter, block, false);
+        assertTrue(filter.getRetainedSizeInBytes() <= DictionaryMemo.MAX_RETAINED_SIZE_IN_BYTES);
+    }
+
+    @Test
+    public void testMultipleInputs()
+    {
+        // selects the positions where the sum of the two inputs is even
+        PageFilter nestedFilter = new PageFilter()
+        {
+            @Override
+            public boolean isDeterministic()
+            {
+                return true;
+            }
+
+            @Override
+            public InputChannels getInputChannels()
+            {
+                return new InputChannels(0, 1);
+            }
+
+            @Override
+            public SelectedPositions filter(SqlFunctionProperties properties, Page page)
+            {
+                boolean[] selected = new boolean[page.getPositionCount()];
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    selected[position] = (page.getBlock(0).getLong(position) + page.getBlock(1).getLong(position)) % 2 == 0;
+                }
+                return PageFilter.positionsArrayToSelectedPositions(selected, selected.length);
+            }
+        };
+        DictionaryAwarePageFilter filter = new DictionaryAwarePageFilter(nestedFilter);
+
+        DictionaryBlock dictionaryBlock = createDictionaryBlock(20, 100);
+        Block rleBlock = new RunLengthEncodedBlock(createLongSequenceBlock(1, 2), 100);
+        Block otherRleBlock = new RunLengthEncodedBlock(createLongSequenceBlock(2, 3), 100);
+        for (Page page : ImmutableList.of(
+                new Page(dictionaryBlock, rleBlock),
+                new Page(otherRleBlock, dictionaryBlock),
+                new Page(rleBlock, otherRleBlock),
+                new Page(rleBlock, rleBlock),
+                new Page(dictionaryBlock, createDictionaryBlock(30, 100)))) {
+            IntSet expectedSelectedPositions = new IntArraySet();
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                if ((page.getBlock(0).getLong(position) + page.getBlock(1).getLong(position)) % 2 == 0) {
+                    expectedSelectedPositions.add(position);
+                }
+            }
+            assertEquals(toSet(filter.filter(null, page)), expectedSelectedPositions);
+        }
+    }
+
     private static DictionaryBlock createDictionaryBlock(int dictionarySize, int blockSize)
     {
         Block dictionary = createLongSequenceBlock(0, dictionarySize);
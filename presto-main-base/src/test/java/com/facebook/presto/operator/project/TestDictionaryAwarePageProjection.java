@@ -21,6 +21,7 @@ import com.facebook.presto.common.block.LazyBlock;
 import com.facebook.presto.common.block.LongArrayBlock;
 import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.operator.CompletedWork;
 import com.facebook.presto.operator.DriverYieldSignal;
 import com.facebook.presto.operator.Work;
 import com.google.common.collect.ImmutableList;
@@ -34,12 +35,15 @@ import java.util.concurrent.ScheduledExecutorService;
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.airlift.testing.Assertions.assertGreaterThan;
 import static com.facebook.airlift.testing.Assertions.assertInstanceOf;
+import static com.facebook.airlift.testing.Assertions.assertLessThanOrEqual;
 import static com.facebook.presto.block.BlockAssertions.assertBlockEquals;
 import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
 import static com.facebook.presto.common.block.DictionaryId.randomDictionaryId;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static java.lang.Math.toIntExact;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertThrows;
@@ -146,6 +150,8 @@ public class TestDictionaryAwarePageProjection
         testProjectList(effectiveBlock, LongArrayBlock.class, projection, forceYield);
 
         // last dictionary effective, so dictionary processing is enabled again
+        // use new dictionaries, as the ones seen before are remembered along with the processing choice
+        ineffectiveBlock = createDictionaryBlock(100, 20);
         testProjectRange(ineffectiveBlock, DictionaryBlock.class, projection, forceYield);
         testProjectFastReturnIgnoreYield(ineffectiveBlock, projection);
         // dictionary processing can reuse the last dictionary
@@ -153,10 +159,90 @@ public class TestDictionaryAwarePageProjection
         testProjectList(ineffectiveBlock, DictionaryBlock.class, projection, false);
 
         // last dictionary not effective, so dictionary processing is disabled again
+        effectiveBlock = createDictionaryBlock(10, 100);
         testProjectRange(effectiveBlock, LongArrayBlock.class, projection, forceYield);
         testProjectList(effectiveBlock, LongArrayBlock.class, projection, forceYield);
     }
 
+    @Test
+    public void testDictionaryMemo()
+    {
+        DictionaryAwarePageProjection projection = createProjection();
+
+        DictionaryBlock block = createDictionaryBlock(10, 100);
+        testProjectRange(block, DictionaryBlock.class, projection, false);
+        DictionaryBlock otherBlock = createDictionaryBlock(10, 100);
+        testProjectRange(otherBlock, DictionaryBlock.class, projection, false);
+
+        // a page of the first dictionary after a page of another dictionary reuses the result
+        int[] ids = new int[100];
+        Arrays.setAll(ids, index -> 9 - index % 10);
+        DictionaryBlock sameDictionaryBlock = new DictionaryBlock(ids.length, block.getDictionary(), ids, block.getDictionarySourceId());
+        testProjectFastReturnIgnoreYield(sameDictionaryBlock, projection);
+        testProjectFastReturnIgnoreYield(otherBlock, projection);
+
+        // the id is also kept by derived dictionaries, which are processed again
+        DictionaryBlock derivedDictionaryBlock = new DictionaryBlock(ids.length, createLongSequenceBlock(0, 10), ids, block.getDictionarySourceId());
+        testProjectRange(derivedDictionaryBlock, DictionaryBlock.class, projection, true);
+
+        assertGreaterThan(projection.getRetainedSizeInBytes(), 0L);
+
+        // a dictionary larger than the memo drops the others, but is kept as the last one
+        DictionaryBlock largeBlock = createDictionaryBlock(toIntExact(DictionaryMemo.MAX_RETAINED_SIZE_IN_BYTES / Long.BYTES), 100);
+        testProjectRange(largeBlock, DictionaryBlock.class, projection, false);
+        assertGreaterThan(projection.getRetainedSizeInBytes(), DictionaryMemo.MAX_RETAINED_SIZE_IN_BYTES);
+
+        // the other dictionary is seen again, and is not processed since the large one was barely used
+        testProjectRange(otherBlock, LongArrayBlock.class, projection, false);
+        assertLessThanOrEqual(projection.getRetainedSizeInBytes(), DictionaryMemo.MAX_RETAINED_SIZE_IN_BYTES);
+    }
+
+    @Test
+    public void testMultipleInputs()
+    {
+        DictionaryAwarePageProjection projection = new DictionaryAwarePageProjection(new TestAddProjection(), block -> randomDictionaryId());
+        SelectedPositions selectedPositions = SelectedPositions.positionsRange(5, 10);
+
+        // dictionary and RLE inputs are processed over the dictionary
+        DictionaryBlock dictionaryBlock = createDictionaryBlock(10, 100);
+        Block rleBlock = new RunLengthEncodedBlock(createLongSequenceBlock(7, 8), 100);
+        Block result = projectAll(projection, new Page(rleBlock, dictionaryBlock), selectedPositions);
+        assertInstanceOf(result, DictionaryBlock.class);
+        assertEquals(((DictionaryBlock) result).getDictionary().getPositionCount(), 10);
+        assertAdded(result, rleBlock, dictionaryBlock, selectedPositions);
+
+        // the RLE value is part of the memo entry
+        Block otherRleBlock = new RunLengthEncodedBlock(createLongSequenceBlock(8, 9), 100);
+        assertAdded(projectAll(projection, new Page(otherRleBlock, dictionaryBlock), selectedPositions), otherRleBlock, dictionaryBlock, selectedPositions);
+
+        // only RLE inputs produce an RLE block
+        result = projectAll(projection, new Page(rleBlock, otherRleBlock), selectedPositions);
+        assertInstanceOf(result, RunLengthEncodedBlock.class);
+        assertAdded(result, rleBlock, otherRleBlock, selectedPositions);
+
+        // two dictionary inputs are processed normally
+        DictionaryBlock otherDictionaryBlock = createDictionaryBlock(20, 100);
+        result = projectAll(projection, new Page(dictionaryBlock, lazyWrapper(otherDictionaryBlock)), selectedPositions);
+        assertInstanceOf(result, LongArrayBlock.class);
+        assertAdded(result, dictionaryBlock, otherDictionaryBlock, selectedPositions);
+    }
+
+    private static Block projectAll(DictionaryAwarePageProjection projection, Page page, SelectedPositions selectedPositions)
+    {
+        Work<List<Block>> work = projection.project(null, new DriverYieldSignal(), page, selectedPositions);
+        assertTrue(work.process());
+        return work.getResult().get(0);
+    }
+
+    private static void assertAdded(Block result, Block left, Block right, SelectedPositions selectedPositions)
+    {
+        assertEquals(result.getPositionCount(), selectedPositions.size());
+        for (int index = 0; index < selectedPositions.size(); index++) {
+            int position = selectedPositions.getOffset() + index;
+            assertEquals(BIGINT.getLong(result, index), BIGINT.getLong(left, position) + BIGINT.getLong(right, position));
+        }
+    }
+
     private static DictionaryBlock createDictionaryBlock(int dictionarySize, int blockSize)
     {
         Block dictionary = createLongSequenceBlock(0, dictionarySize);
@@ -372,6 +458,34 @@ public class TestDictionaryAwarePageProjection
         }
     }
 
+    private static class TestAddProjection
+            implements PageProjection
+    {
+        @Override
+        public boolean isDeterministic()
+        {
+            return true;
+        }
+
+        @Override
+        public InputChannels getInputChannels()
+        {
+            return new InputChannels(1, 2);
+        }
+
+        @Override
+        public Work<List<Block>> project(SqlFunctionProperties properties, DriverYieldSignal yieldSignal, Page page, SelectedPositions selectedPositions)
+        {
+            assertEquals(page.getChannelCount(), 2);
+            assertFalse(selectedPositions.isList());
+            BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, selectedPositions.size());
+            for (int position = selectedPositions.getOffset(); position < selectedPositions.getOffset() + selectedPositions.size(); position++) {
+                BIGINT.writeLong(blockBuilder, BIGINT.getLong(page.getBlock(0), position) + BIGINT.getLong(page.getBlock(1), position));
+            }
+            return new CompletedWork<>(ImmutableList.of(blockBuilder.build()));
+        }
+    }
+
     private static class NegativeValueException
             extends RuntimeException
     {
@@ -18,6 +18,7 @@ import com.facebook.airlift.units.Duration;
 import com.facebook.presto.block.BlockAssertions;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.block.LazyBlock;
 import com.facebook.presto.common.block.VariableWidthBlock;
 import com.facebook.presto.common.function.SqlFunctionProperties;
@@ -47,6 +48,7 @@ import java.util.OptionalInt;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
 import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
@@ -421,6 +423,67 @@ public class TestPageProcessor
         assertFalse(output.hasNext());
     }
 
+    @Test
+    public void testSharedSubExpressionFilter()
+    {
+        List<Page> outputPages = ImmutableList.copyOf(processSharedSubExpressions(new DriverYieldSignal())).stream()
+                .map(page -> page.orElseThrow(() -> new AssertionError("unexpected yield")))
+                .collect(toImmutableList());
+        assertTrue(outputPages.size() > 1);
+        assertSharedSubExpressionOutput(outputPages);
+    }
+
+    @Test
+    public void testSharedSubExpressionFilterYield()
+    {
+        DriverYieldSignal yieldSignal = new DriverYieldSignal();
+        Iterator<Optional<Page>> output = processSharedSubExpressions(yieldSignal);
+
+        // the filter yields before computing its shared sub-expression
+        yieldSignal.forceYieldForTesting();
+        assertTrue(output.hasNext());
+        assertFalse(output.next().isPresent());
+        yieldSignal.resetYieldForTesting();
+
+        List<Page> outputPages = ImmutableList.copyOf(output).stream()
+                .map(page -> page.orElseThrow(() -> new AssertionError("unexpected yield")))
+                .collect(toImmutableList());
+        assertSharedSubExpressionOutput(outputPages);
+    }
+
+    private Iterator<Optional<Page>> processSharedSubExpressions(DriverYieldSignal yieldSignal)
+    {
+        // the filter computes x * 10 and keeps its multiples of 20, the shared projection reads it to compute x * 20
+        SharedSubExpressionPageFilter filter = new SharedSubExpressionPageFilter(
+                ImmutableList.of(new MultipleOfFilter(1, 20)),
+                ImmutableList.of(ImmutableList.of(new MultiplyPageProjection(0, 10))),
+                1);
+        PageProcessor pageProcessor = new PageProcessor(
+                Optional.of(filter),
+                ImmutableList.of(
+                        new PageProjectionWithOutputs(new InputPageProjection(1), new int[] {0}),
+                        new PageProjectionWithOutputs(new InputPageProjection(2), new int[] {1})),
+                OptionalInt.of(7),
+                1,
+                ImmutableList.of(new MultiplyPageProjection(1, 2)));
+
+        return processAndAssertRetainedPageSize(pageProcessor, yieldSignal, new Page(createLongSequenceBlock(0, 100)));
+    }
+
+    private static void assertSharedSubExpressionOutput(List<Page> outputPages)
+    {
+        ImmutableList.Builder<Long> tens = ImmutableList.builder();
+        ImmutableList.Builder<Long> twenties = ImmutableList.builder();
+        for (Page page : outputPages) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                tens.add(BIGINT.getLong(page.getBlock(0), position));
+                twenties.add(BIGINT.getLong(page.getBlock(1), position));
+            }
+        }
+        assertEquals(tens.build(), LongStream.range(0, 50).map(x -> x * 20).boxed().collect(toImmutableList()));
+        assertEquals(twenties.build(), LongStream.range(0, 50).map(x -> x * 40).boxed().collect(toImmutableList()));
+    }
+
     @Test
     public void testExpressionProfiler()
     {
@@ -673,6 +736,82 @@ public class TestPageProcessor
         }
     }
 
+    private static class MultiplyPageProjection
+            implements PageProjection
+    {
+        private final int channel;
+        private final long factor;
+
+        public MultiplyPageProjection(int channel, long factor)
+        {
+            this.channel = channel;
+            this.factor = factor;
+        }
+
+        @Override
+        public boolean isDeterministic()
+        {
+            return true;
+        }
+
+        @Override
+        public InputChannels getInputChannels()
+        {
+            return new InputChannels(channel);
+        }
+
+        @Override
+        public Work<List<Block>> project(SqlFunctionProperties properties, DriverYieldSignal yieldSignal, Page page, SelectedPositions selectedPositions)
+        {
+            Block block = page.getBlock(0);
+            BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, selectedPositions.size());
+            for (int index = 0; index < selectedPositions.size(); index++) {
+                int position = selectedPositions.isList() ? selectedPositions.getPositions()[selectedPositions.getOffset() + index] : selectedPositions.getOffset() + index;
+                BIGINT.writeLong(blockBuilder, BIGINT.getLong(block, position) * factor);
+            }
+            return new CompletedWork<>(ImmutableList.of(blockBuilder.build()));
+        }
+    }
+
+    private static class MultipleOfFilter
+            implements PageFilter
+    {
+        private final int channel;
+        private final long divisor;
+
+        public MultipleOfFilter(int channel, long divisor)
+        {
+            this.channel = channel;
+            this.divisor = divisor;
+        }
+
+        @Override
+        public boolean isDeterministic()
+        {
+            return true;
+        }
+
+        @Override
+        public InputChannels getInputChannels()
+        {
+            return new InputChannels(channel);
+        }
+
+        @Override
+        public SelectedPositions filter(SqlFunctionProperties properties, Page page)
+        {
+            Block block = page.getBlock(0);
+            int[] positions = new int[page.getPositionCount()];
+            int selectedCount = 0;
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                if (BIGINT.getLong(block, position) % divisor == 0) {
+                    positions[selectedCount++] = position;
+                }
+            }
+            return positionsList(positions, 0, selectedCount);
+        }
+    }
+
     public static class TestingPageFilter
             implements PageFilter
     {
@@ -0,0 +1,164 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.project;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.function.LongPredicate;
+import java.util.stream.IntStream;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.operator.project.PageFilter.positionsArrayToSelectedPositions;
+import static com.facebook.presto.operator.project.ReorderingPageFilter.REORDER_INTERVAL_PAGES;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestReorderingPageFilter
+{
+    private static final int POSITION_COUNT = 1000;
+
+    @Test
+    public void testFilter()
+    {
+        // channels 1 and 3 of the page
+        ReorderingPageFilter filter = new ReorderingPageFilter(ImmutableList.of(
+                new ChannelFilter(3, value -> value % 2 == 0),
+                new ChannelFilter(1, value -> value % 3 == 0)));
+        assertEquals(filter.getInputChannels().getInputChannels(), ImmutableList.of(1, 3));
+
+        Page page = createPage(0, 4);
+        SelectedPositions selectedPositions = filter.filter(SESSION.getSqlFunctionProperties(), filter.getInputChannels().getInputChannels(page));
+        assertSelected(selectedPositions, position -> position % 6 == 0);
+    }
+
+    @Test
+    public void testReorder()
+    {
+        ReorderingPageFilter filter = new ReorderingPageFilter(ImmutableList.of(
+                new ChannelFilter(0, value -> true),
+                new ChannelFilter(0, value -> value % 10 == 0)));
+        assertEquals(filter.getOrder(), new int[] {0, 1});
+
+        for (int i = 0; i < REORDER_INTERVAL_PAGES; i++) {
+            assertSelected(filter.filter(SESSION.getSqlFunctionProperties(), createPage(0, 1)), position -> position % 10 == 0);
+        }
+        // the conjunct that drops positions runs first
+        assertEquals(filter.getOrder(), new int[] {1, 0});
+        assertSelected(filter.filter(SESSION.getSqlFunctionProperties(), createPage(0, 1)), position -> position % 10 == 0);
+
+        RuntimeStats runtimeStats = new RuntimeStats();
+        filter.recordStats(runtimeStats);
+        assertEquals(runtimeStats.getMetric("filterConjunct0InputPositions").getSum(), POSITION_COUNT * REORDER_INTERVAL_PAGES + POSITION_COUNT / 10);
+        assertEquals(runtimeStats.getMetric("filterConjunct1InputPositions").getSum(), POSITION_COUNT * (REORDER_INTERVAL_PAGES + 1));
+        assertEquals(runtimeStats.getMetric("filterConjunct1OutputPositions").getSum(), POSITION_COUNT / 10 * (REORDER_INTERVAL_PAGES + 1));
+        assertEquals(runtimeStats.getMetric("filterConjunctReorders").getSum(), 1);
+    }
+
+    @Test
+    public void testFailureInAdaptedOrder()
+    {
+        // the second conjunct relies on the first one to not fail, like x <> 0 AND 10 / x > 1
+        ReorderingPageFilter filter = new ReorderingPageFilter(ImmutableList.of(
+                new ChannelFilter(0, value -> value != 0),
+                new ChannelFilter(0, value -> 10 / value > 1)));
+
+        for (int i = 0; i < REORDER_INTERVAL_PAGES; i++) {
+            filter.filter(SESSION.getSqlFunctionProperties(), createPage(1, 1));
+        }
+        assertEquals(filter.getOrder(), new int[] {1, 0});
+
+        // position 0 of the page is 0, so the adapted order fails
+        SelectedPositions selectedPositions = filter.filter(SESSION.getSqlFunctionProperties(), createPage(0, 1));
+        assertSelected(selectedPositions, position -> position != 0 && 10 / position > 1);
+
+        // the filter stays in plan order, although the guarded conjunct still looks cheaper
+        assertEquals(filter.getOrder(), new int[] {0, 1});
+        for (int i = 0; i < 2 * REORDER_INTERVAL_PAGES; i++) {
+            filter.filter(SESSION.getSqlFunctionProperties(), createPage(1, 1));
+        }
+        assertEquals(filter.getOrder(), new int[] {0, 1});
+
+        RuntimeStats runtimeStats = new RuntimeStats();
+        filter.recordStats(runtimeStats);
+        assertEquals(runtimeStats.getMetric("filterConjunctReorders").getSum(), 1);
+    }
+
+    private static void assertSelected(SelectedPositions selectedPositions, LongPredicate expected)
+    {
+        int[] expectedPositions = IntStream.range(0, POSITION_COUNT).filter(expected::test).toArray();
+        assertEquals(selectedPositions.size(), expectedPositions.length);
+        for (int i = 0; i < expectedPositions.length; i++) {
+            int position = selectedPositions.isList() ? selectedPositions.getPositions()[selectedPositions.getOffset() + i] : selectedPositions.getOffset() + i;
+            assertEquals(position, expectedPositions[i]);
+        }
+    }
+
+    private static Page createPage(long start, int channelCount)
+    {
+        Block[] blocks = new Block[channelCount];
+        for (int channel = 0; channel < channelCount; channel++) {
+            BlockBuilder builder = BIGINT.createBlockBuilder(null, POSITION_COUNT);
+            for (long value = start; value < start + POSITION_COUNT; value++) {
+                BIGINT.writeLong(builder, value);
+            }
+            blocks[channel] = builder.build();
+        }
+        return new Page(blocks);
+    }
+
+    private static class ChannelFilter
+            implements PageFilter
+    {
+        private final InputChannels inputChannels;
+        private final LongPredicate predicate;
+
+        public ChannelFilter(int channel, LongPredicate predicate)
+        {
+            this.inputChannels = new InputChannels(channel);
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean isDeterministic()
+        {
+            return true;
+        }
+
+        @Override
+        public InputChannels getInputChannels()
+        {
+            return inputChannels;
+        }
+
+        @Override
+        public SelectedPositions filter(SqlFunctionProperties properties, Page page)
+        {
+            assertEquals(page.getChannelCount(), 1);
+            Block block = page.getBlock(0);
+            boolean[] selected = new boolean[page.getPositionCount()];
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                assertFalse(block.isNull(position));
+                selected[position] = predicate.test(BIGINT.getLong(block, position));
+            }
+            return positionsArrayToSelectedPositions(selected, page.getPositionCount());
+        }
+    }
+}
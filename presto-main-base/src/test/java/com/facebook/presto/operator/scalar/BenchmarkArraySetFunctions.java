@@ -55,6 +55,7 @@ import java.util.concurrent.TimeUnit;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
@@ -91,10 +92,10 @@ public class BenchmarkArraySetFunctions
         @Param({"array_except", "array_intersect", "array_union"})
         private String name = "array_union";
 
-        @Param({"BIGINT", "VARCHAR", "DOUBLE", "BOOLEAN"})
+        @Param({"BIGINT", "INTEGER", "VARCHAR", "DOUBLE", "BOOLEAN"})
         private String type = "BIGINT";
 
-        @Param({"10", "100", "1000"})
+        @Param({"4", "10", "100", "1000"})
         private int arraySize = 1000;
 
         private Page page;
@@ -108,6 +109,9 @@ public class BenchmarkArraySetFunctions
                 case "BIGINT":
                     elementType = BIGINT;
                     break;
+                case "INTEGER":
+                    elementType = INTEGER;
+                    break;
                 case "VARCHAR":
                     elementType = VARCHAR;
                     break;
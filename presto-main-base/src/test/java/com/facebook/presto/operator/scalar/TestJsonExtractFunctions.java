@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator.scalar;
 
+import com.facebook.presto.common.type.ArrayType;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.analyzer.FunctionsConfig;
 import org.testng.annotations.BeforeClass;
@@ -23,6 +24,7 @@ import static com.facebook.presto.common.type.JsonType.JSON;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 
 public class TestJsonExtractFunctions
         extends AbstractTestFunctions
@@ -262,4 +264,16 @@ public class TestJsonExtractFunctions
         assertInvalidFunction(format("JSON_EXTRACT_SCALAR('%s', '%s')", json, "$...invalid"), "Invalid JSON path: '$...invalid'");
         canonicalizedJsonExtractEnabled.assertInvalidFunction(format("JSON_EXTRACT_SCALAR('%s', '%s')", json, "$...invalid"), "Invalid JSON path: '$...invalid'");
     }
+
+    @Test
+    public void testJsonExtractScalars()
+    {
+        assertFunction("JSON_EXTRACT_SCALARS('{\"a\": 1, \"b\": {\"c\": \"x\"}}', ARRAY['$.a', '$.b.c', '$.b', '$.d'])", new ArrayType(VARCHAR), asList("1", "x", null, null));
+        assertFunction("JSON_EXTRACT_SCALARS(JSON '[true, [\"\\u00e9\"]]', ARRAY['$[0]', '$[1][0]'])", new ArrayType(VARCHAR), asList("true", "\u00e9"));
+        // documents the scan gives up on fall back to the value of json_extract_scalar for each path
+        assertFunction("JSON_EXTRACT_SCALARS('{\"a\": \"\\ud83d\\ude00\", \"b\": 2}', ARRAY['$.a', '$.b'])", new ArrayType(VARCHAR), asList("\ud83d\ude00", "2"));
+        assertFunction("JSON_EXTRACT_SCALARS('INVALID_JSON', ARRAY['$.a', '$.b'])", new ArrayType(VARCHAR), asList(null, null));
+        assertFunction("JSON_EXTRACT_SCALARS(null, ARRAY['$.a', '$.b'])", new ArrayType(VARCHAR), null);
+        assertInvalidFunction("JSON_EXTRACT_SCALARS('{}', ARRAY['$.a', '$..b'])", "JSON paths cannot be extracted together: [$.a, $..b]");
+    }
 }
@@ -0,0 +1,257 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.scalar;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.facebook.presto.operator.scalar.JsonExtract.ScalarValueJsonExtractor;
+import static com.facebook.presto.operator.scalar.JsonExtract.generateExtractor;
+import static com.facebook.presto.operator.scalar.JsonPathScanner.isValidUtf8;
+import static com.facebook.presto.operator.scalar.TestJsonExtract.PROPERTIES_CANONICALIZED_EXTRACT_DISABLED;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestJsonPathScanner
+{
+    private static final List<String> PATHS = ImmutableList.of(
+            "$",
+            "$.a",
+            "$.b",
+            "$.a.b",
+            "$.a[0]",
+            "$.a[1]",
+            "$[0]",
+            "$[1].c",
+            "$.c[2].d",
+            "$[\"a b\"]",
+            "$.ü",
+            "$.long");
+
+    private static final List<String> DOCUMENTS = ImmutableList.of(
+            "",
+            "  ",
+            "1",
+            "-0.5e+10",
+            "\"abc\"",
+            "true",
+            "false",
+            "null",
+            "{}",
+            "[]",
+            "{\"a\": 1}",
+            "{\"a\": \"x\", \"b\": 2}",
+            "{\"a\": {\"b\": \"c\"}, \"b\": [1, 2]}",
+            "{\"a\": [true, false, null], \"b\": null}",
+            "{\"a\": [{\"x\": 1}, [2, 3]], \"b\": {}}",
+            "[0, {\"c\": \"d\"}, 2]",
+            "[[], {\"c\": [1, 2, {\"d\": 3}]}]",
+            "{\"c\": [0, 1, {\"d\": \"deep\"}]}",
+            "{\"a b\": \"space\", \"ü\": \"ünïcödé\"}",
+            "{\"a\": 1, \"a\": 2}",
+            "{\"a\": {\"c\": 1}, \"a\": {\"b\": 2}}",
+            "{\"a\": \"tab\\tquote\\\"slash\\/unicode\\u00e9\\u20ac\"}",
+            "{\"b\": \"skipped \\\" \\\\ \\u0041\", \"a\": \"found\"}",
+            "{\"a\": \"surrogate \\ud83d\\ude00\"}",
+            "{\"long\": \"" + Strings.repeat("0123456789", 10) + "\"}",
+            "{\"long\": \"" + Strings.repeat("ü", 20) + "x\", \"a\": 1}",
+            "{\"a\": 12345678901234567890123456789, \"b\": 1.5E-300}",
+            "{ \"a\" :\n[ 1 ,\r\n2 ] ,\t\"b\" : 3 }",
+            "{\"0\": 0, \"1\": 1, \"2\": 2, }",
+            // malformed documents
+            "{\"a\": 1",
+            "{\"a\": 1x}",
+            "{\"a\": 01}",
+            "{\"a\": .5}",
+            "{\"a\": 1.}",
+            "{\"a\": -}",
+            "{\"a\": tru}",
+            "{\"a\": truex}",
+            "{\"a\": \"unterminated}",
+            "{\"a\": \"bad escape \\x\"}",
+            "{\"a\": \"control \u0001\"}",
+            "{a: 1}",
+            "{\"a\" 1}",
+            "{\"b\": [1,], \"a\": 1}",
+            "{\"b\": {\"x\"}, \"a\": 1}",
+            "{\"b\": 1 \"a\": 2}",
+            "[1 2]",
+            "1 2",
+            "\"abc\" x",
+            "1x",
+            "{\"a\": /* comment */ 1}",
+            "{\"a\": NaN}");
+
+    @Test
+    public void testDocuments()
+    {
+        for (String document : DOCUMENTS) {
+            for (String path : PATHS) {
+                assertScan(utf8Slice(document), path);
+            }
+            assertScan(utf8Slice(document), PATHS);
+        }
+    }
+
+    @Test
+    public void testResults()
+    {
+        assertEquals(scan("{\"a\": 1, \"b\": \"x\"}", "$.a", "$.b", "$.c"), new String[] {"1", "x", null});
+        assertEquals(scan("{\"a\": {\"b\": [true, null]}}", "$.a", "$.a.b[0]", "$.a.b[1]", "$.a.b[2]"), new String[] {null, "true", null, null});
+        assertEquals(scan("{\"a\": \"\\u00e9\\n\"}", "$.a"), new String[] {"\u00e9\n"});
+        assertEquals(scan("[1, [2, 3]]", "$[1][0]", "$.1.1", "$[0]"), new String[] {"2", "3", "1"});
+        // only the first of duplicate fields is used
+        assertEquals(scan("{\"a\": 1, \"a\": 2}", "$.a"), new String[] {"1"});
+        assertEquals(scan("{\"a\": {\"c\": 1}, \"a\": {\"b\": 2}}", "$.a.b"), new String[] {null});
+        // the scan stops when all the paths are found
+        assertEquals(scan("{\"a\": 1, garbage", "$.a"), new String[] {"1"});
+
+        // give up when the values are not obviously the same as with Jackson
+        assertNull(scan("{\"a\": 1x}", "$.a"));
+        assertNull(scan("{\"b\": [1,], \"a\": 1}", "$.a"));
+        assertNull(scan("{\"a\": \"\\ud83d\\ude00\"}", "$.a"));
+        assertNull(scan("{\"\\u0061\": 1}", "$.a"));
+        assertNull(scan(Strings.repeat("[", 1000) + Strings.repeat("]", 1000), "$.a"));
+    }
+
+    @Test
+    public void testInvalidUtf8()
+    {
+        byte[] bytes = "{\"a\": \"x?y\", \"b\": \"z\"}".getBytes(UTF_8);
+        for (int value : new int[] {0x80, 0xC0, 0xED, 0xF5, 0xFF}) {
+            bytes[8] = (byte) value;
+            Slice document = Slices.wrappedBuffer(bytes.clone());
+            assertScan(document, "$.a");
+            assertScan(document, "$.b");
+            // a value with invalid UTF-8 is left to Jackson, which replaces it
+            assertNull(JsonPathScanner.create(ImmutableList.of("$.a")).get().scan(document));
+            assertNotNull(JsonPathScanner.create(ImmutableList.of("$.b")).get().scan(document));
+        }
+        assertFalse(JsonPathScanner.create(ImmutableList.of("$[\"a\uFFFD\"]")).isPresent());
+    }
+
+    @Test
+    public void testIsValidUtf8()
+    {
+        Slice valid = utf8Slice("abc \u00fc \u20ac \uD83D\uDE00");
+        assertTrue(isValidUtf8(valid, 0, valid.length()));
+        assertFalse(isValidUtf8(Slices.wrappedBuffer(new byte[] {(byte) 0xC0, (byte) 0x80}), 0, 2));
+        assertFalse(isValidUtf8(Slices.wrappedBuffer(new byte[] {(byte) 0xED, (byte) 0xA0, (byte) 0x80}), 0, 3));
+        assertFalse(isValidUtf8(Slices.wrappedBuffer(new byte[] {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80}), 0, 4));
+        assertFalse(isValidUtf8(Slices.wrappedBuffer(new byte[] {(byte) 0xE2, (byte) 0x82}), 0, 2));
+    }
+
+    @Test
+    public void testRandomDocuments()
+    {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder document = new StringBuilder();
+            appendRandomValue(random, document, 0);
+            byte[] bytes = document.toString().getBytes(UTF_8);
+            if (random.nextInt(4) == 0) {
+                // corrupt a byte
+                String replacements = "{}[],:\"\\ 0a";
+                bytes[random.nextInt(bytes.length)] = (byte) replacements.charAt(random.nextInt(replacements.length()));
+            }
+            assertScan(Slices.wrappedBuffer(bytes), PATHS);
+        }
+    }
+
+    private static void appendRandomValue(Random random, StringBuilder document, int depth)
+    {
+        int kind = random.nextInt(depth > 3 ? 5 : 7);
+        switch (kind) {
+            case 0:
+                document.append(random.nextInt(2000) - 1000);
+                break;
+            case 1:
+                document.append(random.nextBoolean() ? "1.5e3" : "-0.25");
+                break;
+            case 2:
+                document.append(ImmutableList.of("true", "false", "null").get(random.nextInt(3)));
+                break;
+            case 3:
+                document.append('"').append(ImmutableList.of("x", "ü", "a b", "esc\\\"aped", "\\u00e9", Strings.repeat("long", 5)).get(random.nextInt(6))).append('"');
+                break;
+            case 4:
+                document.append("\"\"");
+                break;
+            case 5:
+                document.append('{');
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    document.append('"').append(ImmutableList.of("a", "b", "c", "d", "a b", "ü", "long").get(random.nextInt(7))).append("\": ");
+                    appendRandomValue(random, document, depth + 1);
+                    if (i > 1) {
+                        document.append(", ");
+                    }
+                }
+                document.append('}');
+                break;
+            default:
+                document.append('[');
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    appendRandomValue(random, document, depth + 1);
+                    if (i > 1) {
+                        document.append(',');
+                    }
+                }
+                document.append(']');
+        }
+    }
+
+    private static String[] scan(String document, String... paths)
+    {
+        Slice[] values = JsonPathScanner.create(ImmutableList.copyOf(paths)).get().scan(utf8Slice(document));
+        if (values == null) {
+            return null;
+        }
+        String[] result = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i] == null ? null : values[i].toStringUtf8();
+        }
+        return result;
+    }
+
+    private static void assertScan(Slice document, String path)
+    {
+        assertScan(document, ImmutableList.of(path));
+    }
+
+    /**
+     * Asserts that the values of the scanner, if it does not give up, are those of Jackson.
+     */
+    private static void assertScan(Slice document, List<String> paths)
+    {
+        Slice[] values = JsonPathScanner.create(paths).get().scan(document);
+        if (values == null) {
+            return;
+        }
+        for (int i = 0; i < paths.size(); i++) {
+            Slice expected = JsonExtract.extract(document, generateExtractor(paths.get(i), new ScalarValueJsonExtractor()), PROPERTIES_CANONICALIZED_EXTRACT_DISABLED);
+            assertEquals(values[i], expected, document.toStringUtf8() + " " + paths.get(i));
+        }
+    }
+}
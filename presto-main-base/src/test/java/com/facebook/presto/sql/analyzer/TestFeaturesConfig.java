@@ -138,6 +138,8 @@ public class TestFeaturesConfig
                 .setPagesIndexEagerCompactionEnabled(false)
                 .setFilterAndProjectMinOutputPageSize(new DataSize(500, KILOBYTE))
                 .setFilterAndProjectMinOutputPageRowCount(256)
+                .setAdaptiveFilterReorderingEnabled(false)
+                .setShareCommonSubExpressionsAcrossFunctions(false)
                 .setUseMarkDistinct(true)
                 .setExploitConstraints(true)
                 .setPreferPartialAggregation(true)
@@ -197,6 +199,8 @@ public class TestFeaturesConfig
                 .setPreProcessMetadataCalls(false)
                 .setStreamingForPartialAggregationEnabled(false)
                 .setMaxStageCountForEagerScheduling(25)
+                .setPipelinedExecutionMaxSpeculativePhases(1)
+                .setPipelinedExecutionMinFreeMemoryRatio(0.25)
                 .setHyperloglogStandardErrorWarningThreshold(0.004)
                 .setPreferMergeJoinForSortedInputs(false)
                 .setPreferSortMergeJoin(false)
@@ -206,6 +210,7 @@ public class TestFeaturesConfig
                 .setQuickDistinctLimitEnabled(false)
                 .setPushRemoteExchangeThroughGroupId(false)
                 .setOptimizeMultipleApproxPercentileOnSameFieldEnabled(true)
+                .setOptimizeMultipleJsonExtractScalarOnSameFieldEnabled(false)
                 .setNativeExecutionEnabled(false)
                 .setBuiltInSidecarFunctionsEnabled(false)
                 .setDisableTimeStampWithTimeZoneForNative(false)
@@ -363,6 +368,8 @@ public class TestFeaturesConfig
                 .put("pages-index.eager-compaction-enabled", "true")
                 .put("experimental.filter-and-project-min-output-page-size", "1MB")
                 .put("experimental.filter-and-project-min-output-page-row-count", "2048")
+                .put("experimental.adaptive-filter-reordering-enabled", "true")
+                .put("experimental.share-common-sub-expressions-across-functions", "true")
                 .put("optimizer.use-mark-distinct", "false")
                 .put("optimizer.exploit-constraints", "false")
                 .put("optimizer.prefer-partial-aggregation", "false")
@@ -422,6 +429,8 @@ public class TestFeaturesConfig
                 .put("optimizer.aggregation-if-to-filter-rewrite-strategy", "filter_with_if")
                 .put("streaming-for-partial-aggregation-enabled", "true")
                 .put("execution-policy.max-stage-count-for-eager-scheduling", "123")
+                .put("execution-policy.pipelined-max-speculative-phases", "3")
+                .put("execution-policy.pipelined-min-free-memory-ratio", "0.5")
                 .put("hyperloglog-standard-error-warning-threshold", "0.02")
                 .put("optimizer.prefer-merge-join-for-sorted-inputs", "true")
                 .put("experimental.optimizer.prefer-sort-merge-join", "true")
@@ -431,6 +440,7 @@ public class TestFeaturesConfig
                 .put("optimizer.quick-distinct-limit-enabled", "true")
                 .put("optimizer.push-remote-exchange-through-group-id", "true")
                 .put("optimizer.optimize-multiple-approx-percentile-on-same-field", "false")
+                .put("optimizer.optimize-multiple-json-extract-scalar-on-same-field", "true")
                 .put("native-execution-enabled", "true")
                 .put("built-in-sidecar-functions-enabled", "true")
                 .put("disable-timestamp-with-timezone-for-native-execution", "true")
@@ -583,6 +593,8 @@ public class TestFeaturesConfig
                 .setPagesIndexEagerCompactionEnabled(true)
                 .setFilterAndProjectMinOutputPageSize(new DataSize(1, MEGABYTE))
                 .setFilterAndProjectMinOutputPageRowCount(2048)
+                .setAdaptiveFilterReorderingEnabled(true)
+                .setShareCommonSubExpressionsAcrossFunctions(true)
                 .setUseMarkDistinct(false)
                 .setExploitConstraints(false)
                 .setPreferPartialAggregation(false)
@@ -644,6 +656,8 @@ public class TestFeaturesConfig
                 .setPreProcessMetadataCalls(true)
                 .setStreamingForPartialAggregationEnabled(true)
                 .setMaxStageCountForEagerScheduling(123)
+                .setPipelinedExecutionMaxSpeculativePhases(3)
+                .setPipelinedExecutionMinFreeMemoryRatio(0.5)
                 .setHyperloglogStandardErrorWarningThreshold(0.02)
                 .setPreferMergeJoinForSortedInputs(true)
                 .setPreferSortMergeJoin(true)
@@ -653,6 +667,7 @@ public class TestFeaturesConfig
                 .setQuickDistinctLimitEnabled(true)
                 .setPushRemoteExchangeThroughGroupId(true)
                 .setOptimizeMultipleApproxPercentileOnSameFieldEnabled(false)
+                .setOptimizeMultipleJsonExtractScalarOnSameFieldEnabled(true)
                 .setNativeExecutionEnabled(true)
                 .setBuiltInSidecarFunctionsEnabled(true)
                 .setDisableTimeStampWithTimeZoneForNative(true)
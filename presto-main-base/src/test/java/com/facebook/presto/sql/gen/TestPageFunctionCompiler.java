@@ -16,41 +16,73 @@ package com.facebook.presto.sql.gen;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.DictionaryBlock;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.type.StandardTypes;
+import com.facebook.presto.metadata.CastType;
 import com.facebook.presto.metadata.FunctionAndTypeManager;
+import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.operator.DriverYieldSignal;
 import com.facebook.presto.operator.Work;
+import com.facebook.presto.operator.project.BlockFunctionPageProjection;
+import com.facebook.presto.operator.project.ColumnarPageFilter;
+import com.facebook.presto.operator.project.ColumnarPageProjection;
 import com.facebook.presto.operator.project.PageFilter;
+import com.facebook.presto.operator.project.PageProcessor;
 import com.facebook.presto.operator.project.PageProjection;
 import com.facebook.presto.operator.project.PageProjectionWithOutputs;
 import com.facebook.presto.operator.project.SelectedPositions;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.function.BlockImplementation;
+import com.facebook.presto.spi.function.FunctionHandle;
+import com.facebook.presto.spi.function.ScalarFunction;
+import com.facebook.presto.spi.function.SqlType;
 import com.facebook.presto.spi.relation.CallExpression;
 import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.spi.relation.SpecialFormExpression;
+import com.facebook.presto.sql.gen.CompiledExpressionHistory.FunctionProperties;
 import com.google.common.collect.ImmutableList;
 import org.testng.annotations.Test;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
 import static com.facebook.presto.common.function.OperatorType.ADD;
+import static com.facebook.presto.common.function.OperatorType.BETWEEN;
+import static com.facebook.presto.common.function.OperatorType.CAST;
 import static com.facebook.presto.common.function.OperatorType.GREATER_THAN;
+import static com.facebook.presto.common.function.OperatorType.GREATER_THAN_OR_EQUAL;
 import static com.facebook.presto.common.function.OperatorType.LESS_THAN;
+import static com.facebook.presto.common.function.OperatorType.MULTIPLY;
+import static com.facebook.presto.common.function.OperatorType.NOT_EQUAL;
+import static com.facebook.presto.common.function.OperatorType.SUBTRACT;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.metadata.FunctionExtractor.extractFunctions;
 import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
 import static com.facebook.presto.spi.StandardErrorCode.NUMERIC_VALUE_OUT_OF_RANGE;
 import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.AND;
 import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.IF;
+import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.IN;
 import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
+import static com.facebook.presto.sql.gen.CompiledExpressionHistory.Kind.FILTER;
+import static com.facebook.presto.sql.gen.CompiledExpressionHistory.Kind.PROJECTION;
 import static com.facebook.presto.sql.relational.Expressions.call;
 import static com.facebook.presto.sql.relational.Expressions.constant;
 import static com.facebook.presto.sql.relational.Expressions.field;
 import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
@@ -176,6 +208,52 @@ public class TestPageFunctionCompiler
                 noCacheCompiler.compileProjection(SESSION.getSqlFunctionProperties(), ADD_10_EXPRESSION, Optional.of("hint2")));
     }
 
+    @Test
+    public void testExpressionHistory()
+    {
+        CompiledExpressionHistory history = new CompiledExpressionHistory(10);
+        PageFunctionCompiler functionCompiler = new PageFunctionCompiler(createTestMetadataManager(), 100, Optional.of(history), false);
+
+        functionCompiler.compileProjection(SESSION.getSqlFunctionProperties(), ADD_10_EXPRESSION, Optional.empty());
+        functionCompiler.compileProjections(SESSION.getSqlFunctionProperties(), ImmutableList.of(ADD_X_Y, ADD_X_Y_Z), true, Optional.empty());
+        functionCompiler.compileProjections(SESSION.getSqlFunctionProperties(), ImmutableList.of(ADD_X_Y, ADD_X_Y_Z), true, Optional.empty());
+        functionCompiler.compileFilter(SESSION.getSqlFunctionProperties(), ADD_X_Y_GREATER_THAN_2, false, Optional.empty());
+        // constant and input projections are not compiled
+        functionCompiler.compileProjection(SESSION.getSqlFunctionProperties(), field(0, BIGINT), Optional.empty());
+
+        FunctionProperties properties = FunctionProperties.from(SESSION.getSqlFunctionProperties());
+        List<CompiledExpressionHistory.Entry> mostUsed = history.getMostUsed(10);
+        assertEquals(mostUsed.size(), 3);
+        assertEquals(mostUsed.get(0), new CompiledExpressionHistory.Entry(PROJECTION, properties, ImmutableList.of(ADD_X_Y, ADD_X_Y_Z), true));
+        assertEquals(history.getMostUsed(1), mostUsed.subList(0, 1));
+        assertTrue(mostUsed.contains(new CompiledExpressionHistory.Entry(FILTER, properties, ImmutableList.of(ADD_X_Y_GREATER_THAN_2), false)));
+
+        // compiling the recorded expressions populates the cache for the function properties they were recorded with,
+        // which queries of another user or start time share
+        PageFunctionCompiler warmCompiler = new PageFunctionCompiler(createTestMetadataManager(), 100);
+        for (CompiledExpressionHistory.Entry entry : mostUsed) {
+            warmCompiler.compileRecorded(entry);
+        }
+        assertEquals(warmCompiler.getProjectionCache().size(), 2);
+        assertEquals(warmCompiler.getFilterCache().size(), 1);
+        SqlFunctionProperties otherQuery = SqlFunctionProperties.builder()
+                .setTimeZoneKey(SESSION.getSqlFunctionProperties().getTimeZoneKey())
+                .setSessionLocale(SESSION.getSqlFunctionProperties().getSessionLocale())
+                .setSessionUser("other_user")
+                .setSessionStartTime(SESSION.getSqlFunctionProperties().getSessionStartTime() + 1000)
+                .setParseDecimalLiteralAsDouble(SESSION.getSqlFunctionProperties().isParseDecimalLiteralAsDouble())
+                .setLegacyTimestamp(SESSION.getSqlFunctionProperties().isLegacyTimestamp())
+                .setLegacyMapSubscript(SESSION.getSqlFunctionProperties().isLegacyMapSubscript())
+                .setLegacyRowFieldOrdinalAccessEnabled(SESSION.getSqlFunctionProperties().isLegacyRowFieldOrdinalAccessEnabled())
+                .setLegacyJsonCast(SESSION.getSqlFunctionProperties().isLegacyJsonCast())
+                .setCanonicalizedJsonExtract(SESSION.getSqlFunctionProperties().isCanonicalizedJsonExtract())
+                .build();
+        warmCompiler.compileProjection(otherQuery, ADD_10_EXPRESSION, Optional.empty());
+        warmCompiler.compileFilter(otherQuery, ADD_X_Y_GREATER_THAN_2, false, Optional.empty());
+        assertEquals(warmCompiler.getProjectionCache().getHitRate(), 1.0 / 3);
+        assertEquals(warmCompiler.getFilterCache().getHitRate(), 0.5);
+    }
+
     @Test
     public void testCommonSubExpressionInProjection()
     {
@@ -239,6 +317,249 @@ public class TestPageFunctionCompiler
         assertEquals(positions.getPositions(), new int[] {2, 3, 4});
     }
 
+    @Test
+    public void testColumnarEvaluation()
+    {
+        PageFunctionCompiler columnarCompiler = new PageFunctionCompiler(createTestMetadataManager(), 0, Optional.empty(), true);
+        PageFunctionCompiler generatedCompiler = new PageFunctionCompiler(createTestMetadataManager(), 0);
+
+        List<RowExpression> filters = ImmutableList.of(
+                call(LESS_THAN.name(), FUNCTION_MANAGER.resolveOperator(LESS_THAN, fromTypes(INTEGER, INTEGER)), BOOLEAN, field(1, INTEGER), constant(3L, INTEGER)),
+                call(GREATER_THAN_OR_EQUAL.name(), FUNCTION_MANAGER.resolveOperator(GREATER_THAN_OR_EQUAL, fromTypes(BIGINT, BIGINT)), BOOLEAN, constant(5L, BIGINT), field(0, BIGINT)),
+                call(NOT_EQUAL.name(), FUNCTION_MANAGER.resolveOperator(NOT_EQUAL, fromTypes(BIGINT, BIGINT)), BOOLEAN, field(3, BIGINT), constant(3L, BIGINT)),
+                call(BETWEEN.name(), FUNCTION_MANAGER.resolveOperator(BETWEEN, fromTypes(BIGINT, BIGINT, BIGINT)), BOOLEAN, field(0, BIGINT), constant(2L, BIGINT), constant(6L, BIGINT)),
+                new SpecialFormExpression(IN, BOOLEAN, field(1, INTEGER), constant(1L, INTEGER), constant(4L, INTEGER), constant(7L, INTEGER)));
+        List<RowExpression> projections = ImmutableList.of(
+                ADD_10_EXPRESSION,
+                call(MULTIPLY.name(), FUNCTION_MANAGER.resolveOperator(MULTIPLY, fromTypes(BIGINT, BIGINT)), BIGINT, field(0, BIGINT), field(3, BIGINT)),
+                call(SUBTRACT.name(), FUNCTION_MANAGER.resolveOperator(SUBTRACT, fromTypes(DOUBLE, DOUBLE)), DOUBLE, constant(1.5, DOUBLE), field(2, DOUBLE)),
+                call(CAST.name(), FUNCTION_MANAGER.lookupCast(CastType.CAST, INTEGER, BIGINT), BIGINT, field(1, INTEGER)),
+                call(CAST.name(), FUNCTION_MANAGER.lookupCast(CastType.CAST, INTEGER, DOUBLE), DOUBLE, field(1, INTEGER)),
+                call(CAST.name(), FUNCTION_MANAGER.lookupCast(CastType.CAST, BIGINT, DOUBLE), DOUBLE, field(0, BIGINT)));
+
+        Page page = createColumnarPage();
+        Page dictionaryPage = new Page(IntStream.range(0, page.getChannelCount())
+                .mapToObj(channel -> new DictionaryBlock(page.getBlock(channel), new int[] {9, 8, 7, 6, 5, 4, 3, 2, 1, 0}))
+                .toArray(Block[]::new));
+        // position 1 is null in the nullable columns, and position 3 is not
+        List<Page> inputs = ImmutableList.of(page, dictionaryPage, createRunLengthEncodedPage(page, 1), createRunLengthEncodedPage(page, 3));
+        SelectedPositions positionsList = SelectedPositions.positionsList(new int[] {0, 2, 3, 5, 8, 9}, 1, 4);
+        SelectedPositions positionsRange = SelectedPositions.positionsRange(2, 7);
+
+        for (RowExpression filter : filters) {
+            PageFilter columnarFilter = columnarCompiler.compileFilter(SESSION.getSqlFunctionProperties(), filter, false, Optional.empty()).get();
+            PageFilter generatedFilter = generatedCompiler.compileFilter(SESSION.getSqlFunctionProperties(), filter, false, Optional.empty()).get();
+            assertTrue(columnarFilter instanceof ColumnarPageFilter, filter.toString());
+            for (Page input : inputs) {
+                assertEquals(toPositionList(filter(columnarFilter, input)), toPositionList(filter(generatedFilter, input)), filter.toString());
+            }
+        }
+        for (RowExpression projection : projections) {
+            PageProjection columnarProjection = columnarCompiler.compileProjection(SESSION.getSqlFunctionProperties(), projection, Optional.empty()).get();
+            PageProjection generatedProjection = generatedCompiler.compileProjection(SESSION.getSqlFunctionProperties(), projection, Optional.empty()).get();
+            assertTrue(columnarProjection instanceof ColumnarPageProjection, projection.toString());
+            for (Page input : inputs) {
+                for (SelectedPositions positions : ImmutableList.of(positionsList, positionsRange)) {
+                    Block expected = getOnlyElement(project(generatedProjection, generatedProjection.getInputChannels().getInputChannels(input), positions));
+                    Block actual = getOnlyElement(project(columnarProjection, columnarProjection.getInputChannels().getInputChannels(input), positions));
+                    assertBlockEquals(actual, expected);
+                }
+            }
+        }
+
+        // expressions that are not supported fall back to generated code
+        assertFalse(columnarCompiler.compileProjection(SESSION.getSqlFunctionProperties(), ADD_X_Y_Z, Optional.empty()).get() instanceof ColumnarPageProjection);
+        assertFalse(columnarCompiler.compileFilter(SESSION.getSqlFunctionProperties(), ADD_X_Y_GREATER_THAN_2, false, Optional.empty()).get() instanceof ColumnarPageFilter);
+    }
+
+    @Test
+    public void testColumnarEvaluationYield()
+    {
+        PageFunctionCompiler columnarCompiler = new PageFunctionCompiler(createTestMetadataManager(), 0, Optional.empty(), true);
+        PageFunctionCompiler generatedCompiler = new PageFunctionCompiler(createTestMetadataManager(), 0);
+        RowExpression filter = call(BETWEEN.name(), FUNCTION_MANAGER.resolveOperator(BETWEEN, fromTypes(BIGINT, BIGINT, BIGINT)), BOOLEAN, field(0, BIGINT), constant(2L, BIGINT), constant(8L, BIGINT));
+        List<RowExpression> projections = ImmutableList.of(
+                ADD_10_EXPRESSION,
+                call(MULTIPLY.name(), FUNCTION_MANAGER.resolveOperator(MULTIPLY, fromTypes(BIGINT, BIGINT)), BIGINT, field(0, BIGINT), field(3, BIGINT)));
+        PageProcessor columnarProcessor = createPageProcessor(columnarCompiler, filter, projections);
+        PageProcessor generatedProcessor = createPageProcessor(generatedCompiler, filter, projections);
+
+        Page page = createColumnarPage();
+        List<Page> expected = ImmutableList.copyOf(generatedProcessor.process(SESSION.getSqlFunctionProperties(), new DriverYieldSignal(), newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"), page)).stream()
+                .map(Optional::get)
+                .collect(toImmutableList());
+
+        // the columnar projections complete at once, but the processor still yields between them
+        DriverYieldSignal yieldSignal = new DriverYieldSignal();
+        Iterator<Optional<Page>> output = columnarProcessor.process(SESSION.getSqlFunctionProperties(), yieldSignal, newSimpleAggregatedMemoryContext().newLocalMemoryContext("test"), page);
+        yieldSignal.forceYieldForTesting();
+        assertTrue(output.hasNext());
+        assertFalse(output.next().isPresent());
+        yieldSignal.resetYieldForTesting();
+
+        List<Page> actual = ImmutableList.copyOf(output).stream()
+                .map(result -> result.orElseThrow(() -> new AssertionError("unexpected yield")))
+                .collect(toImmutableList());
+        assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < actual.size(); i++) {
+            assertPageEquals(ImmutableList.of(BIGINT, BIGINT), actual.get(i), expected.get(i));
+        }
+    }
+
+    @Test
+    public void testColumnarEvaluationCache()
+    {
+        RowExpression filter = call(LESS_THAN.name(), FUNCTION_MANAGER.resolveOperator(LESS_THAN, fromTypes(INTEGER, INTEGER)), BOOLEAN, field(1, INTEGER), constant(3L, INTEGER));
+        PageFunctionCompiler cacheCompiler = new PageFunctionCompiler(createTestMetadataManager(), 100, Optional.empty(), true);
+
+        Supplier<PageFilter> filterSupplier = cacheCompiler.compileFilter(SESSION.getSqlFunctionProperties(), filter, false, Optional.empty());
+        assertSame(cacheCompiler.compileFilter(SESSION.getSqlFunctionProperties(), filter, false, Optional.empty()), filterSupplier);
+        assertEquals(cacheCompiler.getFilterCache().size(), 1);
+        Supplier<PageProjection> projectionSupplier = cacheCompiler.compileProjection(SESSION.getSqlFunctionProperties(), ADD_10_EXPRESSION, Optional.empty());
+        assertSame(cacheCompiler.compileProjection(SESSION.getSqlFunctionProperties(), ADD_10_EXPRESSION, Optional.empty()), projectionSupplier);
+        assertEquals(cacheCompiler.getProjectionCache().size(), 1);
+
+        // each driver gets its own instance, as the instances reuse their buffers
+        assertTrue(filterSupplier.get() instanceof ColumnarPageFilter);
+        assertNotSame(filterSupplier.get(), filterSupplier.get());
+        assertTrue(projectionSupplier.get() instanceof ColumnarPageProjection);
+        assertNotSame(projectionSupplier.get(), projectionSupplier.get());
+    }
+
+    @Test
+    public void testColumnarEvaluationOverflow()
+    {
+        PageFunctionCompiler functionCompiler = new PageFunctionCompiler(createTestMetadataManager(), 0, Optional.empty(), true);
+        PageProjection projection = functionCompiler.compileProjection(SESSION.getSqlFunctionProperties(), ADD_10_EXPRESSION, Optional.empty()).get();
+        assertTrue(projection instanceof ColumnarPageProjection);
+
+        Page badPage = createLongBlockPage(1, 0, 1, Long.MAX_VALUE);
+        try {
+            project(projection, badPage, SelectedPositions.positionsRange(0, badPage.getPositionCount()));
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), NUMERIC_VALUE_OUT_OF_RANGE.toErrorCode());
+            assertEquals(e.getMessage(), "bigint addition overflow: 9223372036854775807 + 10");
+        }
+    }
+
+    @Test
+    public void testBlockImplementation()
+    {
+        MetadataManager metadata = createTestMetadataManager();
+        metadata.registerBuiltInFunctions(extractFunctions(BlockAddFunction.class));
+        FunctionAndTypeManager functionAndTypeManager = metadata.getFunctionAndTypeManager();
+        PageFunctionCompiler functionCompiler = new PageFunctionCompiler(metadata, 0);
+
+        FunctionHandle blockAdd = functionAndTypeManager.lookupFunction("block_add", fromTypes(BIGINT, BIGINT));
+        RowExpression projection = call("block_add", blockAdd, BIGINT, field(0, BIGINT), field(3, BIGINT));
+        RowExpression expectedProjection = call(ADD.name(), FUNCTION_MANAGER.resolveOperator(ADD, fromTypes(BIGINT, BIGINT)), BIGINT, field(0, BIGINT), field(3, BIGINT));
+        PageProjection blockProjection = functionCompiler.compileProjection(SESSION.getSqlFunctionProperties(), projection, Optional.empty()).get();
+        PageProjection generatedProjection = functionCompiler.compileProjection(SESSION.getSqlFunctionProperties(), expectedProjection, Optional.empty()).get();
+        assertTrue(blockProjection instanceof BlockFunctionPageProjection);
+
+        Page page = createColumnarPage();
+        Page dictionaryPage = new Page(IntStream.range(0, page.getChannelCount())
+                .mapToObj(channel -> new DictionaryBlock(page.getBlock(channel), new int[] {9, 8, 7, 6, 5, 4, 3, 2, 1, 0}))
+                .toArray(Block[]::new));
+        for (Page input : ImmutableList.of(page, dictionaryPage)) {
+            for (SelectedPositions positions : ImmutableList.of(SelectedPositions.positionsList(new int[] {0, 2, 3, 5, 8, 9}, 1, 4), SelectedPositions.positionsRange(2, 7))) {
+                Block expected = getOnlyElement(project(generatedProjection, generatedProjection.getInputChannels().getInputChannels(input), positions));
+                Block actual = getOnlyElement(project(blockProjection, blockProjection.getInputChannels().getInputChannels(input), positions));
+                assertBlockEquals(actual, expected);
+            }
+        }
+
+        // arguments that are not columns use the per-row implementation
+        RowExpression constantArgument = call("block_add", blockAdd, BIGINT, field(0, BIGINT), constant(10L, BIGINT));
+        assertFalse(functionCompiler.compileProjection(SESSION.getSqlFunctionProperties(), constantArgument, Optional.empty()).get() instanceof BlockFunctionPageProjection);
+    }
+
+    @ScalarFunction("block_add")
+    public static final class BlockAddFunction
+    {
+        private BlockAddFunction() {}
+
+        @SqlType(StandardTypes.BIGINT)
+        public static long add(@SqlType(StandardTypes.BIGINT) long left, @SqlType(StandardTypes.BIGINT) long right)
+        {
+            return left + right;
+        }
+
+        @BlockImplementation
+        @SqlType(StandardTypes.BIGINT)
+        public static void add(@SqlType(StandardTypes.BIGINT) Block left, @SqlType(StandardTypes.BIGINT) Block right, int[] positions, int offset, int positionCount, BlockBuilder output)
+        {
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions == null ? offset + i : positions[offset + i];
+                if (left.isNull(position) || right.isNull(position)) {
+                    output.appendNull();
+                }
+                else {
+                    BIGINT.writeLong(output, BIGINT.getLong(left, position) + BIGINT.getLong(right, position));
+                }
+            }
+        }
+    }
+
+    private static Page createColumnarPage()
+    {
+        BlockBuilder bigints = BIGINT.createFixedSizeBlockBuilder(10);
+        BlockBuilder integers = INTEGER.createFixedSizeBlockBuilder(10);
+        BlockBuilder doubles = DOUBLE.createFixedSizeBlockBuilder(10);
+        BlockBuilder nonNullBigints = BIGINT.createFixedSizeBlockBuilder(10);
+        for (int i = 0; i < 10; i++) {
+            if (i % 4 == 1) {
+                bigints.appendNull();
+                doubles.appendNull();
+            }
+            else {
+                BIGINT.writeLong(bigints, i);
+                DOUBLE.writeDouble(doubles, i * 0.5);
+            }
+            INTEGER.writeLong(integers, i - 2);
+            BIGINT.writeLong(nonNullBigints, 10 - i);
+        }
+        return new Page(bigints.build(), integers.build(), doubles.build(), nonNullBigints.build());
+    }
+
+    private static PageProcessor createPageProcessor(PageFunctionCompiler compiler, RowExpression filter, List<RowExpression> projections)
+    {
+        return new PageProcessor(
+                Optional.of(compiler.compileFilter(SESSION.getSqlFunctionProperties(), filter, false, Optional.empty()).get()),
+                IntStream.range(0, projections.size())
+                        .mapToObj(channel -> new PageProjectionWithOutputs(compiler.compileProjection(SESSION.getSqlFunctionProperties(), projections.get(channel), Optional.empty()).get(), new int[] {channel}))
+                        .collect(toImmutableList()));
+    }
+
+    private static Page createRunLengthEncodedPage(Page page, int position)
+    {
+        return new Page(IntStream.range(0, page.getChannelCount())
+                .mapToObj(channel -> new RunLengthEncodedBlock(page.getBlock(channel).getSingleValueBlock(position), page.getPositionCount()))
+                .toArray(Block[]::new));
+    }
+
+    private static List<Integer> toPositionList(SelectedPositions positions)
+    {
+        ImmutableList.Builder<Integer> result = ImmutableList.builder();
+        for (int i = 0; i < positions.size(); i++) {
+            result.add(positions.isList() ? positions.getPositions()[positions.getOffset() + i] : positions.getOffset() + i);
+        }
+        return result.build();
+    }
+
+    private static void assertBlockEquals(Block actual, Block expected)
+    {
+        assertEquals(actual.getPositionCount(), expected.getPositionCount());
+        for (int i = 0; i < actual.getPositionCount(); i++) {
+            assertEquals(actual.isNull(i), expected.isNull(i));
+            if (!expected.isNull(i)) {
+                assertEquals(actual.getLong(i), expected.getLong(i));
+            }
+        }
+    }
+
     private void checkBlockEqual(Block a, Block b)
     {
         assertEquals(a.getPositionCount(), b.getPositionCount());
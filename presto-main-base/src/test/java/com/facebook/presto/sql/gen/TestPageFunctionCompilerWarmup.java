@@ -0,0 +1,229 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.airlift.bootstrap.Bootstrap;
+import com.facebook.airlift.json.JsonCodec;
+import com.facebook.airlift.json.JsonModule;
+import com.facebook.drift.codec.guice.ThriftCodecModule;
+import com.facebook.presto.block.BlockJsonSerde;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockEncoding;
+import com.facebook.presto.common.block.BlockEncodingManager;
+import com.facebook.presto.common.block.BlockEncodingSerde;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.TypeManager;
+import com.facebook.presto.connector.ConnectorManager;
+import com.facebook.presto.metadata.HandleJsonModule;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.spi.relation.CallExpression;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.gen.CompiledExpressionHistory.FunctionProperties;
+import com.facebook.presto.sql.gen.PageFunctionCompilerWarmup.CompiledExpressions;
+import com.facebook.presto.type.TypeDeserializer;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Scopes;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+
+import static com.facebook.airlift.configuration.ConfigBinder.configBinder;
+import static com.facebook.airlift.json.JsonBinder.jsonBinder;
+import static com.facebook.airlift.json.JsonCodecBinder.jsonCodecBinder;
+import static com.facebook.presto.common.function.OperatorType.ADD;
+import static com.facebook.presto.common.function.OperatorType.GREATER_THAN;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.TimeZoneKey.getTimeZoneKey;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.facebook.presto.sql.relational.Expressions.field;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.inject.multibindings.Multibinder.newSetBinder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestPageFunctionCompilerWarmup
+{
+    private static final MetadataManager METADATA = createTestMetadataManager();
+
+    private static final CallExpression ADD_X_Y = call(
+            ADD.name(),
+            METADATA.getFunctionAndTypeManager().resolveOperator(ADD, fromTypes(BIGINT, BIGINT)),
+            BIGINT,
+            field(0, BIGINT),
+            field(1, BIGINT));
+
+    private static final CallExpression ADD_X_Y_GREATER_THAN_2 = call(
+            GREATER_THAN.name(),
+            METADATA.getFunctionAndTypeManager().resolveOperator(GREATER_THAN, fromTypes(BIGINT, BIGINT)),
+            BOOLEAN,
+            ADD_X_Y,
+            constant(2L, BIGINT));
+
+    private JsonCodec<CompiledExpressions> codec;
+    private Path directory;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        codec = getJsonCodec();
+        directory = Files.createTempDirectory("compiled-expressions");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(directory, ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testSaveAndLoad()
+    {
+        Path file = directory.resolve("round-trip.json");
+        PageFunctionCompiler compiler = new PageFunctionCompiler(METADATA, 100, Optional.of(new CompiledExpressionHistory(10)), false);
+        compiler.compileProjections(SESSION.getSqlFunctionProperties(), ImmutableList.of(ADD_X_Y), true, Optional.empty());
+        compiler.compileFilter(SESSION.getSqlFunctionProperties(), ADD_X_Y_GREATER_THAN_2, false, Optional.empty());
+        new PageFunctionCompilerWarmup(compiler, Optional.of(file), 10, "1.0", codec).save();
+
+        CompiledExpressions saved = codec.fromJson(readFile(file));
+        assertEquals(saved.getVersion(), "1.0");
+        assertEquals(saved.getEntries(), compiler.getExpressionHistory().get().getMostUsed(10));
+
+        // a restarted server compiles the saved expressions, and its queries find them in the caches
+        PageFunctionCompiler restartedCompiler = new PageFunctionCompiler(METADATA, 100);
+        new PageFunctionCompilerWarmup(restartedCompiler, Optional.of(file), 10, "1.0", codec).warmUp();
+        assertEquals(restartedCompiler.getProjectionCache().size(), 1);
+        assertEquals(restartedCompiler.getFilterCache().size(), 1);
+
+        restartedCompiler.compileProjections(SESSION.getSqlFunctionProperties(), ImmutableList.of(ADD_X_Y), true, Optional.empty());
+        restartedCompiler.compileFilter(SESSION.getSqlFunctionProperties(), ADD_X_Y_GREATER_THAN_2, false, Optional.empty());
+        assertEquals(restartedCompiler.getProjectionCache().getHitRate(), 0.5);
+        assertEquals(restartedCompiler.getFilterCache().getHitRate(), 0.5);
+    }
+
+    @Test
+    public void testFunctionPropertiesRoundTrip()
+    {
+        // every property the compiled classes depend on is set to a value other than its default
+        SqlFunctionProperties properties = SqlFunctionProperties.builder()
+                .setTimeZoneKey(getTimeZoneKey("America/Los_Angeles"))
+                .setSessionLocale(Locale.GERMANY)
+                .setSessionUser("user")
+                .setSessionStartTime(1234)
+                .setParseDecimalLiteralAsDouble(true)
+                .setLegacyRowFieldOrdinalAccessEnabled(true)
+                .setLegacyTimestamp(true)
+                .setLegacyMapSubscript(true)
+                .setFieldNamesInJsonCastEnabled(true)
+                .setLegacyJsonCast(true)
+                .setWarnOnCommonNanPatterns(true)
+                .setCanonicalizedJsonExtract(true)
+                .build();
+
+        Path file = directory.resolve("function-properties.json");
+        PageFunctionCompiler compiler = new PageFunctionCompiler(METADATA, 100, Optional.of(new CompiledExpressionHistory(10)), false);
+        compiler.compileFilter(properties, ADD_X_Y_GREATER_THAN_2, false, Optional.empty());
+        new PageFunctionCompilerWarmup(compiler, Optional.of(file), 10, "1.0", codec).save();
+
+        FunctionProperties saved = getOnlyElement(codec.fromJson(readFile(file)).getEntries()).getProperties();
+        assertEquals(saved, FunctionProperties.from(properties));
+        SqlFunctionProperties restored = saved.toSqlFunctionProperties();
+        assertEquals(restored.getTimeZoneKey(), properties.getTimeZoneKey());
+        assertEquals(restored.getSessionLocale(), properties.getSessionLocale());
+        assertTrue(restored.isParseDecimalLiteralAsDouble());
+        assertTrue(restored.isLegacyRowFieldOrdinalAccessEnabled());
+        assertTrue(restored.isLegacyTimestamp());
+        assertTrue(restored.isLegacyMapSubscript());
+        assertTrue(restored.isFieldNamesInJsonCastEnabled());
+        assertTrue(restored.isLegacyJsonCast());
+        assertTrue(restored.shouldWarnOnCommonNanPatterns());
+        assertTrue(restored.isCanonicalizedJsonExtract());
+
+        // the warmed up filter is found by a query of a session with these properties
+        PageFunctionCompiler restartedCompiler = new PageFunctionCompiler(METADATA, 100);
+        new PageFunctionCompilerWarmup(restartedCompiler, Optional.of(file), 10, "1.0", codec).warmUp();
+        restartedCompiler.compileFilter(properties, ADD_X_Y_GREATER_THAN_2, false, Optional.empty());
+        assertEquals(restartedCompiler.getFilterCache().size(), 1);
+        assertEquals(restartedCompiler.getFilterCache().getHitRate(), 0.5);
+    }
+
+    @Test
+    public void testVersionMismatch()
+    {
+        Path file = directory.resolve("version-mismatch.json");
+        PageFunctionCompiler compiler = new PageFunctionCompiler(METADATA, 100, Optional.of(new CompiledExpressionHistory(10)), false);
+        compiler.compileFilter(SESSION.getSqlFunctionProperties(), ADD_X_Y_GREATER_THAN_2, false, Optional.empty());
+        new PageFunctionCompilerWarmup(compiler, Optional.of(file), 10, "1.0", codec).save();
+
+        PageFunctionCompiler restartedCompiler = new PageFunctionCompiler(METADATA, 100);
+        new PageFunctionCompilerWarmup(restartedCompiler, Optional.of(file), 10, "2.0", codec).warmUp();
+        assertEquals(restartedCompiler.getFilterCache().size(), 0);
+    }
+
+    private static byte[] readFile(Path file)
+    {
+        try {
+            return Files.readAllBytes(file);
+        }
+        catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static JsonCodec<CompiledExpressions> getJsonCodec()
+            throws Exception
+    {
+        Module module = binder -> {
+            binder.install(new JsonModule());
+            binder.install(new ThriftCodecModule());
+            binder.install(new HandleJsonModule());
+            configBinder(binder).bindConfig(FeaturesConfig.class);
+            binder.bind(ConnectorManager.class).toProvider(() -> null);
+
+            binder.bind(TypeManager.class).toInstance(METADATA.getFunctionAndTypeManager());
+            jsonBinder(binder).addDeserializerBinding(Type.class).to(TypeDeserializer.class);
+            newSetBinder(binder, Type.class);
+
+            binder.bind(BlockEncodingSerde.class).to(BlockEncodingManager.class).in(Scopes.SINGLETON);
+            newSetBinder(binder, BlockEncoding.class);
+            jsonBinder(binder).addSerializerBinding(Block.class).to(BlockJsonSerde.Serializer.class);
+            jsonBinder(binder).addDeserializerBinding(Block.class).to(BlockJsonSerde.Deserializer.class);
+            jsonCodecBinder(binder).bindJsonCodec(CompiledExpressions.class);
+        };
+        Bootstrap app = new Bootstrap(ImmutableList.of(module));
+        Injector injector = app
+                .doNotInitializeLogging()
+                .quiet()
+                .initialize();
+        return injector.getInstance(new Key<JsonCodec<CompiledExpressions>>() {});
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.function.OperatorType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.metadata.FunctionAndTypeManager;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.operator.DriverYieldSignal;
+import com.facebook.presto.operator.project.PageProcessor;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.sql.gen.SharedSubExpressionRewriter.SharedSubExpressions;
+import com.facebook.presto.sql.relational.RowExpressionDeterminismEvaluator;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.function.OperatorType.ADD;
+import static com.facebook.presto.common.function.OperatorType.GREATER_THAN;
+import static com.facebook.presto.common.function.OperatorType.LESS_THAN;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.AND;
+import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.IF;
+import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
+import static com.facebook.presto.sql.gen.PageFunctionCompiler.getProjectionGroups;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.facebook.presto.sql.relational.Expressions.field;
+import static com.facebook.presto.sql.relational.Expressions.specialForm;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static java.util.Collections.emptyMap;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestSharedSubExpressionRewriter
+{
+    private static final MetadataManager METADATA = createTestMetadataManager();
+    private static final FunctionAndTypeManager FUNCTION_MANAGER = METADATA.getFunctionAndTypeManager();
+    private static final RowExpressionDeterminismEvaluator DETERMINISM_EVALUATOR = new RowExpressionDeterminismEvaluator(FUNCTION_MANAGER);
+
+    private static final RowExpression X = field(0, BIGINT);
+    private static final RowExpression Y = field(1, BIGINT);
+    private static final RowExpression ABS_X = abs(X);
+    private static final RowExpression ABS_Y = abs(Y);
+
+    @Test
+    public void testFilterAndProjection()
+    {
+        // abs(x) > 5 AND y < 10, projecting abs(x) + 1 and y
+        SharedSubExpressions shared = rewrite(
+                ImmutableList.of(operator(GREATER_THAN, BOOLEAN, ABS_X, constant(5L, BIGINT)), operator(LESS_THAN, BOOLEAN, Y, constant(10L, BIGINT))),
+                ImmutableList.of(operator(ADD, BIGINT, ABS_X, constant(1L, BIGINT)), Y),
+                false).get();
+        assertEquals(shared.getFirstChannel(), 2);
+        assertEquals(shared.getConjunctSubExpressions(), ImmutableList.of(ImmutableList.of(ABS_X), ImmutableList.of()));
+        assertEquals(shared.getConjuncts(), ImmutableList.of(operator(GREATER_THAN, BOOLEAN, field(2, BIGINT), constant(5L, BIGINT)), operator(LESS_THAN, BOOLEAN, Y, constant(10L, BIGINT))));
+        assertEquals(shared.getProjections(), ImmutableList.of(operator(ADD, BIGINT, field(2, BIGINT), constant(1L, BIGINT)), Y));
+        assertEquals(shared.getProjectionSubExpressions(), ImmutableList.of());
+    }
+
+    @Test
+    public void testLaterConjunct()
+    {
+        // abs(x) > 5 AND abs(x) < 10, with the shared value of the first conjunct used by the second
+        SharedSubExpressions shared = rewrite(
+                ImmutableList.of(operator(GREATER_THAN, BOOLEAN, ABS_X, constant(5L, BIGINT)), operator(LESS_THAN, BOOLEAN, ABS_X, constant(10L, BIGINT))),
+                ImmutableList.of(Y),
+                false).get();
+        assertEquals(shared.getConjunctSubExpressions(), ImmutableList.of(ImmutableList.of(ABS_X), ImmutableList.of()));
+        assertEquals(shared.getConjuncts().get(1), operator(LESS_THAN, BOOLEAN, field(2, BIGINT), constant(10L, BIGINT)));
+    }
+
+    @Test
+    public void testConditional()
+    {
+        // a call in a branch of the projection is shared, as the filter computes it anyway
+        RowExpression conditional = specialForm(IF, BIGINT, operator(GREATER_THAN, BOOLEAN, Y, constant(0L, BIGINT)), ABS_X, constant(0L, BIGINT));
+        SharedSubExpressions shared = rewrite(
+                ImmutableList.of(operator(GREATER_THAN, BOOLEAN, ABS_X, constant(5L, BIGINT))),
+                ImmutableList.of(conditional),
+                false).get();
+        assertEquals(shared.getProjections(), ImmutableList.of(specialForm(IF, BIGINT, operator(GREATER_THAN, BOOLEAN, Y, constant(0L, BIGINT)), field(2, BIGINT), constant(0L, BIGINT))));
+
+        // but not a call that the filter only computes for some positions
+        assertFalse(rewrite(
+                ImmutableList.of(operator(GREATER_THAN, BOOLEAN, Y, ABS_X)),
+                ImmutableList.of(conditional),
+                false).isPresent());
+        assertFalse(rewrite(
+                ImmutableList.of(specialForm(AND, BOOLEAN, operator(GREATER_THAN, BOOLEAN, Y, constant(0L, BIGINT)), operator(GREATER_THAN, BOOLEAN, ABS_X, constant(5L, BIGINT)))),
+                ImmutableList.of(ABS_X),
+                false).isPresent());
+
+        // nor a call that the projections only compute for some positions
+        assertFalse(rewrite(
+                ImmutableList.of(),
+                ImmutableList.of(conditional, operator(ADD, BIGINT, Y, operator(ADD, BIGINT, Y, ABS_X))),
+                false).isPresent());
+    }
+
+    @Test
+    public void testProjections()
+    {
+        List<RowExpression> projections = ImmutableList.of(
+                operator(ADD, BIGINT, ABS_X, constant(1L, BIGINT)),
+                operator(ADD, BIGINT, ABS_X, ABS_Y),
+                ABS_Y);
+        SharedSubExpressions shared = rewrite(ImmutableList.of(), projections, false).get();
+        assertFalse(shared.hasConjunctSubExpressions());
+        assertEquals(shared.getProjectionSubExpressions(), ImmutableList.of(ABS_X, ABS_Y));
+        assertEquals(shared.getProjections(), ImmutableList.of(
+                operator(ADD, BIGINT, field(2, BIGINT), constant(1L, BIGINT)),
+                operator(ADD, BIGINT, field(2, BIGINT), field(3, BIGINT)),
+                field(3, BIGINT)));
+
+        // with common sub-expression optimization, the projections are compiled together
+        assertEquals(getProjectionGroups(projections, true), ImmutableList.of(0, 0, 0));
+        assertFalse(rewrite(ImmutableList.of(), projections, true).isPresent());
+    }
+
+    @Test
+    public void testNotShared()
+    {
+        // operators
+        RowExpression xPlusY = operator(ADD, BIGINT, X, Y);
+        assertFalse(rewrite(ImmutableList.of(operator(GREATER_THAN, BOOLEAN, xPlusY, constant(5L, BIGINT))), ImmutableList.of(xPlusY), false).isPresent());
+        // calls on constants only
+        RowExpression absConstant = abs(constant(-1L, BIGINT));
+        assertFalse(rewrite(ImmutableList.of(operator(GREATER_THAN, BOOLEAN, absConstant, X)), ImmutableList.of(absConstant), false).isPresent());
+        // non-deterministic calls
+        RowExpression random = call(FUNCTION_MANAGER, "random", BIGINT, X);
+        assertFalse(rewrite(ImmutableList.of(operator(GREATER_THAN, BOOLEAN, random, constant(5L, BIGINT))), ImmutableList.of(random), false).isPresent());
+    }
+
+    @Test
+    public void testPageProcessor()
+    {
+        // abs(x) > 5 AND abs(y) < 30, projecting abs(x) + 1, abs(x) + abs(y), abs(y), y
+        RowExpression filter = specialForm(
+                AND,
+                BOOLEAN,
+                operator(GREATER_THAN, BOOLEAN, ABS_X, constant(5L, BIGINT)),
+                operator(LESS_THAN, BOOLEAN, ABS_Y, constant(30L, BIGINT)));
+        List<RowExpression> projections = ImmutableList.of(
+                operator(ADD, BIGINT, ABS_X, constant(1L, BIGINT)),
+                operator(ADD, BIGINT, ABS_X, ABS_Y),
+                ABS_Y,
+                Y);
+
+        ExpressionCompiler compiler = new ExpressionCompiler(METADATA, new PageFunctionCompiler(METADATA, 0));
+        PageProcessor sharingProcessor = compiler.compilePageProcessor(SESSION.getSqlFunctionProperties(), Optional.of(filter), projections, false, emptyMap(), Optional.empty(), false, true).get();
+        PageProcessor processor = compiler.compilePageProcessor(SESSION.getSqlFunctionProperties(), Optional.of(filter), projections, false, emptyMap(), Optional.empty(), false, false).get();
+        assertFalse(getRows(sharingProcessor, createPage(0)).isEmpty());
+
+        for (int start = -20; start < 20; start += 7) {
+            Page page = createPage(start);
+            assertEquals(getRows(sharingProcessor, page), getRows(processor, page));
+        }
+
+        RuntimeStats runtimeStats = new RuntimeStats();
+        sharingProcessor.recordRuntimeStats(runtimeStats);
+        assertEquals(runtimeStats.getMetric("filterSharedSubExpressions").getSum(), 2);
+        assertTrue(runtimeStats.getMetric("filterSharedSubExpressionPositions").getSum() > 0);
+    }
+
+    @Test
+    public void testSelectedPositions()
+    {
+        Page page = createPage(0);
+        PageProcessor processor = new ExpressionCompiler(METADATA, new PageFunctionCompiler(METADATA, 0)).compilePageProcessor(
+                SESSION.getSqlFunctionProperties(),
+                Optional.of(operator(GREATER_THAN, BOOLEAN, ABS_X, constant(5L, BIGINT))),
+                ImmutableList.of(operator(ADD, BIGINT, ABS_X, constant(1L, BIGINT))),
+                false,
+                emptyMap(),
+                Optional.empty(),
+                false,
+                true).get();
+        assertEquals(getRows(processor, page), ImmutableList.of(
+                ImmutableList.of(7L),
+                ImmutableList.of(8L),
+                ImmutableList.of(9L),
+                ImmutableList.of(10L),
+                ImmutableList.of(11L),
+                ImmutableList.of(12L)));
+    }
+
+    private static Optional<SharedSubExpressions> rewrite(List<RowExpression> conjuncts, List<RowExpression> projections, boolean isOptimizeCommonSubExpression)
+    {
+        return SharedSubExpressionRewriter.rewrite(conjuncts, projections, getProjectionGroups(projections, isOptimizeCommonSubExpression), FUNCTION_MANAGER, DETERMINISM_EVALUATOR);
+    }
+
+    /**
+     * Returns the bigint rows of the pages produced by the processor, which starts with small batches.
+     */
+    private static List<List<Long>> getRows(PageProcessor processor, Page page)
+    {
+        ImmutableList.Builder<List<Long>> rows = ImmutableList.builder();
+        processor.process(
+                SESSION.getSqlFunctionProperties(),
+                new DriverYieldSignal(),
+                newSimpleAggregatedMemoryContext().newLocalMemoryContext(PageProcessor.class.getSimpleName()),
+                page)
+                .forEachRemaining(output -> output.ifPresent(outputPage -> {
+                    for (int position = 0; position < outputPage.getPositionCount(); position++) {
+                        ImmutableList.Builder<Long> row = ImmutableList.builder();
+                        for (int channel = 0; channel < outputPage.getChannelCount(); channel++) {
+                            row.add(BIGINT.getLong(outputPage.getBlock(channel), position));
+                        }
+                        rows.add(row.build());
+                    }
+                }));
+        return rows.build();
+    }
+
+    /**
+     * Returns a page with x from start to start + 11 and y = 2 * x.
+     */
+    private static Page createPage(long start)
+    {
+        BlockBuilder x = BIGINT.createBlockBuilder(null, 12);
+        BlockBuilder y = BIGINT.createBlockBuilder(null, 12);
+        for (long value = start; value < start + 12; value++) {
+            BIGINT.writeLong(x, value);
+            BIGINT.writeLong(y, 2 * value);
+        }
+        return new Page(x.build(), y.build());
+    }
+
+    private static RowExpression abs(RowExpression argument)
+    {
+        return call(FUNCTION_MANAGER, "abs", BIGINT, argument);
+    }
+
+    private static RowExpression operator(OperatorType operatorType, Type returnType, RowExpression left, RowExpression right)
+    {
+        return call(operatorType.name(), FUNCTION_MANAGER.resolveOperator(operatorType, fromTypes(left.getType(), right.getType())), returnType, left, right);
+    }
+}
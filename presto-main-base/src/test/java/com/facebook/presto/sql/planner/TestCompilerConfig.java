@@ -30,7 +30,10 @@ public class TestCompilerConfig
         assertRecordedDefaults(recordDefaults(CompilerConfig.class)
                 .setExpressionCacheSize(10_000)
                 .setLeafNodeLimitEnabled(false)
-                .setLeafNodeLimit(10_000));
+                .setLeafNodeLimit(10_000)
+                .setExpressionWarmupFile(null)
+                .setExpressionWarmupSize(1_000)
+                .setColumnarEvaluationEnabled(false));
     }
 
     @Test
@@ -40,12 +43,18 @@ public class TestCompilerConfig
                 .put("compiler.expression-cache-size", "52")
                 .put("planner.max-leaf-nodes-in-plan", "100")
                 .put("planner.leaf-node-limit-enabled", "true")
+                .put("compiler.expression-warmup-file", "/tmp/expressions.json")
+                .put("compiler.expression-warmup-size", "20")
+                .put("compiler.columnar-evaluation-enabled", "true")
                 .build();
 
         CompilerConfig expected = new CompilerConfig()
                 .setExpressionCacheSize(52)
                 .setLeafNodeLimit(100)
-                .setLeafNodeLimitEnabled(true);
+                .setLeafNodeLimitEnabled(true)
+                .setExpressionWarmupFile("/tmp/expressions.json")
+                .setExpressionWarmupSize(20)
+                .setColumnarEvaluationEnabled(true);
 
         assertFullMapping(properties, expected);
     }
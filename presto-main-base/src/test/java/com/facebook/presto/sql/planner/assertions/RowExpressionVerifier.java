@@ -14,10 +14,13 @@
 package com.facebook.presto.sql.planner.assertions;
 
 import com.facebook.presto.Session;
+import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.IntArrayBlock;
 import com.facebook.presto.common.function.OperatorType;
+import com.facebook.presto.common.type.ArrayType;
 import com.facebook.presto.common.type.BooleanType;
 import com.facebook.presto.common.type.RowType;
+import com.facebook.presto.common.type.Type;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.spi.function.FunctionMetadata;
 import com.facebook.presto.spi.relation.CallExpression;
@@ -84,6 +87,7 @@ import static com.facebook.presto.common.function.OperatorType.NOT_EQUAL;
 import static com.facebook.presto.common.function.OperatorType.SUBTRACT;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.StandardTypes.VARCHAR;
+import static com.facebook.presto.common.type.TypeUtils.readNativeValue;
 import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.COALESCE;
 import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.DEREFERENCE;
 import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.IF;
@@ -163,6 +167,19 @@ public final class RowExpressionVerifier
             }
             return true;
         }
+        else if (context instanceof ConstantExpression && context.getType() instanceof ArrayType && ((ConstantExpression) context).getValue() instanceof Block) {
+            Type elementType = ((ArrayType) context.getType()).getElementType();
+            Block block = (Block) ((ConstantExpression) context).getValue();
+            if (block.getPositionCount() != node.getValues().size()) {
+                return false;
+            }
+            for (int i = 0; i < node.getValues().size(); ++i) {
+                if (!process(node.getValues().get(i), constant(readNativeValue(elementType, block, i), elementType))) {
+                    return false;
+                }
+            }
+            return true;
+        }
         return false;
     }
 
@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.spi.plan.Assignments;
+import com.facebook.presto.spi.relation.CallExpression;
+import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.SystemSessionProperties.OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.expression;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.project;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.values;
+import static com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder.assignment;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static io.airlift.slice.Slices.utf8Slice;
+
+public class TestCombineJsonExtractScalarFunctions
+        extends BaseRuleTest
+{
+    @Test
+    public void testCombine()
+    {
+        tester().assertThat(new CombineJsonExtractScalarFunctions(getMetadata().getFunctionAndTypeManager()))
+                .setSystemProperty(OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD, "true")
+                .on(p -> {
+                    p.variable("col", VARCHAR);
+                    return p.project(
+                            assignment(
+                                    p.variable("a", VARCHAR), p.rowExpression("json_extract_scalar(col, '$.a')"),
+                                    p.variable("b", VARCHAR), p.rowExpression("concat(json_extract_scalar(col, '$.b'), json_extract_scalar(col, '$.a'))")),
+                            p.values(p.variable("col", VARCHAR)));
+                })
+                .matches(
+                        project(
+                                ImmutableMap.of("a", expression("element_at(results, 1)"), "b", expression("concat(element_at(results, 2), element_at(results, 1))")),
+                                project(
+                                        ImmutableMap.of("col", expression("col"), "results", expression("json_extract_scalars(col, ARRAY['$.a', '$.b'])")),
+                                        values("col"))));
+    }
+
+    @Test
+    public void testMultipleColumns()
+    {
+        tester().assertThat(new CombineJsonExtractScalarFunctions(getMetadata().getFunctionAndTypeManager()))
+                .setSystemProperty(OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD, "true")
+                .on(p -> {
+                    p.variable("col", VARCHAR);
+                    p.variable("col2", VARCHAR);
+                    return p.project(
+                            Assignments.builder()
+                                    .put(p.variable("a", VARCHAR), p.rowExpression("json_extract_scalar(col, '$.a')"))
+                                    .put(p.variable("b", VARCHAR), p.rowExpression("json_extract_scalar(col, '$[0].b')"))
+                                    .put(p.variable("c", VARCHAR), p.rowExpression("json_extract_scalar(col2, '$.c')"))
+                                    .build(),
+                            p.values(p.variable("col", VARCHAR), p.variable("col2", VARCHAR)));
+                })
+                .matches(
+                        project(
+                                ImmutableMap.of("a", expression("element_at(results, 1)"), "b", expression("element_at(results, 2)"), "c", expression("json_extract_scalar(col2, '$.c')")),
+                                project(
+                                        ImmutableMap.of("col", expression("col"), "col2", expression("col2"), "results", expression("json_extract_scalars(col, ARRAY['$.a', '$[0].b'])")),
+                                        values("col", "col2"))));
+    }
+
+    @Test
+    public void testSinglePath()
+    {
+        tester().assertThat(new CombineJsonExtractScalarFunctions(getMetadata().getFunctionAndTypeManager()))
+                .setSystemProperty(OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD, "true")
+                .on(p -> {
+                    p.variable("col", VARCHAR);
+                    return p.project(
+                            assignment(
+                                    p.variable("a", VARCHAR), p.rowExpression("json_extract_scalar(col, '$.a')"),
+                                    p.variable("b", VARCHAR), p.rowExpression("upper(json_extract_scalar(col, '$.a'))")),
+                            p.values(p.variable("col", VARCHAR)));
+                }).doesNotFire();
+    }
+
+    @Test
+    public void testJaywayPath()
+    {
+        tester().assertThat(new CombineJsonExtractScalarFunctions(getMetadata().getFunctionAndTypeManager()))
+                .setSystemProperty(OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD, "true")
+                .on(p -> {
+                    p.variable("col", VARCHAR);
+                    return p.project(
+                            assignment(
+                                    p.variable("a", VARCHAR), p.rowExpression("json_extract_scalar(col, '$.a')"),
+                                    p.variable("b", VARCHAR), p.rowExpression("json_extract_scalar(col, '$..b')")),
+                            p.values(p.variable("col", VARCHAR)));
+                }).doesNotFire();
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        tester().assertThat(new CombineJsonExtractScalarFunctions(getMetadata().getFunctionAndTypeManager()))
+                .on(p -> {
+                    p.variable("col", VARCHAR);
+                    return p.project(
+                            assignment(
+                                    p.variable("a", VARCHAR), p.rowExpression("json_extract_scalar(col, '$.a')"),
+                                    p.variable("b", VARCHAR), p.rowExpression("json_extract_scalar(col, '$.b')")),
+                            p.values(p.variable("col", VARCHAR)));
+                }).doesNotFire();
+    }
+
+    @Test
+    public void testConditional()
+    {
+        tester().assertThat(new CombineJsonExtractScalarFunctions(getMetadata().getFunctionAndTypeManager()))
+                .setSystemProperty(OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD, "true")
+                .on(p -> {
+                    p.variable("col", VARCHAR);
+                    return p.project(
+                            Assignments.builder()
+                                    .put(p.variable("a", VARCHAR), p.rowExpression("json_extract_scalar(col, '$.a')"))
+                                    .put(p.variable("b", VARCHAR), p.rowExpression("IF(col IS NULL, json_extract_scalar(col, '$.b'), col)"))
+                                    .put(p.variable("c", VARCHAR), p.rowExpression("COALESCE(json_extract_scalar(col, '$.c'), json_extract_scalar(col, '$.d'))"))
+                                    .build(),
+                            p.values(p.variable("col", VARCHAR)));
+                })
+                .matches(
+                        project(
+                                ImmutableMap.of(
+                                        "a", expression("element_at(results, 1)"),
+                                        "b", expression("IF(col IS NULL, json_extract_scalar(col, '$.b'), col)"),
+                                        "c", expression("COALESCE(element_at(results, 2), json_extract_scalar(col, '$.d'))")),
+                                project(
+                                        ImmutableMap.of("col", expression("col"), "results", expression("json_extract_scalars(col, ARRAY['$.a', '$.c'])")),
+                                        values("col"))));
+    }
+
+    @Test
+    public void testOtherFunction()
+    {
+        tester().assertThat(new CombineJsonExtractScalarFunctions(getMetadata().getFunctionAndTypeManager()))
+                .setSystemProperty(OPTIMIZE_MULTIPLE_JSON_EXTRACT_SCALAR_ON_SAME_FIELD, "true")
+                .on(p -> {
+                    p.variable("col", VARCHAR);
+                    // a function named like json_extract_scalar which is not the built-in one
+                    CallExpression other = new CallExpression(
+                            "json_extract_scalar",
+                            getMetadata().getFunctionAndTypeManager().lookupFunction("concat", fromTypes(VARCHAR, VARCHAR)),
+                            VARCHAR,
+                            ImmutableList.of(p.variable("col", VARCHAR), constant(utf8Slice("$.b"), VARCHAR)));
+                    return p.project(
+                            assignment(
+                                    p.variable("a", VARCHAR), p.rowExpression("json_extract_scalar(col, '$.a')"),
+                                    p.variable("b", VARCHAR), other),
+                            p.values(p.variable("col", VARCHAR)));
+                }).doesNotFire();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.type;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import io.airlift.joni.Matcher;
+import io.airlift.joni.Option;
+import io.airlift.joni.Regex;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static com.facebook.presto.type.LiteralPatternMatcher.MAX_AUTOMATON_STATES;
+import static com.facebook.presto.type.LiteralPatternMatcher.forLikePattern;
+import static com.facebook.presto.type.LiteralPatternMatcher.forRegexp;
+import static com.facebook.presto.type.LiteralPatternMatcher.indexOf;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLiteralPatternMatcher
+{
+    private static final List<String> VALUES = ImmutableList.of(
+            "",
+            "a",
+            "abc",
+            "abcabc",
+            "xabcx",
+            "foo bar baz",
+            "quickly and slyly",
+            "ünïcödé ünï",
+            "line\nbreak",
+            Strings.repeat("ab", 20) + "abc" + Strings.repeat("x", 13));
+
+    @Test
+    public void testIndexOf()
+    {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            String haystack = randomString(random, random.nextInt(40));
+            String needle = randomString(random, 1 + random.nextInt(3));
+            int from = random.nextInt(haystack.length() + 1);
+            int to = from + random.nextInt(haystack.length() - from + 1);
+            int expected = haystack.substring(0, to).indexOf(needle, from);
+            assertEquals(indexOf(utf8Slice(haystack), from, to, utf8Slice(needle)), expected, haystack + " " + needle);
+        }
+        assertEquals(indexOf(utf8Slice("abc"), 1, 3, utf8Slice("")), 1);
+    }
+
+    @Test
+    public void testLikePatterns()
+    {
+        List<String> patterns = ImmutableList.of(
+                "", "%", "%%", "a", "abc", "abc%", "%abc", "%abc%", "a%c", "a%b%c", "%b%b%", "abc%abc", "%ly%ly%",
+                "ünï%", "%ünï", "%break", "line%", "%\n%", "%x");
+        for (String pattern : patterns) {
+            Regex regex = LikeFunctions.likePattern(utf8Slice(pattern));
+            Optional<LiteralPatternMatcher> matcher = forLikePattern(pattern, '0', false);
+            assertTrue(matcher.isPresent(), pattern);
+            for (String value : VALUES) {
+                assertEquals(matcher.get().matches(utf8Slice(value)), engineLike(regex, utf8Slice(value)), pattern + " " + value);
+            }
+        }
+    }
+
+    @Test
+    public void testLikePatternsWithEscape()
+    {
+        assertFalse(forLikePattern("a_c", '\\', true).isPresent());
+        assertFalse(forLikePattern("%a_", '\\', false).isPresent());
+
+        LiteralPatternMatcher matcher = forLikePattern("%a\\_c%", '\\', true).get();
+        assertTrue(matcher.matches(utf8Slice("xa_cx")));
+        assertFalse(matcher.matches(utf8Slice("xabcx")));
+
+        matcher = forLikePattern("100\\%%", '\\', true).get();
+        assertTrue(matcher.matches(utf8Slice("100% sure")));
+        assertFalse(matcher.matches(utf8Slice("1000 sure")));
+    }
+
+    @Test
+    public void testRegexpPatterns()
+    {
+        List<String> patterns = ImmutableList.of("a", "abc", "ly", "bar", "ünï", "break", "abc|xyz", "foo|baz|ly", "b|bc|abcx", "sly|slyly", "x|ünï");
+        for (String pattern : patterns) {
+            Optional<LiteralPatternMatcher> matcher = forRegexp(pattern);
+            assertTrue(matcher.isPresent(), pattern);
+            for (String value : VALUES) {
+                assertEquals(matcher.get().matches(utf8Slice(value)), Pattern.compile(pattern).matcher(value).find(), pattern + " " + value);
+            }
+        }
+
+        for (String pattern : ImmutableList.of("a.c", "^abc", "abc$", "a|", "|a", "a||b", "a+", "(a)", "[ab]", "a{2}", "\\d", "a?", "\uFFFD")) {
+            assertFalse(forRegexp(pattern).isPresent(), pattern);
+        }
+        assertFalse(forRegexp(Strings.repeat("ab|", MAX_AUTOMATON_STATES / 2) + "ab").isPresent());
+    }
+
+    private static boolean engineLike(Regex regex, Slice value)
+    {
+        Matcher matcher = regex.matcher(value.getBytes());
+        return matcher.match(0, value.length(), Option.NONE) != -1;
+    }
+
+    private static String randomString(Random random, int length)
+    {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(3)));
+        }
+        return builder.toString();
+    }
+}
@@ -48,7 +48,12 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static com.facebook.airlift.concurrent.Threads.threadsNamed;
+import static com.facebook.presto.common.RuntimeMetricName.MEMORY_ARBITRATION_PROTECTED_COUNT;
+import static com.facebook.presto.common.RuntimeMetricName.MEMORY_ARBITRATION_REVOKED_BYTES;
+import static com.facebook.presto.common.RuntimeUnit.BYTE;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.execution.MemoryRevokingUtils.getMemoryPools;
+import static com.facebook.presto.sql.analyzer.FeaturesConfig.TaskSpillingStrategy.ORDER_BY_SPILL_COST;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.TaskSpillingStrategy.PER_TASK_MEMORY_THRESHOLD;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Verify.verify;
@@ -62,6 +67,9 @@ public class MemoryRevokingScheduler
     private static final Logger log = Logger.get(MemoryRevokingScheduler.class);
 
     private static final Ordering<SqlTask> ORDER_BY_CREATE_TIME = Ordering.natural().onResultOf(SqlTask::getTaskCreatedTime);
+    // cheapest to spill first, and among equally cheap operators the ones freeing the most memory
+    private static final Comparator<RevocationCandidate> ORDER_BY_SPILL_COST_PER_BYTE = Comparator.comparingDouble(RevocationCandidate::getSpillCostPerByte)
+            .thenComparing(Comparator.comparingLong(RevocationCandidate::getRevocableBytes).reversed());
 
     private final Function<QueryId, QueryContext> queryContextSupplier;
     private final Supplier<List<SqlTask>> currentTasksSupplier;
@@ -286,6 +294,11 @@ public class MemoryRevokingScheduler
 
     private void requestRevoking(MemoryPoolId memoryPoolId, ArrayList<SqlTask> sqlTasks, long remainingBytesToRevoke)
     {
+        if (spillingStrategy == ORDER_BY_SPILL_COST) {
+            requestRevokingBySpillCost(memoryPoolId, sqlTasks, remainingBytesToRevoke);
+            return;
+        }
+
         VoidTraversingQueryContextVisitor<AtomicLong> visitor = new VoidTraversingQueryContextVisitor<AtomicLong>()
         {
             @Override
@@ -329,6 +342,49 @@ public class MemoryRevokingScheduler
         }
     }
 
+    /**
+     * Ranks the revocable operators of all tasks in the pool by their estimated spill cost per byte and
+     * revokes the cheapest ones until enough memory is freed. Operators close to completion report an
+     * infinite cost and are never revoked, as they release their memory soon anyway.
+     */
+    private void requestRevokingBySpillCost(MemoryPoolId memoryPoolId, List<SqlTask> sqlTasks, long remainingBytesToRevoke)
+    {
+        List<RevocationCandidate> candidates = new ArrayList<>();
+        VoidTraversingQueryContextVisitor<List<RevocationCandidate>> visitor = new VoidTraversingQueryContextVisitor<List<RevocationCandidate>>()
+        {
+            @Override
+            public Void visitOperatorContext(OperatorContext operatorContext, List<RevocationCandidate> candidates)
+            {
+                long revocableBytes = operatorContext.getReservedRevocableBytes();
+                if (revocableBytes > 0 && !operatorContext.isMemoryRevokingRequested()) {
+                    candidates.add(new RevocationCandidate(operatorContext, operatorContext.getSpillCostPerByte(), revocableBytes));
+                }
+                return null;
+            }
+        };
+        for (SqlTask task : sqlTasks) {
+            task.getTaskContext().ifPresent(taskContext -> taskContext.accept(visitor, candidates));
+        }
+        candidates.sort(ORDER_BY_SPILL_COST_PER_BYTE);
+
+        for (RevocationCandidate candidate : candidates) {
+            if (remainingBytesToRevoke <= 0) {
+                return;
+            }
+            OperatorContext operatorContext = candidate.getOperatorContext();
+            if (Double.isInfinite(candidate.getSpillCostPerByte())) {
+                operatorContext.getRuntimeStats().addMetricValue(MEMORY_ARBITRATION_PROTECTED_COUNT, NONE, 1);
+                continue;
+            }
+            long revokedBytes = operatorContext.requestMemoryRevoking();
+            if (revokedBytes > 0) {
+                remainingBytesToRevoke -= revokedBytes;
+                operatorContext.getRuntimeStats().addMetricValue(MEMORY_ARBITRATION_REVOKED_BYTES, BYTE, revokedBytes);
+                log.debug("memoryPool=%s, operatorContext: %s: requested revoking %s with spill cost %s; remaining %s", memoryPoolId, operatorContext, revokedBytes, candidate.getSpillCostPerByte(), remainingBytesToRevoke);
+            }
+        }
+    }
+
     private static void sortTasksToTraversalOrder(ArrayList<SqlTask> sqlTasks, TaskSpillingStrategy spillingStrategy)
     {
         switch (spillingStrategy) {
@@ -343,6 +399,8 @@ public class MemoryRevokingScheduler
                 }
                 sqlTasks.sort(Ordering.natural().reverse().onResultOf(task -> task == null ? 0L : taskRevocableReservations.getOrDefault(task.getTaskId(), 0L)));
                 break;
+            case ORDER_BY_SPILL_COST:
+                throw new IllegalArgumentException("spilling strategy ORDER_BY_SPILL_COST revokes operators rather than tasks");
             case PER_TASK_MEMORY_THRESHOLD:
                 throw new IllegalArgumentException("spilling strategy cannot be PER_TASK_MEMORY_THRESHOLD in MemoryRevokingScheduler");
             default:
@@ -358,4 +416,34 @@ public class MemoryRevokingScheduler
                 .forEach(sqlTasks::add); // Resulting list must be mutable to enable sorting after the fact
         return sqlTasks;
     }
+
+    private static class RevocationCandidate
+    {
+        private final OperatorContext operatorContext;
+        // snapshot of the operator state, so that the candidates order does not change while sorting
+        private final double spillCostPerByte;
+        private final long revocableBytes;
+
+        public RevocationCandidate(OperatorContext operatorContext, double spillCostPerByte, long revocableBytes)
+        {
+            this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+            this.spillCostPerByte = spillCostPerByte;
+            this.revocableBytes = revocableBytes;
+        }
+
+        public OperatorContext getOperatorContext()
+        {
+            return operatorContext;
+        }
+
+        public double getSpillCostPerByte()
+        {
+            return spillCostPerByte;
+        }
+
+        public long getRevocableBytes()
+        {
+            return revocableBytes;
+        }
+    }
 }
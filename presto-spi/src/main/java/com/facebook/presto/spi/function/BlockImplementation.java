@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.function;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks a public static method that evaluates a scalar function over whole blocks, used instead of
+ * the per-row implementation when all the arguments of a call are input columns. The method is
+ * annotated with the {@link SqlType} of the result, takes an optional leading
+ * {@code SqlFunctionProperties}, one {@code Block} annotated with its {@link SqlType} per argument,
+ * then {@code int[] positions, int offset, int positionCount, BlockBuilder output}, and appends
+ * to the output the value, or null, for each of the positions {@code positions[offset]} to
+ * {@code positions[offset + positionCount - 1]}, or for the range of positions starting at
+ * {@code offset} when {@code positions} is null, with the same semantics as the per-row
+ * implementation, including for null arguments.
+ * <p>
+ * In a class annotated with {@link ScalarFunction}, the method is matched to the implementation with
+ * the same argument types. In a class with several functions, the method is also annotated with the
+ * {@link ScalarFunction} or {@link ScalarOperator} it implements.
+ */
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface BlockImplementation
+{
+}
@@ -69,6 +69,8 @@ import static com.facebook.airlift.units.DataSize.Unit.GIGABYTE;
 import static com.facebook.airlift.units.DataSize.Unit.KILOBYTE;
 import static com.facebook.airlift.units.DataSize.Unit.MEGABYTE;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.common.RuntimeMetricName.MEMORY_ARBITRATION_PROTECTED_COUNT;
+import static com.facebook.presto.common.RuntimeMetricName.MEMORY_ARBITRATION_REVOKED_BYTES;
 import static com.facebook.presto.execution.SqlTask.createSqlTask;
 import static com.facebook.presto.execution.TaskManagerConfig.TaskPriorityTracking.TASK_FAIR;
 import static com.facebook.presto.execution.TaskTestUtils.PLAN_FRAGMENT;
@@ -82,6 +84,7 @@ import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEm
 import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.TaskSpillingStrategy.ORDER_BY_CREATE_TIME;
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.TaskSpillingStrategy.ORDER_BY_REVOCABLE_BYTES;
+import static com.facebook.presto.sql.analyzer.FeaturesConfig.TaskSpillingStrategy.ORDER_BY_SPILL_COST;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
@@ -368,6 +371,57 @@ public class TestMemoryRevokingScheduler
         }
     }
 
+    @Test
+    public void testOperatorRevokingOrderForSpillCost()
+            throws Exception
+    {
+        SqlTask sqlTask1 = newSqlTask(new QueryId("query1"), memoryPool);
+        TestOperatorContext operatorContext1 = createTestingOperatorContexts(sqlTask1, "operator1");
+        operatorContext1.setSpillCostPerByte(2.0);
+
+        SqlTask sqlTask2 = newSqlTask(new QueryId("query2"), memoryPool);
+        TestOperatorContext operatorContext2 = createTestingOperatorContexts(sqlTask2, "operator2");
+        operatorContext2.setSpillCostPerByte(1.0);
+
+        SqlTask sqlTask3 = newSqlTask(new QueryId("query3"), memoryPool);
+        TestOperatorContext operatorContext3 = createTestingOperatorContexts(sqlTask3, "operator3");
+        operatorContext3.setSpillCostPerByte(Double.POSITIVE_INFINITY);
+
+        allOperatorContexts = ImmutableSet.of(operatorContext1, operatorContext2, operatorContext3);
+        List<SqlTask> tasks = ImmutableList.of(sqlTask1, sqlTask2, sqlTask3);
+        MemoryRevokingScheduler scheduler = new MemoryRevokingScheduler(
+                singletonList(memoryPool),
+                () -> tasks,
+                queryContexts::get,
+                1.0,
+                0.0,
+                ORDER_BY_SPILL_COST,
+                false);
+        try {
+            scheduler.start();
+            scheduler.awaitAsynchronousCallbacksRun();
+            assertMemoryRevokingNotRequested();
+
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            scheduler.submitAsynchronousCallable(() -> future.get());
+            operatorContext1.localRevocableMemoryContext().setBytes(4);
+            operatorContext2.localRevocableMemoryContext().setBytes(4);
+            operatorContext3.localRevocableMemoryContext().setBytes(3);
+            future.complete(null);
+
+            scheduler.awaitAsynchronousCallbacksRun();
+            // operator3 is protected even though the revoking target is not reached
+            assertMemoryRevokingRequestedFor(operatorContext1, operatorContext2);
+            assertEquals(TestOperatorContext.firstOperator, "operator2");
+            assertEquals(operatorContext2.getRuntimeStats().getMetric(MEMORY_ARBITRATION_REVOKED_BYTES).getSum(), 4);
+            // every revoking round that reaches operator3 skips it again
+            assertTrue(operatorContext3.getRuntimeStats().getMetric(MEMORY_ARBITRATION_PROTECTED_COUNT).getCount() > 0);
+        }
+        finally {
+            scheduler.stop();
+        }
+    }
+
     @Test
     public void testTaskThresholdRevokingScheduler()
             throws Exception